@@ -125,6 +125,11 @@ public class CommandLineOptions {
         usage = "For debugging, continue on with resolution even if there are parse errors.")
     private boolean resolveDespiteParseErrors;
 
+    @Option(name = "--threads",
+        usage = "Number of threads used to parse, resolve and analyze\n"
+            + " independent libraries (default 1)")
+    private int threadCount = 1;
+
     @Option(name = "--type-checks-for-inferred-types",
         usage = "[not in spec] Enables 'interface has no method/field' for receivers with inferred types.")
     private boolean typeChecksForInferredTypes = false;
@@ -198,6 +203,14 @@ public class CommandLineOptions {
       return workDirectory;
     }
 
+    /**
+     * Returns the number of threads used to resolve and analyze libraries that do not depend on
+     * each other.
+     */
+    public int getThreadCount() {
+      return threadCount;
+    }
+
     public boolean ignoreUnrecognizedFlags() {
       return ignoreUnrecognizedFlags;
     }
@@ -69,6 +69,10 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 /**
  * Entry point for the Dart compiler.
@@ -103,11 +107,76 @@ public class DartCompiler {
   public static final String MAIN_ENTRY_POINT_NAME = "main";
 
   private static class Compiler {
+
+    /**
+     * Parses one of the sources of a library, possibly on another thread. The source is fully
+     * parsed if it is out-of-date, and diet parsed otherwise.
+     */
+    private final class ParseTask implements Callable<Void> {
+      private final LibrarySource libSrc;
+      private final DartSource dartSrc;
+      private final Set<String> prefixes;
+      private final DartUnit suppliedUnit;
+      private final DartCompilerBufferedContext parseContext =
+          new DartCompilerBufferedContext(context);
+      private boolean diet;
+      private DartUnit unit;
+      private IOException exception;
+
+      ParseTask(LibrarySource libSrc, DartSource dartSrc, Set<String> prefixes,
+          DartUnit suppliedUnit) {
+        this.libSrc = libSrc;
+        this.dartSrc = dartSrc;
+        this.prefixes = prefixes;
+        this.suppliedUnit = suppliedUnit;
+      }
+
+      @Override
+      public Void call() {
+        try {
+          diet = incremental
+              && !PackageLibraryManager.isDartUri(libSrc.getUri())
+              && !isSourceOutOfDate(dartSrc);
+          if (suppliedUnit == null) {
+            unit = parse(dartSrc, prefixes, diet, parseContext);
+          }
+        } catch (IOException e) {
+          exception = e;
+        }
+        return null;
+      }
+
+      /**
+       * Report the errors found while parsing and return the parsed unit. This must be called on
+       * the compiler thread, in the order the sources would have been parsed serially.
+       *
+       * @return the parsed unit, maybe <code>null</code>
+       */
+      DartUnit getUnit() throws IOException {
+        if (suppliedUnit != null) {
+          return suppliedUnit;
+        }
+        parseContext.flush();
+        if (exception != null) {
+          throw exception;
+        }
+        return checkParseErrors(unit);
+      }
+    }
+
     private final LibrarySource app;
     private final List<LibrarySource> embeddedLibraries = new ArrayList<LibrarySource>();
     private final DartCompilerMainContext context;
     private final CompilerConfiguration config;
     private final Map<URI, LibraryUnit> libraries = new LinkedHashMap<URI, LibraryUnit>();
+
+    /**
+     * The units parsed or taken from the {@link #getUnitCache() unit cache} by this compilation, to
+     * put back in the cache if they are not resolved.
+     */
+    private final Map<DartUnit, DartUnitCache.Entry> parsedUnits =
+        Collections.synchronizedMap(Maps.<DartUnit, DartUnitCache.Entry>newIdentityHashMap());
+
     private CoreTypeProvider typeProvider;
     private final boolean incremental;
     private final List<DartCompilationPhase> phases;
@@ -199,6 +268,57 @@ public class DartCompiler {
       }
     }
 
+    /**
+     * Parses the existing sources of all the libraries to process, on a pool of threads if more
+     * than one thread is used.
+     *
+     * @return the tasks that parsed the sources, keyed by the node naming the source in its library
+     */
+    private Map<LibraryNode, ParseTask> parseSources() {
+      Map<LibraryNode, ParseTask> parseTasks = Maps.newHashMap();
+      for (LibraryUnit lib : getLibrariesToProcess()) {
+        LibrarySource libSrc = lib.getSource();
+        Set<String> prefixes = lib.getPrefixes();
+        for (LibraryNode sourcePathNode : lib.getSourcePaths()) {
+          DartSource dartSrc = libSrc.getSourceFor(sourcePathNode.getText());
+          if (dartSrc == null || !dartSrc.exists()) {
+            continue;
+          }
+          parseTasks.put(sourcePathNode,
+              new ParseTask(libSrc, dartSrc, prefixes, getSuppliedUnit(dartSrc)));
+        }
+      }
+
+      int threadCount = getThreadCount();
+      if (threadCount > 1 && parseTasks.size() > 1) {
+        ExecutorService executor = LibraryScheduler.newThreadPool(threadCount);
+        try {
+          for (Future<Void> future : executor.invokeAll(parseTasks.values())) {
+            future.get();
+          }
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new InternalCompilerException("Interrupted while parsing", e);
+        } catch (ExecutionException e) {
+          Throwable cause = e.getCause();
+          if (cause instanceof RuntimeException) {
+            throw (RuntimeException) cause;
+          }
+          if (cause instanceof Error) {
+            throw (Error) cause;
+          }
+          throw new InternalCompilerException("Failed to parse", cause);
+        } finally {
+          executor.shutdown();
+        }
+      } else {
+        for (ParseTask parseTask : parseTasks.values()) {
+          parseTask.call();
+        }
+      }
+      return parseTasks;
+    }
+
     /**
      * This method reads all libraries. They will be populated from some combination of fully-parsed
      * and diet-parser compilation units.
@@ -211,6 +331,7 @@ public class DartCompiler {
 
       try {
         final Set<String> topLevelSymbolsDiff = Sets.newHashSet();
+        Map<LibraryNode, ParseTask> parseTasks = parseSources();
         for (LibraryUnit lib : getLibrariesToProcess()) {
           LibrarySource libSrc = lib.getSource();
           LibraryNode selfSourcePath = lib.getSelfSourcePath();
@@ -219,21 +340,18 @@ public class DartCompiler {
           LibraryDeps deps = lib.getDeps(context);
           Set<String> newUnitPaths = Sets.newHashSet();
 
-          // Parse each compilation unit.
+          // Merge each parsed compilation unit.
           for (LibraryNode sourcePathNode : lib.getSourcePaths()) {
             String relPath = sourcePathNode.getText();
             newUnitPaths.add(relPath);
 
-            // Prepare DartSource for "#source" unit.
-            final DartSource dartSrc = libSrc.getSourceFor(relPath);
-            if (dartSrc == null || !dartSrc.exists()) {
+            ParseTask parseTask = parseTasks.get(sourcePathNode);
+            if (parseTask == null) {
               continue;
             }
+            DartUnit unit = parseTask.getUnit();
 
-            if (!incremental
-                || PackageLibraryManager.isDartUri(libSrc.getUri())
-                || isSourceOutOfDate(dartSrc)) {
-              DartUnit unit = parse(dartSrc, lib.getPrefixes(),  false);
+            if (!parseTask.diet) {
               // If we just parsed unit of library, report problems.
               if (sourcePathNode == selfSourcePath) {
                 // report "#import" problems
@@ -275,7 +393,7 @@ public class DartCompiler {
                 }
               }
             } else {
-              DartUnit dietUnit = parse(dartSrc, lib.getPrefixes(), true);
+              DartUnit dietUnit = unit;
               if (dietUnit != null) {
                 if (sourcePathNode == selfSourcePath) {
                   lib.setSelfDartUnit(dietUnit);
@@ -583,21 +701,93 @@ public class DartCompiler {
         // compile.
 
         // Resolve super class chain, and build the member elements. Both passes
-        // need the library scope to be setup. Each for loop can be
-        // parallelized.
-        for (LibraryUnit lib : getLibrariesToProcess()) {
-          for (DartUnit unit : lib.getUnits()) {
-            // These two method calls can be parallelized.
-            new SupertypeResolver().exec(unit, context, getTypeProvider());
-            new MemberBuilder().exec(unit, context, getTypeProvider());
+        // need the library scope to be setup. Libraries that do not depend on
+        // each other are resolved in parallel if more than one thread is used.
+        Collection<LibraryUnit> libs = getLibrariesToProcess();
+        int threadCount = getThreadCount();
+        if (threadCount > 1) {
+          final Map<LibraryUnit, DartCompilerBufferedContext> contexts =
+              createBufferedContexts(libs);
+          runInParallel(libs, threadCount, new LibraryScheduler.LibraryTask() {
+            @Override
+            public void run(LibraryUnit lib) {
+              resolveLibrary(lib, contexts.get(lib));
+            }
+          });
+          for (LibraryUnit lib : libs) {
+            contexts.get(lib).flush();
+          }
+        } else {
+          for (LibraryUnit lib : libs) {
+            resolveLibrary(lib, context);
           }
         }
-
       } finally {
         Tracer.end(logEvent);
       }
     }
 
+    /**
+     * Resolve the super class chain and build the member elements of the units of the given
+     * library, reporting errors to the given context.
+     */
+    private void resolveLibrary(LibraryUnit lib, DartCompilerContext libContext) {
+      CompilerMetrics compilerMetrics = context.getCompilerMetrics();
+      long supertypeTime = 0;
+      long memberTime = 0;
+      for (DartUnit unit : lib.getUnits()) {
+        long start = compilerMetrics != null ? CompilerMetrics.getThreadTime() : 0;
+        new SupertypeResolver().exec(unit, libContext, getTypeProvider());
+        long middle = compilerMetrics != null ? CompilerMetrics.getThreadTime() : 0;
+        new MemberBuilder().exec(unit, libContext, getTypeProvider());
+        long end = compilerMetrics != null ? CompilerMetrics.getThreadTime() : 0;
+        supertypeTime += middle - start;
+        memberTime += end - middle;
+      }
+      if (compilerMetrics != null) {
+        compilerMetrics.addPhaseTimeNano(SupertypeResolver.class.getSimpleName(), supertypeTime);
+        compilerMetrics.addPhaseTimeNano(MemberBuilder.class.getSimpleName(), memberTime);
+      }
+    }
+
+    /**
+     * @return the number of threads used to resolve and compile libraries.
+     */
+    private int getThreadCount() {
+      CompilerOptions compilerOptions = config.getCompilerOptions();
+      return compilerOptions != null ? compilerOptions.getThreadCount() : 1;
+    }
+
+    /**
+     * Create a context keeping the errors of each of the given libraries while it is processed on
+     * another thread.
+     */
+    private Map<LibraryUnit, DartCompilerBufferedContext> createBufferedContexts(
+        Collection<LibraryUnit> libs) {
+      Map<LibraryUnit, DartCompilerBufferedContext> contexts = Maps.newHashMap();
+      for (LibraryUnit lib : libs) {
+        contexts.put(lib, new DartCompilerBufferedContext(context));
+      }
+      return contexts;
+    }
+
+    /**
+     * Run the given task for each of the given libraries, after the libraries it depends on.
+     */
+    private void runInParallel(Collection<LibraryUnit> libs, int threadCount,
+        LibraryScheduler.LibraryTask task) {
+      try {
+        new LibraryScheduler(libs, threadCount).run(task);
+      } catch (RuntimeException e) {
+        throw e;
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new InternalCompilerException("Interrupted while processing libraries", e);
+      } catch (Exception e) {
+        throw new InternalCompilerException("Failed to process libraries", e);
+      }
+    }
+
     private void validateLibraryDirectives() {
       for (LibraryUnit lib : getLibrariesToProcess()) {
         // don't need to validate system libraries
@@ -834,28 +1024,34 @@ public class DartCompiler {
         // Set entry point
         setEntryPoint();
 
-        // The two following for loops can be parallelized.
-        for (LibraryUnit lib : getLibrariesToProcess()) {
+        // Libraries that do not depend on each other are compiled in parallel if
+        // more than one thread is used. Their errors are then reported in order.
+        Collection<LibraryUnit> libs = getLibrariesToProcess();
+        Map<LibraryUnit, DartCompilerBufferedContext> contexts = null;
+        int threadCount = getThreadCount();
+        if (threadCount > 1) {
+          final Map<LibraryUnit, DartCompilerBufferedContext> libContexts =
+              createBufferedContexts(libs);
+          runInParallel(libs, threadCount, new LibraryScheduler.LibraryTask() {
+            @Override
+            public void run(LibraryUnit lib) {
+              compileLibrary(lib, libContexts.get(lib));
+            }
+          });
+          contexts = libContexts;
+        }
+
+        for (LibraryUnit lib : libs) {
           boolean persist = false;
 
           // Compile all the units in this library.
-          for (DartCompilationPhase phase : phases) {
-
-            // Run all compiler phases including AST simplification and symbol
-            // resolution. This must run in serial.
-            for (DartUnit unit : lib.getUnits()) {
-              
-              // Don't compile diet units.
-              if (unit.isDiet()) {
-                continue;
-              }
-
-              unit = phase.exec(unit, context, getTypeProvider());
-              if (!config.resolveDespiteParseErrors() && context.getErrorCount() > 0) {
-                return;
-              }
+          if (contexts != null) {
+            contexts.get(lib).flush();
+            if (!config.resolveDespiteParseErrors() && context.getErrorCount() > 0) {
+              return;
             }
-
+          } else if (!compileLibrary(lib, context)) {
+            return;
           }
 
           for (DartUnit unit : lib.getUnits()) {
@@ -884,6 +1080,56 @@ public class DartCompiler {
       }
     }
 
+    /**
+     * Run all compiler phases, including AST simplification and symbol resolution, over the units
+     * of the given library, reporting errors to the given context.
+     *
+     * @return <code>false</code> if compilation stopped because of errors
+     */
+    private boolean compileLibrary(LibraryUnit lib, DartCompilerContext libContext) {
+      CompilerMetrics compilerMetrics = context.getCompilerMetrics();
+      for (DartCompilationPhase phase : phases) {
+        String phaseName = phase.getClass().getName();
+        phaseName = phaseName.substring(phaseName.lastIndexOf('.') + 1);
+        TraceEvent phaseEvent = Tracer.canTrace() ? Tracer.start(DartEventType.EXEC_PHASE,
+            "phase", phaseName, "lib", lib.getSource().getName(),
+            "thread", Thread.currentThread().getName()) : null;
+        long phaseStart = compilerMetrics != null ? CompilerMetrics.getThreadTime() : 0;
+        try {
+          // The phases run in serial over the units of a library.
+          for (DartUnit unit : lib.getUnits()) {
+
+            // Don't compile diet units.
+            if (unit.isDiet()) {
+              continue;
+            }
+
+            unit = phase.exec(unit, libContext, getTypeProvider());
+            if (!config.resolveDespiteParseErrors() && getErrorCount(libContext) > 0) {
+              return false;
+            }
+          }
+        } finally {
+          if (compilerMetrics != null) {
+            compilerMetrics.addPhaseTimeNano(phaseName,
+                CompilerMetrics.getThreadTime() - phaseStart);
+          }
+          Tracer.end(phaseEvent);
+        }
+      }
+      return true;
+    }
+
+    /**
+     * @return the number of errors reported so far to the given context.
+     */
+    private int getErrorCount(DartCompilerContext libContext) {
+      if (libContext instanceof DartCompilerBufferedContext) {
+        return ((DartCompilerBufferedContext) libContext).getErrorCount();
+      }
+      return context.getErrorCount();
+    }
+
     private void updateAnalysisTimestamp(DartUnit unit) throws IOException {
       // Update timestamp.
       Writer writer =
@@ -894,6 +1140,18 @@ public class DartCompiler {
     }
 
     DartUnit parse(DartSource dartSrc, Set<String> libraryPrefixes, boolean diet) throws IOException {
+      DartCompilerBufferedContext parseContext = new DartCompilerBufferedContext(context);
+      DartUnit unit = parse(dartSrc, libraryPrefixes, diet, parseContext);
+      parseContext.flush();
+      return checkParseErrors(unit);
+    }
+
+    /**
+     * Parses the given source, or finds it in the {@link #getUnitCache() unit cache}, reporting
+     * errors to the given context. This may be called on any thread.
+     */
+    private DartUnit parse(DartSource dartSrc, Set<String> libraryPrefixes, boolean diet,
+        DartCompilerBufferedContext parseContext) throws IOException {
       TraceEvent parseEvent =
           Tracer.canTrace() ? Tracer.start(DartEventType.PARSE, "src", dartSrc.getName()) : null;
       CompilerMetrics compilerMetrics = context.getCompilerMetrics();
@@ -909,17 +1167,25 @@ public class DartCompiler {
           Closeables.close(r, failed);
         }
 
-        DartParser parser = new DartParser(dartSrc, srcCode, diet, libraryPrefixes, context,
+        DartUnitCache unitCache = getUnitCache();
+        if (unitCache != null) {
+          DartUnitCache.Entry entry =
+              unitCache.take(dartSrc, srcCode, diet, libraryPrefixes, parseContext);
+          if (entry != null) {
+            parsedUnits.put(entry.getUnit(), entry);
+            return entry.getUnit();
+          }
+        }
+
+        DartParser parser = new DartParser(dartSrc, srcCode, diet, libraryPrefixes, parseContext,
             context.getCompilerMetrics());
         DartUnit unit = parser.parseUnit();
         if (compilerMetrics != null) {
           compilerMetrics.addParseTimeNano(CompilerMetrics.getThreadTime() - parseStart);
         }
-
-        if (!config.resolveDespiteParseErrors() && context.getErrorCount() > 0) {
-          // We don't return this unit, so no more processing expected for it.
-          context.unitCompiled(unit);
-          return null;
+        if (unitCache != null) {
+          parsedUnits.put(unit, new DartUnitCache.Entry(dartSrc, srcCode, diet, libraryPrefixes,
+              unit, parseContext.getErrors()));
         }
         return unit;
       } finally {
@@ -927,6 +1193,40 @@ public class DartCompiler {
       }
     }
 
+    /**
+     * @return the given unit, or <code>null</code> if errors were reported and the compiler should
+     *         not try to resolve despite them
+     */
+    private DartUnit checkParseErrors(DartUnit unit) {
+      if (!config.resolveDespiteParseErrors() && context.getErrorCount() > 0) {
+        // We don't return this unit, so no more processing expected for it.
+        context.unitCompiled(unit);
+        // It was not resolved, so another compilation may use it.
+        DartUnitCache.Entry entry = parsedUnits.remove(unit);
+        if (entry != null) {
+          getUnitCache().put(entry);
+        }
+        return null;
+      }
+      return unit;
+    }
+
+    /**
+     * @return the unit supplied by the caller for the given source, or <code>null</code> if the
+     *         source should be parsed
+     */
+    DartUnit getSuppliedUnit(DartSource dartSrc) {
+      return null;
+    }
+
+    /**
+     * @return the cache of parsed units shared with other compilations, or <code>null</code> if
+     *         parsed units are not cached
+     */
+    DartUnitCache getUnitCache() {
+      return null;
+    }
+
     private void reportMissingSource(DartCompilerContext context,
                                      LibrarySource libSrc,
                                      LibraryNode libNode) {
@@ -964,6 +1264,15 @@ public class DartCompiler {
      * @return the cached unit or <code>null</code> if it is not cached
      */
     public abstract DartUnit getUnresolvedDartUnit(DartSource dartSrc);
+
+    /**
+     * Answer the cache of parsed units to share with other compilations
+     * 
+     * @return the cache or <code>null</code> if parsed units should not be cached
+     */
+    public DartUnitCache getUnitCache() {
+      return null;
+    }
   }
 
   /**
@@ -994,12 +1303,22 @@ public class DartCompiler {
 
     @Override
     DartUnit parse(DartSource dartSrc, Set<String> prefixes, boolean diet) throws IOException {
-      DartUnit parsedUnit = selectiveCache.getUnresolvedDartUnit(dartSrc);
+      DartUnit parsedUnit = getSuppliedUnit(dartSrc);
       if (parsedUnit != null) {
         return parsedUnit;
       }
       return super.parse(dartSrc, prefixes, diet);
     }
+
+    @Override
+    DartUnit getSuppliedUnit(DartSource dartSrc) {
+      return selectiveCache.getUnresolvedDartUnit(dartSrc);
+    }
+
+    @Override
+    DartUnitCache getUnitCache() {
+      return selectiveCache.getUnitCache();
+    }
   }
 
   private static CompilerOptions processCommandLineOptions(String[] args) {
@@ -0,0 +1,164 @@
+// Copyright (c) 2013, the Dart project authors.  Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+
+package com.google.dart.compiler;
+
+import com.google.common.collect.Lists;
+import com.google.dart.compiler.ast.DartUnit;
+import com.google.dart.compiler.ast.LibraryUnit;
+import com.google.dart.compiler.metrics.CompilerMetrics;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.net.URI;
+import java.util.List;
+
+/**
+ * A {@link DartCompilerContext} used to parse a unit or process a library on a worker thread.
+ * Errors and listener notifications are kept until they are {@link #flush() flushed} to the
+ * {@link DartCompilerMainContext}, so that they are reported on the compiler thread and in the same
+ * order as when the units and libraries are processed serially. Everything else is forwarded to
+ * the main context.
+ */
+final class DartCompilerBufferedContext implements DartCompilerContext, DartCompilerListener {
+
+  /**
+   * A kept {@link DartCompilerListener#unitAboutToCompile(DartSource, boolean)} notification.
+   */
+  private static class UnitAboutToCompile {
+    private final DartSource source;
+    private final boolean diet;
+
+    UnitAboutToCompile(DartSource source, boolean diet) {
+      this.source = source;
+      this.diet = diet;
+    }
+  }
+
+  private final DartCompilerMainContext context;
+
+  /**
+   * The kept {@link DartCompilationError}s, {@link UnitAboutToCompile} notifications and compiled
+   * {@link DartUnit}s, in the order they were reported.
+   */
+  private final List<Object> events = Lists.newArrayList();
+  private int errorCount;
+
+  DartCompilerBufferedContext(DartCompilerMainContext context) {
+    this.context = context;
+  }
+
+  /**
+   * Reports the errors and notifications kept so far to the main context.
+   */
+  void flush() {
+    for (Object event : events) {
+      if (event instanceof DartCompilationError) {
+        context.onError((DartCompilationError) event);
+      } else if (event instanceof UnitAboutToCompile) {
+        UnitAboutToCompile aboutToCompile = (UnitAboutToCompile) event;
+        context.unitAboutToCompile(aboutToCompile.source, aboutToCompile.diet);
+      } else {
+        context.unitCompiled((DartUnit) event);
+      }
+    }
+    events.clear();
+    errorCount = 0;
+  }
+
+  @Override
+  public LibraryUnit getApplicationUnit() {
+    return context.getApplicationUnit();
+  }
+
+  @Override
+  public LibraryUnit getAppLibraryUnit() {
+    return context.getAppLibraryUnit();
+  }
+
+  @Override
+  public Reader getArtifactReader(Source source, String part, String extension)
+      throws IOException {
+    return context.getArtifactReader(source, part, extension);
+  }
+
+  @Override
+  public URI getArtifactUri(DartSource source, String part, String extension) {
+    return context.getArtifactUri(source, part, extension);
+  }
+
+  @Override
+  public Writer getArtifactWriter(Source source, String part, String extension)
+      throws IOException {
+    return context.getArtifactWriter(source, part, extension);
+  }
+
+  @Override
+  public CompilerConfiguration getCompilerConfiguration() {
+    return context.getCompilerConfiguration();
+  }
+
+  @Override
+  public CompilerMetrics getCompilerMetrics() {
+    return context.getCompilerMetrics();
+  }
+
+  /**
+   * @return the errors kept so far.
+   */
+  public List<DartCompilationError> getErrors() {
+    List<DartCompilationError> errors = Lists.newArrayList();
+    for (Object event : events) {
+      if (event instanceof DartCompilationError) {
+        errors.add((DartCompilationError) event);
+      }
+    }
+    return errors;
+  }
+
+  /**
+   * @return the number of errors reported to the main context plus the number of errors kept by
+   *         this context, as the main context will count them.
+   */
+  public int getErrorCount() {
+    return context.getErrorCount() + errorCount;
+  }
+
+  @Override
+  public LibraryUnit getLibraryUnit(LibrarySource libSrc) {
+    return context.getLibraryUnit(libSrc);
+  }
+
+  @Override
+  public LibrarySource getSystemLibraryFor(String importSpec) {
+    return context.getSystemLibraryFor(importSpec);
+  }
+
+  @Override
+  public boolean isOutOfDate(Source source, Source base, String extension) {
+    return context.isOutOfDate(source, base, extension);
+  }
+
+  @Override
+  public void onError(DartCompilationError event) {
+    if (DartCompilerMainContext.isIgnored(event)) {
+      return;
+    }
+    events.add(event);
+    if (event.getErrorCode().getErrorSeverity() == ErrorSeverity.ERROR) {
+      errorCount++;
+    }
+  }
+
+  @Override
+  public void unitAboutToCompile(DartSource source, boolean diet) {
+    events.add(new UnitAboutToCompile(source, diet));
+  }
+
+  @Override
+  public void unitCompiled(DartUnit unit) {
+    events.add(unit);
+  }
+}
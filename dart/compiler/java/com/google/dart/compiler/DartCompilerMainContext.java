@@ -56,8 +56,10 @@ final class DartCompilerMainContext implements DartCompilerListener, DartCompile
     this.compilerConfiguration = compilerConfiguration;
   }
 
-  @Override
-  public void onError(DartCompilationError event) {
+  /**
+   * @return <code>true</code> if the given error should not be remembered, counted or reported.
+   */
+  static boolean isIgnored(DartCompilationError event) {
     // problems in dart:core are not interesting
     // http://code.google.com/p/dart/issues/detail?id=7128
     if (Elements.isCoreLibrarySource(event.getSource())) {
@@ -70,9 +72,17 @@ final class DartCompilerMainContext implements DartCompilerListener, DartCompile
           || ec == TypeErrorCode.CANNOT_OVERRIDE_TYPED_MEMBER
           || ec == TypeErrorCode.CANNOT_OVERRIDE_METHOD_NOT_SUBTYPE
           || ec == TypeErrorCode.OPERATOR_WRONG_OPERAND_TYPE) {
-        return;
+        return true;
       }
     }
+    return false;
+  }
+
+  @Override
+  public void onError(DartCompilationError event) {
+    if (isIgnored(event)) {
+      return;
+    }
 
     // Remember error.
     {
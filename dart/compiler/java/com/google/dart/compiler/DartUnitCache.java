@@ -0,0 +1,164 @@
+// Copyright (c) 2013, the Dart project authors.  Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+
+package com.google.dart.compiler;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Objects;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import com.google.dart.compiler.ast.DartUnit;
+
+import java.net.URI;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A cache of parsed {@link DartUnit}s, keyed by the URI and the content of their source, that can
+ * be shared by several compilations through {@link DartCompiler.SelectiveCache#getUnitCache()}.
+ * <p>
+ * Resolution changes the nodes of a unit, so a unit can be resolved only once. A unit is removed
+ * from the cache when it is taken by a compilation, and the compiler only puts back the units that
+ * it parsed but did not resolve, for example the units of a library that were dropped because
+ * another unit had parse errors. The errors reported while parsing a unit are kept with it and
+ * reported again when it is taken. The least recently used units are removed once the cache is
+ * full.
+ * <p>
+ * This class is thread-safe.
+ */
+public class DartUnitCache {
+
+  /**
+   * The key of a parsed unit. The library prefixes and the diet flag change the result of parsing
+   * the same content.
+   */
+  private static final class Key {
+    private final URI uri;
+    private final HashCode contentHash;
+    private final boolean diet;
+    private final Set<String> prefixes;
+
+    Key(URI uri, String content, boolean diet, Set<String> prefixes) {
+      this.uri = uri;
+      this.contentHash = Hashing.sha1().hashString(content, Charsets.UTF_8);
+      this.diet = diet;
+      this.prefixes = ImmutableSet.copyOf(prefixes);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (!(obj instanceof Key)) {
+        return false;
+      }
+      Key other = (Key) obj;
+      return diet == other.diet && uri.equals(other.uri) && contentHash.equals(other.contentHash)
+          && prefixes.equals(other.prefixes);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hashCode(uri, contentHash, diet, prefixes);
+    }
+  }
+
+  /**
+   * A parsed unit and the errors reported while parsing it.
+   */
+  static final class Entry {
+    private final Key key;
+    private final DartUnit unit;
+    private final List<DartCompilationError> errors;
+
+    Entry(DartSource source, String content, boolean diet, Set<String> prefixes, DartUnit unit,
+        List<DartCompilationError> errors) {
+      this.key = new Key(source.getUri(), content, diet, prefixes);
+      this.unit = unit;
+      this.errors = ImmutableList.copyOf(errors);
+    }
+
+    DartUnit getUnit() {
+      return unit;
+    }
+  }
+
+  private final Map<Key, Entry> entries;
+  private int hitCount;
+  private int missCount;
+
+  /**
+   * @param maxSize the maximum number of units to keep
+   */
+  public DartUnitCache(final int maxSize) {
+    entries = new LinkedHashMap<Key, Entry>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+        return size() > maxSize;
+      }
+    };
+  }
+
+  /**
+   * Removes all the units from this cache.
+   */
+  public synchronized void clear() {
+    entries.clear();
+  }
+
+  /**
+   * @return the number of times a parsed unit was found in this cache.
+   */
+  public synchronized int getHitCount() {
+    return hitCount;
+  }
+
+  /**
+   * @return the number of times a parsed unit was not found in this cache.
+   */
+  public synchronized int getMissCount() {
+    return missCount;
+  }
+
+  /**
+   * @return the number of units in this cache.
+   */
+  public synchronized int size() {
+    return entries.size();
+  }
+
+  /**
+   * Removes from this cache and returns the unit parsed from the given content of the given
+   * source, or returns <code>null</code> if it is not in this cache. If the unit is found, the
+   * given listener is notified that the unit is about to be compiled and of the errors reported
+   * while parsing it, as the parser would do.
+   */
+  Entry take(DartSource source, String content, boolean diet, Set<String> prefixes,
+      DartCompilerListener listener) {
+    Key key = new Key(source.getUri(), content, diet, prefixes);
+    Entry entry;
+    synchronized (this) {
+      entry = entries.remove(key);
+      if (entry == null) {
+        missCount++;
+        return null;
+      }
+      hitCount++;
+    }
+    listener.unitAboutToCompile(source, diet);
+    for (DartCompilationError error : entry.errors) {
+      listener.onError(error);
+    }
+    return entry;
+  }
+
+  /**
+   * Remembers a unit that was parsed but not resolved, and the errors reported while parsing it.
+   */
+  synchronized void put(Entry entry) {
+    entries.put(entry.key, entry);
+  }
+}
@@ -0,0 +1,203 @@
+// Copyright (c) 2013, the Dart project authors.  Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+
+package com.google.dart.compiler;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.dart.compiler.ast.LibraryExport;
+import com.google.dart.compiler.ast.LibraryUnit;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Runs a {@link LibraryTask} for each library on a pool of threads. The task of a library is
+ * started only after the tasks of the libraries it imports or exports have completed, so libraries
+ * that do not depend on each other are processed at the same time. The libraries of an import
+ * cycle are processed serially, in their original order, by a single thread.
+ */
+final class LibraryScheduler {
+
+  /**
+   * The work done for a single library.
+   */
+  interface LibraryTask {
+    void run(LibraryUnit lib) throws Exception;
+  }
+
+  /**
+   * A strongly connected component of the library dependency graph.
+   */
+  private final class Component implements Runnable {
+    private final List<LibraryUnit> libraries = Lists.newArrayList();
+    private final List<Component> dependents = Lists.newArrayList();
+    private final AtomicInteger pendingDependencies = new AtomicInteger();
+
+    @Override
+    public void run() {
+      try {
+        for (LibraryUnit lib : libraries) {
+          if (failure.get() != null) {
+            break;
+          }
+          task.run(lib);
+        }
+      } catch (Throwable e) {
+        failure.compareAndSet(null, e);
+      }
+      for (Component dependent : dependents) {
+        if (dependent.pendingDependencies.decrementAndGet() == 0) {
+          executor.execute(dependent);
+        }
+      }
+      completed.countDown();
+    }
+  }
+
+  private static final AtomicInteger POOL_COUNT = new AtomicInteger();
+
+  private final int threadCount;
+  private final List<Component> components = Lists.newArrayList();
+  private final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+  private ExecutorService executor;
+  private LibraryTask task;
+  private CountDownLatch completed;
+
+  // Tarjan's algorithm state.
+  private final Map<LibraryUnit, Integer> indexes = Maps.newLinkedHashMap();
+  private final Map<LibraryUnit, Integer> lowLinks = Maps.newHashMap();
+  private final Map<LibraryUnit, Component> componentOf = Maps.newHashMap();
+  private final List<LibraryUnit> stack = Lists.newArrayList();
+  private int nextIndex;
+
+  /**
+   * @param libraries the libraries to process; dependencies on libraries that are not in this
+   *          collection are ignored
+   * @param threadCount the number of threads to process the libraries with
+   */
+  LibraryScheduler(Collection<LibraryUnit> libraries, int threadCount) {
+    this.threadCount = threadCount;
+    for (LibraryUnit lib : libraries) {
+      indexes.put(lib, null);
+    }
+    for (LibraryUnit lib : libraries) {
+      if (indexes.get(lib) == null) {
+        connect(lib);
+      }
+    }
+    // Link each component to the components depending on it.
+    for (Component component : components) {
+      for (LibraryUnit lib : component.libraries) {
+        for (LibraryUnit dependency : getDependencies(lib)) {
+          Component dependencyComponent = componentOf.get(dependency);
+          if (dependencyComponent != null && dependencyComponent != component
+              && !dependencyComponent.dependents.contains(component)) {
+            dependencyComponent.dependents.add(component);
+            component.pendingDependencies.incrementAndGet();
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Runs the given task for each library and waits for all of them to complete. If a task throws
+   * an exception, no more tasks are started and the first exception is rethrown once the running
+   * tasks have completed.
+   */
+  void run(LibraryTask task) throws Exception {
+    this.task = task;
+    completed = new CountDownLatch(components.size());
+    executor = newThreadPool(threadCount);
+    try {
+      for (Component component : components) {
+        if (component.pendingDependencies.get() == 0) {
+          executor.execute(component);
+        }
+      }
+      completed.await();
+    } finally {
+      executor.shutdown();
+    }
+    Throwable e = failure.get();
+    if (e instanceof Exception) {
+      throw (Exception) e;
+    }
+    if (e instanceof Error) {
+      throw (Error) e;
+    }
+  }
+
+  /**
+   * Returns a new pool of the given number of daemon threads, used by the compiler to process
+   * libraries or units in parallel.
+   */
+  static ExecutorService newThreadPool(int threadCount) {
+    return Executors.newFixedThreadPool(threadCount, new ThreadFactory() {
+      private final String prefix = "dartc-" + POOL_COUNT.incrementAndGet() + "-thread-";
+      private final AtomicInteger threadNumber = new AtomicInteger();
+
+      @Override
+      public Thread newThread(Runnable runnable) {
+        Thread thread = new Thread(runnable, prefix + threadNumber.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+      }
+    });
+  }
+
+  /**
+   * Visits the given library and the libraries it depends on, creating the component of each
+   * library once all the libraries in its cycle have been visited.
+   */
+  private void connect(LibraryUnit lib) {
+    int index = nextIndex++;
+    indexes.put(lib, index);
+    lowLinks.put(lib, index);
+    stack.add(lib);
+    for (LibraryUnit dependency : getDependencies(lib)) {
+      if (!indexes.containsKey(dependency)) {
+        continue;
+      }
+      if (indexes.get(dependency) == null) {
+        connect(dependency);
+        lowLinks.put(lib, Math.min(lowLinks.get(lib), lowLinks.get(dependency)));
+      } else if (!componentOf.containsKey(dependency)) {
+        lowLinks.put(lib, Math.min(lowLinks.get(lib), indexes.get(dependency)));
+      }
+    }
+    if (lowLinks.get(lib).intValue() == index) {
+      Component component = new Component();
+      int start = stack.indexOf(lib);
+      List<LibraryUnit> members = stack.subList(start, stack.size());
+      for (LibraryUnit member : members) {
+        componentOf.put(member, component);
+      }
+      // Keep the original order of the libraries in the cycle.
+      for (LibraryUnit candidate : indexes.keySet()) {
+        if (componentOf.get(candidate) == component) {
+          component.libraries.add(candidate);
+        }
+      }
+      members.clear();
+      components.add(component);
+    }
+  }
+
+  private static List<LibraryUnit> getDependencies(LibraryUnit lib) {
+    List<LibraryUnit> dependencies = Lists.newArrayList(lib.getImportedLibraries());
+    for (LibraryExport export : lib.getExports()) {
+      dependencies.add(export.getLibrary());
+    }
+    return dependencies;
+  }
+}
@@ -7,6 +7,11 @@ package com.google.dart.compiler.metrics;
 import java.io.PrintStream;
 import java.lang.management.ManagementFactory;
 import java.lang.management.ThreadMXBean;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicLong;
 
 /**
@@ -45,6 +50,8 @@ public final class CompilerMetrics {
   
   private long nanoParseWallTime = 0;
   private AtomicLong nanoTotalParseTime = new AtomicLong();
+  private final ConcurrentMap<String, AtomicLong> nanoPhaseTimes =
+      new ConcurrentHashMap<String, AtomicLong>();
   private long nativeLibCharCount;
 
   // Parser metrics
@@ -67,6 +74,23 @@ public final class CompilerMetrics {
     this.nanoTotalParseTime.addAndGet(nanoTotalParseTime);
   }
 
+  /**
+   * Accumulate the time spent by the current thread running the compiler phase with the given
+   * name.
+   */
+  public void addPhaseTimeNano(String phaseName, long nanoPhaseTime) {
+    String key = phaseName + " [" + Thread.currentThread().getName() + "]";
+    AtomicLong phaseTime = nanoPhaseTimes.get(key);
+    if (phaseTime == null) {
+      AtomicLong newPhaseTime = new AtomicLong();
+      phaseTime = nanoPhaseTimes.putIfAbsent(key, newPhaseTime);
+      if (phaseTime == null) {
+        phaseTime = newPhaseTime;
+      }
+    }
+    phaseTime.addAndGet(nanoPhaseTime);
+  }
+
   public void addParseWallTimeNano( long nanoWallParseTime) {
     this.nanoParseWallTime = nanoWallParseTime;
   }
@@ -129,6 +153,18 @@ public final class CompilerMetrics {
     return nanoToMillis(nanoParseWallTime);
   }
 
+  /**
+   * Returns the thread CPU time, in milliseconds, spent running each compiler phase, keyed by the
+   * name of the phase followed by the name of the thread in brackets.
+   */
+  public SortedMap<String, Double> getPhaseTimes() {
+    SortedMap<String, Double> phaseTimes = new TreeMap<String, Double>();
+    for (Map.Entry<String, AtomicLong> entry : nanoPhaseTimes.entrySet()) {
+      phaseTimes.put(entry.getKey(), nanoToMillis(entry.getValue().get()));
+    }
+    return phaseTimes;
+  }
+
   public double getPercentCharsConsumedByNativeLibraries() {
     return (getJSNativeLibCharSize() / getNumCharsParsed()) * 100d;
   }
@@ -193,5 +229,8 @@ public final class CompilerMetrics {
     out.println("# Processed-total-lines-ms       : " + getLinesPerMS());
     out.println("# Processed-code-lines-ms        : " + getNonCommentLinesPerMS());
     out.println("# Ratio-parsing-compile-percent  : " + getPercentTimeParsing() * 100);
+    for (Map.Entry<String, Double> entry : getPhaseTimes().entrySet()) {
+      out.format("# Phase-time-ms %s : %.2f%n", entry.getKey(), entry.getValue());
+    }
   }
 }
@@ -4,9 +4,11 @@
 
 package com.google.dart.compiler.end2end;
 
+import com.google.dart.compiler.end2end.inc.DartUnitCacheTest;
 import com.google.dart.compiler.end2end.inc.IncrementalCompilation2Test;
 import com.google.dart.compiler.end2end.inc.IncrementalCompilationTest;
 import com.google.dart.compiler.end2end.inc.IncrementalCompilationWithPrefixTest;
+import com.google.dart.compiler.end2end.inc.ParallelCompilationTest;
 
 import junit.extensions.TestSetup;
 import junit.framework.Test;
@@ -23,6 +25,8 @@ public class End2EndTests extends TestSetup {
     suite.addTestSuite(IncrementalCompilationTest.class);
     suite.addTestSuite(IncrementalCompilation2Test.class);
     suite.addTestSuite(IncrementalCompilationWithPrefixTest.class);
+    suite.addTestSuite(ParallelCompilationTest.class);
+    suite.addTestSuite(DartUnitCacheTest.class);
     return new End2EndTests(suite);
   }
 }
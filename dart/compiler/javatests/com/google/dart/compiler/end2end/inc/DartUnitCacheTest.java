@@ -0,0 +1,178 @@
+// Copyright (c) 2013, the Dart project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+package com.google.dart.compiler.end2end.inc;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.dart.compiler.CompilerTestCase;
+import com.google.dart.compiler.DartCompilationError;
+import com.google.dart.compiler.DartCompiler;
+import com.google.dart.compiler.DartCompilerListener;
+import com.google.dart.compiler.DartSource;
+import com.google.dart.compiler.DartUnitCache;
+import com.google.dart.compiler.DefaultCompilerConfiguration;
+import com.google.dart.compiler.MockArtifactProvider;
+import com.google.dart.compiler.ast.DartUnit;
+import com.google.dart.compiler.ast.LibraryUnit;
+
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tests for {@link DartUnitCache} shared by several {@link DartCompiler.SelectiveCache}s.
+ */
+public class DartUnitCacheTest extends CompilerTestCase {
+  private static final String APP = "Application.dart";
+
+  private final List<String> errors = Lists.newArrayList();
+  private final Map<String, DartUnit> compiledUnits = Maps.newHashMap();
+  private final DartUnitCache unitCache = new DartUnitCache(1000);
+  private MemoryLibrarySource appSource;
+
+  @Override
+  protected void setUp() throws Exception {
+    appSource = new MemoryLibrarySource(APP);
+    appSource.setContent(
+        APP,
+        makeCode(
+            "library application;",
+            "import 'A.dart';",
+            "part 'B.dart';",
+            "main() {",
+            "  new A().foo();",
+            "}",
+            ""));
+    appSource.setContent(
+        "A.dart",
+        makeCode(
+            "library A;",
+            "class A {",
+            "  String foo() => 'foo';",
+            "}",
+            ""));
+    // The parse error stops the compilation, so the units parsed after B.dart are not resolved.
+    appSource.setContent(
+        "B.dart",
+        makeCode(
+            "part of application;",
+            "class B {",
+            "  void bar() {",
+            "    baz(;",
+            "  }",
+            "}",
+            ""));
+  }
+
+  @Override
+  protected void tearDown() {
+    appSource = null;
+    errors.clear();
+    compiledUnits.clear();
+    unitCache.clear();
+  }
+
+  public void test_reuseUnits() throws Exception {
+    analyze();
+    List<String> firstErrors = Lists.newArrayList(errors);
+    DartUnit unitB = compiledUnits.get("B.dart");
+    assertFalse(firstErrors.isEmpty());
+    assertNotNull(unitB);
+    assertEquals(0, unitCache.getHitCount());
+    int size = unitCache.size();
+    assertTrue(size > 1);
+    // The same content is not parsed again, the parse errors are reported again.
+    analyze();
+    assertEquals(firstErrors, errors);
+    assertEquals(size, unitCache.getHitCount());
+    assertEquals(size, unitCache.size());
+    assertSame(unitB, compiledUnits.get("B.dart"));
+  }
+
+  public void test_changedContent() throws Exception {
+    analyze();
+    int size = unitCache.size();
+    DartUnit unitA = compiledUnits.get("A.dart");
+    DartUnit unitB = compiledUnits.get("B.dart");
+    assertNotNull(unitA);
+    // Only the changed unit is parsed again.
+    appSource.setContent(
+        "A.dart",
+        makeCode(
+            "library A;",
+            "class A {",
+            "  int foo() => 42;",
+            "}",
+            ""));
+    analyze();
+    assertEquals(size - 1, unitCache.getHitCount());
+    assertEquals(size + 1, unitCache.size());
+    assertNotSame(unitA, compiledUnits.get("A.dart"));
+    assertSame(unitB, compiledUnits.get("B.dart"));
+  }
+
+  public void test_resolvedUnitsNotKept() throws Exception {
+    analyze();
+    int size = unitCache.size();
+    DartUnit unitA = compiledUnits.get("A.dart");
+    // Once B.dart is fixed, the units are taken and resolved, and not put back.
+    appSource.setContent(
+        "B.dart",
+        makeCode(
+            "part of application;",
+            "class B {",
+            "}",
+            ""));
+    Map<URI, LibraryUnit> libraries = analyze();
+    assertEquals(size - 1, unitCache.getHitCount());
+    assertEquals(1, unitCache.size());
+    assertSame(unitA, libraries.get(URI.create("A.dart")).getUnit("A.dart"));
+    // So they are parsed again by the next compilation.
+    int missCount = unitCache.getMissCount();
+    analyze();
+    assertEquals(size - 1, unitCache.getHitCount());
+    assertTrue(unitCache.getMissCount() > missCount);
+    assertNotSame(unitA, compiledUnits.get("A.dart"));
+  }
+
+  private Map<URI, LibraryUnit> analyze() throws Exception {
+    errors.clear();
+    compiledUnits.clear();
+    DartCompilerListener listener = new DartCompilerListener.Empty() {
+      @Override
+      public void onError(DartCompilationError event) {
+        errors.add(event.toString());
+      }
+
+      @Override
+      public void unitCompiled(DartUnit unit) {
+        compiledUnits.put(unit.getSourceName(), unit);
+      }
+    };
+    final Map<URI, LibraryUnit> resolvedLibs = Maps.newHashMap();
+    DartCompiler.SelectiveCache selectiveCache = new DartCompiler.SelectiveCache() {
+      @Override
+      public Map<URI, LibraryUnit> getResolvedLibraries() {
+        return resolvedLibs;
+      }
+
+      @Override
+      public DartUnit getUnresolvedDartUnit(DartSource dartSrc) {
+        return null;
+      }
+
+      @Override
+      public DartUnitCache getUnitCache() {
+        return unitCache;
+      }
+    };
+    return DartCompiler.analyzeLibraries(
+        appSource,
+        selectiveCache,
+        new DefaultCompilerConfiguration(),
+        new MockArtifactProvider(),
+        listener,
+        true);
+  }
+}
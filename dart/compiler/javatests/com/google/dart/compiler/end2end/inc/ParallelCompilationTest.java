@@ -0,0 +1,210 @@
+// Copyright (c) 2013, the Dart project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+package com.google.dart.compiler.end2end.inc;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import com.google.dart.compiler.CommandLineOptions;
+import com.google.dart.compiler.CommandLineOptions.CompilerOptions;
+import com.google.dart.compiler.CompilerConfiguration;
+import com.google.dart.compiler.CompilerTestCase;
+import com.google.dart.compiler.DartCompilationError;
+import com.google.dart.compiler.DartCompiler;
+import com.google.dart.compiler.DartCompilerListener;
+import com.google.dart.compiler.DefaultCompilerConfiguration;
+import com.google.dart.compiler.MockArtifactProvider;
+import com.google.dart.compiler.ast.DartUnit;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Tests that parsing, resolving and compiling independent libraries on several threads reports the
+ * same errors, in the same order, as compiling them serially.
+ */
+public class ParallelCompilationTest extends CompilerTestCase {
+  private static final String APP = "Application.dart";
+
+  private final List<String> errors = Lists.newArrayList();
+  private final Set<String> compiledUnits = Sets.newHashSet();
+  private MemoryLibrarySource appSource;
+
+  @Override
+  protected void setUp() throws Exception {
+    appSource = new MemoryLibrarySource(APP);
+    appSource.setContent(
+        APP,
+        makeCode(
+            "library application;",
+            "import 'B.dart';",
+            "import 'C.dart';",
+            "import 'D.dart';",
+            "main() {",
+            "  B b = new B();",
+            "  String s = b.foo();",
+            "  new C().bar();",
+            "  new D().baz();",
+            "}",
+            ""));
+    appSource.setContent(
+        "A.dart",
+        makeCode(
+            "library A;",
+            "class A {",
+            "  int foo() => 1;",
+            "  Unknown field;",
+            "}",
+            ""));
+    appSource.setContent(
+        "B.dart",
+        makeCode(
+            "library B;",
+            "import 'A.dart';",
+            "export 'A.dart';",
+            "class B extends A {",
+            "  String bar() {",
+            "    int v = 'not an int';",
+            "    return v;",
+            "  }",
+            "}",
+            ""));
+    appSource.setContent(
+        "C.dart",
+        makeCode(
+            "library C;",
+            "class C {",
+            "  void bar() {",
+            "    undefined();",
+            "  }",
+            "}",
+            ""));
+    // D and E import each other.
+    appSource.setContent(
+        "D.dart",
+        makeCode(
+            "library D;",
+            "import 'E.dart';",
+            "class D extends E {",
+            "  void baz() {",
+            "    num n = qux();",
+            "  }",
+            "}",
+            ""));
+    appSource.setContent(
+        "E.dart",
+        makeCode(
+            "library E;",
+            "import 'D.dart';",
+            "class E {",
+            "  String qux() => 'qux';",
+            "  D d;",
+            "}",
+            ""));
+  }
+
+  @Override
+  protected void tearDown() {
+    appSource = null;
+    errors.clear();
+    compiledUnits.clear();
+  }
+
+  public void test_sameErrors() throws Exception {
+    compile(1);
+    List<String> serialErrors = Lists.newArrayList(errors);
+    Set<String> serialUnits = Sets.newHashSet(compiledUnits);
+    assertFalse(serialErrors.isEmpty());
+    assertTrue(serialUnits.containsAll(Lists.newArrayList(
+        APP,
+        "A.dart",
+        "B.dart",
+        "C.dart",
+        "D.dart",
+        "E.dart")));
+    for (int i = 0; i < 3; i++) {
+      compile(4);
+      assertEquals(serialErrors, errors);
+      assertEquals(serialUnits, compiledUnits);
+    }
+  }
+
+  public void test_stopOnError() throws Exception {
+    appSource.setContent(
+        "C.dart",
+        makeCode(
+            "library C;",
+            "class C extends C {",
+            "  void bar() {}",
+            "}",
+            ""));
+    compile(1);
+    List<String> serialErrors = Lists.newArrayList(errors);
+    Set<String> serialUnits = Sets.newHashSet(compiledUnits);
+    assertFalse(serialErrors.isEmpty());
+    compile(4);
+    assertEquals(serialErrors, errors);
+    assertEquals(serialUnits, compiledUnits);
+  }
+
+  public void test_parseErrors() throws Exception {
+    appSource.setContent(
+        "C.dart",
+        makeCode(
+            "library C;",
+            "class C {",
+            "  void bar() {",
+            "    undefined(;",
+            "  }",
+            "}",
+            ""));
+    appSource.setContent(
+        "E.dart",
+        makeCode(
+            "library E;",
+            "import 'D.dart';",
+            "class E {",
+            "  String qux() => 'qux'",
+            "}",
+            ""));
+    compile(1);
+    List<String> serialErrors = Lists.newArrayList(errors);
+    Set<String> serialUnits = Sets.newHashSet(compiledUnits);
+    assertFalse(serialErrors.isEmpty());
+    compile(4);
+    assertEquals(serialErrors, errors);
+    assertEquals(serialUnits, compiledUnits);
+  }
+
+  public void test_phaseTimes() throws Exception {
+    CompilerConfiguration config = compile(4, "--metrics");
+    Set<String> threads = Sets.newHashSet();
+    for (String key : config.getCompilerMetrics().getPhaseTimes().keySet()) {
+      threads.add(key.substring(key.indexOf('[')));
+    }
+    assertTrue(threads.toString(), threads.size() > 1);
+  }
+
+  private CompilerConfiguration compile(int threadCount, String... args) throws Exception {
+    errors.clear();
+    compiledUnits.clear();
+    CompilerOptions options = new CompilerOptions();
+    List<String> allArgs = Lists.newArrayList("--threads", Integer.toString(threadCount));
+    allArgs.addAll(Lists.newArrayList(args));
+    CommandLineOptions.parse(allArgs.toArray(new String[allArgs.size()]), options);
+    CompilerConfiguration config = new DefaultCompilerConfiguration(options);
+    DartCompilerListener listener = new DartCompilerListener.Empty() {
+      @Override
+      public void onError(DartCompilationError event) {
+        errors.add(event.toString());
+      }
+
+      @Override
+      public void unitCompiled(DartUnit unit) {
+        compiledUnits.add(unit.getSourceName());
+      }
+    };
+    DartCompiler.compileLib(appSource, config, new MockArtifactProvider(), listener);
+    return config;
+  }
+}
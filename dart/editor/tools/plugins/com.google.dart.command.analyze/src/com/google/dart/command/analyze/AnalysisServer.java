@@ -0,0 +1,572 @@
+/*
+ * Copyright (c) 2013, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.command.analyze;
+
+import com.google.dart.engine.AnalysisEngine;
+import com.google.dart.engine.context.AnalysisContext;
+import com.google.dart.engine.context.ChangeSet;
+import com.google.dart.engine.element.CompilationUnitElement;
+import com.google.dart.engine.element.LibraryElement;
+import com.google.dart.engine.error.AnalysisError;
+import com.google.dart.engine.error.CompileTimeErrorCode;
+import com.google.dart.engine.error.ErrorSeverity;
+import com.google.dart.engine.internal.context.InternalAnalysisContext;
+import com.google.dart.engine.source.ContentCache;
+import com.google.dart.engine.source.FileBasedSource;
+import com.google.dart.engine.source.Source;
+import com.google.dart.engine.source.SourceKind;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Instances of the class {@code AnalysisServer} analyze libraries on request without discarding the
+ * results of previous requests. The server keeps one analysis context per package root, and before
+ * each request tells each context about the sources that have been added, changed or removed since
+ * the previous request, so that only the changed sources and the libraries that depend on them are
+ * analyzed again. Added and removed files are found by scanning the directories containing the
+ * requested files and the package roots of the requests.
+ * <p>
+ * Requests use the same format as batch mode: each request is a single line containing the
+ * command line arguments for one run of the analyzer. The errors are written in the format selected
+ * by the request, followed by a line of the form {@code >>> REQUEST PASS 12ms}, where the status is
+ * {@code PASS}, {@code FAIL} or {@code CRASH} and the time is the latency of the request.
+ */
+class AnalysisServer {
+  /**
+   * The key used for the context of files that are analyzed without a package root.
+   */
+  private static final File NO_PACKAGE_ROOT = new File("");
+
+  /**
+   * The modification stamp recorded for sources that were first found while being analyzed, whose
+   * stamp from before the analysis is therefore not known. It is never equal to the stamp of an
+   * existing source, so such sources are treated as changed by the next request.
+   */
+  private static final long UNKNOWN_MODIFICATION_STAMP = -1L;
+
+  /**
+   * The name of the directories containing links to packages, which are not scanned as part of the
+   * directory containing them because the packages are found through the package root.
+   */
+  private static final String PACKAGES_DIRECTORY_NAME = "packages";
+
+  /**
+   * The options given when the server was started.
+   */
+  private final AnalyzerOptions options;
+
+  /**
+   * The analyzer that owns the SDK shared by all of the contexts.
+   */
+  private final AnalyzerImpl analyzer;
+
+  /**
+   * A table mapping package roots to the context used to analyze files with that package root.
+   */
+  private final HashMap<File, AnalysisContext> contexts = new HashMap<File, AnalysisContext>();
+
+  /**
+   * The directories that are scanned before each request to find the Dart files that have been
+   * added, changed or removed.
+   */
+  private final Set<File> roots = new LinkedHashSet<File>();
+
+  /**
+   * The content cache used by the sources created while scanning the {@link #roots}. The server
+   * never overrides the contents of a source, so the cache is always empty.
+   */
+  private final ContentCache contentCache = new ContentCache();
+
+  /**
+   * A table mapping the sources that are known to the server to their modification stamp at the
+   * start of the most recent request.
+   */
+  private HashMap<Source, Long> modificationStamps = new HashMap<Source, Long>();
+
+  /**
+   * The number of requests that have been answered.
+   */
+  private int requestCount = 0;
+
+  /**
+   * The total number of milliseconds spent answering requests.
+   */
+  private long totalRequestTime = 0L;
+
+  /**
+   * Initialize a newly created server to analyze libraries using the given options.
+   * 
+   * @param options the options given when the server was started
+   */
+  public AnalysisServer(AnalyzerOptions options) {
+    this.options = options;
+    analyzer = new AnalyzerImpl(options);
+    analyzer.loadSdkIndex();
+  }
+
+  /**
+   * Analyze the file named in the given options, writing the errors that were found to the given
+   * stream.
+   * 
+   * @param requestOptions the options given for the request
+   * @param out the stream to which the errors are to be written
+   * @return the maximum severity of the errors that were found
+   */
+  public ErrorSeverity analyze(AnalyzerOptions requestOptions, PrintStream out) throws Exception {
+    if (requestOptions.getSourceFile() == null) {
+      out.println("No source file was specified.");
+      return ErrorSeverity.ERROR;
+    }
+
+    File sourceFile = new File(requestOptions.getSourceFile()).getAbsoluteFile();
+
+    if (!sourceFile.exists() || !AnalysisEngine.isDartFileName(sourceFile.getName())) {
+      out.println(sourceFile + " is not a Dart file");
+      return ErrorSeverity.ERROR;
+    }
+
+    if (requestOptions.getDartSdkPath() == null) {
+      requestOptions.setDartSdkPath(options.getDartSdkPath());
+    }
+
+    if (options.getWarningsAreFatal()) {
+      requestOptions.setWarningsAreFatal(true);
+    }
+
+    File packageRoot = AnalyzerImpl.getPackageRoot(requestOptions, sourceFile);
+    roots.add(sourceFile.getParentFile());
+    if (packageRoot != null) {
+      roots.add(packageRoot.getAbsoluteFile());
+    }
+    applyChanges();
+
+    AnalysisContext context = getContext(packageRoot);
+    Source librarySource = new FileBasedSource(
+        context.getSourceFactory().getContentCache(),
+        sourceFile);
+
+    List<AnalysisError> errors = new ArrayList<AnalysisError>();
+    AnalyzerImpl requestAnalyzer = new AnalyzerImpl(requestOptions, analyzer.getSdk());
+    ErrorSeverity status = requestAnalyzer.analyze(context, librarySource, errors);
+
+    recordModificationStamps(context);
+
+    ErrorFormatter formatter = new ErrorFormatter(out, requestOptions);
+    formatter.formatErrors(errors);
+
+    if (status.equals(ErrorSeverity.WARNING) && requestOptions.getWarningsAreFatal()) {
+      status = ErrorSeverity.ERROR;
+    }
+
+    return status;
+  }
+
+  /**
+   * Return a description of the number of requests that have been answered and their latency.
+   * 
+   * @return a description of the requests that have been answered
+   */
+  public String getStatistics() {
+    long averageTime = requestCount == 0 ? 0L : totalRequestTime / requestCount;
+    return requestCount + " requests, " + totalRequestTime + "ms total, " + averageTime
+        + "ms average";
+  }
+
+  /**
+   * Answer the requests read from the given stream, writing the responses to the given stream,
+   * until the end of the input is reached.
+   * 
+   * @param in the stream from which requests are read
+   * @param out the stream to which responses are written
+   * @return the maximum severity of the errors found while answering the requests
+   */
+  public ErrorSeverity serve(InputStream in, PrintStream out) throws IOException {
+    BufferedReader reader = new BufferedReader(new InputStreamReader(in));
+    ErrorSeverity result = ErrorSeverity.NONE;
+    String line;
+
+    while ((line = reader.readLine()) != null) {
+      line = line.trim();
+
+      if (line.length() == 0) {
+        continue;
+      }
+
+      long requestStart = System.currentTimeMillis();
+      String status;
+
+      try {
+        ErrorSeverity severity = analyze(AnalyzerOptions.createFromArgs(line.split("\\s+")), out);
+        status = severity.equals(ErrorSeverity.ERROR) ? "FAIL" : "PASS";
+        result = result.max(severity);
+      } catch (Throwable exception) {
+        exception.printStackTrace(out);
+        status = "CRASH";
+      }
+
+      long requestTime = System.currentTimeMillis() - requestStart;
+      requestCount++;
+      totalRequestTime += requestTime;
+
+      out.println(">>> REQUEST " + status + " " + requestTime + "ms");
+      out.flush();
+    }
+
+    return result;
+  }
+
+  /**
+   * Answer requests from connections made to the given port on the loopback interface. The
+   * connections are served one at a time and each one is served until the client closes its end of
+   * the connection. This method does not return unless the server socket fails.
+   * 
+   * @param port the port on which connections are accepted
+   */
+  public void serve(int port) throws IOException {
+    ServerSocket serverSocket = new ServerSocket(port, 0, InetAddress.getByName(null));
+
+    try {
+      while (true) {
+        Socket socket = serverSocket.accept();
+
+        try {
+          PrintStream out = new PrintStream(socket.getOutputStream(), false, "UTF-8");
+          serve(socket.getInputStream(), out);
+          out.flush();
+        } catch (IOException exception) {
+          // The client went away; wait for the next one.
+        } finally {
+          socket.close();
+        }
+      }
+    } finally {
+      serverSocket.close();
+    }
+  }
+
+  /**
+   * Add the libraries in the given context that contain the given source to the given set.
+   * 
+   * @param context the context containing the source
+   * @param source the source whose libraries are to be added
+   * @param librarySources the set to which the libraries are to be added
+   */
+  private void addContainingLibraries(AnalysisContext context, Source source,
+      Set<Source> librarySources) {
+    for (Source librarySource : context.getLibrariesContaining(source)) {
+      librarySources.add(librarySource);
+    }
+  }
+
+  /**
+   * Add the Dart files in the given directory and its subdirectories, together with their current
+   * modification stamps, to the given table. Directories containing links to packages are skipped,
+   * as are directories that have already been scanned.
+   * 
+   * @param directory the directory to be scanned
+   * @param stamps the table to which the Dart files are to be added
+   * @param scannedDirectories the canonical paths of the directories that have been scanned
+   */
+  private void addDartFiles(File directory, Map<Source, Long> stamps,
+      Set<String> scannedDirectories) {
+    try {
+      if (!scannedDirectories.add(directory.getCanonicalPath())) {
+        return;
+      }
+    } catch (IOException exception) {
+      return;
+    }
+
+    File[] children = directory.listFiles();
+
+    if (children == null) {
+      return;
+    }
+
+    for (File child : children) {
+      if (child.isDirectory()) {
+        if (!child.getName().startsWith(".") && !child.getName().equals(PACKAGES_DIRECTORY_NAME)) {
+          addDartFiles(child, stamps, scannedDirectories);
+        }
+      } else if (AnalysisEngine.isDartFileName(child.getName())) {
+        Source source = new FileBasedSource(contentCache, child);
+        stamps.put(source, source.getModificationStamp());
+      }
+    }
+  }
+
+  /**
+   * Inform each context of the sources that have been added, modified or deleted since the previous
+   * request, and invalidate the resolution of the libraries that depend on them. The modification
+   * stamps are taken before anything is analyzed, so a change made while a request is being
+   * answered is found by the next request.
+   */
+  private void applyChanges() {
+    HashMap<Source, Long> currentStamps = new HashMap<Source, Long>();
+    Set<String> scannedDirectories = new HashSet<String>();
+
+    for (File root : roots) {
+      addDartFiles(root, currentStamps, scannedDirectories);
+    }
+
+    for (Source source : modificationStamps.keySet()) {
+      if (!currentStamps.containsKey(source) && source.exists()) {
+        currentStamps.put(source, source.getModificationStamp());
+      }
+    }
+
+    Set<Source> addedSources = new HashSet<Source>();
+    Set<Source> changedSources = new HashSet<Source>();
+
+    for (Map.Entry<Source, Long> entry : currentStamps.entrySet()) {
+      Long previousStamp = modificationStamps.get(entry.getKey());
+
+      if (previousStamp == null) {
+        addedSources.add(entry.getKey());
+      } else if (previousStamp.longValue() != entry.getValue().longValue()) {
+        changedSources.add(entry.getKey());
+      }
+    }
+
+    Set<Source> removedSources = new HashSet<Source>(modificationStamps.keySet());
+    removedSources.removeAll(currentStamps.keySet());
+    modificationStamps = currentStamps;
+
+    if (changedSources.isEmpty() && removedSources.isEmpty() && addedSources.isEmpty()) {
+      return;
+    }
+
+    for (AnalysisContext context : contexts.values()) {
+      applyChanges(
+          (InternalAnalysisContext) context,
+          addedSources,
+          changedSources,
+          removedSources);
+    }
+  }
+
+  /**
+   * Inform the given context of the given changes and invalidate the resolution of the libraries
+   * in the context that depend on them.
+   * 
+   * @param context the context to be informed of the changes
+   * @param addedSources the sources that have been added
+   * @param changedSources the sources that have been modified
+   * @param removedSources the sources that have been deleted
+   */
+  private void applyChanges(InternalAnalysisContext context, Set<Source> addedSources,
+      Set<Source> changedSources, Set<Source> removedSources) {
+    Set<Source> changedLibraries = new HashSet<Source>();
+    ChangeSet changeSet = new ChangeSet();
+
+    for (Source source : changedSources) {
+      if (context.getKindOf(source) != SourceKind.UNKNOWN) {
+        changeSet.changed(source);
+        addContainingLibraries(context, source, changedLibraries);
+      }
+    }
+
+    for (Source source : removedSources) {
+      if (context.getKindOf(source) != SourceKind.UNKNOWN) {
+        changeSet.removed(source);
+        addContainingLibraries(context, source, changedLibraries);
+      }
+    }
+
+    if (!addedSources.isEmpty()) {
+      // An added source is only analyzed once it is referenced, but the libraries that referenced
+      // it while it did not exist must be resolved again. The context is told that the sources
+      // have changed, rather than been added, because it would otherwise resolve every library
+      // again.
+      for (Source source : addedSources) {
+        changeSet.changed(source);
+      }
+
+      for (Source librarySource : context.getLibrarySources()) {
+        if (!librarySource.isInSystemLibrary() && hasMissingUri(context, librarySource)) {
+          changedLibraries.add(librarySource);
+        }
+      }
+    }
+
+    Set<Source> dependentLibraries = getDependentLibraries(context, changedLibraries);
+
+    if (!changeSet.isEmpty()) {
+      context.applyChanges(changeSet);
+    }
+
+    for (Source librarySource : changedLibraries) {
+      context.invalidateLibraryResolution(librarySource);
+    }
+
+    for (Source librarySource : dependentLibraries) {
+      context.invalidateLibraryResolution(librarySource);
+    }
+  }
+
+  /**
+   * Return {@code true} if the given library directly imports or exports one of the given
+   * libraries.
+   * 
+   * @param library the library being tested
+   * @param librarySources the sources of the libraries that might be depended on
+   * @return {@code true} if the library depends on one of the given libraries
+   */
+  private boolean dependsOn(LibraryElement library, Set<Source> librarySources) {
+    for (LibraryElement importedLibrary : library.getImportedLibraries()) {
+      if (librarySources.contains(importedLibrary.getSource())) {
+        return true;
+      }
+    }
+
+    for (LibraryElement exportedLibrary : library.getExportedLibraries()) {
+      if (librarySources.contains(exportedLibrary.getSource())) {
+        return true;
+      }
+    }
+
+    return false;
+  }
+
+  /**
+   * Return the libraries in the given context that directly or indirectly import or export one of
+   * the given libraries, not including the given libraries themselves. The library elements are
+   * used to find the dependencies, so this must be invoked before the context is told about the
+   * changes to the given libraries.
+   * 
+   * @param context the context containing the libraries
+   * @param changedLibraries the libraries that have changed
+   * @return the libraries that depend on the given libraries
+   */
+  private Set<Source> getDependentLibraries(AnalysisContext context, Set<Source> changedLibraries) {
+    Set<Source> visitedLibraries = new HashSet<Source>(changedLibraries);
+    Set<Source> dependentLibraries = new HashSet<Source>();
+    boolean foundDependent = !changedLibraries.isEmpty();
+
+    while (foundDependent) {
+      foundDependent = false;
+
+      for (Source librarySource : context.getLibrarySources()) {
+        if (librarySource.isInSystemLibrary() || visitedLibraries.contains(librarySource)) {
+          continue;
+        }
+
+        LibraryElement library = context.getLibraryElement(librarySource);
+
+        if (library != null && dependsOn(library, visitedLibraries)) {
+          visitedLibraries.add(librarySource);
+          dependentLibraries.add(librarySource);
+          foundDependent = true;
+        }
+      }
+    }
+
+    return dependentLibraries;
+  }
+
+  /**
+   * Return {@code true} if the given library references a URI that did not exist when the library
+   * was resolved.
+   * 
+   * @param context the context containing the library
+   * @param librarySource the source of the library being tested
+   * @return {@code true} if the library references a URI that does not exist
+   */
+  private boolean hasMissingUri(AnalysisContext context, Source librarySource) {
+    for (AnalysisError error : context.getErrors(librarySource).getErrors()) {
+      if (error.getErrorCode() == CompileTimeErrorCode.URI_DOES_NOT_EXIST) {
+        return true;
+      }
+    }
+
+    return false;
+  }
+
+  /**
+   * Return the context used to analyze files with the given package root, creating it if it does
+   * not already exist.
+   * 
+   * @param packageRoot the package root, or {@code null} if there is no package root
+   * @return the context used to analyze files with the given package root
+   */
+  private AnalysisContext getContext(File packageRoot) {
+    File key = packageRoot == null ? NO_PACKAGE_ROOT : packageRoot.getAbsoluteFile();
+    AnalysisContext context = contexts.get(key);
+
+    if (context == null) {
+      context = AnalysisEngine.getInstance().createAnalysisContext();
+      context.setSourceFactory(analyzer.createSourceFactory(packageRoot));
+      contexts.put(key, context);
+    }
+
+    return context;
+  }
+
+  /**
+   * Start tracking the modification stamp of the given source, unless it is already being tracked.
+   * The source was found while being analyzed, after the stamps were taken, so its stamp at the
+   * time it was read is not known.
+   * 
+   * @param source the source whose modification stamp is to be tracked
+   */
+  private void recordModificationStamp(Source source) {
+    if (!modificationStamps.containsKey(source)) {
+      modificationStamps.put(source, UNKNOWN_MODIFICATION_STAMP);
+    }
+  }
+
+  /**
+   * Start tracking the modification stamps of the sources in the given context that are not part of
+   * the SDK, so that changes to them can be detected before the next request. Most of them were
+   * found when the roots were scanned, but libraries can also be referenced by relative paths that
+   * leave the roots.
+   * 
+   * @param context the context whose sources were analyzed
+   */
+  private void recordModificationStamps(AnalysisContext context) {
+    for (Source librarySource : context.getLibrarySources()) {
+      if (librarySource.isInSystemLibrary()) {
+        continue;
+      }
+
+      LibraryElement library = context.getLibraryElement(librarySource);
+
+      if (library == null) {
+        continue;
+      }
+
+      recordModificationStamp(library.getDefiningCompilationUnit().getSource());
+
+      for (CompilationUnitElement part : library.getParts()) {
+        recordModificationStamp(part.getSource());
+      }
+    }
+  }
+
+}
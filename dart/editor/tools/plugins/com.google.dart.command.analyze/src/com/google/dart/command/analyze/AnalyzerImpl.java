@@ -21,9 +21,10 @@ import com.google.dart.engine.element.CompilationUnitElement;
 import com.google.dart.engine.element.LibraryElement;
 import com.google.dart.engine.error.AnalysisError;
 import com.google.dart.engine.error.ErrorSeverity;
-import com.google.dart.engine.sdk.DartSdk;
+import com.google.dart.engine.internal.cache.FileBasedElementStore;
+import com.google.dart.engine.internal.sdk.SdkSummaryReader;
+import com.google.dart.engine.internal.sdk.SdkSummaryWriter;
 import com.google.dart.engine.sdk.DirectoryBasedDartSdk;
-import com.google.dart.engine.source.ContentCache;
 import com.google.dart.engine.source.DartUriResolver;
 import com.google.dart.engine.source.FileBasedSource;
 import com.google.dart.engine.source.FileUriResolver;
@@ -32,9 +33,12 @@ import com.google.dart.engine.source.Source;
 import com.google.dart.engine.source.SourceFactory;
 import com.google.dart.engine.source.UriKind;
 
+import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
@@ -45,6 +49,28 @@ import java.util.Set;
  */
 class AnalyzerImpl {
 
+  /**
+   * Return the package root to use when analyzing the given file: either the package root given in
+   * the options or the "packages" directory next to the file.
+   * 
+   * @param options the options given for the analysis of the file
+   * @param sourceFile the file being analyzed
+   * @return the package root, or {@code null} if there is no package root
+   */
+  static File getPackageRoot(AnalyzerOptions options, File sourceFile) {
+    if (options.getPackageRootPath() != null) {
+      return options.getPackageRootPath();
+    }
+
+    File packagesDir = new File(sourceFile.getParentFile(), "packages");
+
+    if (packagesDir.exists()) {
+      return packagesDir;
+    } else {
+      return null;
+    }
+  }
+
   private static ErrorSeverity getMaxErrorSeverity(List<AnalysisError> errors) {
     ErrorSeverity status = ErrorSeverity.NONE;
 
@@ -57,16 +83,41 @@ class AnalyzerImpl {
     return status;
   }
 
+  /**
+   * The name of the resource containing the SDK index that is packaged with the analyzer.
+   */
+  private static final String SDK_INDEX_RESOURCE = "/meta/sdk.index";
+
   private AnalyzerOptions options;
-  private DartSdk sdk;
+  private DirectoryBasedDartSdk sdk;
+  private boolean sdkIndexLoaded = false;
 
   public AnalyzerImpl(AnalyzerOptions options) {
     this.options = options;
 
+    // The element store must be set before the sdk creates its analysis context.
+    if (options.getElementCachePath() != null) {
+      AnalysisEngine.getInstance().setElementStore(
+          new FileBasedElementStore(options.getElementCachePath()));
+    }
+
     // This sdk is shared between multiple runs of the analyzer.
     sdk = new DirectoryBasedDartSdk(options.getDartSdkPath());
   }
 
+  /**
+   * Initialize a newly created analyzer to analyze using an SDK that is shared with another
+   * analyzer. The other analyzer is responsible for loading the SDK index.
+   * 
+   * @param options configuration for this analysis pass
+   * @param sdk the SDK shared with the other analyzer
+   */
+  AnalyzerImpl(AnalyzerOptions options, DirectoryBasedDartSdk sdk) {
+    this.options = options;
+    this.sdk = sdk;
+    sdkIndexLoaded = true;
+  }
+
   /**
    * Treats the {@code sourceFile} as the top level library and analyzes the unit for warnings and
    * errors.
@@ -82,38 +133,16 @@ class AnalyzerImpl {
       throw new IllegalArgumentException("sourceFile cannot be null");
     }
 
-    AnalysisContext context = AnalysisEngine.getInstance().createAnalysisContext();
-    ContentCache contentCache = new ContentCache();
-    SourceFactory sourceFactory;
+    loadSdkIndex();
 
-    if (options.getPackageRootPath() != null) {
-      sourceFactory = new SourceFactory(
-          contentCache,
-          new DartUriResolver(sdk),
-          new FileUriResolver(),
-          new PackageUriResolver(options.getPackageRootPath()));
-    } else if (getPackageDirectoryFor(sourceFile) != null) {
-      sourceFactory = new SourceFactory(
-          new DartUriResolver(sdk),
-          new FileUriResolver(),
-          new PackageUriResolver(getPackageDirectoryFor(sourceFile)));
-    } else {
-      sourceFactory = new SourceFactory(new DartUriResolver(sdk), new FileUriResolver());
-    }
-
-    context.setSourceFactory(sourceFactory);
-
-    Source librarySource = new FileBasedSource(contentCache, sourceFile);
-    LibraryElement library = context.computeLibraryElement(librarySource);
-
-    @SuppressWarnings("unused")
-    CompilationUnit unit = context.resolveCompilationUnit(librarySource, library);
-
-    Set<Source> sources = getAllSources(library);
+    AnalysisContext context = AnalysisEngine.getInstance().createAnalysisContext();
+    context.setSourceFactory(createSourceFactory(getPackageRoot(options, sourceFile)));
 
-    getAllErrors(context, sources, errors);
+    Source librarySource = new FileBasedSource(
+        context.getSourceFactory().getContentCache(),
+        sourceFile);
 
-    return getMaxErrorSeverity(errors);
+    return analyze(context, librarySource, errors);
   }
 
   /**
@@ -122,20 +151,22 @@ class AnalyzerImpl {
    * @return true on success, false if an error occurred
    */
   public boolean createSdkIndex() {
-    @SuppressWarnings("unused")
-    DartSdk sdk = new DirectoryBasedDartSdk(options.getDartSdkPath());
+    DirectoryBasedDartSdk sdk = new DirectoryBasedDartSdk(options.getDartSdkPath());
 
     try {
-      // TODO(devoncarew): call analysis engine methods to create an index file
-
-      FileOutputStream out = new FileOutputStream(options.getSdkIndexLocation());
-      out.write(0);
-      out.write(0);
-      out.write(0);
-      out.write(0);
-      out.close();
+      OutputStream out = new BufferedOutputStream(new FileOutputStream(
+          options.getSdkIndexLocation()));
+      try {
+        new SdkSummaryWriter(sdk).write(out);
+      } finally {
+        out.close();
+      }
 
       return true;
+    } catch (AnalysisException exception) {
+      exception.printStackTrace();
+
+      return false;
     } catch (IOException ioe) {
       ioe.printStackTrace();
 
@@ -143,6 +174,47 @@ class AnalyzerImpl {
     }
   }
 
+  /**
+   * Analyze the library with the given source in the given context, which may already contain
+   * analysis results for the library and its dependencies.
+   * 
+   * @param context the context in which the library is to be analyzed
+   * @param librarySource the source of the library to be analyzed
+   * @param errors the list to add errors to
+   * @return the maximum severity of the errors that were found
+   */
+  ErrorSeverity analyze(AnalysisContext context, Source librarySource, List<AnalysisError> errors)
+      throws AnalysisException {
+    LibraryElement library = context.computeLibraryElement(librarySource);
+
+    @SuppressWarnings("unused")
+    CompilationUnit unit = context.resolveCompilationUnit(librarySource, library);
+
+    Set<Source> sources = getAllSources(library);
+
+    getAllErrors(context, sources, errors);
+
+    return getMaxErrorSeverity(errors);
+  }
+
+  /**
+   * Return a source factory that resolves URIs against the SDK of this analyzer and the given
+   * package root.
+   * 
+   * @param packageRoot the package root, or {@code null} if there is no package root
+   * @return a source factory that resolves URIs against the SDK and the package root
+   */
+  SourceFactory createSourceFactory(File packageRoot) {
+    if (packageRoot != null) {
+      return new SourceFactory(
+          new DartUriResolver(sdk),
+          new FileUriResolver(),
+          new PackageUriResolver(packageRoot));
+    } else {
+      return new SourceFactory(new DartUriResolver(sdk), new FileUriResolver());
+    }
+  }
+
   Set<Source> getAllSources(LibraryElement library) {
     Set<CompilationUnitElement> units = new HashSet<CompilationUnitElement>();
     Set<LibraryElement> libraries = new HashSet<LibraryElement>();
@@ -153,6 +225,54 @@ class AnalyzerImpl {
     return sources;
   }
 
+  /**
+   * Return the SDK used by this analyzer.
+   * 
+   * @return the SDK used by this analyzer
+   */
+  DirectoryBasedDartSdk getSdk() {
+    return sdk;
+  }
+
+  /**
+   * Record the element models of the SDK libraries from the SDK index, if one is available, so that
+   * the SDK libraries do not need to be resolved. The index named on the command line is mapped into
+   * memory; otherwise the index packaged with the analyzer is used. If the index cannot be used, the
+   * SDK libraries are resolved as usual.
+   */
+  void loadSdkIndex() {
+    if (sdkIndexLoaded) {
+      return;
+    }
+    sdkIndexLoaded = true;
+
+    try {
+      SdkSummaryReader reader;
+
+      if (options.getSdkIndexPath() != null) {
+        reader = SdkSummaryReader.forFile(options.getSdkIndexPath());
+      } else {
+        InputStream input = AnalyzerImpl.class.getResourceAsStream(SDK_INDEX_RESOURCE);
+
+        if (input == null) {
+          return;
+        }
+
+        try {
+          reader = SdkSummaryReader.forStream(input);
+        } finally {
+          input.close();
+        }
+      }
+
+      reader.readLibraries(sdk);
+    } catch (AnalysisException exception) {
+      // Fall through to resolve the SDK libraries.
+    } catch (IOException ioe) {
+      // Fall through to resolve the SDK libraries.
+    }
+  }
+
   private void addCompilationUnit(CompilationUnitElement unit, Set<LibraryElement> libraries,
       Set<CompilationUnitElement> units, Set<Source> sources) {
     if (unit == null || units.contains(unit)) {
@@ -209,14 +329,4 @@ class AnalyzerImpl {
     }
   }
 
-  private File getPackageDirectoryFor(File sourceFile) {
-    File packagesDir = new File(sourceFile.getParentFile(), "packages");
-
-    if (packagesDir.exists()) {
-      return packagesDir;
-    } else {
-      return null;
-    }
-  }
-
 }
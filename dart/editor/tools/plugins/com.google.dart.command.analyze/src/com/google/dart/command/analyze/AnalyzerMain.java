@@ -18,10 +18,13 @@ import com.google.dart.engine.AnalysisEngine;
 import com.google.dart.engine.context.AnalysisException;
 import com.google.dart.engine.error.AnalysisError;
 import com.google.dart.engine.error.ErrorSeverity;
+import com.google.dart.engine.utilities.general.PhaseStatistics;
 
 import java.io.File;
+import java.io.FileWriter;
 import java.io.IOException;
 import java.io.PrintStream;
+import java.io.PrintWriter;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
@@ -33,6 +36,12 @@ import java.util.List;
 public class AnalyzerMain {
   public static final String PROGRAM_NAME = "dartanalyzer";
 
+  /**
+   * The number of libraries whose resolution took the longest that are included in the resolution
+   * statistics.
+   */
+  private static final int SLOWEST_LIBRARY_COUNT = 25;
+
   /**
    * @return the version of the dart-analyzer tool
    */
@@ -77,6 +86,10 @@ public class AnalyzerMain {
       System.exit(1);
     }
 
+    if (options.getResolutionStatisticsPath() != null) {
+      recordResolutionStatistics(options.getResolutionStatisticsPath());
+    }
+
     if (options.getSdkIndexLocation() != null) {
       AnalyzerImpl analyzer = new AnalyzerImpl(options);
       if (analyzer.createSdkIndex()) {
@@ -93,7 +106,22 @@ public class AnalyzerMain {
 
     try {
 
-      if (options.shouldBatch()) {
+      if (options.shouldServe()) {
+        AnalysisServer server = new AnalysisServer(options);
+
+        if (options.getServerPort() != 0) {
+          server.serve(options.getServerPort());
+        } else {
+          ErrorSeverity result = server.serve(System.in, System.out);
+
+          System.out.println(">>> SERVER END " + server.getStatistics());
+          System.out.flush();
+
+          if (result != ErrorSeverity.NONE) {
+            System.exit(result.ordinal());
+          }
+        }
+      } else if (options.shouldBatch()) {
         ErrorSeverity result = BatchRunner.runAsBatch(args, new BatchRunnerInvocation() {
           @Override
           public ErrorSeverity invoke(String[] lineArgs) throws Throwable {
@@ -190,6 +218,32 @@ public class AnalyzerMain {
     return status;
   }
 
+  /**
+   * Record the time spent in each phase of library resolution, and write the statistics to the
+   * given file when the analyzer exits.
+   * 
+   * @param statisticsFile the file to which the statistics are to be written
+   */
+  private static void recordResolutionStatistics(final File statisticsFile) {
+    final PhaseStatistics statistics = new PhaseStatistics();
+    AnalysisEngine.getInstance().setResolverStatistics(statistics);
+    Runtime.getRuntime().addShutdownHook(new Thread() {
+      @Override
+      public void run() {
+        try {
+          PrintWriter writer = new PrintWriter(new FileWriter(statisticsFile));
+          try {
+            statistics.print(writer, SLOWEST_LIBRARY_COUNT);
+          } finally {
+            writer.close();
+          }
+        } catch (IOException exception) {
+          System.err.println("Could not write " + statisticsFile + ": " + exception.getMessage());
+        }
+      }
+    });
+  }
+
   /**
    * If the unit tests are on our classpath, run them and exit with an appropriate status code
    * 
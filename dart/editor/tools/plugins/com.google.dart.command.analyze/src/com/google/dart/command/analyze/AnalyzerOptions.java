@@ -150,6 +150,15 @@ public class AnalyzerOptions {
   aliases = {"-batch"})
   private boolean batch = false;
 
+  @Option(name = "--server", //
+  usage = "Analyze the files named on each line of stdin, reusing the results of earlier lines")
+  private boolean serve = false;
+
+  @Option(name = "--server-port", //
+  metaVar = "<port>", //
+  usage = "Run as a server, reading requests from connections to the given local port")
+  private int serverPort = 0;
+
   @Option(name = "--show-sdk-warnings")
   private boolean showSdkWarnings = false;
 
@@ -161,10 +170,25 @@ public class AnalyzerOptions {
   @Option(name = "--fatal-type-errors")
   private boolean fatalTypeError = false;
 
+  @Option(name = "--element-cache", //
+  metaVar = "<dir>", //
+  usage = "A directory in which resolved libraries are cached between runs")
+  private File elementCachePath = null;
+
+  @Option(name = "--resolution-statistics", //
+  metaVar = "<file>", //
+  usage = "Write the time spent in each phase of library resolution to the given file on exit")
+  private File resolutionStatisticsPath = null;
+
   @Option(name = "--create-sdk-index", //
   metaVar = "<file>")
   private File sdkIndexLocation = null;
 
+  @Option(name = "--sdk-index", //
+  metaVar = "<file>", //
+  usage = "An SDK index created with --create-sdk-index to use instead of resolving the SDK")
+  private File sdkIndexPath = null;
+
   @Option(name = "--test")
   private boolean runTests = false;
 
@@ -186,6 +210,13 @@ public class AnalyzerOptions {
     return dartSdkPath;
   }
 
+  /**
+   * @return the directory in which resolved libraries are cached, if specified
+   */
+  public File getElementCachePath() {
+    return elementCachePath;
+  }
+
   public boolean getMachineFormat() {
     return machineFormat;
   }
@@ -197,6 +228,13 @@ public class AnalyzerOptions {
     return packageRootPath;
   }
 
+  /**
+   * @return the file to which resolution statistics are written, if specified
+   */
+  public File getResolutionStatisticsPath() {
+    return resolutionStatisticsPath;
+  }
+
   public boolean getRunTests() {
     return runTests;
   }
@@ -208,6 +246,21 @@ public class AnalyzerOptions {
     return sdkIndexLocation;
   }
 
+  /**
+   * @return the SDK index to load instead of resolving the SDK, if specified
+   */
+  public File getSdkIndexPath() {
+    return sdkIndexPath;
+  }
+
+  /**
+   * @return the local port on which the server accepts connections, or {@code 0} if requests are
+   *         read from stdin
+   */
+  public int getServerPort() {
+    return serverPort;
+  }
+
   /**
    * @return whether SDK warnings should be reported
    */
@@ -263,6 +316,16 @@ public class AnalyzerOptions {
     return batch;
   }
 
+  /**
+   * Return {@code true} if the analyzer should be run as a server, {@code false} otherwise.
+   * <p>
+   * (A server receives the same requests as batch mode, but keeps its analysis contexts between
+   * requests so that only the sources that have changed need to be analyzed again.)
+   */
+  public boolean shouldServe() {
+    return serve || serverPort != 0;
+  }
+
   /**
    * Returns {@code true} to indicate printing the help message.
    */
@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2013, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.command.analyze;
+
+import com.google.dart.engine.error.ErrorSeverity;
+import com.google.dart.engine.sdk.DirectoryBasedDartSdk;
+
+import junit.framework.TestCase;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintStream;
+
+public class AnalysisServerTest extends TestCase {
+  private File tempDir;
+
+  public void test_analyze_addedImport() throws Exception {
+    File mainFile = writeFile("main.dart", "import 'lib.dart';", "main() { foo(); }");
+    AnalysisServer server = createServer();
+    assertSame(ErrorSeverity.ERROR, analyze(server, mainFile));
+
+    writeFile("lib.dart", "library lib;", "int foo() => 0;");
+    assertSame(ErrorSeverity.NONE, analyze(server, mainFile));
+  }
+
+  public void test_analyze_changedImport() throws Exception {
+    File libraryFile = writeFile("lib.dart", "library lib;", "int foo() => 0;");
+    File mainFile = writeFile("main.dart", "import 'lib.dart';", "main() { foo(); }");
+    AnalysisServer server = createServer();
+    assertSame(ErrorSeverity.NONE, analyze(server, mainFile));
+
+    long modificationStamp = libraryFile.lastModified();
+    writeFile("lib.dart", "library lib;", "int bar() => 0;");
+    libraryFile.setLastModified(modificationStamp + 1000L);
+    assertSame(ErrorSeverity.WARNING, analyze(server, mainFile));
+
+    modificationStamp = libraryFile.lastModified();
+    writeFile("lib.dart", "library lib;", "int foo() => 0;");
+    libraryFile.setLastModified(modificationStamp + 1000L);
+    assertSame(ErrorSeverity.NONE, analyze(server, mainFile));
+  }
+
+  public void test_analyze_removedImport() throws Exception {
+    File libraryFile = writeFile("lib.dart", "library lib;", "int foo() => 0;");
+    File mainFile = writeFile("main.dart", "import 'lib.dart';", "main() { foo(); }");
+    AnalysisServer server = createServer();
+    assertSame(ErrorSeverity.NONE, analyze(server, mainFile));
+
+    libraryFile.delete();
+    assertSame(ErrorSeverity.ERROR, analyze(server, mainFile));
+  }
+
+  public void test_serve() throws Exception {
+    File mainFile = writeFile("main.dart", "main() { foo(); }");
+    AnalysisServer server = createServer();
+    String requests = mainFile.getPath() + "\n\n" + mainFile.getPath() + " --fatal-warnings\n";
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    ErrorSeverity result = server.serve(
+        new ByteArrayInputStream(requests.getBytes("UTF-8")),
+        new PrintStream(out, true, "UTF-8"));
+
+    assertSame(ErrorSeverity.ERROR, result);
+    String response = out.toString("UTF-8");
+    assertTrue(response, response.matches("(?s).*>>> REQUEST PASS \\d+ms\n.*"));
+    assertTrue(response, response.matches("(?s).*>>> REQUEST FAIL \\d+ms\n"));
+    assertTrue(server.getStatistics(), server.getStatistics().startsWith("2 requests"));
+  }
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    tempDir = File.createTempFile("analysisServer", "");
+    tempDir.delete();
+    tempDir.mkdir();
+  }
+
+  @Override
+  protected void tearDown() throws Exception {
+    for (File file : tempDir.listFiles()) {
+      file.delete();
+    }
+    tempDir.delete();
+    super.tearDown();
+  }
+
+  private ErrorSeverity analyze(AnalysisServer server, File file) throws Exception {
+    AnalyzerOptions options = AnalyzerOptions.createFromArgs(new String[] {file.getPath()});
+    return server.analyze(options, new PrintStream(new ByteArrayOutputStream()));
+  }
+
+  private AnalysisServer createServer() {
+    File sdkDirectory = DirectoryBasedDartSdk.getDefaultSdkDirectory();
+    assertNotNull(
+        "No SDK configured; set the property 'com.google.dart.sdk' on the command line",
+        sdkDirectory);
+    return new AnalysisServer(AnalyzerOptions.createFromArgs(new String[] {
+        "--dart-sdk", sdkDirectory.getPath(), "--server"}));
+  }
+
+  private File writeFile(String name, String... lines) throws IOException {
+    File file = new File(tempDir, name);
+    FileWriter writer = new FileWriter(file);
+    try {
+      for (String line : lines) {
+        writer.write(line);
+        writer.write("\n");
+      }
+    } finally {
+      writer.close();
+    }
+    return file;
+  }
+}
@@ -21,6 +21,7 @@ public class TestAll {
 
   public static Test suite() {
     TestSuite suite = new TestSuite("Tests in " + TestAll.class.getPackage().getName());
+    suite.addTestSuite(AnalysisServerTest.class);
     suite.addTestSuite(ErrorFormatterTest.class);
     return suite;
   }
@@ -100,22 +100,17 @@ import com.google.dart.engine.internal.type.DynamicTypeImpl;
 import com.google.dart.engine.scanner.Token;
 import com.google.dart.engine.sdk.DartSdk;
 import com.google.dart.engine.search.SearchEngine;
-import com.google.dart.engine.search.SearchFilter;
-import com.google.dart.engine.search.SearchMatch;
-import com.google.dart.engine.search.SearchPattern;
-import com.google.dart.engine.search.SearchPatternFactory;
-import com.google.dart.engine.search.SearchScope;
-import com.google.dart.engine.search.SearchScopeFactory;
 import com.google.dart.engine.services.assist.AssistContext;
+import com.google.dart.engine.services.completion.CompletionSymbolTable.SymbolKind;
 import com.google.dart.engine.source.Source;
 import com.google.dart.engine.type.FunctionType;
 import com.google.dart.engine.type.InterfaceType;
 import com.google.dart.engine.type.Type;
 import com.google.dart.engine.utilities.ast.ScopedNameFinder;
+import com.google.dart.engine.utilities.general.CharOperation;
 
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedList;
@@ -144,23 +139,6 @@ public class CompletionEngine {
     }
   }
 
-  class ContainmentFilter implements SearchFilter {
-    ExecutableElement containingElement;
-
-    ContainmentFilter(ExecutableElement element) {
-      containingElement = element;
-    }
-
-    @Override
-    public boolean passes(SearchMatch match) {
-      Element baseElement = match.getElement();
-      if (containingElement == null) {
-        return baseElement.getEnclosingElement() instanceof CompilationUnitElement;
-      }
-      return true;
-    }
-  }
-
   class NameCollector {
     private Map<String, List<Element>> uniqueNames = new HashMap<String, List<Element>>();
 
@@ -206,11 +184,11 @@ public class CompletionEngine {
 
     void addTopLevelNames() {
       if (!state.areLiteralsAllowed) {
-        mergeNames(findAllTypes());
+        mergeNames(findTypes(filter.pattern));
       }
       if (!state.areClassesRequired) {
-        mergeNames(findAllVariables());
-        mergeNames(findAllFunctions());
+        mergeNames(findVariables(filter.pattern));
+        mergeNames(findFunctions(filter.pattern));
         mergeNames(findAllPrefixes());
       }
     }
@@ -269,6 +247,8 @@ public class CompletionEngine {
 
   private class Filter {
     String prefix;
+    String pattern;
+    boolean isCamelCasePattern;
     boolean isPrivateDisallowed = true;
 
     Filter(SimpleIdentifier ident) {
@@ -291,6 +271,8 @@ public class CompletionEngine {
       if (prefix.length() >= 1) {
         isPrivateDisallowed = !Identifier.isPrivateName(prefix);
       }
+      pattern = prefix;
+      isCamelCasePattern = CompletionSymbolTable.isCamelCasePattern(pattern);
       prefix = prefix.toLowerCase();
     }
 
@@ -310,7 +292,14 @@ public class CompletionEngine {
     boolean match(String name) {
       // Return true if the filter passes. Return false for private elements that should not be visible
       // in the current context.
-      return isPermitted(name) && name.toLowerCase().startsWith(prefix);
+      if (!isPermitted(name)) {
+        return false;
+      }
+      if (name.toLowerCase().startsWith(prefix)) {
+        return true;
+      }
+      return isCamelCasePattern
+          && CharOperation.camelCaseMatch(pattern.toCharArray(), name.toCharArray());
     }
   }
 
@@ -1329,12 +1318,19 @@ public class CompletionEngine {
   private static final String C_VAR = "var";
   private static final String C_VOID = "void";
 
+  /**
+   * The time, in nanoseconds, after which the symbols of libraries that have been resolved again
+   * are no longer collected again for the current completion request.
+   */
+  private static final long SYMBOL_TIME_BUDGET = 16 * 1000 * 1000;
+
   private CompletionRequestor requestor;
   private CompletionFactory factory;
   private AssistContext context;
   private Filter filter;
   private CompletionState state;
   private LibraryElement[] libraries;
+  private long symbolDeadline;
 
   public CompletionEngine(CompletionRequestor requestor, CompletionFactory factory) {
     this.requestor = requestor;
@@ -1350,6 +1346,7 @@ public class CompletionEngine {
    */
   public void complete(AssistContext context) {
     this.context = context;
+    symbolDeadline = System.nanoTime() + SYMBOL_TIME_BUDGET;
     requestor.beginReporting();
     ASTNode completionNode = context.getCoveredNode();
     if (completionNode != null) {
@@ -1510,7 +1507,7 @@ public class CompletionEngine {
   void analyzeTypeName(SimpleIdentifier identifier, SimpleIdentifier nameIdent) {
     filter = new Filter(identifier);
     String name = nameIdent == null ? "" : nameIdent.getName();
-    Element[] types = findAllTypes();
+    Element[] types = findTypes(filter.pattern);
     for (Element type : types) {
       if (state.isForMixin) {
         if (!(type instanceof ClassElement)) {
@@ -1768,15 +1765,11 @@ public class CompletionEngine {
 
   private InterfaceType[] allSubtypes(ClassElement classElement) {
     SearchEngine engine = context.getSearchEngine();
-    SearchScope scope = SearchScopeFactory.createUniverseScope();
-    List<SearchMatch> matches = engine.searchSubtypes(classElement, scope, null);
-    InterfaceType[] subtypes = new InterfaceType[matches.size()];
+    Set<ClassElement> subclasses = engine.getTypeHierarchy().getDirectSubtypes(classElement);
+    InterfaceType[] subtypes = new InterfaceType[subclasses.size()];
     int i = 0;
-    for (SearchMatch match : matches) {
-      Element element = match.getElement();
-      if (element instanceof ClassElement) {
-        subtypes[i++] = ((ClassElement) element).getType();
-      }
+    for (ClassElement subclass : subclasses) {
+      subtypes[i++] = subclass.getType();
     }
     return subtypes;
   }
@@ -1812,14 +1805,11 @@ public class CompletionEngine {
     return completionLocation() - filter.prefix.length();
   }
 
-  private SearchScope constructSearchScope() {
+  private LibraryElement[] constructLibraryScope() {
     if (libraries == null) {
       libraries = currentLibraryList();
     }
-    if (libraries != null) {
-      return SearchScopeFactory.createLibraryScope(libraries);
-    }
-    return SearchScopeFactory.createUniverseScope();
+    return libraries;
   }
 
   private <X extends ASTNode> List<FormalParameter> copyWithout(NodeList<X> oldList,
@@ -1846,7 +1836,12 @@ public class CompletionEngine {
     LibraryElement curLib = getCurrentLibrary();
     libraries.add(curLib);
     List<LibraryElement> queue = new LinkedList<LibraryElement>();
-    Collections.addAll(queue, curLib.getImportedLibraries());
+    for (ImportElement imp : curLib.getImports()) {
+      // The names imported with a prefix are only visible through the prefix.
+      if (imp.getPrefix() == null && imp.getImportedLibrary() != null) {
+        queue.add(imp.getImportedLibrary());
+      }
+    }
     currentLibraryLister(queue, libraries);
     return libraries.toArray(new LibraryElement[libraries.size()]);
   }
@@ -1864,15 +1859,6 @@ public class CompletionEngine {
     }
   }
 
-  private Element[] extractElementsFromSearchMatches(List<SearchMatch> matches) {
-    Element[] funcs = new Element[matches.size()];
-    int i = 0;
-    for (SearchMatch match : matches) {
-      funcs[i++] = match.getElement();
-    }
-    return funcs;
-  }
-
   private boolean filterAllows(Element element) {
     return filter.match(element);
   }
@@ -1885,34 +1871,30 @@ public class CompletionEngine {
     return !filter.match(name);
   }
 
-  private Element[] findAllFunctions() {
-    SearchEngine engine = context.getSearchEngine();
-    SearchScope scope = constructSearchScope();
-    SearchPattern pattern = SearchPatternFactory.createWildcardPattern("*", false);
-    SearchFilter filter = new ContainmentFilter(null);
-    List<SearchMatch> matches = engine.searchFunctionDeclarations(scope, pattern, filter);
-    return extractElementsFromSearchMatches(matches);
-  }
-
   private Element[] findAllPrefixes() {
     LibraryElement lib = context.getCompilationUnit().getElement().getEnclosingElement();
     return lib.getPrefixes();
   }
 
   private Element[] findAllTypes() {
-    SearchEngine engine = context.getSearchEngine();
-    SearchScope scope = constructSearchScope();
-    SearchPattern pattern = SearchPatternFactory.createWildcardPattern("*", false);
-    List<SearchMatch> matches = engine.searchTypeDeclarations(scope, pattern, null);
-    return extractElementsFromSearchMatches(matches);
+    return findTypes("");
   }
 
-  private Element[] findAllVariables() {
-    SearchEngine engine = context.getSearchEngine();
-    SearchScope scope = constructSearchScope();
-    SearchPattern pattern = SearchPatternFactory.createWildcardPattern("*", false);
-    List<SearchMatch> matches = engine.searchVariableDeclarations(scope, pattern, null);
-    return extractElementsFromSearchMatches(matches);
+  private Element[] findFunctions(String pattern) {
+    return findSymbols(SymbolKind.FUNCTION, pattern);
+  }
+
+  private Element[] findSymbols(SymbolKind kind, String pattern) {
+    CompletionSymbolTable table = CompletionSymbolTable.getTable(getAnalysisContext());
+    return table.getSymbols(kind, constructLibraryScope(), pattern, symbolDeadline);
+  }
+
+  private Element[] findTypes(String pattern) {
+    return findSymbols(SymbolKind.TYPE, pattern);
+  }
+
+  private Element[] findVariables(String pattern) {
+    return findSymbols(SymbolKind.VARIABLE, pattern);
   }
 
   private AnalysisContext getAnalysisContext() {
@@ -2143,7 +2125,10 @@ public class CompletionEngine {
     ProposalKind kind = proposalKindOf(element);
     CompletionProposal prop = createProposal(kind);
     setParameterInfo(element, prop);
-    prop.setCompletion(name).setReturnType(element.getType().getReturnType().getName());
+    // The type of some constructors in the SDK has not been computed.
+    FunctionType type = element.getType();
+    String returnType = type != null ? type.getReturnType().getName() : classElement.getName();
+    prop.setCompletion(name).setReturnType(returnType);
     Element container = element.getEnclosingElement();
     prop.setDeclaringType(container.getDisplayName());
     requestor.accept(prop);
@@ -0,0 +1,301 @@
+/*
+ * Copyright (c) 2013, the Dart project authors.
+ *
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.services.completion;
+
+import com.google.dart.engine.context.AnalysisContext;
+import com.google.dart.engine.element.CompilationUnitElement;
+import com.google.dart.engine.element.Element;
+import com.google.dart.engine.element.LibraryElement;
+import com.google.dart.engine.element.PropertyAccessorElement;
+import com.google.dart.engine.element.TopLevelVariableElement;
+import com.google.dart.engine.source.Source;
+import com.google.dart.engine.utilities.general.CharOperation;
+
+import java.lang.ref.SoftReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Instances of the class {@code CompletionSymbolTable} hold the top-level types, functions and
+ * variables declared by the libraries of an analysis context, sorted by name, so that completion
+ * can find the symbols matching a prefix without searching the index.
+ * <p>
+ * The symbols of a library are collected from its element model the first time they are needed,
+ * and collected again when the library has been resolved again, i.e. when the context returns a
+ * different {@link LibraryElement} for the same source.
+ *
+ * @coverage dart.engine.services.completion
+ */
+public class CompletionSymbolTable {
+  /**
+   * The kinds of symbols held by the table.
+   */
+  static enum SymbolKind {
+    TYPE,
+    FUNCTION,
+    VARIABLE
+  }
+
+  /**
+   * Instances of the class {@code LibrarySymbols} hold the symbols declared by a single library.
+   */
+  private static class LibrarySymbols {
+    /**
+     * The element model from which the symbols were collected.
+     */
+    private final LibraryElement library;
+
+    /**
+     * The symbols of each kind, sorted by their lower-case name.
+     */
+    private final Element[][] symbols = new Element[SymbolKind.values().length][];
+
+    /**
+     * The lower-case names of the symbols of each kind, in the same order as {@link #symbols}.
+     */
+    private final String[][] names = new String[SymbolKind.values().length][];
+
+    LibrarySymbols(LibraryElement library) {
+      this.library = library;
+      List<List<Element>> elements = new ArrayList<List<Element>>();
+      for (int i = 0; i < SymbolKind.values().length; i++) {
+        elements.add(new ArrayList<Element>());
+      }
+      addUnit(elements, library.getDefiningCompilationUnit());
+      for (CompilationUnitElement part : library.getParts()) {
+        addUnit(elements, part);
+      }
+      for (SymbolKind kind : SymbolKind.values()) {
+        List<Element> kindElements = elements.get(kind.ordinal());
+        Collections.sort(kindElements, NAME_ORDER);
+        int count = kindElements.size();
+        symbols[kind.ordinal()] = kindElements.toArray(new Element[count]);
+        String[] kindNames = new String[count];
+        for (int i = 0; i < count; i++) {
+          kindNames[i] = getLowerCaseName(kindElements.get(i));
+        }
+        names[kind.ordinal()] = kindNames;
+      }
+    }
+
+    /**
+     * Add to the given result the symbols of the given kind whose name matches the given pattern.
+     */
+    void getMatches(SymbolKind kind, String pattern, List<Element> result) {
+      Element[] kindSymbols = symbols[kind.ordinal()];
+      if (pattern.isEmpty()) {
+        Collections.addAll(result, kindSymbols);
+        return;
+      }
+      String[] kindNames = names[kind.ordinal()];
+      char[] camelCasePattern = isCamelCasePattern(pattern) ? pattern.toCharArray() : null;
+      String lowerPrefix = pattern.toLowerCase();
+      // Both prefix and camel case matches start with the first character of the pattern.
+      String rangePrefix = camelCasePattern != null ? lowerPrefix.substring(0, 1) : lowerPrefix;
+      int index = Arrays.binarySearch(kindNames, rangePrefix);
+      if (index < 0) {
+        index = -(index + 1);
+      }
+      while (index < kindNames.length && kindNames[index].startsWith(rangePrefix)) {
+        Element element = kindSymbols[index];
+        if (kindNames[index].startsWith(lowerPrefix)
+            || (camelCasePattern != null && CharOperation.camelCaseMatch(
+                camelCasePattern,
+                element.getDisplayName().toCharArray()))) {
+          result.add(element);
+        }
+        index++;
+      }
+    }
+
+    private void addUnit(List<List<Element>> elements, CompilationUnitElement unit) {
+      Collections.addAll(elements.get(SymbolKind.TYPE.ordinal()), unit.getTypes());
+      Collections.addAll(elements.get(SymbolKind.TYPE.ordinal()), unit.getFunctionTypeAliases());
+      Collections.addAll(elements.get(SymbolKind.FUNCTION.ordinal()), unit.getFunctions());
+      for (PropertyAccessorElement accessor : unit.getAccessors()) {
+        if (!accessor.isSynthetic()) {
+          elements.get(SymbolKind.FUNCTION.ordinal()).add(accessor);
+        }
+      }
+      for (TopLevelVariableElement variable : unit.getTopLevelVariables()) {
+        if (!variable.isSynthetic()) {
+          elements.get(SymbolKind.VARIABLE.ordinal()).add(variable);
+        }
+      }
+    }
+  }
+
+  /**
+   * The comparator used to sort symbols by their lower-case name.
+   */
+  private static final Comparator<Element> NAME_ORDER = new Comparator<Element>() {
+    @Override
+    public int compare(Element first, Element second) {
+      return getLowerCaseName(first).compareTo(getLowerCaseName(second));
+    }
+  };
+
+  /**
+   * The table associated with each analysis context. A table holds the element models of the
+   * libraries of its context, which refer to the context, so a table would keep its context from
+   * ever being removed from a weak map. Tables are removed when their context is discarded, and
+   * are only softly referenced in case a context is discarded without being removed.
+   */
+  private static final Map<AnalysisContext, SoftReference<CompletionSymbolTable>> TABLES = //
+  new WeakHashMap<AnalysisContext, SoftReference<CompletionSymbolTable>>();
+
+  /**
+   * Return the symbol table of the given analysis context, creating it if necessary.
+   *
+   * @param context the analysis context whose symbols are to be returned
+   * @return the symbol table of the given analysis context
+   */
+  public static CompletionSymbolTable getTable(AnalysisContext context) {
+    synchronized (TABLES) {
+      SoftReference<CompletionSymbolTable> reference = TABLES.get(context);
+      CompletionSymbolTable table = reference == null ? null : reference.get();
+      if (table == null) {
+        table = new CompletionSymbolTable(context);
+        TABLES.put(context, new SoftReference<CompletionSymbolTable>(table));
+      }
+      return table;
+    }
+  }
+
+  /**
+   * Return {@code true} if the given pattern should also be matched as a camel case pattern, i.e.
+   * if it contains at least two upper case characters, such as "HME" for "HtmlMouseEvent".
+   *
+   * @param pattern the pattern being matched
+   * @return {@code true} if the given pattern is a camel case pattern
+   */
+  static boolean isCamelCasePattern(String pattern) {
+    int upperCaseCount = 0;
+    for (int i = 0; i < pattern.length(); i++) {
+      if (Character.isUpperCase(pattern.charAt(i))) {
+        upperCaseCount++;
+      }
+    }
+    return upperCaseCount >= 2;
+  }
+
+  /**
+   * Discard the symbol table of the given analysis context, which is no longer being used.
+   *
+   * @param context the analysis context that is no longer being used
+   */
+  public static void removeContext(AnalysisContext context) {
+    synchronized (TABLES) {
+      TABLES.remove(context);
+    }
+  }
+
+  private static String getLowerCaseName(Element element) {
+    return element.getDisplayName().toLowerCase();
+  }
+
+  /**
+   * The analysis context whose libraries are described by this table.
+   */
+  private final AnalysisContext context;
+
+  /**
+   * The symbols of each library, keyed by the source of the library.
+   */
+  private final Map<Source, LibrarySymbols> librarySymbols = new HashMap<Source, LibrarySymbols>();
+
+  /**
+   * A flag indicating whether the symbols of a library have been collected again since the
+   * symbols of the libraries that are no longer in the context were last removed.
+   */
+  private boolean collectedAgain;
+
+  /**
+   * Initialize a newly created table to hold the symbols of the libraries of the given context.
+   *
+   * @param context the analysis context whose libraries are described by this table
+   */
+  private CompletionSymbolTable(AnalysisContext context) {
+    this.context = context;
+  }
+
+  /**
+   * Return the symbols of the given kind declared by the given libraries whose name starts with
+   * the given pattern, ignoring case, or matches the given camel case pattern.
+   * <p>
+   * Libraries whose symbols have never been collected are always visited. Once the given deadline
+   * has passed, the symbols of libraries that have been resolved again since they were collected
+   * are not collected again: the symbols collected from the previous element model are returned,
+   * and they are updated by a later request.
+   *
+   * @param kind the kind of the symbols to be returned
+   * @param libraries the libraries whose symbols are to be returned
+   * @param pattern the prefix or camel case pattern the names of the symbols must match
+   * @param deadline the value of {@link System#nanoTime()} after which stale symbols are used
+   * @return the symbols matching the given pattern
+   */
+  Element[] getSymbols(SymbolKind kind, LibraryElement[] libraries, String pattern, long deadline) {
+    List<Element> result = new ArrayList<Element>();
+    for (LibraryElement library : libraries) {
+      LibrarySymbols symbols = getLibrarySymbols(library, deadline);
+      symbols.getMatches(kind, pattern, result);
+    }
+    removeDeletedLibraries();
+    return result.toArray(new Element[result.size()]);
+  }
+
+  /**
+   * Return the symbols of the given library, collecting them if they have never been collected, or
+   * if the library was resolved again and the deadline has not passed.
+   */
+  private synchronized LibrarySymbols getLibrarySymbols(LibraryElement library, long deadline) {
+    Source source = library.getSource();
+    LibrarySymbols symbols = librarySymbols.get(source);
+    if (symbols == null
+        || (symbols.library != library && System.nanoTime() - deadline < 0)) {
+      if (symbols != null) {
+        collectedAgain = true;
+      }
+      symbols = new LibrarySymbols(library);
+      librarySymbols.put(source, symbols);
+    }
+    return symbols;
+  }
+
+  /**
+   * Remove the symbols of the libraries that no longer have an element model in the context, if
+   * the symbols of any library have been collected again since this was last done. Deleting a
+   * library causes the libraries that import it to be resolved again, so the check is not made on
+   * every request.
+   */
+  private synchronized void removeDeletedLibraries() {
+    if (!collectedAgain) {
+      return;
+    }
+    collectedAgain = false;
+    Iterator<Source> sources = librarySymbols.keySet().iterator();
+    while (sources.hasNext()) {
+      if (context.getLibraryElement(sources.next()) == null) {
+        sources.remove();
+      }
+    }
+  }
+}
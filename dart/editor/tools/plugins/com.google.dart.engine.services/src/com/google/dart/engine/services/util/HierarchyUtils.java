@@ -24,7 +24,6 @@ import com.google.dart.engine.element.ExecutableElement;
 import com.google.dart.engine.element.FieldElement;
 import com.google.dart.engine.element.visitor.GeneralizingElementVisitor;
 import com.google.dart.engine.search.SearchEngine;
-import com.google.dart.engine.search.SearchMatch;
 import com.google.dart.engine.type.InterfaceType;
 
 import java.util.LinkedList;
@@ -70,15 +69,7 @@ public class HierarchyUtils {
    * @return the {@link List} with direct sub {@link ClassElement}s of the given.
    */
   public static List<ClassElement> getDirectSubClasses(SearchEngine searchEngine, ClassElement seed) {
-    List<ClassElement> subClasses = Lists.newArrayList();
-    // ask SearchEngine
-    List<SearchMatch> subMatches = searchEngine.searchSubtypes(seed, null, null);
-    for (SearchMatch subMatch : subMatches) {
-      ClassElement subClass = (ClassElement) subMatch.getElement();
-      subClasses.add(subClass);
-    }
-    // done
-    return subClasses;
+    return Lists.newArrayList(searchEngine.getTypeHierarchy().getDirectSubtypes(seed));
   }
 
   /**
@@ -99,21 +90,8 @@ public class HierarchyUtils {
    * @return the {@link Set} with all direct and indirect sub {@link ClassElement}s of the given.
    */
   public static Set<ClassElement> getSubClasses(SearchEngine searchEngine, ClassElement seed) {
-    Set<ClassElement> subClasses = Sets.newHashSet();
-    // prepare queue
-    LinkedList<ClassElement> subClassQueue = Lists.newLinkedList();
-    subClassQueue.add(seed);
-    // process queue
-    while (!subClassQueue.isEmpty()) {
-      ClassElement subClass = subClassQueue.removeFirst();
-      if (subClasses.add(subClass)) {
-        List<ClassElement> directSubClasses = getDirectSubClasses(searchEngine, subClass);
-        subClassQueue.addAll(directSubClasses);
-      }
-    }
-    // we don't need "seed" itself
-    subClasses.remove(seed);
-    return subClasses;
+    // the hierarchy does not include "seed" itself
+    return Sets.newHashSet(searchEngine.getTypeHierarchy().getSubtypes(seed));
   }
 
   /**
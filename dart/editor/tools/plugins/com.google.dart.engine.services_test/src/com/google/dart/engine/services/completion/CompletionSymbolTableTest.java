@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2013, the Dart project authors.
+ *
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.services.completion;
+
+import com.google.dart.engine.element.Element;
+import com.google.dart.engine.element.LibraryElement;
+import com.google.dart.engine.resolver.ResolverTestCase;
+import com.google.dart.engine.services.completion.CompletionSymbolTable.SymbolKind;
+import com.google.dart.engine.source.Source;
+
+import java.util.Set;
+import java.util.TreeSet;
+
+public class CompletionSymbolTableTest extends ResolverTestCase {
+  public void test_camelCase() throws Exception {
+    LibraryElement library = resolve(addSource(
+        "/lib.dart",
+        CompletionTestCase.src(
+            "library lib;",
+            "class HtmlMouseEvent {}",
+            "class HtmlElement {}",
+            "class Hammer {}")));
+    CompletionSymbolTable table = CompletionSymbolTable.getTable(getAnalysisContext());
+    assertNames(table, SymbolKind.TYPE, library, "HME", future(), "HtmlMouseEvent");
+    assertNames(table, SymbolKind.TYPE, library, "HtE", future(), "HtmlElement");
+    // A single upper case character is only a prefix.
+    assertNames(table, SymbolKind.TYPE, library, "Ht", future(), "HtmlElement", "HtmlMouseEvent");
+    assertNames(table, SymbolKind.TYPE, library, "Hm", future());
+  }
+
+  public void test_getTable() throws Exception {
+    assertSame(
+        CompletionSymbolTable.getTable(getAnalysisContext()),
+        CompletionSymbolTable.getTable(getAnalysisContext()));
+  }
+
+  public void test_prefix() throws Exception {
+    LibraryElement library = resolve(addSource(
+        "/lib.dart",
+        CompletionTestCase.src(
+            "library lib;",
+            "part 'part.dart';",
+            "class Alpha {}",
+            "class alphabet {}",
+            "typedef Beta();",
+            "aFunction() {}",
+            "get aGetter => 0;",
+            "var aVariable, bVariable;")));
+    addSource("/part.dart", CompletionTestCase.src("part of lib;", "class Another {}"));
+    library = resolve(library.getSource());
+    CompletionSymbolTable table = CompletionSymbolTable.getTable(getAnalysisContext());
+    assertNames(
+        table,
+        SymbolKind.TYPE,
+        library,
+        "",
+        future(),
+        "Alpha",
+        "Another",
+        "Beta",
+        "alphabet");
+    assertNames(table, SymbolKind.TYPE, library, "alp", future(), "Alpha", "alphabet");
+    assertNames(table, SymbolKind.TYPE, library, "Alphab", future(), "alphabet");
+    assertNames(table, SymbolKind.TYPE, library, "c", future());
+    assertNames(table, SymbolKind.FUNCTION, library, "a", future(), "aFunction", "aGetter");
+    assertNames(table, SymbolKind.VARIABLE, library, "", future(), "aVariable", "bVariable");
+  }
+
+  public void test_removeContext() throws Exception {
+    CompletionSymbolTable table = CompletionSymbolTable.getTable(getAnalysisContext());
+    CompletionSymbolTable.removeContext(getAnalysisContext());
+    assertNotSame(table, CompletionSymbolTable.getTable(getAnalysisContext()));
+  }
+
+  public void test_resolvedAgain() throws Exception {
+    Source source = addSource("/lib.dart", CompletionTestCase.src("library lib;", "class A {}"));
+    LibraryElement library = resolve(source);
+    CompletionSymbolTable table = CompletionSymbolTable.getTable(getAnalysisContext());
+    assertNames(table, SymbolKind.TYPE, library, "", future(), "A");
+    getAnalysisContext().setContents(source, CompletionTestCase.src("library lib;", "class B {}"));
+    LibraryElement newLibrary = resolve(source);
+    assertNotSame(library, newLibrary);
+    // Once the deadline has passed, the symbols collected before are used.
+    assertNames(table, SymbolKind.TYPE, newLibrary, "", past(), "A");
+    assertNames(table, SymbolKind.TYPE, newLibrary, "", future(), "B");
+    assertNames(table, SymbolKind.TYPE, newLibrary, "", past(), "B");
+  }
+
+  private void assertNames(CompletionSymbolTable table, SymbolKind kind, LibraryElement library,
+      String pattern, long deadline, String... expectedNames) {
+    Set<String> names = new TreeSet<String>();
+    for (Element element : table.getSymbols(
+        kind,
+        new LibraryElement[] {library},
+        pattern,
+        deadline)) {
+      names.add(element.getDisplayName());
+    }
+    Set<String> expected = new TreeSet<String>();
+    for (String name : expectedNames) {
+      expected.add(name);
+    }
+    assertEquals(expected, names);
+  }
+
+  private long future() {
+    return System.nanoTime() + 60L * 1000 * 1000 * 1000;
+  }
+
+  private long past() {
+    return System.nanoTime() - 1;
+  }
+}
@@ -31,6 +31,7 @@ public class TestAll {
     };
     suite.addTestSuite(CompletionTests.class);
     suite.addTestSuite(CompletionLibraryTests.class);
+    suite.addTestSuite(CompletionSymbolTableTest.class);
     return suite;
   }
 }
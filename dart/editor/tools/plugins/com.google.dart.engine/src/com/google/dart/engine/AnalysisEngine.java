@@ -14,8 +14,10 @@
 package com.google.dart.engine;
 
 import com.google.dart.engine.context.AnalysisContext;
+import com.google.dart.engine.internal.cache.ElementStore;
 import com.google.dart.engine.internal.context.DelegatingAnalysisContextImpl;
 import com.google.dart.engine.internal.context.InstrumentedAnalysisContextImpl;
+import com.google.dart.engine.utilities.general.PhaseStatistics;
 import com.google.dart.engine.utilities.instrumentation.Instrumentation;
 import com.google.dart.engine.utilities.io.FileUtilities;
 import com.google.dart.engine.utilities.logging.Logger;
@@ -88,6 +90,24 @@ public final class AnalysisEngine {
    */
   private Logger logger = Logger.NULL;
 
+  /**
+   * The number of threads that newly created analysis contexts should use to perform analysis
+   * tasks concurrently.
+   */
+  private int workerCount = 1;
+
+  /**
+   * The store that newly created analysis contexts should use to persist the element models of
+   * resolved libraries, or {@code null} if element models should not be persisted.
+   */
+  private ElementStore elementStore;
+
+  /**
+   * The statistics in which library resolvers record the time spent in, and the memory allocated
+   * by, each phase of resolution, or {@code null} if they are not recorded.
+   */
+  private PhaseStatistics resolverStatistics;
+
   /**
    * Prevent the creation of instances of this class.
    */
@@ -109,6 +129,16 @@ public final class AnalysisEngine {
     }
   }
 
+  /**
+   * Return the store that newly created analysis contexts will use to persist the element models of
+   * resolved libraries, or {@code null} if element models are not persisted.
+   * 
+   * @return the store that newly created analysis contexts will use to persist element models
+   */
+  public ElementStore getElementStore() {
+    return elementStore;
+  }
+
   /**
    * Return the logger that should receive information about errors within the analysis engine.
    * 
@@ -118,6 +148,39 @@ public final class AnalysisEngine {
     return logger;
   }
 
+  /**
+   * Return the statistics in which library resolvers record the time spent in, and the memory
+   * allocated by, each phase of resolution, or {@code null} if they are not recorded.
+   * 
+   * @return the statistics in which library resolvers record their phases
+   */
+  public PhaseStatistics getResolverStatistics() {
+    return resolverStatistics;
+  }
+
+  /**
+   * Return the number of threads that newly created analysis contexts will use to perform analysis
+   * tasks concurrently. A value of {@code 1} means that all analysis is performed on the thread that
+   * requested it.
+   * 
+   * @return the number of threads that newly created analysis contexts will use
+   */
+  public int getWorkerCount() {
+    return workerCount;
+  }
+
+  /**
+   * Set the store that newly created analysis contexts should use to persist the element models of
+   * resolved libraries to the given store. Contexts that find an up-to-date element model for a
+   * library in the store will use it rather than resolving the library.
+   * 
+   * @param elementStore the store that newly created analysis contexts should use, or {@code null}
+   *          if element models should not be persisted
+   */
+  public void setElementStore(ElementStore elementStore) {
+    this.elementStore = elementStore;
+  }
+
   /**
    * Set the logger that should receive information about errors within the analysis engine to the
    * given logger.
@@ -128,4 +191,27 @@ public final class AnalysisEngine {
   public void setLogger(Logger logger) {
     this.logger = logger == null ? Logger.NULL : logger;
   }
+
+  /**
+   * Set the statistics in which library resolvers record the time spent in, and the memory
+   * allocated by, each phase of resolution to the given statistics. Each resolution is recorded for
+   * the library whose resolution was requested, which includes the time spent resolving the other
+   * libraries in the same import cycle.
+   * 
+   * @param resolverStatistics the statistics in which library resolvers should record their
+   *          phases, or {@code null} if they should not be recorded
+   */
+  public void setResolverStatistics(PhaseStatistics resolverStatistics) {
+    this.resolverStatistics = resolverStatistics;
+  }
+
+  /**
+   * Set the number of threads that newly created analysis contexts should use to perform analysis
+   * tasks concurrently. Values less than {@code 1} are treated as {@code 1}.
+   * 
+   * @param workerCount the number of threads that newly created analysis contexts should use
+   */
+  public void setWorkerCount(int workerCount) {
+    this.workerCount = Math.max(1, workerCount);
+  }
 }
@@ -92,6 +92,17 @@ public class ArgumentList extends ASTNode {
     return leftParenthesis;
   }
 
+  /**
+   * Return the elements representing the parameters corresponding to each of the arguments in this
+   * list, or {@code null} if the AST has not been resolved or if the function or method being
+   * invoked could not be determined.
+   * 
+   * @return the parameter elements corresponding to the arguments
+   */
+  public ParameterElement[] getCorrespondingParameters() {
+    return correspondingParameters;
+  }
+
   @Override
   public Token getEndToken() {
     return rightParenthesis;
@@ -0,0 +1,681 @@
+/*
+ * Copyright (c) 2013, the Dart project authors.
+ *
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.ast.visitor;
+
+import com.google.dart.engine.ast.*;
+
+import java.util.ArrayList;
+
+/**
+ * Instances of the class {@code FusedASTVisitor} implement an AST visitor that will recursively
+ * visit all of the nodes in an AST structure and, as it visits each node, will also ask the node to
+ * accept each of a list of participant visitors. This allows several visitors that would otherwise
+ * each traverse the whole structure to share a single traversal.
+ * <p>
+ * Participants are invoked before the children of a node are visited, in the order in which they
+ * were added. Participants must not visit the children of the nodes they are given, because the
+ * children will be given to them by this visitor; they are typically subclasses of
+ * {@link SimpleASTVisitor}. The values returned by participants are ignored.
+ * <p>
+ * Subclasses that override a visit method must either invoke the overridden visit method or must
+ * both invoke {@link #visitParticipants(ASTNode)} and explicitly ask the visited node to visit its
+ * children. Failure to do so will cause the participants to not be given the visited node.
+ *
+ * @coverage dart.engine.ast
+ */
+public class FusedASTVisitor<R> extends RecursiveASTVisitor<R> {
+  /**
+   * The visitors to which each of the visited nodes is given.
+   */
+  private final ArrayList<ASTVisitor<?>> participants = new ArrayList<ASTVisitor<?>>();
+
+  /**
+   * Initialize a newly created visitor to give each visited node to the given participants.
+   *
+   * @param participants the visitors to which each of the visited nodes is to be given
+   */
+  public FusedASTVisitor(ASTVisitor<?>... participants) {
+    for (ASTVisitor<?> participant : participants) {
+      this.participants.add(participant);
+    }
+  }
+
+  /**
+   * Add the given visitor to the list of visitors to which each of the visited nodes is given.
+   *
+   * @param participant the visitor to be added
+   */
+  public void addParticipant(ASTVisitor<?> participant) {
+    participants.add(participant);
+  }
+
+  @Override
+  public R visitAdjacentStrings(AdjacentStrings node) {
+    visitParticipants(node);
+    return super.visitAdjacentStrings(node);
+  }
+
+  @Override
+  public R visitAnnotation(Annotation node) {
+    visitParticipants(node);
+    return super.visitAnnotation(node);
+  }
+
+  @Override
+  public R visitArgumentDefinitionTest(ArgumentDefinitionTest node) {
+    visitParticipants(node);
+    return super.visitArgumentDefinitionTest(node);
+  }
+
+  @Override
+  public R visitArgumentList(ArgumentList node) {
+    visitParticipants(node);
+    return super.visitArgumentList(node);
+  }
+
+  @Override
+  public R visitAsExpression(AsExpression node) {
+    visitParticipants(node);
+    return super.visitAsExpression(node);
+  }
+
+  @Override
+  public R visitAssertStatement(AssertStatement node) {
+    visitParticipants(node);
+    return super.visitAssertStatement(node);
+  }
+
+  @Override
+  public R visitAssignmentExpression(AssignmentExpression node) {
+    visitParticipants(node);
+    return super.visitAssignmentExpression(node);
+  }
+
+  @Override
+  public R visitBinaryExpression(BinaryExpression node) {
+    visitParticipants(node);
+    return super.visitBinaryExpression(node);
+  }
+
+  @Override
+  public R visitBlock(Block node) {
+    visitParticipants(node);
+    return super.visitBlock(node);
+  }
+
+  @Override
+  public R visitBlockFunctionBody(BlockFunctionBody node) {
+    visitParticipants(node);
+    return super.visitBlockFunctionBody(node);
+  }
+
+  @Override
+  public R visitBooleanLiteral(BooleanLiteral node) {
+    visitParticipants(node);
+    return super.visitBooleanLiteral(node);
+  }
+
+  @Override
+  public R visitBreakStatement(BreakStatement node) {
+    visitParticipants(node);
+    return super.visitBreakStatement(node);
+  }
+
+  @Override
+  public R visitCascadeExpression(CascadeExpression node) {
+    visitParticipants(node);
+    return super.visitCascadeExpression(node);
+  }
+
+  @Override
+  public R visitCatchClause(CatchClause node) {
+    visitParticipants(node);
+    return super.visitCatchClause(node);
+  }
+
+  @Override
+  public R visitClassDeclaration(ClassDeclaration node) {
+    visitParticipants(node);
+    return super.visitClassDeclaration(node);
+  }
+
+  @Override
+  public R visitClassTypeAlias(ClassTypeAlias node) {
+    visitParticipants(node);
+    return super.visitClassTypeAlias(node);
+  }
+
+  @Override
+  public R visitComment(Comment node) {
+    visitParticipants(node);
+    return super.visitComment(node);
+  }
+
+  @Override
+  public R visitCommentReference(CommentReference node) {
+    visitParticipants(node);
+    return super.visitCommentReference(node);
+  }
+
+  @Override
+  public R visitCompilationUnit(CompilationUnit node) {
+    visitParticipants(node);
+    return super.visitCompilationUnit(node);
+  }
+
+  @Override
+  public R visitConditionalExpression(ConditionalExpression node) {
+    visitParticipants(node);
+    return super.visitConditionalExpression(node);
+  }
+
+  @Override
+  public R visitConstructorDeclaration(ConstructorDeclaration node) {
+    visitParticipants(node);
+    return super.visitConstructorDeclaration(node);
+  }
+
+  @Override
+  public R visitConstructorFieldInitializer(ConstructorFieldInitializer node) {
+    visitParticipants(node);
+    return super.visitConstructorFieldInitializer(node);
+  }
+
+  @Override
+  public R visitConstructorName(ConstructorName node) {
+    visitParticipants(node);
+    return super.visitConstructorName(node);
+  }
+
+  @Override
+  public R visitContinueStatement(ContinueStatement node) {
+    visitParticipants(node);
+    return super.visitContinueStatement(node);
+  }
+
+  @Override
+  public R visitDeclaredIdentifier(DeclaredIdentifier node) {
+    visitParticipants(node);
+    return super.visitDeclaredIdentifier(node);
+  }
+
+  @Override
+  public R visitDefaultFormalParameter(DefaultFormalParameter node) {
+    visitParticipants(node);
+    return super.visitDefaultFormalParameter(node);
+  }
+
+  @Override
+  public R visitDoStatement(DoStatement node) {
+    visitParticipants(node);
+    return super.visitDoStatement(node);
+  }
+
+  @Override
+  public R visitDoubleLiteral(DoubleLiteral node) {
+    visitParticipants(node);
+    return super.visitDoubleLiteral(node);
+  }
+
+  @Override
+  public R visitEmptyFunctionBody(EmptyFunctionBody node) {
+    visitParticipants(node);
+    return super.visitEmptyFunctionBody(node);
+  }
+
+  @Override
+  public R visitEmptyStatement(EmptyStatement node) {
+    visitParticipants(node);
+    return super.visitEmptyStatement(node);
+  }
+
+  @Override
+  public R visitExportDirective(ExportDirective node) {
+    visitParticipants(node);
+    return super.visitExportDirective(node);
+  }
+
+  @Override
+  public R visitExpressionFunctionBody(ExpressionFunctionBody node) {
+    visitParticipants(node);
+    return super.visitExpressionFunctionBody(node);
+  }
+
+  @Override
+  public R visitExpressionStatement(ExpressionStatement node) {
+    visitParticipants(node);
+    return super.visitExpressionStatement(node);
+  }
+
+  @Override
+  public R visitExtendsClause(ExtendsClause node) {
+    visitParticipants(node);
+    return super.visitExtendsClause(node);
+  }
+
+  @Override
+  public R visitFieldDeclaration(FieldDeclaration node) {
+    visitParticipants(node);
+    return super.visitFieldDeclaration(node);
+  }
+
+  @Override
+  public R visitFieldFormalParameter(FieldFormalParameter node) {
+    visitParticipants(node);
+    return super.visitFieldFormalParameter(node);
+  }
+
+  @Override
+  public R visitForEachStatement(ForEachStatement node) {
+    visitParticipants(node);
+    return super.visitForEachStatement(node);
+  }
+
+  @Override
+  public R visitFormalParameterList(FormalParameterList node) {
+    visitParticipants(node);
+    return super.visitFormalParameterList(node);
+  }
+
+  @Override
+  public R visitForStatement(ForStatement node) {
+    visitParticipants(node);
+    return super.visitForStatement(node);
+  }
+
+  @Override
+  public R visitFunctionDeclaration(FunctionDeclaration node) {
+    visitParticipants(node);
+    return super.visitFunctionDeclaration(node);
+  }
+
+  @Override
+  public R visitFunctionDeclarationStatement(FunctionDeclarationStatement node) {
+    visitParticipants(node);
+    return super.visitFunctionDeclarationStatement(node);
+  }
+
+  @Override
+  public R visitFunctionExpression(FunctionExpression node) {
+    visitParticipants(node);
+    return super.visitFunctionExpression(node);
+  }
+
+  @Override
+  public R visitFunctionExpressionInvocation(FunctionExpressionInvocation node) {
+    visitParticipants(node);
+    return super.visitFunctionExpressionInvocation(node);
+  }
+
+  @Override
+  public R visitFunctionTypeAlias(FunctionTypeAlias node) {
+    visitParticipants(node);
+    return super.visitFunctionTypeAlias(node);
+  }
+
+  @Override
+  public R visitFunctionTypedFormalParameter(FunctionTypedFormalParameter node) {
+    visitParticipants(node);
+    return super.visitFunctionTypedFormalParameter(node);
+  }
+
+  @Override
+  public R visitHideCombinator(HideCombinator node) {
+    visitParticipants(node);
+    return super.visitHideCombinator(node);
+  }
+
+  @Override
+  public R visitIfStatement(IfStatement node) {
+    visitParticipants(node);
+    return super.visitIfStatement(node);
+  }
+
+  @Override
+  public R visitImplementsClause(ImplementsClause node) {
+    visitParticipants(node);
+    return super.visitImplementsClause(node);
+  }
+
+  @Override
+  public R visitImportDirective(ImportDirective node) {
+    visitParticipants(node);
+    return super.visitImportDirective(node);
+  }
+
+  @Override
+  public R visitIndexExpression(IndexExpression node) {
+    visitParticipants(node);
+    return super.visitIndexExpression(node);
+  }
+
+  @Override
+  public R visitInstanceCreationExpression(InstanceCreationExpression node) {
+    visitParticipants(node);
+    return super.visitInstanceCreationExpression(node);
+  }
+
+  @Override
+  public R visitIntegerLiteral(IntegerLiteral node) {
+    visitParticipants(node);
+    return super.visitIntegerLiteral(node);
+  }
+
+  @Override
+  public R visitInterpolationExpression(InterpolationExpression node) {
+    visitParticipants(node);
+    return super.visitInterpolationExpression(node);
+  }
+
+  @Override
+  public R visitInterpolationString(InterpolationString node) {
+    visitParticipants(node);
+    return super.visitInterpolationString(node);
+  }
+
+  @Override
+  public R visitIsExpression(IsExpression node) {
+    visitParticipants(node);
+    return super.visitIsExpression(node);
+  }
+
+  @Override
+  public R visitLabel(Label node) {
+    visitParticipants(node);
+    return super.visitLabel(node);
+  }
+
+  @Override
+  public R visitLabeledStatement(LabeledStatement node) {
+    visitParticipants(node);
+    return super.visitLabeledStatement(node);
+  }
+
+  @Override
+  public R visitLibraryDirective(LibraryDirective node) {
+    visitParticipants(node);
+    return super.visitLibraryDirective(node);
+  }
+
+  @Override
+  public R visitLibraryIdentifier(LibraryIdentifier node) {
+    visitParticipants(node);
+    return super.visitLibraryIdentifier(node);
+  }
+
+  @Override
+  public R visitListLiteral(ListLiteral node) {
+    visitParticipants(node);
+    return super.visitListLiteral(node);
+  }
+
+  @Override
+  public R visitMapLiteral(MapLiteral node) {
+    visitParticipants(node);
+    return super.visitMapLiteral(node);
+  }
+
+  @Override
+  public R visitMapLiteralEntry(MapLiteralEntry node) {
+    visitParticipants(node);
+    return super.visitMapLiteralEntry(node);
+  }
+
+  @Override
+  public R visitMethodDeclaration(MethodDeclaration node) {
+    visitParticipants(node);
+    return super.visitMethodDeclaration(node);
+  }
+
+  @Override
+  public R visitMethodInvocation(MethodInvocation node) {
+    visitParticipants(node);
+    return super.visitMethodInvocation(node);
+  }
+
+  @Override
+  public R visitNamedExpression(NamedExpression node) {
+    visitParticipants(node);
+    return super.visitNamedExpression(node);
+  }
+
+  @Override
+  public R visitNativeFunctionBody(NativeFunctionBody node) {
+    visitParticipants(node);
+    return super.visitNativeFunctionBody(node);
+  }
+
+  @Override
+  public R visitNullLiteral(NullLiteral node) {
+    visitParticipants(node);
+    return super.visitNullLiteral(node);
+  }
+
+  @Override
+  public R visitParenthesizedExpression(ParenthesizedExpression node) {
+    visitParticipants(node);
+    return super.visitParenthesizedExpression(node);
+  }
+
+  @Override
+  public R visitPartDirective(PartDirective node) {
+    visitParticipants(node);
+    return super.visitPartDirective(node);
+  }
+
+  @Override
+  public R visitPartOfDirective(PartOfDirective node) {
+    visitParticipants(node);
+    return super.visitPartOfDirective(node);
+  }
+
+  @Override
+  public R visitPostfixExpression(PostfixExpression node) {
+    visitParticipants(node);
+    return super.visitPostfixExpression(node);
+  }
+
+  @Override
+  public R visitPrefixedIdentifier(PrefixedIdentifier node) {
+    visitParticipants(node);
+    return super.visitPrefixedIdentifier(node);
+  }
+
+  @Override
+  public R visitPrefixExpression(PrefixExpression node) {
+    visitParticipants(node);
+    return super.visitPrefixExpression(node);
+  }
+
+  @Override
+  public R visitPropertyAccess(PropertyAccess node) {
+    visitParticipants(node);
+    return super.visitPropertyAccess(node);
+  }
+
+  @Override
+  public R visitRedirectingConstructorInvocation(RedirectingConstructorInvocation node) {
+    visitParticipants(node);
+    return super.visitRedirectingConstructorInvocation(node);
+  }
+
+  @Override
+  public R visitRethrowExpression(RethrowExpression node) {
+    visitParticipants(node);
+    return super.visitRethrowExpression(node);
+  }
+
+  @Override
+  public R visitReturnStatement(ReturnStatement node) {
+    visitParticipants(node);
+    return super.visitReturnStatement(node);
+  }
+
+  @Override
+  public R visitScriptTag(ScriptTag node) {
+    visitParticipants(node);
+    return super.visitScriptTag(node);
+  }
+
+  @Override
+  public R visitShowCombinator(ShowCombinator node) {
+    visitParticipants(node);
+    return super.visitShowCombinator(node);
+  }
+
+  @Override
+  public R visitSimpleFormalParameter(SimpleFormalParameter node) {
+    visitParticipants(node);
+    return super.visitSimpleFormalParameter(node);
+  }
+
+  @Override
+  public R visitSimpleIdentifier(SimpleIdentifier node) {
+    visitParticipants(node);
+    return super.visitSimpleIdentifier(node);
+  }
+
+  @Override
+  public R visitSimpleStringLiteral(SimpleStringLiteral node) {
+    visitParticipants(node);
+    return super.visitSimpleStringLiteral(node);
+  }
+
+  @Override
+  public R visitStringInterpolation(StringInterpolation node) {
+    visitParticipants(node);
+    return super.visitStringInterpolation(node);
+  }
+
+  @Override
+  public R visitSuperConstructorInvocation(SuperConstructorInvocation node) {
+    visitParticipants(node);
+    return super.visitSuperConstructorInvocation(node);
+  }
+
+  @Override
+  public R visitSuperExpression(SuperExpression node) {
+    visitParticipants(node);
+    return super.visitSuperExpression(node);
+  }
+
+  @Override
+  public R visitSwitchCase(SwitchCase node) {
+    visitParticipants(node);
+    return super.visitSwitchCase(node);
+  }
+
+  @Override
+  public R visitSwitchDefault(SwitchDefault node) {
+    visitParticipants(node);
+    return super.visitSwitchDefault(node);
+  }
+
+  @Override
+  public R visitSwitchStatement(SwitchStatement node) {
+    visitParticipants(node);
+    return super.visitSwitchStatement(node);
+  }
+
+  @Override
+  public R visitThisExpression(ThisExpression node) {
+    visitParticipants(node);
+    return super.visitThisExpression(node);
+  }
+
+  @Override
+  public R visitThrowExpression(ThrowExpression node) {
+    visitParticipants(node);
+    return super.visitThrowExpression(node);
+  }
+
+  @Override
+  public R visitTopLevelVariableDeclaration(TopLevelVariableDeclaration node) {
+    visitParticipants(node);
+    return super.visitTopLevelVariableDeclaration(node);
+  }
+
+  @Override
+  public R visitTryStatement(TryStatement node) {
+    visitParticipants(node);
+    return super.visitTryStatement(node);
+  }
+
+  @Override
+  public R visitTypeArgumentList(TypeArgumentList node) {
+    visitParticipants(node);
+    return super.visitTypeArgumentList(node);
+  }
+
+  @Override
+  public R visitTypeName(TypeName node) {
+    visitParticipants(node);
+    return super.visitTypeName(node);
+  }
+
+  @Override
+  public R visitTypeParameter(TypeParameter node) {
+    visitParticipants(node);
+    return super.visitTypeParameter(node);
+  }
+
+  @Override
+  public R visitTypeParameterList(TypeParameterList node) {
+    visitParticipants(node);
+    return super.visitTypeParameterList(node);
+  }
+
+  @Override
+  public R visitVariableDeclaration(VariableDeclaration node) {
+    visitParticipants(node);
+    return super.visitVariableDeclaration(node);
+  }
+
+  @Override
+  public R visitVariableDeclarationList(VariableDeclarationList node) {
+    visitParticipants(node);
+    return super.visitVariableDeclarationList(node);
+  }
+
+  @Override
+  public R visitVariableDeclarationStatement(VariableDeclarationStatement node) {
+    visitParticipants(node);
+    return super.visitVariableDeclarationStatement(node);
+  }
+
+  @Override
+  public R visitWhileStatement(WhileStatement node) {
+    visitParticipants(node);
+    return super.visitWhileStatement(node);
+  }
+
+  @Override
+  public R visitWithClause(WithClause node) {
+    visitParticipants(node);
+    return super.visitWithClause(node);
+  }
+
+  /**
+   * Ask the given node to accept each of the participants.
+   *
+   * @param node the node being visited
+   */
+  protected void visitParticipants(ASTNode node) {
+    // Iterating by index avoids allocating an iterator for every node in the structure.
+    int count = participants.size();
+    for (int i = 0; i < count; i++) {
+      node.accept(participants.get(i));
+    }
+  }
+}
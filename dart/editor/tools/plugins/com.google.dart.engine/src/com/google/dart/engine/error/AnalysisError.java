@@ -88,6 +88,25 @@ public class AnalysisError {
    */
   private int length = 0;
 
+  /**
+   * Initialize a newly created analysis error for the specified source at the given location whose
+   * message has already been computed. This is used to restore errors that were previously reported
+   * and then persisted.
+   * 
+   * @param errorCode the error code to be associated with this error
+   * @param message the localized error message
+   * @param source the source for which the exception occurred
+   * @param offset the offset of the location of the error
+   * @param length the length of the location of the error
+   */
+  public AnalysisError(ErrorCode errorCode, String message, Source source, int offset, int length) {
+    this.errorCode = errorCode;
+    this.message = message;
+    this.source = source;
+    this.offset = offset;
+    this.length = length;
+  }
+
   /**
    * Initialize a newly created analysis error for the specified source. The error has no location
    * information.
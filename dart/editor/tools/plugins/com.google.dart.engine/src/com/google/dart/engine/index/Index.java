@@ -51,6 +51,12 @@ public interface Index {
    */
   void getRelationships(Element element, Relationship relationship, RelationshipCallback callback);
 
+  /**
+   * Answer the {@link TypeHierarchy} of the units processed by this index. The hierarchy is updated
+   * when units are processed or removed, and can be queried synchronously.
+   */
+  TypeHierarchy getTypeHierarchy();
+
   /**
    * Asynchronously process the given {@link CompilationUnit} in order to record the relationships.
    * 
@@ -13,7 +13,9 @@
  */
 package com.google.dart.engine.index;
 
+import com.google.dart.engine.internal.index.CompactIndexStoreImpl;
 import com.google.dart.engine.internal.index.IndexImpl;
+import com.google.dart.engine.internal.index.MappedIndexStoreImpl;
 import com.google.dart.engine.internal.index.MemoryIndexStoreImpl;
 import com.google.dart.engine.internal.index.operation.OperationProcessor;
 import com.google.dart.engine.internal.index.operation.OperationQueue;
@@ -25,14 +27,38 @@ import com.google.dart.engine.internal.index.operation.OperationQueue;
  */
 public class IndexFactory {
   /**
-   * @return the new instance of {@link Index} which uses given {@link IndexStore}.
+   * @return the new instance of {@link Index} which uses given {@link IndexStore}. Half of the
+   *         available processors are used to index units, leaving the rest for analysis.
    */
   public static Index newIndex(IndexStore store) {
+    return newIndex(store, Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
+  }
+
+  /**
+   * @return the new instance of {@link Index} which uses given {@link IndexStore} and performs
+   *         operations using the given number of threads.
+   */
+  public static Index newIndex(IndexStore store, int threadCount) {
     OperationQueue queue = new OperationQueue();
-    OperationProcessor processor = new OperationProcessor(queue);
+    OperationProcessor processor = new OperationProcessor(queue, threadCount);
     return new IndexImpl(store, queue, processor);
   }
 
+  /**
+   * @return the new instance of {@link IndexStore} which keeps full index in memory, using less
+   *         memory than {@link #newMemoryIndexStore()}, but which cannot be read or written.
+   */
+  public static IndexStore newCompactIndexStore() {
+    return new CompactIndexStoreImpl();
+  }
+
+  /**
+   * @return the new instance of {@link MappedIndexStore}.
+   */
+  public static MappedIndexStore newMappedIndexStore() {
+    return new MappedIndexStoreImpl();
+  }
+
   /**
    * @return the new instance of {@link MemoryIndexStore}.
    */
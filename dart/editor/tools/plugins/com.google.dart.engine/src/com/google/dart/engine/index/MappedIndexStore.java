@@ -0,0 +1,64 @@
+/*
+ * Copyright (c) 2013, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.dart.engine.index;
+
+import com.google.dart.engine.context.AnalysisContext;
+import com.google.dart.engine.element.Element;
+import com.google.dart.engine.source.Source;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * {@link IndexStore} which keeps the information of each {@link AnalysisContext} in a
+ * memory-mapped file, as a separate segment for each {@link Source}. Segments are read lazily, a
+ * query only reads the segments that might contain relationships of the queried element, and only
+ * the segments of the sources that were changed are written.
+ * 
+ * @coverage dart.engine.index
+ */
+public interface MappedIndexStore extends IndexStore {
+  /**
+   * Write the segments of all of the sources that were indexed or removed since the last flush to
+   * the files of their contexts.
+   * 
+   * @throws IOException if the index could not be written
+   */
+  void flush() throws IOException;
+
+  /**
+   * Return {@code true} if this store has up-to-date information about the given {@link Source},
+   * either because it was indexed since the file was opened or because the file contains a segment
+   * for the current contents of the source.
+   * 
+   * @param context the {@link AnalysisContext} in which the {@link Source} was indexed
+   * @param source the {@link Source} to check
+   * @return {@code true} if the given {@link Source} does not need to be indexed again
+   */
+  boolean isIndexed(AnalysisContext context, Source source);
+
+  /**
+   * Use the given file to keep the index of the given {@link AnalysisContext}. The segments that
+   * are already in the file are not read until they are needed to answer a query. If the file does not
+   * exist or has an incompatible format, it is replaced by an empty index.
+   * <p>
+   * This method should be invoked before any source of the context is indexed.
+   * 
+   * @param context the {@link AnalysisContext} to read {@link Element}s and {@link Source}s
+   * @param file the file to keep the index in
+   * @throws IOException if the file could not be opened or created
+   */
+  void openIndex(AnalysisContext context, File file) throws IOException;
+}
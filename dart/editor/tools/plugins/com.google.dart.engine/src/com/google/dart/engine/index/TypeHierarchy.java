@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2013, the Dart project authors.
+ *
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.index;
+
+import com.google.dart.engine.element.ClassElement;
+import com.google.dart.engine.element.Element;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The interface {@code TypeHierarchy} defines the behavior of objects that maintain the class
+ * hierarchy of the units recorded in an {@link Index}. A class is a direct subtype of the classes
+ * named in its extends, with and implements clauses.
+ * <p>
+ * Unlike the other {@link Index} operations, queries are synchronous and return the state of the
+ * hierarchy when they are invoked. Their cost is proportional to the size of the result.
+ *
+ * @coverage dart.engine.index
+ */
+public interface TypeHierarchy {
+  /**
+   * Return the classes that directly extend, mix in or implement the given class.
+   *
+   * @param type the class whose direct subtypes are to be returned
+   * @return the direct subtypes of the given class
+   */
+  Set<ClassElement> getDirectSubtypes(ClassElement type);
+
+  /**
+   * Return the classes that the given class directly extends, mixes in or implements.
+   *
+   * @param type the class whose direct supertypes are to be returned
+   * @return the direct supertypes of the given class
+   */
+  Set<ClassElement> getDirectSupertypes(ClassElement type);
+
+  /**
+   * Return the members of the supertypes of the class declaring the given member that have the
+   * same name as the given member, i.e. the members overridden by the given member.
+   *
+   * @param member the method, accessor or field whose overridden members are to be returned
+   * @return the members overridden by the given member
+   */
+  List<Element> getOverriddenMembers(Element member);
+
+  /**
+   * Return the members of the subtypes of the class declaring the given member that have the same
+   * name as the given member, i.e. the members overriding the given member.
+   *
+   * @param member the method, accessor or field whose overriding members are to be returned
+   * @return the members overriding the given member
+   */
+  List<Element> getOverridingMembers(Element member);
+
+  /**
+   * Return the direct and indirect subtypes of the given class.
+   *
+   * @param type the class whose subtypes are to be returned
+   * @return the direct and indirect subtypes of the given class
+   */
+  Set<ClassElement> getSubtypes(ClassElement type);
+
+  /**
+   * Return the direct and indirect supertypes of the given class.
+   *
+   * @param type the class whose supertypes are to be returned
+   * @return the direct and indirect supertypes of the given class
+   */
+  Set<ClassElement> getSupertypes(ClassElement type);
+}
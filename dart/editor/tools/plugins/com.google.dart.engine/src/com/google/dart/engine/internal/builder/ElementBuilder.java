@@ -112,6 +112,23 @@ public class ElementBuilder extends RecursiveASTVisitor<Void> {
     currentHolder = initialHolder;
   }
 
+  /**
+   * Build the elements for the local variables, local functions and labels declared within the
+   * given function body, which is the body of a function whose element has already been built. The
+   * elements are added to the holder this builder was created with.
+   * 
+   * @param body the function body declaring the elements to be built
+   */
+  public void buildLocalElements(FunctionBody body) {
+    boolean wasInFunction = inFunction;
+    inFunction = true;
+    try {
+      body.accept(this);
+    } finally {
+      inFunction = wasInFunction;
+    }
+  }
+
   @Override
   public Void visitBlock(Block node) {
     boolean wasInField = inFieldContext;
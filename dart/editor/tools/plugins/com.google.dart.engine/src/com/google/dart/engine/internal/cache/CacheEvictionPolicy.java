@@ -0,0 +1,35 @@
+/*
+ * Copyright (c) 2013, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.internal.cache;
+
+/**
+ * The interface {@code CacheEvictionPolicy} defines the behavior of objects that decide when an
+ * analysis context should flush the AST structures associated with its least recently used sources
+ * in order to control memory usage.
+ * 
+ * @coverage dart.engine
+ */
+public interface CacheEvictionPolicy {
+  /**
+   * Return {@code true} if the AST structures associated with the least recently used source should
+   * be flushed, given that AST structures are currently being retained for the given number of
+   * sources and that those structures are estimated to retain the given number of bytes.
+   * 
+   * @param sourceCount the number of sources for which AST structures are being retained
+   * @param estimatedSize the estimated number of bytes retained by those AST structures (see
+   *          {@link SourceEntry#getEstimatedAstSize()})
+   * @return {@code true} if the least recently used AST structures should be flushed
+   */
+  public boolean isOverBudget(int sourceCount, long estimatedSize);
+}
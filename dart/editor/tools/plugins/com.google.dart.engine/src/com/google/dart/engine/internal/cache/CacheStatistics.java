@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2013, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.internal.cache;
+
+/**
+ * Instances of the class {@code CacheStatistics} represent a snapshot of the counters maintained by
+ * an analysis context about the use of the AST structures in its cache.
+ * 
+ * @coverage dart.engine
+ */
+public class CacheStatistics {
+  /**
+   * The number of requests for an AST structure that were satisfied from the cache.
+   */
+  private final int hitCount;
+
+  /**
+   * The number of requests for an AST structure that required the structure to be computed.
+   */
+  private final int missCount;
+
+  /**
+   * The number of times the AST structures associated with a source were flushed.
+   */
+  private final int flushCount;
+
+  /**
+   * The number of sources for which AST structures are currently being retained.
+   */
+  private final int sourceCount;
+
+  /**
+   * The estimated number of bytes retained by the AST structures currently in the cache.
+   */
+  private final long estimatedSize;
+
+  /**
+   * Initialize a newly created snapshot to have the given values.
+   * 
+   * @param hitCount the number of requests that were satisfied from the cache
+   * @param missCount the number of requests that required an AST structure to be computed
+   * @param flushCount the number of times AST structures were flushed
+   * @param sourceCount the number of sources for which AST structures are being retained
+   * @param estimatedSize the estimated number of bytes retained by the cached AST structures
+   */
+  public CacheStatistics(int hitCount, int missCount, int flushCount, int sourceCount,
+      long estimatedSize) {
+    this.hitCount = hitCount;
+    this.missCount = missCount;
+    this.flushCount = flushCount;
+    this.sourceCount = sourceCount;
+    this.estimatedSize = estimatedSize;
+  }
+
+  /**
+   * Return the estimated number of bytes retained by the AST structures currently in the cache.
+   * 
+   * @return the estimated number of bytes retained by the cached AST structures
+   */
+  public long getEstimatedSize() {
+    return estimatedSize;
+  }
+
+  /**
+   * Return the number of times the AST structures associated with a source were flushed.
+   * 
+   * @return the number of times AST structures were flushed
+   */
+  public int getFlushCount() {
+    return flushCount;
+  }
+
+  /**
+   * Return the number of requests for an AST structure that were satisfied from the cache.
+   * 
+   * @return the number of requests that were satisfied from the cache
+   */
+  public int getHitCount() {
+    return hitCount;
+  }
+
+  /**
+   * Return the number of requests for an AST structure that required the structure to be computed.
+   * 
+   * @return the number of requests that required an AST structure to be computed
+   */
+  public int getMissCount() {
+    return missCount;
+  }
+
+  /**
+   * Return the number of sources for which AST structures are currently being retained.
+   * 
+   * @return the number of sources for which AST structures are being retained
+   */
+  public int getSourceCount() {
+    return sourceCount;
+  }
+
+  @Override
+  public String toString() {
+    return "hits = " + hitCount + ", misses = " + missCount + ", flushes = " + flushCount
+        + ", sources = " + sourceCount + ", estimated size = " + estimatedSize;
+  }
+}
@@ -219,6 +219,22 @@ public class DartEntryImpl extends SourceEntryImpl implements DartEntry {
     parseErrorsState = CacheState.IN_PROCESS;
   }
 
+  @Override
+  public void flushAstStructures() {
+    if (parsedUnitState == CacheState.VALID) {
+      parsedUnitState = CacheState.FLUSHED;
+      parsedUnit = null;
+    }
+    ResolutionState state = resolutionState;
+    do {
+      if (state.resolvedUnitState == CacheState.VALID) {
+        state.resolvedUnitState = CacheState.FLUSHED;
+        state.resolvedUnit = null;
+      }
+      state = state.nextState;
+    } while (state != null);
+  }
+
   @Override
   public AnalysisError[] getAllErrors() {
     ArrayList<AnalysisError> errors = new ArrayList<AnalysisError>();
@@ -258,6 +274,22 @@ public class DartEntryImpl extends SourceEntryImpl implements DartEntry {
     return null;
   }
 
+  @Override
+  public long getEstimatedAstSize() {
+    long characterCount = 0L;
+    if (parsedUnitState == CacheState.VALID && parsedUnit != null) {
+      characterCount += parsedUnit.getLength();
+    }
+    ResolutionState state = resolutionState;
+    do {
+      if (state.resolvedUnitState == CacheState.VALID && state.resolvedUnit != null) {
+        characterCount += state.resolvedUnit.getLength();
+      }
+      state = state.nextState;
+    } while (state != null);
+    return characterCount * BYTES_PER_CHARACTER;
+  }
+
   @Override
   public SourceKind getKind() {
     return sourceKind;
@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) 2013, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.internal.cache;
+
+import com.google.dart.engine.source.Source;
+
+/**
+ * The interface {@code ElementStore} defines the behavior of objects that persist the serialized
+ * element models of resolved libraries so that an analysis context can reuse them, rather than
+ * re-resolving the libraries, when the libraries have not changed since they were stored. Stores do
+ * not interpret the data they hold; the data is validated by the reader when it is loaded.
+ * 
+ * @coverage dart.engine
+ */
+public interface ElementStore {
+  /**
+   * Return the data most recently written for the library with the given source, or {@code null} if
+   * there is no data for the library.
+   * 
+   * @param librarySource the source of the defining compilation unit of the library
+   * @return the data most recently written for the library
+   */
+  public byte[] read(Source librarySource);
+
+  /**
+   * Remove any data associated with the library with the given source.
+   * 
+   * @param librarySource the source of the defining compilation unit of the library
+   */
+  public void remove(Source librarySource);
+
+  /**
+   * Record the given data for the library with the given source, replacing any data that was
+   * previously written for the library.
+   * 
+   * @param librarySource the source of the defining compilation unit of the library
+   * @param data the serialized form of the library's element model
+   */
+  public void write(Source librarySource, byte[] data);
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright (c) 2013, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.internal.cache;
+
+import com.google.dart.engine.AnalysisEngine;
+import com.google.dart.engine.source.Source;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Instances of the class {@code FileBasedElementStore} implement an {@link ElementStore} that keeps
+ * each library's serialized element model in a separate file within a single directory, so that the
+ * models survive a restart of the process that created them. The name of each file is derived from
+ * a hash of the encoding of the library's source.
+ * <p>
+ * Failures to read or write a file are logged and otherwise treated as if there were no data for
+ * the library, so a damaged store only costs the time needed to re-resolve the affected libraries.
+ * 
+ * @coverage dart.engine
+ */
+public class FileBasedElementStore implements ElementStore {
+  /**
+   * The directory containing the files in which the data is stored.
+   */
+  private final File directory;
+
+  /**
+   * The extension added to the name of each of the files in which data is stored.
+   */
+  private static final String FILE_EXTENSION = ".elements";
+
+  /**
+   * The characters used to encode the bytes of a hash as a file name.
+   */
+  private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+  /**
+   * Initialize a newly created store to keep its data in the given directory. The directory will be
+   * created the first time data is written if it does not already exist.
+   * 
+   * @param directory the directory containing the files in which the data is stored
+   */
+  public FileBasedElementStore(File directory) {
+    this.directory = directory;
+  }
+
+  /**
+   * Return the directory containing the files in which the data is stored.
+   * 
+   * @return the directory containing the files in which the data is stored
+   */
+  public File getDirectory() {
+    return directory;
+  }
+
+  @Override
+  public byte[] read(Source librarySource) {
+    File file = getFile(librarySource);
+    if (!file.isFile()) {
+      return null;
+    }
+    try {
+      InputStream stream = new FileInputStream(file);
+      try {
+        long length = file.length();
+        if (length > Integer.MAX_VALUE) {
+          return null;
+        }
+        byte[] data = new byte[(int) length];
+        int offset = 0;
+        while (offset < data.length) {
+          int count = stream.read(data, offset, data.length - offset);
+          if (count < 0) {
+            return null;
+          }
+          offset += count;
+        }
+        return data;
+      } finally {
+        stream.close();
+      }
+    } catch (IOException exception) {
+      AnalysisEngine.getInstance().getLogger().logError(
+          "Could not read the element model of " + librarySource.getFullName() + " from "
+              + file.getAbsolutePath(),
+          exception);
+      return null;
+    }
+  }
+
+  @Override
+  public void remove(Source librarySource) {
+    File file = getFile(librarySource);
+    if (file.exists() && !file.delete()) {
+      AnalysisEngine.getInstance().getLogger().logError(
+          "Could not delete the element model of " + librarySource.getFullName() + " from "
+              + file.getAbsolutePath());
+    }
+  }
+
+  @Override
+  public void write(Source librarySource, byte[] data) {
+    File file = getFile(librarySource);
+    //
+    // Write to a temporary file first so that a reader never sees a partially written file.
+    //
+    File temporaryFile = new File(directory, file.getName() + ".tmp");
+    try {
+      if (!directory.isDirectory() && !directory.mkdirs()) {
+        throw new IOException("Could not create " + directory.getAbsolutePath());
+      }
+      OutputStream stream = new FileOutputStream(temporaryFile);
+      try {
+        stream.write(data);
+      } finally {
+        stream.close();
+      }
+      if (file.exists() && !file.delete()) {
+        throw new IOException("Could not delete " + file.getAbsolutePath());
+      }
+      if (!temporaryFile.renameTo(file)) {
+        throw new IOException("Could not rename " + temporaryFile.getAbsolutePath());
+      }
+    } catch (IOException exception) {
+      temporaryFile.delete();
+      AnalysisEngine.getInstance().getLogger().logError(
+          "Could not write the element model of " + librarySource.getFullName() + " to "
+              + file.getAbsolutePath(),
+          exception);
+    }
+  }
+
+  /**
+   * Return the file in which the data for the library with the given source is stored.
+   * 
+   * @param librarySource the source of the defining compilation unit of the library
+   * @return the file in which the data for the library is stored
+   */
+  private File getFile(Source librarySource) {
+    String encoding = librarySource.getEncoding();
+    StringBuilder builder = new StringBuilder();
+    try {
+      MessageDigest digest = MessageDigest.getInstance("SHA-1");
+      for (byte b : digest.digest(encoding.getBytes("UTF-8"))) {
+        builder.append(HEX_DIGITS[(b >> 4) & 0xF]);
+        builder.append(HEX_DIGITS[b & 0xF]);
+      }
+    } catch (NoSuchAlgorithmException exception) {
+      builder.append(Integer.toHexString(encoding.hashCode()));
+    } catch (UnsupportedEncodingException exception) {
+      builder.append(Integer.toHexString(encoding.hashCode()));
+    }
+    builder.append(FILE_EXTENSION);
+    return new File(directory, builder.toString());
+  }
+}
@@ -87,6 +87,18 @@ public class HtmlEntryImpl extends SourceEntryImpl implements HtmlEntry {
     super();
   }
 
+  @Override
+  public void flushAstStructures() {
+    if (parsedUnitState == CacheState.VALID) {
+      parsedUnitState = CacheState.FLUSHED;
+      parsedUnit = null;
+    }
+    if (resolvedUnitState == CacheState.VALID) {
+      resolvedUnitState = CacheState.FLUSHED;
+      resolvedUnit = null;
+    }
+  }
+
   @Override
   public AnalysisError[] getAllErrors() {
     ArrayList<AnalysisError> errors = new ArrayList<AnalysisError>();
@@ -102,6 +114,19 @@ public class HtmlEntryImpl extends SourceEntryImpl implements HtmlEntry {
     return errors.toArray(new AnalysisError[errors.size()]);
   }
 
+  @Override
+  public long getEstimatedAstSize() {
+    long characterCount = 0L;
+    if (parsedUnitState == CacheState.VALID && parsedUnit != null) {
+      characterCount += parsedUnit.getLength();
+    }
+    if (resolvedUnitState == CacheState.VALID && resolvedUnit != null
+        && resolvedUnit != parsedUnit) {
+      characterCount += resolvedUnit.getLength();
+    }
+    return characterCount * BYTES_PER_CHARACTER;
+  }
+
   @Override
   public SourceKind getKind() {
     return SourceKind.HTML;
@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) 2013, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.internal.cache;
+
+import com.google.dart.engine.source.Source;
+
+import java.util.HashMap;
+
+/**
+ * Instances of the class {@code MemoryElementStore} implement an {@link ElementStore} that keeps the
+ * serialized element models in memory. Such a store can be shared by several analysis contexts.
+ * 
+ * @coverage dart.engine
+ */
+public class MemoryElementStore implements ElementStore {
+  /**
+   * A table mapping the encodings of library sources to the data written for those libraries.
+   */
+  private final HashMap<String, byte[]> dataMap = new HashMap<String, byte[]>();
+
+  /**
+   * Initialize a newly created store to be empty.
+   */
+  public MemoryElementStore() {
+    super();
+  }
+
+  /**
+   * Return the number of libraries for which data is being stored.
+   * 
+   * @return the number of libraries for which data is being stored
+   */
+  public synchronized int getLibraryCount() {
+    return dataMap.size();
+  }
+
+  @Override
+  public synchronized byte[] read(Source librarySource) {
+    return dataMap.get(librarySource.getEncoding());
+  }
+
+  @Override
+  public synchronized void remove(Source librarySource) {
+    dataMap.remove(librarySource.getEncoding());
+  }
+
+  @Override
+  public synchronized void write(Source librarySource, byte[] data) {
+    dataMap.put(librarySource.getEncoding(), data);
+  }
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) 2013, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.internal.cache;
+
+/**
+ * Instances of the class {@code SizeBasedEvictionPolicy} implement a {@link CacheEvictionPolicy}
+ * that retains AST structures until their estimated size exceeds a fixed number of bytes, so that
+ * many small compilation units can be kept in memory while only a few large ones are.
+ * 
+ * @coverage dart.engine
+ */
+public class SizeBasedEvictionPolicy implements CacheEvictionPolicy {
+  /**
+   * The maximum number of bytes that the retained AST structures are estimated to use.
+   */
+  private final long maximumSize;
+
+  /**
+   * Initialize a newly created policy to retain AST structures whose estimated size is at most the
+   * given number of bytes.
+   * 
+   * @param maximumSize the maximum number of bytes that the retained AST structures are estimated
+   *          to use
+   */
+  public SizeBasedEvictionPolicy(long maximumSize) {
+    this.maximumSize = maximumSize;
+  }
+
+  /**
+   * Return the maximum number of bytes that the retained AST structures are estimated to use.
+   * 
+   * @return the maximum number of bytes that the retained AST structures are estimated to use
+   */
+  public long getMaximumSize() {
+    return maximumSize;
+  }
+
+  @Override
+  public boolean isOverBudget(int sourceCount, long estimatedSize) {
+    return estimatedSize > maximumSize;
+  }
+}
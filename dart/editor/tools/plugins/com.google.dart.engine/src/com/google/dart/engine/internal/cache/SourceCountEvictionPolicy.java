@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) 2013, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.internal.cache;
+
+/**
+ * Instances of the class {@code SourceCountEvictionPolicy} implement a {@link CacheEvictionPolicy}
+ * that retains AST structures for a fixed number of sources, regardless of how large those
+ * structures are.
+ * 
+ * @coverage dart.engine
+ */
+public class SourceCountEvictionPolicy implements CacheEvictionPolicy {
+  /**
+   * The maximum number of sources for which AST structures will be retained.
+   */
+  private final int maximumSourceCount;
+
+  /**
+   * Initialize a newly created policy to retain AST structures for at most the given number of
+   * sources.
+   * 
+   * @param maximumSourceCount the maximum number of sources for which AST structures will be
+   *          retained
+   */
+  public SourceCountEvictionPolicy(int maximumSourceCount) {
+    this.maximumSourceCount = maximumSourceCount;
+  }
+
+  /**
+   * Return the maximum number of sources for which AST structures will be retained.
+   * 
+   * @return the maximum number of sources for which AST structures will be retained
+   */
+  public int getMaximumSourceCount() {
+    return maximumSourceCount;
+  }
+
+  @Override
+  public boolean isOverBudget(int sourceCount, long estimatedSize) {
+    return sourceCount > maximumSourceCount;
+  }
+}
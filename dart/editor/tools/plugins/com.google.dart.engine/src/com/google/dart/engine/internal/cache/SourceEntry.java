@@ -33,6 +33,14 @@ public interface SourceEntry {
   public static final DataDescriptor<LineInfo> LINE_INFO = new DataDescriptor<LineInfo>(
       "SourceEntry.LINE_INFO");
 
+  /**
+   * Return an estimate of the number of bytes of memory retained by the AST structures that are
+   * currently cached in this entry, including the token streams referenced by those structures.
+   * 
+   * @return an estimate of the memory retained by the cached AST structures
+   */
+  public long getEstimatedAstSize();
+
   /**
    * Return the kind of the source, or {@code null} if the kind is not currently cached.
    * 
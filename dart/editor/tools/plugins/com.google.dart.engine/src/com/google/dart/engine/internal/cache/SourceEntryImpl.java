@@ -23,6 +23,12 @@ import com.google.dart.engine.utilities.source.LineInfo;
  * @coverage dart.engine
  */
 public abstract class SourceEntryImpl implements SourceEntry {
+  /**
+   * The estimated number of bytes retained per character of source covered by a cached AST
+   * structure. This accounts for both the AST nodes and the tokens that they reference.
+   */
+  protected static final long BYTES_PER_CHARACTER = 25L;
+
   /**
    * The most recent time at which the state of the source matched the state represented by this
    * entry.
@@ -71,6 +77,13 @@ public abstract class SourceEntryImpl implements SourceEntry {
     }
   }
 
+  /**
+   * Flush any AST structures being maintained by this entry, leaving all other cached information
+   * in place. Only data that is currently valid is flushed, so that data that still needs to be
+   * computed continues to be reported as such.
+   */
+  public abstract void flushAstStructures();
+
   /**
    * Set the most recent time at which the state of the source matched the state represented by this
    * entry to the given time.
@@ -16,6 +16,7 @@ package com.google.dart.engine.internal.constant;
 import com.google.dart.engine.AnalysisEngine;
 import com.google.dart.engine.ast.ASTNode;
 import com.google.dart.engine.ast.CompilationUnit;
+import com.google.dart.engine.ast.FunctionBody;
 import com.google.dart.engine.ast.VariableDeclaration;
 import com.google.dart.engine.element.CompilationUnitElement;
 import com.google.dart.engine.element.VariableElement;
@@ -69,6 +70,16 @@ public class ConstantValueComputer {
     unit.accept(constantFinder);
   }
 
+  /**
+   * Add the constant variables declared within the given function body to the list of constant
+   * variables whose value needs to be computed.
+   * 
+   * @param body the function body declaring the constant variables to be added
+   */
+  public void add(FunctionBody body) {
+    body.accept(constantFinder);
+  }
+
   /**
    * Compute values for all of the constant variables in the compilation units that were added.
    */
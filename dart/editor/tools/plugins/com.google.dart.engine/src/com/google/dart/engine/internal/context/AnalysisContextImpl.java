@@ -43,16 +43,26 @@ import com.google.dart.engine.html.parser.HtmlParser;
 import com.google.dart.engine.html.scanner.HtmlScanResult;
 import com.google.dart.engine.html.scanner.HtmlScanner;
 import com.google.dart.engine.internal.builder.HtmlUnitBuilder;
+import com.google.dart.engine.internal.cache.CacheEvictionPolicy;
+import com.google.dart.engine.internal.cache.CacheStatistics;
 import com.google.dart.engine.internal.cache.DartEntry;
 import com.google.dart.engine.internal.cache.DartEntryImpl;
+import com.google.dart.engine.internal.cache.ElementStore;
 import com.google.dart.engine.internal.cache.HtmlEntry;
 import com.google.dart.engine.internal.cache.HtmlEntryImpl;
+import com.google.dart.engine.internal.cache.SourceCountEvictionPolicy;
 import com.google.dart.engine.internal.cache.SourceEntry;
+import com.google.dart.engine.internal.cache.SourceEntryImpl;
 import com.google.dart.engine.internal.element.ElementImpl;
 import com.google.dart.engine.internal.element.ElementLocationImpl;
+import com.google.dart.engine.internal.element.ElementReader;
+import com.google.dart.engine.internal.element.ElementWriter;
 import com.google.dart.engine.internal.error.ErrorReporter;
 import com.google.dart.engine.internal.resolver.DeclarationResolver;
+import com.google.dart.engine.internal.resolver.IncrementalResolver;
+import com.google.dart.engine.internal.resolver.InheritanceCache;
 import com.google.dart.engine.internal.resolver.InheritanceManager;
+import com.google.dart.engine.internal.resolver.Library;
 import com.google.dart.engine.internal.resolver.LibraryResolver;
 import com.google.dart.engine.internal.resolver.ResolverVisitor;
 import com.google.dart.engine.internal.resolver.TypeProvider;
@@ -64,6 +74,8 @@ import com.google.dart.engine.internal.verifier.ConstantVerifier;
 import com.google.dart.engine.internal.verifier.ErrorVerifier;
 import com.google.dart.engine.parser.Parser;
 import com.google.dart.engine.scanner.CharBufferScanner;
+import com.google.dart.engine.scanner.IncrementalScanner;
+import com.google.dart.engine.scanner.PackedTokenBuffer;
 import com.google.dart.engine.scanner.StringScanner;
 import com.google.dart.engine.scanner.Token;
 import com.google.dart.engine.sdk.DartSdk;
@@ -79,8 +91,18 @@ import java.nio.CharBuffer;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Instances of the class {@code AnalysisContextImpl} implement an {@link AnalysisContext analysis
@@ -89,6 +111,40 @@ import java.util.Map;
  * @coverage dart.engine
  */
 public class AnalysisContextImpl implements InternalAnalysisContext {
+  /**
+   * Instances of the class {@code ParseResult} represent the results of parsing a source on a
+   * worker thread, before those results have been recorded in the cache.
+   */
+  private static class ParseResult {
+    /**
+     * The compilation unit that was produced, or {@code null} if the source could not be parsed.
+     */
+    private CompilationUnit unit;
+
+    /**
+     * The line information that was produced.
+     */
+    private LineInfo lineInfo;
+
+    /**
+     * The errors that were produced by scanning and parsing the source.
+     */
+    private AnalysisError[] errors;
+
+    /**
+     * The exception that prevented the source from being parsed, or {@code null} if the source was
+     * parsed.
+     */
+    private AnalysisException exception;
+
+    /**
+     * Initialize a newly created result object to be empty.
+     */
+    private ParseResult() {
+      super();
+    }
+  }
+
   /**
    * Instances of the class {@code ScanResult} represent the results of scanning a source.
    */
@@ -98,22 +154,81 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
      */
     private long modificationTime;
 
+    /**
+     * The contents that were scanned, or {@code null} if the contents are not retained for
+     * incremental scanning.
+     */
+    private String contents;
+
     /**
      * The first token in the token stream.
      */
     private Token token;
 
+    /**
+     * The packed form of the token stream, used instead of the token stream by the results that are
+     * retained for incremental scanning.
+     */
+    private PackedTokenBuffer packedTokens;
+
     /**
      * The line start information that was produced.
      */
     private int[] lineStarts;
 
+    /**
+     * The contents of the source after the changes recorded since the contents were scanned, or
+     * {@code null} if no changes have been recorded.
+     */
+    private String changedContents;
+
+    /**
+     * The offset of the region of the scanned contents that was replaced by the recorded changes.
+     */
+    private int changeOffset;
+
+    /**
+     * The number of characters in the scanned contents that were replaced by the recorded changes.
+     */
+    private int changeOldLength;
+
+    /**
+     * The number of characters in the changed contents that replaced the changed region.
+     */
+    private int changeNewLength;
+
     /**
      * Initialize a newly created result object to be empty.
      */
     private ScanResult() {
       super();
     }
+
+    /**
+     * Record that the contents of the source were changed to the given contents by replacing the
+     * given number of characters at the given offset with the given number of characters. The
+     * change is merged with the changes recorded earlier, so that the recorded region is the
+     * smallest region of the scanned contents that contains all of the changes.
+     * 
+     * @param contents the contents of the source after the change
+     * @param offset the offset of the changed region in the contents before the change
+     * @param oldLength the number of characters that were replaced
+     * @param newLength the number of characters in the replacement text
+     */
+    private void recordChange(String contents, int offset, int oldLength, int newLength) {
+      if (changedContents == null) {
+        changeOffset = offset;
+        changeOldLength = oldLength;
+        changeNewLength = newLength;
+      } else {
+        int start = Math.min(changeOffset, offset);
+        int end = Math.max(changeOffset + changeNewLength, offset + oldLength);
+        changeOldLength = end - changeNewLength + changeOldLength - start;
+        changeNewLength = end + newLength - oldLength - start;
+        changeOffset = start;
+      }
+      changedContents = contents;
+    }
   }
 
   /**
@@ -133,11 +248,45 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
   private HashMap<Source, ChangeNoticeImpl> pendingNotices = new HashMap<Source, ChangeNoticeImpl>();
 
   /**
-   * A list containing the most recently accessed sources with the most recently used at the end of
-   * the list. When more sources are added than the maximum allowed then the least recently used
-   * source will be removed and will have it's cached AST structure flushed.
+   * The queues of sources that might need to have analysis work performed on them. The queues are
+   * updated whenever a cache entry is created or invalidated so that the next analysis task can be
+   * found without scanning the {@link #sourceMap}.
+   */
+  private final WorkManager workManager = new WorkManager();
+
+  /**
+   * A table mapping the most recently accessed sources to the estimated size of the AST structures
+   * cached for them, with the most recently used source last in iteration order. When the
+   * {@link #evictionPolicy} reports that the cache is over budget the least recently used sources
+   * will be removed and will have their cached AST structures flushed.
+   */
+  private LinkedHashMap<Source, Long> recentlyUsed = new LinkedHashMap<Source, Long>();
+
+  /**
+   * The sum of the estimated sizes recorded in {@link #recentlyUsed}.
+   */
+  private long recentlyUsedSize = 0L;
+
+  /**
+   * The policy used to decide when the AST structures associated with the least recently used
+   * sources should be flushed.
+   */
+  private CacheEvictionPolicy evictionPolicy = new SourceCountEvictionPolicy(DEFAULT_CACHE_SIZE);
+
+  /**
+   * The number of requests for an AST structure that were satisfied from the cache.
    */
-  private ArrayList<Source> recentlyUsed = new ArrayList<Source>(MAX_CACHE_SIZE);
+  private int cacheHitCount = 0;
+
+  /**
+   * The number of requests for an AST structure that required the structure to be computed.
+   */
+  private int cacheMissCount = 0;
+
+  /**
+   * The number of times the AST structures associated with a source were flushed from the cache.
+   */
+  private int cacheFlushCount = 0;
 
   /**
    * The object used to synchronize access to all of the caches.
@@ -145,9 +294,10 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
   private Object cacheLock = new Object();
 
   /**
-   * The maximum number of sources for which data should be kept in the cache.
+   * The maximum number of sources for which data should be kept in the cache when no other
+   * {@link CacheEvictionPolicy} has been set.
    */
-  private static final int MAX_CACHE_SIZE = 64;
+  private static final int DEFAULT_CACHE_SIZE = 64;
 
   /**
    * The name of the 'src' attribute in a HTML tag.
@@ -165,6 +315,57 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
    */
   private int cacheRemovalCount = 0;
 
+  /**
+   * The number of threads used to parse sources and resolve compilation units concurrently. A value
+   * of {@code 1} means that all analysis is performed on the thread that invoked
+   * {@link #performAnalysisTask()}.
+   */
+  private int workerCount = AnalysisEngine.getInstance().getWorkerCount();
+
+  /**
+   * The executor used to parse sources concurrently, or {@code null} if it has not yet been created.
+   * <p>
+   * <b>Note:</b> This field must only be accessed while we are synchronized on {@link #cacheLock}.
+   */
+  private ThreadPoolExecutor workerPool;
+
+  /**
+   * The number of sources that will be parsed by each worker thread during a single analysis task.
+   */
+  private static final int PARSE_BATCH_SIZE_PER_WORKER = 8;
+
+  /**
+   * The number of seconds that an idle worker thread will wait for new work before terminating.
+   */
+  private static final long WORKER_KEEP_ALIVE_SECONDS = 5L;
+
+  /**
+   * The store used to persist the element models of resolved libraries, or {@code null} if element
+   * models are not persisted.
+   */
+  private ElementStore elementStore = AnalysisEngine.getInstance().getElementStore();
+
+  /**
+   * The object used to compute the signatures that decide whether a persisted element model is
+   * still valid.
+   * <p>
+   * <b>Note:</b> This field must only be accessed while we are synchronized on {@link #cacheLock}.
+   */
+  private final LibrarySignatureComputer signatureComputer = new LibrarySignatureComputer(this);
+
+  /**
+   * A table mapping the sources whose contents are overridden to the result of scanning the
+   * overriding contents. The token streams in these results are never given to the parser, so that
+   * they can be incrementally rescanned when the contents are changed again.
+   */
+  private final HashMap<Source, ScanResult> overrideScanResults = new HashMap<Source, ScanResult>();
+
+  /**
+   * The cache used to share the members inherited by classes between the inheritance managers of
+   * the libraries in this context.
+   */
+  private final InheritanceCache inheritanceCache = new InheritanceCache();
+
   /**
    * Initialize a newly created analysis context.
    */
@@ -174,7 +375,10 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
 
   @Override
   public void addSourceInfo(Source source, SourceEntry info) {
-    sourceMap.put(source, info);
+    synchronized (cacheLock) {
+      putSourceEntry(source, info);
+      scheduleWork(source, info);
+    }
   }
 
   @Override
@@ -183,6 +387,7 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
       return;
     }
     synchronized (cacheLock) {
+      signatureComputer.clear();
       //
       // First, compute the list of sources that have been removed.
       //
@@ -213,8 +418,12 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
         for (Map.Entry<Source, SourceEntry> mapEntry : sourceMap.entrySet()) {
           if (!mapEntry.getKey().isInSystemLibrary() && mapEntry.getValue() instanceof DartEntry) {
             DartEntryImpl dartCopy = ((DartEntry) mapEntry.getValue()).getWritableCopy();
+            if (dartCopy.getValue(DartEntry.SOURCE_KIND) == SourceKind.LIBRARY) {
+              inheritanceCache.removeLibrary(mapEntry.getKey());
+            }
             dartCopy.invalidateAllResolutionInformation();
-            mapEntry.setValue(dartCopy);
+            putSourceEntry(mapEntry.getKey(), dartCopy);
+            scheduleWork(mapEntry.getKey(), dartCopy);
           }
         }
       }
@@ -333,7 +542,8 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
         htmlCopy.setValue(HtmlEntry.RESOLVED_UNIT, unit);
         htmlCopy.setValue(HtmlEntry.RESOLUTION_ERRORS, resolutionErrors);
         htmlCopy.setValue(HtmlEntry.ELEMENT, element);
-        sourceMap.put(source, htmlCopy);
+        putSourceEntry(source, htmlCopy);
+        accessed(source);
         getNotice(source).setErrors(resolutionErrors, htmlCopy.getValue(SourceEntry.LINE_INFO));
       }
       return element;
@@ -374,18 +584,26 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
           throw new AnalysisException("Cannot compute library element for non-library: "
               + source.getFullName());
         }
+        element = loadLibraryElement(source);
+        if (element != null) {
+          return element;
+        }
         LibraryResolver resolver = new LibraryResolver(this);
+        if (workerCount > 1) {
+          resolver.setWorkerPool(getWorkerPool());
+        }
         try {
           element = resolver.resolveLibrary(source, true);
           if (element != null) {
             DartEntryImpl dartCopy = getDartEntry(source).getWritableCopy();
             dartCopy.setValue(DartEntry.ELEMENT, element);
-            sourceMap.put(source, dartCopy);
+            putSourceEntry(source, dartCopy);
+            storeLibraryElements(resolver.getResolvedLibraries());
           }
         } catch (AnalysisException exception) {
           DartEntryImpl dartCopy = getDartEntry(source).getWritableCopy();
           dartCopy.setState(DartEntry.ELEMENT, CacheState.ERROR);
-          sourceMap.put(source, dartCopy);
+          putSourceEntry(source, dartCopy);
           AnalysisEngine.getInstance().getLogger().logError(
               "Could not resolve the library " + source.getFullName(),
               exception);
@@ -425,12 +643,14 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
       }
       CompilationUnit unit = dartEntry.getAnyParsedCompilationUnit();
       if (unit != null) {
+        cacheHitCount++;
         return (CompilationUnit) unit.accept(new ASTCloner());
       }
+      cacheMissCount++;
       DartEntryImpl dartCopy = dartEntry.getWritableCopy();
       unit = internalParseCompilationUnit(dartCopy, source);
       dartCopy.setState(DartEntry.PARSED_UNIT, CacheState.FLUSHED);
-      sourceMap.put(source, dartCopy);
+      putSourceEntry(source, dartCopy);
       return unit;
     }
   }
@@ -473,6 +693,18 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
     return newContext;
   }
 
+  @Override
+  public CacheStatistics getCacheStatistics() {
+    synchronized (cacheLock) {
+      return new CacheStatistics(
+          cacheHitCount,
+          cacheMissCount,
+          cacheFlushCount,
+          recentlyUsed.size(),
+          recentlyUsedSize);
+    }
+  }
+
   @Override
   public Element getElement(ElementLocation location) {
     String[] components = ((ElementLocationImpl) location).getComponents();
@@ -494,6 +726,18 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
     return element;
   }
 
+  /**
+   * Return the store used to persist the element models of resolved libraries, or {@code null} if
+   * element models are not persisted.
+   * 
+   * @return the store used to persist the element models of resolved libraries
+   */
+  public ElementStore getElementStore() {
+    synchronized (cacheLock) {
+      return elementStore;
+    }
+  }
+
   @Override
   public AnalysisErrorInfo getErrors(Source source) {
     SourceEntry sourceEntry = getReadableSourceEntry(source);
@@ -560,6 +804,11 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
     return getSources(SourceKind.HTML);
   }
 
+  @Override
+  public InheritanceCache getInheritanceCache() {
+    return inheritanceCache;
+  }
+
   @Override
   public SourceKind getKindOf(Source source) {
     SourceEntry sourceEntry = getReadableSourceEntry(source);
@@ -663,7 +912,7 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
         namespace = builder.createPublicNamespace(library);
         DartEntryImpl dartCopy = dartEntry.getWritableCopy();
         dartCopy.setValue(DartEntry.PUBLIC_NAMESPACE, namespace);
-        sourceMap.put(source, dartCopy);
+        putSourceEntry(source, dartCopy);
       }
       return namespace;
     }
@@ -688,7 +937,7 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
         namespace = builder.createPublicNamespace(library);
         DartEntryImpl dartCopy = dartEntry.getWritableCopy();
         dartCopy.setValue(DartEntry.PUBLIC_NAMESPACE, namespace);
-        sourceMap.put(source, dartCopy);
+        putSourceEntry(source, dartCopy);
       }
       return namespace;
     }
@@ -716,6 +965,43 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
     return sourceFactory;
   }
 
+  /**
+   * Return the number of threads used to parse sources and resolve compilation units concurrently.
+   * 
+   * @return the number of threads used to parse sources and resolve units concurrently
+   */
+  public int getWorkerCount() {
+    synchronized (cacheLock) {
+      return workerCount;
+    }
+  }
+
+  @Override
+  public void invalidateLibraryResolution(Source librarySource) {
+    synchronized (cacheLock) {
+      // TODO(brianwilkerson) This could be optimized. There's no need to flush all of these caches
+      // if the public namespace hasn't changed, which will be a fairly common case.
+      inheritanceCache.removeLibrary(librarySource);
+      DartEntry libraryEntry = getDartEntry(librarySource);
+      if (libraryEntry != null) {
+        Source[] includedParts = libraryEntry.getValue(DartEntry.INCLUDED_PARTS);
+        DartEntryImpl libraryCopy = libraryEntry.getWritableCopy();
+        libraryCopy.invalidateAllResolutionInformation();
+        libraryCopy.setState(DartEntry.INCLUDED_PARTS, CacheState.INVALID);
+        putSourceEntry(librarySource, libraryCopy);
+        scheduleWork(librarySource, libraryCopy);
+        for (Source unitSource : includedParts) {
+          DartEntry partEntry = getDartEntry(unitSource);
+          if (partEntry != null) {
+            DartEntryImpl dartCopy = partEntry.getWritableCopy();
+            dartCopy.invalidateAllResolutionInformation();
+            putSourceEntry(unitSource, dartCopy);
+          }
+        }
+      }
+    }
+  }
+
   @Override
   public boolean isClientLibrary(Source librarySource) {
     SourceEntry sourceEntry = getReadableSourceEntry(librarySource);
@@ -745,7 +1031,9 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
         SourceEntry existingEntry = getSourceEntry(newSource);
         if (existingEntry == null) {
           // TODO(brianwilkerson) Decide whether we really need to copy the info.
-          sourceMap.put(newSource, entry.getValue().getWritableCopy());
+          SourceEntry newEntry = entry.getValue().getWritableCopy();
+          putSourceEntry(newSource, newEntry);
+          scheduleWork(newSource, newEntry);
         } else {
           // TODO(brianwilkerson) Decide whether/how to merge the entries.
         }
@@ -763,9 +1051,13 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
       }
       CompilationUnit unit = dartEntry.getAnyParsedCompilationUnit();
       if (unit == null) {
+        cacheMissCount++;
         DartEntryImpl dartCopy = dartEntry.getWritableCopy();
         unit = internalParseCompilationUnit(dartCopy, source);
-        sourceMap.put(source, dartCopy);
+        putSourceEntry(source, dartCopy);
+        accessed(source);
+      } else {
+        cacheHitCount++;
       }
       return unit;
     }
@@ -783,14 +1075,20 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
       if (unit == null) {
         unit = htmlEntry.getValue(HtmlEntry.PARSED_UNIT);
         if (unit == null) {
+          cacheMissCount++;
           HtmlParseResult result = new HtmlParser(source).parse(scanHtml(source));
           unit = result.getHtmlUnit();
           HtmlEntryImpl htmlCopy = htmlEntry.getWritableCopy();
           htmlCopy.setValue(SourceEntry.LINE_INFO, new LineInfo(result.getLineStarts()));
           htmlCopy.setValue(HtmlEntry.PARSED_UNIT, unit);
           htmlCopy.setValue(HtmlEntry.REFERENCED_LIBRARIES, getLibrarySources(source, unit));
-          sourceMap.put(source, htmlCopy);
+          putSourceEntry(source, htmlCopy);
+          accessed(source);
+        } else {
+          cacheHitCount++;
         }
+      } else {
+        cacheHitCount++;
       }
       return unit;
     }
@@ -798,8 +1096,9 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
 
   @Override
   public ChangeNotice[] performAnalysisTask() {
+    boolean parsedConcurrently = performConcurrentParseTask();
     synchronized (cacheLock) {
-      if (!performSingleAnalysisTask() && pendingNotices.isEmpty()) {
+      if (!parsedConcurrently && !performSingleAnalysisTask() && pendingNotices.isEmpty()) {
         return null;
       }
       if (pendingNotices.isEmpty()) {
@@ -839,7 +1138,7 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
           dartCopy.setValue(
               DartEntry.INCLUDED_PARTS,
               unitSources.toArray(new Source[unitSources.size()]));
-          sourceMap.put(librarySource, dartCopy);
+          putSourceEntry(librarySource, dartCopy);
         }
       }
     }
@@ -855,14 +1154,14 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
         DartEntryImpl dartCopy = dartEntry.getWritableCopy();
         dartCopy.setValue(SourceEntry.LINE_INFO, lineInfo);
         dartCopy.setValue(DartEntry.RESOLUTION_ERRORS, librarySource, errors);
-        sourceMap.put(source, dartCopy);
+        putSourceEntry(source, dartCopy);
         getNotice(source).setErrors(dartEntry.getAllErrors(), lineInfo);
       } else if (sourceEntry instanceof HtmlEntry) {
         HtmlEntry htmlEntry = (HtmlEntry) sourceEntry;
         HtmlEntryImpl htmlCopy = htmlEntry.getWritableCopy();
         htmlCopy.setValue(SourceEntry.LINE_INFO, lineInfo);
         htmlCopy.setValue(HtmlEntry.RESOLUTION_ERRORS, errors);
-        sourceMap.put(source, htmlCopy);
+        putSourceEntry(source, htmlCopy);
         getNotice(source).setErrors(htmlEntry.getAllErrors(), lineInfo);
       }
     }
@@ -877,7 +1176,8 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
         DartEntryImpl dartCopy = dartEntry.getWritableCopy();
         dartCopy.setValue(DartEntry.RESOLVED_UNIT, librarySource, unit);
         dartCopy.setState(DartEntry.PARSED_UNIT, CacheState.FLUSHED);
-        sourceMap.put(source, dartCopy);
+        putSourceEntry(source, dartCopy);
+        accessed(source);
       }
       getNotice(source).setCompilationUnit(unit);
     }
@@ -903,6 +1203,7 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
       }
       CompilationUnit unit = dartEntry.getValue(DartEntry.RESOLVED_UNIT, librarySource);
       if (unit == null) {
+        cacheMissCount++;
         disableCacheRemoval();
         try {
           LibraryElement libraryElement = computeLibraryElement(librarySource);
@@ -944,23 +1245,24 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
                 errorReporter,
                 libraryElement,
                 typeProvider,
-                new InheritanceManager(libraryElement));
+                new InheritanceManager(libraryElement, inheritanceCache));
+            errorVerifier.addParticipant(new ConstantVerifier(errorReporter, typeProvider));
             unitAST.accept(errorVerifier);
-
-            ConstantVerifier constantVerifier = new ConstantVerifier(errorReporter, typeProvider);
-            unitAST.accept(constantVerifier);
             //
             // Capture the results.
             //
             unitAST.setResolutionErrors(errorListener.getErrors());
             DartEntryImpl dartCopy = getDartEntry(unitSource).getWritableCopy();
             dartCopy.setValue(DartEntry.RESOLVED_UNIT, librarySource, unitAST);
-            sourceMap.put(unitSource, dartCopy);
+            putSourceEntry(unitSource, dartCopy);
+            accessed(unitSource);
             unit = unitAST;
           }
         } finally {
           enableCacheRemoval();
         }
+      } else {
+        cacheHitCount++;
       }
       return unit;
     }
@@ -976,6 +1278,7 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
       }
       HtmlUnit unit = htmlEntry.getValue(HtmlEntry.RESOLVED_UNIT);
       if (unit == null) {
+        cacheMissCount++;
         disableCacheRemoval();
         try {
           computeHtmlElement(unitSource);
@@ -988,16 +1291,70 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
         } finally {
           enableCacheRemoval();
         }
+      } else {
+        cacheHitCount++;
       }
       return unit;
     }
   }
 
+  @Override
+  public void setCacheEvictionPolicy(CacheEvictionPolicy policy) {
+    synchronized (cacheLock) {
+      evictionPolicy = policy;
+      if (cacheRemovalCount == 0) {
+        flushLeastRecentlyUsed();
+      }
+    }
+  }
+
+  @Override
+  public void setChangedContents(Source source, String contents, int offset, int oldLength,
+      int newLength) {
+    synchronized (cacheLock) {
+      String originalContents = sourceFactory.getContentCache().getContents(source);
+      if (originalContents == null || contents == null || offset < 0
+          || offset + oldLength > originalContents.length()
+          || originalContents.length() - oldLength + newLength != contents.length()) {
+        setContents(source, contents);
+        return;
+      }
+      changeContents(source, contents, offset, oldLength, newLength);
+    }
+  }
+
   @Override
   public void setContents(Source source, String contents) {
     synchronized (cacheLock) {
-      sourceFactory.setContents(source, contents);
-      sourceChanged(source);
+      String originalContents = sourceFactory.getContentCache().getContents(source);
+      if (originalContents == null || contents == null) {
+        changeContents(source, contents, -1, 0, 0);
+      } else {
+        // The changed region is not known, so it is found by comparing the contents.
+        int offset = getCommonPrefixLength(originalContents, contents);
+        int suffixLength = getCommonSuffixLength(originalContents, contents, offset);
+        changeContents(
+            source,
+            contents,
+            offset,
+            originalContents.length() - offset - suffixLength,
+            contents.length() - offset - suffixLength);
+      }
+    }
+  }
+
+  /**
+   * Set the store used to persist the element models of resolved libraries to the given store. When
+   * a library needs to be resolved and the store contains an element model for it whose signature
+   * matches the current contents of the library and its dependencies, the element model is read
+   * from the store instead.
+   * 
+   * @param store the store used to persist element models, or {@code null} if element models should
+   *          not be persisted
+   */
+  public void setElementStore(ElementStore store) {
+    synchronized (cacheLock) {
+      elementStore = store;
     }
   }
 
@@ -1014,21 +1371,45 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
       }
       factory.setContext(this);
       sourceFactory = factory;
+      signatureComputer.clear();
+      inheritanceCache.clear();
+      synchronized (overrideScanResults) {
+        overrideScanResults.clear();
+      }
       for (Map.Entry<Source, SourceEntry> mapEntry : sourceMap.entrySet()) {
         SourceEntry sourceEntry = mapEntry.getValue();
         if (sourceEntry instanceof HtmlEntry) {
           HtmlEntryImpl htmlCopy = ((HtmlEntry) sourceEntry).getWritableCopy();
           htmlCopy.setState(HtmlEntry.RESOLVED_UNIT, CacheState.INVALID);
-          mapEntry.setValue(htmlCopy);
+          putSourceEntry(mapEntry.getKey(), htmlCopy);
+          scheduleWork(mapEntry.getKey(), htmlCopy);
         } else if (sourceEntry instanceof DartEntry) {
           DartEntryImpl dartCopy = ((DartEntry) sourceEntry).getWritableCopy();
           dartCopy.invalidateAllResolutionInformation();
-          mapEntry.setValue(dartCopy);
+          putSourceEntry(mapEntry.getKey(), dartCopy);
+          scheduleWork(mapEntry.getKey(), dartCopy);
         }
       }
     }
   }
 
+  /**
+   * Set the number of threads used to parse sources and resolve compilation units concurrently to
+   * the given number. Values less than {@code 1} are treated as {@code 1}, which causes all analysis
+   * to be performed on the thread that invoked {@link #performAnalysisTask()}.
+   * 
+   * @param count the number of threads used to parse sources and resolve units concurrently
+   */
+  public void setWorkerCount(int count) {
+    synchronized (cacheLock) {
+      workerCount = Math.max(1, count);
+      if (workerPool != null) {
+        workerPool.shutdown();
+        workerPool = null;
+      }
+    }
+  }
+
   @Override
   public Iterable<Source> sourcesToResolve(Source[] changedSources) {
     List<Source> librarySources = new ArrayList<Source>();
@@ -1048,29 +1429,17 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
    * @param source the source that was accessed
    */
   private void accessed(Source source) {
-    if (recentlyUsed.contains(source)) {
-      recentlyUsed.remove(source);
-      recentlyUsed.add(source);
-      return;
+    Long previousSize = recentlyUsed.remove(source);
+    if (previousSize != null) {
+      recentlyUsedSize -= previousSize.longValue();
     }
-    if (cacheRemovalCount == 0 && recentlyUsed.size() >= MAX_CACHE_SIZE) {
-      Source removedSource = recentlyUsed.remove(0);
-      SourceEntry sourceEntry = sourceMap.get(removedSource);
-      if (sourceEntry instanceof HtmlEntry) {
-        HtmlEntryImpl htmlCopy = ((HtmlEntry) sourceEntry).getWritableCopy();
-        htmlCopy.setState(HtmlEntry.PARSED_UNIT, CacheState.FLUSHED);
-        htmlCopy.setState(HtmlEntry.RESOLVED_UNIT, CacheState.FLUSHED);
-        sourceMap.put(removedSource, htmlCopy);
-      } else if (sourceEntry instanceof DartEntry) {
-        DartEntryImpl dartCopy = ((DartEntry) sourceEntry).getWritableCopy();
-        dartCopy.setState(DartEntry.PARSED_UNIT, CacheState.FLUSHED);
-        for (Source librarySource : getLibrariesContaining(source)) {
-          dartCopy.setState(DartEntry.RESOLVED_UNIT, librarySource, CacheState.FLUSHED);
-        }
-        sourceMap.put(removedSource, dartCopy);
-      }
+    SourceEntry sourceEntry = sourceMap.get(source);
+    long size = sourceEntry == null ? 0L : sourceEntry.getEstimatedAstSize();
+    recentlyUsed.put(source, Long.valueOf(size));
+    recentlyUsedSize += size;
+    if (cacheRemovalCount == 0) {
+      flushLeastRecentlyUsed();
     }
-    recentlyUsed.add(source);
   }
 
   /**
@@ -1089,6 +1458,44 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
     }
   }
 
+  /**
+   * Set the contents of the given source to the given contents and mark the source as having
+   * changed. If the changed region is known, the retained scan result for the source records it, so
+   * that only the changed region needs to be rescanned, and the cached results are updated
+   * incrementally if possible.
+   * <p>
+   * <b>Note:</b> This method must only be invoked while we are synchronized on {@link #cacheLock}.
+   * 
+   * @param source the source whose contents are being overridden
+   * @param contents the new contents of the source, or {@code null} to remove the override
+   * @param offset the offset of the changed region in the original contents, or {@code -1} if the
+   *          changed region is not known
+   * @param oldLength the number of characters in the original contents that were replaced
+   * @param newLength the number of characters in the replacement text
+   */
+  private void changeContents(Source source, String contents, int offset, int oldLength,
+      int newLength) {
+    sourceFactory.setContents(source, contents);
+    synchronized (overrideScanResults) {
+      if (contents == null || offset < 0) {
+        overrideScanResults.remove(source);
+      } else {
+        ScanResult retainedResult = overrideScanResults.get(source);
+        if (retainedResult != null) {
+          retainedResult.recordChange(contents, offset, oldLength, newLength);
+        }
+      }
+    }
+    if (contents == null) {
+      workManager.remove(source, SourcePriority.PRIORITY);
+    } else {
+      workManager.add(source, SourcePriority.PRIORITY);
+    }
+    if (offset < 0 || !resolveIncrementally(source, offset, oldLength, newLength)) {
+      sourceChanged(source);
+    }
+  }
+
   /**
    * Return {@code true} if the given array of sources contains the given source.
    * 
@@ -1132,11 +1539,13 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
     String name = source.getShortName();
     if (AnalysisEngine.isHtmlFileName(name)) {
       HtmlEntry htmlEntry = new HtmlEntryImpl();
-      sourceMap.put(source, htmlEntry);
+      putSourceEntry(source, htmlEntry);
+      workManager.add(source, SourcePriority.HTML);
       return htmlEntry;
     } else if (AnalysisEngine.isDartFileName(name)) {
       DartEntry dartEntry = new DartEntryImpl();
-      sourceMap.put(source, dartEntry);
+      putSourceEntry(source, dartEntry);
+      workManager.add(source, SourcePriority.DART_PARSE);
       return dartEntry;
     }
     return null;
@@ -1158,23 +1567,7 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
       cacheRemovalCount--;
     }
     if (cacheRemovalCount == 0) {
-      while (recentlyUsed.size() >= MAX_CACHE_SIZE) {
-        Source removedSource = recentlyUsed.remove(0);
-        SourceEntry sourceEntry = sourceMap.get(removedSource);
-        if (sourceEntry instanceof HtmlEntry) {
-          HtmlEntryImpl htmlCopy = ((HtmlEntry) sourceEntry).getWritableCopy();
-          htmlCopy.setState(HtmlEntry.PARSED_UNIT, CacheState.FLUSHED);
-          htmlCopy.setState(HtmlEntry.RESOLVED_UNIT, CacheState.FLUSHED);
-          sourceMap.put(removedSource, htmlCopy);
-        } else if (sourceEntry instanceof DartEntry) {
-          DartEntryImpl dartCopy = ((DartEntry) sourceEntry).getWritableCopy();
-          dartCopy.setState(DartEntry.PARSED_UNIT, CacheState.FLUSHED);
-          for (Source librarySource : getLibrariesContaining(removedSource)) {
-            dartCopy.setState(DartEntry.RESOLVED_UNIT, librarySource, CacheState.FLUSHED);
-          }
-          sourceMap.put(removedSource, dartCopy);
-        }
-      }
+      flushLeastRecentlyUsed();
     }
   }
 
@@ -1200,6 +1593,81 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
     return null;
   }
 
+  /**
+   * Flush the AST structures associated with the given source from the cache.
+   * <p>
+   * <b>Note:</b> This method must only be invoked while we are synchronized on {@link #cacheLock}.
+   * 
+   * @param source the source whose AST structures are to be flushed
+   */
+  private void flushAstStructures(Source source) {
+    SourceEntry sourceEntry = sourceMap.get(source);
+    if (sourceEntry != null) {
+      SourceEntryImpl sourceCopy = sourceEntry.getWritableCopy();
+      sourceCopy.flushAstStructures();
+      putSourceEntry(source, sourceCopy);
+      cacheFlushCount++;
+    }
+  }
+
+  /**
+   * Flush the AST structures associated with the least recently used sources until the eviction
+   * policy no longer reports that the cache is over budget. The AST structures for the most
+   * recently used source are never flushed.
+   * <p>
+   * <b>Note:</b> This method must only be invoked while we are synchronized on {@link #cacheLock}.
+   */
+  private void flushLeastRecentlyUsed() {
+    Iterator<Map.Entry<Source, Long>> iterator = recentlyUsed.entrySet().iterator();
+    while (recentlyUsed.size() > 1
+        && evictionPolicy.isOverBudget(recentlyUsed.size(), recentlyUsedSize)) {
+      Map.Entry<Source, Long> entry = iterator.next();
+      iterator.remove();
+      recentlyUsedSize -= entry.getValue().longValue();
+      flushAstStructures(entry.getKey());
+    }
+  }
+
+  /**
+   * Return the number of characters at the beginning of the given strings that are the same in
+   * both.
+   * 
+   * @param first the first string being compared
+   * @param second the second string being compared
+   * @return the length of the longest common prefix of the given strings
+   */
+  private int getCommonPrefixLength(String first, String second) {
+    int firstLength = first.length();
+    int secondLength = second.length();
+    int prefixLength = 0;
+    while (prefixLength < firstLength && prefixLength < secondLength
+        && first.charAt(prefixLength) == second.charAt(prefixLength)) {
+      prefixLength++;
+    }
+    return prefixLength;
+  }
+
+  /**
+   * Return the number of characters at the end of the given strings that are the same in both and
+   * that do not overlap the common prefix of the given length.
+   * 
+   * @param first the first string being compared
+   * @param second the second string being compared
+   * @param prefixLength the length of the common prefix of the given strings
+   * @return the length of the longest common suffix of the given strings following the prefix
+   */
+  private int getCommonSuffixLength(String first, String second, int prefixLength) {
+    int firstLength = first.length();
+    int secondLength = second.length();
+    int suffixLength = 0;
+    while (suffixLength < firstLength - prefixLength && suffixLength < secondLength - prefixLength
+        && first.charAt(firstLength - suffixLength - 1) == second.charAt(secondLength
+            - suffixLength - 1)) {
+      suffixLength++;
+    }
+    return suffixLength;
+  }
+
   /**
    * Return the compilation unit information associated with the given source, or {@code null} if
    * the source is not known to this context. This method should be used to access the compilation
@@ -1216,7 +1684,8 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
     SourceEntry sourceEntry = getSourceEntry(source);
     if (sourceEntry == null) {
       sourceEntry = new DartEntryImpl();
-      sourceMap.put(source, sourceEntry);
+      putSourceEntry(source, sourceEntry);
+      workManager.add(source, SourcePriority.DART_PARSE);
       return (DartEntry) sourceEntry;
     } else if (sourceEntry instanceof DartEntry) {
       return (DartEntry) sourceEntry;
@@ -1224,6 +1693,36 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
     return null;
   }
 
+  /**
+   * Return the executor used to parse sources and resolve compilation units concurrently, creating
+   * it if necessary. Worker threads are daemon threads that terminate when they have been idle for a
+   * while, so contexts that are discarded without being explicitly shut down do not leak threads.
+   * <p>
+   * <b>Note:</b> This method must only be invoked while we are synchronized on {@link #cacheLock}.
+   * 
+   * @return the executor used to parse sources and resolve compilation units concurrently
+   */
+  private ThreadPoolExecutor getWorkerPool() {
+    if (workerPool == null) {
+      workerPool = new ThreadPoolExecutor(
+          workerCount,
+          workerCount,
+          WORKER_KEEP_ALIVE_SECONDS,
+          TimeUnit.SECONDS,
+          new LinkedBlockingQueue<Runnable>(),
+          new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+              Thread thread = new Thread(runnable, "Analysis worker");
+              thread.setDaemon(true);
+              return thread;
+            }
+          });
+      workerPool.allowCoreThreadTimeOut(true);
+    }
+    return workerPool;
+  }
+
   /**
    * Return the HTML unit information associated with the given source, or {@code null} if the
    * source is not known to this context. This method should be used to access the HTML unit
@@ -1240,7 +1739,8 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
     SourceEntry sourceEntry = getSourceEntry(source);
     if (sourceEntry == null) {
       sourceEntry = new HtmlEntryImpl();
-      sourceMap.put(source, sourceEntry);
+      putSourceEntry(source, sourceEntry);
+      workManager.add(source, SourcePriority.HTML);
       return (HtmlEntry) sourceEntry;
     } else if (sourceEntry instanceof HtmlEntry) {
       return (HtmlEntry) sourceEntry;
@@ -1402,7 +1902,8 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
       dartCopy.setValue(SourceEntry.LINE_INFO, lineInfo);
       dartCopy.setValue(DartEntry.PARSED_UNIT, unit);
       dartCopy.setValue(DartEntry.PARSE_ERRORS, errors);
-      sourceMap.put(source, dartCopy);
+      putSourceEntry(source, dartCopy);
+      accessed(source);
       return dartCopy;
     } catch (AnalysisException exception) {
       DartEntryImpl dartCopy = ((DartEntry) sourceMap.get(source)).getWritableCopy();
@@ -1410,11 +1911,38 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
       dartCopy.setState(SourceEntry.LINE_INFO, CacheState.ERROR);
       dartCopy.setState(DartEntry.PARSED_UNIT, CacheState.ERROR);
       dartCopy.setState(DartEntry.PARSE_ERRORS, CacheState.ERROR);
-      sourceMap.put(source, dartCopy);
+      putSourceEntry(source, dartCopy);
       return dartCopy;
     }
   }
 
+  /**
+   * Scan and parse the given source without accessing the cache. This method is safe to invoke
+   * without being synchronized on {@link #cacheLock}.
+   * 
+   * @param source the source to be parsed
+   * @return the result of parsing the source
+   */
+  private ParseResult internalParse(Source source) {
+    ParseResult result = new ParseResult();
+    try {
+      RecordingErrorListener errorListener = new RecordingErrorListener();
+      ScanResult scanResult = internalScan(source, errorListener);
+      Parser parser = new Parser(source, errorListener);
+      CompilationUnit unit = parser.parseCompilationUnit(scanResult.token);
+      LineInfo lineInfo = new LineInfo(scanResult.lineStarts);
+      AnalysisError[] errors = errorListener.getErrors(source);
+      unit.setParsingErrors(errors);
+      unit.setLineInfo(lineInfo);
+      result.unit = unit;
+      result.lineInfo = lineInfo;
+      result.errors = errors;
+    } catch (AnalysisException exception) {
+      result.exception = exception;
+    }
+    return result;
+  }
+
   private CompilationUnit internalParseCompilationUnit(DartEntryImpl dartCopy, Source source)
       throws AnalysisException {
     accessed(source);
@@ -1466,10 +1994,9 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
 
       @Override
       public void accept(String contents, long modificationTime) {
-        StringScanner scanner = new StringScanner(source, contents, errorListener);
+        // Contents are only provided as a string when they are overridden.
         result.modificationTime = modificationTime;
-        result.token = scanner.tokenize();
-        result.lineStarts = scanner.getLineStarts();
+        scanOverride(source, contents, errorListener, result);
       }
     };
     try {
@@ -1480,33 +2007,6 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
     return result;
   }
 
-  /**
-   * In response to a change to at least one of the compilation units in the given library,
-   * invalidate any results that are dependent on the result of resolving that library.
-   * 
-   * @param librarySource the source of the library being invalidated
-   */
-  private void invalidateLibraryResolution(Source librarySource) {
-    // TODO(brianwilkerson) This could be optimized. There's no need to flush all of these caches if
-    // the public namespace hasn't changed, which will be a fairly common case.
-    DartEntry libraryEntry = getDartEntry(librarySource);
-    if (libraryEntry != null) {
-      Source[] includedParts = libraryEntry.getValue(DartEntry.INCLUDED_PARTS);
-      DartEntryImpl libraryCopy = libraryEntry.getWritableCopy();
-      libraryCopy.invalidateAllResolutionInformation();
-      libraryCopy.setState(DartEntry.INCLUDED_PARTS, CacheState.INVALID);
-      sourceMap.put(librarySource, libraryCopy);
-      for (Source unitSource : includedParts) {
-        DartEntry partEntry = getDartEntry(unitSource);
-        if (partEntry != null) {
-          DartEntryImpl dartCopy = partEntry.getWritableCopy();
-          dartCopy.invalidateAllResolutionInformation();
-          sourceMap.put(unitSource, dartCopy);
-        }
-      }
-    }
-  }
-
   /**
    * Return {@code true} if this library is, or depends on, dart:html.
    * 
@@ -1538,94 +2038,371 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
   }
 
   /**
-   * Perform a single analysis task.
+   * Return the element model of the given library as read from the {@link #elementStore}, or
+   * {@code null} if the store does not contain an up-to-date element model for every library in the
+   * same import cycle. The libraries in the cycle are read and recorded together, along with the
+   * resolution errors of their compilation units.
    * <p>
    * <b>Note:</b> This method must only be invoked while we are synchronized on {@link #cacheLock}.
    * 
-   * @return {@code true} if work was done, implying that there might be more work to be done
+   * @param librarySource the source of the library whose element model is to be read
+   * @return the element model of the given library
    */
-  private boolean performSingleAnalysisTask() {
-    //
-    // Look for a source that needs to be parsed.
-    //
-    for (Map.Entry<Source, SourceEntry> entry : sourceMap.entrySet()) {
-      SourceEntry sourceEntry = entry.getValue();
-      if (sourceEntry instanceof DartEntry) {
-        DartEntry dartEntry = (DartEntry) sourceEntry;
-        CacheState parsedUnitState = dartEntry.getState(DartEntry.PARSED_UNIT);
-        if (parsedUnitState == CacheState.INVALID) {
-          try {
-            parseCompilationUnit(entry.getKey());
-          } catch (AnalysisException exception) {
-            DartEntryImpl dartCopy = ((DartEntry) entry.getValue()).getWritableCopy();
-            dartCopy.setState(DartEntry.PARSED_UNIT, CacheState.ERROR);
-            entry.setValue(dartCopy);
-            AnalysisEngine.getInstance().getLogger().logError(
-                "Could not parse " + entry.getKey().getFullName(),
-                exception);
-          }
-          return true;
+  private LibraryElement loadLibraryElement(Source librarySource) {
+    if (elementStore == null) {
+      return null;
+    }
+    Set<Source> cycle = signatureComputer.getLibrariesInCycle(librarySource);
+    String signature = signatureComputer.getSignature(librarySource);
+    ArrayList<byte[]> dataList = new ArrayList<byte[]>(cycle.size());
+    for (Source cycleSource : cycle) {
+      if (!cycleSource.equals(librarySource) && getLibraryElement(cycleSource) != null) {
+        // Part of the cycle has already been resolved, so let the resolver finish the rest of it.
+        return null;
+      }
+      byte[] data = elementStore.read(cycleSource);
+      if (data == null || !signature.equals(ElementReader.readSignature(data))) {
+        return null;
+      }
+      dataList.add(data);
+    }
+    try {
+      ElementReader reader = new ElementReader(this);
+      Map<Source, LibraryElement> elementMap = reader.readLibraries(dataList);
+      for (Source cycleSource : elementMap.keySet()) {
+        for (Map.Entry<Source, AnalysisError[]> entry : reader.getErrors(cycleSource).entrySet()) {
+          Source unitSource = entry.getKey();
+          recordResolutionErrors(
+              unitSource,
+              cycleSource,
+              entry.getValue(),
+              computeLineInfo(unitSource));
         }
-      } else if (sourceEntry instanceof HtmlEntry) {
-        HtmlEntry htmlEntry = (HtmlEntry) sourceEntry;
-        CacheState parsedUnitState = htmlEntry.getState(HtmlEntry.PARSED_UNIT);
-        if (parsedUnitState == CacheState.INVALID) {
-          try {
-            parseHtmlUnit(entry.getKey());
-          } catch (AnalysisException exception) {
-            HtmlEntryImpl htmlCopy = ((HtmlEntry) entry.getValue()).getWritableCopy();
-            htmlCopy.setState(HtmlEntry.PARSED_UNIT, CacheState.ERROR);
-            entry.setValue(htmlCopy);
-            AnalysisEngine.getInstance().getLogger().logError(
-                "Could not parse " + entry.getKey().getFullName(),
-                exception);
-          }
-          return true;
+      }
+      recordLibraryElements(elementMap);
+      return elementMap.get(librarySource);
+    } catch (AnalysisException exception) {
+      AnalysisEngine.getInstance().getLogger().logInformation(
+          "Could not read the element model of " + librarySource.getFullName(),
+          exception);
+      return null;
+    }
+  }
+
+  /**
+   * Perform the next analysis task required by the given source, if that task is appropriate for
+   * the priority with which the source was selected. Sources that were selected for parsing but
+   * that only need to be resolved are queued for resolution rather than being resolved immediately.
+   * <p>
+   * <b>Note:</b> This method must only be invoked while we are synchronized on {@link #cacheLock}.
+   * 
+   * @param source the source for which analysis is to be performed
+   * @param priority the priority with which the source was selected
+   * @return {@code true} if work was done
+   */
+  private boolean performAnalysisTaskFor(Source source, SourcePriority priority) {
+    SourceEntry sourceEntry = sourceMap.get(source);
+    if (sourceEntry instanceof DartEntry) {
+      DartEntry dartEntry = (DartEntry) sourceEntry;
+      if (dartEntry.getState(DartEntry.PARSED_UNIT) == CacheState.INVALID) {
+        try {
+          parseCompilationUnit(source);
+        } catch (AnalysisException exception) {
+          DartEntryImpl dartCopy = ((DartEntry) sourceMap.get(source)).getWritableCopy();
+          dartCopy.setState(DartEntry.PARSED_UNIT, CacheState.ERROR);
+          putSourceEntry(source, dartCopy);
+          AnalysisEngine.getInstance().getLogger().logError(
+              "Could not parse " + source.getFullName(),
+              exception);
+        }
+        scheduleWork(source, sourceMap.get(source));
+        return true;
+      }
+      if (dartEntry.getKind() == SourceKind.LIBRARY
+          && dartEntry.getState(DartEntry.ELEMENT) == CacheState.INVALID) {
+        if (priority == SourcePriority.DART_PARSE) {
+          workManager.add(source, SourcePriority.LIBRARY_RESOLUTION);
+          return false;
+        }
+        try {
+          computeLibraryElement(source);
+        } catch (AnalysisException exception) {
+          DartEntryImpl dartCopy = ((DartEntry) sourceMap.get(source)).getWritableCopy();
+          dartCopy.setState(DartEntry.ELEMENT, CacheState.ERROR);
+          putSourceEntry(source, dartCopy);
+          AnalysisEngine.getInstance().getLogger().logError(
+              "Could not resolve " + source.getFullName(),
+              exception);
+        }
+        return true;
+      }
+    } else if (sourceEntry instanceof HtmlEntry) {
+      HtmlEntry htmlEntry = (HtmlEntry) sourceEntry;
+      if (htmlEntry.getState(HtmlEntry.PARSED_UNIT) == CacheState.INVALID) {
+        try {
+          parseHtmlUnit(source);
+        } catch (AnalysisException exception) {
+          HtmlEntryImpl htmlCopy = ((HtmlEntry) sourceMap.get(source)).getWritableCopy();
+          htmlCopy.setState(HtmlEntry.PARSED_UNIT, CacheState.ERROR);
+          putSourceEntry(source, htmlCopy);
+          AnalysisEngine.getInstance().getLogger().logError(
+              "Could not parse " + source.getFullName(),
+              exception);
+        }
+        scheduleWork(source, sourceMap.get(source));
+        return true;
+      }
+      if (htmlEntry.getState(HtmlEntry.RESOLVED_UNIT) == CacheState.INVALID) {
+        try {
+          resolveHtmlUnit(source);
+        } catch (AnalysisException exception) {
+          HtmlEntryImpl htmlCopy = ((HtmlEntry) sourceMap.get(source)).getWritableCopy();
+          htmlCopy.setState(HtmlEntry.RESOLVED_UNIT, CacheState.ERROR);
+          putSourceEntry(source, htmlCopy);
+          AnalysisEngine.getInstance().getLogger().logError(
+              "Could not resolve " + source.getFullName(),
+              exception);
         }
+        return true;
       }
     }
-    //
-    // Look for a library that needs to be resolved.
-    //
-    for (Map.Entry<Source, SourceEntry> entry : sourceMap.entrySet()) {
-      SourceEntry sourceEntry = entry.getValue();
-      if (sourceEntry instanceof DartEntry && sourceEntry.getKind() == SourceKind.LIBRARY) {
-        DartEntry dartEntry = (DartEntry) sourceEntry;
-        CacheState elementState = dartEntry.getState(DartEntry.ELEMENT);
-        if (elementState == CacheState.INVALID) {
-          try {
-            computeLibraryElement(entry.getKey());
-          } catch (AnalysisException exception) {
-            DartEntryImpl dartCopy = ((DartEntry) entry.getValue()).getWritableCopy();
-            dartCopy.setState(DartEntry.ELEMENT, CacheState.ERROR);
-            entry.setValue(dartCopy);
-            AnalysisEngine.getInstance().getLogger().logError(
-                "Could not resolve " + entry.getKey().getFullName(),
-                exception);
-          }
-          return true;
+    return false;
+  }
+
+  /**
+   * If this context is configured to use more than one worker thread, parse a batch of the Dart
+   * sources whose parsed compilation unit is invalid concurrently and record the results. Scanning
+   * and parsing are performed without holding {@link #cacheLock}, so the results for any source
+   * whose cache entry was replaced while it was being parsed (because it was changed, removed or
+   * parsed by another client) are discarded.
+   * <p>
+   * <b>Note:</b> This method must not be invoked while we are synchronized on {@link #cacheLock}.
+   * 
+   * @return {@code true} if a batch of sources was parsed
+   */
+  private boolean performConcurrentParseTask() {
+    ArrayList<Source> sources = new ArrayList<Source>();
+    ArrayList<SourceEntry> entries = new ArrayList<SourceEntry>();
+    ThreadPoolExecutor pool;
+    synchronized (cacheLock) {
+      if (workerCount <= 1) {
+        return false;
+      }
+      int batchSize = workerCount * PARSE_BATCH_SIZE_PER_WORKER;
+      while (sources.size() < batchSize) {
+        Source source = workManager.removeFirst(SourcePriority.DART_PARSE);
+        if (source == null) {
+          break;
         }
-      } else if (sourceEntry instanceof HtmlEntry) {
-        HtmlEntry htmlEntry = (HtmlEntry) sourceEntry;
-        CacheState resolvedUnitState = htmlEntry.getState(HtmlEntry.RESOLVED_UNIT);
-        if (resolvedUnitState == CacheState.INVALID) {
-          try {
-            resolveHtmlUnit(entry.getKey());
-          } catch (AnalysisException exception) {
-            HtmlEntryImpl htmlCopy = ((HtmlEntry) entry.getValue()).getWritableCopy();
-            htmlCopy.setState(HtmlEntry.RESOLVED_UNIT, CacheState.ERROR);
-            entry.setValue(htmlCopy);
-            AnalysisEngine.getInstance().getLogger().logError(
-                "Could not resolve " + entry.getKey().getFullName(),
-                exception);
+        SourceEntry sourceEntry = sourceMap.get(source);
+        if (sourceEntry instanceof DartEntry
+            && ((DartEntry) sourceEntry).getState(DartEntry.PARSED_UNIT) == CacheState.INVALID) {
+          sources.add(source);
+          entries.add(sourceEntry);
+        } else {
+          scheduleWork(source, sourceEntry);
+        }
+      }
+      if (sources.size() < 2) {
+        // There is no benefit to handing a single source to a worker thread.
+        for (Source source : sources) {
+          workManager.add(source, SourcePriority.DART_PARSE);
+        }
+        return false;
+      }
+      pool = getWorkerPool();
+    }
+    int sourceCount = sources.size();
+    ArrayList<Future<ParseResult>> futures = new ArrayList<Future<ParseResult>>(sourceCount);
+    for (final Source source : sources) {
+      futures.add(pool.submit(new Callable<ParseResult>() {
+        @Override
+        public ParseResult call() {
+          return internalParse(source);
+        }
+      }));
+    }
+    ParseResult[] results = new ParseResult[sourceCount];
+    for (int i = 0; i < sourceCount; i++) {
+      try {
+        results[i] = futures.get(i).get();
+      } catch (InterruptedException exception) {
+        Thread.currentThread().interrupt();
+        results[i] = new ParseResult();
+        results[i].exception = new AnalysisException(exception);
+      } catch (ExecutionException exception) {
+        results[i] = new ParseResult();
+        results[i].exception = new AnalysisException(exception.getCause());
+      }
+    }
+    synchronized (cacheLock) {
+      for (int i = 0; i < sourceCount; i++) {
+        Source source = sources.get(i);
+        SourceEntry sourceEntry = sourceMap.get(source);
+        if (sourceEntry != entries.get(i)) {
+          scheduleWork(source, sourceEntry);
+          continue;
+        }
+        ParseResult result = results[i];
+        DartEntryImpl dartCopy = ((DartEntry) sourceEntry).getWritableCopy();
+        if (result.exception == null) {
+          if (dartCopy.getState(DartEntry.SOURCE_KIND) == CacheState.INVALID) {
+            if (hasPartOfDirective(result.unit)) {
+              dartCopy.setValue(DartEntry.SOURCE_KIND, SourceKind.PART);
+            } else {
+              dartCopy.setValue(DartEntry.SOURCE_KIND, SourceKind.LIBRARY);
+            }
           }
+          dartCopy.setValue(SourceEntry.LINE_INFO, result.lineInfo);
+          dartCopy.setValue(DartEntry.PARSED_UNIT, result.unit);
+          dartCopy.setValue(DartEntry.PARSE_ERRORS, result.errors);
+        } else {
+          dartCopy.setState(SourceEntry.LINE_INFO, CacheState.ERROR);
+          dartCopy.setState(DartEntry.PARSED_UNIT, CacheState.ERROR);
+          dartCopy.setState(DartEntry.PARSE_ERRORS, CacheState.ERROR);
+          AnalysisEngine.getInstance().getLogger().logError(
+              "Could not parse " + source.getFullName(),
+              result.exception);
+        }
+        putSourceEntry(source, dartCopy);
+        accessed(source);
+        scheduleWork(source, dartCopy);
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Perform a single analysis task. Sources that are open in an editor are analyzed first, followed
+   * by sources that need to be parsed, libraries that need to be resolved and finally HTML files.
+   * <p>
+   * <b>Note:</b> This method must only be invoked while we are synchronized on {@link #cacheLock}.
+   * 
+   * @return {@code true} if work was done, implying that there might be more work to be done
+   */
+  private boolean performSingleAnalysisTask() {
+    for (Source source : workManager.getSources(SourcePriority.PRIORITY)) {
+      if (performAnalysisTaskFor(source, SourcePriority.PRIORITY)) {
+        return true;
+      }
+    }
+    for (SourcePriority priority : new SourcePriority[] {
+        SourcePriority.DART_PARSE, SourcePriority.LIBRARY_RESOLUTION, SourcePriority.HTML}) {
+      Source source = workManager.removeFirst(priority);
+      while (source != null) {
+        if (performAnalysisTaskFor(source, priority)) {
           return true;
         }
+        source = workManager.removeFirst(priority);
       }
     }
     return false;
   }
 
+  /**
+   * Record the given entry as the cached information for the given source. If the source is being
+   * tracked as recently used, the estimated size recorded for it is updated to reflect the entry,
+   * so that the sizes of AST structures that are flushed or invalidated without the source being
+   * accessed again are not still counted against the cache budget.
+   * <p>
+   * <b>Note:</b> This method must only be invoked while we are synchronized on {@link #cacheLock}.
+   * 
+   * @param source the source whose information is being recorded
+   * @param sourceEntry the information to be recorded for the source
+   */
+  private void putSourceEntry(Source source, SourceEntry sourceEntry) {
+    sourceMap.put(source, sourceEntry);
+    Long previousSize = recentlyUsed.get(source);
+    if (previousSize != null) {
+      long size = sourceEntry.getEstimatedAstSize();
+      recentlyUsed.put(source, Long.valueOf(size));
+      recentlyUsedSize += size - previousSize.longValue();
+    }
+  }
+
+  /**
+   * Stop tracking the AST structures associated with the given source as recently used, typically
+   * because they are no longer valid.
+   * <p>
+   * <b>Note:</b> This method must only be invoked while we are synchronized on {@link #cacheLock}.
+   * 
+   * @param source the source that is no longer to be tracked
+   */
+  private void removeRecentlyUsed(Source source) {
+    Long size = recentlyUsed.remove(source);
+    if (size != null) {
+      recentlyUsedSize -= size.longValue();
+    }
+  }
+
+  /**
+   * Update the cached results for the given Dart source to reflect a change to its contents, if the
+   * change is confined to a single function body and the source has been resolved in exactly one
+   * library. The new contents are parsed into a new compilation unit, only the changed function
+   * body is resolved, and the new unit replaces the cached resolved compilation unit, so that the
+   * cached unit, which might be in use by other threads, is never modified. No other source needs
+   * to be analyzed again. Return {@code true} if the results were updated, or {@code false} if the
+   * change needs to be handled by invalidating the results that depend on the source.
+   * <p>
+   * <b>Note:</b> This method must only be invoked while we are synchronized on {@link #cacheLock}.
+   * 
+   * @param source the source whose contents have changed
+   * @param offset the offset of the changed region in the contents before the change
+   * @param oldLength the number of characters that were replaced
+   * @param newLength the number of characters in the replacement text
+   * @return {@code true} if the cached results were updated
+   */
+  private boolean resolveIncrementally(Source source, int offset, int oldLength, int newLength) {
+    SourceEntry sourceEntry = sourceMap.get(source);
+    if (!(sourceEntry instanceof DartEntry)) {
+      return false;
+    }
+    DartEntry dartEntry = (DartEntry) sourceEntry;
+    AnalysisError[] parseErrors = dartEntry.getValue(DartEntry.PARSE_ERRORS);
+    if (dartEntry.getState(DartEntry.PARSE_ERRORS) != CacheState.VALID || parseErrors.length > 0) {
+      return false;
+    }
+    Source[] containingLibraries = getLibrariesContaining(source);
+    if (containingLibraries.length != 1) {
+      return false;
+    }
+    Source librarySource = containingLibraries[0];
+    CompilationUnit oldUnit = dartEntry.getValue(DartEntry.RESOLVED_UNIT, librarySource);
+    LibraryElement libraryElement = getLibraryElement(librarySource);
+    LibraryElement coreElement = getLibraryElement(sourceFactory.forUri(DartSdk.DART_CORE));
+    if (oldUnit == null || libraryElement == null || coreElement == null) {
+      return false;
+    }
+    ParseResult parseResult = internalParse(source);
+    CompilationUnit newUnit = parseResult.unit;
+    if (newUnit == null || parseResult.errors.length > 0) {
+      return false;
+    }
+    IncrementalResolver resolver = new IncrementalResolver(
+        libraryElement,
+        source,
+        new TypeProviderImpl(coreElement),
+        inheritanceCache);
+    if (!resolver.resolve(oldUnit, newUnit, offset, oldLength, newLength)) {
+      return false;
+    }
+    signatureComputer.clear();
+    LineInfo lineInfo = parseResult.lineInfo;
+    DartEntryImpl dartCopy = dartEntry.getWritableCopy();
+    dartCopy.setValue(SourceEntry.LINE_INFO, lineInfo);
+    if (dartCopy.getState(DartEntry.PARSED_UNIT) == CacheState.VALID) {
+      // The parsed compilation unit was produced from the contents before the change.
+      dartCopy.setState(DartEntry.PARSED_UNIT, CacheState.FLUSHED);
+    }
+    dartCopy.setValue(DartEntry.RESOLVED_UNIT, librarySource, newUnit);
+    dartCopy.setValue(DartEntry.RESOLUTION_ERRORS, librarySource, newUnit.getResolutionErrors());
+    putSourceEntry(source, dartCopy);
+    ChangeNoticeImpl notice = getNotice(source);
+    notice.setCompilationUnit(newUnit);
+    notice.setErrors(dartCopy.getAllErrors(), lineInfo);
+    return true;
+  }
+
   private HtmlScanResult scanHtml(Source source) throws AnalysisException {
     HtmlScanner scanner = new HtmlScanner(source);
     try {
@@ -1636,6 +2413,102 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
     return scanner.getResult();
   }
 
+  /**
+   * Scan the given overriding contents of the given source. If the previous contents of the source
+   * were scanned without errors and the contents were changed by edits whose region was recorded,
+   * only the recorded region is rescanned. The contents are compared with the scanned and changed
+   * contents by identity, so that they never need to be compared character by character. This
+   * method is safe to invoke without being synchronized on {@link #cacheLock}.
+   * 
+   * @param source the source whose contents are being scanned
+   * @param contents the overriding contents of the source
+   * @param errorListener the error listener that will be informed of any errors that are found
+   * @param result the result to be updated with the scanned tokens and line starts
+   */
+  private void scanOverride(Source source, String contents, AnalysisErrorListener errorListener,
+      ScanResult result) {
+    synchronized (overrideScanResults) {
+      ScanResult previousResult = overrideScanResults.remove(source);
+      RecordingErrorListener scanErrors = new RecordingErrorListener();
+      Token token;
+      int[] lineStarts;
+      PackedTokenBuffer packedTokens = null;
+      if (previousResult != null && previousResult.changedContents == null
+          && previousResult.contents == contents) {
+        packedTokens = previousResult.packedTokens;
+        token = packedTokens.getFirstToken();
+        lineStarts = previousResult.lineStarts;
+      } else if (previousResult != null && previousResult.changedContents == contents) {
+        IncrementalScanner scanner = new IncrementalScanner(source, contents, scanErrors);
+        token = scanner.rescan(
+            previousResult.packedTokens.getFirstToken(),
+            previousResult.lineStarts,
+            previousResult.changeOffset,
+            previousResult.changeOldLength,
+            previousResult.changeNewLength);
+        lineStarts = scanner.getLineStarts();
+        if (scanErrors.getErrors(source).length == 0) {
+          // Only the rescanned tokens are packed; the others are copied from the previous buffer.
+          packedTokens = previousResult.packedTokens.update(
+              token,
+              scanner,
+              previousResult.changeNewLength - previousResult.changeOldLength);
+        }
+      } else {
+        // The region in which the contents changed is not known, so they are scanned in full.
+        StringScanner scanner = new StringScanner(source, contents, scanErrors);
+        token = scanner.tokenize();
+        lineStarts = scanner.getLineStarts();
+      }
+      AnalysisError[] errors = scanErrors.getErrors(source);
+      for (AnalysisError error : errors) {
+        errorListener.onError(error);
+      }
+      if (errors.length == 0) {
+        // The tokens are retained in packed form, which is not modified by the parser and is much
+        // smaller than the token stream.
+        if (packedTokens == null) {
+          packedTokens = new PackedTokenBuffer(token, lineStarts);
+        }
+        ScanResult retainedResult = new ScanResult();
+        retainedResult.modificationTime = result.modificationTime;
+        retainedResult.contents = contents;
+        retainedResult.packedTokens = packedTokens;
+        retainedResult.lineStarts = lineStarts;
+        overrideScanResults.put(source, retainedResult);
+      }
+      result.token = token;
+      result.lineStarts = lineStarts;
+    }
+  }
+
+  /**
+   * Add the given source to the work queue appropriate to the state of the given cache entry, if
+   * the entry indicates that more analysis work needs to be performed.
+   * <p>
+   * <b>Note:</b> This method must only be invoked while we are synchronized on {@link #cacheLock}.
+   * 
+   * @param source the source whose cache entry might need work
+   * @param sourceEntry the cache entry associated with the source
+   */
+  private void scheduleWork(Source source, SourceEntry sourceEntry) {
+    if (sourceEntry instanceof DartEntry) {
+      DartEntry dartEntry = (DartEntry) sourceEntry;
+      if (dartEntry.getState(DartEntry.PARSED_UNIT) == CacheState.INVALID) {
+        workManager.add(source, SourcePriority.DART_PARSE);
+      } else if (dartEntry.getKind() == SourceKind.LIBRARY
+          && dartEntry.getState(DartEntry.ELEMENT) == CacheState.INVALID) {
+        workManager.add(source, SourcePriority.LIBRARY_RESOLUTION);
+      }
+    } else if (sourceEntry instanceof HtmlEntry) {
+      HtmlEntry htmlEntry = (HtmlEntry) sourceEntry;
+      if (htmlEntry.getState(HtmlEntry.PARSED_UNIT) == CacheState.INVALID
+          || htmlEntry.getState(HtmlEntry.RESOLVED_UNIT) == CacheState.INVALID) {
+        workManager.add(source, SourcePriority.HTML);
+      }
+    }
+  }
+
   /**
    * Create an entry for the newly added source. Return {@code true} if the new source is a Dart
    * file.
@@ -1659,6 +2532,8 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
    * @param source the source that has been changed
    */
   private void sourceChanged(Source source) {
+    signatureComputer.clear();
+    removeRecentlyUsed(source);
     SourceEntry sourceEntry = sourceMap.get(source);
     if (sourceEntry instanceof HtmlEntry) {
       HtmlEntryImpl htmlCopy = ((HtmlEntry) sourceEntry).getWritableCopy();
@@ -1667,7 +2542,8 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
       htmlCopy.setState(HtmlEntry.PARSED_UNIT, CacheState.INVALID);
       htmlCopy.setState(HtmlEntry.REFERENCED_LIBRARIES, CacheState.INVALID);
       htmlCopy.setState(HtmlEntry.RESOLVED_UNIT, CacheState.INVALID);
-      sourceMap.put(source, htmlCopy);
+      putSourceEntry(source, htmlCopy);
+      workManager.add(source, SourcePriority.HTML);
     } else if (sourceEntry instanceof DartEntry) {
       Source[] containingLibraries = getLibrariesContaining(source);
       DartEntryImpl dartCopy = ((DartEntry) sourceEntry).getWritableCopy();
@@ -1675,7 +2551,8 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
       dartCopy.setState(DartEntry.PARSE_ERRORS, CacheState.INVALID);
       dartCopy.setState(DartEntry.PARSED_UNIT, CacheState.INVALID);
       dartCopy.setState(DartEntry.SOURCE_KIND, CacheState.INVALID);
-      sourceMap.put(source, dartCopy);
+      putSourceEntry(source, dartCopy);
+      workManager.add(source, SourcePriority.DART_PARSE);
       invalidateLibraryResolution(source);
       for (Source librarySource : containingLibraries) {
         invalidateLibraryResolution(librarySource);
@@ -1699,5 +2576,50 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
       }
     }
     sourceMap.remove(source);
+    workManager.remove(source);
+    removeRecentlyUsed(source);
+    signatureComputer.clear();
+  }
+
+  /**
+   * Write the element models of the given libraries, which have just been resolved, to the
+   * {@link #elementStore}. Libraries whose resolution errors are not all available, or whose element
+   * models cannot be serialized, are removed from the store instead.
+   * <p>
+   * <b>Note:</b> This method must only be invoked while we are synchronized on {@link #cacheLock}.
+   * 
+   * @param libraries the libraries that were resolved together
+   */
+  private void storeLibraryElements(Set<Library> libraries) {
+    if (elementStore == null || libraries == null) {
+      return;
+    }
+    for (Library library : libraries) {
+      Source librarySource = library.getLibrarySource();
+      HashMap<Source, AnalysisError[]> errorMap = new HashMap<Source, AnalysisError[]>();
+      for (Source unitSource : library.getCompilationUnitSources()) {
+        DartEntry unitEntry = getDartEntry(unitSource);
+        if (unitEntry != null
+            && unitEntry.getState(DartEntry.RESOLUTION_ERRORS, librarySource) == CacheState.VALID) {
+          errorMap.put(unitSource, unitEntry.getValue(DartEntry.RESOLUTION_ERRORS, librarySource));
+        }
+      }
+      LibraryElement element = getLibraryElement(librarySource);
+      if (element == null || errorMap.size() != library.getCompilationUnitSources().size()) {
+        elementStore.remove(librarySource);
+        continue;
+      }
+      try {
+        ElementWriter writer = new ElementWriter(
+            element,
+            signatureComputer.getSignature(librarySource));
+        elementStore.write(librarySource, writer.write(errorMap));
+      } catch (AnalysisException exception) {
+        elementStore.remove(librarySource);
+        AnalysisEngine.getInstance().getLogger().logInformation(
+            "Could not write the element model of " + librarySource.getFullName(),
+            exception);
+      }
+    }
   }
 }
@@ -337,6 +337,16 @@ public class DelegatingAnalysisContextImpl extends AnalysisContextImpl {
     }
   }
 
+  @Override
+  public void setChangedContents(Source source, String contents, int offset, int oldLength,
+      int newLength) {
+    if (source.isInSystemLibrary()) {
+      sdkAnalysisContext.setChangedContents(source, contents, offset, oldLength, newLength);
+    } else {
+      super.setChangedContents(source, contents, offset, oldLength, newLength);
+    }
+  }
+
   @Override
   public void setContents(Source source, String contents) {
     if (source.isInSystemLibrary()) {
@@ -12,7 +12,10 @@ import com.google.dart.engine.element.HtmlElement;
 import com.google.dart.engine.element.LibraryElement;
 import com.google.dart.engine.error.AnalysisError;
 import com.google.dart.engine.html.ast.HtmlUnit;
+import com.google.dart.engine.internal.cache.CacheEvictionPolicy;
+import com.google.dart.engine.internal.cache.CacheStatistics;
 import com.google.dart.engine.internal.cache.SourceEntry;
+import com.google.dart.engine.internal.resolver.InheritanceCache;
 import com.google.dart.engine.internal.scope.Namespace;
 import com.google.dart.engine.source.Source;
 import com.google.dart.engine.source.SourceContainer;
@@ -199,6 +202,11 @@ public class InstrumentedAnalysisContextImpl implements InternalAnalysisContext
     return basis;
   }
 
+  @Override
+  public CacheStatistics getCacheStatistics() {
+    return basis.getCacheStatistics();
+  }
+
   @Override
   public Element getElement(ElementLocation location) {
     InstrumentationBuilder instrumentation = Instrumentation.builder("Analysis-getElement");
@@ -266,6 +274,11 @@ public class InstrumentedAnalysisContextImpl implements InternalAnalysisContext
     }
   }
 
+  @Override
+  public InheritanceCache getInheritanceCache() {
+    return basis.getInheritanceCache();
+  }
+
   @Override
   public SourceKind getKindOf(Source source) {
     InstrumentationBuilder instrumentation = Instrumentation.builder("Analysis-getKindOf");
@@ -402,6 +415,11 @@ public class InstrumentedAnalysisContextImpl implements InternalAnalysisContext
     }
   }
 
+  @Override
+  public void invalidateLibraryResolution(Source librarySource) {
+    basis.invalidateLibraryResolution(librarySource);
+  }
+
   @Override
   public boolean isClientLibrary(Source librarySource) {
     InstrumentationBuilder instrumentation = Instrumentation.builder("Analysis-isClientLibrary");
@@ -475,6 +493,15 @@ public class InstrumentedAnalysisContextImpl implements InternalAnalysisContext
       if (ret != null) {
         instrumentation.metric("ChangeNotice-count", ret.length);
       }
+      CacheStatistics statistics = basis.getCacheStatistics();
+      instrumentation.metric("Cache-hits", statistics.getHitCount());
+      instrumentation.metric("Cache-misses", statistics.getMissCount());
+      instrumentation.metric("Cache-flushes", statistics.getFlushCount());
+      instrumentation.metric("Cache-sources", statistics.getSourceCount());
+      instrumentation.metric("Cache-estimatedSize", statistics.getEstimatedSize());
+      InheritanceCache inheritanceCache = basis.getInheritanceCache();
+      instrumentation.metric("Inheritance-hits", inheritanceCache.getHitCount());
+      instrumentation.metric("Inheritance-recomputes", inheritanceCache.getComputeCount());
       return ret;
     } finally {
       instrumentation.log();
@@ -542,6 +569,23 @@ public class InstrumentedAnalysisContextImpl implements InternalAnalysisContext
     }
   }
 
+  @Override
+  public void setCacheEvictionPolicy(CacheEvictionPolicy policy) {
+    basis.setCacheEvictionPolicy(policy);
+  }
+
+  @Override
+  public void setChangedContents(Source source, String contents, int offset, int oldLength,
+      int newLength) {
+    InstrumentationBuilder instrumentation = Instrumentation.builder("Analysis-setChangedContents");
+    try {
+      instrumentation.metric("contextId", contextId);
+      basis.setChangedContents(source, contents, offset, oldLength, newLength);
+    } finally {
+      instrumentation.log();
+    }
+  }
+
   @Override
   public void setContents(Source source, String contents) {
     InstrumentationBuilder instrumentation = Instrumentation.builder("Analysis-setContents");
@@ -18,7 +18,10 @@ import com.google.dart.engine.context.AnalysisContext;
 import com.google.dart.engine.context.AnalysisException;
 import com.google.dart.engine.element.LibraryElement;
 import com.google.dart.engine.error.AnalysisError;
+import com.google.dart.engine.internal.cache.CacheEvictionPolicy;
+import com.google.dart.engine.internal.cache.CacheStatistics;
 import com.google.dart.engine.internal.cache.SourceEntry;
+import com.google.dart.engine.internal.resolver.InheritanceCache;
 import com.google.dart.engine.internal.scope.Namespace;
 import com.google.dart.engine.source.Source;
 import com.google.dart.engine.source.SourceContainer;
@@ -62,6 +65,22 @@ public interface InternalAnalysisContext extends AnalysisContext {
   public InternalAnalysisContext extractContextInto(SourceContainer container,
       InternalAnalysisContext newContext);
 
+  /**
+   * Return a snapshot of the counters describing how effectively the AST structures in this
+   * context's cache are being used.
+   * 
+   * @return a snapshot of the cache statistics for this context
+   */
+  public CacheStatistics getCacheStatistics();
+
+  /**
+   * Return the cache used to share the members inherited by classes between the inheritance
+   * managers of the libraries in this context.
+   * 
+   * @return the cache of inherited members for this context
+   */
+  public InheritanceCache getInheritanceCache();
+
   /**
    * Return a namespace containing mappings for all of the public names defined by the given
    * library.
@@ -81,6 +100,15 @@ public interface InternalAnalysisContext extends AnalysisContext {
    */
   public Namespace getPublicNamespace(Source source) throws AnalysisException;
 
+  /**
+   * Invalidate any results that are dependent on the result of resolving the given library, without
+   * discarding the results of scanning and parsing its compilation units. This is typically used
+   * when a library that the given library imports or exports has changed.
+   * 
+   * @param librarySource the source of the library whose resolution is no longer valid
+   */
+  public void invalidateLibraryResolution(Source librarySource);
+
   /**
    * Given a table mapping the source for the libraries represented by the corresponding elements to
    * the elements representing the libraries, record those mappings.
@@ -113,4 +141,12 @@ public interface InternalAnalysisContext extends AnalysisContext {
    */
   public void recordResolvedCompilationUnit(Source source, Source librarySource,
       CompilationUnit unit);
+
+  /**
+   * Set the policy used to decide when the AST structures associated with the least recently used
+   * sources should be flushed from this context's cache to the given policy.
+   * 
+   * @param policy the policy used to decide when AST structures should be flushed
+   */
+  public void setCacheEvictionPolicy(CacheEvictionPolicy policy);
 }
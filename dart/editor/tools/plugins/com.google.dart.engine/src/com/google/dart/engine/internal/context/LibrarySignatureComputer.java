@@ -0,0 +1,510 @@
+/*
+ * Copyright (c) 2013, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.internal.context;
+
+import com.google.dart.engine.ast.AdjacentStrings;
+import com.google.dart.engine.ast.CompilationUnit;
+import com.google.dart.engine.ast.Directive;
+import com.google.dart.engine.ast.PartDirective;
+import com.google.dart.engine.ast.SimpleStringLiteral;
+import com.google.dart.engine.ast.StringLiteral;
+import com.google.dart.engine.ast.UriBasedDirective;
+import com.google.dart.engine.context.AnalysisException;
+import com.google.dart.engine.sdk.DartSdk;
+import com.google.dart.engine.source.Source;
+import com.google.dart.engine.source.SourceFactory;
+
+import java.io.UnsupportedEncodingException;
+import java.nio.CharBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Instances of the class {@code LibrarySignatureComputer} compute signatures for the libraries in
+ * an analysis context. The signature of a library changes whenever the result of resolving the
+ * library could change: it is computed from the contents of every compilation unit in the library
+ * and in every other library in the same import cycle, together with the signatures of the
+ * libraries imported or exported by that cycle. Signatures are used to decide whether a persisted
+ * element model can be used in place of resolving a library.
+ * <p>
+ * The contents and directives of each source are remembered along with the modification stamp of
+ * the source, so computing signatures after a change only requires reading the sources that
+ * changed.
+ * <p>
+ * <b>Note:</b> Instances of this class are not thread-safe; the owning context must only use them
+ * while it is synchronized on its cache lock.
+ * 
+ * @coverage dart.engine
+ */
+public class LibrarySignatureComputer {
+  /**
+   * Instances of the class {@code SourceInfo} hold the information about a single source that is
+   * used to compute signatures.
+   */
+  private static class SourceInfo {
+    /**
+     * The modification stamp of the source when the information was computed.
+     */
+    private long modificationStamp;
+
+    /**
+     * A hash of the contents of the source.
+     */
+    private String contentHash;
+
+    /**
+     * The libraries imported or exported by the source, or {@code null} if they have not yet been
+     * computed.
+     */
+    private Source[] referencedLibraries;
+
+    /**
+     * The parts included by the source, or {@code null} if they have not yet been computed.
+     */
+    private Source[] parts;
+  }
+
+  /**
+   * Instances of the class {@code VisitFrame} record the progress of the visit of a single library
+   * while computing import cycles. Visits are tracked explicitly, rather than on the call stack, so
+   * that long chains of imports cannot overflow the stack.
+   */
+  private static class VisitFrame {
+    /**
+     * The source of the library being visited.
+     */
+    private final Source librarySource;
+
+    /**
+     * The libraries referenced by the library being visited.
+     */
+    private final Source[] referencedLibraries;
+
+    /**
+     * The index in {@link #referencedLibraries} of the next library to be visited.
+     */
+    private int nextIndex = 0;
+
+    VisitFrame(Source librarySource, Source[] referencedLibraries) {
+      this.librarySource = librarySource;
+      this.referencedLibraries = referencedLibraries;
+    }
+  }
+
+  /**
+   * A comparator that orders sources by their encoding, so that signatures do not depend on the
+   * order in which sources are encountered.
+   */
+  private static final Comparator<Source> SOURCE_COMPARATOR = new Comparator<Source>() {
+    @Override
+    public int compare(Source first, Source second) {
+      return first.getEncoding().compareTo(second.getEncoding());
+    }
+  };
+
+  /**
+   * The characters used to encode the bytes of a hash.
+   */
+  private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+  /**
+   * The hash used for sources whose contents cannot be read.
+   */
+  private static final String MISSING_CONTENT_HASH = "<missing>";
+
+  /**
+   * An empty array of sources.
+   */
+  private static final Source[] NO_SOURCES = new Source[0];
+
+  /**
+   * Return the value of the given string literal, or {@code null} if the literal contains an
+   * interpolation.
+   * 
+   * @param literal the string literal whose value is to be returned
+   * @return the value of the given string literal
+   */
+  private static String getStringValue(StringLiteral literal) {
+    if (literal instanceof SimpleStringLiteral) {
+      return ((SimpleStringLiteral) literal).getValue();
+    } else if (literal instanceof AdjacentStrings) {
+      StringBuilder builder = new StringBuilder();
+      for (StringLiteral string : ((AdjacentStrings) literal).getStrings()) {
+        String value = getStringValue(string);
+        if (value == null) {
+          return null;
+        }
+        builder.append(value);
+      }
+      return builder.toString();
+    }
+    return null;
+  }
+
+  /**
+   * Return a hexadecimal encoding of the SHA-1 digest of the given text.
+   * 
+   * @param text the text to be hashed
+   * @return the hash of the given text
+   */
+  private static String hash(String text) {
+    try {
+      byte[] digest = MessageDigest.getInstance("SHA-1").digest(text.getBytes("UTF-8"));
+      StringBuilder builder = new StringBuilder(digest.length * 2);
+      for (byte b : digest) {
+        builder.append(HEX_DIGITS[(b >> 4) & 0xF]);
+        builder.append(HEX_DIGITS[b & 0xF]);
+      }
+      return builder.toString();
+    } catch (NoSuchAlgorithmException exception) {
+      return text.length() + ":" + text.hashCode();
+    } catch (UnsupportedEncodingException exception) {
+      return text.length() + ":" + text.hashCode();
+    }
+  }
+
+  /**
+   * The context containing the libraries whose signatures are being computed.
+   */
+  private final InternalAnalysisContext context;
+
+  /**
+   * A table mapping sources to the information used to compute signatures.
+   */
+  private final HashMap<Source, SourceInfo> sourceInfoMap = new HashMap<Source, SourceInfo>();
+
+  /**
+   * A table mapping library sources to the signatures of the libraries. This table is cleared
+   * whenever a source in the context is changed.
+   */
+  private final HashMap<Source, String> signatureMap = new HashMap<Source, String>();
+
+  /**
+   * A table mapping library sources to the set of libraries in the same import cycle. This table is
+   * cleared whenever a source in the context is changed.
+   */
+  private final HashMap<Source, Set<Source>> cycleMap = new HashMap<Source, Set<Source>>();
+
+  /**
+   * A table mapping the libraries that have been visited during the current computation to the
+   * order in which they were visited.
+   */
+  private final HashMap<Source, Integer> visitIndexMap = new HashMap<Source, Integer>();
+
+  /**
+   * A table mapping the libraries that have been visited during the current computation to the
+   * smallest visit index of any library known to be reachable from them.
+   */
+  private final HashMap<Source, Integer> lowLinkMap = new HashMap<Source, Integer>();
+
+  /**
+   * The libraries that have been visited during the current computation but have not yet been
+   * assigned to an import cycle.
+   */
+  private final ArrayList<Source> stack = new ArrayList<Source>();
+
+  /**
+   * The sources in {@link #stack}.
+   */
+  private final HashSet<Source> stackSet = new HashSet<Source>();
+
+  /**
+   * Initialize a newly created computer to compute the signatures of libraries in the given
+   * context.
+   * 
+   * @param context the context containing the libraries whose signatures are being computed
+   */
+  public LibrarySignatureComputer(InternalAnalysisContext context) {
+    this.context = context;
+  }
+
+  /**
+   * Discard the signatures that have been computed. This must be invoked whenever a source in the
+   * context has been added, changed or removed, or when the source factory has been changed.
+   */
+  public void clear() {
+    signatureMap.clear();
+    cycleMap.clear();
+  }
+
+  /**
+   * Return the libraries in the same import cycle as the given library, including the library
+   * itself.
+   * 
+   * @param librarySource the source of the library
+   * @return the libraries in the same import cycle as the given library
+   */
+  public Set<Source> getLibrariesInCycle(Source librarySource) {
+    Set<Source> cycle = cycleMap.get(librarySource);
+    if (cycle == null) {
+      computeSignatures(librarySource);
+      cycle = cycleMap.get(librarySource);
+    }
+    return cycle;
+  }
+
+  /**
+   * Return the libraries imported or exported by the given library, including the core library if
+   * it is imported implicitly.
+   * 
+   * @param librarySource the source of the library
+   * @return the libraries imported or exported by the given library
+   */
+  public Source[] getReferencedLibraries(Source librarySource) {
+    SourceInfo info = getSourceInfo(librarySource);
+    if (info.referencedLibraries == null) {
+      computeDirectives(librarySource, info);
+    }
+    return info.referencedLibraries;
+  }
+
+  /**
+   * Return the signature of the given library.
+   * 
+   * @param librarySource the source of the library
+   * @return the signature of the given library
+   */
+  public String getSignature(Source librarySource) {
+    String signature = signatureMap.get(librarySource);
+    if (signature == null) {
+      computeSignatures(librarySource);
+      signature = signatureMap.get(librarySource);
+    }
+    return signature;
+  }
+
+  /**
+   * Compute the libraries and parts referenced by the given source.
+   * 
+   * @param source the source whose directives are to be computed
+   * @param info the information associated with the source
+   */
+  private void computeDirectives(Source source, SourceInfo info) {
+    CompilationUnit unit = null;
+    try {
+      unit = context.parseCompilationUnit(source);
+    } catch (AnalysisException exception) {
+      // The source does not exist or cannot be read, in which case it references nothing.
+    }
+    SourceFactory sourceFactory = context.getSourceFactory();
+    LinkedHashSet<Source> referencedLibraries = new LinkedHashSet<Source>();
+    ArrayList<Source> parts = new ArrayList<Source>();
+    boolean explicitlyImportsCore = false;
+    Source coreLibrarySource = sourceFactory.forUri(DartSdk.DART_CORE);
+    if (unit != null) {
+      for (Directive directive : unit.getDirectives()) {
+        if (directive instanceof UriBasedDirective) {
+          String uri = getStringValue(((UriBasedDirective) directive).getUri());
+          Source referencedSource = uri == null ? null
+              : sourceFactory.resolveUri(source, uri.trim());
+          if (referencedSource != null) {
+            if (directive instanceof PartDirective) {
+              parts.add(referencedSource);
+            } else {
+              referencedLibraries.add(referencedSource);
+              if (referencedSource.equals(coreLibrarySource)) {
+                explicitlyImportsCore = true;
+              }
+            }
+          }
+        }
+      }
+    }
+    if (!explicitlyImportsCore && coreLibrarySource != null && !coreLibrarySource.equals(source)) {
+      referencedLibraries.add(coreLibrarySource);
+    }
+    info.referencedLibraries = referencedLibraries.isEmpty() ? NO_SOURCES
+        : referencedLibraries.toArray(new Source[referencedLibraries.size()]);
+    info.parts = parts.isEmpty() ? NO_SOURCES : parts.toArray(new Source[parts.size()]);
+  }
+
+  /**
+   * Compute the signatures of the given library and of every library it depends on whose signature
+   * has not already been computed. The libraries are grouped into import cycles using Tarjan's
+   * strongly connected components algorithm, which produces the cycles in an order in which every
+   * cycle follows the cycles it depends on.
+   * 
+   * @param librarySource the source of the library whose signature is to be computed
+   */
+  private void computeSignatures(Source librarySource) {
+    try {
+      ArrayList<VisitFrame> frames = new ArrayList<VisitFrame>();
+      frames.add(startVisit(librarySource));
+      while (!frames.isEmpty()) {
+        VisitFrame frame = frames.get(frames.size() - 1);
+        if (frame.nextIndex < frame.referencedLibraries.length) {
+          Source referencedLibrary = frame.referencedLibraries[frame.nextIndex++];
+          if (signatureMap.containsKey(referencedLibrary)) {
+            continue;
+          }
+          Integer referencedIndex = visitIndexMap.get(referencedLibrary);
+          if (referencedIndex == null) {
+            frames.add(startVisit(referencedLibrary));
+          } else if (stackSet.contains(referencedLibrary)) {
+            updateLowLink(frame.librarySource, referencedIndex);
+          }
+        } else {
+          frames.remove(frames.size() - 1);
+          finishVisit(frame.librarySource);
+          if (!frames.isEmpty()) {
+            updateLowLink(
+                frames.get(frames.size() - 1).librarySource,
+                lowLinkMap.get(frame.librarySource));
+          }
+        }
+      }
+    } finally {
+      visitIndexMap.clear();
+      lowLinkMap.clear();
+      stack.clear();
+      stackSet.clear();
+    }
+  }
+
+  /**
+   * Finish visiting the given library, all of whose referenced libraries have been visited. If the
+   * library is the first library of an import cycle to have been visited, the cycle is recorded.
+   * 
+   * @param librarySource the source of the library being visited
+   */
+  private void finishVisit(Source librarySource) {
+    if (lowLinkMap.get(librarySource).equals(visitIndexMap.get(librarySource))) {
+      ArrayList<Source> cycle = new ArrayList<Source>();
+      Source member;
+      do {
+        member = stack.remove(stack.size() - 1);
+        stackSet.remove(member);
+        cycle.add(member);
+      } while (member != librarySource);
+      recordCycle(cycle);
+    }
+  }
+
+  /**
+   * Return a hash of the contents of the given source.
+   * 
+   * @param source the source whose contents are to be hashed
+   * @return a hash of the contents of the given source
+   */
+  private String getContentHash(Source source) {
+    final String[] hashHolder = new String[1];
+    try {
+      source.getContents(new Source.ContentReceiver() {
+        @Override
+        public void accept(CharBuffer contents, long modificationTime) {
+          hashHolder[0] = hash(contents.toString());
+        }
+
+        @Override
+        public void accept(String contents, long modificationTime) {
+          hashHolder[0] = hash(contents);
+        }
+      });
+    } catch (Exception exception) {
+      return MISSING_CONTENT_HASH;
+    }
+    return hashHolder[0] == null ? MISSING_CONTENT_HASH : hashHolder[0];
+  }
+
+  /**
+   * Return the up-to-date information associated with the given source.
+   * 
+   * @param source the source whose information is to be returned
+   * @return the information associated with the given source
+   */
+  private SourceInfo getSourceInfo(Source source) {
+    long modificationStamp = source.getModificationStamp();
+    SourceInfo info = sourceInfoMap.get(source);
+    if (info == null || info.modificationStamp != modificationStamp) {
+      info = new SourceInfo();
+      info.modificationStamp = modificationStamp;
+      info.contentHash = getContentHash(source);
+      sourceInfoMap.put(source, info);
+    }
+    return info;
+  }
+
+  /**
+   * Record the signature of the import cycle whose members are the given libraries.
+   * 
+   * @param cycle the libraries in the import cycle
+   */
+  private void recordCycle(ArrayList<Source> cycle) {
+    Collections.sort(cycle, SOURCE_COMPARATOR);
+    Set<Source> cycleSet = new HashSet<Source>(cycle);
+    ArrayList<Source> dependencies = new ArrayList<Source>();
+    StringBuilder builder = new StringBuilder();
+    for (Source library : cycle) {
+      Source[] referencedLibraries = getReferencedLibraries(library);
+      SourceInfo info = sourceInfoMap.get(library);
+      builder.append(library.getEncoding()).append('=').append(info.contentHash).append('\n');
+      Source[] parts = info.parts.clone();
+      Arrays.sort(parts, SOURCE_COMPARATOR);
+      for (Source part : parts) {
+        builder.append(part.getEncoding()).append('=').append(getSourceInfo(part).contentHash).append(
+            '\n');
+      }
+      for (Source referencedLibrary : referencedLibraries) {
+        if (!cycleSet.contains(referencedLibrary) && !dependencies.contains(referencedLibrary)) {
+          dependencies.add(referencedLibrary);
+        }
+      }
+    }
+    Collections.sort(dependencies, SOURCE_COMPARATOR);
+    for (Source dependency : dependencies) {
+      builder.append(dependency.getEncoding()).append(':').append(signatureMap.get(dependency)).append(
+          '\n');
+    }
+    String signature = hash(builder.toString());
+    for (Source library : cycle) {
+      signatureMap.put(library, signature);
+      cycleMap.put(library, cycleSet);
+    }
+  }
+
+  /**
+   * Start visiting the given library as part of computing import cycles.
+   * 
+   * @param librarySource the source of the library being visited
+   * @return the frame recording the progress of the visit
+   */
+  private VisitFrame startVisit(Source librarySource) {
+    Integer visitIndex = Integer.valueOf(visitIndexMap.size());
+    visitIndexMap.put(librarySource, visitIndex);
+    lowLinkMap.put(librarySource, visitIndex);
+    stack.add(librarySource);
+    stackSet.add(librarySource);
+    return new VisitFrame(librarySource, getReferencedLibraries(librarySource));
+  }
+
+  /**
+   * Record that the library with the given visit index is reachable from the given library.
+   * 
+   * @param librarySource the source of the library being visited
+   * @param reachableIndex the visit index of a library reachable from the library being visited
+   */
+  private void updateLowLink(Source librarySource, Integer reachableIndex) {
+    if (reachableIndex.intValue() < lowLinkMap.get(librarySource).intValue()) {
+      lowLinkMap.put(librarySource, reachableIndex);
+    }
+  }
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright (c) 2013, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.internal.context;
+
+/**
+ * The enumeration {@code SourcePriority} defines the priorities with which sources are selected
+ * for analysis. The enumeration constants are listed in decreasing order of priority.
+ * 
+ * @coverage dart.engine
+ */
+public enum SourcePriority {
+  /**
+   * Sources whose contents have been overridden, which are typically open in an editor. Sources with
+   * this priority remain in the queue until their contents are no longer overridden so that they are
+   * re-analyzed first every time they are invalidated.
+   */
+  PRIORITY,
+
+  /**
+   * Dart sources whose compilation unit needs to be parsed.
+   */
+  DART_PARSE,
+
+  /**
+   * Dart sources defining libraries that need to be resolved.
+   */
+  LIBRARY_RESOLUTION,
+
+  /**
+   * HTML sources that need to be parsed or resolved.
+   */
+  HTML;
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2013, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.internal.context;
+
+import com.google.dart.engine.source.Source;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+/**
+ * Instances of the class {@code WorkManager} maintain the sources that might need to have analysis
+ * work performed on them, organized by {@link SourcePriority priority}. Adding, removing and
+ * selecting sources are constant time operations, so an analysis context never needs to scan all of
+ * the sources it knows about in order to find the next task to perform.
+ * <p>
+ * A source being in a queue only means that work <i>might</i> be required; the state of the
+ * source's cache entry must be checked when it is selected.
+ * 
+ * @coverage dart.engine
+ */
+public class WorkManager {
+  /**
+   * A list containing the queues of sources, indexed by the ordinal of the priority of the sources
+   * in the queue.
+   */
+  private final List<LinkedHashSet<Source>> workQueues;
+
+  /**
+   * Initialize a newly created manager to have no work queued up.
+   */
+  public WorkManager() {
+    int queueCount = SourcePriority.values().length;
+    workQueues = new ArrayList<LinkedHashSet<Source>>(queueCount);
+    for (int i = 0; i < queueCount; i++) {
+      workQueues.add(new LinkedHashSet<Source>());
+    }
+  }
+
+  /**
+   * Record that the given source needs to be analyzed with the given priority. Adding a source that
+   * is already in the queue for the given priority has no effect.
+   * 
+   * @param source the source that needs to be analyzed
+   * @param priority the priority with which the source should be analyzed
+   */
+  public void add(Source source, SourcePriority priority) {
+    workQueues.get(priority.ordinal()).add(source);
+  }
+
+  /**
+   * Return an array containing the sources that are queued with the given priority, in the order in
+   * which they were added.
+   * 
+   * @param priority the priority of the sources to be returned
+   * @return the sources that are queued with the given priority
+   */
+  public Source[] getSources(SourcePriority priority) {
+    LinkedHashSet<Source> queue = workQueues.get(priority.ordinal());
+    return queue.toArray(new Source[queue.size()]);
+  }
+
+  /**
+   * Return {@code true} if there are no sources queued with any priority.
+   * 
+   * @return {@code true} if there are no sources queued with any priority
+   */
+  public boolean isEmpty() {
+    for (LinkedHashSet<Source> queue : workQueues) {
+      if (!queue.isEmpty()) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Remove the given source from all of the queues.
+   * 
+   * @param source the source that no longer needs to be analyzed
+   */
+  public void remove(Source source) {
+    for (LinkedHashSet<Source> queue : workQueues) {
+      queue.remove(source);
+    }
+  }
+
+  /**
+   * Remove the given source from the queue for the given priority.
+   * 
+   * @param source the source to be removed
+   * @param priority the priority with which the source was queued
+   */
+  public void remove(Source source, SourcePriority priority) {
+    workQueues.get(priority.ordinal()).remove(source);
+  }
+
+  /**
+   * Remove and return the source that has been queued the longest with the given priority, or
+   * {@code null} if there are no sources queued with the given priority.
+   * 
+   * @param priority the priority of the source to be returned
+   * @return the source that has been queued the longest with the given priority
+   */
+  public Source removeFirst(SourcePriority priority) {
+    Iterator<Source> iterator = workQueues.get(priority.ordinal()).iterator();
+    if (!iterator.hasNext()) {
+      return null;
+    }
+    Source source = iterator.next();
+    iterator.remove();
+    return source;
+  }
+
+  /**
+   * Return the number of sources queued with the given priority.
+   * 
+   * @param priority the priority of the sources to be counted
+   * @return the number of sources queued with the given priority
+   */
+  public int size(SourcePriority priority) {
+    return workQueues.get(priority.ordinal()).size();
+  }
+}
@@ -127,7 +127,9 @@ public class ElementLocationImpl implements ElementLocation {
         index++;
       }
     }
-    if (builder.length() > 0) {
+    if (length > 0) {
+      // The last component is empty if the encoding ends with a separator, as it does for the
+      // location of an unnamed constructor.
       components.add(builder.toString());
     }
     return components.toArray(new String[components.size()]);
@@ -0,0 +1,817 @@
+/*
+ * Copyright (c) 2013, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.internal.element;
+
+import com.google.dart.engine.ast.LibraryIdentifier;
+import com.google.dart.engine.ast.SimpleIdentifier;
+import com.google.dart.engine.context.AnalysisContext;
+import com.google.dart.engine.context.AnalysisException;
+import com.google.dart.engine.element.Annotation;
+import com.google.dart.engine.element.ClassElement;
+import com.google.dart.engine.element.CompilationUnitElement;
+import com.google.dart.engine.element.ConstructorElement;
+import com.google.dart.engine.element.Element;
+import com.google.dart.engine.element.ElementKind;
+import com.google.dart.engine.element.ExecutableElement;
+import com.google.dart.engine.element.ExportElement;
+import com.google.dart.engine.element.FieldElement;
+import com.google.dart.engine.element.FunctionElement;
+import com.google.dart.engine.element.FunctionTypeAliasElement;
+import com.google.dart.engine.element.ImportElement;
+import com.google.dart.engine.element.LabelElement;
+import com.google.dart.engine.element.LibraryElement;
+import com.google.dart.engine.element.LocalVariableElement;
+import com.google.dart.engine.element.MethodElement;
+import com.google.dart.engine.element.NamespaceCombinator;
+import com.google.dart.engine.element.ParameterElement;
+import com.google.dart.engine.element.PropertyAccessorElement;
+import com.google.dart.engine.element.PropertyInducingElement;
+import com.google.dart.engine.element.TopLevelVariableElement;
+import com.google.dart.engine.element.TypeVariableElement;
+import com.google.dart.engine.error.AnalysisError;
+import com.google.dart.engine.error.ErrorCode;
+import com.google.dart.engine.internal.constant.EvaluationResultImpl;
+import com.google.dart.engine.internal.constant.ValidResult;
+import com.google.dart.engine.internal.type.BottomTypeImpl;
+import com.google.dart.engine.internal.type.DynamicTypeImpl;
+import com.google.dart.engine.internal.type.FunctionTypeImpl;
+import com.google.dart.engine.internal.type.InterfaceTypeImpl;
+import com.google.dart.engine.internal.type.TypeVariableTypeImpl;
+import com.google.dart.engine.internal.type.VoidTypeImpl;
+import com.google.dart.engine.scanner.StringToken;
+import com.google.dart.engine.scanner.TokenType;
+import com.google.dart.engine.source.Source;
+import com.google.dart.engine.type.FunctionType;
+import com.google.dart.engine.type.InterfaceType;
+import com.google.dart.engine.type.Type;
+import com.google.dart.engine.utilities.dart.ParameterKind;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Instances of the class {@code ElementReader} restore the element models of libraries that were
+ * serialized by an {@link ElementWriter}. The libraries in an import cycle must be read together
+ * because they refer to each other's elements. Elements in libraries that are not being read are
+ * found by following their {@link com.google.dart.engine.element.ElementLocation locations} from
+ * the library elements computed by the context, so those libraries must not themselves depend on
+ * any of the libraries being read.
+ * 
+ * @coverage dart.engine.element
+ */
+public class ElementReader {
+  /**
+   * Instances of the class {@code LibraryData} hold the state associated with one of the libraries
+   * being read.
+   */
+  private static class LibraryData {
+    /**
+     * The stream from which the library is being read.
+     */
+    private final DataInputStream input;
+
+    /**
+     * The library that was read.
+     */
+    private LibraryElementImpl library;
+
+    /**
+     * The elements in the library, in the order of their identifiers.
+     */
+    private final ArrayList<ElementImpl> elements = new ArrayList<ElementImpl>();
+
+    /**
+     * The imports and exports in the library together with the encodings of the sources of the
+     * libraries they refer to.
+     */
+    private final IdentityHashMap<ElementImpl, String> librarySources = new IdentityHashMap<ElementImpl, String>();
+
+    /**
+     * A table mapping the sources of the compilation units in the library to the errors that were
+     * read for them.
+     */
+    private final HashMap<Source, AnalysisError[]> errorMap = new HashMap<Source, AnalysisError[]>();
+
+    /**
+     * Initialize a newly created holder to read from the given data.
+     * 
+     * @param data the data from which the library is to be read
+     */
+    private LibraryData(byte[] data) {
+      input = new DataInputStream(new ByteArrayInputStream(data));
+    }
+  }
+
+  /**
+   * Return the signature recorded in the given data, or {@code null} if the data was not written by
+   * the current version of {@link ElementWriter}.
+   * 
+   * @param data the data written by an {@link ElementWriter}
+   * @return the signature recorded in the given data
+   */
+  public static String readSignature(byte[] data) {
+    try {
+      DataInputStream input = new DataInputStream(new ByteArrayInputStream(data));
+      if (input.readInt() != ElementWriter.FORMAT_VERSION) {
+        return null;
+      }
+      return input.readUTF();
+    } catch (IOException exception) {
+      return null;
+    }
+  }
+
+  /**
+   * Return an identifier with the given name and offset.
+   * 
+   * @param name the name of the identifier
+   * @param offset the offset of the identifier
+   * @return an identifier with the given name and offset
+   */
+  private static SimpleIdentifier identifier(String name, int offset) {
+    return new SimpleIdentifier(new StringToken(TokenType.IDENTIFIER, name, offset));
+  }
+
+  /**
+   * The context in which the libraries are being read.
+   */
+  private final AnalysisContext context;
+
+  /**
+   * A table mapping the sources of the libraries being read to the data associated with them.
+   */
+  private final LinkedHashMap<Source, LibraryData> libraryMap = new LinkedHashMap<Source, LibraryData>();
+
+  /**
+   * The prefix that replaces the relative URI marker in the encodings that are read, or
+   * {@code null} if the data was written without a relative URI prefix.
+   */
+  private String relativeUriPrefix;
+
+  /**
+   * The data associated with the library currently being read.
+   */
+  private LibraryData current;
+
+  /**
+   * Initialize a newly created reader to read libraries into the given context.
+   * 
+   * @param context the context in which the libraries are being read
+   */
+  public ElementReader(AnalysisContext context) {
+    this.context = context;
+  }
+
+  /**
+   * Return a table mapping the sources of the compilation units in the library with the given
+   * source to the resolution errors that were read for them, or {@code null} if the library was not
+   * read by this reader.
+   * 
+   * @param librarySource the source of the library whose errors are to be returned
+   * @return the errors that were read for the compilation units in the library
+   */
+  public Map<Source, AnalysisError[]> getErrors(Source librarySource) {
+    LibraryData data = libraryMap.get(librarySource);
+    if (data == null) {
+      return null;
+    }
+    return data.errorMap;
+  }
+
+  /**
+   * Read the libraries serialized in the given data. Each element of the list must contain the data
+   * for one library, and the list must contain all of the libraries in an import cycle.
+   * 
+   * @param dataList the serialized forms of the libraries to be read
+   * @return a table mapping the sources of the libraries to the library elements that were read
+   * @throws AnalysisException if the data could not be read or refers to elements that do not exist
+   */
+  public Map<Source, LibraryElement> readLibraries(List<byte[]> dataList) throws AnalysisException {
+    try {
+      //
+      // Build the element tree of every library first, so that references between the libraries
+      // can be resolved.
+      //
+      for (byte[] bytes : dataList) {
+        current = new LibraryData(bytes);
+        if (current.input.readInt() != ElementWriter.FORMAT_VERSION) {
+          throw new AnalysisException("Unsupported element model version");
+        }
+        current.input.readUTF();
+        Source librarySource = readSource();
+        libraryMap.put(librarySource, current);
+        current.library = (LibraryElementImpl) readStructure();
+      }
+      for (LibraryData data : libraryMap.values()) {
+        for (Map.Entry<ElementImpl, String> entry : data.librarySources.entrySet()) {
+          LibraryElement library = getLibrary(entry.getValue());
+          if (entry.getKey() instanceof ImportElementImpl) {
+            ((ImportElementImpl) entry.getKey()).setImportedLibrary(library);
+          } else {
+            ((ExportElementImpl) entry.getKey()).setExportedLibrary(library);
+          }
+        }
+      }
+      //
+      // Then resolve the references to types and elements.
+      //
+      for (LibraryData data : libraryMap.values()) {
+        current = data;
+        for (ElementImpl element : data.elements) {
+          readReferences(element);
+        }
+      }
+      for (LibraryData data : libraryMap.values()) {
+        current = data;
+        readErrors();
+      }
+    } catch (IOException exception) {
+      throw new AnalysisException("Could not read element model", exception);
+    } catch (RuntimeException exception) {
+      throw new AnalysisException("Could not read element model", exception);
+    } finally {
+      current = null;
+    }
+    LinkedHashMap<Source, LibraryElement> elementMap = new LinkedHashMap<Source, LibraryElement>();
+    for (Map.Entry<Source, LibraryData> entry : libraryMap.entrySet()) {
+      elementMap.put(entry.getKey(), entry.getValue().library);
+    }
+    return elementMap;
+  }
+  /**
+   * Set the prefix that replaces the relative URI prefix that was used when the data was written to
+   * the given prefix.
+   * 
+   * @param prefix the prefix of the URIs of the sources being read
+   * @see ElementWriter#setRelativeUriPrefix(String)
+   */
+  public void setRelativeUriPrefix(String prefix) {
+    relativeUriPrefix = prefix;
+  }
+
+
+  /**
+   * Create an element of the class identified by the given tag.
+   * 
+   * @param tag the tag identifying the class of the element
+   * @param name the name of the element
+   * @param nameOffset the offset of the name of the element
+   * @return the element that was created
+   * @throws AnalysisException if the tag is not valid
+   * @throws IOException if the data could not be read
+   */
+  private ElementImpl createElement(byte tag, String name, int nameOffset)
+      throws AnalysisException, IOException {
+    switch (tag) {
+      case ElementWriter.TAG_CLASS:
+        return new ClassElementImpl(identifier(name, nameOffset));
+      case ElementWriter.TAG_COMPILATION_UNIT:
+        return new CompilationUnitElementImpl(name);
+      case ElementWriter.TAG_CONST_FIELD:
+        return new ConstFieldElementImpl(identifier(name, nameOffset));
+      case ElementWriter.TAG_CONST_LOCAL_VARIABLE:
+        return new ConstLocalVariableElementImpl(identifier(name, nameOffset));
+      case ElementWriter.TAG_CONST_PARAMETER:
+        return new ConstParameterElementImpl(identifier(name, nameOffset));
+      case ElementWriter.TAG_CONST_TOP_LEVEL_VARIABLE:
+        return new ConstTopLevelVariableElementImpl(identifier(name, nameOffset));
+      case ElementWriter.TAG_CONSTRUCTOR:
+        return new ConstructorElementImpl(identifier(name, nameOffset));
+      case ElementWriter.TAG_EXPORT:
+        return new ExportElementImpl();
+      case ElementWriter.TAG_FIELD:
+        return new FieldElementImpl(identifier(name, nameOffset));
+      case ElementWriter.TAG_FIELD_FORMAL_PARAMETER:
+        return new FieldFormalParameterElementImpl(identifier(name, nameOffset));
+      case ElementWriter.TAG_FUNCTION:
+        return new FunctionElementImpl(identifier(name, nameOffset));
+      case ElementWriter.TAG_FUNCTION_TYPE_ALIAS:
+        return new FunctionTypeAliasElementImpl(identifier(name, nameOffset));
+      case ElementWriter.TAG_IMPORT:
+        return new ImportElementImpl();
+      case ElementWriter.TAG_LABEL:
+        boolean onSwitchStatement = current.input.readBoolean();
+        boolean onSwitchMember = current.input.readBoolean();
+        return new LabelElementImpl(
+            identifier(name, nameOffset),
+            onSwitchStatement,
+            onSwitchMember);
+      case ElementWriter.TAG_LIBRARY:
+        LibraryIdentifier libraryName = null;
+        if (name.length() > 0) {
+          ArrayList<SimpleIdentifier> components = new ArrayList<SimpleIdentifier>();
+          for (String component : name.split("\\.")) {
+            components.add(identifier(component, nameOffset));
+          }
+          libraryName = new LibraryIdentifier(components);
+        }
+        return new LibraryElementImpl(context, libraryName);
+      case ElementWriter.TAG_LOCAL_VARIABLE:
+        return new LocalVariableElementImpl(identifier(name, nameOffset));
+      case ElementWriter.TAG_METHOD:
+        return new MethodElementImpl(name, nameOffset);
+      case ElementWriter.TAG_PARAMETER:
+        return new ParameterElementImpl(identifier(name, nameOffset));
+      case ElementWriter.TAG_PREFIX:
+        return new PrefixElementImpl(identifier(name, nameOffset));
+      case ElementWriter.TAG_PROPERTY_ACCESSOR:
+        return new PropertyAccessorElementImpl(identifier(name, nameOffset));
+      case ElementWriter.TAG_TOP_LEVEL_VARIABLE:
+        return new TopLevelVariableElementImpl(identifier(name, nameOffset));
+      case ElementWriter.TAG_TYPE_VARIABLE:
+        return new TypeVariableElementImpl(identifier(name, nameOffset));
+    }
+    throw new AnalysisException("Invalid element tag: " + tag);
+  }
+
+  /**
+   * Return the element found by following the given location from the given library.
+   * 
+   * @param library the library containing the element
+   * @param kind the kind of the element
+   * @param encoding the encoding of the location of the element
+   * @return the element with the given location
+   * @throws AnalysisException if there is no element of the given kind at the given location
+   */
+  private Element findElement(LibraryElement library, String kind, String encoding)
+      throws AnalysisException {
+    if (kind.equals(ElementKind.LIBRARY.name())) {
+      return library;
+    }
+    String[] components = new ElementLocationImpl(resolveEncoding(encoding)).getComponents();
+    ElementImpl element = (ElementImpl) library;
+    for (int i = 1; i < components.length && element != null; i++) {
+      element = element.getChild(components[i]);
+    }
+    if (element == null || !element.getKind().name().equals(kind)) {
+      throw new AnalysisException("Could not find the element at " + encoding);
+    }
+    return element;
+  }
+
+  /**
+   * Return the library whose defining compilation unit has the source with the given encoding,
+   * either from the libraries being read or from the context.
+   * 
+   * @param encoding the encoding of the source of the library
+   * @return the library with the given source
+   * @throws AnalysisException if the library could not be computed
+   */
+  private LibraryElement getLibrary(String encoding) throws AnalysisException {
+    Source source = getSource(encoding);
+    LibraryData data = libraryMap.get(source);
+    if (data != null) {
+      return data.library;
+    }
+    LibraryElement library = context.computeLibraryElement(source);
+    if (library == null) {
+      throw new AnalysisException("Could not compute the library " + encoding);
+    }
+    return library;
+  }
+
+  /**
+   * Return the source with the given encoding.
+   * 
+   * @param encoding the encoding of the source
+   * @return the source with the given encoding
+   * @throws AnalysisException if there is no source with the given encoding
+   */
+  private Source getSource(String encoding) throws AnalysisException {
+    Source source = context.getSourceFactory().fromEncoding(resolveEncoding(encoding));
+    if (source == null) {
+      throw new AnalysisException("Could not create a source for " + encoding);
+    }
+    return source;
+  }
+
+  /**
+   * Read the namespace combinators associated with an import or export.
+   * 
+   * @return the combinators that were read
+   * @throws IOException if the data could not be read
+   */
+  private NamespaceCombinator[] readCombinators() throws IOException {
+    DataInputStream input = current.input;
+    int count = input.readInt();
+    NamespaceCombinator[] combinators = new NamespaceCombinator[count];
+    for (int i = 0; i < count; i++) {
+      byte kind = input.readByte();
+      String[] names = new String[input.readInt()];
+      for (int j = 0; j < names.length; j++) {
+        names[j] = input.readUTF();
+      }
+      if (kind == ElementWriter.COMBINATOR_HIDE) {
+        HideCombinatorImpl combinator = new HideCombinatorImpl();
+        combinator.setHiddenNames(names);
+        combinators[i] = combinator;
+      } else {
+        ShowCombinatorImpl combinator = new ShowCombinatorImpl();
+        combinator.setShownNames(names);
+        combinators[i] = combinator;
+      }
+    }
+    return combinators;
+  }
+
+  /**
+   * Read the structure of a list of elements.
+   * 
+   * @param array an array of the type to be returned whose length is zero
+   * @return the elements that were read
+   * @throws AnalysisException if the data is not valid
+   * @throws IOException if the data could not be read
+   */
+  @SuppressWarnings("unchecked")
+  private <E> E[] readElements(E[] array) throws AnalysisException, IOException {
+    int count = current.input.readInt();
+    ArrayList<E> children = new ArrayList<E>(count);
+    for (int i = 0; i < count; i++) {
+      children.add((E) readStructure());
+    }
+    return children.toArray(array);
+  }
+
+  /**
+   * Read the resolution errors associated with the compilation units in the current library.
+   * 
+   * @throws AnalysisException if the data is not valid
+   * @throws IOException if the data could not be read
+   */
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  private void readErrors() throws AnalysisException, IOException {
+    DataInputStream input = current.input;
+    int unitCount = input.readInt();
+    for (int i = 0; i < unitCount; i++) {
+      Source source = readSource();
+      AnalysisError[] errors = new AnalysisError[input.readInt()];
+      for (int j = 0; j < errors.length; j++) {
+        Class errorCodeClass = ElementWriter.ERROR_CODE_CLASSES[input.readByte()];
+        ErrorCode errorCode = (ErrorCode) Enum.valueOf(errorCodeClass, input.readUTF());
+        int offset = input.readInt();
+        int length = input.readInt();
+        errors[j] = new AnalysisError(errorCode, input.readUTF(), source, offset, length);
+      }
+      current.errorMap.put(source, errors);
+    }
+  }
+
+  /**
+   * Read the result of evaluating a constant.
+   * 
+   * @return the result that was read, or {@code null} if there is no result
+   * @throws AnalysisException if the data is not valid
+   * @throws IOException if the data could not be read
+   */
+  private EvaluationResultImpl readEvaluationResult() throws AnalysisException, IOException {
+    DataInputStream input = current.input;
+    byte tag = input.readByte();
+    if (tag == ElementWriter.VALUE_NONE) {
+      return null;
+    } else if (tag >= 0 && tag < ElementWriter.SHARED_RESULTS.length) {
+      return ElementWriter.SHARED_RESULTS[tag];
+    }
+    switch (tag) {
+      case ElementWriter.VALUE_BOOLEAN:
+        return new ValidResult(Boolean.valueOf(input.readBoolean()));
+      case ElementWriter.VALUE_DOUBLE:
+        return new ValidResult(Double.valueOf(input.readDouble()));
+      case ElementWriter.VALUE_ELEMENT:
+        return new ValidResult(readReference());
+      case ElementWriter.VALUE_INTEGER:
+        return new ValidResult(new BigInteger(input.readUTF()));
+      case ElementWriter.VALUE_STRING:
+        return new ValidResult(input.readUTF());
+    }
+    throw new AnalysisException("Invalid constant value tag: " + tag);
+  }
+
+  /**
+   * Read a list of interface types.
+   * 
+   * @return the types that were read
+   * @throws AnalysisException if the data is not valid
+   * @throws IOException if the data could not be read
+   */
+  private InterfaceType[] readInterfaceTypes() throws AnalysisException, IOException {
+    Type[] types = readTypes();
+    InterfaceType[] interfaceTypes = new InterfaceType[types.length];
+    for (int i = 0; i < types.length; i++) {
+      interfaceTypes[i] = (InterfaceType) types[i];
+    }
+    return interfaceTypes;
+  }
+
+  /**
+   * Read the source of a library that was written as part of the structure of an import or export,
+   * and record it so that the library can be associated with the import or export once all of the
+   * libraries being read have been built.
+   * 
+   * @param element the import or export referring to the library
+   * @throws IOException if the data could not be read
+   */
+  private void readLibrarySource(ElementImpl element) throws IOException {
+    if (current.input.readBoolean()) {
+      current.librarySources.put(element, current.input.readUTF());
+    }
+  }
+
+  /**
+   * Read a reference to an element.
+   * 
+   * @return the element that was referenced, or {@code null} if there is no element
+   * @throws AnalysisException if the referenced element could not be found
+   * @throws IOException if the data could not be read
+   */
+  private Element readReference() throws AnalysisException, IOException {
+    DataInputStream input = current.input;
+    byte tag = input.readByte();
+    switch (tag) {
+      case ElementWriter.REFERENCE_NULL:
+        return null;
+      case ElementWriter.REFERENCE_LOCAL:
+        return current.elements.get(input.readInt());
+      case ElementWriter.REFERENCE_EXTERNAL:
+        LibraryElement library = getLibrary(input.readUTF());
+        String kind = input.readUTF();
+        return findElement(library, kind, input.readUTF());
+    }
+    throw new AnalysisException("Invalid reference tag: " + tag);
+  }
+
+  /**
+   * Read the types and elements referenced by the given element.
+   * 
+   * @param element the element whose references are to be read
+   * @throws AnalysisException if the data is not valid
+   * @throws IOException if the data could not be read
+   */
+  private void readReferences(ElementImpl element) throws AnalysisException, IOException {
+    int metadataCount = current.input.readInt();
+    if (metadataCount > 0) {
+      Annotation[] metadata = new Annotation[metadataCount];
+      for (int i = 0; i < metadataCount; i++) {
+        metadata[i] = new AnnotationImpl(readReference());
+      }
+      element.setMetadata(metadata);
+    }
+    if (element instanceof LibraryElementImpl) {
+      ((LibraryElementImpl) element).setEntryPoint((FunctionElement) readReference());
+    } else if (element instanceof ClassElementImpl) {
+      ClassElementImpl classElement = (ClassElementImpl) element;
+      classElement.setType((InterfaceType) readType());
+      classElement.setSupertype((InterfaceType) readType());
+      classElement.setMixins(readInterfaceTypes());
+      classElement.setInterfaces(readInterfaceTypes());
+    } else if (element instanceof FunctionTypeAliasElementImpl) {
+      ((FunctionTypeAliasElementImpl) element).setType((FunctionType) readType());
+    } else if (element instanceof TypeVariableElementImpl) {
+      ((TypeVariableElementImpl) element).setBound(readType());
+    } else if (element instanceof ExecutableElementImpl) {
+      ((ExecutableElementImpl) element).setType((FunctionType) readType());
+      if (element instanceof ConstructorElementImpl) {
+        ((ConstructorElementImpl) element).setRedirectedConstructor((ConstructorElement) readReference());
+      } else if (element instanceof PropertyAccessorElementImpl) {
+        ((PropertyAccessorElementImpl) element).setVariable((PropertyInducingElement) readReference());
+      }
+    } else if (element instanceof VariableElementImpl) {
+      VariableElementImpl variable = (VariableElementImpl) element;
+      variable.setType(readType());
+      EvaluationResultImpl result = readEvaluationResult();
+      if (result != null) {
+        variable.setEvaluationResult(result);
+      }
+      if (element instanceof PropertyInducingElementImpl) {
+        PropertyInducingElementImpl property = (PropertyInducingElementImpl) element;
+        property.setGetter((PropertyAccessorElement) readReference());
+        property.setSetter((PropertyAccessorElement) readReference());
+      } else if (element instanceof FieldFormalParameterElementImpl) {
+        ((FieldFormalParameterElementImpl) element).setField((FieldElement) readReference());
+      }
+    }
+  }
+
+  /**
+   * Read the source whose encoding is next in the data.
+   * 
+   * @return the source that was read
+   * @throws AnalysisException if there is no source with the encoding that was read
+   * @throws IOException if the data could not be read
+   */
+  private Source readSource() throws AnalysisException, IOException {
+    return getSource(current.input.readUTF());
+  }
+
+  /**
+   * Read the structure of an element and its children.
+   * 
+   * @return the element that was read
+   * @throws AnalysisException if the data is not valid
+   * @throws IOException if the data could not be read
+   */
+  private ElementImpl readStructure() throws AnalysisException, IOException {
+    DataInputStream input = current.input;
+    byte tag = input.readByte();
+    String name = input.readUTF();
+    int nameOffset = input.readInt();
+    int modifiers = input.readInt();
+    ElementImpl element = createElement(tag, name, nameOffset);
+    element.setNameOffset(nameOffset);
+    for (Modifier modifier : Modifier.values()) {
+      element.setModifier(modifier, (modifiers & (1 << modifier.ordinal())) != 0);
+    }
+    current.elements.add(element);
+    switch (tag) {
+      case ElementWriter.TAG_LIBRARY:
+        LibraryElementImpl library = (LibraryElementImpl) element;
+        library.setDefiningCompilationUnit((CompilationUnitElement) readStructure());
+        library.setParts(readElements(new CompilationUnitElement[0]));
+        readElements(new PrefixElementImpl[0]);
+        library.setImports(readElements(new ImportElement[0]));
+        library.setExports(readElements(new ExportElement[0]));
+        break;
+      case ElementWriter.TAG_COMPILATION_UNIT:
+        CompilationUnitElementImpl unit = (CompilationUnitElementImpl) element;
+        unit.setSource(readSource());
+        unit.setAccessors(readElements(new PropertyAccessorElement[0]));
+        unit.setFunctions(readElements(new FunctionElement[0]));
+        unit.setTypeAliases(readElements(new FunctionTypeAliasElement[0]));
+        unit.setTypes(readElements(new ClassElement[0]));
+        unit.setTopLevelVariables(readElements(new TopLevelVariableElement[0]));
+        break;
+      case ElementWriter.TAG_CLASS:
+        ClassElementImpl classElement = (ClassElementImpl) element;
+        classElement.setTypeVariables(readElements(new TypeVariableElement[0]));
+        classElement.setFields(readElements(new FieldElement[0]));
+        classElement.setAccessors(readElements(new PropertyAccessorElement[0]));
+        classElement.setConstructors(readElements(new ConstructorElement[0]));
+        classElement.setMethods(readElements(new MethodElement[0]));
+        break;
+      case ElementWriter.TAG_FUNCTION_TYPE_ALIAS:
+        FunctionTypeAliasElementImpl alias = (FunctionTypeAliasElementImpl) element;
+        alias.setTypeVariables(readElements(new TypeVariableElement[0]));
+        alias.setParameters(readElements(new ParameterElement[0]));
+        break;
+      case ElementWriter.TAG_TYPE_VARIABLE:
+        TypeVariableElementImpl typeVariable = (TypeVariableElementImpl) element;
+        typeVariable.setType(new TypeVariableTypeImpl(typeVariable));
+        break;
+      case ElementWriter.TAG_CONSTRUCTOR:
+      case ElementWriter.TAG_FUNCTION:
+      case ElementWriter.TAG_METHOD:
+      case ElementWriter.TAG_PROPERTY_ACCESSOR:
+        ExecutableElementImpl executable = (ExecutableElementImpl) element;
+        executable.setFunctions(readElements(new FunctionElement[0]));
+        executable.setLabels(readElements(new LabelElement[0]));
+        executable.setLocalVariables(readElements(new LocalVariableElement[0]));
+        executable.setParameters(readElements(new ParameterElement[0]));
+        if (tag == ElementWriter.TAG_FUNCTION) {
+          ((FunctionElementImpl) element).setVisibleRange(input.readInt(), input.readInt());
+        } else if (tag == ElementWriter.TAG_PROPERTY_ACCESSOR && input.readBoolean()) {
+          // The synthetic variable induced by the accessor is not a child of any element.
+          readStructure();
+        }
+        break;
+      case ElementWriter.TAG_CONST_FIELD:
+      case ElementWriter.TAG_CONST_LOCAL_VARIABLE:
+      case ElementWriter.TAG_CONST_PARAMETER:
+      case ElementWriter.TAG_CONST_TOP_LEVEL_VARIABLE:
+      case ElementWriter.TAG_FIELD:
+      case ElementWriter.TAG_FIELD_FORMAL_PARAMETER:
+      case ElementWriter.TAG_LOCAL_VARIABLE:
+      case ElementWriter.TAG_PARAMETER:
+      case ElementWriter.TAG_TOP_LEVEL_VARIABLE:
+        VariableElementImpl variable = (VariableElementImpl) element;
+        if (input.readBoolean()) {
+          variable.setInitializer((FunctionElement) readStructure());
+        }
+        if (element instanceof LocalVariableElementImpl) {
+          ((LocalVariableElementImpl) element).setVisibleRange(input.readInt(), input.readInt());
+        } else if (element instanceof ParameterElementImpl) {
+          ParameterElementImpl parameter = (ParameterElementImpl) element;
+          parameter.setParameterKind(ParameterKind.valueOf(input.readUTF()));
+          parameter.setVisibleRange(input.readInt(), input.readInt());
+          parameter.setParameters(readElements(new ParameterElement[0]));
+        }
+        break;
+      case ElementWriter.TAG_IMPORT:
+        ImportElementImpl importElement = (ImportElementImpl) element;
+        int prefixId = input.readInt();
+        if (prefixId >= 0) {
+          importElement.setPrefix((PrefixElementImpl) current.elements.get(prefixId));
+        }
+        readLibrarySource(element);
+        importElement.setCombinators(readCombinators());
+        break;
+      case ElementWriter.TAG_EXPORT:
+        readLibrarySource(element);
+        ((ExportElementImpl) element).setCombinators(readCombinators());
+        break;
+      default:
+        // Labels and prefixes have no additional structure.
+        break;
+    }
+    return element;
+  }
+
+  /**
+   * Read a type.
+   * 
+   * @return the type that was read, or {@code null} if there is no type
+   * @throws AnalysisException if the data is not valid
+   * @throws IOException if the data could not be read
+   */
+  private Type readType() throws AnalysisException, IOException {
+    DataInputStream input = current.input;
+    byte tag = input.readByte();
+    switch (tag) {
+      case ElementWriter.TYPE_NULL:
+        return null;
+      case ElementWriter.TYPE_BOTTOM:
+        return BottomTypeImpl.getInstance();
+      case ElementWriter.TYPE_DYNAMIC:
+        return DynamicTypeImpl.getInstance();
+      case ElementWriter.TYPE_VOID:
+        return VoidTypeImpl.getInstance();
+      case ElementWriter.TYPE_INTERFACE:
+        InterfaceTypeImpl interfaceType = new InterfaceTypeImpl((ClassElement) readReference());
+        interfaceType.setTypeArguments(readTypes());
+        return interfaceType;
+      case ElementWriter.TYPE_FUNCTION:
+        Element element = readReference();
+        FunctionTypeImpl functionType;
+        if (element instanceof FunctionTypeAliasElement) {
+          functionType = new FunctionTypeImpl((FunctionTypeAliasElement) element);
+        } else {
+          functionType = new FunctionTypeImpl((ExecutableElement) element);
+        }
+        functionType.setTypeArguments(readTypes());
+        functionType.setReturnType(readType());
+        functionType.setNormalParameterTypes(readTypes());
+        functionType.setOptionalParameterTypes(readTypes());
+        int namedCount = input.readInt();
+        LinkedHashMap<String, Type> namedParameterTypes = new LinkedHashMap<String, Type>();
+        for (int i = 0; i < namedCount; i++) {
+          String name = input.readUTF();
+          namedParameterTypes.put(name, readType());
+        }
+        functionType.setNamedParameterTypes(namedParameterTypes);
+        return functionType;
+      case ElementWriter.TYPE_TYPE_VARIABLE:
+        TypeVariableElement typeVariable = (TypeVariableElement) readReference();
+        if (typeVariable.getType() != null) {
+          return typeVariable.getType();
+        }
+        return new TypeVariableTypeImpl(typeVariable);
+    }
+    throw new AnalysisException("Invalid type tag: " + tag);
+  }
+
+  /**
+   * Read a list of types.
+   * 
+   * @return the types that were read
+   * @throws AnalysisException if the data is not valid
+   * @throws IOException if the data could not be read
+   */
+  private Type[] readTypes() throws AnalysisException, IOException {
+    int count = current.input.readInt();
+    Type[] types = new Type[count];
+    for (int i = 0; i < count; i++) {
+      types[i] = readType();
+    }
+    return types;
+  }
+
+  /**
+   * Return the given encoding with the relative URI marker replaced by the relative URI prefix.
+   * 
+   * @param encoding the encoding that was read
+   * @return the encoding of the source or element location in the current environment
+   */
+  private String resolveEncoding(String encoding) {
+    if (relativeUriPrefix == null) {
+      return encoding;
+    }
+    return encoding.replace(ElementWriter.RELATIVE_URI_MARKER, relativeUriPrefix);
+  }
+}
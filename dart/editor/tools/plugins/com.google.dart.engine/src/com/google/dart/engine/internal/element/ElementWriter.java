@@ -0,0 +1,755 @@
+/*
+ * Copyright (c) 2013, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.internal.element;
+
+import com.google.dart.engine.context.AnalysisException;
+import com.google.dart.engine.element.Annotation;
+import com.google.dart.engine.element.CompilationUnitElement;
+import com.google.dart.engine.element.Element;
+import com.google.dart.engine.element.ExportElement;
+import com.google.dart.engine.element.HideCombinator;
+import com.google.dart.engine.element.ImportElement;
+import com.google.dart.engine.element.LibraryElement;
+import com.google.dart.engine.element.NamespaceCombinator;
+import com.google.dart.engine.element.PrefixElement;
+import com.google.dart.engine.element.PropertyInducingElement;
+import com.google.dart.engine.element.ShowCombinator;
+import com.google.dart.engine.error.AnalysisError;
+import com.google.dart.engine.error.CompileTimeErrorCode;
+import com.google.dart.engine.error.ErrorCode;
+import com.google.dart.engine.error.HtmlWarningCode;
+import com.google.dart.engine.error.StaticTypeWarningCode;
+import com.google.dart.engine.error.StaticWarningCode;
+import com.google.dart.engine.internal.constant.EvaluationResultImpl;
+import com.google.dart.engine.internal.constant.ValidResult;
+import com.google.dart.engine.internal.element.member.Member;
+import com.google.dart.engine.internal.type.BottomTypeImpl;
+import com.google.dart.engine.internal.type.DynamicTypeImpl;
+import com.google.dart.engine.internal.type.VoidTypeImpl;
+import com.google.dart.engine.parser.ParserErrorCode;
+import com.google.dart.engine.resolver.ResolverErrorCode;
+import com.google.dart.engine.scanner.ScannerErrorCode;
+import com.google.dart.engine.source.Source;
+import com.google.dart.engine.type.FunctionType;
+import com.google.dart.engine.type.InterfaceType;
+import com.google.dart.engine.type.Type;
+import com.google.dart.engine.type.TypeVariableType;
+import com.google.dart.engine.utilities.source.SourceRange;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Instances of the class {@code ElementWriter} serialize the element model of a single resolved
+ * library, together with the resolution errors that were reported for its compilation units, so
+ * that the library can later be restored by an {@link ElementReader} without being re-resolved.
+ * <p>
+ * The serialized form consists of a header, the structure of the element tree (written in a
+ * pre-order traversal that assigns each element a numeric identifier), the references from each
+ * element to types and other elements (written in identifier order), and the errors. References to
+ * elements in the same library are written as identifiers; references to elements in other
+ * libraries are written as the source of the library, the kind of the element and the encoding of
+ * its {@link com.google.dart.engine.element.ElementLocation location}.
+ * 
+ * @coverage dart.engine.element
+ */
+public class ElementWriter {
+  /**
+   * The version of the format written by this class. The version must be incremented whenever the
+   * format changes so that data written by earlier versions will be ignored.
+   */
+  public static final int FORMAT_VERSION = 1;
+
+  /**
+   * The classes of the error codes that can be associated with a persisted error.
+   */
+  static final Class<?>[] ERROR_CODE_CLASSES = {
+      CompileTimeErrorCode.class, HtmlWarningCode.class, ParserErrorCode.class,
+      ResolverErrorCode.class, ScannerErrorCode.class, StaticTypeWarningCode.class,
+      StaticWarningCode.class};
+
+  /**
+   * The results of evaluating a constant that are represented by the identity of the result rather
+   * than by its value.
+   */
+  static final ValidResult[] SHARED_RESULTS = {
+      ValidResult.RESULT_BOOL, ValidResult.RESULT_DYNAMIC, ValidResult.RESULT_FALSE,
+      ValidResult.RESULT_INT, ValidResult.RESULT_NULL, ValidResult.RESULT_NUM,
+      ValidResult.RESULT_OBJECT, ValidResult.RESULT_STRING, ValidResult.RESULT_TRUE};
+
+  //
+  // Tags identifying the class of each element.
+  //
+  static final byte TAG_CLASS = 1;
+  static final byte TAG_COMPILATION_UNIT = 2;
+  static final byte TAG_CONST_FIELD = 3;
+  static final byte TAG_CONST_LOCAL_VARIABLE = 4;
+  static final byte TAG_CONST_PARAMETER = 5;
+  static final byte TAG_CONST_TOP_LEVEL_VARIABLE = 6;
+  static final byte TAG_CONSTRUCTOR = 7;
+  static final byte TAG_EXPORT = 8;
+  static final byte TAG_FIELD = 9;
+  static final byte TAG_FIELD_FORMAL_PARAMETER = 10;
+  static final byte TAG_FUNCTION = 11;
+  static final byte TAG_FUNCTION_TYPE_ALIAS = 12;
+  static final byte TAG_IMPORT = 13;
+  static final byte TAG_LABEL = 14;
+  static final byte TAG_LIBRARY = 15;
+  static final byte TAG_LOCAL_VARIABLE = 16;
+  static final byte TAG_METHOD = 17;
+  static final byte TAG_PARAMETER = 18;
+  static final byte TAG_PREFIX = 19;
+  static final byte TAG_PROPERTY_ACCESSOR = 20;
+  static final byte TAG_TOP_LEVEL_VARIABLE = 21;
+  static final byte TAG_TYPE_VARIABLE = 22;
+
+  //
+  // Tags identifying the kind of a reference to an element.
+  //
+  static final byte REFERENCE_NULL = 0;
+  static final byte REFERENCE_LOCAL = 1;
+  static final byte REFERENCE_EXTERNAL = 2;
+
+  //
+  // Tags identifying the kind of a type.
+  //
+  static final byte TYPE_NULL = 0;
+  static final byte TYPE_BOTTOM = 1;
+  static final byte TYPE_DYNAMIC = 2;
+  static final byte TYPE_FUNCTION = 3;
+  static final byte TYPE_INTERFACE = 4;
+  static final byte TYPE_TYPE_VARIABLE = 5;
+  static final byte TYPE_VOID = 6;
+
+  //
+  // Tags identifying the kind of the value of a constant. Shared results are identified by their
+  // index in SHARED_RESULTS.
+  //
+  static final byte VALUE_NONE = -1;
+  static final byte VALUE_BOOLEAN = 100;
+  static final byte VALUE_DOUBLE = 101;
+  static final byte VALUE_ELEMENT = 102;
+  static final byte VALUE_INTEGER = 103;
+  static final byte VALUE_STRING = 104;
+
+  //
+  // Tags identifying the kind of a namespace combinator.
+  //
+  static final byte COMBINATOR_HIDE = 0;
+  static final byte COMBINATOR_SHOW = 1;
+
+  /**
+   * The string written in place of the relative URI prefix in the encodings of sources and element
+   * locations.
+   */
+  static final String RELATIVE_URI_MARKER = "\u0000";
+
+  /**
+   * Return the element that should be written in place of the given element. Members are replaced
+   * by the elements on which they are based.
+   * 
+   * @param element the element being referenced
+   * @return the element that should be written
+   */
+  private static Element getBaseElement(Element element) {
+    while (element instanceof Member) {
+      element = ((Member) element).getBaseElement();
+    }
+    return element;
+  }
+
+  /**
+   * The library being written.
+   */
+  private final LibraryElementImpl library;
+
+  /**
+   * The signature used to decide whether the written data is still valid.
+   */
+  private final String signature;
+
+  /**
+   * The prefix of the URIs that are written relative to the location of the data, or {@code null}
+   * if all URIs are written as they are.
+   */
+  private String relativeUriPrefix;
+
+  /**
+   * The stream to which the data is being written.
+   */
+  private DataOutputStream output;
+
+  /**
+   * A table mapping the elements in the library to their identifiers.
+   */
+  private final IdentityHashMap<Element, Integer> elementIds = new IdentityHashMap<Element, Integer>();
+
+  /**
+   * The elements in the library, in the order of their identifiers.
+   */
+  private final ArrayList<ElementImpl> elements = new ArrayList<ElementImpl>();
+
+  /**
+   * Initialize a newly created writer to write the given library.
+   * 
+   * @param library the library to be written
+   * @param signature the signature used to decide whether the written data is still valid
+   */
+  public ElementWriter(LibraryElement library, String signature) {
+    this.library = (LibraryElementImpl) library;
+    this.signature = signature;
+  }
+
+  /**
+   * Set the prefix of the URIs that are to be written relative to the location of the data to the
+   * given prefix. This allows data describing the libraries in a directory, such as the libraries
+   * in an SDK, to be read after the directory has been moved.
+   * 
+   * @param prefix the prefix of the URIs that are to be written as relative URIs
+   */
+  public void setRelativeUriPrefix(String prefix) {
+    relativeUriPrefix = prefix;
+  }
+
+  /**
+   * Return the serialized form of the library and of the given resolution errors.
+   * 
+   * @param errorMap a table mapping the sources of the compilation units in the library to the
+   *          resolution errors reported for them
+   * @return the serialized form of the library
+   * @throws AnalysisException if the library contains information that cannot be serialized
+   */
+  public byte[] write(Map<Source, AnalysisError[]> errorMap) throws AnalysisException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    output = new DataOutputStream(bytes);
+    elementIds.clear();
+    elements.clear();
+    try {
+      output.writeInt(FORMAT_VERSION);
+      output.writeUTF(signature);
+      writeEncoding(library.getSource().getEncoding());
+      writeStructure(library);
+      for (ElementImpl element : elements) {
+        writeReferences(element);
+      }
+      writeErrors(errorMap);
+      output.flush();
+    } catch (IOException exception) {
+      throw new AnalysisException("Could not write the element model of "
+          + library.getSource().getFullName(), exception);
+    } finally {
+      output = null;
+    }
+    return bytes.toByteArray();
+  }
+
+  /**
+   * Return the tag identifying the class of the given element.
+   * 
+   * @param element the element whose tag is to be returned
+   * @return the tag identifying the class of the given element
+   * @throws AnalysisException if the element cannot be serialized
+   */
+  private byte getTag(Element element) throws AnalysisException {
+    if (element instanceof ClassElementImpl) {
+      return TAG_CLASS;
+    } else if (element instanceof CompilationUnitElementImpl) {
+      return TAG_COMPILATION_UNIT;
+    } else if (element instanceof ConstFieldElementImpl) {
+      return TAG_CONST_FIELD;
+    } else if (element instanceof ConstLocalVariableElementImpl) {
+      return TAG_CONST_LOCAL_VARIABLE;
+    } else if (element instanceof ConstParameterElementImpl) {
+      return TAG_CONST_PARAMETER;
+    } else if (element instanceof ConstTopLevelVariableElementImpl) {
+      return TAG_CONST_TOP_LEVEL_VARIABLE;
+    } else if (element instanceof ConstructorElementImpl) {
+      return TAG_CONSTRUCTOR;
+    } else if (element instanceof ExportElementImpl) {
+      return TAG_EXPORT;
+    } else if (element instanceof FieldElementImpl) {
+      return TAG_FIELD;
+    } else if (element instanceof FieldFormalParameterElementImpl) {
+      return TAG_FIELD_FORMAL_PARAMETER;
+    } else if (element instanceof FunctionElementImpl) {
+      return TAG_FUNCTION;
+    } else if (element instanceof FunctionTypeAliasElementImpl) {
+      return TAG_FUNCTION_TYPE_ALIAS;
+    } else if (element instanceof ImportElementImpl) {
+      return TAG_IMPORT;
+    } else if (element instanceof LabelElementImpl) {
+      return TAG_LABEL;
+    } else if (element instanceof LibraryElementImpl) {
+      return TAG_LIBRARY;
+    } else if (element instanceof LocalVariableElementImpl) {
+      return TAG_LOCAL_VARIABLE;
+    } else if (element instanceof MethodElementImpl) {
+      return TAG_METHOD;
+    } else if (element instanceof ParameterElementImpl) {
+      return TAG_PARAMETER;
+    } else if (element instanceof PrefixElementImpl) {
+      return TAG_PREFIX;
+    } else if (element instanceof PropertyAccessorElementImpl) {
+      return TAG_PROPERTY_ACCESSOR;
+    } else if (element instanceof TopLevelVariableElementImpl) {
+      return TAG_TOP_LEVEL_VARIABLE;
+    } else if (element instanceof TypeVariableElementImpl) {
+      return TAG_TYPE_VARIABLE;
+    }
+    throw new AnalysisException("Cannot write elements of class " + element.getClass().getName());
+  }
+
+  /**
+   * Write the given namespace combinators.
+   * 
+   * @param combinators the combinators to be written
+   * @throws IOException if the data could not be written
+   */
+  private void writeCombinators(NamespaceCombinator[] combinators) throws IOException {
+    output.writeInt(combinators.length);
+    for (NamespaceCombinator combinator : combinators) {
+      String[] names;
+      if (combinator instanceof HideCombinator) {
+        output.writeByte(COMBINATOR_HIDE);
+        names = ((HideCombinator) combinator).getHiddenNames();
+      } else {
+        output.writeByte(COMBINATOR_SHOW);
+        names = ((ShowCombinator) combinator).getShownNames();
+      }
+      output.writeInt(names.length);
+      for (String name : names) {
+        output.writeUTF(name);
+      }
+    }
+  }
+
+  /**
+   * Write the structure of each of the given elements.
+   * 
+   * @param children the elements to be written
+   * @throws AnalysisException if one of the elements cannot be serialized
+   * @throws IOException if the data could not be written
+   */
+  private void writeElements(Element[] children) throws AnalysisException, IOException {
+    output.writeInt(children.length);
+    for (Element child : children) {
+      writeStructure(child);
+    }
+  }
+
+  /**
+   * Write the encoding of a source or of an element location, replacing the relative URI prefix if
+   * there is one.
+   * 
+   * @param encoding the encoding to be written
+   * @throws IOException if the data could not be written
+   */
+  private void writeEncoding(String encoding) throws IOException {
+    if (relativeUriPrefix != null) {
+      encoding = encoding.replace(relativeUriPrefix, RELATIVE_URI_MARKER);
+    }
+    output.writeUTF(encoding);
+  }
+
+  /**
+   * Write the resolution errors associated with each of the compilation units in the library.
+   * 
+   * @param errorMap a table mapping the sources of the compilation units to their errors
+   * @throws AnalysisException if one of the errors cannot be serialized
+   * @throws IOException if the data could not be written
+   */
+  private void writeErrors(Map<Source, AnalysisError[]> errorMap) throws AnalysisException,
+      IOException {
+    output.writeInt(errorMap.size());
+    for (Map.Entry<Source, AnalysisError[]> entry : errorMap.entrySet()) {
+      writeEncoding(entry.getKey().getEncoding());
+      AnalysisError[] errors = entry.getValue();
+      output.writeInt(errors.length);
+      for (AnalysisError error : errors) {
+        ErrorCode errorCode = error.getErrorCode();
+        int classIndex = -1;
+        for (int i = 0; i < ERROR_CODE_CLASSES.length; i++) {
+          if (ERROR_CODE_CLASSES[i] == errorCode.getClass()) {
+            classIndex = i;
+          }
+        }
+        if (classIndex < 0) {
+          throw new AnalysisException("Cannot write errors with codes of class "
+              + errorCode.getClass().getName());
+        }
+        output.writeByte(classIndex);
+        output.writeUTF(((Enum<?>) errorCode).name());
+        output.writeInt(error.getOffset());
+        output.writeInt(error.getLength());
+        output.writeUTF(error.getMessage());
+      }
+    }
+  }
+
+  /**
+   * Write the result of evaluating a constant.
+   * 
+   * @param result the result to be written
+   * @throws AnalysisException if the result cannot be serialized
+   * @throws IOException if the data could not be written
+   */
+  private void writeEvaluationResult(EvaluationResultImpl result) throws AnalysisException,
+      IOException {
+    if (result == null) {
+      output.writeByte(VALUE_NONE);
+      return;
+    } else if (!(result instanceof ValidResult)) {
+      // Errors refer to the AST nodes that caused them, and hence cannot be persisted.
+      throw new AnalysisException("Cannot write invalid constant values");
+    }
+    for (int i = 0; i < SHARED_RESULTS.length; i++) {
+      if (result == SHARED_RESULTS[i]) {
+        output.writeByte(i);
+        return;
+      }
+    }
+    Object value = ((ValidResult) result).getValue();
+    if (value instanceof Boolean) {
+      output.writeByte(VALUE_BOOLEAN);
+      output.writeBoolean(((Boolean) value).booleanValue());
+    } else if (value instanceof Double) {
+      output.writeByte(VALUE_DOUBLE);
+      output.writeDouble(((Double) value).doubleValue());
+    } else if (value instanceof Element) {
+      output.writeByte(VALUE_ELEMENT);
+      writeReference((Element) value);
+    } else if (value instanceof BigInteger) {
+      output.writeByte(VALUE_INTEGER);
+      output.writeUTF(value.toString());
+    } else if (value instanceof String) {
+      output.writeByte(VALUE_STRING);
+      output.writeUTF((String) value);
+    } else {
+      throw new AnalysisException("Cannot write constant values of class "
+          + (value == null ? "null" : value.getClass().getName()));
+    }
+  }
+
+  /**
+   * Write the source of the given library. Imported and exported libraries are written as part of
+   * the structure of the library, rather than as references, because the identifiers used in the
+   * locations of imports and exports are computed from the libraries they refer to.
+   * 
+   * @param library the library whose source is to be written, or {@code null} if there is no library
+   * @throws IOException if the data could not be written
+   */
+  private void writeLibrarySource(LibraryElement library) throws IOException {
+    output.writeBoolean(library != null);
+    if (library != null) {
+      writeEncoding(library.getSource().getEncoding());
+    }
+  }
+
+  /**
+   * Write a reference to the given element.
+   * 
+   * @param element the element being referenced, or {@code null} if there is no element
+   * @throws AnalysisException if the element cannot be referenced
+   * @throws IOException if the data could not be written
+   */
+  private void writeReference(Element element) throws AnalysisException, IOException {
+    element = getBaseElement(element);
+    if (element == null) {
+      output.writeByte(REFERENCE_NULL);
+      return;
+    }
+    Integer id = elementIds.get(element);
+    if (id != null) {
+      output.writeByte(REFERENCE_LOCAL);
+      output.writeInt(id.intValue());
+      return;
+    }
+    LibraryElement elementLibrary = element.getLibrary();
+    if (elementLibrary == null || elementLibrary == library) {
+      // The element is not part of the element tree, so there is no way to find it again.
+      throw new AnalysisException("Cannot write a reference to " + element);
+    }
+    output.writeByte(REFERENCE_EXTERNAL);
+    writeEncoding(elementLibrary.getSource().getEncoding());
+    output.writeUTF(element.getKind().name());
+    writeEncoding(element.getLocation().getEncoding());
+  }
+
+  /**
+   * Write the types and elements referenced by the given element.
+   * 
+   * @param element the element whose references are to be written
+   * @throws AnalysisException if one of the references cannot be serialized
+   * @throws IOException if the data could not be written
+   */
+  private void writeReferences(ElementImpl element) throws AnalysisException, IOException {
+    Annotation[] metadata = element.getMetadata();
+    output.writeInt(metadata.length);
+    for (Annotation annotation : metadata) {
+      writeReference(annotation.getElement());
+    }
+    if (element instanceof LibraryElementImpl) {
+      writeReference(((LibraryElementImpl) element).getEntryPoint());
+    } else if (element instanceof ClassElementImpl) {
+      ClassElementImpl classElement = (ClassElementImpl) element;
+      writeType(classElement.getType());
+      writeType(classElement.getSupertype());
+      writeTypes(classElement.getMixins());
+      writeTypes(classElement.getInterfaces());
+    } else if (element instanceof FunctionTypeAliasElementImpl) {
+      writeType(((FunctionTypeAliasElementImpl) element).getType());
+    } else if (element instanceof TypeVariableElementImpl) {
+      writeType(((TypeVariableElementImpl) element).getBound());
+    } else if (element instanceof ExecutableElementImpl) {
+      writeType(((ExecutableElementImpl) element).getType());
+      if (element instanceof ConstructorElementImpl) {
+        writeReference(((ConstructorElementImpl) element).getRedirectedConstructor());
+      } else if (element instanceof PropertyAccessorElementImpl) {
+        writeReference(((PropertyAccessorElementImpl) element).getVariable());
+      }
+    } else if (element instanceof VariableElementImpl) {
+      VariableElementImpl variable = (VariableElementImpl) element;
+      writeType(variable.getType());
+      writeEvaluationResult(variable.getEvaluationResult());
+      if (element instanceof PropertyInducingElementImpl) {
+        writeReference(((PropertyInducingElementImpl) element).getGetter());
+        writeReference(((PropertyInducingElementImpl) element).getSetter());
+      } else if (element instanceof FieldFormalParameterElementImpl) {
+        writeReference(((FieldFormalParameterElementImpl) element).getField());
+      }
+    }
+  }
+
+  /**
+   * Write the given range, or an empty range if there is no range.
+   * 
+   * @param range the range to be written
+   * @throws IOException if the data could not be written
+   */
+  private void writeSourceRange(SourceRange range) throws IOException {
+    if (range == null) {
+      output.writeInt(0);
+      output.writeInt(-1);
+    } else {
+      output.writeInt(range.getOffset());
+      output.writeInt(range.getLength());
+    }
+  }
+
+  /**
+   * Write the structure of the given element and its children, assigning an identifier to each.
+   * 
+   * @param element the element to be written
+   * @throws AnalysisException if the element cannot be serialized
+   * @throws IOException if the data could not be written
+   */
+  private void writeStructure(Element element) throws AnalysisException, IOException {
+    ElementImpl elementImpl = (ElementImpl) element;
+    if (elementIds.containsKey(element)) {
+      throw new AnalysisException("Element appears more than once in the element tree: " + element);
+    }
+    elementIds.put(element, Integer.valueOf(elements.size()));
+    elements.add(elementImpl);
+    byte tag = getTag(element);
+    output.writeByte(tag);
+    output.writeUTF(elementImpl.getDisplayName() == null ? "" : elementImpl.getDisplayName());
+    output.writeInt(elementImpl.getNameOffset());
+    int modifiers = 0;
+    for (Modifier modifier : Modifier.values()) {
+      if (elementImpl.hasModifier(modifier)) {
+        modifiers |= 1 << modifier.ordinal();
+      }
+    }
+    output.writeInt(modifiers);
+    switch (tag) {
+      case TAG_LIBRARY:
+        LibraryElementImpl libraryElement = (LibraryElementImpl) element;
+        writeStructure(libraryElement.getDefiningCompilationUnit());
+        writeElements(libraryElement.getParts());
+        PrefixElement[] prefixes = libraryElement.getPrefixes();
+        writeElements(prefixes);
+        ImportElement[] imports = libraryElement.getImports();
+        output.writeInt(imports.length);
+        for (ImportElement importElement : imports) {
+          writeStructure(importElement);
+        }
+        ExportElement[] exports = libraryElement.getExports();
+        output.writeInt(exports.length);
+        for (ExportElement exportElement : exports) {
+          writeStructure(exportElement);
+        }
+        break;
+      case TAG_COMPILATION_UNIT:
+        CompilationUnitElement unit = (CompilationUnitElement) element;
+        writeEncoding(unit.getSource().getEncoding());
+        writeElements(unit.getAccessors());
+        writeElements(unit.getFunctions());
+        writeElements(unit.getFunctionTypeAliases());
+        writeElements(unit.getTypes());
+        writeElements(unit.getTopLevelVariables());
+        break;
+      case TAG_CLASS:
+        ClassElementImpl classElement = (ClassElementImpl) element;
+        writeElements(classElement.getTypeVariables());
+        writeElements(classElement.getFields());
+        writeElements(classElement.getAccessors());
+        writeElements(classElement.getConstructors());
+        writeElements(classElement.getMethods());
+        break;
+      case TAG_FUNCTION_TYPE_ALIAS:
+        FunctionTypeAliasElementImpl alias = (FunctionTypeAliasElementImpl) element;
+        writeElements(alias.getTypeVariables());
+        writeElements(alias.getParameters());
+        break;
+      case TAG_CONSTRUCTOR:
+      case TAG_FUNCTION:
+      case TAG_METHOD:
+      case TAG_PROPERTY_ACCESSOR:
+        ExecutableElementImpl executable = (ExecutableElementImpl) element;
+        writeElements(executable.getFunctions());
+        writeElements(executable.getLabels());
+        writeElements(executable.getLocalVariables());
+        writeElements(executable.getParameters());
+        if (tag == TAG_FUNCTION) {
+          writeSourceRange(((FunctionElementImpl) element).getVisibleRange());
+        } else if (tag == TAG_PROPERTY_ACCESSOR) {
+          // The synthetic variables induced by top-level accessors are not children of any element,
+          // so they are written with the first accessor that refers to them.
+          PropertyInducingElement inducingVariable = ((PropertyAccessorElementImpl) element)
+              .getVariable();
+          boolean detached = inducingVariable != null
+              && inducingVariable.getEnclosingElement() == null
+              && !elementIds.containsKey(inducingVariable);
+          output.writeBoolean(detached);
+          if (detached) {
+            writeStructure(inducingVariable);
+          }
+        }
+        break;
+      case TAG_CONST_FIELD:
+      case TAG_CONST_LOCAL_VARIABLE:
+      case TAG_CONST_PARAMETER:
+      case TAG_CONST_TOP_LEVEL_VARIABLE:
+      case TAG_FIELD:
+      case TAG_FIELD_FORMAL_PARAMETER:
+      case TAG_LOCAL_VARIABLE:
+      case TAG_PARAMETER:
+      case TAG_TOP_LEVEL_VARIABLE:
+        VariableElementImpl variable = (VariableElementImpl) element;
+        Element initializer = variable.getInitializer();
+        output.writeBoolean(initializer != null);
+        if (initializer != null) {
+          writeStructure(initializer);
+        }
+        if (element instanceof LocalVariableElementImpl) {
+          writeSourceRange(((LocalVariableElementImpl) element).getVisibleRange());
+        } else if (element instanceof ParameterElementImpl) {
+          ParameterElementImpl parameter = (ParameterElementImpl) element;
+          output.writeUTF(parameter.getParameterKind().name());
+          writeSourceRange(parameter.getVisibleRange());
+          writeElements(parameter.getParameters());
+        }
+        break;
+      case TAG_LABEL:
+        LabelElementImpl label = (LabelElementImpl) element;
+        output.writeBoolean(label.isOnSwitchStatement());
+        output.writeBoolean(label.isOnSwitchMember());
+        break;
+      case TAG_IMPORT:
+        ImportElementImpl importElement = (ImportElementImpl) element;
+        PrefixElement prefix = importElement.getPrefix();
+        Integer prefixId = prefix == null ? null : elementIds.get(prefix);
+        if (prefix != null && prefixId == null) {
+          throw new AnalysisException("Import prefix is not defined in the library: " + prefix);
+        }
+        output.writeInt(prefixId == null ? -1 : prefixId.intValue());
+        writeLibrarySource(importElement.getImportedLibrary());
+        writeCombinators(importElement.getCombinators());
+        break;
+      case TAG_EXPORT:
+        ExportElementImpl exportElement = (ExportElementImpl) element;
+        writeLibrarySource(exportElement.getExportedLibrary());
+        writeCombinators(exportElement.getCombinators());
+        break;
+      default:
+        // Prefixes and type variables have no additional structure.
+        break;
+    }
+  }
+
+  /**
+   * Write the given type.
+   * 
+   * @param type the type to be written, or {@code null} if there is no type
+   * @throws AnalysisException if the type cannot be serialized
+   * @throws IOException if the data could not be written
+   */
+  private void writeType(Type type) throws AnalysisException, IOException {
+    if (type == null) {
+      output.writeByte(TYPE_NULL);
+    } else if (type == BottomTypeImpl.getInstance()) {
+      output.writeByte(TYPE_BOTTOM);
+    } else if (type == DynamicTypeImpl.getInstance()) {
+      output.writeByte(TYPE_DYNAMIC);
+    } else if (type == VoidTypeImpl.getInstance()) {
+      output.writeByte(TYPE_VOID);
+    } else if (type instanceof InterfaceType) {
+      InterfaceType interfaceType = (InterfaceType) type;
+      if (interfaceType.getElement() == null) {
+        throw new AnalysisException("Cannot write interface types without an element");
+      }
+      output.writeByte(TYPE_INTERFACE);
+      writeReference(interfaceType.getElement());
+      writeTypes(interfaceType.getTypeArguments());
+    } else if (type instanceof FunctionType) {
+      FunctionType functionType = (FunctionType) type;
+      output.writeByte(TYPE_FUNCTION);
+      writeReference(functionType.getElement());
+      writeTypes(functionType.getTypeArguments());
+      writeType(functionType.getReturnType());
+      writeTypes(functionType.getNormalParameterTypes());
+      writeTypes(functionType.getOptionalParameterTypes());
+      Map<String, Type> namedParameterTypes = functionType.getNamedParameterTypes();
+      output.writeInt(namedParameterTypes.size());
+      for (Map.Entry<String, Type> entry : namedParameterTypes.entrySet()) {
+        output.writeUTF(entry.getKey());
+        writeType(entry.getValue());
+      }
+    } else if (type instanceof TypeVariableType) {
+      output.writeByte(TYPE_TYPE_VARIABLE);
+      writeReference(type.getElement());
+    } else {
+      throw new AnalysisException("Cannot write types of class " + type.getClass().getName());
+    }
+  }
+
+  /**
+   * Write the given types.
+   * 
+   * @param types the types to be written
+   * @throws AnalysisException if one of the types cannot be serialized
+   * @throws IOException if the data could not be written
+   */
+  private void writeTypes(Type[] types) throws AnalysisException, IOException {
+    output.writeInt(types.length);
+    for (Type type : types) {
+      writeType(type);
+    }
+  }
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright 2013, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.internal.index;
+
+import com.google.dart.engine.element.Element;
+import com.google.dart.engine.index.Location;
+import com.google.dart.engine.index.Relationship;
+import com.google.dart.engine.index.RelationshipCallback;
+
+/**
+ * The interface {@code CachingRelationshipCallback} defines the behavior of relationship callbacks
+ * that keep the results of earlier queries. The callback is given the modification stamp of the
+ * index store, so that the store is only queried when it has been modified since the results were
+ * kept.
+ * 
+ * @coverage dart.engine.index
+ */
+public interface CachingRelationshipCallback extends RelationshipCallback {
+  /**
+   * This method is invoked before the index store is queried. If the callback has kept the
+   * locations that have the specified relationship with the specified element when the store had
+   * the given modification stamp, then it uses them and returns {@code true}, and the store is not
+   * queried.
+   * 
+   * @param element the {@link Element} that has the relationship with the locations
+   * @param relationship the relationship between the given element and the locations
+   * @param modificationStamp the current modification stamp of the index store
+   * @return {@code true} if the kept locations were used instead of querying the store
+   */
+  public boolean hasCachedRelationships(Element element, Relationship relationship,
+      long modificationStamp);
+
+  /**
+   * This method is invoked instead of {@link RelationshipCallback#hasRelationships} when the
+   * locations have been found in an index store with the given modification stamp.
+   * 
+   * @param element the {@link Element} that has the relationship with the locations
+   * @param relationship the relationship between the given element and the locations
+   * @param locations the locations that were found
+   * @param modificationStamp the modification stamp of the index store the locations were found in
+   */
+  public void hasRelationships(Element element, Relationship relationship, Location[] locations,
+      long modificationStamp);
+}
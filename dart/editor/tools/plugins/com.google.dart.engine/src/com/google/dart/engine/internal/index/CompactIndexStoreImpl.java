@@ -0,0 +1,782 @@
+/*
+ * Copyright (c) 2013, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.internal.index;
+
+import com.google.common.collect.MapMaker;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.dart.engine.context.AnalysisContext;
+import com.google.dart.engine.element.Element;
+import com.google.dart.engine.index.IndexStore;
+import com.google.dart.engine.index.Location;
+import com.google.dart.engine.index.Relationship;
+import com.google.dart.engine.internal.element.member.Member;
+import com.google.dart.engine.source.Source;
+import com.google.dart.engine.source.SourceContainer;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * {@link IndexStore} which keeps full index in memory, like {@link MemoryIndexStoreImpl}, but uses
+ * a compact representation. Elements, relationships and import prefixes are interned to integer
+ * identifiers, and the locations related to an element by a relationship are packed into a single
+ * {@code int} array rather than being kept as {@link ContributedLocation} and {@link Location}
+ * objects. {@link Location}s are only created when they are returned by
+ * {@link #getRelationships(Element, Relationship)}.
+ * <p>
+ * Each pair of an element and a relationship is assigned a key identifier. For each key there is
+ * an array of records, each of which holds the identifier of the element containing a location,
+ * the offset and length of the location, the identifier of its import prefix and the identifier of
+ * the source that contributed it. Each source remembers the keys it contributed records to, so that
+ * its records can be removed without visiting every key.
+ * 
+ * @coverage dart.engine.index
+ */
+public class CompactIndexStoreImpl implements IndexStore {
+  /**
+   * Instances of the class {@code SourceData} hold the information recorded for a single source.
+   */
+  private static class SourceData {
+    /**
+     * The identifier of the source, stored in the records contributed by it.
+     */
+    private final int id;
+
+    /**
+     * The identifiers of the keys to which the source contributed records.
+     */
+    private int[] keys = new int[16];
+
+    /**
+     * The number of identifiers in {@link #keys} that are used.
+     */
+    private int keyCount;
+
+    /**
+     * The identifiers of the elements declared in the source.
+     */
+    private int[] declaredElements = new int[4];
+
+    /**
+     * The number of identifiers in {@link #declaredElements} that are used.
+     */
+    private int declaredElementCount;
+
+    public SourceData(int id) {
+      this.id = id;
+    }
+
+    public void addDeclaredElement(int elementId) {
+      if (declaredElementCount == declaredElements.length) {
+        declaredElements = Arrays.copyOf(declaredElements, declaredElementCount * 2);
+      }
+      declaredElements[declaredElementCount++] = elementId;
+    }
+
+    public void addKey(int keyId) {
+      if (keyCount == keys.length) {
+        keys = Arrays.copyOf(keys, keyCount * 2);
+      }
+      keys[keyCount++] = keyId;
+    }
+  }
+
+  /**
+   * The identifier used to indicate that there is no element, and the value used to mark unused
+   * entries in the table of elements.
+   */
+  private static final int NO_ELEMENT = -1;
+
+  /**
+   * The value used to mark unused entries in the table of keys.
+   */
+  private static final long NO_KEY = -1L;
+
+  /**
+   * The number of {@code int}s in each record.
+   */
+  private static final int RECORD_SIZE = 5;
+
+  /**
+   * The position within a record of the identifier of the element containing the location.
+   */
+  private static final int RECORD_ELEMENT = 0;
+
+  /**
+   * The position within a record of the offset of the location.
+   */
+  private static final int RECORD_OFFSET = 1;
+
+  /**
+   * The position within a record of the length of the location.
+   */
+  private static final int RECORD_LENGTH = 2;
+
+  /**
+   * The position within a record of the identifier of the import prefix of the location.
+   */
+  private static final int RECORD_PREFIX = 3;
+
+  /**
+   * The position within a record of the identifier of the source that contributed the location.
+   */
+  private static final int RECORD_SOURCE = 4;
+
+  private static final Object WEAK_SET_VALUE = new Object();
+
+  /**
+   * Return the hash code of the given element. {@link NameElementImpl}s are compared by equality,
+   * all other elements are compared by identity.
+   */
+  private static int hash(Element element) {
+    int hash = element instanceof NameElementImpl ? element.hashCode()
+        : System.identityHashCode(element);
+    hash *= 0x9E3779B9;
+    return hash ^ (hash >>> 16);
+  }
+
+  /**
+   * Return the hash code of the given key.
+   */
+  private static int hash(long key) {
+    long hash = (key ^ (key >>> 32)) * 0x9E3779B97F4A7C15L;
+    return (int) (hash >>> 32);
+  }
+
+  /**
+   * Return {@code true} if the given interned element represents the given element.
+   */
+  private static boolean isSameElement(Element internedElement, Element element) {
+    if (element instanceof NameElementImpl) {
+      return element.equals(internedElement);
+    }
+    return internedElement == element;
+  }
+
+  /**
+   * Return the key for the given element and relationship.
+   */
+  private static long makeKey(int elementId, int relationshipId) {
+    return ((long) elementId << 32) | relationshipId;
+  }
+
+  private final Map<AnalysisContext, Object> removedContexts = new MapMaker().weakKeys().makeMap();
+  private int sourceCount;
+  private int elementCount;
+  private int relationshipCount;
+
+  /**
+   * The interned elements, indexed by identifier.
+   */
+  private Element[] elements = new Element[1024];
+
+  /**
+   * The number of references to each interned element, indexed by identifier. An element is no
+   * longer interned when its count drops to zero.
+   */
+  private int[] elementReferenceCounts = new int[1024];
+
+  /**
+   * The number of element identifiers that have ever been used.
+   */
+  private int elementIdCount;
+
+  /**
+   * The identifiers of elements that are no longer interned and can be reused.
+   */
+  private int[] freeElementIds = new int[64];
+
+  /**
+   * The number of identifiers in {@link #freeElementIds} that are used.
+   */
+  private int freeElementIdCount;
+
+  /**
+   * A hash table, using open addressing, containing the identifiers of the interned elements.
+   * Unused entries are {@link #NO_ELEMENT}.
+   */
+  private int[] elementTable = new int[2048];
+
+  /**
+   * The number of identifiers in {@link #elementTable}.
+   */
+  private int elementTableCount;
+
+  /**
+   * The identifiers of the interned relationships.
+   */
+  private final Map<Relationship, Integer> relationshipIds = Maps.newIdentityHashMap();
+
+  /**
+   * The interned import prefixes, indexed by identifier. The identifier {@code 0} is used to
+   * represent the absence of a prefix.
+   */
+  private String[] prefixes = new String[16];
+
+  /**
+   * The identifiers of the interned import prefixes.
+   */
+  private final Map<String, Integer> prefixIds = Maps.newHashMap();
+
+  /**
+   * A hash table, using open addressing, whose keys are element and relationship identifiers
+   * combined by {@link #makeKey(int, int)}. Unused entries are {@link #NO_KEY}.
+   */
+  private long[] keyTable = new long[2048];
+
+  /**
+   * The identifiers of the keys in {@link #keyTable}.
+   */
+  private int[] keyTableIds = new int[2048];
+
+  /**
+   * The number of keys in {@link #keyTable}.
+   */
+  private int keyTableCount;
+
+  /**
+   * The keys, indexed by identifier.
+   */
+  private long[] keys = new long[1024];
+
+  /**
+   * The records of the locations related by each key, indexed by key identifier, or {@code null}
+   * if the identifier is not being used.
+   */
+  private int[][] keyRecords = new int[1024][];
+
+  /**
+   * The number of {@code int}s in {@link #keyRecords} that are used, indexed by key identifier.
+   */
+  private int[] keyRecordLengths = new int[1024];
+
+  /**
+   * The identifier of the source that most recently contributed a record to each key, indexed by
+   * key identifier. This is used to avoid adding a key to a source more than once.
+   */
+  private int[] keyLastSources = new int[1024];
+
+  /**
+   * The number of key identifiers that have ever been used.
+   */
+  private int keyIdCount;
+
+  /**
+   * The identifiers of keys that are no longer used and can be reused.
+   */
+  private int[] freeKeyIds = new int[64];
+
+  /**
+   * The number of identifiers in {@link #freeKeyIds} that are used.
+   */
+  private int freeKeyIdCount;
+
+  /**
+   * The identifier to be given to the next source. Source identifiers are not reused, so a record
+   * can never be mistaken for a record of a different source.
+   */
+  private int nextSourceId;
+
+  /**
+   * The information recorded for {@link Source}s with elements or relationships.
+   */
+  private final Map<AnalysisContext, Map<Source, SourceData>> sources = Maps.newHashMapWithExpectedSize(64);
+
+  public CompactIndexStoreImpl() {
+    Arrays.fill(elementTable, NO_ELEMENT);
+    Arrays.fill(keyTable, NO_KEY);
+    prefixIds.put(null, 0);
+  }
+
+  @Override
+  public Location[] getRelationships(Element element, Relationship relationship) {
+    int elementId = getElementId(element);
+    Integer relationshipId = relationshipIds.get(relationship);
+    if (elementId == NO_ELEMENT || relationshipId == null) {
+      return Location.EMPTY_ARRAY;
+    }
+    int keyIndex = findKey(makeKey(elementId, relationshipId));
+    if (keyIndex < 0) {
+      return Location.EMPTY_ARRAY;
+    }
+    int keyId = keyTableIds[keyIndex];
+    int[] records = keyRecords[keyId];
+    int length = keyRecordLengths[keyId];
+    Location[] locations = new Location[length / RECORD_SIZE];
+    int locationIndex = 0;
+    for (int i = 0; i < length; i += RECORD_SIZE) {
+      locations[locationIndex++] = new Location(
+          elements[records[i + RECORD_ELEMENT]],
+          records[i + RECORD_OFFSET],
+          records[i + RECORD_LENGTH],
+          prefixes[records[i + RECORD_PREFIX]]);
+    }
+    return locations;
+  }
+
+  @Override
+  public String getStatistics() {
+    return relationshipCount + " relationships in " + elementCount + " elements in " + sourceCount
+        + " sources";
+  }
+
+  @Override
+  public void recordRelationship(Element element, Relationship relationship, Location location) {
+    if (element == null || location == null) {
+      return;
+    }
+    // prepare information
+    AnalysisContext elementContext = element.getContext();
+    AnalysisContext locationContext = location.getElement().getContext();
+    Source elementSource = MemoryIndexStoreImpl.findSource(element);
+    Source locationSource = MemoryIndexStoreImpl.findSource(location.getElement());
+    // may be already removed in other thread
+    if (removedContexts.containsKey(elementContext)) {
+      return;
+    }
+    if (removedContexts.containsKey(locationContext)) {
+      return;
+    }
+    // we don't care about Member(s) at the index level
+    if (element instanceof Member) {
+      element = ((Member) element).getBaseElement();
+    }
+    // Sometimes Element in Location has no enclosing, so we don't have context.
+    if (locationContext == null) {
+      return;
+    }
+    if (elementContext == null && !(element instanceof NameElementImpl)
+        && !(element instanceof UniverseElementImpl)) {
+      return;
+    }
+    // remember sources
+    getSourceData(elementContext, elementSource);
+    SourceData sourceData = getSourceData(locationContext, locationSource);
+    // prepare key for "element"
+    int relationshipId = internRelationship(relationship);
+    int elementId = acquireElement(element);
+    long key = makeKey(elementId, relationshipId);
+    int keyIndex = findKey(key);
+    int keyId;
+    if (keyIndex >= 0) {
+      keyId = keyTableIds[keyIndex];
+      // the key already holds a reference to the element
+      releaseElement(elementId);
+    } else {
+      keyId = addKey(key);
+    }
+    if (keyLastSources[keyId] != sourceData.id) {
+      keyLastSources[keyId] = sourceData.id;
+      sourceData.addKey(keyId);
+    }
+    // add record
+    int[] records = keyRecords[keyId];
+    int length = keyRecordLengths[keyId];
+    if (length == records.length) {
+      int recordCount = length / RECORD_SIZE;
+      records = Arrays.copyOf(records, (recordCount + Math.max(1, recordCount >> 1)) * RECORD_SIZE);
+      keyRecords[keyId] = records;
+    }
+    records[length + RECORD_ELEMENT] = acquireElement(location.getElement());
+    records[length + RECORD_OFFSET] = location.getOffset();
+    records[length + RECORD_LENGTH] = location.getLength();
+    records[length + RECORD_PREFIX] = internPrefix(location.getImportPrefix());
+    records[length + RECORD_SOURCE] = sourceData.id;
+    keyRecordLengths[keyId] = length + RECORD_SIZE;
+    relationshipCount++;
+  }
+
+  @Override
+  public void recordSourceElements(AnalysisContext context, Source source, List<Element> elements) {
+    if (removedContexts.containsKey(context)) {
+      return;
+    }
+    SourceData sourceData = getSourceData(context, source);
+    for (Element element : elements) {
+      sourceData.addDeclaredElement(acquireElement(element));
+    }
+    elementCount += elements.size();
+  }
+
+  @Override
+  public void removeContext(AnalysisContext context) {
+    context = MemoryIndexStoreImpl.unwrapContext(context);
+    removedContexts.put(context, WEAK_SET_VALUE);
+    Map<Source, SourceData> contextSources = sources.remove(context);
+    if (contextSources != null) {
+      for (SourceData sourceData : contextSources.values()) {
+        sourceCount--;
+        removeSourceData(sourceData);
+      }
+    }
+  }
+
+  @Override
+  public void removeSource(AnalysisContext context, Source source) {
+    context = MemoryIndexStoreImpl.unwrapContext(context);
+    Map<Source, SourceData> contextSources = sources.get(context);
+    if (contextSources != null) {
+      SourceData sourceData = contextSources.remove(source);
+      if (sourceData != null) {
+        sourceCount--;
+        removeSourceData(sourceData);
+      }
+    }
+  }
+
+  @Override
+  public void removeSources(AnalysisContext context, SourceContainer container) {
+    context = MemoryIndexStoreImpl.unwrapContext(context);
+    // prepare sources to remove
+    Set<Source> sourcesToRemove = Sets.newHashSet();
+    {
+      Map<Source, SourceData> contextSources = sources.get(context);
+      if (contextSources != null) {
+        for (Source source : contextSources.keySet()) {
+          if (container.contains(source)) {
+            sourcesToRemove.add(source);
+          }
+        }
+      }
+    }
+    // do remove sources
+    for (Source source : sourcesToRemove) {
+      removeSource(context, source);
+    }
+  }
+
+  /**
+   * Return the identifier of the given element, interning it if necessary, and record an
+   * additional reference to it.
+   */
+  private int acquireElement(Element element) {
+    int index = findElement(element);
+    int elementId;
+    if (index >= 0) {
+      elementId = elementTable[index];
+    } else {
+      if (freeElementIdCount > 0) {
+        elementId = freeElementIds[--freeElementIdCount];
+      } else {
+        if (elementIdCount == elements.length) {
+          int newLength = elementIdCount + (elementIdCount >> 1);
+          elements = Arrays.copyOf(elements, newLength);
+          elementReferenceCounts = Arrays.copyOf(elementReferenceCounts, newLength);
+        }
+        elementId = elementIdCount++;
+      }
+      elements[elementId] = element;
+      addElementToTable(elementId);
+    }
+    elementReferenceCounts[elementId]++;
+    return elementId;
+  }
+
+  /**
+   * Add the element with the given identifier to the table of elements.
+   */
+  private void addElementToTable(int elementId) {
+    if ((elementTableCount + 1) * 2 > elementTable.length) {
+      int[] oldTable = elementTable;
+      elementTable = new int[oldTable.length * 2];
+      Arrays.fill(elementTable, NO_ELEMENT);
+      elementTableCount = 0;
+      for (int oldElementId : oldTable) {
+        if (oldElementId != NO_ELEMENT) {
+          addElementToTable(oldElementId);
+        }
+      }
+    }
+    int mask = elementTable.length - 1;
+    int index = hash(elements[elementId]) & mask;
+    while (elementTable[index] != NO_ELEMENT) {
+      index = (index + 1) & mask;
+    }
+    elementTable[index] = elementId;
+    elementTableCount++;
+  }
+
+  /**
+   * Return the identifier of a new key with no records, and add it to the table of keys.
+   */
+  private int addKey(long key) {
+    int keyId;
+    if (freeKeyIdCount > 0) {
+      keyId = freeKeyIds[--freeKeyIdCount];
+    } else {
+      if (keyIdCount == keys.length) {
+        int newLength = keyIdCount + (keyIdCount >> 1);
+        keys = Arrays.copyOf(keys, newLength);
+        keyRecords = Arrays.copyOf(keyRecords, newLength);
+        keyRecordLengths = Arrays.copyOf(keyRecordLengths, newLength);
+        keyLastSources = Arrays.copyOf(keyLastSources, newLength);
+      }
+      keyId = keyIdCount++;
+    }
+    keys[keyId] = key;
+    keyRecords[keyId] = new int[RECORD_SIZE];
+    keyRecordLengths[keyId] = 0;
+    keyLastSources[keyId] = -1;
+    addKeyToTable(keyId);
+    return keyId;
+  }
+
+  /**
+   * Add the key with the given identifier to the table of keys.
+   */
+  private void addKeyToTable(int keyId) {
+    if ((keyTableCount + 1) * 2 > keyTable.length) {
+      long[] oldTable = keyTable;
+      int[] oldTableIds = keyTableIds;
+      keyTable = new long[oldTable.length * 2];
+      keyTableIds = new int[oldTable.length * 2];
+      Arrays.fill(keyTable, NO_KEY);
+      keyTableCount = 0;
+      for (int i = 0; i < oldTable.length; i++) {
+        if (oldTable[i] != NO_KEY) {
+          addKeyToTable(oldTableIds[i]);
+        }
+      }
+    }
+    long key = keys[keyId];
+    int mask = keyTable.length - 1;
+    int index = hash(key) & mask;
+    while (keyTable[index] != NO_KEY) {
+      index = (index + 1) & mask;
+    }
+    keyTable[index] = key;
+    keyTableIds[index] = keyId;
+    keyTableCount++;
+  }
+
+  /**
+   * Return the index of the given element in the table of elements, or {@code -1} if it is not
+   * interned.
+   */
+  private int findElement(Element element) {
+    int mask = elementTable.length - 1;
+    int index = hash(element) & mask;
+    while (true) {
+      int elementId = elementTable[index];
+      if (elementId == NO_ELEMENT) {
+        return -1;
+      }
+      if (isSameElement(elements[elementId], element)) {
+        return index;
+      }
+      index = (index + 1) & mask;
+    }
+  }
+
+  /**
+   * Return the index of the given key in the table of keys, or {@code -1} if it is not in the
+   * table.
+   */
+  private int findKey(long key) {
+    int mask = keyTable.length - 1;
+    int index = hash(key) & mask;
+    while (true) {
+      long existingKey = keyTable[index];
+      if (existingKey == key) {
+        return index;
+      }
+      if (existingKey == NO_KEY) {
+        return -1;
+      }
+      index = (index + 1) & mask;
+    }
+  }
+
+  /**
+   * Return the identifier of the given element, or {@link #NO_ELEMENT} if it is not interned.
+   */
+  private int getElementId(Element element) {
+    int index = findElement(element);
+    return index < 0 ? NO_ELEMENT : elementTable[index];
+  }
+
+  /**
+   * Return the information recorded for the given source, creating it if necessary.
+   */
+  private SourceData getSourceData(AnalysisContext context, Source source) {
+    Map<Source, SourceData> contextSources = sources.get(context);
+    if (contextSources == null) {
+      contextSources = Maps.newHashMap();
+      sources.put(context, contextSources);
+    }
+    SourceData sourceData = contextSources.get(source);
+    if (sourceData == null) {
+      sourceData = new SourceData(nextSourceId++);
+      contextSources.put(source, sourceData);
+      sourceCount++;
+    }
+    return sourceData;
+  }
+
+  /**
+   * Return the identifier of the given import prefix, interning it if necessary.
+   */
+  private int internPrefix(String prefix) {
+    Integer id = prefixIds.get(prefix);
+    if (id == null) {
+      id = prefixIds.size();
+      if (id == prefixes.length) {
+        prefixes = Arrays.copyOf(prefixes, id * 2);
+      }
+      prefixes[id] = prefix;
+      prefixIds.put(prefix, id);
+    }
+    return id;
+  }
+
+  /**
+   * Return the identifier of the given relationship, interning it if necessary.
+   */
+  private int internRelationship(Relationship relationship) {
+    Integer id = relationshipIds.get(relationship);
+    if (id == null) {
+      id = relationshipIds.size();
+      relationshipIds.put(relationship, id);
+    }
+    return id;
+  }
+
+  /**
+   * Record that a reference to the element with the given identifier has been removed.
+   */
+  private void releaseElement(int elementId) {
+    if (--elementReferenceCounts[elementId] == 0) {
+      removeFromTable(findElement(elements[elementId]));
+      elements[elementId] = null;
+      if (freeElementIdCount == freeElementIds.length) {
+        freeElementIds = Arrays.copyOf(freeElementIds, freeElementIdCount * 2);
+      }
+      freeElementIds[freeElementIdCount++] = elementId;
+    }
+  }
+
+  /**
+   * Remove the key with the given identifier, and all of its records.
+   */
+  private void removeKey(int keyId) {
+    long key = keys[keyId];
+    // remove from the table, moving back the keys following it so they remain reachable
+    int mask = keyTable.length - 1;
+    int hole = findKey(key);
+    int next = (hole + 1) & mask;
+    while (keyTable[next] != NO_KEY) {
+      int home = hash(keyTable[next]) & mask;
+      if (((next - home) & mask) >= ((next - hole) & mask)) {
+        keyTable[hole] = keyTable[next];
+        keyTableIds[hole] = keyTableIds[next];
+        hole = next;
+      }
+      next = (next + 1) & mask;
+    }
+    keyTable[hole] = NO_KEY;
+    keyTableCount--;
+    // release records
+    int[] records = keyRecords[keyId];
+    int length = keyRecordLengths[keyId];
+    for (int i = 0; i < length; i += RECORD_SIZE) {
+      releaseElement(records[i + RECORD_ELEMENT]);
+      relationshipCount--;
+    }
+    keyRecords[keyId] = null;
+    keyRecordLengths[keyId] = 0;
+    releaseElement((int) (key >>> 32));
+    if (freeKeyIdCount == freeKeyIds.length) {
+      freeKeyIds = Arrays.copyOf(freeKeyIds, freeKeyIdCount * 2);
+    }
+    freeKeyIds[freeKeyIdCount++] = keyId;
+  }
+
+  /**
+   * Remove the entry with the given index from the table of elements, moving back the entries
+   * following it so they remain reachable.
+   */
+  private void removeFromTable(int index) {
+    int mask = elementTable.length - 1;
+    int hole = index;
+    int next = (hole + 1) & mask;
+    while (elementTable[next] != NO_ELEMENT) {
+      int home = hash(elements[elementTable[next]]) & mask;
+      if (((next - home) & mask) >= ((next - hole) & mask)) {
+        elementTable[hole] = elementTable[next];
+        hole = next;
+      }
+      next = (next + 1) & mask;
+    }
+    elementTable[hole] = NO_ELEMENT;
+    elementTableCount--;
+  }
+
+  /**
+   * Remove the relationships with the elements declared in the source with the given information
+   * and the records contributed by it.
+   */
+  private void removeSourceData(SourceData sourceData) {
+    // remove relationships with elements declared in the source
+    int relationshipIdCount = relationshipIds.size();
+    for (int i = 0; i < sourceData.declaredElementCount; i++) {
+      int elementId = sourceData.declaredElements[i];
+      for (int relationshipId = 0; relationshipId < relationshipIdCount; relationshipId++) {
+        int keyIndex = findKey(makeKey(elementId, relationshipId));
+        if (keyIndex >= 0) {
+          removeKey(keyTableIds[keyIndex]);
+        }
+      }
+      releaseElement(elementId);
+      elementCount--;
+    }
+    // remove records contributed by the source
+    int sourceId = sourceData.id;
+    for (int i = 0; i < sourceData.keyCount; i++) {
+      int keyId = sourceData.keys[i];
+      int[] records = keyRecords[keyId];
+      if (records == null) {
+        // the key was removed, and its identifier has not been reused
+        continue;
+      }
+      int length = keyRecordLengths[keyId];
+      int newLength = 0;
+      for (int j = 0; j < length; j += RECORD_SIZE) {
+        if (records[j + RECORD_SOURCE] == sourceId) {
+          releaseElement(records[j + RECORD_ELEMENT]);
+          relationshipCount--;
+        } else {
+          if (newLength != j) {
+            System.arraycopy(records, j, records, newLength, RECORD_SIZE);
+          }
+          newLength += RECORD_SIZE;
+        }
+      }
+      if (newLength == length) {
+        continue;
+      }
+      if (newLength == 0) {
+        keyRecordLengths[keyId] = 0;
+        removeKey(keyId);
+      } else {
+        keyRecordLengths[keyId] = newLength;
+        if (newLength * 2 < records.length) {
+          keyRecords[keyId] = Arrays.copyOf(records, newLength);
+        }
+      }
+    }
+  }
+}
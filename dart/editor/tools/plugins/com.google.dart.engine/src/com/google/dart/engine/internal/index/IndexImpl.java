@@ -20,6 +20,7 @@ import com.google.dart.engine.index.Index;
 import com.google.dart.engine.index.IndexStore;
 import com.google.dart.engine.index.Relationship;
 import com.google.dart.engine.index.RelationshipCallback;
+import com.google.dart.engine.index.TypeHierarchy;
 import com.google.dart.engine.internal.index.operation.GetRelationshipsOperation;
 import com.google.dart.engine.internal.index.operation.IndexUnitOperation;
 import com.google.dart.engine.internal.index.operation.OperationProcessor;
@@ -30,6 +31,8 @@ import com.google.dart.engine.internal.index.operation.RemoveSourcesOperation;
 import com.google.dart.engine.source.Source;
 import com.google.dart.engine.source.SourceContainer;
 
+import java.util.concurrent.locks.Lock;
+
 /**
  * Implementation of {@link Index}.
  * 
@@ -39,6 +42,7 @@ public class IndexImpl implements Index {
   private final IndexStore store;
   private final OperationQueue queue;
   private final OperationProcessor processor;
+  private final TypeHierarchyImpl hierarchy = new TypeHierarchyImpl();
 
   public IndexImpl(IndexStore store, OperationQueue queue, OperationProcessor processor) {
     this.store = store;
@@ -49,12 +53,28 @@ public class IndexImpl implements Index {
   @Override
   public void getRelationships(Element element, Relationship relationship,
       RelationshipCallback callback) {
-    queue.enqueue(new GetRelationshipsOperation(store, element, relationship, callback));
+    queue.enqueue(new GetRelationshipsOperation(
+        store,
+        element,
+        relationship,
+        callback,
+        processor));
   }
 
   @Override
   public String getStatistics() {
-    return store.getStatistics();
+    Lock lock = processor.getStoreReadLock();
+    lock.lock();
+    try {
+      return store.getStatistics();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public TypeHierarchy getTypeHierarchy() {
+    return hierarchy;
   }
 
   @Override
@@ -65,21 +85,25 @@ public class IndexImpl implements Index {
     if (unit.getElement() == null) {
       return;
     }
+    hierarchy.indexUnit(context, unit);
     queue.enqueue(new IndexUnitOperation(store, context, unit));
   }
 
   @Override
   public void removeContext(AnalysisContext context) {
+    hierarchy.removeContext(context);
     queue.enqueue(new RemoveContextOperation(store, context));
   }
 
   @Override
   public void removeSource(AnalysisContext context, Source source) {
+    hierarchy.removeSource(context, source);
     queue.enqueue(new RemoveSourceOperation(store, context, source));
   }
 
   @Override
   public void removeSources(AnalysisContext context, SourceContainer container) {
+    hierarchy.removeSources(context, container);
     queue.enqueue(new RemoveSourcesOperation(store, context, container));
   }
 
@@ -0,0 +1,1190 @@
+/*
+ * Copyright (c) 2013, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.internal.index;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.dart.engine.AnalysisEngine;
+import com.google.dart.engine.context.AnalysisContext;
+import com.google.dart.engine.element.Element;
+import com.google.dart.engine.index.Location;
+import com.google.dart.engine.index.MappedIndexStore;
+import com.google.dart.engine.index.Relationship;
+import com.google.dart.engine.internal.element.ElementLocationImpl;
+import com.google.dart.engine.internal.element.member.Member;
+import com.google.dart.engine.source.Source;
+import com.google.dart.engine.source.SourceContainer;
+import com.google.dart.engine.source.SourceFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * {@link MappedIndexStore} which answers queries from a {@link MemoryIndexStoreImpl} and keeps the
+ * information of each {@link AnalysisContext} in a memory-mapped file.
+ * <p>
+ * Each file starts with a header holding the version number and the offset of the segment table.
+ * The segment table maps the encoding of each {@link Source} to the modification stamp of the
+ * indexed contents, the offsets and lengths of the parts of the segment with the declarations and
+ * relationships contributed by the source, and the hash codes of the keys of the elements of those
+ * relationships. A query only decodes the segments that might contain relationships of the queried
+ * element.
+ * <p>
+ * The information contributed by a source is appended to the file as soon as information about
+ * another source is recorded. Flushing appends the information that is still in memory, followed by
+ * a new table, and then updates the header, so the previous table stays valid until the update is
+ * complete. The parts and tables that are no longer referenced are removed by compacting the file
+ * when it is flushed and most of it is no longer referenced. Sources whose contents are overridden
+ * are not written, because the file only describes the saved contents of sources.
+ * <p>
+ * Like other stores, instances must be externally synchronized so that queries are not performed
+ * concurrently with updates, but multiple queries can be performed concurrently.
+ * 
+ * @coverage dart.engine.index
+ */
+public class MappedIndexStoreImpl implements MappedIndexStore {
+  /**
+   * Instances of the class {@code IndexFile} represent the file in which the index of a single
+   * context is kept.
+   */
+  private static class IndexFile {
+    /**
+     * The context whose index is kept in the file.
+     */
+    private final AnalysisContext context;
+
+    /**
+     * The file in which the index is kept.
+     */
+    private final File file;
+
+    /**
+     * The contents of the file up to the end of the segment table.
+     */
+    private MappedByteBuffer buffer;
+
+    /**
+     * The length of the file, including the parts that were appended since the last flush.
+     */
+    private long length;
+
+    /**
+     * The length of the segment table.
+     */
+    private int tableLength;
+
+    /**
+     * The total length of the segments and tables in the file that are no longer referenced.
+     */
+    private long garbageLength;
+
+    /**
+     * A table mapping the sources with a segment in the segment table to the segment.
+     */
+    private final Map<Source, Segment> segments = Maps.newHashMap();
+
+    /**
+     * A table mapping the sources in the segment table whose segments have not been loaded, and do
+     * not need to be skipped, to their segments.
+     */
+    private final Map<Source, Segment> unloadedSegments = Maps.newHashMap();
+
+    /**
+     * A table mapping the sources that were indexed or removed since the last flush to the segment
+     * whose parts have been appended to the file, or to {@code null} if the segment of the source
+     * is to be removed.
+     */
+    private final Map<Source, Segment> pendingSources = Maps.newHashMap();
+
+    /**
+     * The information about the source that is being recorded, or {@code null} if there is none.
+     */
+    private SourceRecords openRecords;
+
+    /**
+     * The sources that were indexed or removed since the file was opened, whose segments must not
+     * be loaded from the file.
+     */
+    private final Set<Source> sessionSources = Sets.newHashSet();
+
+    /**
+     * A flag indicating whether the file is being compacted.
+     */
+    private boolean compacting;
+
+    /**
+     * The number of times the file has been changed, used to detect changes made while the file was
+     * being compacted.
+     */
+    private int generation;
+
+    public IndexFile(AnalysisContext context, File file) {
+      this.context = context;
+      this.file = file;
+    }
+
+    /**
+     * Return the total length of the segments that are referenced by the segment table.
+     * 
+     * @return the total length of the referenced segments
+     */
+    public long getLiveLength() {
+      long liveLength = 0;
+      for (Segment segment : segments.values()) {
+        liveLength += segment.getLength();
+      }
+      return liveLength;
+    }
+
+    /**
+     * Return {@code true} if some of the sources that were indexed since the last flush have parts
+     * that were appended to the file.
+     * 
+     * @return {@code true} if the file has parts that are not referenced by the segment table yet
+     */
+    public boolean hasPendingParts() {
+      for (Segment segment : pendingSources.values()) {
+        if (segment != null) {
+          return true;
+        }
+      }
+      return false;
+    }
+  }
+
+  /**
+   * Instances of the class {@code Segment} describe the parts of an index file that hold the
+   * information contributed by a single source.
+   */
+  private static class Segment {
+    /**
+     * The modification stamp of the source when it was indexed.
+     */
+    private final long modificationStamp;
+
+    /**
+     * The offsets of the parts of the segment in the file.
+     */
+    private final long[] offsets;
+
+    /**
+     * The lengths of the parts of the segment.
+     */
+    private final int[] lengths;
+
+    /**
+     * The sorted hash codes of the keys of the elements of the relationships in the segment.
+     */
+    private final int[] keyHashes;
+
+    public Segment(long modificationStamp, long[] offsets, int[] lengths, int[] keyHashes) {
+      this.modificationStamp = modificationStamp;
+      this.offsets = offsets;
+      this.lengths = lengths;
+      this.keyHashes = keyHashes;
+    }
+
+    /**
+     * Return a segment consisting of the parts of this segment followed by the given part.
+     * 
+     * @param offset the offset of the part in the file
+     * @param length the length of the part
+     * @param partKeyHashes the sorted hash codes of the keys of the elements in the part
+     * @return the segment with the given part
+     */
+    public Segment addPart(long offset, int length, int[] partKeyHashes) {
+      int partCount = offsets.length;
+      long[] newOffsets = Arrays.copyOf(offsets, partCount + 1);
+      int[] newLengths = Arrays.copyOf(lengths, partCount + 1);
+      newOffsets[partCount] = offset;
+      newLengths[partCount] = length;
+      int[] newKeyHashes = Arrays.copyOf(keyHashes, keyHashes.length + partKeyHashes.length);
+      System.arraycopy(partKeyHashes, 0, newKeyHashes, keyHashes.length, partKeyHashes.length);
+      return new Segment(modificationStamp, newOffsets, newLengths, sortUnique(newKeyHashes));
+    }
+
+    /**
+     * Return the total length of the parts of this segment.
+     * 
+     * @return the total length of the parts
+     */
+    public long getLength() {
+      long length = 0;
+      for (int partLength : lengths) {
+        length += partLength;
+      }
+      return length;
+    }
+
+    /**
+     * Return {@code true} if this segment might contain relationships of the element with the
+     * given key.
+     * 
+     * @param keyHash the hash code of the key of the element
+     * @return {@code true} if this segment needs to be loaded to find the relationships of the
+     *         element
+     */
+    public boolean mayContain(int keyHash) {
+      return Arrays.binarySearch(keyHashes, keyHash) >= 0;
+    }
+  }
+
+  /**
+   * Instances of the class {@code SourceRecords} hold the information contributed by the source
+   * that is being recorded, until it is appended to the file, or the information read from the
+   * segment of a source, until it is recorded in the memory store.
+   */
+  private static class SourceRecords {
+    /**
+     * The source whose information is recorded.
+     */
+    private final Source source;
+
+    /**
+     * The modification stamp of the source when it was indexed.
+     */
+    private final long modificationStamp;
+
+    /**
+     * The elements declared in the source.
+     */
+    private final ArrayList<Element> declarations = Lists.newArrayList();
+
+    /**
+     * The elements of the relationships whose locations are in the source.
+     */
+    private final ArrayList<Element> elements = Lists.newArrayList();
+
+    /**
+     * The relationships whose locations are in the source.
+     */
+    private final ArrayList<Relationship> relationships = Lists.newArrayList();
+
+    /**
+     * The locations in the source.
+     */
+    private final ArrayList<Location> locations = Lists.newArrayList();
+
+    public SourceRecords(Source source, long modificationStamp) {
+      this.source = source;
+      this.modificationStamp = modificationStamp;
+    }
+  }
+
+  /**
+   * The version of the format of the files.
+   */
+  static int FILE_VERSION_NUMBER = 2;
+
+  /**
+   * The length of the header of a file: the version number and the offset of the segment table.
+   */
+  private static final int HEADER_LENGTH = 4 + 8;
+
+  /**
+   * The minimal number of bytes that must be garbage before a file is compacted.
+   */
+  private static final long MIN_COMPACTION_LENGTH = 1 << 20;
+
+  /**
+   * The prefix of the key of an element that is identified by its {@link ElementLocationImpl}.
+   */
+  private static final char KEY_LOCATION = 'L';
+
+  /**
+   * The prefix of the key of a {@link NameElementImpl}.
+   */
+  private static final char KEY_NAME = 'N';
+
+  /**
+   * The key of the {@link UniverseElementImpl}.
+   */
+  private static final String KEY_UNIVERSE = "U";
+
+  /**
+   * The prefix of the names of {@link NameElementImpl}s.
+   */
+  private static final String NAME_PREFIX = "name:";
+
+  /**
+   * Return the key used to write the given element.
+   */
+  private static String getElementKey(Element element) {
+    if (element instanceof NameElementImpl) {
+      return KEY_NAME + element.getName().substring(NAME_PREFIX.length());
+    }
+    if (element instanceof UniverseElementImpl) {
+      return KEY_UNIVERSE;
+    }
+    return KEY_LOCATION + element.getLocation().getEncoding();
+  }
+
+  /**
+   * Return the identifier of the given string in the given table, adding it if necessary.
+   */
+  private static int getStringId(Map<String, Integer> stringIds, String string) {
+    Integer id = stringIds.get(string);
+    if (id == null) {
+      id = stringIds.size();
+      stringIds.put(string, id);
+    }
+    return id;
+  }
+
+  /**
+   * Return {@code true} if the contents of the given source are overridden in the given context,
+   * so that the information contributed by the source does not describe the saved contents.
+   */
+  private static boolean isOverridden(AnalysisContext context, Source source) {
+    SourceFactory sourceFactory = context.getSourceFactory();
+    return sourceFactory != null && sourceFactory.getContentCache().getContents(source) != null;
+  }
+
+  /**
+   * Return a copy of the bytes of the given buffer in the given range.
+   */
+  private static byte[] readBytes(ByteBuffer buffer, long offset, int length) {
+    byte[] bytes = new byte[length];
+    ByteBuffer view = buffer.duplicate();
+    view.position((int) offset);
+    view.get(bytes);
+    return bytes;
+  }
+
+  /**
+   * Return the given hash codes, sorted and without duplicates.
+   */
+  private static int[] sortUnique(int[] hashes) {
+    if (hashes.length == 0) {
+      return hashes;
+    }
+    Arrays.sort(hashes);
+    int count = 1;
+    for (int i = 1; i < hashes.length; i++) {
+      if (hashes[i] != hashes[count - 1]) {
+        hashes[count++] = hashes[i];
+      }
+    }
+    return Arrays.copyOf(hashes, count);
+  }
+
+  /**
+   * Write all of the given bytes to the given channel, starting at the given position.
+   */
+  private static void writeBytes(FileChannel channel, long position, byte[] bytes)
+      throws IOException {
+    ByteBuffer buffer = ByteBuffer.wrap(bytes);
+    while (buffer.hasRemaining()) {
+      position += channel.write(buffer, position);
+    }
+  }
+
+  /**
+   * Write the header of a file whose segment table starts at the given offset.
+   */
+  private static void writeHeader(FileChannel channel, long tableOffset) throws IOException {
+    ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH);
+    header.putInt(FILE_VERSION_NUMBER);
+    header.putLong(tableOffset);
+    writeBytes(channel, 0, header.array());
+  }
+
+  /**
+   * Return the bytes of the segment table describing the given segments.
+   */
+  private static byte[] writeTable(Map<Source, Segment> segments) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream output = new DataOutputStream(bytes);
+    output.writeInt(segments.size());
+    for (Map.Entry<Source, Segment> entry : segments.entrySet()) {
+      Segment segment = entry.getValue();
+      output.writeUTF(entry.getKey().getEncoding());
+      output.writeLong(segment.modificationStamp);
+      output.writeInt(segment.offsets.length);
+      for (int i = 0; i < segment.offsets.length; i++) {
+        output.writeLong(segment.offsets[i]);
+        output.writeInt(segment.lengths[i]);
+      }
+      output.writeInt(segment.keyHashes.length);
+      for (int keyHash : segment.keyHashes) {
+        output.writeInt(keyHash);
+      }
+    }
+    output.flush();
+    return bytes.toByteArray();
+  }
+
+  /**
+   * The store holding the information that has been loaded or recorded.
+   */
+  private final MemoryIndexStoreImpl memoryStore = new MemoryIndexStoreImpl();
+
+  /**
+   * A table mapping the contexts whose index is kept in a file to the file.
+   */
+  private final Map<AnalysisContext, IndexFile> files = Maps.newHashMap();
+
+  /**
+   * A flag indicating whether some files contain segments that have not been loaded yet.
+   */
+  private volatile boolean hasUnloadedSegments;
+
+  /**
+   * The lock held by the query that is loading segments, so that other queries wait until the
+   * segments that they might need have been loaded. Elements are found while holding this lock
+   * rather than the lock on this store, because finding elements locks the context.
+   */
+  private final Object loadLock = new Object();
+
+  @Override
+  public synchronized void flush() throws IOException {
+    for (IndexFile file : files.values()) {
+      flushFile(file);
+    }
+  }
+
+  @Override
+  public Location[] getRelationships(Element element, Relationship relationship) {
+    if (hasUnloadedSegments) {
+      // loading modifies the memory store, so queries cannot be performed concurrently with it
+      synchronized (loadLock) {
+        loadSegments(element);
+        synchronized (this) {
+          return memoryStore.getRelationships(element, relationship);
+        }
+      }
+    }
+    return memoryStore.getRelationships(element, relationship);
+  }
+
+  @Override
+  public synchronized String getStatistics() {
+    int segmentCount = 0;
+    for (IndexFile file : files.values()) {
+      segmentCount += file.segments.size();
+    }
+    return memoryStore.getStatistics() + ", " + segmentCount + " segments in " + files.size()
+        + " files";
+  }
+
+  @Override
+  public synchronized boolean isIndexed(AnalysisContext context, Source source) {
+    IndexFile file = files.get(MemoryIndexStoreImpl.unwrapContext(context));
+    if (file == null || isOverridden(file.context, source)) {
+      return false;
+    }
+    Segment segment;
+    if (file.openRecords != null && file.openRecords.source.equals(source)) {
+      return file.openRecords.modificationStamp == source.getModificationStamp();
+    } else if (file.pendingSources.containsKey(source)) {
+      segment = file.pendingSources.get(source);
+    } else if (file.sessionSources.contains(source)) {
+      // indexed while the contents were overridden
+      return false;
+    } else {
+      segment = file.segments.get(source);
+    }
+    return segment != null && source.exists()
+        && segment.modificationStamp == source.getModificationStamp();
+  }
+
+  @Override
+  public synchronized void openIndex(AnalysisContext context, File file) throws IOException {
+    context = MemoryIndexStoreImpl.unwrapContext(context);
+    IndexFile indexFile = new IndexFile(context, file);
+    if (file.exists()) {
+      try {
+        readFile(indexFile);
+      } catch (IOException exception) {
+        AnalysisEngine.getInstance().getLogger().logInformation(
+            "Replacing the index file " + file,
+            exception);
+        indexFile.segments.clear();
+        initializeFile(indexFile);
+      }
+    } else {
+      initializeFile(indexFile);
+    }
+    indexFile.unloadedSegments.putAll(indexFile.segments);
+    files.put(context, indexFile);
+    if (!indexFile.unloadedSegments.isEmpty()) {
+      hasUnloadedSegments = true;
+    }
+  }
+
+  @Override
+  public synchronized void recordRelationship(Element element, Relationship relationship,
+      Location location) {
+    if (element == null || location == null) {
+      return;
+    }
+    memoryStore.recordRelationship(element, relationship, location);
+    // remember the relationship in the segment of the location source
+    Element locationElement = location.getElement();
+    IndexFile file = files.get(locationElement.getContext());
+    if (file == null) {
+      return;
+    }
+    if (element instanceof Member) {
+      element = ((Member) element).getBaseElement();
+    }
+    if (element.getContext() == null && !(element instanceof NameElementImpl)
+        && !(element instanceof UniverseElementImpl)) {
+      return;
+    }
+    Source source = MemoryIndexStoreImpl.findSource(locationElement);
+    if (source == null) {
+      return;
+    }
+    SourceRecords records = getSourceRecords(file, source);
+    if (records != null) {
+      records.elements.add(element);
+      records.relationships.add(relationship);
+      records.locations.add(location);
+    }
+  }
+
+  @Override
+  public synchronized void recordSourceElements(AnalysisContext context, Source source,
+      List<Element> elements) {
+    memoryStore.recordSourceElements(context, source, elements);
+    IndexFile file = files.get(MemoryIndexStoreImpl.unwrapContext(context));
+    if (file != null) {
+      SourceRecords records = getSourceRecords(file, source);
+      if (records != null) {
+        records.declarations.addAll(elements);
+      }
+    }
+  }
+
+  @Override
+  public synchronized void removeContext(AnalysisContext context) {
+    context = MemoryIndexStoreImpl.unwrapContext(context);
+    memoryStore.removeContext(context);
+    IndexFile file = files.remove(context);
+    if (file != null && !file.unloadedSegments.isEmpty()) {
+      updateHasUnloadedSegments();
+    }
+  }
+
+  @Override
+  public synchronized void removeSource(AnalysisContext context, Source source) {
+    context = MemoryIndexStoreImpl.unwrapContext(context);
+    memoryStore.removeSource(context, source);
+    IndexFile file = files.get(context);
+    if (file != null) {
+      removeSegment(file, source);
+    }
+  }
+
+  @Override
+  public synchronized void removeSources(AnalysisContext context, SourceContainer container) {
+    context = MemoryIndexStoreImpl.unwrapContext(context);
+    memoryStore.removeSources(context, container);
+    IndexFile file = files.get(context);
+    if (file != null) {
+      Set<Source> sources = Sets.newHashSet(file.segments.keySet());
+      sources.addAll(file.pendingSources.keySet());
+      if (file.openRecords != null) {
+        sources.add(file.openRecords.source);
+      }
+      for (Source source : sources) {
+        if (container.contains(source)) {
+          removeSegment(file, source);
+        }
+      }
+    }
+  }
+
+  /**
+   * Compact the file of the given context in the current thread.
+   * 
+   * @param context the {@link AnalysisContext} whose file is to be compacted
+   */
+  @VisibleForTesting
+  void compact(AnalysisContext context) {
+    IndexFile file;
+    synchronized (this) {
+      file = files.get(MemoryIndexStoreImpl.unwrapContext(context));
+      if (file == null || file.compacting) {
+        return;
+      }
+      file.compacting = true;
+    }
+    compactFile(file);
+  }
+
+  /**
+   * Return the number of bytes in the file of the given context that are no longer referenced.
+   * 
+   * @param context the {@link AnalysisContext} whose file is to be checked
+   * @return the number of bytes that would be removed by compacting the file
+   */
+  @VisibleForTesting
+  synchronized long getGarbageLength(AnalysisContext context) {
+    IndexFile file = files.get(MemoryIndexStoreImpl.unwrapContext(context));
+    return file != null ? file.garbageLength : 0;
+  }
+
+  /**
+   * Write the referenced segments of the given file to a new file and replace the old file with it,
+   * unless the file was changed in the meantime.
+   */
+  private void compactFile(IndexFile file) {
+    Map<Source, Segment> segments;
+    ByteBuffer buffer;
+    int generation;
+    synchronized (this) {
+      // the parts appended since the last flush are only referenced by their offsets in this file
+      if (file.hasPendingParts()) {
+        file.compacting = false;
+        return;
+      }
+      segments = Maps.newHashMap(file.segments);
+      buffer = file.buffer.duplicate();
+      generation = file.generation;
+    }
+    File compactFile = new File(file.file.getPath() + ".compact");
+    try {
+      Map<Source, Segment> compactSegments = Maps.newHashMap();
+      byte[] table;
+      long position = HEADER_LENGTH;
+      RandomAccessFile randomAccessFile = new RandomAccessFile(compactFile, "rw");
+      try {
+        FileChannel channel = randomAccessFile.getChannel();
+        channel.truncate(0);
+        for (Map.Entry<Source, Segment> entry : segments.entrySet()) {
+          Segment segment = entry.getValue();
+          int partCount = segment.offsets.length;
+          long[] offsets = new long[partCount];
+          for (int i = 0; i < partCount; i++) {
+            byte[] bytes = readBytes(buffer, segment.offsets[i], segment.lengths[i]);
+            writeBytes(channel, position, bytes);
+            offsets[i] = position;
+            position += segment.lengths[i];
+          }
+          compactSegments.put(entry.getKey(), new Segment(
+              segment.modificationStamp,
+              offsets,
+              segment.lengths,
+              segment.keyHashes));
+        }
+        table = writeTable(compactSegments);
+        writeBytes(channel, position, table);
+        writeHeader(channel, position);
+        channel.force(false);
+      } finally {
+        randomAccessFile.close();
+      }
+      synchronized (this) {
+        // the file may have been changed or removed while it was being compacted
+        if (file.generation != generation || files.get(file.context) != file) {
+          compactFile.delete();
+          return;
+        }
+        // a file that is mapped cannot be replaced on some platforms, keep it as it is
+        if (!compactFile.renameTo(file.file)) {
+          compactFile.delete();
+          return;
+        }
+        file.segments.clear();
+        file.segments.putAll(compactSegments);
+        for (Map.Entry<Source, Segment> entry : file.unloadedSegments.entrySet()) {
+          entry.setValue(compactSegments.get(entry.getKey()));
+        }
+        file.length = position + table.length;
+        file.tableLength = table.length;
+        file.garbageLength = 0;
+        file.generation++;
+        mapFile(file);
+      }
+    } catch (IOException exception) {
+      AnalysisEngine.getInstance().getLogger().logError(
+          "Could not compact the index file " + file.file,
+          exception);
+      compactFile.delete();
+    } finally {
+      synchronized (this) {
+        file.compacting = false;
+      }
+    }
+  }
+
+  /**
+   * Return the element with the given key in the given context, may be {@code null} if the element
+   * cannot be found.
+   */
+  private Element findElement(AnalysisContext context, String key) {
+    switch (key.charAt(0)) {
+      case KEY_NAME:
+        return new NameElementImpl(key.substring(1));
+      case KEY_LOCATION:
+        return context.getElement(new ElementLocationImpl(key.substring(1)));
+      default:
+        return UniverseElementImpl.INSTANCE;
+    }
+  }
+
+  /**
+   * Append the records that are still in memory to the given file, followed by a segment table
+   * that includes the segments of the sources that were indexed or removed since the last flush.
+   */
+  private void flushFile(IndexFile file) throws IOException {
+    writeOpenRecords(file);
+    if (file.pendingSources.isEmpty()) {
+      return;
+    }
+    for (Map.Entry<Source, Segment> entry : file.pendingSources.entrySet()) {
+      Source source = entry.getKey();
+      Segment segment = entry.getValue();
+      Segment oldSegment;
+      if (segment == null) {
+        oldSegment = file.segments.remove(source);
+      } else {
+        oldSegment = file.segments.put(source, segment);
+      }
+      if (oldSegment != null) {
+        file.garbageLength += oldSegment.getLength();
+      }
+    }
+    byte[] table = writeTable(file.segments);
+    RandomAccessFile randomAccessFile = new RandomAccessFile(file.file, "rw");
+    try {
+      FileChannel channel = randomAccessFile.getChannel();
+      long position = file.length;
+      writeBytes(channel, position, table);
+      // update the header last, so that the previous table stays valid until the new one is written
+      channel.force(false);
+      writeHeader(channel, position);
+      channel.force(false);
+      file.garbageLength += file.tableLength;
+      file.tableLength = table.length;
+      file.length = position + table.length;
+      file.buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, file.length);
+    } finally {
+      randomAccessFile.close();
+    }
+    file.pendingSources.clear();
+    file.generation++;
+    // compact if most of the file is garbage, so that replaced segments do not accumulate
+    if (!file.compacting && file.garbageLength > MIN_COMPACTION_LENGTH
+        && file.garbageLength > file.getLiveLength()) {
+      file.compacting = true;
+      compactFile(file);
+    }
+  }
+
+  /**
+   * Return the records to which the information contributed by the given source is to be added,
+   * or {@code null} if the information is not to be written because the contents of the source are
+   * overridden. The records of the previous source, if any, are appended to the file.
+   */
+  private SourceRecords getSourceRecords(IndexFile file, Source source) {
+    SourceRecords records = file.openRecords;
+    if (records != null && records.source.equals(source)) {
+      return records;
+    }
+    writeOpenRecords(file);
+    file.sessionSources.add(source);
+    if (file.unloadedSegments.remove(source) != null && file.unloadedSegments.isEmpty()) {
+      updateHasUnloadedSegments();
+    }
+    if (isOverridden(file.context, source)) {
+      return null;
+    }
+    records = new SourceRecords(source, source.getModificationStamp());
+    file.openRecords = records;
+    return records;
+  }
+
+  /**
+   * Replace the contents of the given file with an empty index.
+   */
+  private void initializeFile(IndexFile file) throws IOException {
+    byte[] table = writeTable(file.segments);
+    RandomAccessFile randomAccessFile = new RandomAccessFile(file.file, "rw");
+    try {
+      FileChannel channel = randomAccessFile.getChannel();
+      channel.truncate(0);
+      writeHeader(channel, HEADER_LENGTH);
+      writeBytes(channel, HEADER_LENGTH, table);
+      channel.force(false);
+    } finally {
+      randomAccessFile.close();
+    }
+    file.length = HEADER_LENGTH + table.length;
+    file.tableLength = table.length;
+    file.garbageLength = 0;
+    mapFile(file);
+  }
+
+  /**
+   * Read the information from the given part of a segment of the given file into the given records.
+   */
+  private void loadPart(IndexFile file, ByteBuffer buffer, SourceRecords records, long partOffset,
+      int partLength) throws IOException {
+    AnalysisContext context = file.context;
+    DataInputStream input = new DataInputStream(new ByteArrayInputStream(readBytes(
+        buffer,
+        partOffset,
+        partLength)));
+    // read strings, elements are found lazily
+    int stringCount = input.readInt();
+    String[] strings = new String[stringCount];
+    for (int i = 0; i < stringCount; i++) {
+      strings[i] = input.readUTF();
+    }
+    Element[] elements = new Element[stringCount];
+    boolean[] foundElements = new boolean[stringCount];
+    // read declarations
+    int declarationCount = input.readInt();
+    for (int i = 0; i < declarationCount; i++) {
+      Element element = readElement(input, context, strings, elements, foundElements);
+      if (element != null) {
+        records.declarations.add(element);
+      }
+    }
+    // read relationships, skip those with elements which cannot be found in the context
+    int relationshipCount = input.readInt();
+    for (int i = 0; i < relationshipCount; i++) {
+      Element element = readElement(input, context, strings, elements, foundElements);
+      Relationship relationship = Relationship.getRelationship(strings[input.readInt()]);
+      Element locationElement = readElement(input, context, strings, elements, foundElements);
+      int offset = input.readInt();
+      int length = input.readInt();
+      int prefixId = input.readInt();
+      String prefix = prefixId != -1 ? strings[prefixId] : null;
+      if (element != null && locationElement != null) {
+        records.elements.add(element);
+        records.relationships.add(relationship);
+        records.locations.add(new Location(locationElement, offset, length, prefix));
+      }
+    }
+  }
+
+  /**
+   * Return the information from the given segment of the given file, or {@code null} if the source
+   * was changed since it was indexed or the segment cannot be read. This method does not access the
+   * state of this store, so it can be invoked without holding the lock on this store.
+   */
+  private SourceRecords loadSegment(IndexFile file, ByteBuffer buffer, Source source,
+      Segment segment) {
+    // the source was changed since it was indexed, it will be indexed again
+    if (!source.exists() || segment.modificationStamp != source.getModificationStamp()) {
+      return null;
+    }
+    SourceRecords records = new SourceRecords(source, segment.modificationStamp);
+    try {
+      for (int i = 0; i < segment.offsets.length; i++) {
+        loadPart(file, buffer, records, segment.offsets[i], segment.lengths[i]);
+      }
+    } catch (IOException exception) {
+      AnalysisEngine.getInstance().getLogger().logError(
+          "Could not read the index of " + source.getFullName() + " from " + file.file,
+          exception);
+      return null;
+    }
+    return records;
+  }
+
+  /**
+   * Load the segments that might contain relationships of the given element and that have not
+   * been loaded yet. The caller must hold {@link #loadLock}, but not the lock on this store.
+   */
+  private void loadSegments(Element element) {
+    if (element instanceof Member) {
+      element = ((Member) element).getBaseElement();
+    }
+    int keyHash = getElementKey(element).hashCode();
+    // take the segments to load, together with the buffer that their offsets refer to
+    Map<IndexFile, Map<Source, Segment>> fileSegments = Maps.newHashMap();
+    Map<IndexFile, ByteBuffer> fileBuffers = Maps.newHashMap();
+    synchronized (this) {
+      for (IndexFile file : files.values()) {
+        Map<Source, Segment> segments = Maps.newHashMap();
+        Iterator<Map.Entry<Source, Segment>> iterator = file.unloadedSegments.entrySet().iterator();
+        while (iterator.hasNext()) {
+          Map.Entry<Source, Segment> entry = iterator.next();
+          Segment segment = entry.getValue();
+          if (segment.mayContain(keyHash)) {
+            iterator.remove();
+            segments.put(entry.getKey(), segment);
+          }
+        }
+        if (!segments.isEmpty()) {
+          fileSegments.put(file, segments);
+          fileBuffers.put(file, file.buffer.duplicate());
+        }
+      }
+    }
+    // read the segments and find their elements without holding the lock on this store
+    Map<IndexFile, Map<Source, SourceRecords>> fileRecords = Maps.newHashMap();
+    for (Map.Entry<IndexFile, Map<Source, Segment>> fileEntry : fileSegments.entrySet()) {
+      IndexFile file = fileEntry.getKey();
+      ByteBuffer buffer = fileBuffers.get(file);
+      Map<Source, SourceRecords> sourceRecords = Maps.newHashMap();
+      for (Map.Entry<Source, Segment> entry : fileEntry.getValue().entrySet()) {
+        Source source = entry.getKey();
+        sourceRecords.put(source, loadSegment(file, buffer, source, entry.getValue()));
+      }
+      fileRecords.put(file, sourceRecords);
+    }
+    // record the information in the memory store
+    synchronized (this) {
+      for (Map.Entry<IndexFile, Map<Source, SourceRecords>> fileEntry : fileRecords.entrySet()) {
+        IndexFile file = fileEntry.getKey();
+        if (files.get(file.context) != file) {
+          continue;
+        }
+        for (Map.Entry<Source, SourceRecords> entry : fileEntry.getValue().entrySet()) {
+          Source source = entry.getKey();
+          SourceRecords records = entry.getValue();
+          // the source may have been indexed or removed while the segment was being read
+          if (file.sessionSources.contains(source)) {
+            continue;
+          }
+          if (records == null) {
+            file.pendingSources.put(source, null);
+            continue;
+          }
+          memoryStore.recordSourceElements(file.context, source, records.declarations);
+          int relationshipCount = records.locations.size();
+          for (int i = 0; i < relationshipCount; i++) {
+            memoryStore.recordRelationship(
+                records.elements.get(i),
+                records.relationships.get(i),
+                records.locations.get(i));
+          }
+        }
+      }
+      updateHasUnloadedSegments();
+    }
+  }
+
+  /**
+   * Map the contents of the given file, up to the end of the segment table, into memory.
+   */
+  private void mapFile(IndexFile file) throws IOException {
+    RandomAccessFile randomAccessFile = new RandomAccessFile(file.file, "r");
+    try {
+      FileChannel channel = randomAccessFile.getChannel();
+      file.buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, file.length);
+    } finally {
+      randomAccessFile.close();
+    }
+  }
+
+  /**
+   * Return the element whose key identifier is read from the given input.
+   */
+  private Element readElement(DataInputStream input, AnalysisContext context, String[] strings,
+      Element[] elements, boolean[] foundElements) throws IOException {
+    int id = input.readInt();
+    if (!foundElements[id]) {
+      elements[id] = findElement(context, strings[id]);
+      foundElements[id] = true;
+    }
+    return elements[id];
+  }
+
+  /**
+   * Map the given file and read its segment table.
+   * 
+   * @throws IOException if the file does not exist or cannot be read
+   */
+  private void readFile(IndexFile file) throws IOException {
+    file.length = file.file.length();
+    if (file.length < HEADER_LENGTH) {
+      throw new IOException("No index in " + file.file);
+    }
+    mapFile(file);
+    MappedByteBuffer buffer = file.buffer;
+    int version = buffer.getInt(0);
+    if (version != FILE_VERSION_NUMBER) {
+      throw new IOException(MessageFormat.format(
+          "Incompatible file version, expected: {0} found: {1}",
+          FILE_VERSION_NUMBER,
+          version));
+    }
+    long tableOffset = buffer.getLong(4);
+    if (tableOffset < HEADER_LENGTH || tableOffset > buffer.capacity()) {
+      throw new IOException("Invalid segment table offset " + tableOffset);
+    }
+    // parts appended after the table by a session that did not flush are ignored
+    int tableLength = (int) (buffer.capacity() - tableOffset);
+    DataInputStream input = new DataInputStream(new ByteArrayInputStream(readBytes(
+        buffer,
+        tableOffset,
+        tableLength)));
+    SourceFactory sourceFactory = file.context.getSourceFactory();
+    long liveLength = 0;
+    int segmentCount = input.readInt();
+    for (int i = 0; i < segmentCount; i++) {
+      String encoding = input.readUTF();
+      long modificationStamp = input.readLong();
+      int partCount = input.readInt();
+      long[] offsets = new long[partCount];
+      int[] lengths = new int[partCount];
+      for (int j = 0; j < partCount; j++) {
+        offsets[j] = input.readLong();
+        lengths[j] = input.readInt();
+        if (offsets[j] < HEADER_LENGTH || offsets[j] + lengths[j] > tableOffset) {
+          throw new IOException("Invalid segment of " + encoding);
+        }
+      }
+      int[] keyHashes = new int[input.readInt()];
+      for (int j = 0; j < keyHashes.length; j++) {
+        keyHashes[j] = input.readInt();
+      }
+      Source source = sourceFactory.fromEncoding(encoding);
+      if (source != null) {
+        Segment segment = new Segment(modificationStamp, offsets, lengths, keyHashes);
+        file.segments.put(source, segment);
+        liveLength += segment.getLength();
+      }
+    }
+    file.tableLength = tableLength;
+    file.garbageLength = tableOffset - HEADER_LENGTH - liveLength;
+  }
+
+  /**
+   * Remove the information contributed by the given source from the given file on the next flush.
+   */
+  private void removeSegment(IndexFile file, Source source) {
+    if (file.openRecords != null && file.openRecords.source.equals(source)) {
+      file.openRecords = null;
+    }
+    Segment pendingSegment = file.pendingSources.put(source, null);
+    if (pendingSegment != null) {
+      file.garbageLength += pendingSegment.getLength();
+    }
+    file.sessionSources.add(source);
+    if (file.unloadedSegments.remove(source) != null && file.unloadedSegments.isEmpty()) {
+      updateHasUnloadedSegments();
+    }
+  }
+
+  /**
+   * Update the flag indicating whether some files contain segments that have not been loaded yet.
+   */
+  private void updateHasUnloadedSegments() {
+    boolean hasUnloaded = false;
+    for (IndexFile file : files.values()) {
+      if (!file.unloadedSegments.isEmpty()) {
+        hasUnloaded = true;
+        break;
+      }
+    }
+    hasUnloadedSegments = hasUnloaded;
+  }
+
+  /**
+   * Append the records of the source that is being recorded, if any, to the given file as a part of
+   * the segment of the source.
+   */
+  private void writeOpenRecords(IndexFile file) {
+    SourceRecords records = file.openRecords;
+    if (records == null) {
+      return;
+    }
+    file.openRecords = null;
+    Source source = records.source;
+    try {
+      byte[] bytes = writeSegment(records);
+      RandomAccessFile randomAccessFile = new RandomAccessFile(file.file, "rw");
+      try {
+        writeBytes(randomAccessFile.getChannel(), file.length, bytes);
+      } finally {
+        randomAccessFile.close();
+      }
+      int[] keyHashes = new int[records.elements.size()];
+      for (int i = 0; i < keyHashes.length; i++) {
+        keyHashes[i] = getElementKey(records.elements.get(i)).hashCode();
+      }
+      keyHashes = sortUnique(keyHashes);
+      Segment segment = file.pendingSources.get(source);
+      if (segment == null) {
+        segment = new Segment(
+            records.modificationStamp,
+            new long[] {file.length},
+            new int[] {bytes.length},
+            keyHashes);
+      } else {
+        segment = segment.addPart(file.length, bytes.length, keyHashes);
+      }
+      file.pendingSources.put(source, segment);
+      file.length += bytes.length;
+      file.generation++;
+    } catch (IOException exception) {
+      AnalysisEngine.getInstance().getLogger().logError(
+          "Could not write the index of " + source.getFullName() + " to " + file.file,
+          exception);
+      removeSegment(file, source);
+    }
+  }
+
+  /**
+   * Return the bytes of the segment part holding the given records.
+   */
+  private byte[] writeSegment(SourceRecords records) throws IOException {
+    Map<String, Integer> stringIds = Maps.newLinkedHashMap();
+    // write declarations and relationships, referencing strings by identifier
+    ByteArrayOutputStream bodyBytes = new ByteArrayOutputStream();
+    DataOutputStream body = new DataOutputStream(bodyBytes);
+    body.writeInt(records.declarations.size());
+    for (Element element : records.declarations) {
+      body.writeInt(getStringId(stringIds, getElementKey(element)));
+    }
+    int relationshipCount = records.locations.size();
+    body.writeInt(relationshipCount);
+    for (int i = 0; i < relationshipCount; i++) {
+      Location location = records.locations.get(i);
+      String prefix = location.getImportPrefix();
+      body.writeInt(getStringId(stringIds, getElementKey(records.elements.get(i))));
+      body.writeInt(getStringId(stringIds, records.relationships.get(i).getIdentifier()));
+      body.writeInt(getStringId(stringIds, getElementKey(location.getElement())));
+      body.writeInt(location.getOffset());
+      body.writeInt(location.getLength());
+      body.writeInt(prefix != null ? getStringId(stringIds, prefix) : -1);
+    }
+    body.flush();
+    // write strings, followed by the body
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream output = new DataOutputStream(bytes);
+    output.writeInt(stringIds.size());
+    for (String string : stringIds.keySet()) {
+      output.writeUTF(string);
+    }
+    bodyBytes.writeTo(output);
+    output.flush();
+    return bytes.toByteArray();
+  }
+}
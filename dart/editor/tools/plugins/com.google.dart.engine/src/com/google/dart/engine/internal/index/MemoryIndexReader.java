@@ -70,7 +70,10 @@ class MemoryIndexReader {
       int numLocations = dis.readInt();
       for (int j = 0; j < numLocations; j++) {
         Location location = readLocation();
-        impl.recordRelationship(element, relationship, location);
+        // skip relationships with elements which cannot be found in the context
+        if (element != null && location != null) {
+          impl.recordRelationship(element, relationship, location);
+        }
       }
     }
   }
@@ -81,6 +84,9 @@ class MemoryIndexReader {
     return context.getElement(elementLocation);
   }
 
+  /**
+   * @return the read {@link Location}, may be {@code null} if its {@link Element} cannot be found.
+   */
   private Location readLocation() throws IOException {
     Element locationElement = readElement();
     int offset = dis.readInt();
@@ -89,6 +95,9 @@ class MemoryIndexReader {
     if (importPrefix.isEmpty()) {
       importPrefix = null;
     }
+    if (locationElement == null) {
+      return null;
+    }
     return new Location(locationElement, offset, length, importPrefix);
   }
 
@@ -104,7 +104,7 @@ public class MemoryIndexStoreImpl implements MemoryIndexStore {
    * actual {@link Element}s. So, in index we have to unwrap {@link InstrumentedAnalysisContextImpl}
    * when perform any operation.
    */
-  private static AnalysisContext unwrapContext(AnalysisContext context) {
+  static AnalysisContext unwrapContext(AnalysisContext context) {
     if (context instanceof InstrumentedAnalysisContextImpl) {
       context = ((InstrumentedAnalysisContextImpl) context).getBasis();
     }
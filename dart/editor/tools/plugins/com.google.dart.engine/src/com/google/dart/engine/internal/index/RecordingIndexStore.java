@@ -0,0 +1,208 @@
+/*
+ * Copyright (c) 2013, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.internal.index;
+
+import com.google.common.collect.Lists;
+import com.google.dart.engine.context.AnalysisContext;
+import com.google.dart.engine.element.Element;
+import com.google.dart.engine.index.IndexStore;
+import com.google.dart.engine.index.Location;
+import com.google.dart.engine.index.Relationship;
+import com.google.dart.engine.source.Source;
+import com.google.dart.engine.source.SourceContainer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Instances of the class {@code RecordingIndexStore} implement an {@link IndexStore} that records
+ * the information contributed by an {@link IndexContributor} so that it can later be replayed into
+ * another store. This allows the AST structure of a compilation unit to be visited without holding
+ * a lock on the store into which the information is eventually recorded.
+ * <p>
+ * Every modification, including the removal of information, is recorded and replayed in order.
+ * Queries are answered by replaying the recorded invocations into a new
+ * {@link MemoryIndexStoreImpl}, which is only expected to be done when debugging. Instances are not
+ * thread-safe.
+ * 
+ * @coverage dart.engine.index
+ */
+public class RecordingIndexStore implements IndexStore {
+  /**
+   * Instances of the class {@code RelationshipRecord} record a single invocation of
+   * {@link IndexStore#recordRelationship(Element, Relationship, Location)}.
+   */
+  private static class RelationshipRecord extends StoreRecord {
+    private final Element element;
+    private final Relationship relationship;
+    private final Location location;
+
+    public RelationshipRecord(Element element, Relationship relationship, Location location) {
+      this.element = element;
+      this.relationship = relationship;
+      this.location = location;
+    }
+
+    @Override
+    public void replay(IndexStore store) {
+      store.recordRelationship(element, relationship, location);
+    }
+  }
+
+  /**
+   * Instances of the class {@code RemoveContextRecord} record a single invocation of
+   * {@link IndexStore#removeContext(AnalysisContext)}.
+   */
+  private static class RemoveContextRecord extends StoreRecord {
+    private final AnalysisContext context;
+
+    public RemoveContextRecord(AnalysisContext context) {
+      this.context = context;
+    }
+
+    @Override
+    public void replay(IndexStore store) {
+      store.removeContext(context);
+    }
+  }
+
+  /**
+   * Instances of the class {@code RemoveSourceRecord} record a single invocation of
+   * {@link IndexStore#removeSource(AnalysisContext, Source)}.
+   */
+  private static class RemoveSourceRecord extends StoreRecord {
+    private final AnalysisContext context;
+    private final Source source;
+
+    public RemoveSourceRecord(AnalysisContext context, Source source) {
+      this.context = context;
+      this.source = source;
+    }
+
+    @Override
+    public void replay(IndexStore store) {
+      store.removeSource(context, source);
+    }
+  }
+
+  /**
+   * Instances of the class {@code RemoveSourcesRecord} record a single invocation of
+   * {@link IndexStore#removeSources(AnalysisContext, SourceContainer)}.
+   */
+  private static class RemoveSourcesRecord extends StoreRecord {
+    private final AnalysisContext context;
+    private final SourceContainer container;
+
+    public RemoveSourcesRecord(AnalysisContext context, SourceContainer container) {
+      this.context = context;
+      this.container = container;
+    }
+
+    @Override
+    public void replay(IndexStore store) {
+      store.removeSources(context, container);
+    }
+  }
+
+  /**
+   * Instances of the class {@code SourceElementsRecord} record a single invocation of
+   * {@link IndexStore#recordSourceElements(AnalysisContext, Source, List)}.
+   */
+  private static class SourceElementsRecord extends StoreRecord {
+    private final AnalysisContext context;
+    private final Source source;
+    private final List<Element> elements;
+
+    public SourceElementsRecord(AnalysisContext context, Source source, List<Element> elements) {
+      this.context = context;
+      this.source = source;
+      this.elements = elements;
+    }
+
+    @Override
+    public void replay(IndexStore store) {
+      store.recordSourceElements(context, source, elements);
+    }
+  }
+
+  /**
+   * The abstract class {@code StoreRecord} defines the behavior of objects that record a single
+   * invocation of a method on an {@link IndexStore}.
+   */
+  private static abstract class StoreRecord {
+    /**
+     * Perform the recorded invocation against the given store.
+     * 
+     * @param store the store against which the invocation is to be performed
+     */
+    public abstract void replay(IndexStore store);
+  }
+
+  /**
+   * The invocations that have been recorded, in the order in which they were made.
+   */
+  private final ArrayList<StoreRecord> records = Lists.newArrayList();
+
+  @Override
+  public Location[] getRelationships(Element element, Relationship relationship) {
+    MemoryIndexStoreImpl store = new MemoryIndexStoreImpl();
+    replay(store);
+    return store.getRelationships(element, relationship);
+  }
+
+  @Override
+  public String getStatistics() {
+    return records.size() + " recorded invocations";
+  }
+
+  @Override
+  public void recordRelationship(Element element, Relationship relationship, Location location) {
+    if (element == null || location == null) {
+      return;
+    }
+    records.add(new RelationshipRecord(element, relationship, location));
+  }
+
+  @Override
+  public void recordSourceElements(AnalysisContext context, Source source, List<Element> elements) {
+    records.add(new SourceElementsRecord(context, source, elements));
+  }
+
+  @Override
+  public void removeContext(AnalysisContext context) {
+    records.add(new RemoveContextRecord(context));
+  }
+
+  @Override
+  public void removeSource(AnalysisContext context, Source source) {
+    records.add(new RemoveSourceRecord(context, source));
+  }
+
+  @Override
+  public void removeSources(AnalysisContext context, SourceContainer container) {
+    records.add(new RemoveSourcesRecord(context, container));
+  }
+
+  /**
+   * Perform all of the recorded invocations against the given store, in the order in which they
+   * were recorded.
+   * 
+   * @param store the store against which the invocations are to be performed
+   */
+  public void replay(IndexStore store) {
+    for (StoreRecord record : records) {
+      record.replay(store);
+    }
+  }
+}
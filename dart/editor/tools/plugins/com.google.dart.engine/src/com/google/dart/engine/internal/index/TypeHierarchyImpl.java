@@ -0,0 +1,576 @@
+/*
+ * Copyright (c) 2013, the Dart project authors.
+ *
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.internal.index;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.dart.engine.ast.ClassDeclaration;
+import com.google.dart.engine.ast.ClassTypeAlias;
+import com.google.dart.engine.ast.CompilationUnit;
+import com.google.dart.engine.ast.CompilationUnitMember;
+import com.google.dart.engine.ast.ExtendsClause;
+import com.google.dart.engine.ast.ImplementsClause;
+import com.google.dart.engine.ast.TypeName;
+import com.google.dart.engine.ast.WithClause;
+import com.google.dart.engine.context.AnalysisContext;
+import com.google.dart.engine.element.ClassElement;
+import com.google.dart.engine.element.CompilationUnitElement;
+import com.google.dart.engine.element.Element;
+import com.google.dart.engine.element.ElementLocation;
+import com.google.dart.engine.element.FieldElement;
+import com.google.dart.engine.element.MethodElement;
+import com.google.dart.engine.element.PropertyAccessorElement;
+import com.google.dart.engine.index.TypeHierarchy;
+import com.google.dart.engine.source.Source;
+import com.google.dart.engine.source.SourceContainer;
+
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Implementation of {@link TypeHierarchy}, updated by {@link IndexImpl} each time a unit is
+ * indexed or a source is removed from the index.
+ * <p>
+ * The hierarchy of each {@link AnalysisContext} is a graph whose nodes are identified by the
+ * {@link ElementLocation} of the classes, so that the edges recorded for a unit stay valid when
+ * another unit is resolved and indexed again. The edges from a class to its direct supertypes are
+ * recorded by the unit declaring the class, and replaced when that unit is indexed again.
+ * <p>
+ * A class can have subtypes in other contexts, such as the contexts of nested packages, so the
+ * hierarchy is queried as the union of the graphs of all of the contexts. The transitive sets are
+ * computed on demand from the direct edges, and kept until the edges of any context are modified.
+ * Indexing a unit again without changing its edges only replaces the elements in the transitive
+ * sets.
+ *
+ * @coverage dart.engine.index
+ */
+public class TypeHierarchyImpl implements TypeHierarchy {
+  /**
+   * Instances of the class {@code ContextHierarchy} hold the hierarchy of a single context.
+   */
+  private static class ContextHierarchy {
+    /**
+     * The node of each class that is either declared in an indexed unit, or a direct supertype of
+     * such a class.
+     */
+    private final Map<ElementLocation, TypeNode> nodes = Maps.newHashMap();
+
+    /**
+     * The locations of the classes declared in each indexed unit.
+     */
+    private final Map<Source, List<ElementLocation>> declarations = Maps.newHashMap();
+  }
+
+  /**
+   * Instances of the class {@code TransitiveTypes} hold the direct and indirect subtypes and
+   * supertypes of a class, computed from the graphs of all of the contexts.
+   */
+  private static class TransitiveTypes {
+    /**
+     * The direct and indirect subtypes of the class, or {@code null} if they have not been
+     * computed.
+     */
+    private Set<ClassElement> allSubtypes;
+
+    /**
+     * The direct and indirect supertypes of the class, or {@code null} if they have not been
+     * computed.
+     */
+    private Set<ClassElement> allSupertypes;
+
+    /**
+     * The element stamp of the hierarchy when the elements in the sets were looked up.
+     */
+    private int elementStamp;
+  }
+
+  /**
+   * Instances of the class {@code TypeNode} represent a class in the hierarchy.
+   */
+  private static class TypeNode {
+    /**
+     * The most recent element known for the class.
+     */
+    private ClassElement element;
+
+    /**
+     * The source of the unit declaring the class, or {@code null} if that unit is not indexed and
+     * the class is only known as the supertype of another class.
+     */
+    private Source source;
+
+    /**
+     * The locations of the direct supertypes of the class.
+     */
+    private final Set<ElementLocation> supertypes = Sets.newLinkedHashSet();
+
+    /**
+     * The locations of the direct subtypes of the class.
+     */
+    private final Set<ElementLocation> subtypes = Sets.newLinkedHashSet();
+
+    /**
+     * The members declared in the class, keyed by their name, or {@code null} if they have not been
+     * computed since the element of the class was last changed.
+     */
+    private Map<String, List<Element>> members;
+  }
+
+  /**
+   * Add the given member to the members with the same name.
+   */
+  private static void addMember(Map<String, List<Element>> members, Element member) {
+    if (member.isSynthetic()) {
+      return;
+    }
+    String name = member.getDisplayName();
+    List<Element> namedMembers = members.get(name);
+    if (namedMembers == null) {
+      namedMembers = Lists.newArrayListWithCapacity(1);
+      members.put(name, namedMembers);
+    }
+    namedMembers.add(member);
+  }
+
+  /**
+   * Add to the given list the element of the given type name if it is a class.
+   */
+  private static void addSupertype(List<ClassElement> supertypes, TypeName typeName) {
+    if (typeName != null) {
+      Element element = typeName.getName().getElement();
+      if (element instanceof ClassElement) {
+        supertypes.add((ClassElement) element);
+      }
+    }
+  }
+
+  /**
+   * Add to the given list the classes named in the given clauses.
+   */
+  private static void addSupertypes(List<ClassElement> supertypes, TypeName superclass,
+      WithClause withClause, ImplementsClause implementsClause) {
+    addSupertype(supertypes, superclass);
+    if (withClause != null) {
+      for (TypeName mixin : withClause.getMixinTypes()) {
+        addSupertype(supertypes, mixin);
+      }
+    }
+    if (implementsClause != null) {
+      for (TypeName intf : implementsClause.getInterfaces()) {
+        addSupertype(supertypes, intf);
+      }
+    }
+  }
+
+  /**
+   * The hierarchy of each context.
+   */
+  private final Map<AnalysisContext, ContextHierarchy> contexts = Maps.newHashMap();
+
+  /**
+   * The transitive sets of each class whose sets were computed since the edges of any context were
+   * last modified.
+   */
+  private final Map<ElementLocation, TransitiveTypes> transitiveTypes = Maps.newHashMap();
+
+  /**
+   * The number of times the element of a class has been replaced in any context, used to replace
+   * the elements in the transitive sets.
+   */
+  private int elementStamp;
+
+  @Override
+  public synchronized Set<ClassElement> getDirectSubtypes(ClassElement type) {
+    return getElements(getDirectTypes(type.getLocation(), true));
+  }
+
+  @Override
+  public synchronized Set<ClassElement> getDirectSupertypes(ClassElement type) {
+    return getElements(getDirectTypes(type.getLocation(), false));
+  }
+
+  @Override
+  public synchronized List<Element> getOverriddenMembers(Element member) {
+    Element enclosingElement = member.getEnclosingElement();
+    if (!(enclosingElement instanceof ClassElement)) {
+      return Collections.emptyList();
+    }
+    return getMembers((ClassElement) enclosingElement, false, member.getDisplayName());
+  }
+
+  @Override
+  public synchronized List<Element> getOverridingMembers(Element member) {
+    Element enclosingElement = member.getEnclosingElement();
+    if (!(enclosingElement instanceof ClassElement)) {
+      return Collections.emptyList();
+    }
+    return getMembers((ClassElement) enclosingElement, true, member.getDisplayName());
+  }
+
+  @Override
+  public synchronized Set<ClassElement> getSubtypes(ClassElement type) {
+    return getTransitiveTypes(type, true);
+  }
+
+  @Override
+  public synchronized Set<ClassElement> getSupertypes(ClassElement type) {
+    return getTransitiveTypes(type, false);
+  }
+
+  /**
+   * Record the classes declared in the given unit, replacing the classes previously recorded for
+   * the source of the unit.
+   *
+   * @param context the {@link AnalysisContext} in which the unit was resolved
+   * @param unit the resolved unit being indexed
+   */
+  public synchronized void indexUnit(AnalysisContext context, CompilationUnit unit) {
+    CompilationUnitElement unitElement = unit.getElement();
+    if (unitElement == null) {
+      return;
+    }
+    Source source = unitElement.getSource();
+    ContextHierarchy hierarchy = contexts.get(context);
+    if (hierarchy == null) {
+      hierarchy = new ContextHierarchy();
+      contexts.put(context, hierarchy);
+    }
+    Map<ElementLocation, List<ElementLocation>> oldEdges = getEdges(hierarchy, source);
+    removeSource(hierarchy, source);
+    List<ElementLocation> declared = Lists.newArrayList();
+    for (CompilationUnitMember member : unit.getDeclarations()) {
+      ClassElement element = null;
+      List<ClassElement> supertypes = Lists.newArrayList();
+      if (member instanceof ClassDeclaration) {
+        ClassDeclaration declaration = (ClassDeclaration) member;
+        element = declaration.getElement();
+        ExtendsClause extendsClause = declaration.getExtendsClause();
+        addSupertypes(
+            supertypes,
+            extendsClause != null ? extendsClause.getSuperclass() : null,
+            declaration.getWithClause(),
+            declaration.getImplementsClause());
+      } else if (member instanceof ClassTypeAlias) {
+        ClassTypeAlias alias = (ClassTypeAlias) member;
+        element = alias.getElement();
+        addSupertypes(
+            supertypes,
+            alias.getSuperclass(),
+            alias.getWithClause(),
+            alias.getImplementsClause());
+      }
+      if (element != null) {
+        declared.add(addClass(hierarchy, source, element, supertypes));
+      }
+    }
+    if (!declared.isEmpty()) {
+      hierarchy.declarations.put(source, declared);
+    }
+    if (!getEdges(hierarchy, source).equals(oldEdges)) {
+      transitiveTypes.clear();
+    }
+  }
+
+  /**
+   * Remove the classes recorded for the given context.
+   *
+   * @param context the {@link AnalysisContext} being removed
+   */
+  public synchronized void removeContext(AnalysisContext context) {
+    if (contexts.remove(context) != null) {
+      transitiveTypes.clear();
+    }
+  }
+
+  /**
+   * Remove the classes declared in the given source.
+   *
+   * @param context the {@link AnalysisContext} in which the source is being removed
+   * @param source the {@link Source} being removed
+   */
+  public synchronized void removeSource(AnalysisContext context, Source source) {
+    ContextHierarchy hierarchy = contexts.get(context);
+    if (hierarchy != null && removeSource(hierarchy, source)) {
+      transitiveTypes.clear();
+    }
+  }
+
+  /**
+   * Remove the classes declared in the sources of the given container.
+   *
+   * @param context the {@link AnalysisContext} in which the sources are being removed
+   * @param container the {@link SourceContainer} holding the sources being removed
+   */
+  public synchronized void removeSources(AnalysisContext context, SourceContainer container) {
+    ContextHierarchy hierarchy = contexts.get(context);
+    if (hierarchy != null && container != null) {
+      boolean removed = false;
+      for (Source source : Lists.newArrayList(hierarchy.declarations.keySet())) {
+        if (container.contains(source)) {
+          removed |= removeSource(hierarchy, source);
+        }
+      }
+      if (removed) {
+        transitiveTypes.clear();
+      }
+    }
+  }
+
+  /**
+   * Record the given class, declared in the given source, and the edges to its direct supertypes.
+   *
+   * @return the location of the class
+   */
+  private ElementLocation addClass(ContextHierarchy hierarchy, Source source,
+      ClassElement element, List<ClassElement> supertypes) {
+    ElementLocation location = element.getLocation();
+    TypeNode node = getOrCreateNode(hierarchy, location);
+    setElement(node, element);
+    node.source = source;
+    for (ClassElement supertype : supertypes) {
+      ElementLocation superLocation = supertype.getLocation();
+      if (superLocation.equals(location)) {
+        continue;
+      }
+      TypeNode superNode = getOrCreateNode(hierarchy, superLocation);
+      if (superNode.source == null) {
+        setElement(superNode, supertype);
+      }
+      node.supertypes.add(superLocation);
+      superNode.subtypes.add(location);
+    }
+    return location;
+  }
+
+  /**
+   * Return the locations of the direct subtypes or supertypes of the class with the given location
+   * recorded in any context.
+   */
+  private Set<ElementLocation> getDirectTypes(ElementLocation location, boolean subtypes) {
+    Set<ElementLocation> locations = Sets.newLinkedHashSet();
+    for (ContextHierarchy hierarchy : contexts.values()) {
+      TypeNode node = hierarchy.nodes.get(location);
+      if (node != null) {
+        locations.addAll(subtypes ? node.subtypes : node.supertypes);
+      }
+    }
+    return locations;
+  }
+
+  /**
+   * Return the locations of the direct supertypes of the classes declared in the given source,
+   * keyed by the location of the class.
+   */
+  private Map<ElementLocation, List<ElementLocation>> getEdges(ContextHierarchy hierarchy,
+      Source source) {
+    List<ElementLocation> declared = hierarchy.declarations.get(source);
+    if (declared == null) {
+      return Collections.emptyMap();
+    }
+    Map<ElementLocation, List<ElementLocation>> edges = Maps.newHashMap();
+    for (ElementLocation location : declared) {
+      edges.put(location, Lists.newArrayList(hierarchy.nodes.get(location).supertypes));
+    }
+    return edges;
+  }
+
+  /**
+   * Return the elements of the classes with the given locations.
+   */
+  private Set<ClassElement> getElements(Set<ElementLocation> locations) {
+    Set<ClassElement> elements = Sets.newLinkedHashSet();
+    for (ElementLocation location : locations) {
+      elements.add(getNode(location).element);
+    }
+    return Collections.unmodifiableSet(elements);
+  }
+
+  /**
+   * Return the members with the given name declared in the subtypes or supertypes of the given
+   * class.
+   */
+  private List<Element> getMembers(ClassElement type, boolean subtypes, String name) {
+    List<Element> result = Lists.newArrayList();
+    for (ClassElement hierarchyType : getTransitiveTypes(type, subtypes)) {
+      List<Element> members = getMembers(getNode(hierarchyType.getLocation())).get(name);
+      if (members != null) {
+        result.addAll(members);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Return the members declared in the class represented by the given node.
+   */
+  private Map<String, List<Element>> getMembers(TypeNode node) {
+    if (node.members == null) {
+      Map<String, List<Element>> members = Maps.newHashMap();
+      for (MethodElement method : node.element.getMethods()) {
+        addMember(members, method);
+      }
+      for (PropertyAccessorElement accessor : node.element.getAccessors()) {
+        addMember(members, accessor);
+      }
+      for (FieldElement field : node.element.getFields()) {
+        addMember(members, field);
+      }
+      node.members = members;
+    }
+    return node.members;
+  }
+
+  /**
+   * Return the most recent elements of the classes in the given transitive set, or {@code null} if
+   * the set has not been computed.
+   */
+  private Set<ClassElement> getLatestElements(Set<ClassElement> elements) {
+    if (elements == null) {
+      return null;
+    }
+    Set<ClassElement> latestElements = Sets.newLinkedHashSet();
+    for (ClassElement element : elements) {
+      latestElements.add(getNode(element.getLocation()).element);
+    }
+    return Collections.unmodifiableSet(latestElements);
+  }
+
+  /**
+   * Return the node of the class with the given location, preferring the node of a context in which
+   * the class is declared, or {@code null} if the class is not known in any context.
+   */
+  private TypeNode getNode(ElementLocation location) {
+    TypeNode result = null;
+    for (ContextHierarchy hierarchy : contexts.values()) {
+      TypeNode node = hierarchy.nodes.get(location);
+      if (node != null) {
+        if (node.source != null) {
+          return node;
+        } else if (result == null) {
+          result = node;
+        }
+      }
+    }
+    return result;
+  }
+
+  private TypeNode getOrCreateNode(ContextHierarchy hierarchy, ElementLocation location) {
+    TypeNode node = hierarchy.nodes.get(location);
+    if (node == null) {
+      node = new TypeNode();
+      hierarchy.nodes.put(location, node);
+    }
+    return node;
+  }
+
+  /**
+   * Return the direct and indirect subtypes or supertypes of the given class, computing them if
+   * the edges of any context have been modified since they were last computed.
+   */
+  private Set<ClassElement> getTransitiveTypes(ClassElement type, boolean subtypes) {
+    ElementLocation typeLocation = type.getLocation();
+    if (getNode(typeLocation) == null) {
+      return Collections.emptySet();
+    }
+    TransitiveTypes types = transitiveTypes.get(typeLocation);
+    if (types == null) {
+      types = new TransitiveTypes();
+      types.elementStamp = elementStamp;
+      transitiveTypes.put(typeLocation, types);
+    } else if (types.elementStamp != elementStamp) {
+      types.allSubtypes = getLatestElements(types.allSubtypes);
+      types.allSupertypes = getLatestElements(types.allSupertypes);
+      types.elementStamp = elementStamp;
+    }
+    Set<ClassElement> result = subtypes ? types.allSubtypes : types.allSupertypes;
+    if (result != null) {
+      return result;
+    }
+    Set<ElementLocation> visited = Sets.newHashSet();
+    visited.add(typeLocation);
+    Set<ClassElement> elements = Sets.newLinkedHashSet();
+    LinkedList<ElementLocation> queue = Lists.newLinkedList();
+    queue.add(typeLocation);
+    while (!queue.isEmpty()) {
+      for (ElementLocation location : getDirectTypes(queue.removeFirst(), subtypes)) {
+        if (visited.add(location)) {
+          elements.add(getNode(location).element);
+          queue.add(location);
+        }
+      }
+    }
+    result = Collections.unmodifiableSet(elements);
+    if (subtypes) {
+      types.allSubtypes = result;
+    } else {
+      types.allSupertypes = result;
+    }
+    return result;
+  }
+
+  /**
+   * Remove the classes declared in the given source, and the edges to their direct supertypes.
+   *
+   * @return {@code true} if any classes were recorded for the given source
+   */
+  private boolean removeSource(ContextHierarchy hierarchy, Source source) {
+    List<ElementLocation> declared = hierarchy.declarations.remove(source);
+    if (declared == null) {
+      return false;
+    }
+    for (ElementLocation location : declared) {
+      TypeNode node = hierarchy.nodes.get(location);
+      if (node == null) {
+        continue;
+      }
+      for (ElementLocation superLocation : node.supertypes) {
+        TypeNode superNode = hierarchy.nodes.get(superLocation);
+        if (superNode != null) {
+          superNode.subtypes.remove(location);
+          removeIfUnused(hierarchy, superLocation, superNode);
+        }
+      }
+      node.supertypes.clear();
+      node.source = null;
+      removeIfUnused(hierarchy, location, node);
+    }
+    return true;
+  }
+
+  /**
+   * Remove the given node if its class is neither declared in an indexed unit nor the supertype of
+   * such a class.
+   */
+  private void removeIfUnused(ContextHierarchy hierarchy, ElementLocation location, TypeNode node) {
+    if (node.source == null && node.subtypes.isEmpty()) {
+      hierarchy.nodes.remove(location);
+    }
+  }
+
+  /**
+   * Record the given element as the most recent element of the class represented by the given
+   * node.
+   */
+  private void setElement(TypeNode node, ClassElement element) {
+    if (node.element != element) {
+      node.element = element;
+      node.members = null;
+      elementStamp++;
+    }
+  }
+}
@@ -19,6 +19,7 @@ import com.google.dart.engine.index.IndexStore;
 import com.google.dart.engine.index.Location;
 import com.google.dart.engine.index.Relationship;
 import com.google.dart.engine.index.RelationshipCallback;
+import com.google.dart.engine.internal.index.CachingRelationshipCallback;
 import com.google.dart.engine.source.Source;
 
 /**
@@ -33,16 +34,33 @@ public class GetRelationshipsOperation implements IndexOperation {
   private final Relationship relationship;
   private RelationshipCallback callback;
 
+  /**
+   * The processor performing the operations on the index store, used to access the modification
+   * stamp of the store, or {@code null} if the stamp is not available.
+   */
+  private final OperationProcessor processor;
+
   /**
    * Initialize a newly created operation that will access the locations that have a specified
    * relationship with a specified element.
    */
   public GetRelationshipsOperation(IndexStore indexStore, Element element,
       Relationship relationship, RelationshipCallback callback) {
+    this(indexStore, element, relationship, callback, null);
+  }
+
+  /**
+   * Initialize a newly created operation that will access the locations that have a specified
+   * relationship with a specified element. A {@link CachingRelationshipCallback} is given the
+   * modification stamp of the store maintained by the given processor.
+   */
+  public GetRelationshipsOperation(IndexStore indexStore, Element element,
+      Relationship relationship, RelationshipCallback callback, OperationProcessor processor) {
     this.indexStore = indexStore;
     this.element = element;
     this.relationship = relationship;
     this.callback = callback;
+    this.processor = processor;
   }
 
   @VisibleForTesting
@@ -67,10 +85,16 @@ public class GetRelationshipsOperation implements IndexOperation {
 
   @Override
   public void performOperation() {
-    Location[] locations;
-    synchronized (indexStore) {
-      locations = indexStore.getRelationships(element, relationship);
+    if (processor != null && callback instanceof CachingRelationshipCallback) {
+      CachingRelationshipCallback cachingCallback = (CachingRelationshipCallback) callback;
+      long modificationStamp = processor.getModificationStamp();
+      if (!cachingCallback.hasCachedRelationships(element, relationship, modificationStamp)) {
+        Location[] locations = indexStore.getRelationships(element, relationship);
+        cachingCallback.hasRelationships(element, relationship, locations, modificationStamp);
+      }
+      return;
     }
+    Location[] locations = indexStore.getRelationships(element, relationship);
     callback.hasRelationships(element, relationship, locations);
   }
 
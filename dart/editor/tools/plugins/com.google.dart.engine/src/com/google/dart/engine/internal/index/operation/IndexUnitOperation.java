@@ -19,7 +19,9 @@ import com.google.dart.engine.AnalysisEngine;
 import com.google.dart.engine.ast.CompilationUnit;
 import com.google.dart.engine.context.AnalysisContext;
 import com.google.dart.engine.index.IndexStore;
+import com.google.dart.engine.index.MappedIndexStore;
 import com.google.dart.engine.internal.index.IndexContributor;
+import com.google.dart.engine.internal.index.RecordingIndexStore;
 import com.google.dart.engine.source.Source;
 
 /**
@@ -63,6 +65,33 @@ public class IndexUnitOperation implements IndexOperation {
     this.source = unit.getElement().getSource();
   }
 
+  /**
+   * Visit the compilation unit being indexed and return the information it contributes to the
+   * index. The index store is not accessed, so this method can be invoked on any thread, at the same
+   * time as other operations are being performed.
+   * 
+   * @return the information contributed by the compilation unit
+   */
+  public RecordingIndexStore contribute() {
+    RecordingIndexStore contribution = new RecordingIndexStore();
+    try {
+      IndexContributor contributor = new IndexContributor(contribution);
+      unit.accept(contributor);
+    } catch (Throwable exception) {
+      AnalysisEngine.getInstance().getLogger().logError(
+          "Could not index " + unit.getElement().getLocation(),
+          exception);
+    }
+    return contribution;
+  }
+
+  /**
+   * @return the {@link AnalysisContext} in which the unit was resolved.
+   */
+  public AnalysisContext getContext() {
+    return context;
+  }
+
   /**
    * @return the {@link Source} to be indexed.
    */
@@ -78,24 +107,40 @@ public class IndexUnitOperation implements IndexOperation {
     return unit;
   }
 
+  /**
+   * Return {@code true} if the index store already has up-to-date information about the source
+   * being indexed, for example because it was read from the file of a {@link MappedIndexStore}, so
+   * that the unit does not need to be indexed again.
+   * 
+   * @return {@code true} if this operation does not need to be performed
+   */
+  public boolean isIndexed() {
+    return indexStore instanceof MappedIndexStore
+        && ((MappedIndexStore) indexStore).isIndexed(context, source);
+  }
+
   @Override
   public boolean isQuery() {
     return false;
   }
 
+  /**
+   * Replace the information in the index store about the source being indexed with the given
+   * information, which was returned by {@link #contribute()}.
+   * 
+   * @param contribution the information contributed by the compilation unit
+   */
+  public void merge(RecordingIndexStore contribution) {
+    indexStore.removeSource(context, source);
+    contribution.replay(indexStore);
+  }
+
   @Override
   public void performOperation() {
-    synchronized (indexStore) {
-      indexStore.removeSource(context, source);
-      try {
-        IndexContributor contributor = new IndexContributor(indexStore);
-        unit.accept(contributor);
-      } catch (Throwable exception) {
-        AnalysisEngine.getInstance().getLogger().logError(
-            "Could not index " + unit.getElement().getLocation(),
-            exception);
-      }
+    if (isIndexed()) {
+      return;
     }
+    merge(contribute());
   }
 
   @Override
@@ -13,21 +13,71 @@
  */
 package com.google.dart.engine.internal.index.operation;
 
+import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
 import com.google.common.util.concurrent.Uninterruptibles;
 import com.google.dart.engine.AnalysisEngine;
+import com.google.dart.engine.internal.index.RecordingIndexStore;
 import com.google.dart.engine.source.Source;
 
+import java.util.LinkedList;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
  * Instances of the {@link OperationProcessor} process the operations on a single
  * {@link OperationQueue operation queue}. Each processor can be run one time on a single thread.
+ * <p>
+ * If the processor was created with more than one thread, then the thread running the processor
+ * only dispatches operations. The AST structures of the units being indexed are visited by worker
+ * threads, but the resulting information is merged into the index store by the running thread in
+ * the order in which the operations were removed from the queue. Queries are performed by worker
+ * threads, concurrently with each other and with the visiting of AST structures, but never while
+ * the store is being modified, and only after the modifications requested before the query have
+ * been made and before any modification requested after the query is made. The processor therefore
+ * guards all access to the store by the operations it performs; other readers of the store must
+ * hold the {@link #getStoreReadLock() read lock}.
  * 
  * @coverage dart.engine.index
  */
 public class OperationProcessor {
+  /**
+   * Instances of the class {@code PendingContribution} represent an operation to index a unit
+   * whose contribution is being computed by a worker thread but has not yet been merged into the
+   * index store.
+   */
+  private static class PendingContribution {
+    /**
+     * The operation whose contribution is being computed.
+     */
+    private final IndexUnitOperation operation;
+
+    /**
+     * The future used to access the contribution of the operation.
+     */
+    private final Future<RecordingIndexStore> contribution;
+
+    /**
+     * Initialize a newly created pending contribution.
+     * 
+     * @param operation the operation whose contribution is being computed
+     * @param contribution the future used to access the contribution of the operation
+     */
+    public PendingContribution(IndexUnitOperation operation,
+        Future<RecordingIndexStore> contribution) {
+      this.operation = operation;
+      this.contribution = contribution;
+    }
+  }
+
   /**
    * The enumeration <code>ProcessorState</code> represents the possible states of an operation
    * processor.
@@ -71,12 +121,86 @@ public class OperationProcessor {
   private static long WAIT_DURATION = 100L;
 
   /**
-   * Initialize a newly created operation processor to process the operations on the given queue.
+   * The number of threads used to perform operations.
+   */
+  private final int threadCount;
+
+  /**
+   * The lock used to prevent the index store from being modified while it is being queried.
+   */
+  private final ReentrantReadWriteLock storeLock = new ReentrantReadWriteLock();
+
+  /**
+   * The object used to wait for the queries that have been dispatched to worker threads to acquire
+   * the read lock on the index store.
+   */
+  private final Object queryStarted = new Object();
+
+  /**
+   * The number of queries that have been dispatched to worker threads but have not yet acquired the
+   * read lock on the index store. This field is guarded by {@link #queryStarted}.
+   */
+  private int unstartedQueryCount = 0;
+
+  /**
+   * The number of times the write lock on the index store has been acquired. The stamp is only
+   * modified while holding the write lock, so it does not change while a query is performed.
+   */
+  private volatile long modificationStamp = 0L;
+
+  /**
+   * The executor used to run the worker threads, or {@code null} if all of the operations are
+   * performed by the thread running this processor.
+   */
+  private ExecutorService workerPool;
+
+  /**
+   * The contributions that are being computed or that have not yet been merged, in the order in
+   * which the operations were removed from the queue. This list is only accessed by the thread
+   * running this processor.
+   */
+  private final LinkedList<PendingContribution> pendingContributions = Lists.newLinkedList();
+
+  /**
+   * Initialize a newly created operation processor to process the operations on the given queue
+   * using only the thread on which it is run.
    * 
    * @param queue the queue containing the operations to be processed
    */
   public OperationProcessor(OperationQueue queue) {
+    this(queue, 1);
+  }
+
+  /**
+   * Initialize a newly created operation processor to process the operations on the given queue
+   * using the given number of threads.
+   * 
+   * @param queue the queue containing the operations to be processed
+   * @param threadCount the number of threads used to perform operations
+   */
+  public OperationProcessor(OperationQueue queue, int threadCount) {
     this.queue = queue;
+    this.threadCount = Math.max(1, threadCount);
+  }
+
+  /**
+   * Return the modification stamp of the index store, which is different after each modification of
+   * the store. While a query is being performed the stamp does not change.
+   * 
+   * @return the modification stamp of the index store
+   */
+  public long getModificationStamp() {
+    return modificationStamp;
+  }
+
+  /**
+   * Return the lock that must be held while reading the index store from outside the operations
+   * performed by this processor.
+   * 
+   * @return the lock that must be held while reading the index store
+   */
+  public Lock getStoreReadLock() {
+    return storeLock.readLock();
   }
 
   /**
@@ -94,28 +218,43 @@ public class OperationProcessor {
       // OK, run.
       state = ProcessorState.RUNNING;
     }
+    if (threadCount > 1) {
+      workerPool = Executors.newFixedThreadPool(threadCount, new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable runnable) {
+          Thread thread = new Thread(runnable, "Index worker");
+          thread.setDaemon(true);
+          return thread;
+        }
+      });
+    }
     try {
       while (isRunning()) {
-        // wait for operation
+        mergeCompletedContributions();
+        // wait for operation, unless there are contributions to be merged
         IndexOperation operation = null;
         try {
-          operation = queue.dequeue(WAIT_DURATION);
+          operation = queue.dequeue(pendingContributions.isEmpty() ? WAIT_DURATION : 0L);
         } catch (InterruptedException exception) {
           // ignore
         }
         // perform operation
         if (operation != null) {
-          try {
-            operation.performOperation();
-          } catch (Throwable exception) {
-            AnalysisEngine.getInstance().getLogger().logError(
-                "Exception in indexing operation: " + operation, exception); //$NON-NLS-1$
-          }
+          dispatchOperation(operation);
+        } else if (!pendingContributions.isEmpty()) {
+          mergeNextContribution();
         }
       }
     } finally {
-      synchronized (this) {
-        state = ProcessorState.STOPPED;
+      try {
+        mergeContributions();
+        if (workerPool != null) {
+          workerPool.shutdown();
+        }
+      } finally {
+        synchronized (this) {
+          state = ProcessorState.STOPPED;
+        }
       }
     }
   }
@@ -165,6 +304,63 @@ public class OperationProcessor {
     return state == ProcessorState.RUNNING;
   }
 
+  /**
+   * Perform the given operation, or arrange for it to be performed by a worker thread.
+   * 
+   * @param operation the operation to be performed
+   */
+  private void dispatchOperation(final IndexOperation operation) {
+    if (workerPool == null) {
+      performOperation(operation);
+    } else if (operation instanceof IndexUnitOperation) {
+      final IndexUnitOperation unitOperation = (IndexUnitOperation) operation;
+      // the unit is not visited again if the store already has the information it contributes
+      if (unitOperation.isIndexed()) {
+        return;
+      }
+      if (pendingContributions.size() >= threadCount * 2) {
+        mergeNextContribution();
+      }
+      Future<RecordingIndexStore> contribution = workerPool.submit(new Callable<RecordingIndexStore>() {
+        @Override
+        public RecordingIndexStore call() {
+          return unitOperation.contribute();
+        }
+      });
+      pendingContributions.add(new PendingContribution(unitOperation, contribution));
+    } else {
+      // every operation must see the effects of the operations that were dequeued before it
+      mergeContributions();
+      if (operation.isQuery()) {
+        // later modifications must wait until the query has acquired the read lock
+        synchronized (queryStarted) {
+          unstartedQueryCount++;
+        }
+        workerPool.execute(new Runnable() {
+          @Override
+          public void run() {
+            Lock lock = storeLock.readLock();
+            lock.lock();
+            synchronized (queryStarted) {
+              unstartedQueryCount--;
+              queryStarted.notifyAll();
+            }
+            try {
+              operation.performOperation();
+            } catch (Throwable exception) {
+              AnalysisEngine.getInstance().getLogger().logError(
+                  "Exception in indexing operation: " + operation, exception); //$NON-NLS-1$
+            } finally {
+              lock.unlock();
+            }
+          }
+        });
+      } else {
+        performOperation(operation);
+      }
+    }
+  }
+
   /**
    * @return the {@link Source}s that are not indexed yet.
    */
@@ -189,4 +385,99 @@ public class OperationProcessor {
       return state == ProcessorState.RUNNING;
     }
   }
+
+  /**
+   * Acquire the write lock on the index store, after waiting for the queries that have already been
+   * dispatched to worker threads to acquire the read lock, so that those queries do not see the
+   * modification about to be made.
+   * 
+   * @return the write lock, which the caller must release
+   */
+  private Lock lockForWriting() {
+    synchronized (queryStarted) {
+      boolean interrupted = false;
+      while (unstartedQueryCount > 0) {
+        try {
+          queryStarted.wait();
+        } catch (InterruptedException exception) {
+          interrupted = true;
+        }
+      }
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+    }
+    Lock lock = storeLock.writeLock();
+    lock.lock();
+    modificationStamp++;
+    return lock;
+  }
+
+  /**
+   * Merge the contributions at the head of the list of pending contributions that have already been
+   * computed.
+   */
+  private void mergeCompletedContributions() {
+    while (!pendingContributions.isEmpty() && pendingContributions.getFirst().contribution.isDone()) {
+      mergeNextContribution();
+    }
+  }
+
+  /**
+   * Merge all of the pending contributions, waiting for them to be computed if necessary.
+   */
+  private void mergeContributions() {
+    while (!pendingContributions.isEmpty()) {
+      mergeNextContribution();
+    }
+  }
+
+  /**
+   * Merge the contribution at the head of the list of pending contributions, waiting for it to be
+   * computed if necessary.
+   */
+  private void mergeNextContribution() {
+    PendingContribution pending = pendingContributions.removeFirst();
+    RecordingIndexStore contribution;
+    try {
+      contribution = Uninterruptibles.getUninterruptibly(pending.contribution);
+    } catch (ExecutionException exception) {
+      AnalysisEngine.getInstance().getLogger().logError(
+          "Exception in indexing operation: " + pending.operation, //$NON-NLS-1$
+          exception.getCause());
+      return;
+    }
+    Lock lock = lockForWriting();
+    try {
+      pending.operation.merge(contribution);
+    } catch (Throwable exception) {
+      AnalysisEngine.getInstance().getLogger().logError(
+          "Exception in indexing operation: " + pending.operation, exception); //$NON-NLS-1$
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Perform the given operation while holding the appropriate lock on the index store.
+   * 
+   * @param operation the operation to be performed
+   */
+  private void performOperation(IndexOperation operation) {
+    Lock lock;
+    if (operation.isQuery()) {
+      lock = storeLock.readLock();
+      lock.lock();
+    } else {
+      lock = lockForWriting();
+    }
+    try {
+      operation.performOperation();
+    } catch (Throwable exception) {
+      AnalysisEngine.getInstance().getLogger().logError(
+          "Exception in indexing operation: " + operation, exception); //$NON-NLS-1$
+    } finally {
+      lock.unlock();
+    }
+  }
 }
@@ -14,33 +14,225 @@
 package com.google.dart.engine.internal.index.operation;
 
 import com.google.common.collect.Lists;
+import com.google.dart.engine.context.AnalysisContext;
 import com.google.dart.engine.source.Source;
+import com.google.dart.engine.utilities.general.ObjectUtilities;
 
-import java.util.Iterator;
+import java.util.Collections;
 import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Instances of the {@link OperationQueue} represent a queue of operations against the index that
  * are waiting to be performed.
+ * <p>
+ * The queue has two lanes: one for the operations that update the index and one for queries. The
+ * lanes are lock-free, so adding an operation never waits for a thread that is removing one. At
+ * most one {@link IndexUnitOperation} is pending for each source in each context: a newer operation
+ * for the same source in the same context replaces the pending one, and a
+ * {@link RemoveSourceOperation} for that source and context cancels it, without scanning the queue.
  * 
  * @coverage dart.engine.index
  */
 public class OperationQueue {
+  /**
+   * Instances of the class {@code PendingUnitKey} identify a source within the context in which it
+   * is indexed.
+   */
+  private static class PendingUnitKey {
+    /**
+     * The context in which the source is indexed.
+     */
+    private final AnalysisContext context;
+
+    /**
+     * The source being indexed.
+     */
+    private final Source source;
+
+    /**
+     * Initialize a newly created key to identify the given source in the given context.
+     * 
+     * @param context the context in which the source is indexed
+     * @param source the source being indexed
+     */
+    public PendingUnitKey(AnalysisContext context, Source source) {
+      this.context = context;
+      this.source = source;
+    }
+
+    @Override
+    public boolean equals(Object object) {
+      if (!(object instanceof PendingUnitKey)) {
+        return false;
+      }
+      PendingUnitKey other = (PendingUnitKey) object;
+      return other.context == context && ObjectUtilities.equals(other.source, source);
+    }
+
+    @Override
+    public int hashCode() {
+      return System.identityHashCode(context) * 31 + (source == null ? 0 : source.hashCode());
+    }
+  }
+
+  /**
+   * Instances of the class {@code QueuedOperation} represent an operation on the queue.
+   */
+  private static class QueuedOperation {
+    /**
+     * The operation that is waiting to be performed.
+     */
+    private final IndexOperation operation;
+
+    /**
+     * The time at which the operation was added to the queue.
+     */
+    private final long enqueueTime = System.currentTimeMillis();
+
+    /**
+     * A flag that is set when the operation has either been removed from the queue to be
+     * performed or has been cancelled, whichever happens first.
+     */
+    private final AtomicBoolean done = new AtomicBoolean(false);
+
+    /**
+     * Initialize a newly created queued operation to represent the given operation.
+     * 
+     * @param operation the operation that is waiting to be performed
+     */
+    public QueuedOperation(IndexOperation operation) {
+      this.operation = operation;
+    }
+
+    /**
+     * Mark this operation as being done, and return {@code true} if it was not already done.
+     * 
+     * @return {@code true} if the caller is the one that marked this operation as done
+     */
+    public boolean markDone() {
+      return done.compareAndSet(false, true);
+    }
+  }
+
+  /**
+   * Return the key of the pending {@link IndexUnitOperation} that is replaced by the given
+   * operation, or {@code null} if the operation does not replace pending operations.
+   * 
+   * @param operation the operation being added to the queue
+   * @return the context and source of the given operation if it is an {@link IndexUnitOperation}
+   */
+  private static PendingUnitKey getCoalescedKey(IndexOperation operation) {
+    if (operation instanceof IndexUnitOperation) {
+      IndexUnitOperation unitOperation = (IndexUnitOperation) operation;
+      return new PendingUnitKey(unitOperation.getContext(), unitOperation.getSource());
+    }
+    return null;
+  }
+
+  /**
+   * Return {@code true} if the given operation might need to be removed when a source is removed.
+   * The operations defined in this package, other than {@link IndexUnitOperation}, are never
+   * removed, so they do not need to be asked.
+   * 
+   * @param operation the operation being added to the queue
+   * @return {@code true} if the operation might need to be removed when a source is removed
+   */
+  private static boolean mayBeRemovedWithSource(IndexOperation operation) {
+    return !(operation instanceof GetRelationshipsOperation
+        || operation instanceof RemoveContextOperation
+        || operation instanceof RemoveSourceOperation
+        || operation instanceof RemoveSourcesOperation);
+  }
+
   /**
    * The non-query operations that are waiting to be performed.
    */
-  private final List<IndexOperation> nonQueryOperations = Lists.newLinkedList();
+  private final Queue<QueuedOperation> nonQueryOperations = new ConcurrentLinkedQueue<QueuedOperation>();
 
   /**
    * The query operations that are waiting to be performed.
    */
-  private final List<IndexOperation> queryOperations = Lists.newLinkedList();
+  private final Queue<QueuedOperation> queryOperations = new ConcurrentLinkedQueue<QueuedOperation>();
+
+  /**
+   * A table mapping sources, within the context in which they are indexed, to the pending
+   * {@link IndexUnitOperation} for that source.
+   */
+  private final ConcurrentHashMap<PendingUnitKey, QueuedOperation> pendingUnitOperations = new ConcurrentHashMap<PendingUnitKey, QueuedOperation>();
+
+  /**
+   * The pending operations, other than those in {@link #pendingUnitOperations}, that need to be
+   * asked whether they should be removed when a source is removed.
+   */
+  private final Set<QueuedOperation> otherOperations = Collections.newSetFromMap(new ConcurrentHashMap<QueuedOperation, Boolean>());
+
+  /**
+   * The number of non-query operations that are waiting to be performed.
+   */
+  private final AtomicInteger nonQueryCount = new AtomicInteger();
+
+  /**
+   * The number of query operations that are waiting to be performed.
+   */
+  private final AtomicInteger queryCount = new AtomicInteger();
+
+  /**
+   * The number of threads that are waiting in {@link #dequeue(long)} for an operation to be added.
+   */
+  private final AtomicInteger waitingThreadCount = new AtomicInteger();
+
+  /**
+   * The object on which threads wait for an operation to be added.
+   */
+  private final Object operationAdded = new Object();
+
+  /**
+   * The number of non-query operations that have been removed from the queue to be performed.
+   */
+  private final AtomicInteger performedNonQueryCount = new AtomicInteger();
+
+  /**
+   * The number of query operations that have been removed from the queue to be performed.
+   */
+  private final AtomicInteger performedQueryCount = new AtomicInteger();
+
+  /**
+   * The total number of milliseconds that performed non-query operations spent on the queue.
+   */
+  private final AtomicLong nonQueryWaitTime = new AtomicLong();
+
+  /**
+   * The total number of milliseconds that performed query operations spent on the queue.
+   */
+  private final AtomicLong queryWaitTime = new AtomicLong();
+
+  /**
+   * The largest number of milliseconds that a performed query operation spent on the queue.
+   */
+  private final AtomicLong maxQueryWaitTime = new AtomicLong();
+
+  /**
+   * The number of operations that were replaced by a newer operation for the same source.
+   */
+  private final AtomicInteger coalescedCount = new AtomicInteger();
+
+  /**
+   * The number of operations that were cancelled because their source was removed.
+   */
+  private final AtomicInteger cancelledCount = new AtomicInteger();
 
   /**
    * {@code true} if query operations should be returned by {@link #dequeue(long)} or {code false}
    * if not.
    */
-  private boolean processQueries = true;
+  private volatile boolean processQueries = true;
 
   /**
    * Initialize a newly created operation queue to be empty.
@@ -72,21 +264,21 @@ public class OperationQueue {
    *           while it was waiting for an operation to be added to the queue
    */
   public IndexOperation dequeue(long timeout) throws InterruptedException {
-    synchronized (nonQueryOperations) {
-      if (nonQueryOperations.isEmpty() && (!processQueries || queryOperations.isEmpty())) {
-        if (timeout <= 0L) {
-          return null;
+    IndexOperation operation = poll();
+    if (operation != null || timeout <= 0L) {
+      return operation;
+    }
+    waitingThreadCount.incrementAndGet();
+    try {
+      synchronized (operationAdded) {
+        if (isEmptyForDequeue()) {
+          operationAdded.wait(timeout);
         }
-        nonQueryOperations.wait(timeout);
-      }
-      if (!nonQueryOperations.isEmpty()) {
-        return nonQueryOperations.remove(0);
       }
-      if (processQueries && !queryOperations.isEmpty()) {
-        return queryOperations.remove(0);
-      }
-      return null;
+    } finally {
+      waitingThreadCount.decrementAndGet();
     }
+    return poll();
   }
 
   /**
@@ -95,28 +287,28 @@ public class OperationQueue {
    * @param operation the operation to be added to the queue
    */
   public void enqueue(IndexOperation operation) {
-    synchronized (nonQueryOperations) {
-      if (operation instanceof RemoveSourceOperation) {
-        Source source = ((RemoveSourceOperation) operation).getSource();
-        for (Iterator<IndexOperation> iter = nonQueryOperations.listIterator(); iter.hasNext();) {
-          IndexOperation indexOperation = iter.next();
-          if (indexOperation.removeWhenSourceRemoved(source)) {
-            iter.remove();
-          }
-        }
-        for (Iterator<IndexOperation> iter = queryOperations.listIterator(); iter.hasNext();) {
-          IndexOperation indexOperation = iter.next();
-          if (indexOperation.removeWhenSourceRemoved(source)) {
-            iter.remove();
-          }
-        }
+    if (operation instanceof RemoveSourceOperation) {
+      RemoveSourceOperation removeOperation = (RemoveSourceOperation) operation;
+      removeOperationsForSource(removeOperation.getContext(), removeOperation.getSource());
+    }
+    QueuedOperation queuedOperation = new QueuedOperation(operation);
+    boolean isQuery = operation.isQuery();
+    (isQuery ? queryCount : nonQueryCount).incrementAndGet();
+    PendingUnitKey key = getCoalescedKey(operation);
+    if (key != null) {
+      QueuedOperation replacedOperation = pendingUnitOperations.put(key, queuedOperation);
+      if (replacedOperation != null && replacedOperation.markDone()) {
+        nonQueryCount.decrementAndGet();
+        coalescedCount.incrementAndGet();
       }
-      if (operation.isQuery()) {
-        queryOperations.add(operation);
-      } else {
-        nonQueryOperations.add(operation);
+    } else if (mayBeRemovedWithSource(operation)) {
+      otherOperations.add(queuedOperation);
+    }
+    (isQuery ? queryOperations : nonQueryOperations).add(queuedOperation);
+    if (waitingThreadCount.get() > 0) {
+      synchronized (operationAdded) {
+        operationAdded.notifyAll();
       }
-      nonQueryOperations.notifyAll();
     }
   }
 
@@ -128,13 +320,29 @@ public class OperationQueue {
    */
   public List<IndexOperation> getOperations() {
     List<IndexOperation> operations = Lists.newArrayList();
-    synchronized (nonQueryOperations) {
-      operations.addAll(nonQueryOperations);
-      operations.addAll(queryOperations);
-    }
+    addPendingOperations(operations, nonQueryOperations);
+    addPendingOperations(operations, queryOperations);
     return operations;
   }
 
+  /**
+   * Return a snapshot of the counters maintained by this queue.
+   * 
+   * @return a snapshot of the counters maintained by this queue
+   */
+  public OperationQueueStatistics getStatistics() {
+    return new OperationQueueStatistics(
+        nonQueryCount.get(),
+        queryCount.get(),
+        performedNonQueryCount.get(),
+        performedQueryCount.get(),
+        nonQueryWaitTime.get(),
+        queryWaitTime.get(),
+        maxQueryWaitTime.get(),
+        coalescedCount.get(),
+        cancelledCount.get());
+  }
+
   /**
    * Set whether the receiver's {@link #dequeue(long)} method should return query operations.
    * 
@@ -144,11 +352,11 @@ public class OperationQueue {
    *          with a value of {@code true}.
    */
   public void setProcessQueries(boolean processQueries) {
-    synchronized (nonQueryOperations) {
-      if (this.processQueries != processQueries) {
-        this.processQueries = processQueries;
-        if (processQueries && !queryOperations.isEmpty()) {
-          nonQueryOperations.notifyAll();
+    if (this.processQueries != processQueries) {
+      this.processQueries = processQueries;
+      if (processQueries && queryCount.get() > 0) {
+        synchronized (operationAdded) {
+          operationAdded.notifyAll();
         }
       }
     }
@@ -160,8 +368,125 @@ public class OperationQueue {
    * @return the number of operations on the queue
    */
   public int size() {
-    synchronized (nonQueryOperations) {
-      return nonQueryOperations.size() + queryOperations.size();
+    return nonQueryCount.get() + queryCount.get();
+  }
+
+  /**
+   * Add the operations in the given lane that are still pending to the given list.
+   * 
+   * @param operations the list to which the operations are to be added
+   * @param lane the lane containing the operations
+   */
+  private void addPendingOperations(List<IndexOperation> operations, Queue<QueuedOperation> lane) {
+    for (QueuedOperation queuedOperation : lane) {
+      if (!queuedOperation.done.get()) {
+        operations.add(queuedOperation.operation);
+      }
+    }
+  }
+
+  /**
+   * Return {@code true} if there is no operation that {@link #dequeue(long)} would return.
+   * 
+   * @return {@code true} if there is no operation to be returned
+   */
+  private boolean isEmptyForDequeue() {
+    return nonQueryCount.get() == 0 && (!processQueries || queryCount.get() == 0);
+  }
+
+  /**
+   * Remove the next pending operation from the head of this queue and return it, or return
+   * {@code null} if there is no operation to be returned.
+   * 
+   * @return the operation that was removed from the queue
+   */
+  private IndexOperation poll() {
+    QueuedOperation queuedOperation = poll(nonQueryOperations);
+    if (queuedOperation != null) {
+      recordPerformed(queuedOperation, nonQueryCount, performedNonQueryCount, nonQueryWaitTime);
+      return queuedOperation.operation;
+    }
+    if (processQueries) {
+      queuedOperation = poll(queryOperations);
+      if (queuedOperation != null) {
+        long waitTime = recordPerformed(
+            queuedOperation,
+            queryCount,
+            performedQueryCount,
+            queryWaitTime);
+        long maxWaitTime = maxQueryWaitTime.get();
+        while (waitTime > maxWaitTime && !maxQueryWaitTime.compareAndSet(maxWaitTime, waitTime)) {
+          maxWaitTime = maxQueryWaitTime.get();
+        }
+        return queuedOperation.operation;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Remove the next pending operation from the head of the given lane and return it, skipping the
+   * operations that have been replaced or cancelled.
+   * 
+   * @param lane the lane from which the operation is to be removed
+   * @return the operation that was removed, or {@code null} if the lane has no pending operation
+   */
+  private QueuedOperation poll(Queue<QueuedOperation> lane) {
+    while (true) {
+      QueuedOperation queuedOperation = lane.poll();
+      if (queuedOperation == null) {
+        return null;
+      }
+      if (queuedOperation.markDone()) {
+        PendingUnitKey key = getCoalescedKey(queuedOperation.operation);
+        if (key != null) {
+          pendingUnitOperations.remove(key, queuedOperation);
+        } else if (mayBeRemovedWithSource(queuedOperation.operation)) {
+          otherOperations.remove(queuedOperation);
+        }
+        return queuedOperation;
+      }
+    }
+  }
+
+  /**
+   * Record that the given operation has been removed from the queue to be performed.
+   * 
+   * @param queuedOperation the operation that was removed from the queue
+   * @param pendingCount the number of pending operations in the operation's lane
+   * @param performedCount the number of performed operations from the operation's lane
+   * @param totalWaitTime the total wait time of the performed operations from the operation's lane
+   * @return the number of milliseconds that the operation spent on the queue
+   */
+  private long recordPerformed(QueuedOperation queuedOperation, AtomicInteger pendingCount,
+      AtomicInteger performedCount, AtomicLong totalWaitTime) {
+    long waitTime = System.currentTimeMillis() - queuedOperation.enqueueTime;
+    pendingCount.decrementAndGet();
+    performedCount.incrementAndGet();
+    totalWaitTime.addAndGet(waitTime);
+    return waitTime;
+  }
+
+  /**
+   * Cancel the pending operations that should not be performed because the given source has been
+   * removed from the given context.
+   * 
+   * @param context the context from which the source has been removed
+   * @param source the source that has been removed
+   */
+  private void removeOperationsForSource(AnalysisContext context, Source source) {
+    PendingUnitKey key = new PendingUnitKey(context, source);
+    QueuedOperation unitOperation = pendingUnitOperations.remove(key);
+    if (unitOperation != null && unitOperation.markDone()) {
+      nonQueryCount.decrementAndGet();
+      cancelledCount.incrementAndGet();
+    }
+    for (QueuedOperation queuedOperation : otherOperations) {
+      if (queuedOperation.operation.removeWhenSourceRemoved(source) && queuedOperation.markDone()) {
+        otherOperations.remove(queuedOperation);
+        (queuedOperation.operation.isQuery() ? queryCount : nonQueryCount).decrementAndGet();
+        cancelledCount.incrementAndGet();
+      }
     }
   }
 }
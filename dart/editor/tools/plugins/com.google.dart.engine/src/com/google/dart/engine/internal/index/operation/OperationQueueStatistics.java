@@ -0,0 +1,186 @@
+/*
+ * Copyright (c) 2013, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.internal.index.operation;
+
+/**
+ * Instances of the class {@code OperationQueueStatistics} represent a snapshot of the counters
+ * maintained by an {@link OperationQueue}.
+ * 
+ * @coverage dart.engine.index
+ */
+public class OperationQueueStatistics {
+  /**
+   * The number of non-query operations waiting to be performed.
+   */
+  private final int nonQueryDepth;
+
+  /**
+   * The number of query operations waiting to be performed.
+   */
+  private final int queryDepth;
+
+  /**
+   * The number of non-query operations that have been removed from the queue to be performed.
+   */
+  private final int nonQueryCount;
+
+  /**
+   * The number of query operations that have been removed from the queue to be performed.
+   */
+  private final int queryCount;
+
+  /**
+   * The total number of milliseconds that performed non-query operations spent on the queue.
+   */
+  private final long nonQueryWaitTime;
+
+  /**
+   * The total number of milliseconds that performed query operations spent on the queue.
+   */
+  private final long queryWaitTime;
+
+  /**
+   * The largest number of milliseconds that a performed query operation spent on the queue.
+   */
+  private final long maxQueryWaitTime;
+
+  /**
+   * The number of operations that were replaced by a newer operation for the same source.
+   */
+  private final int coalescedCount;
+
+  /**
+   * The number of operations that were cancelled because their source was removed.
+   */
+  private final int cancelledCount;
+
+  /**
+   * Initialize a newly created snapshot to have the given values.
+   * 
+   * @param nonQueryDepth the number of non-query operations waiting to be performed
+   * @param queryDepth the number of query operations waiting to be performed
+   * @param nonQueryCount the number of non-query operations that have been performed
+   * @param queryCount the number of query operations that have been performed
+   * @param nonQueryWaitTime the total time performed non-query operations spent on the queue
+   * @param queryWaitTime the total time performed query operations spent on the queue
+   * @param maxQueryWaitTime the largest time a performed query operation spent on the queue
+   * @param coalescedCount the number of operations replaced by a newer operation
+   * @param cancelledCount the number of operations cancelled because their source was removed
+   */
+  public OperationQueueStatistics(int nonQueryDepth, int queryDepth, int nonQueryCount,
+      int queryCount, long nonQueryWaitTime, long queryWaitTime, long maxQueryWaitTime,
+      int coalescedCount, int cancelledCount) {
+    this.nonQueryDepth = nonQueryDepth;
+    this.queryDepth = queryDepth;
+    this.nonQueryCount = nonQueryCount;
+    this.queryCount = queryCount;
+    this.nonQueryWaitTime = nonQueryWaitTime;
+    this.queryWaitTime = queryWaitTime;
+    this.maxQueryWaitTime = maxQueryWaitTime;
+    this.coalescedCount = coalescedCount;
+    this.cancelledCount = cancelledCount;
+  }
+
+  /**
+   * Return the average number of milliseconds that performed non-query operations spent on the
+   * queue.
+   * 
+   * @return the average time performed non-query operations spent on the queue
+   */
+  public long getAverageNonQueryWaitTime() {
+    return nonQueryCount == 0 ? 0L : nonQueryWaitTime / nonQueryCount;
+  }
+
+  /**
+   * Return the average number of milliseconds that performed query operations spent on the queue.
+   * 
+   * @return the average time performed query operations spent on the queue
+   */
+  public long getAverageQueryWaitTime() {
+    return queryCount == 0 ? 0L : queryWaitTime / queryCount;
+  }
+
+  /**
+   * Return the number of operations that were cancelled because their source was removed.
+   * 
+   * @return the number of operations cancelled because their source was removed
+   */
+  public int getCancelledCount() {
+    return cancelledCount;
+  }
+
+  /**
+   * Return the number of operations that were replaced by a newer operation for the same source.
+   * 
+   * @return the number of operations replaced by a newer operation
+   */
+  public int getCoalescedCount() {
+    return coalescedCount;
+  }
+
+  /**
+   * Return the largest number of milliseconds that a performed query operation spent on the queue.
+   * 
+   * @return the largest time a performed query operation spent on the queue
+   */
+  public long getMaxQueryWaitTime() {
+    return maxQueryWaitTime;
+  }
+
+  /**
+   * Return the number of non-query operations that have been removed from the queue to be
+   * performed.
+   * 
+   * @return the number of non-query operations that have been performed
+   */
+  public int getNonQueryCount() {
+    return nonQueryCount;
+  }
+
+  /**
+   * Return the number of non-query operations waiting to be performed.
+   * 
+   * @return the number of non-query operations waiting to be performed
+   */
+  public int getNonQueryDepth() {
+    return nonQueryDepth;
+  }
+
+  /**
+   * Return the number of query operations that have been removed from the queue to be performed.
+   * 
+   * @return the number of query operations that have been performed
+   */
+  public int getQueryCount() {
+    return queryCount;
+  }
+
+  /**
+   * Return the number of query operations waiting to be performed.
+   * 
+   * @return the number of query operations waiting to be performed
+   */
+  public int getQueryDepth() {
+    return queryDepth;
+  }
+
+  @Override
+  public String toString() {
+    return "non-query depth = " + nonQueryDepth + ", query depth = " + queryDepth
+        + ", non-queries = " + nonQueryCount + " (avg wait " + getAverageNonQueryWaitTime()
+        + "ms), queries = " + queryCount + " (avg wait " + getAverageQueryWaitTime()
+        + "ms, max wait " + maxQueryWaitTime + "ms), coalesced = " + coalescedCount
+        + ", cancelled = " + cancelledCount;
+  }
+}
@@ -58,9 +58,7 @@ public class RemoveContextOperation implements IndexOperation {
 
   @Override
   public void performOperation() {
-    synchronized (indexStore) {
-      indexStore.removeContext(context);
-    }
+    indexStore.removeContext(context);
   }
 
   @Override
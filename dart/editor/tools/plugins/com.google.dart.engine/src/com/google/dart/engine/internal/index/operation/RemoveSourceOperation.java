@@ -52,6 +52,13 @@ public class RemoveSourceOperation implements IndexOperation {
     this.source = source;
   }
 
+  /**
+   * @return the {@link AnalysisContext} in which the source was removed.
+   */
+  public AnalysisContext getContext() {
+    return context;
+  }
+
   /**
    * @return the {@link Source} that was removed.
    */
@@ -66,9 +73,7 @@ public class RemoveSourceOperation implements IndexOperation {
 
   @Override
   public void performOperation() {
-    synchronized (indexStore) {
-      indexStore.removeSource(context, source);
-    }
+    indexStore.removeSource(context, source);
   }
 
   @Override
@@ -68,9 +68,7 @@ public class RemoveSourcesOperation implements IndexOperation {
 
   @Override
   public void performOperation() {
-    synchronized (indexStore) {
-      indexStore.removeSources(context, container);
-    }
+    indexStore.removeSources(context, container);
   }
 
   @Override
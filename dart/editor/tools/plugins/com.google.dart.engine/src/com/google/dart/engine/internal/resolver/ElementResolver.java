@@ -610,7 +610,9 @@ public class ElementResolver extends SimpleASTVisitor<Void> {
           fieldFormal.setField(fieldElement);
           Type declaredType = fieldFormal.getType();
           Type fieldType = fieldElement.getType();
-          if (node.getType() == null) {
+          if (node.getType() == null && declaredType != fieldType) {
+            // The LibraryResolver sets the type before the compilation units are visited, so it is
+            // only set here when the unit is resolved on its own.
             fieldFormal.setType(fieldType);
           }
           if (fieldElement.isSynthetic()) {
@@ -0,0 +1,524 @@
+/*
+ * Copyright (c) 2013, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.internal.resolver;
+
+import com.google.dart.engine.ast.ASTNode;
+import com.google.dart.engine.ast.ArgumentList;
+import com.google.dart.engine.ast.AssignmentExpression;
+import com.google.dart.engine.ast.BinaryExpression;
+import com.google.dart.engine.ast.Block;
+import com.google.dart.engine.ast.BlockFunctionBody;
+import com.google.dart.engine.ast.ClassDeclaration;
+import com.google.dart.engine.ast.ClassMember;
+import com.google.dart.engine.ast.CompilationUnit;
+import com.google.dart.engine.ast.CompilationUnitMember;
+import com.google.dart.engine.ast.ConstructorDeclaration;
+import com.google.dart.engine.ast.ConstructorName;
+import com.google.dart.engine.ast.Directive;
+import com.google.dart.engine.ast.Expression;
+import com.google.dart.engine.ast.FunctionBody;
+import com.google.dart.engine.ast.FunctionDeclaration;
+import com.google.dart.engine.ast.FunctionExpression;
+import com.google.dart.engine.ast.FunctionExpressionInvocation;
+import com.google.dart.engine.ast.IndexExpression;
+import com.google.dart.engine.ast.InstanceCreationExpression;
+import com.google.dart.engine.ast.MethodDeclaration;
+import com.google.dart.engine.ast.PostfixExpression;
+import com.google.dart.engine.ast.PrefixExpression;
+import com.google.dart.engine.ast.RedirectingConstructorInvocation;
+import com.google.dart.engine.ast.SimpleIdentifier;
+import com.google.dart.engine.ast.SuperConstructorInvocation;
+import com.google.dart.engine.ast.TypeName;
+import com.google.dart.engine.ast.visitor.GeneralizingASTVisitor;
+import com.google.dart.engine.element.ConstructorElement;
+import com.google.dart.engine.element.Element;
+import com.google.dart.engine.element.ExecutableElement;
+import com.google.dart.engine.element.FunctionElement;
+import com.google.dart.engine.element.LabelElement;
+import com.google.dart.engine.element.LibraryElement;
+import com.google.dart.engine.element.LocalElement;
+import com.google.dart.engine.element.LocalVariableElement;
+import com.google.dart.engine.element.ParameterElement;
+import com.google.dart.engine.element.visitor.GeneralizingElementVisitor;
+import com.google.dart.engine.error.AnalysisError;
+import com.google.dart.engine.error.AnalysisErrorListener;
+import com.google.dart.engine.internal.builder.ElementBuilder;
+import com.google.dart.engine.internal.builder.ElementHolder;
+import com.google.dart.engine.internal.constant.ConstantValueComputer;
+import com.google.dart.engine.internal.context.RecordingErrorListener;
+import com.google.dart.engine.internal.error.ErrorReporter;
+import com.google.dart.engine.internal.element.ElementImpl;
+import com.google.dart.engine.internal.element.ExecutableElementImpl;
+import com.google.dart.engine.internal.element.FunctionElementImpl;
+import com.google.dart.engine.internal.element.LocalVariableElementImpl;
+import com.google.dart.engine.internal.element.ParameterElementImpl;
+import com.google.dart.engine.internal.scope.ClassScope;
+import com.google.dart.engine.internal.scope.FunctionScope;
+import com.google.dart.engine.internal.scope.LibraryScope;
+import com.google.dart.engine.internal.scope.Scope;
+import com.google.dart.engine.internal.verifier.ConstantVerifier;
+import com.google.dart.engine.internal.verifier.ErrorVerifier;
+import com.google.dart.engine.scanner.Token;
+import com.google.dart.engine.source.Source;
+import com.google.dart.engine.utilities.source.SourceRange;
+
+import java.util.ArrayList;
+
+/**
+ * Instances of the class {@code IncrementalResolver} resolve a compilation unit that was parsed
+ * after an edit that is confined to the block body of a method, constructor or top-level function,
+ * using the resolved compilation unit from before the edit. The resolution of the nodes outside of
+ * the edited body is copied from the old unit, and only the new body is resolved. The old unit is
+ * never modified, so that it can still be used by any thread that is visiting it.
+ * <p>
+ * An edit within a function body cannot change any of the declarations visible outside of the
+ * body, so the element model of the library is kept, except for the elements declared within the
+ * body and the offsets of the elements following it. The body is resolved in the scope built from
+ * the elements of the enclosing declarations. The errors within the body are then found by
+ * verifying the enclosing top-level declaration, because the verifier depends on the state it
+ * builds when visiting a class.
+ * 
+ * @coverage dart.engine.resolver
+ */
+public class IncrementalResolver {
+  /**
+   * Instances of the class {@code ElementShifter} shift the offsets of the elements that follow a
+   * given offset, and extend the visible ranges that include it.
+   */
+  private static class ElementShifter extends GeneralizingElementVisitor<Void> {
+    /**
+     * The offset of the first character whose offset is to be shifted.
+     */
+    private final int offset;
+
+    /**
+     * The amount by which offsets are to be shifted.
+     */
+    private final int delta;
+
+    /**
+     * Initialize a newly created shifter to shift the offsets of the elements following the given
+     * offset by the given amount.
+     * 
+     * @param offset the offset of the first character whose offset is to be shifted
+     * @param delta the amount by which offsets are to be shifted
+     */
+    public ElementShifter(int offset, int delta) {
+      this.offset = offset;
+      this.delta = delta;
+    }
+
+    @Override
+    public Void visitElement(Element element) {
+      int nameOffset = element.getNameOffset();
+      if (nameOffset >= offset) {
+        ((ElementImpl) element).setNameOffset(nameOffset + delta);
+      }
+      if (element instanceof LocalElement) {
+        SourceRange range = ((LocalElement) element).getVisibleRange();
+        if (range != null && range.getEnd() >= offset) {
+          int rangeOffset = range.getOffset();
+          int rangeLength = range.getLength();
+          if (rangeOffset >= offset) {
+            rangeOffset += delta;
+          } else {
+            rangeLength += delta;
+          }
+          if (element instanceof FunctionElementImpl) {
+            ((FunctionElementImpl) element).setVisibleRange(rangeOffset, rangeLength);
+          } else if (element instanceof LocalVariableElementImpl) {
+            ((LocalVariableElementImpl) element).setVisibleRange(rangeOffset, rangeLength);
+          } else if (element instanceof ParameterElementImpl) {
+            ((ParameterElementImpl) element).setVisibleRange(rangeOffset, rangeLength);
+          }
+        }
+      }
+      return super.visitElement(element);
+    }
+  }
+
+  /**
+   * Return a list containing those of the given elements that are declared before the given offset.
+   * 
+   * @param elements the elements to be filtered
+   * @param offset the offset before which the elements to be returned are declared
+   * @return the elements declared before the given offset
+   */
+  private static <E extends Element> ArrayList<E> getElementsBefore(E[] elements, int offset) {
+    ArrayList<E> result = new ArrayList<E>(elements.length);
+    for (E element : elements) {
+      if (element.getNameOffset() < offset) {
+        result.add(element);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Copy the resolution of the first node to the second node, where both nodes were produced by
+   * parsing the same text.
+   */
+  private static void copyResolution(ASTNode from, ASTNode to) {
+    if (from instanceof Expression) {
+      ((Expression) to).setStaticType(((Expression) from).getStaticType());
+      ((Expression) to).setPropagatedType(((Expression) from).getPropagatedType());
+    }
+    if (from instanceof SimpleIdentifier) {
+      ((SimpleIdentifier) to).setElement(((SimpleIdentifier) from).getElement());
+    } else if (from instanceof ArgumentList) {
+      ParameterElement[] parameters = ((ArgumentList) from).getCorrespondingParameters();
+      if (parameters != null) {
+        ((ArgumentList) to).setCorrespondingParameters(parameters);
+      }
+    } else if (from instanceof AssignmentExpression) {
+      ((AssignmentExpression) to).setElement(((AssignmentExpression) from).getElement());
+    } else if (from instanceof BinaryExpression) {
+      ((BinaryExpression) to).setElement(((BinaryExpression) from).getElement());
+    } else if (from instanceof CompilationUnit) {
+      ((CompilationUnit) to).setElement(((CompilationUnit) from).getElement());
+    } else if (from instanceof ConstructorDeclaration) {
+      ((ConstructorDeclaration) to).setElement(((ConstructorDeclaration) from).getElement());
+    } else if (from instanceof ConstructorName) {
+      ((ConstructorName) to).setElement(((ConstructorName) from).getElement());
+    } else if (from instanceof Directive) {
+      ((Directive) to).setElement(((Directive) from).getElement());
+    } else if (from instanceof FunctionExpression) {
+      ((FunctionExpression) to).setElement(((FunctionExpression) from).getElement());
+    } else if (from instanceof FunctionExpressionInvocation) {
+      ExecutableElement element = ((FunctionExpressionInvocation) from).getElement();
+      ((FunctionExpressionInvocation) to).setElement(element);
+    } else if (from instanceof IndexExpression) {
+      ((IndexExpression) to).setElement(((IndexExpression) from).getElement());
+    } else if (from instanceof InstanceCreationExpression) {
+      ConstructorElement element = ((InstanceCreationExpression) from).getElement();
+      ((InstanceCreationExpression) to).setElement(element);
+    } else if (from instanceof PostfixExpression) {
+      ((PostfixExpression) to).setElement(((PostfixExpression) from).getElement());
+    } else if (from instanceof PrefixExpression) {
+      ((PrefixExpression) to).setElement(((PrefixExpression) from).getElement());
+    } else if (from instanceof RedirectingConstructorInvocation) {
+      ConstructorElement element = ((RedirectingConstructorInvocation) from).getElement();
+      ((RedirectingConstructorInvocation) to).setElement(element);
+    } else if (from instanceof SuperConstructorInvocation) {
+      ConstructorElement element = ((SuperConstructorInvocation) from).getElement();
+      ((SuperConstructorInvocation) to).setElement(element);
+    } else if (from instanceof TypeName) {
+      ((TypeName) to).setType(((TypeName) from).getType());
+    }
+  }
+
+  /**
+   * Return the nodes of the given compilation unit in the order in which they are visited, without
+   * the nodes within the given block.
+   */
+  private static ArrayList<ASTNode> getNodesOutside(CompilationUnit unit, final Block block) {
+    final ArrayList<ASTNode> nodes = new ArrayList<ASTNode>();
+    unit.accept(new GeneralizingASTVisitor<Void>() {
+      @Override
+      public Void visitNode(ASTNode node) {
+        nodes.add(node);
+        if (node != block) {
+          node.visitChildren(this);
+        }
+        return null;
+      }
+    });
+    return nodes;
+  }
+
+  /**
+   * The element for the library containing the compilation unit being updated.
+   */
+  private final LibraryElement definingLibrary;
+
+  /**
+   * The source representing the compilation unit being updated.
+   */
+  private final Source source;
+
+  /**
+   * The object used to access the types from the core library.
+   */
+  private final TypeProvider typeProvider;
+
+  /**
+   * The cache of the inheritance information shared with the resolution of the library, or
+   * {@code null} if the inheritance information is to be computed without a cache.
+   */
+  private final InheritanceCache inheritanceCache;
+
+  /**
+   * Initialize a newly created resolver to update compilation units in the given library.
+   * 
+   * @param definingLibrary the element for the library containing the compilation unit being
+   *          updated
+   * @param source the source representing the compilation unit being updated
+   * @param typeProvider the object used to access the types from the core library
+   */
+  public IncrementalResolver(LibraryElement definingLibrary, Source source,
+      TypeProvider typeProvider) {
+    this(definingLibrary, source, typeProvider, null);
+  }
+
+  /**
+   * Initialize a newly created resolver to update compilation units in the given library.
+   * 
+   * @param definingLibrary the element for the library containing the compilation unit being
+   *          updated
+   * @param source the source representing the compilation unit being updated
+   * @param typeProvider the object used to access the types from the core library
+   * @param inheritanceCache the cache of the inheritance information shared with the resolution of
+   *          the library, or {@code null} if there is no such cache
+   */
+  public IncrementalResolver(LibraryElement definingLibrary, Source source,
+      TypeProvider typeProvider, InheritanceCache inheritanceCache) {
+    this.definingLibrary = definingLibrary;
+    this.source = source;
+    this.typeProvider = typeProvider;
+    this.inheritanceCache = inheritanceCache;
+  }
+
+  /**
+   * Resolve the given compilation unit, which was parsed from the contents of the source after the
+   * given edit, using the given resolved compilation unit from before the edit, if the edit is
+   * confined to a single function body. The old unit is not modified. The element model of the
+   * unit is updated to reflect the edit only if {@code true} is returned.
+   * 
+   * @param oldUnit the resolved compilation unit from before the edit
+   * @param newUnit the compilation unit parsed from the contents after the edit
+   * @param index the offset of the first character that was changed
+   * @param removedLength the number of characters that were removed
+   * @param insertedLength the number of characters that were inserted
+   * @return {@code true} if the new compilation unit was resolved, or {@code false} if the edit is
+   *         not confined to a single function body or either unit has parsing errors
+   */
+  public boolean resolve(CompilationUnit oldUnit, CompilationUnit newUnit, int index,
+      int removedLength, int insertedLength) {
+    if (oldUnit.getLineInfo() == null || oldUnit.getParsingErrors().length > 0
+        || newUnit.getParsingErrors().length > 0) {
+      // The parser recovers from errors differently depending on the surrounding text, so the
+      // nodes outside of the edited body could not be matched.
+      return false;
+    }
+    BlockFunctionBody oldBody = findBody(oldUnit, index, removedLength);
+    BlockFunctionBody newBody = findBody(newUnit, index, insertedLength);
+    if (oldBody == null || newBody == null) {
+      return false;
+    }
+    ExecutableElement executable = getExecutableElement(oldBody);
+    if (!(executable instanceof ExecutableElementImpl)) {
+      return false;
+    }
+    Block oldBlock = oldBody.getBlock();
+    Block newBlock = newBody.getBlock();
+    Token leftBracket = oldBlock.getLeftBracket();
+    int oldStart = leftBracket.getOffset();
+    Token comment = leftBracket.getPrecedingComments();
+    if (comment != null) {
+      oldStart = comment.getOffset();
+    }
+    int oldEnd = oldBlock.getEnd();
+    int delta = insertedLength - removedLength;
+    int newEnd = oldEnd + delta;
+    if (newBlock.getLeftBracket().getOffset() != leftBracket.getOffset()
+        || newBlock.getEnd() != newEnd) {
+      return false;
+    }
+    //
+    // Copy the resolution of the nodes outside of the edited body.
+    //
+    ArrayList<ASTNode> oldNodes = getNodesOutside(oldUnit, oldBlock);
+    ArrayList<ASTNode> newNodes = getNodesOutside(newUnit, newBlock);
+    int nodeCount = oldNodes.size();
+    if (newNodes.size() != nodeCount) {
+      return false;
+    }
+    for (int i = 0; i < nodeCount; i++) {
+      if (oldNodes.get(i).getClass() != newNodes.get(i).getClass()) {
+        return false;
+      }
+    }
+    for (int i = 0; i < nodeCount; i++) {
+      copyResolution(oldNodes.get(i), newNodes.get(i));
+    }
+    //
+    // Update the element model and build the elements declared in the new body.
+    //
+    if (delta != 0) {
+      newUnit.getElement().accept(new ElementShifter(oldEnd, delta));
+    }
+    ElementHolder holder = new ElementHolder();
+    new ElementBuilder(holder).buildLocalElements(newBody);
+    ExecutableElementImpl executableImpl = (ExecutableElementImpl) executable;
+    ArrayList<FunctionElement> functions = getElementsBefore(executable.getFunctions(), oldStart);
+    for (FunctionElement function : holder.getFunctions()) {
+      functions.add(function);
+    }
+    executableImpl.setFunctions(functions.toArray(new FunctionElement[functions.size()]));
+    ArrayList<LabelElement> labels = getElementsBefore(executable.getLabels(), oldStart);
+    for (LabelElement label : holder.getLabels()) {
+      labels.add(label);
+    }
+    executableImpl.setLabels(labels.toArray(new LabelElement[labels.size()]));
+    ArrayList<LocalVariableElement> variables = getElementsBefore(
+        executable.getLocalVariables(),
+        oldStart);
+    for (LocalVariableElement variable : holder.getLocalVariables()) {
+      variables.add(variable);
+    }
+    executableImpl.setLocalVariables(variables.toArray(new LocalVariableElement[variables.size()]));
+    //
+    // Resolve the new body and verify the declaration containing it.
+    //
+    RecordingErrorListener errorListener = new RecordingErrorListener();
+    Scope scope = createScope(newBody.getParent(), errorListener);
+    newBody.accept(new TypeResolverVisitor(
+        definingLibrary,
+        source,
+        typeProvider,
+        scope,
+        errorListener));
+    ResolverVisitor resolverVisitor = new ResolverVisitor(
+        definingLibrary,
+        source,
+        typeProvider,
+        scope,
+        errorListener);
+    resolverVisitor.initForIncrementalResolution(newBody);
+    newBody.accept(resolverVisitor);
+    ConstantValueComputer computer = new ConstantValueComputer();
+    computer.add(newBody);
+    computer.computeValues();
+    ASTNode declaration = newBody;
+    while (!(declaration.getParent() instanceof CompilationUnit)) {
+      declaration = declaration.getParent();
+    }
+    ErrorReporter errorReporter = new ErrorReporter(errorListener, source);
+    ErrorVerifier errorVerifier = new ErrorVerifier(
+        errorReporter,
+        definingLibrary,
+        typeProvider,
+        new InheritanceManager(definingLibrary, inheritanceCache));
+    errorVerifier.addParticipant(new ConstantVerifier(errorReporter, typeProvider));
+    declaration.accept(errorVerifier);
+    //
+    // Replace the errors in the old body with the errors in the new body.
+    //
+    ArrayList<AnalysisError> errors = new ArrayList<AnalysisError>();
+    for (AnalysisError error : oldUnit.getResolutionErrors()) {
+      int offset = error.getOffset();
+      if (offset < oldStart) {
+        errors.add(error);
+      } else if (offset >= oldEnd) {
+        errors.add(new AnalysisError(
+            error.getErrorCode(),
+            error.getMessage(),
+            error.getSource(),
+            offset + delta,
+            error.getLength()));
+      }
+    }
+    for (AnalysisError error : errorListener.getErrors(source)) {
+      int offset = error.getOffset();
+      if (offset >= oldStart && offset < newEnd) {
+        errors.add(error);
+      }
+    }
+    newUnit.setResolutionErrors(errors.toArray(new AnalysisError[errors.size()]));
+    return true;
+  }
+
+  /**
+   * Return the scope in which the children of the given node are resolved, where the node is one
+   * of the declarations enclosing a function body.
+   */
+  private Scope createScope(ASTNode node, AnalysisErrorListener errorListener) {
+    if (node instanceof CompilationUnit) {
+      return new LibraryScope(definingLibrary, errorListener);
+    }
+    Scope scope = createScope(node.getParent(), errorListener);
+    if (node instanceof ClassDeclaration) {
+      return new ClassScope(scope, ((ClassDeclaration) node).getElement());
+    } else if (node instanceof ConstructorDeclaration) {
+      return new FunctionScope(scope, ((ConstructorDeclaration) node).getElement());
+    } else if (node instanceof FunctionDeclaration) {
+      return new FunctionScope(scope, ((FunctionDeclaration) node).getElement());
+    } else if (node instanceof MethodDeclaration) {
+      return new FunctionScope(scope, ((MethodDeclaration) node).getElement());
+    }
+    return scope;
+  }
+
+  /**
+   * Return the block body of a method, constructor or top-level function in the given compilation
+   * unit that contains the given range between its curly brackets, or {@code null} if there is no
+   * such body.
+   */
+  private BlockFunctionBody findBody(CompilationUnit unit, int index, int length) {
+    for (CompilationUnitMember declaration : unit.getDeclarations()) {
+      if (declaration.getOffset() > index || declaration.getEnd() <= index) {
+        continue;
+      }
+      if (declaration instanceof ClassDeclaration) {
+        for (ClassMember member : ((ClassDeclaration) declaration).getMembers()) {
+          if (member instanceof ConstructorDeclaration) {
+            FunctionBody body = ((ConstructorDeclaration) member).getBody();
+            if (isEditedBody(body, index, length)) {
+              return (BlockFunctionBody) body;
+            }
+          } else if (member instanceof MethodDeclaration) {
+            FunctionBody body = ((MethodDeclaration) member).getBody();
+            if (isEditedBody(body, index, length)) {
+              return (BlockFunctionBody) body;
+            }
+          }
+        }
+      } else if (declaration instanceof FunctionDeclaration) {
+        FunctionBody body = ((FunctionDeclaration) declaration).getFunctionExpression().getBody();
+        if (isEditedBody(body, index, length)) {
+          return (BlockFunctionBody) body;
+        }
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Return the element of the method, constructor or function whose body is the given body.
+   */
+  private ExecutableElement getExecutableElement(BlockFunctionBody body) {
+    ASTNode parent = body.getParent();
+    if (parent instanceof ConstructorDeclaration) {
+      return ((ConstructorDeclaration) parent).getElement();
+    } else if (parent instanceof FunctionExpression) {
+      return ((FunctionExpression) parent).getElement();
+    } else if (parent instanceof MethodDeclaration) {
+      return ((MethodDeclaration) parent).getElement();
+    }
+    return null;
+  }
+
+  /**
+   * Return {@code true} if the given function body is a block whose curly brackets enclose the
+   * given range.
+   */
+  private boolean isEditedBody(FunctionBody body, int index, int length) {
+    if (!(body instanceof BlockFunctionBody)) {
+      return false;
+    }
+    Block block = ((BlockFunctionBody) body).getBlock();
+    return block.getLeftBracket().getOffset() < index
+        && index + length <= block.getRightBracket().getOffset();
+  }
+}
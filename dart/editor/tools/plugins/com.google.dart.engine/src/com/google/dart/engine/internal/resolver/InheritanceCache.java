@@ -0,0 +1,308 @@
+/*
+ * Copyright (c) 2013, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.internal.resolver;
+
+import com.google.dart.engine.element.ClassElement;
+import com.google.dart.engine.element.ExecutableElement;
+import com.google.dart.engine.element.LibraryElement;
+import com.google.dart.engine.source.Source;
+import com.google.dart.engine.type.InterfaceType;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Instances of the class {@code InheritanceCache} hold the maps of the members inherited by classes
+ * that have been computed by the {@link InheritanceManager inheritance managers} of the libraries in
+ * an analysis context, so that they are computed once rather than once for every library.
+ * <p>
+ * The members a class inherits depend on the library from which they are looked up only if that
+ * library declares one of the classes in the hierarchy of the class, because private members are
+ * only accessible within the library that declares them. The maps of a class are therefore only
+ * shared with the libraries that do not declare any of the classes in its hierarchy. The maps of a
+ * class whose hierarchy contains a cycle are never shared.
+ * <p>
+ * Class elements are compared by identity, because the element built for a class when its library
+ * is resolved again is equal to the element it replaces. The maps that depend on the classes in a
+ * library should be removed when the library is invalidated.
+ * 
+ * @coverage dart.engine.resolver
+ */
+public class InheritanceCache {
+  /**
+   * Instances of the class {@code Hierarchy} describe the classes that a class inherits from.
+   */
+  private static class Hierarchy {
+    /**
+     * The libraries declaring the class and the classes it inherits from.
+     */
+    private final LibraryElement[] libraries;
+
+    /**
+     * A flag indicating whether the class, or any of the classes it inherits from, inherits from
+     * itself.
+     */
+    private final boolean cyclic;
+
+    public Hierarchy(LibraryElement[] libraries, boolean cyclic) {
+      this.libraries = libraries;
+      this.cyclic = cyclic;
+    }
+  }
+
+  /**
+   * A table mapping classes to the members inherited from their superclass and mixins.
+   */
+  private final IdentityHashMap<ClassElement, HashMap<String, ExecutableElement>> classLookup = new IdentityHashMap<ClassElement, HashMap<String, ExecutableElement>>();
+
+  /**
+   * A table mapping classes to the members inherited from their interfaces.
+   */
+  private final IdentityHashMap<ClassElement, HashMap<String, ExecutableElement>> interfaceLookup = new IdentityHashMap<ClassElement, HashMap<String, ExecutableElement>>();
+
+  /**
+   * A table mapping classes to a description of their hierarchy.
+   */
+  private final IdentityHashMap<ClassElement, Hierarchy> hierarchies = new IdentityHashMap<ClassElement, Hierarchy>();
+
+  /**
+   * The number of requests for a map that were satisfied from this cache.
+   */
+  private int hitCount = 0;
+
+  /**
+   * The number of maps that were computed because they were not in this cache.
+   */
+  private int computeCount = 0;
+
+  /**
+   * Remove the maps of every class, typically because the element models of all of the libraries
+   * are about to be replaced.
+   */
+  public synchronized void clear() {
+    classLookup.clear();
+    interfaceLookup.clear();
+    hierarchies.clear();
+  }
+
+  /**
+   * Return the members inherited by the given class from its superclass and mixins, or
+   * {@code null} if they have not been computed.
+   * 
+   * @param classElt the class whose inherited members are to be returned
+   * @return the members inherited by the class from its superclass and mixins
+   */
+  public synchronized HashMap<String, ExecutableElement> getClassChainLookupMap(
+      ClassElement classElt) {
+    return lookup(classLookup, classElt);
+  }
+
+  /**
+   * Return the number of maps that were computed because they were not in this cache.
+   * 
+   * @return the number of maps that were computed
+   */
+  public synchronized int getComputeCount() {
+    return computeCount;
+  }
+
+  /**
+   * Return the number of requests for a map that were satisfied from this cache.
+   * 
+   * @return the number of requests that were satisfied from this cache
+   */
+  public synchronized int getHitCount() {
+    return hitCount;
+  }
+
+  /**
+   * Return the members inherited by the given class from its interfaces, or {@code null} if they
+   * have not been computed.
+   * 
+   * @param classElt the class whose inherited members are to be returned
+   * @return the members inherited by the class from its interfaces
+   */
+  public synchronized HashMap<String, ExecutableElement> getInterfaceLookupMap(
+      ClassElement classElt) {
+    return lookup(interfaceLookup, classElt);
+  }
+
+  /**
+   * Return {@code true} if the members inherited by the given class are the same when they are
+   * looked up from any library other than the ones declaring the classes in its hierarchy, and the
+   * given library is not one of them.
+   * 
+   * @param classElt the class whose inherited members are being looked up
+   * @param library the library from which the members are being looked up
+   * @return {@code true} if the maps of the given class can be shared with the given library
+   */
+  public synchronized boolean isShareable(ClassElement classElt, LibraryElement library) {
+    if (library == null) {
+      return false;
+    }
+    Hierarchy hierarchy = hierarchies.get(classElt);
+    if (hierarchy == null) {
+      hierarchy = computeHierarchy(classElt);
+      hierarchies.put(classElt, hierarchy);
+    }
+    if (hierarchy.cyclic) {
+      return false;
+    }
+    for (LibraryElement hierarchyLibrary : hierarchy.libraries) {
+      if (hierarchyLibrary == null || hierarchyLibrary.equals(library)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Record the members inherited by the given class from its superclass and mixins.
+   * 
+   * @param classElt the class whose inherited members were computed
+   * @param map the members inherited by the class from its superclass and mixins
+   */
+  public synchronized void putClassChainLookupMap(ClassElement classElt,
+      HashMap<String, ExecutableElement> map) {
+    computeCount++;
+    classLookup.put(classElt, map);
+  }
+
+  /**
+   * Record the members inherited by the given class from its interfaces.
+   * 
+   * @param classElt the class whose inherited members were computed
+   * @param map the members inherited by the class from its interfaces
+   */
+  public synchronized void putInterfaceLookupMap(ClassElement classElt,
+      HashMap<String, ExecutableElement> map) {
+    computeCount++;
+    interfaceLookup.put(classElt, map);
+  }
+
+  /**
+   * Remove the maps of every class whose hierarchy includes a class declared in the library with
+   * the given source.
+   * 
+   * @param librarySource the source of the library that was invalidated
+   */
+  public synchronized void removeLibrary(Source librarySource) {
+    Iterator<Map.Entry<ClassElement, Hierarchy>> iterator = hierarchies.entrySet().iterator();
+    while (iterator.hasNext()) {
+      Map.Entry<ClassElement, Hierarchy> entry = iterator.next();
+      if (containsLibrary(entry.getValue(), librarySource)) {
+        ClassElement classElt = entry.getKey();
+        classLookup.remove(classElt);
+        interfaceLookup.remove(classElt);
+        iterator.remove();
+      }
+    }
+  }
+
+  @Override
+  public synchronized String toString() {
+    return "hits = " + hitCount + ", computes = " + computeCount + ", classes = "
+        + hierarchies.size();
+  }
+
+  /**
+   * Add the given class and the classes it inherits from to the given set of visited classes, and
+   * the libraries declaring them to the given set of libraries. Return {@code true} if a class was
+   * found that inherits from itself.
+   * 
+   * @param classElt the class being visited
+   * @param libraries the libraries declaring the classes that have been visited
+   * @param visitedClasses the classes that have been visited
+   * @param path the classes being visited that inherit from the given class
+   * @return {@code true} if a cycle was found
+   */
+  private boolean addHierarchy(ClassElement classElt, HashSet<LibraryElement> libraries,
+      HashSet<ClassElement> visitedClasses, HashSet<ClassElement> path) {
+    if (classElt == null) {
+      return false;
+    }
+    if (path.contains(classElt)) {
+      return true;
+    }
+    if (!visitedClasses.add(classElt)) {
+      return false;
+    }
+    libraries.add(classElt.getLibrary());
+    path.add(classElt);
+    boolean cyclic = addHierarchy(classElt.getSupertype(), libraries, visitedClasses, path);
+    for (InterfaceType mixin : classElt.getMixins()) {
+      cyclic |= addHierarchy(mixin, libraries, visitedClasses, path);
+    }
+    for (InterfaceType interfaceType : classElt.getInterfaces()) {
+      cyclic |= addHierarchy(interfaceType, libraries, visitedClasses, path);
+    }
+    path.remove(classElt);
+    return cyclic;
+  }
+
+  /**
+   * Add the class of the given type and the classes it inherits from to the given sets. Return
+   * {@code true} if a class was found that inherits from itself.
+   */
+  private boolean addHierarchy(InterfaceType type, HashSet<LibraryElement> libraries,
+      HashSet<ClassElement> visitedClasses, HashSet<ClassElement> path) {
+    if (type == null) {
+      return false;
+    }
+    return addHierarchy(type.getElement(), libraries, visitedClasses, path);
+  }
+
+  /**
+   * Return a description of the hierarchy of the given class.
+   */
+  private Hierarchy computeHierarchy(ClassElement classElt) {
+    HashSet<LibraryElement> libraries = new HashSet<LibraryElement>();
+    boolean cyclic = addHierarchy(
+        classElt,
+        libraries,
+        new HashSet<ClassElement>(),
+        new HashSet<ClassElement>());
+    return new Hierarchy(libraries.toArray(new LibraryElement[libraries.size()]), cyclic);
+  }
+
+  /**
+   * Return {@code true} if the given hierarchy includes a class declared in the library with the
+   * given source.
+   */
+  private boolean containsLibrary(Hierarchy hierarchy, Source librarySource) {
+    for (LibraryElement library : hierarchy.libraries) {
+      if (library != null && librarySource.equals(library.getSource())) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Return the map associated with the given class in the given table, counting the request as a
+   * hit if there is one.
+   */
+  private HashMap<String, ExecutableElement> lookup(
+      IdentityHashMap<ClassElement, HashMap<String, ExecutableElement>> table,
+      ClassElement classElt) {
+    HashMap<String, ExecutableElement> map = table.get(classElt);
+    if (map != null) {
+      hitCount++;
+    }
+    return map;
+  }
+}
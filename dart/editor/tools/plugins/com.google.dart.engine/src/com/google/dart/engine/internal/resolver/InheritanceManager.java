@@ -54,25 +54,43 @@ public class InheritanceManager {
    */
   private HashMap<ClassElement, HashMap<String, ExecutableElement>> interfaceLookup;
 
+  /**
+   * The cache used to share the mappings of classes that are not declared in, and do not inherit
+   * from classes declared in, the library, or {@code null} if the mappings are not shared.
+   */
+  private InheritanceCache sharedCache;
+
   /**
    * Initialize a newly created inheritance manager.
    * 
    * @param library the library element context that the inheritance mappings are being generated
    */
   public InheritanceManager(LibraryElement library) {
+    this(library, null);
+  }
+
+  /**
+   * Initialize a newly created inheritance manager that shares the mappings that do not depend on
+   * the library with the other inheritance managers using the given cache.
+   * 
+   * @param library the library element context that the inheritance mappings are being generated
+   * @param sharedCache the cache used to share mappings, or {@code null} if they are not shared
+   */
+  public InheritanceManager(LibraryElement library, InheritanceCache sharedCache) {
     this.library = library;
+    this.sharedCache = sharedCache;
     classLookup = new HashMap<ClassElement, HashMap<String, ExecutableElement>>();
     interfaceLookup = new HashMap<ClassElement, HashMap<String, ExecutableElement>>();
   }
 
   public HashMap<String, ExecutableElement> getMapOfMembersInheritedFromClasses(
       ClassElement classElt) {
-    return computeClassChainLookupMap(classElt, new HashSet<ClassElement>());
+    return getClassChainLookupMap(classElt, null);
   }
 
   public HashMap<String, ExecutableElement> getMapOfMembersInheritedFromInterfaces(
       ClassElement classElt) {
-    return computeInterfaceLookupMap(classElt, new HashSet<ClassElement>());
+    return getInterfaceLookupMap(classElt, null);
   }
 
   /**
@@ -90,10 +108,9 @@ public class InheritanceManager {
     if (memberName == null || memberName.isEmpty()) {
       return null;
     }
-    ExecutableElement executable = computeClassChainLookupMap(classElt, new HashSet<ClassElement>()).get(
-        memberName);
+    ExecutableElement executable = getClassChainLookupMap(classElt, null).get(memberName);
     if (executable == null) {
-      return computeInterfaceLookupMap(classElt, new HashSet<ClassElement>()).get(memberName);
+      return getInterfaceLookupMap(classElt, null).get(memberName);
     }
     return executable;
   }
@@ -171,12 +188,7 @@ public class InheritanceManager {
    */
   private HashMap<String, ExecutableElement> computeClassChainLookupMap(ClassElement classElt,
       HashSet<ClassElement> visitedClasses) {
-    HashMap<String, ExecutableElement> resultMap = classLookup.get(classElt);
-    if (resultMap != null) {
-      return resultMap;
-    } else {
-      resultMap = new HashMap<String, ExecutableElement>();
-    }
+    HashMap<String, ExecutableElement> resultMap = new HashMap<String, ExecutableElement>();
     ClassElement superclassElt = null;
     InterfaceType supertype = classElt.getSupertype();
     if (supertype != null) {
@@ -189,7 +201,7 @@ public class InheritanceManager {
     if (superclassElt != null) {
       if (!visitedClasses.contains(superclassElt)) {
         visitedClasses.add(classElt);
-        resultMap = new HashMap<String, ExecutableElement>(computeClassChainLookupMap(
+        resultMap = new HashMap<String, ExecutableElement>(getClassChainLookupMap(
             superclassElt,
             visitedClasses));
       } else {
@@ -290,12 +302,7 @@ public class InheritanceManager {
    */
   private HashMap<String, ExecutableElement> computeInterfaceLookupMap(ClassElement classElt,
       HashSet<ClassElement> visitedInterfaces) {
-    HashMap<String, ExecutableElement> resultMap = interfaceLookup.get(classElt);
-    if (resultMap != null) {
-      return resultMap;
-    } else {
-      resultMap = new HashMap<String, ExecutableElement>();
-    }
+    HashMap<String, ExecutableElement> resultMap = new HashMap<String, ExecutableElement>();
     InterfaceType[] interfaces = classElt.getInterfaces();
     if (interfaces.length == 0) {
       interfaceLookup.put(classElt, resultMap);
@@ -309,9 +316,9 @@ public class InheritanceManager {
       if (interfaceElement != null) {
         if (!visitedInterfaces.contains(interfaceElement)) {
           visitedInterfaces.add(interfaceElement);
-          lookupMaps.add(computeInterfaceLookupMap(interfaceElement, visitedInterfaces));
+          lookupMaps.add(getInterfaceLookupMap(interfaceElement, visitedInterfaces));
         } else {
-          HashMap<String, ExecutableElement> map = interfaceLookup.get(classElt);
+          HashMap<String, ExecutableElement> map = interfaceLookup.get(interfaceElement);
           if (map != null) {
             lookupMaps.add(map);
           } else {
@@ -431,6 +438,70 @@ public class InheritanceManager {
     return resultMap;
   }
 
+  /**
+   * Return the mapping for the given class from the member names to the members inherited from the
+   * mixin and superclass chain, computing it if it has not already been computed. The mapping is
+   * taken from, or added to, the shared cache if it does not depend on the library.
+   * 
+   * @param classElt the class whose inherited members are to be returned
+   * @param visitedClasses the classes visited while computing the mapping of a subclass, or
+   *          {@code null} if the mapping is not being computed for a subclass
+   * @return the members inherited from the mixin and superclass chain
+   */
+  private HashMap<String, ExecutableElement> getClassChainLookupMap(ClassElement classElt,
+      HashSet<ClassElement> visitedClasses) {
+    HashMap<String, ExecutableElement> resultMap = classLookup.get(classElt);
+    if (resultMap != null) {
+      return resultMap;
+    }
+    if (visitedClasses == null) {
+      visitedClasses = new HashSet<ClassElement>();
+    }
+    if (sharedCache == null || !sharedCache.isShareable(classElt, library)) {
+      return computeClassChainLookupMap(classElt, visitedClasses);
+    }
+    resultMap = sharedCache.getClassChainLookupMap(classElt);
+    if (resultMap != null) {
+      classLookup.put(classElt, resultMap);
+    } else {
+      resultMap = computeClassChainLookupMap(classElt, visitedClasses);
+      sharedCache.putClassChainLookupMap(classElt, resultMap);
+    }
+    return resultMap;
+  }
+
+  /**
+   * Return the mapping for the given class from the member names to the members inherited from the
+   * interfaces, computing it if it has not already been computed. The mapping is taken from, or
+   * added to, the shared cache if it does not depend on the library.
+   * 
+   * @param classElt the class whose inherited members are to be returned
+   * @param visitedInterfaces the interfaces visited while computing the mapping of a subclass, or
+   *          {@code null} if the mapping is not being computed for a subclass
+   * @return the members inherited from the interfaces
+   */
+  private HashMap<String, ExecutableElement> getInterfaceLookupMap(ClassElement classElt,
+      HashSet<ClassElement> visitedInterfaces) {
+    HashMap<String, ExecutableElement> resultMap = interfaceLookup.get(classElt);
+    if (resultMap != null) {
+      return resultMap;
+    }
+    if (visitedInterfaces == null) {
+      visitedInterfaces = new HashSet<ClassElement>();
+    }
+    if (sharedCache == null || !sharedCache.isShareable(classElt, library)) {
+      return computeInterfaceLookupMap(classElt, visitedInterfaces);
+    }
+    resultMap = sharedCache.getInterfaceLookupMap(classElt);
+    if (resultMap != null) {
+      interfaceLookup.put(classElt, resultMap);
+    } else {
+      resultMap = computeInterfaceLookupMap(classElt, visitedInterfaces);
+      sharedCache.putInterfaceLookupMap(classElt, resultMap);
+    }
+    return resultMap;
+  }
+
   /**
    * TODO (jwren) add missing javadoc
    * 
@@ -237,7 +237,9 @@ public class Library {
    */
   public InheritanceManager getInheritanceManager() {
     if (inheritanceManager == null) {
-      return inheritanceManager = new InheritanceManager(libraryElement);
+      return inheritanceManager = new InheritanceManager(
+          libraryElement,
+          analysisContext.getInheritanceCache());
     }
     return inheritanceManager;
   }
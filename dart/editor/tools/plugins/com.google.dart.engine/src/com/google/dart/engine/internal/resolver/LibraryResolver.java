@@ -15,9 +15,16 @@ package com.google.dart.engine.internal.resolver;
 
 import com.google.dart.engine.AnalysisEngine;
 import com.google.dart.engine.ast.Combinator;
+import com.google.dart.engine.ast.ClassDeclaration;
+import com.google.dart.engine.ast.ClassMember;
 import com.google.dart.engine.ast.CompilationUnit;
+import com.google.dart.engine.ast.CompilationUnitMember;
+import com.google.dart.engine.ast.ConstructorDeclaration;
+import com.google.dart.engine.ast.DefaultFormalParameter;
 import com.google.dart.engine.ast.Directive;
 import com.google.dart.engine.ast.ExportDirective;
+import com.google.dart.engine.ast.FieldFormalParameter;
+import com.google.dart.engine.ast.FormalParameter;
 import com.google.dart.engine.ast.HideCombinator;
 import com.google.dart.engine.ast.ImportDirective;
 import com.google.dart.engine.ast.NamespaceDirective;
@@ -27,17 +34,22 @@ import com.google.dart.engine.ast.ShowCombinator;
 import com.google.dart.engine.ast.SimpleIdentifier;
 import com.google.dart.engine.ast.StringLiteral;
 import com.google.dart.engine.context.AnalysisException;
+import com.google.dart.engine.element.ClassElement;
 import com.google.dart.engine.element.ExportElement;
+import com.google.dart.engine.element.FieldElement;
 import com.google.dart.engine.element.ImportElement;
 import com.google.dart.engine.element.LibraryElement;
 import com.google.dart.engine.element.NamespaceCombinator;
+import com.google.dart.engine.element.ParameterElement;
 import com.google.dart.engine.error.AnalysisError;
 import com.google.dart.engine.error.AnalysisErrorListener;
 import com.google.dart.engine.error.CompileTimeErrorCode;
 import com.google.dart.engine.internal.constant.ConstantValueComputer;
 import com.google.dart.engine.internal.context.InternalAnalysisContext;
 import com.google.dart.engine.internal.context.RecordingErrorListener;
+import com.google.dart.engine.internal.element.ClassElementImpl;
 import com.google.dart.engine.internal.element.ExportElementImpl;
+import com.google.dart.engine.internal.element.FieldFormalParameterElementImpl;
 import com.google.dart.engine.internal.element.HideCombinatorImpl;
 import com.google.dart.engine.internal.element.ImportElementImpl;
 import com.google.dart.engine.internal.element.LibraryElementImpl;
@@ -48,6 +60,8 @@ import com.google.dart.engine.internal.verifier.ConstantVerifier;
 import com.google.dart.engine.internal.verifier.ErrorVerifier;
 import com.google.dart.engine.sdk.DartSdk;
 import com.google.dart.engine.source.Source;
+import com.google.dart.engine.utilities.general.PhaseStatistics;
+import com.google.dart.engine.utilities.general.PhaseTimer;
 import com.google.dart.engine.utilities.instrumentation.Instrumentation;
 import com.google.dart.engine.utilities.instrumentation.InstrumentationBuilder;
 
@@ -55,6 +69,10 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Instances of the class {@code LibraryResolver} are used to resolve one or more mutually dependent
@@ -71,10 +89,19 @@ public class LibraryResolver {
   /**
    * The listener to which analysis errors will be reported, this error listener is either
    * references {@link #recordingErrorListener}, or it unions the passed
-   * {@link AnalysisErrorListener} with the {@link #recordingErrorListener}.
+   * {@link AnalysisErrorListener} with the {@link #recordingErrorListener}. Errors reported while a
+   * compilation unit is being visited by {@link #visitUnits(ArrayList)} are instead recorded by the
+   * listener in {@link #unitErrorListener}.
    */
   private AnalysisErrorListener errorListener;
 
+  /**
+   * The listener recording the errors reported by the visit of a compilation unit that is being
+   * performed on the current thread by {@link #visitUnits(ArrayList)}, or {@code null} if the
+   * current thread is not visiting a compilation unit concurrently with other threads.
+   */
+  private final ThreadLocal<RecordingErrorListener> unitErrorListener = new ThreadLocal<RecordingErrorListener>();
+
   /**
    * This error listener is used by the resolver to be able to call the listener and get back the
    * set of errors for each {@link Source}.
@@ -108,6 +135,18 @@ public class LibraryResolver {
    */
   private Set<Library> librariesInCycles;
 
+  /**
+   * The executor used to visit the compilation units of the libraries being resolved concurrently,
+   * or {@code null} if they are visited one after another on the thread resolving the libraries.
+   */
+  private ThreadPoolExecutor workerPool;
+
+  /**
+   * The statistics in which the time spent in, and the memory allocated by, each phase of
+   * resolution is recorded, or {@code null} if they are not recorded.
+   */
+  private PhaseStatistics statistics = AnalysisEngine.getInstance().getResolverStatistics();
+
   /**
    * Initialize a newly created library resolver to resolve libraries within the given context.
    * 
@@ -127,17 +166,20 @@ public class LibraryResolver {
       final AnalysisErrorListener additionalAnalysisErrorListener) {
     this.analysisContext = analysisContext;
     this.recordingErrorListener = new RecordingErrorListener();
-    if (additionalAnalysisErrorListener == null) {
-      this.errorListener = recordingErrorListener;
-    } else {
-      this.errorListener = new AnalysisErrorListener() {
-        @Override
-        public void onError(AnalysisError error) {
+    this.errorListener = new AnalysisErrorListener() {
+      @Override
+      public void onError(AnalysisError error) {
+        RecordingErrorListener listener = unitErrorListener.get();
+        if (listener != null) {
+          listener.onError(error);
+          return;
+        }
+        if (additionalAnalysisErrorListener != null) {
           additionalAnalysisErrorListener.onError(error);
-          recordingErrorListener.onError(error);
         }
-      };
-    }
+        recordingErrorListener.onError(error);
+      }
+    };
     coreLibrarySource = analysisContext.getSourceFactory().forUri(DartSdk.DART_CORE);
   }
 
@@ -159,6 +201,32 @@ public class LibraryResolver {
     return errorListener;
   }
 
+  /**
+   * Set the executor used to visit the compilation units of the libraries being resolved to the
+   * given executor. Once the element models and type hierarchies of the libraries have been built,
+   * the compilation units can be resolved and verified independently of each other, so if an
+   * executor is provided those visits are performed concurrently by its threads and the thread
+   * resolving the libraries.
+   * 
+   * @param workerPool the executor used to visit compilation units concurrently, or {@code null} if
+   *          the compilation units should be visited one after another
+   */
+  public void setWorkerPool(ThreadPoolExecutor workerPool) {
+    this.workerPool = workerPool;
+  }
+
+  /**
+   * Return the libraries that were resolved by the most recent invocation of
+   * {@link #resolveLibrary(Source, boolean)} or
+   * {@link #resolveEmbeddedLibrary(Source, CompilationUnit, boolean)}, or {@code null} if no library
+   * has been resolved.
+   * 
+   * @return the libraries that were resolved together
+   */
+  public Set<Library> getResolvedLibraries() {
+    return librariesInCycles;
+  }
+
   /**
    * Resolve the library specified by the given source in the given context. The library is assumed
    * to be embedded in the given source.
@@ -174,6 +242,7 @@ public class LibraryResolver {
       boolean fullAnalysis) throws AnalysisException {
 
     InstrumentationBuilder instrumentation = Instrumentation.builder("dart.engine.LibraryResolver.resolveEmbeddedLibrary");
+    PhaseTimer timer = new PhaseTimer(statistics, librarySource.getFullName());
     try {
       instrumentation.metric("fullAnalysis", fullAnalysis);
       instrumentation.data("fullName", librarySource.getFullName());
@@ -186,12 +255,15 @@ public class LibraryResolver {
         // This will be true unless the library being analyzed is the core library.
         coreLibrary = createLibrary(coreLibrarySource);
       }
-      instrumentation.metric("createLibrary", "complete");
+      instrumentation.metric("createLibrary", timer.phaseComplete("createLibrary"));
       //
       // Compute the set of libraries that need to be resolved together.
       //
       computeLibraryDependencies(targetLibrary);
       librariesInCycles = computeLibrariesInCycles(targetLibrary);
+      instrumentation.metric(
+          "computeLibraryDependencies",
+          timer.phaseComplete("computeLibraryDependencies"));
       //
       // Build the element models representing the libraries being resolved. This is done in three
       // steps:
@@ -207,16 +279,16 @@ public class LibraryResolver {
       //    which in turn requires that we have resolved the import directives.
       //
       buildElementModels();
-      instrumentation.metric("buildElementModels", "complete");
+      instrumentation.metric("buildElementModels", timer.phaseComplete("buildElementModels"));
       LibraryElement coreElement = coreLibrary.getLibraryElement();
       if (coreElement == null) {
         throw new AnalysisException("Could not resolve dart:core");
       }
       buildDirectiveModels();
-      instrumentation.metric("buildDirectiveModels", "complete");
+      instrumentation.metric("buildDirectiveModels", timer.phaseComplete("buildDirectiveModels"));
       typeProvider = new TypeProviderImpl(coreElement);
       buildTypeHierarchies();
-      instrumentation.metric("buildTypeHierarchies", "complete");
+      instrumentation.metric("buildTypeHierarchies", timer.phaseComplete("buildTypeHierarchies"));
       //
       // Perform resolution and type analysis.
       //
@@ -228,23 +300,30 @@ public class LibraryResolver {
       //
       //if (analyzeAll) {
       resolveReferencesAndTypes();
-      instrumentation.metric("resolveReferencesAndTypes", "complete");
+      instrumentation.metric(
+          "resolveReferencesAndTypes",
+          timer.phaseComplete("resolveReferencesAndTypes"));
       //} else {
       //  resolveReferencesAndTypes(targetLibrary);
       //}
       performConstantEvaluation();
-      instrumentation.metric("performConstantEvaluation", "complete");
+      instrumentation.metric(
+          "performConstantEvaluation",
+          timer.phaseComplete("performConstantEvaluation"));
       if (fullAnalysis) {
         //
         // Run additional analyses, such as constant expression analysis.
         //
         runAdditionalAnalyses();
-        instrumentation.metric("runAdditionalAnalyses", "complete");
+        instrumentation.metric(
+            "runAdditionalAnalyses",
+            timer.phaseComplete("runAdditionalAnalyses"));
       }
       recordResults();
-      instrumentation.metric("recordResults", "complete");
+      instrumentation.metric("recordResults", timer.phaseComplete("recordResults"));
       return targetLibrary.getLibraryElement();
     } finally {
+      timer.stop();
       instrumentation.log();
     }
   }
@@ -265,6 +344,7 @@ public class LibraryResolver {
   public LibraryElement resolveLibrary(Source librarySource, boolean fullAnalysis)
       throws AnalysisException {
     InstrumentationBuilder instrumentation = Instrumentation.builder("dart.engine.LibraryResolver.resolveLibrary");
+    PhaseTimer timer = new PhaseTimer(statistics, librarySource.getFullName());
     try {
       instrumentation.metric("fullAnalysis", fullAnalysis);
       instrumentation.data("fullName", librarySource.getFullName());
@@ -277,12 +357,15 @@ public class LibraryResolver {
         // This will be true unless the library being analyzed is the core library.
         coreLibrary = createLibrary(coreLibrarySource);
       }
-      instrumentation.metric("createLibrary", "complete");
+      instrumentation.metric("createLibrary", timer.phaseComplete("createLibrary"));
       //
       // Compute the set of libraries that need to be resolved together.
       //
       computeLibraryDependencies(targetLibrary);
       librariesInCycles = computeLibrariesInCycles(targetLibrary);
+      instrumentation.metric(
+          "computeLibraryDependencies",
+          timer.phaseComplete("computeLibraryDependencies"));
       //
       // Build the element models representing the libraries being resolved. This is done in three
       // steps:
@@ -298,16 +381,16 @@ public class LibraryResolver {
       //    which in turn requires that we have resolved the import directives.
       //
       buildElementModels();
-      instrumentation.metric("buildElementModels", "complete");
+      instrumentation.metric("buildElementModels", timer.phaseComplete("buildElementModels"));
       LibraryElement coreElement = coreLibrary.getLibraryElement();
       if (coreElement == null) {
         throw new AnalysisException("Could not resolve dart:core");
       }
       buildDirectiveModels();
-      instrumentation.metric("buildDirectiveModels", "complete");
+      instrumentation.metric("buildDirectiveModels", timer.phaseComplete("buildDirectiveModels"));
       typeProvider = new TypeProviderImpl(coreElement);
       buildTypeHierarchies();
-      instrumentation.metric("buildTypeHierarchies", "complete");
+      instrumentation.metric("buildTypeHierarchies", timer.phaseComplete("buildTypeHierarchies"));
       //
       // Perform resolution and type analysis.
       //
@@ -319,21 +402,27 @@ public class LibraryResolver {
       //
       //if (analyzeAll) {
       resolveReferencesAndTypes();
-      instrumentation.metric("resolveReferencesAndTypes", "complete");
+      instrumentation.metric(
+          "resolveReferencesAndTypes",
+          timer.phaseComplete("resolveReferencesAndTypes"));
       //} else {
       //  resolveReferencesAndTypes(targetLibrary);
       //}
       performConstantEvaluation();
-      instrumentation.metric("performConstantEvaluation", "complete");
+      instrumentation.metric(
+          "performConstantEvaluation",
+          timer.phaseComplete("performConstantEvaluation"));
       if (fullAnalysis) {
         //
         // Run additional analyses, such as constant expression analysis.
         //
         runAdditionalAnalyses();
-        instrumentation.metric("runAdditionalAnalyses", "complete");
+        instrumentation.metric(
+            "runAdditionalAnalyses",
+            timer.phaseComplete("runAdditionalAnalyses"));
       }
       recordResults();
-      instrumentation.metric("recordResults", "complete");
+      instrumentation.metric("recordResults", timer.phaseComplete("recordResults"));
       instrumentation.metric("librariesInCycles", librariesInCycles.size());
       for (Library lib : librariesInCycles) {
         instrumentation.metric(
@@ -343,6 +432,7 @@ public class LibraryResolver {
 
       return targetLibrary.getLibraryElement();
     } finally {
+      timer.stop();
       instrumentation.log();
     }
   }
@@ -580,13 +670,14 @@ public class LibraryResolver {
           Library importedLibrary = libraryMap.get(importedSource);
           if (importedLibrary == null) {
             importedLibrary = createLibraryOrNull(importedSource);
-            if (importedLibrary != null) {
+            if (importedLibrary != null && !isResolvedSdkLibrary(importedSource)) {
               computeLibraryDependencies(importedLibrary);
             }
           }
           if (importedLibrary != null) {
             library.addImport(importDirective, importedLibrary);
-            if (doesCompilationUnitHavePartOfDirective(importedLibrary.getAST(importedSource))) {
+            if (!isResolvedSdkLibrary(importedSource)
+                && doesCompilationUnitHavePartOfDirective(importedLibrary.getAST(importedSource))) {
               StringLiteral uriLiteral = importDirective.getUri();
               errorListener.onError(new AnalysisError(
                   library.getLibrarySource(),
@@ -605,13 +696,14 @@ public class LibraryResolver {
           Library exportedLibrary = libraryMap.get(exportedSource);
           if (exportedLibrary == null) {
             exportedLibrary = createLibraryOrNull(exportedSource);
-            if (exportedLibrary != null) {
+            if (exportedLibrary != null && !isResolvedSdkLibrary(exportedSource)) {
               computeLibraryDependencies(exportedLibrary);
             }
           }
           if (exportedLibrary != null) {
             library.addExport(exportDirective, exportedLibrary);
-            if (doesCompilationUnitHavePartOfDirective(exportedLibrary.getAST(exportedSource))) {
+            if (!isResolvedSdkLibrary(exportedSource)
+                && doesCompilationUnitHavePartOfDirective(exportedLibrary.getAST(exportedSource))) {
               StringLiteral uriLiteral = exportDirective.getUri();
               errorListener.onError(new AnalysisError(
                   library.getLibrarySource(),
@@ -629,7 +721,7 @@ public class LibraryResolver {
       Library importedLibrary = libraryMap.get(coreLibrarySource);
       if (importedLibrary == null) {
         importedLibrary = createLibraryOrNull(coreLibrarySource);
-        if (importedLibrary != null) {
+        if (importedLibrary != null && !isResolvedSdkLibrary(coreLibrarySource)) {
           computeLibraryDependencies(importedLibrary);
         }
       }
@@ -646,7 +738,9 @@ public class LibraryResolver {
    */
   private Library createLibrary(Source librarySource) throws AnalysisException {
     Library library = new Library(analysisContext, errorListener, librarySource);
-    library.getDefiningCompilationUnit();
+    if (!isResolvedSdkLibrary(librarySource)) {
+      library.getDefiningCompilationUnit();
+    }
     libraryMap.put(librarySource, library);
     return library;
   }
@@ -680,10 +774,12 @@ public class LibraryResolver {
       return null;
     }
     Library library = new Library(analysisContext, errorListener, librarySource);
-    try {
-      library.getDefiningCompilationUnit();
-    } catch (AnalysisException exception) {
-      return null;
+    if (!isResolvedSdkLibrary(librarySource)) {
+      try {
+        library.getDefiningCompilationUnit();
+      } catch (AnalysisException exception) {
+        return null;
+      }
     }
     libraryMap.put(librarySource, library);
     return library;
@@ -721,6 +817,20 @@ public class LibraryResolver {
     return identifiers;
   }
 
+  /**
+   * Return {@code true} if the library with the given source is an SDK library whose element model
+   * already exists. SDK libraries never import libraries outside the SDK, so such a library cannot
+   * be part of the cycle being resolved and its compilation units do not need to be parsed. This
+   * matters when the element models of the SDK were read from a summary.
+   * 
+   * @param librarySource the source of the library's defining compilation unit
+   * @return {@code true} if the library is an SDK library that has already been resolved
+   */
+  private boolean isResolvedSdkLibrary(Source librarySource) {
+    return librarySource.isInSystemLibrary()
+        && analysisContext.getLibraryElement(librarySource) != null;
+  }
+
   /**
    * Compute a value for all of the constants in the libraries being analyzed.
    */
@@ -779,22 +889,87 @@ public class LibraryResolver {
    *           libraries could not have their types analyzed
    */
   private void resolveReferencesAndTypes() throws AnalysisException {
+    ArrayList<Runnable> visits = new ArrayList<Runnable>();
     for (Library library : librariesInCycles) {
-      resolveReferencesAndTypes(library);
+      resolveFieldFormalParameterTypes(library);
+      resolveReferencesAndTypes(library, visits);
     }
+    visitUnits(visits);
   }
 
   /**
-   * Resolve the identifiers and perform type analysis in the given library.
+   * Add to the given list the visits that will resolve the identifiers and perform type analysis in
+   * the compilation units of the given library.
    * 
    * @param library the library to be resolved
-   * @throws AnalysisException if any of the identifiers could not be resolved or if the types in
-   *           the library cannot be analyzed
+   * @param visits the list to which the visits are to be added
+   * @throws AnalysisException if the AST structure of a compilation unit cannot be accessed
    */
-  private void resolveReferencesAndTypes(Library library) throws AnalysisException {
+  private void resolveReferencesAndTypes(Library library, ArrayList<Runnable> visits)
+      throws AnalysisException {
     for (Source source : library.getCompilationUnitSources()) {
-      ResolverVisitor visitor = new ResolverVisitor(library, source, typeProvider);
-      library.getAST(source).accept(visitor);
+      final ResolverVisitor visitor = new ResolverVisitor(library, source, typeProvider);
+      final CompilationUnit unit = library.getAST(source);
+      visits.add(new Runnable() {
+        @Override
+        public void run() {
+          unit.accept(visitor);
+        }
+      });
+    }
+  }
+
+  /**
+   * Set the type of each field formal parameter in the given library that does not declare a type
+   * to the type of the field it initializes. The {@link ElementResolver} does the same when it
+   * visits the parameter, but doing it before any compilation unit is visited means that the
+   * invocations of the constructor in other compilation units see the same type regardless of the
+   * order in which the compilation units are visited.
+   * 
+   * @param library the library whose field formal parameters are to be resolved
+   * @throws AnalysisException if the AST structure of a compilation unit cannot be accessed
+   */
+  private void resolveFieldFormalParameterTypes(Library library) throws AnalysisException {
+    for (Source source : library.getCompilationUnitSources()) {
+      for (CompilationUnitMember declaration : library.getAST(source).getDeclarations()) {
+        if (declaration instanceof ClassDeclaration) {
+          ClassDeclaration classDeclaration = (ClassDeclaration) declaration;
+          ClassElement classElement = classDeclaration.getElement();
+          if (classElement instanceof ClassElementImpl) {
+            for (ClassMember member : classDeclaration.getMembers()) {
+              if (member instanceof ConstructorDeclaration) {
+                resolveFieldFormalParameterTypes(
+                    (ClassElementImpl) classElement,
+                    (ConstructorDeclaration) member);
+              }
+            }
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Set the type of each field formal parameter of the given constructor that does not declare a
+   * type to the type of the field it initializes.
+   * 
+   * @param classElement the element representing the class declaring the constructor
+   * @param constructor the constructor whose field formal parameters are to be resolved
+   */
+  private void resolveFieldFormalParameterTypes(ClassElementImpl classElement,
+      ConstructorDeclaration constructor) {
+    for (FormalParameter parameter : constructor.getParameters().getParameters()) {
+      if (parameter instanceof DefaultFormalParameter) {
+        parameter = ((DefaultFormalParameter) parameter).getParameter();
+      }
+      if (parameter instanceof FieldFormalParameter
+          && ((FieldFormalParameter) parameter).getType() == null) {
+        ParameterElement element = parameter.getElement();
+        FieldElement field = classElement.getField(parameter.getIdentifier().getName());
+        if (element instanceof FieldFormalParameterElementImpl && field != null) {
+          ((FieldFormalParameterElementImpl) element).setType(field.getType());
+        }
+      }
     }
   }
 
@@ -806,33 +981,126 @@ public class LibraryResolver {
    *           the library cannot be analyzed
    */
   private void runAdditionalAnalyses() throws AnalysisException {
+    ArrayList<Runnable> visits = new ArrayList<Runnable>();
     for (Library library : librariesInCycles) {
-      runAdditionalAnalyses(library);
+      runAdditionalAnalyses(library, visits);
     }
+    visitUnits(visits);
   }
 
   /**
-   * Run additional analyses, such as the {@link ConstantVerifier} and {@link ErrorVerifier}
-   * analysis in the given library.
+   * Add to the given list the visits that will run additional analyses, such as the
+   * {@link ConstantVerifier} and {@link ErrorVerifier} analysis, in the compilation units of the
+   * given library.
    * 
    * @param library the library to have the extra analyses processes run
-   * @throws AnalysisException if any of the identifiers could not be resolved or if the types in
-   *           the library cannot be analyzed
+   * @param visits the list to which the visits are to be added
+   * @throws AnalysisException if the AST structure of a compilation unit cannot be accessed
    */
-  private void runAdditionalAnalyses(Library library) throws AnalysisException {
+  private void runAdditionalAnalyses(Library library, ArrayList<Runnable> visits)
+      throws AnalysisException {
     for (Source source : library.getCompilationUnitSources()) {
       ErrorReporter errorReporter = new ErrorReporter(errorListener, source);
-      CompilationUnit unit = library.getAST(source);
-
-      ErrorVerifier errorVerifier = new ErrorVerifier(
+      final CompilationUnit unit = library.getAST(source);
+      // The maps cached by an inheritance manager are not thread-safe, so concurrent visits do not
+      // share the library's inheritance manager.
+      InheritanceManager inheritanceManager = workerPool == null ? library.getInheritanceManager()
+          : new InheritanceManager(
+              library.getLibraryElement(),
+              analysisContext.getInheritanceCache());
+      final ErrorVerifier errorVerifier = new ErrorVerifier(
           errorReporter,
           library.getLibraryElement(),
           typeProvider,
-          library.getInheritanceManager());
-      unit.accept(errorVerifier);
+          inheritanceManager);
+      errorVerifier.addParticipant(new ConstantVerifier(errorReporter, typeProvider));
+      visits.add(new Runnable() {
+        @Override
+        public void run() {
+          unit.accept(errorVerifier);
+        }
+      });
+    }
+  }
 
-      ConstantVerifier constantVerifier = new ConstantVerifier(errorReporter, typeProvider);
-      unit.accept(constantVerifier);
+  /**
+   * Perform the given visits of compilation units. If a worker pool has been provided the visits
+   * are performed concurrently by the worker threads and the current thread. The errors reported by
+   * each visit are then recorded by a listener that is confined to the thread performing the visit,
+   * and are reported to the {@link #errorListener} in the order of the visits once all of the
+   * visits have been performed, so the errors do not depend on the order in which visits finish.
+   * 
+   * @param visits the visits to be performed
+   */
+  private void visitUnits(final ArrayList<Runnable> visits) {
+    final int visitCount = visits.size();
+    if (workerPool == null || visitCount < 2) {
+      for (Runnable visit : visits) {
+        visit.run();
+      }
+      return;
+    }
+    final RecordingErrorListener[] listeners = new RecordingErrorListener[visitCount];
+    final Throwable[] exceptions = new Throwable[visitCount];
+    final AtomicInteger nextVisit = new AtomicInteger();
+    final CountDownLatch remainingVisits = new CountDownLatch(visitCount);
+    Runnable worker = new Runnable() {
+      @Override
+      public void run() {
+        int index = nextVisit.getAndIncrement();
+        while (index < visitCount) {
+          RecordingErrorListener listener = new RecordingErrorListener();
+          unitErrorListener.set(listener);
+          try {
+            visits.get(index).run();
+          } catch (Throwable exception) {
+            exceptions[index] = exception;
+          } finally {
+            unitErrorListener.remove();
+          }
+          listeners[index] = listener;
+          remainingVisits.countDown();
+          index = nextVisit.getAndIncrement();
+        }
+      }
+    };
+    int helperCount = Math.min(workerPool.getMaximumPoolSize(), visitCount - 1);
+    ArrayList<Future<?>> helpers = new ArrayList<Future<?>>(helperCount);
+    for (int i = 0; i < helperCount; i++) {
+      helpers.add(workerPool.submit(worker));
+    }
+    //
+    // The current thread performs visits as well, so that all of the visits are performed even if
+    // none of the worker threads becomes available. Helpers that have not started by the time all
+    // of the visits have been claimed have nothing left to do.
+    //
+    worker.run();
+    for (Future<?> helper : helpers) {
+      helper.cancel(false);
+    }
+    boolean interrupted = false;
+    while (true) {
+      try {
+        remainingVisits.await();
+        break;
+      } catch (InterruptedException exception) {
+        // The worker threads might still be visiting compilation units, so they must be waited for.
+        interrupted = true;
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+    for (int i = 0; i < visitCount; i++) {
+      Throwable exception = exceptions[i];
+      if (exception instanceof RuntimeException) {
+        throw (RuntimeException) exception;
+      } else if (exception instanceof Error) {
+        throw (Error) exception;
+      }
+      for (AnalysisError error : listeners[i].getErrors()) {
+        errorListener.onError(error);
+      }
     }
   }
 
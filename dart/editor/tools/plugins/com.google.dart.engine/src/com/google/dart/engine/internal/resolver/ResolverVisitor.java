@@ -74,6 +74,7 @@ import com.google.dart.engine.element.PropertyAccessorElement;
 import com.google.dart.engine.element.PropertyInducingElement;
 import com.google.dart.engine.element.VariableElement;
 import com.google.dart.engine.error.AnalysisErrorListener;
+import com.google.dart.engine.internal.scope.Scope;
 import com.google.dart.engine.internal.type.BottomTypeImpl;
 import com.google.dart.engine.scanner.TokenType;
 import com.google.dart.engine.source.Source;
@@ -152,6 +153,27 @@ public class ResolverVisitor extends ScopedVisitor {
     this.typeAnalyzer = new StaticTypeAnalyzer(this);
   }
 
+  /**
+   * Initialize a newly created visitor to resolve the nodes in an AST structure that is part of a
+   * compilation unit, such as the body of a method, using the given scope for the outermost node.
+   * The visitor must be initialized using {@link #initForIncrementalResolution(ASTNode)} before it
+   * is used.
+   * 
+   * @param definingLibrary the element for the library containing the compilation unit being
+   *          visited
+   * @param source the source representing the compilation unit being visited
+   * @param typeProvider the object used to access the types from the core library
+   * @param nameScope the scope used to resolve identifiers in the outermost node being visited
+   * @param errorListener the error listener that will be informed of any errors that are found
+   *          during resolution
+   */
+  public ResolverVisitor(LibraryElement definingLibrary, Source source, TypeProvider typeProvider,
+      Scope nameScope, AnalysisErrorListener errorListener) {
+    super(definingLibrary, source, typeProvider, nameScope, errorListener);
+    this.elementResolver = new ElementResolver(this);
+    this.typeAnalyzer = new StaticTypeAnalyzer(this);
+  }
+
   /**
    * Return the object keeping track of which elements have had their types overridden.
    * 
@@ -171,6 +193,30 @@ public class ResolverVisitor extends ScopedVisitor {
     return staticElementMap;
   }
 
+  /**
+   * Prepare this visitor to resolve the given node, which is part of a compilation unit whose
+   * declarations have already been resolved, by recording the class and the function that enclose
+   * the node.
+   * 
+   * @param node the node that will be resolved
+   */
+  public void initForIncrementalResolution(ASTNode node) {
+    for (ASTNode parent = node.getParent(); parent != null; parent = parent.getParent()) {
+      if (parent instanceof ClassDeclaration) {
+        enclosingClass = ((ClassDeclaration) parent).getElement();
+        typeAnalyzer.setThisType(enclosingClass == null ? null : enclosingClass.getType());
+      } else if (enclosingFunction == null) {
+        if (parent instanceof ConstructorDeclaration) {
+          enclosingFunction = ((ConstructorDeclaration) parent).getElement();
+        } else if (parent instanceof FunctionExpression) {
+          enclosingFunction = ((FunctionExpression) parent).getElement();
+        } else if (parent instanceof MethodDeclaration) {
+          enclosingFunction = ((MethodDeclaration) parent).getElement();
+        }
+      }
+    }
+  }
+
   @Override
   public Void visitAsExpression(AsExpression node) {
     super.visitAsExpression(node);
@@ -131,6 +131,27 @@ public abstract class ScopedVisitor extends GeneralizingASTVisitor<Void> {
     this.typeProvider = typeProvider;
   }
 
+  /**
+   * Initialize a newly created visitor to resolve the nodes in an AST structure that is part of a
+   * compilation unit, such as the body of a method, using the given scope for the outermost node.
+   * 
+   * @param definingLibrary the element for the library containing the compilation unit being
+   *          visited
+   * @param source the source representing the compilation unit being visited
+   * @param typeProvider the object used to access the types from the core library
+   * @param nameScope the scope used to resolve identifiers in the outermost node being visited
+   * @param errorListener the error listener that will be informed of any errors that are found
+   *          during resolution
+   */
+  public ScopedVisitor(LibraryElement definingLibrary, Source source, TypeProvider typeProvider,
+      Scope nameScope, AnalysisErrorListener errorListener) {
+    this.definingLibrary = definingLibrary;
+    this.source = source;
+    this.errorListener = errorListener;
+    this.nameScope = nameScope;
+    this.typeProvider = typeProvider;
+  }
+
   /**
    * Return the library element for the library containing the compilation unit being resolved.
    * 
@@ -60,6 +60,7 @@ import com.google.dart.engine.ast.TypeName;
 import com.google.dart.engine.ast.VariableDeclaration;
 import com.google.dart.engine.ast.visitor.SimpleASTVisitor;
 import com.google.dart.engine.element.ClassElement;
+import com.google.dart.engine.element.CompilationUnitElement;
 import com.google.dart.engine.element.ConstructorElement;
 import com.google.dart.engine.element.Element;
 import com.google.dart.engine.element.ExecutableElement;
@@ -484,8 +485,13 @@ public class StaticTypeAnalyzer extends SimpleASTVisitor<Void> {
   @Override
   public Void visitFunctionDeclaration(FunctionDeclaration node) {
     FunctionExpression function = node.getFunctionExpression();
-    FunctionTypeImpl functionType = (FunctionTypeImpl) node.getElement().getType();
-    setTypeInformation(functionType, computeReturnType(node), function.getParameters());
+    ExecutableElement element = node.getElement();
+    FunctionTypeImpl functionType = (FunctionTypeImpl) element.getType();
+    if (!(element.getEnclosingElement() instanceof CompilationUnitElement)) {
+      // The type of a top-level function was set by the TypeResolverVisitor and can be read by the
+      // visitors of other compilation units, which might be running concurrently with this one.
+      setTypeInformation(functionType, computeReturnType(node), function.getParameters());
+    }
     recordStaticType(function, functionType);
     return null;
   }
@@ -133,8 +133,13 @@ public class LibraryImportScope extends Scope {
     return errorListener;
   }
 
+  /**
+   * Lookups are synchronized because the names found in the imported namespaces are added to this
+   * scope, and the compilation units of a library can be resolved concurrently using one scope.
+   */
   @Override
-  protected Element lookup(Identifier identifier, String name, LibraryElement referencingLibrary) {
+  protected synchronized Element lookup(Identifier identifier, String name,
+      LibraryElement referencingLibrary) {
     Element foundElement = localLookup(name, referencingLibrary);
     if (foundElement != null) {
       return foundElement;
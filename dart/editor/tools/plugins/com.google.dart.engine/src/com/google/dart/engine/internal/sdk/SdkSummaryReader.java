@@ -0,0 +1,204 @@
+/*
+ * Copyright (c) 2013, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.internal.sdk;
+
+import com.google.dart.engine.context.AnalysisException;
+import com.google.dart.engine.element.LibraryElement;
+import com.google.dart.engine.index.MemoryIndexStore;
+import com.google.dart.engine.internal.context.InternalAnalysisContext;
+import com.google.dart.engine.internal.element.ElementReader;
+import com.google.dart.engine.sdk.DirectoryBasedDartSdk;
+import com.google.dart.engine.source.Source;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Map;
+
+/**
+ * Instances of the class {@code SdkSummaryReader} read a summary written by an
+ * {@link SdkSummaryWriter} and record the element models of the SDK libraries in the context of an
+ * SDK, so that the libraries do not need to be resolved.
+ * 
+ * @coverage dart.engine.sdk
+ */
+public class SdkSummaryReader {
+  /**
+   * Return a reader that reads the summary in the given file. The file is mapped into memory rather
+   * than being read.
+   * 
+   * @param file the file containing the summary
+   * @return a reader that reads the summary in the given file
+   * @throws IOException if the file could not be mapped
+   */
+  public static SdkSummaryReader forFile(File file) throws IOException {
+    FileInputStream input = new FileInputStream(file);
+    try {
+      FileChannel channel = input.getChannel();
+      return new SdkSummaryReader(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+    } finally {
+      input.close();
+    }
+  }
+
+  /**
+   * Return a reader that reads the summary from the given stream. This is used when the summary is
+   * not stored in a file of its own, such as when it is packaged as a resource.
+   * 
+   * @param input the stream from which the summary is to be read
+   * @return a reader that reads the summary from the given stream
+   * @throws IOException if the stream could not be read
+   */
+  public static SdkSummaryReader forStream(InputStream input) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    byte[] buffer = new byte[8192];
+    int count;
+    while ((count = input.read(buffer)) >= 0) {
+      bytes.write(buffer, 0, count);
+    }
+    return new SdkSummaryReader(ByteBuffer.wrap(bytes.toByteArray()));
+  }
+
+  /**
+   * The buffer containing the summary.
+   */
+  private final ByteBuffer buffer;
+
+  /**
+   * Initialize a newly created reader to read the summary in the given buffer.
+   * 
+   * @param buffer the buffer containing the summary
+   */
+  public SdkSummaryReader(ByteBuffer buffer) {
+    this.buffer = buffer;
+  }
+
+  /**
+   * Read the index data in the summary into the given store. The index data can only be used if the
+   * summary was written for an SDK in the same location as the given SDK.
+   * 
+   * @param sdk the SDK whose libraries were summarized
+   * @param store the store into which the index data is to be read
+   * @return {@code true} if the index data was read
+   * @throws IOException if the summary is not valid
+   */
+  public boolean readIndex(DirectoryBasedDartSdk sdk, MemoryIndexStore store) throws IOException {
+    ByteBuffer data = buffer.duplicate();
+    try {
+      if (!readHeader(data, sdk)
+          || !readString(data).equals(SdkSummaryWriter.getRelativeUriPrefix(sdk))) {
+        return false;
+      }
+      int libraryCount = data.getInt();
+      for (int i = 0; i < libraryCount; i++) {
+        readString(data);
+        int length = data.getInt();
+        data.position(data.position() + length);
+      }
+      store.readIndex(sdk.getContext(), new ByteArrayInputStream(readBytes(data)));
+      return true;
+    } catch (RuntimeException exception) {
+      // Thrown when the summary is truncated or contains invalid lengths.
+      throw new IOException("Invalid SDK summary", exception);
+    }
+  }
+
+  /**
+   * Read the element models of the libraries in the summary and record them in the context of the
+   * given SDK.
+   * 
+   * @param sdk the SDK whose libraries were summarized
+   * @return {@code true} if the element models were recorded, or {@code false} if the summary was
+   *         written for a different version of the SDK
+   * @throws AnalysisException if the summary is not valid
+   */
+  public boolean readLibraries(DirectoryBasedDartSdk sdk) throws AnalysisException {
+    ByteBuffer data = buffer.duplicate();
+    ArrayList<byte[]> dataList = new ArrayList<byte[]>();
+    try {
+      if (!readHeader(data, sdk)) {
+        return false;
+      }
+      readString(data);
+      int libraryCount = data.getInt();
+      for (int i = 0; i < libraryCount; i++) {
+        readString(data);
+        dataList.add(readBytes(data));
+      }
+    } catch (RuntimeException exception) {
+      // Thrown when the summary is truncated or contains invalid lengths.
+      throw new AnalysisException("Invalid SDK summary", exception);
+    }
+    InternalAnalysisContext context = (InternalAnalysisContext) sdk.getContext();
+    ElementReader reader = new ElementReader(context);
+    reader.setRelativeUriPrefix(SdkSummaryWriter.getRelativeUriPrefix(sdk));
+    Map<Source, LibraryElement> elementMap = reader.readLibraries(dataList);
+    context.recordLibraryElements(elementMap);
+    return true;
+  }
+
+  /**
+   * Read a length followed by that many bytes from the given buffer.
+   * 
+   * @param data the buffer from which the bytes are to be read
+   * @return the bytes that were read
+   */
+  private byte[] readBytes(ByteBuffer data) {
+    int length = data.getInt();
+    if (length < 0 || length > data.remaining()) {
+      throw new BufferUnderflowException();
+    }
+    byte[] bytes = new byte[length];
+    data.get(bytes);
+    return bytes;
+  }
+
+  /**
+   * Read the header of the summary from the given buffer and return {@code true} if the summary was
+   * written in the current format for the version of the given SDK.
+   * 
+   * @param data the buffer from which the header is to be read
+   * @param sdk the SDK whose libraries were summarized
+   * @return {@code true} if the summary can be used with the given SDK
+   */
+  private boolean readHeader(ByteBuffer data, DirectoryBasedDartSdk sdk) {
+    if (data.getInt() != SdkSummaryWriter.FORMAT_VERSION) {
+      return false;
+    }
+    return readString(data).equals(sdk.getSdkVersion());
+  }
+
+  /**
+   * Read a string written as the length of its UTF-8 encoding followed by the encoding.
+   * 
+   * @param data the buffer from which the string is to be read
+   * @return the string that was read
+   */
+  private String readString(ByteBuffer data) {
+    try {
+      return new String(readBytes(data), "UTF-8");
+    } catch (UnsupportedEncodingException exception) {
+      // UTF-8 is always supported.
+      throw new IllegalStateException(exception);
+    }
+  }
+}
@@ -0,0 +1,192 @@
+/*
+ * Copyright (c) 2013, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.internal.sdk;
+
+import com.google.dart.engine.ast.CompilationUnit;
+import com.google.dart.engine.context.AnalysisContext;
+import com.google.dart.engine.context.AnalysisException;
+import com.google.dart.engine.element.CompilationUnitElement;
+import com.google.dart.engine.element.LibraryElement;
+import com.google.dart.engine.error.AnalysisError;
+import com.google.dart.engine.index.IndexFactory;
+import com.google.dart.engine.index.MemoryIndexStore;
+import com.google.dart.engine.internal.element.ElementWriter;
+import com.google.dart.engine.internal.index.IndexContributor;
+import com.google.dart.engine.sdk.DirectoryBasedDartSdk;
+import com.google.dart.engine.source.Source;
+import com.google.dart.engine.source.SourceFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Instances of the class {@code SdkSummaryWriter} write a summary of the libraries in an SDK. The
+ * summary contains the element model of every library in the SDK together with the relationships
+ * recorded by indexing those libraries, and can be read by an {@link SdkSummaryReader} in order to
+ * avoid resolving the SDK libraries.
+ * <p>
+ * The summary has the following format:
+ * 
+ * <pre>
+ * int     format version
+ * string  SDK version
+ * string  URI of the SDK library directory
+ * int     library count
+ *   string  library URI
+ *   int     element data length
+ *   byte[]  element data, as written by an {@link ElementWriter}
+ * int     index data length
+ * byte[]  index data, as written by a {@link MemoryIndexStore}
+ * </pre>
+ * 
+ * where each string is written as the length of its UTF-8 encoding followed by the encoding. The
+ * element data refers to the SDK sources relative to the library directory, but the index data
+ * refers to them by their full URI and can only be used with an SDK in the same location.
+ * 
+ * @coverage dart.engine.sdk
+ */
+public class SdkSummaryWriter {
+  /**
+   * The version of the format of the summary.
+   */
+  public static final int FORMAT_VERSION = 1;
+
+  /**
+   * Return the prefix of the URIs of the sources in the given SDK. This prefix is written in a
+   * relative form so that the summary can be read for an SDK installed in a different directory.
+   * 
+   * @param sdk the SDK whose sources will be written or read
+   * @return the prefix of the URIs of the sources in the SDK
+   */
+  static String getRelativeUriPrefix(DirectoryBasedDartSdk sdk) {
+    String prefix = sdk.getLibraryDirectory().getAbsoluteFile().toURI().toString();
+    if (!prefix.endsWith("/")) {
+      prefix += "/";
+    }
+    return prefix;
+  }
+
+  /**
+   * The SDK whose libraries are being summarized.
+   */
+  private final DirectoryBasedDartSdk sdk;
+
+  /**
+   * Initialize a newly created writer to write a summary of the libraries in the given SDK.
+   * 
+   * @param sdk the SDK whose libraries are to be summarized
+   */
+  public SdkSummaryWriter(DirectoryBasedDartSdk sdk) {
+    this.sdk = sdk;
+  }
+
+  /**
+   * Resolve and index every library in the SDK and write the summary to the given stream.
+   * 
+   * @param output the stream to which the summary is to be written
+   * @throws AnalysisException if one of the libraries could not be resolved or summarized
+   * @throws IOException if the summary could not be written
+   */
+  public void write(OutputStream output) throws AnalysisException, IOException {
+    AnalysisContext context = sdk.getContext();
+    SourceFactory sourceFactory = context.getSourceFactory();
+    LinkedHashMap<String, LibraryElement> libraries = new LinkedHashMap<String, LibraryElement>();
+    for (String uri : sdk.getUris()) {
+      Source source = sourceFactory.forUri(uri);
+      LibraryElement library = source == null ? null : context.computeLibraryElement(source);
+      if (library == null) {
+        throw new AnalysisException("Could not resolve " + uri);
+      }
+      libraries.put(uri, library);
+    }
+    DataOutputStream dataOutput = new DataOutputStream(output);
+    String prefix = getRelativeUriPrefix(sdk);
+    dataOutput.writeInt(FORMAT_VERSION);
+    writeString(dataOutput, sdk.getSdkVersion());
+    writeString(dataOutput, prefix);
+    dataOutput.writeInt(libraries.size());
+    Map<Source, AnalysisError[]> errorMap = new HashMap<Source, AnalysisError[]>();
+    for (Map.Entry<String, LibraryElement> entry : libraries.entrySet()) {
+      ElementWriter writer = new ElementWriter(entry.getValue(), sdk.getSdkVersion());
+      writer.setRelativeUriPrefix(prefix);
+      byte[] data = writer.write(errorMap);
+      writeString(dataOutput, entry.getKey());
+      dataOutput.writeInt(data.length);
+      dataOutput.write(data);
+    }
+    byte[] indexData = createIndex(context, libraries.values());
+    dataOutput.writeInt(indexData.length);
+    dataOutput.write(indexData);
+    dataOutput.flush();
+  }
+
+  /**
+   * Index the compilation units in the given libraries and return the serialized form of the
+   * resulting index.
+   * 
+   * @param context the context in which the libraries were resolved
+   * @param libraries the libraries to be indexed
+   * @return the serialized form of the index
+   * @throws AnalysisException if one of the compilation units could not be resolved
+   * @throws IOException if the index could not be written
+   */
+  private byte[] createIndex(AnalysisContext context, Iterable<LibraryElement> libraries)
+      throws AnalysisException, IOException {
+    MemoryIndexStore store = IndexFactory.newMemoryIndexStore();
+    for (LibraryElement library : libraries) {
+      indexUnit(context, store, library, library.getDefiningCompilationUnit());
+      for (CompilationUnitElement part : library.getParts()) {
+        indexUnit(context, store, library, part);
+      }
+    }
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    store.writeIndex(context, bytes);
+    return bytes.toByteArray();
+  }
+
+  /**
+   * Record the relationships found in the given compilation unit in the given index store.
+   * 
+   * @param context the context in which the library was resolved
+   * @param store the store in which the relationships are to be recorded
+   * @param library the library containing the compilation unit
+   * @param unitElement the compilation unit to be indexed
+   * @throws AnalysisException if the compilation unit could not be resolved
+   */
+  private void indexUnit(AnalysisContext context, MemoryIndexStore store, LibraryElement library,
+      CompilationUnitElement unitElement) throws AnalysisException {
+    CompilationUnit unit = context.resolveCompilationUnit(unitElement.getSource(), library);
+    if (unit != null) {
+      unit.accept(new IndexContributor(store));
+    }
+  }
+
+  /**
+   * Write the given string as the length of its UTF-8 encoding followed by the encoding.
+   * 
+   * @param output the stream to which the string is to be written
+   * @param string the string to be written
+   * @throws IOException if the string could not be written
+   */
+  private void writeString(DataOutputStream output, String string) throws IOException {
+    byte[] bytes = string.getBytes("UTF-8");
+    output.writeInt(bytes.length);
+    output.write(bytes);
+  }
+}
@@ -0,0 +1,218 @@
+/*
+ * Copyright (c) 2013, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.internal.search;
+
+import com.google.common.collect.Lists;
+import com.google.dart.engine.index.Location;
+import com.google.dart.engine.internal.search.pattern.IndexableSearchPattern;
+import com.google.dart.engine.search.SearchPattern;
+import com.google.dart.engine.utilities.general.CharOperation;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Instances of the class {@code DeclarationNameIndex} index the locations of declarations by the
+ * display names of the declared elements, so that the declarations matching an
+ * {@link IndexableSearchPattern} can be found without matching every declaration.
+ * <p>
+ * The names are kept in sorted arrays, either as they are or converted to lower case. The
+ * declarations whose names start with the prefix of a pattern form a contiguous range in one of the
+ * arrays, which is found using binary search. Only the declarations in that range are then matched
+ * against the pattern itself.
+ * <p>
+ * The sorted arrays are built when the index is queried for the second time, so that an index of
+ * declarations that keep changing, for example while the sources are being indexed, costs no more
+ * than matching every declaration.
+ * 
+ * @coverage dart.engine.search
+ */
+public class DeclarationNameIndex {
+  /**
+   * Instances of the class {@code SortedNames} hold names sorted in lexicographic order and the
+   * locations of the declarations with these names.
+   */
+  private static class SortedNames {
+    private final String[] names;
+    private final Location[] locations;
+
+    public SortedNames(String[] names, Location[] locations) {
+      this.names = names;
+      this.locations = locations;
+    }
+  }
+
+  /**
+   * The locations this index was built from, in their original order.
+   */
+  private final Location[] locations;
+
+  /**
+   * The modification stamp of the index store the locations were found in.
+   */
+  private final long modificationStamp;
+
+  /**
+   * A flag indicating whether this index has been queried.
+   */
+  private boolean queried;
+
+  /**
+   * The display names of the declared elements, sorted, or {@code null} if not built yet.
+   */
+  private SortedNames names;
+
+  /**
+   * The display names of the declared elements converted to lower case, sorted, or {@code null} if
+   * not built yet.
+   */
+  private SortedNames lowerCaseNames;
+
+  /**
+   * Initialize a newly created index to index the given locations of declarations.
+   * 
+   * @param locations the locations of the declarations to be indexed
+   * @param modificationStamp the modification stamp of the index store the locations were found in
+   */
+  public DeclarationNameIndex(Location[] locations, long modificationStamp) {
+    this.locations = locations;
+    this.modificationStamp = modificationStamp;
+  }
+
+  /**
+   * Return the locations of the declarations whose elements might match the given pattern. The
+   * returned list is a view of this index and is not copied, so the candidates can be matched
+   * against the pattern as they are being reported.
+   * 
+   * @param pattern the pattern to match, may be {@code null} to return all of the locations
+   * @return the locations of the declarations whose elements might match the given pattern
+   */
+  public List<Location> getCandidates(SearchPattern pattern) {
+    if (pattern instanceof IndexableSearchPattern) {
+      IndexableSearchPattern indexablePattern = (IndexableSearchPattern) pattern;
+      SortedNames sortedNames = getSortedNames(indexablePattern.isNamePrefixCaseSensitive());
+      if (sortedNames != null) {
+        String prefix = indexablePattern.getNamePrefix();
+        String[] names = sortedNames.names;
+        int start = findFirst(names, prefix);
+        int end = start;
+        while (end < names.length && names[end].startsWith(prefix)) {
+          end++;
+        }
+        return Arrays.asList(sortedNames.locations).subList(start, end);
+      }
+    }
+    return Arrays.asList(locations);
+  }
+
+  /**
+   * Return the locations of the declarations whose elements match the given pattern.
+   * 
+   * @param pattern the pattern to match, may be {@code null} to return all of the locations
+   * @return the locations of the declarations whose elements match the given pattern
+   */
+  public Location[] getMatches(SearchPattern pattern) {
+    if (pattern == null) {
+      return locations;
+    }
+    List<Location> matches = Lists.newArrayList();
+    for (Location location : getCandidates(pattern)) {
+      if (pattern.matches(location.getElement()) != null) {
+        matches.add(location);
+      }
+    }
+    return matches.toArray(new Location[matches.size()]);
+  }
+
+  /**
+   * Return the modification stamp of the index store the indexed locations were found in. The index
+   * can be used instead of querying the store for as long as the store has the same stamp.
+   * 
+   * @return the modification stamp of the index store the locations were found in
+   */
+  public long getModificationStamp() {
+    return modificationStamp;
+  }
+
+  /**
+   * Return the index of the first name in the given sorted array that is not less than the given
+   * prefix.
+   */
+  private int findFirst(String[] sortedNames, String prefix) {
+    int low = 0;
+    int high = sortedNames.length;
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (sortedNames[middle].compareTo(prefix) < 0) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * Return the sorted names, either as they are or converted to lower case, or {@code null} if this
+   * index is being queried for the first time.
+   */
+  private synchronized SortedNames getSortedNames(boolean caseSensitive) {
+    if (!queried) {
+      queried = true;
+      return null;
+    }
+    if (caseSensitive) {
+      if (names == null) {
+        names = sortNames(false);
+      }
+      return names;
+    } else {
+      if (lowerCaseNames == null) {
+        lowerCaseNames = sortNames(true);
+      }
+      return lowerCaseNames;
+    }
+  }
+
+  /**
+   * Return the display names of the declared elements, optionally converted to lower case, sorted.
+   */
+  private SortedNames sortNames(boolean lowerCase) {
+    int count = locations.length;
+    final String[] unsortedNames = new String[count];
+    Integer[] order = new Integer[count];
+    for (int i = 0; i < count; i++) {
+      String name = locations[i].getElement().getDisplayName();
+      if (name == null) {
+        name = "";
+      }
+      unsortedNames[i] = lowerCase ? CharOperation.toLowerCase(name) : name;
+      order[i] = i;
+    }
+    Arrays.sort(order, new Comparator<Integer>() {
+      @Override
+      public int compare(Integer first, Integer second) {
+        return unsortedNames[first].compareTo(unsortedNames[second]);
+      }
+    });
+    String[] sortedNames = new String[count];
+    Location[] sortedLocations = new Location[count];
+    for (int i = 0; i < count; i++) {
+      sortedNames[i] = unsortedNames[order[i]];
+      sortedLocations[i] = locations[order[i]];
+    }
+    return new SortedNames(sortedNames, sortedLocations);
+  }
+}
@@ -13,6 +13,8 @@
  */
 package com.google.dart.engine.internal.search;
 
+import com.google.common.collect.MapMaker;
+import com.google.common.collect.Maps;
 import com.google.dart.engine.element.ClassElement;
 import com.google.dart.engine.element.CompilationUnitElement;
 import com.google.dart.engine.element.ConstructorElement;
@@ -32,7 +34,9 @@ import com.google.dart.engine.index.Index;
 import com.google.dart.engine.index.Location;
 import com.google.dart.engine.index.Relationship;
 import com.google.dart.engine.index.RelationshipCallback;
+import com.google.dart.engine.index.TypeHierarchy;
 import com.google.dart.engine.internal.element.member.Member;
+import com.google.dart.engine.internal.index.CachingRelationshipCallback;
 import com.google.dart.engine.internal.index.IndexConstants;
 import com.google.dart.engine.internal.index.NameElementImpl;
 import com.google.dart.engine.internal.search.listener.CountingSearchListener;
@@ -51,6 +55,7 @@ import com.google.dart.engine.search.SearchScope;
 import com.google.dart.engine.utilities.source.SourceRange;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * Implementation of {@link SearchEngine}.
@@ -58,6 +63,89 @@ import java.util.List;
  * @coverage dart.engine.search
  */
 public class SearchEngineImpl implements SearchEngine {
+  /**
+   * Instances of the class <code>DeclarationsCallbackImpl</code> implement a callback that reports
+   * to a search listener the declarations which match a pattern, using a
+   * {@link DeclarationNameIndex} to find them. The name index is kept for as long as the index
+   * store has not been modified, so that the declarations are neither copied nor indexed again.
+   */
+  private static class DeclarationsCallbackImpl extends RelationshipCallbackImpl implements
+      CachingRelationshipCallback {
+    /**
+     * A table mapping relationships to the name indexes of the declarations with the relationship.
+     */
+    private final Map<Relationship, DeclarationNameIndex> nameIndexes;
+
+    /**
+     * The pattern that reported declarations must match, may be {@code null} to report all
+     * declarations.
+     */
+    private final SearchPattern pattern;
+
+    /**
+     * Initialize a newly created callback to report matches of the given kind that match the given
+     * pattern to the given listener when results are found.
+     * 
+     * @param nameIndexes the table of name indexes to use and update
+     * @param scope the {@link SearchScope} to return matches from, may be {@code null} to return
+     *          all matches
+     * @param matchKind the kind of matches that are represented by the results
+     * @param pattern the pattern that matches must match, may be {@code null}
+     * @param listener the search listener that should be notified when results are found
+     */
+    public DeclarationsCallbackImpl(Map<Relationship, DeclarationNameIndex> nameIndexes,
+        SearchScope scope, MatchKind matchKind, SearchPattern pattern, SearchListener listener) {
+      super(scope, matchKind, listener);
+      this.nameIndexes = nameIndexes;
+      this.pattern = pattern;
+    }
+
+    @Override
+    public boolean hasCachedRelationships(Element element, Relationship relationship,
+        long modificationStamp) {
+      DeclarationNameIndex nameIndex;
+      synchronized (nameIndexes) {
+        nameIndex = nameIndexes.get(relationship);
+      }
+      if (nameIndex == null || nameIndex.getModificationStamp() != modificationStamp) {
+        return false;
+      }
+      reportMatches(relationship, nameIndex);
+      return true;
+    }
+
+    @Override
+    public void hasRelationships(Element element, Relationship relationship, Location[] locations) {
+      // the index store cannot tell whether it was modified, so the name index is not kept
+      reportMatches(relationship, new DeclarationNameIndex(locations, -1L));
+    }
+
+    @Override
+    public void hasRelationships(Element element, Relationship relationship, Location[] locations,
+        long modificationStamp) {
+      DeclarationNameIndex nameIndex = new DeclarationNameIndex(locations, modificationStamp);
+      synchronized (nameIndexes) {
+        DeclarationNameIndex keptIndex = nameIndexes.get(relationship);
+        if (keptIndex == null || keptIndex.getModificationStamp() < modificationStamp) {
+          nameIndexes.put(relationship, nameIndex);
+        }
+      }
+      reportMatches(relationship, nameIndex);
+    }
+
+    /**
+     * Report to the listener each of the declarations in the given name index that match the
+     * pattern, as soon as it is found.
+     */
+    private void reportMatches(Relationship relationship, DeclarationNameIndex nameIndex) {
+      for (Location location : nameIndex.getCandidates(pattern)) {
+        if (pattern == null || pattern.matches(location.getElement()) != null) {
+          reportMatch(relationship, location);
+        }
+      }
+      listener.searchComplete();
+    }
+  }
 
   /**
    * Instances of the class <code>RelationshipCallbackImpl</code> implement a callback that can be
@@ -74,7 +162,7 @@ public class SearchEngineImpl implements SearchEngine {
     /**
      * The search listener that should be notified when results are found.
      */
-    private SearchListener listener;
+    protected SearchListener listener;
 
     /**
      * Initialize a newly created callback to report matches of the given kind to the given listener
@@ -94,24 +182,34 @@ public class SearchEngineImpl implements SearchEngine {
     @Override
     public void hasRelationships(Element element, Relationship relationship, Location[] locations) {
       for (Location location : locations) {
-        Element targetElement = location.getElement();
-        // check scope
-        if (scope != null && !scope.encloses(targetElement)) {
-          continue;
-        }
-        SourceRange range = new SourceRange(location.getOffset(), location.getLength());
-        // TODO(scheglov) IndexConstants.DYNAMIC for MatchQuality.NAME
-        MatchQuality quality = MatchQuality.EXACT;
-//          MatchQuality quality = element.getResource() != IndexConstants.DYNAMIC
-//              ? MatchQuality.EXACT : MatchQuality.NAME;
-        SearchMatch match = new SearchMatch(quality, matchKind, targetElement, range);
-        match.setQualified(relationship == IndexConstants.IS_REFERENCED_BY_QUALIFIED
-            || relationship == IndexConstants.IS_INVOKED_BY_QUALIFIED);
-        match.setImportPrefix(location.getImportPrefix());
-        listener.matchFound(match);
+        reportMatch(relationship, location);
       }
       listener.searchComplete();
     }
+
+    /**
+     * Report the given location to the listener as a match, unless it is outside of the scope.
+     * 
+     * @param relationship the relationship between the searched element and the location
+     * @param location the location to be reported
+     */
+    protected void reportMatch(Relationship relationship, Location location) {
+      Element targetElement = location.getElement();
+      // check scope
+      if (scope != null && !scope.encloses(targetElement)) {
+        return;
+      }
+      SourceRange range = new SourceRange(location.getOffset(), location.getLength());
+      // TODO(scheglov) IndexConstants.DYNAMIC for MatchQuality.NAME
+      MatchQuality quality = MatchQuality.EXACT;
+//        MatchQuality quality = element.getResource() != IndexConstants.DYNAMIC
+//            ? MatchQuality.EXACT : MatchQuality.NAME;
+      SearchMatch match = new SearchMatch(quality, matchKind, targetElement, range);
+      match.setQualified(relationship == IndexConstants.IS_REFERENCED_BY_QUALIFIED
+          || relationship == IndexConstants.IS_INVOKED_BY_QUALIFIED);
+      match.setImportPrefix(location.getImportPrefix());
+      listener.matchFound(match);
+    }
   }
 
   /**
@@ -128,6 +226,14 @@ public class SearchEngineImpl implements SearchEngine {
     public void performSearch(SearchListener listener);
   }
 
+  /**
+   * A table mapping indexes to the tables of name indexes of the declarations in them. The name
+   * indexes are shared by all of the search engines that use the same index, and rebuilt only when
+   * the index store has been modified.
+   */
+  private static final Map<Index, Map<Relationship, DeclarationNameIndex>> NAME_INDEXES =
+      new MapMaker().weakKeys().makeMap();
+
   /**
    * Apply the given filter to the given listener.
    * 
@@ -172,11 +278,30 @@ public class SearchEngineImpl implements SearchEngine {
     return new RelationshipCallbackImpl(scope, matchKind, listener);
   }
 
+  /**
+   * Return the table of name indexes of the declarations in the given index.
+   */
+  private static Map<Relationship, DeclarationNameIndex> getNameIndexes(Index index) {
+    synchronized (NAME_INDEXES) {
+      Map<Relationship, DeclarationNameIndex> nameIndexes = NAME_INDEXES.get(index);
+      if (nameIndexes == null) {
+        nameIndexes = Maps.newHashMap();
+        NAME_INDEXES.put(index, nameIndexes);
+      }
+      return nameIndexes;
+    }
+  }
+
   /**
    * The index used to respond to the search requests.
    */
   private Index index;
 
+  /**
+   * The name indexes of the declarations in the {@link #index}.
+   */
+  private final Map<Relationship, DeclarationNameIndex> nameIndexes;
+
   /**
    * Initialize a newly created search engine to use the given index.
    * 
@@ -184,6 +309,12 @@ public class SearchEngineImpl implements SearchEngine {
    */
   public SearchEngineImpl(Index index) {
     this.index = index;
+    this.nameIndexes = getNameIndexes(index);
+  }
+
+  @Override
+  public TypeHierarchy getTypeHierarchy() {
+    return index.getTypeHierarchy();
   }
 
   @Override
@@ -224,14 +355,18 @@ public class SearchEngineImpl implements SearchEngine {
       SearchFilter filter, SearchListener listener) {
     assert listener != null;
     Element[] elements = createElements(scope);
-    listener = applyPattern(pattern, listener);
     listener = applyFilter(filter, listener);
     listener = new CountingSearchListener(elements.length, listener);
     for (Element element : elements) {
       index.getRelationships(
           element,
           IndexConstants.DEFINES_FUNCTION,
-          newCallback(MatchKind.FUNCTION_DECLARATION, scope, listener));
+          newDeclarationsCallback(
+              element,
+              MatchKind.FUNCTION_DECLARATION,
+              scope,
+              pattern,
+              listener));
     }
   }
 
@@ -374,22 +509,36 @@ public class SearchEngineImpl implements SearchEngine {
       SearchListener listener) {
     assert listener != null;
     Element[] elements = createElements(scope);
-    listener = applyPattern(pattern, listener);
     listener = applyFilter(filter, listener);
     listener = new CountingSearchListener(elements.length * 3, listener);
     for (Element element : elements) {
       index.getRelationships(
           element,
           IndexConstants.DEFINES_CLASS,
-          newCallback(MatchKind.CLASS_DECLARATION, scope, listener));
+          newDeclarationsCallback(
+              element,
+              MatchKind.CLASS_DECLARATION,
+              scope,
+              pattern,
+              listener));
       index.getRelationships(
           element,
           IndexConstants.DEFINES_CLASS_ALIAS,
-          newCallback(MatchKind.CLASS_ALIAS_DECLARATION, scope, listener));
+          newDeclarationsCallback(
+              element,
+              MatchKind.CLASS_ALIAS_DECLARATION,
+              scope,
+              pattern,
+              listener));
       index.getRelationships(
           element,
           IndexConstants.DEFINES_FUNCTION_TYPE,
-          newCallback(MatchKind.FUNCTION_TYPE_DECLARATION, scope, listener));
+          newDeclarationsCallback(
+              element,
+              MatchKind.FUNCTION_TYPE_DECLARATION,
+              scope,
+              pattern,
+              listener));
     }
   }
 
@@ -409,15 +558,32 @@ public class SearchEngineImpl implements SearchEngine {
       SearchFilter filter, SearchListener listener) {
     assert listener != null;
     Element[] elements = createElements(scope);
-    listener = applyPattern(pattern, listener);
     listener = applyFilter(filter, listener);
     listener = new CountingSearchListener(elements.length, listener);
     for (Element element : elements) {
       index.getRelationships(
           element,
           IndexConstants.DEFINES_VARIABLE,
-          newCallback(MatchKind.VARIABLE_DECLARATION, scope, listener));
+          newDeclarationsCallback(
+              element,
+              MatchKind.VARIABLE_DECLARATION,
+              scope,
+              pattern,
+              listener));
+    }
+  }
+
+  /**
+   * Return a callback that reports the declarations of the given kind that match the given pattern
+   * to the given listener. The declarations of the universe are matched using a
+   * {@link DeclarationNameIndex}, the declarations of a library are few and are matched one by one.
+   */
+  private RelationshipCallback newDeclarationsCallback(Element element, MatchKind matchKind,
+      SearchScope scope, SearchPattern pattern, SearchListener listener) {
+    if (element == IndexConstants.UNIVERSE) {
+      return new DeclarationsCallbackImpl(nameIndexes, scope, matchKind, pattern, listener);
     }
+    return newCallback(matchKind, scope, applyPattern(pattern, listener));
   }
 
   /**
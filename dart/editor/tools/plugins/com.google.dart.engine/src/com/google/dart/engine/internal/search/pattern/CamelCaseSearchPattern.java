@@ -15,7 +15,6 @@ package com.google.dart.engine.internal.search.pattern;
 
 import com.google.dart.engine.element.Element;
 import com.google.dart.engine.search.MatchQuality;
-import com.google.dart.engine.search.SearchPattern;
 import com.google.dart.engine.utilities.general.CharOperation;
 
 /**
@@ -25,7 +24,7 @@ import com.google.dart.engine.utilities.general.CharOperation;
  * 
  * @coverage dart.engine.search
  */
-public class CamelCaseSearchPattern implements SearchPattern {
+public class CamelCaseSearchPattern implements IndexableSearchPattern {
   /**
    * The pattern that matching elements must match.
    */
@@ -37,6 +36,11 @@ public class CamelCaseSearchPattern implements SearchPattern {
    */
   private final boolean samePartCount;
 
+  /**
+   * The leading part of the pattern which matching names must start with exactly.
+   */
+  private final String namePrefix;
+
   /**
    * Initialize a newly created search pattern to match elements whose names match the given
    * camel-case pattern.
@@ -48,6 +52,17 @@ public class CamelCaseSearchPattern implements SearchPattern {
   public CamelCaseSearchPattern(String pattern, boolean samePartCount) {
     this.pattern = pattern.toCharArray();
     this.samePartCount = samePartCount;
+    this.namePrefix = pattern.substring(0, getFirstPartLength(pattern));
+  }
+
+  @Override
+  public String getNamePrefix() {
+    return namePrefix;
+  }
+
+  @Override
+  public boolean isNamePrefixCaseSensitive() {
+    return true;
   }
 
   @Override
@@ -61,4 +76,24 @@ public class CamelCaseSearchPattern implements SearchPattern {
     }
     return null;
   }
+
+  /**
+   * Return the length of the leading part of the given pattern which is matched character by
+   * character by {@link CharOperation#camelCaseMatch(char[], char[], boolean)}: the first character
+   * and the lower case characters that follow it.
+   */
+  private int getFirstPartLength(String pattern) {
+    if (pattern.isEmpty()) {
+      return 0;
+    }
+    int length = 1;
+    while (length < pattern.length()) {
+      char c = pattern.charAt(length);
+      if (!Character.isJavaIdentifierPart(c) || Character.isUpperCase(c) || Character.isDigit(c)) {
+        break;
+      }
+      length++;
+    }
+    return length;
+  }
 }
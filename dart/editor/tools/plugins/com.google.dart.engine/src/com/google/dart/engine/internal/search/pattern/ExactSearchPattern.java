@@ -15,7 +15,7 @@ package com.google.dart.engine.internal.search.pattern;
 
 import com.google.dart.engine.element.Element;
 import com.google.dart.engine.search.MatchQuality;
-import com.google.dart.engine.search.SearchPattern;
+import com.google.dart.engine.utilities.general.CharOperation;
 
 /**
  * Instances of the class <code>ExactSearchPattern</code> implement a search pattern that matches
@@ -23,7 +23,7 @@ import com.google.dart.engine.search.SearchPattern;
  * 
  * @coverage dart.engine.search
  */
-public class ExactSearchPattern implements SearchPattern {
+public class ExactSearchPattern implements IndexableSearchPattern {
   /**
    * The identifier that matching elements must be equal to.
    */
@@ -46,6 +46,16 @@ public class ExactSearchPattern implements SearchPattern {
     this.caseSensitive = caseSensitive;
   }
 
+  @Override
+  public String getNamePrefix() {
+    return caseSensitive ? identifier : CharOperation.toLowerCase(identifier);
+  }
+
+  @Override
+  public boolean isNamePrefixCaseSensitive() {
+    return caseSensitive;
+  }
+
   @Override
   public MatchQuality matches(Element element) {
     String name = element.getDisplayName();
@@ -0,0 +1,42 @@
+/*
+ * Copyright (c) 2013, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.internal.search.pattern;
+
+import com.google.dart.engine.search.SearchPattern;
+
+/**
+ * The interface <code>IndexableSearchPattern</code> defines the behavior of search patterns that
+ * only match elements whose names start with a known prefix, so that the candidate elements can be
+ * found in a sorted index of names instead of matching every element.
+ * 
+ * @coverage dart.engine.search
+ */
+public interface IndexableSearchPattern extends SearchPattern {
+  /**
+   * Return the prefix that the names of all of the matching elements start with. If the prefix is
+   * not case sensitive, it is converted to lower case using {@link Character#toLowerCase(char)}.
+   * 
+   * @return the prefix that the names of all of the matching elements start with, may be empty
+   */
+  String getNamePrefix();
+
+  /**
+   * Return {@code true} if the names of the matching elements start with the prefix returned by
+   * {@link #getNamePrefix()}, or {@code false} if they start with it only when converted to lower
+   * case.
+   * 
+   * @return {@code true} if the name prefix is case sensitive
+   */
+  boolean isNamePrefixCaseSensitive();
+}
@@ -15,7 +15,7 @@ package com.google.dart.engine.internal.search.pattern;
 
 import com.google.dart.engine.element.Element;
 import com.google.dart.engine.search.MatchQuality;
-import com.google.dart.engine.search.SearchPattern;
+import com.google.dart.engine.utilities.general.CharOperation;
 
 import static org.apache.commons.lang3.StringUtils.startsWith;
 import static org.apache.commons.lang3.StringUtils.startsWithIgnoreCase;
@@ -26,7 +26,7 @@ import static org.apache.commons.lang3.StringUtils.startsWithIgnoreCase;
  * 
  * @coverage dart.engine.search
  */
-public class PrefixSearchPattern implements SearchPattern {
+public class PrefixSearchPattern implements IndexableSearchPattern {
   /**
    * The prefix that matching elements must start with.
    */
@@ -49,6 +49,16 @@ public class PrefixSearchPattern implements SearchPattern {
     this.caseSensitive = caseSensitive;
   }
 
+  @Override
+  public String getNamePrefix() {
+    return caseSensitive ? prefix : CharOperation.toLowerCase(prefix);
+  }
+
+  @Override
+  public boolean isNamePrefixCaseSensitive() {
+    return caseSensitive;
+  }
+
   @Override
   public MatchQuality matches(Element element) {
     if (element == null) {
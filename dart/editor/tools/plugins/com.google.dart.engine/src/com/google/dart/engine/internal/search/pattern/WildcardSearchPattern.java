@@ -15,7 +15,6 @@ package com.google.dart.engine.internal.search.pattern;
 
 import com.google.dart.engine.element.Element;
 import com.google.dart.engine.search.MatchQuality;
-import com.google.dart.engine.search.SearchPattern;
 import com.google.dart.engine.utilities.general.CharOperation;
 
 /**
@@ -26,7 +25,7 @@ import com.google.dart.engine.utilities.general.CharOperation;
  * 
  * @coverage dart.engine.search
  */
-public class WildcardSearchPattern implements SearchPattern {
+public class WildcardSearchPattern implements IndexableSearchPattern {
   /**
    * The pattern that matching elements must match.
    */
@@ -37,6 +36,11 @@ public class WildcardSearchPattern implements SearchPattern {
    */
   private boolean caseSensitive;
 
+  /**
+   * The part of the pattern before the first wildcard character.
+   */
+  private final String namePrefix;
+
   /**
    * Initialize a newly created search pattern to match elements whose names begin with the given
    * prefix.
@@ -47,6 +51,18 @@ public class WildcardSearchPattern implements SearchPattern {
   public WildcardSearchPattern(String pattern, boolean caseSensitive) {
     this.pattern = caseSensitive ? pattern.toCharArray() : pattern.toLowerCase().toCharArray();
     this.caseSensitive = caseSensitive;
+    String prefix = pattern.substring(0, getWildcardIndex(pattern));
+    this.namePrefix = caseSensitive ? prefix : CharOperation.toLowerCase(prefix);
+  }
+
+  @Override
+  public String getNamePrefix() {
+    return namePrefix;
+  }
+
+  @Override
+  public boolean isNamePrefixCaseSensitive() {
+    return caseSensitive;
   }
 
   @Override
@@ -63,4 +79,18 @@ public class WildcardSearchPattern implements SearchPattern {
     }
     return null;
   }
+
+  /**
+   * Return the index of the first wildcard character in the given pattern, or the length of the
+   * pattern if it does not contain any wildcard characters.
+   */
+  private int getWildcardIndex(String pattern) {
+    for (int i = 0; i < pattern.length(); i++) {
+      char c = pattern.charAt(i);
+      if (c == '*' || c == '?') {
+        return i;
+      }
+    }
+    return pattern.length();
+  }
 }
@@ -34,7 +34,7 @@ import com.google.dart.engine.ast.SimpleIdentifier;
 import com.google.dart.engine.ast.SuperConstructorInvocation;
 import com.google.dart.engine.ast.SwitchCase;
 import com.google.dart.engine.ast.VariableDeclaration;
-import com.google.dart.engine.ast.visitor.RecursiveASTVisitor;
+import com.google.dart.engine.ast.visitor.SimpleASTVisitor;
 import com.google.dart.engine.element.Element;
 import com.google.dart.engine.element.ParameterElement;
 import com.google.dart.engine.error.CompileTimeErrorCode;
@@ -54,13 +54,16 @@ import java.util.ArrayList;
 import java.util.HashSet;
 
 /**
- * Instances of the class {@code ConstantVerifier} traverse an AST structure looking for additional
- * errors and warnings not covered by the parser and resolver. In particular, it looks for errors
- * and warnings related to constant expressions.
+ * Instances of the class {@code ConstantVerifier} check the nodes of an AST structure looking for
+ * additional errors and warnings not covered by the parser and resolver. In particular, it looks
+ * for errors and warnings related to constant expressions.
+ * <p>
+ * A constant verifier does not visit the children of the nodes it is given, so it must be added as
+ * a participant to a visitor that traverses the structure, typically an {@link ErrorVerifier}.
  * 
  * @coverage dart.engine.resolver
  */
-public class ConstantVerifier extends RecursiveASTVisitor<Void> {
+public class ConstantVerifier extends SimpleASTVisitor<Void> {
   /**
    * The error reporter by which errors will be reported.
    */
@@ -104,12 +107,11 @@ public class ConstantVerifier extends RecursiveASTVisitor<Void> {
     if (node.getConstKeyword() != null) {
       validateInitializers(node);
     }
-    return super.visitConstructorDeclaration(node);
+    return null;
   }
 
   @Override
   public Void visitFunctionExpression(FunctionExpression node) {
-    super.visitFunctionExpression(node);
     validateDefaultValues(node.getParameters());
     return null;
   }
@@ -117,12 +119,11 @@ public class ConstantVerifier extends RecursiveASTVisitor<Void> {
   @Override
   public Void visitInstanceCreationExpression(InstanceCreationExpression node) {
     validateConstantArguments(node);
-    return super.visitInstanceCreationExpression(node);
+    return null;
   }
 
   @Override
   public Void visitListLiteral(ListLiteral node) {
-    super.visitListLiteral(node);
     if (node.getModifier() != null) {
       for (Expression element : node.getElements()) {
         validate(element, CompileTimeErrorCode.NON_CONSTANT_LIST_ELEMENT);
@@ -133,7 +134,6 @@ public class ConstantVerifier extends RecursiveASTVisitor<Void> {
 
   @Override
   public Void visitMapLiteral(MapLiteral node) {
-    super.visitMapLiteral(node);
     boolean isConst = node.getModifier() != null;
     boolean reportEqualKeys = true;
     HashSet<Object> keys = new HashSet<Object>();
@@ -175,21 +175,18 @@ public class ConstantVerifier extends RecursiveASTVisitor<Void> {
 
   @Override
   public Void visitMethodDeclaration(MethodDeclaration node) {
-    super.visitMethodDeclaration(node);
     validateDefaultValues(node.getParameters());
     return null;
   }
 
   @Override
   public Void visitSwitchCase(SwitchCase node) {
-    super.visitSwitchCase(node);
     validate(node.getExpression(), CompileTimeErrorCode.NON_CONSTANT_CASE_EXPRESSION);
     return null;
   }
 
   @Override
   public Void visitVariableDeclaration(VariableDeclaration node) {
-    super.visitVariableDeclaration(node);
     Expression initializer = node.getInitializer();
     if (initializer != null && node.isConst()) {
       VariableElementImpl element = (VariableElementImpl) node.getElement();
@@ -78,7 +78,7 @@ import com.google.dart.engine.ast.VariableDeclarationList;
 import com.google.dart.engine.ast.VariableDeclarationStatement;
 import com.google.dart.engine.ast.WhileStatement;
 import com.google.dart.engine.ast.WithClause;
-import com.google.dart.engine.ast.visitor.RecursiveASTVisitor;
+import com.google.dart.engine.ast.visitor.FusedASTVisitor;
 import com.google.dart.engine.element.ClassElement;
 import com.google.dart.engine.element.ConstructorElement;
 import com.google.dart.engine.element.Element;
@@ -125,11 +125,13 @@ import java.util.Set;
 
 /**
  * Instances of the class {@code ErrorVerifier} traverse an AST structure looking for additional
- * errors and warnings not covered by the parser and resolver.
+ * errors and warnings not covered by the parser and resolver. Other verifiers, such as the
+ * {@link ConstantVerifier}, can be added as participants so that they check the nodes of the
+ * structure during the same traversal.
  * 
  * @coverage dart.engine.resolver
  */
-public class ErrorVerifier extends RecursiveASTVisitor<Void> {
+public class ErrorVerifier extends FusedASTVisitor<Void> {
   /**
    * This enum holds one of four states of a field initialization state through a constructor
    * signature, not initialized, initialized in the field declaration, initialized in the field
@@ -666,6 +668,7 @@ public class ErrorVerifier extends RecursiveASTVisitor<Void> {
     Expression initializerNode = node.getInitializer();
     // do checks
     checkForInvalidAssignment(nameNode, initializerNode);
+    visitParticipants(node);
     // visit name
     nameNode.accept(this);
     // visit initializer
@@ -196,6 +196,25 @@ public abstract class AbstractScanner {
     lineStarts.add(getOffset());
   }
 
+  /**
+   * Return the last token that was scanned.
+   * 
+   * @return the last token that was scanned
+   */
+  Token getTail() {
+    return tail;
+  }
+
+  /**
+   * Set the last token that was scanned to the given token, so that the tokens that are scanned
+   * next are appended to it.
+   * 
+   * @param token the token after which scanned tokens are to be appended
+   */
+  void setTail(Token token) {
+    tail = token;
+  }
+
   private void appendBeginToken(TokenType type) {
     BeginToken token;
     if (firstComment == null) {
@@ -238,7 +257,7 @@ public abstract class AbstractScanner {
     }
   }
 
-  private void appendEofToken() {
+  void appendEofToken() {
     Token eofToken;
     if (firstComment == null) {
       eofToken = new Token(TokenType.EOF, getOffset() + 1);
@@ -310,7 +329,7 @@ public abstract class AbstractScanner {
     tokenStart = getOffset();
   }
 
-  private int bigSwitch(int next) {
+  int bigSwitch(int next) {
     beginToken();
 
     if (next == '\r') {
@@ -525,7 +544,7 @@ public abstract class AbstractScanner {
     return null;
   }
 
-  private Token firstToken() {
+  Token firstToken() {
     return tokens.getNext();
   }
 
@@ -38,6 +38,11 @@ public class BeginTokenWithComment extends BeginToken {
     this.precedingComment = precedingComment;
   }
 
+  @Override
+  public BeginTokenWithComment copy() {
+    return new BeginTokenWithComment(getType(), getOffset(), copyComments(precedingComment));
+  }
+
   @Override
   public Token getPrecedingComments() {
     return precedingComment;
@@ -0,0 +1,675 @@
+/*
+ * Copyright (c) 2013, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.scanner;
+
+import com.google.dart.engine.error.AnalysisErrorListener;
+import com.google.dart.engine.source.Source;
+import com.google.dart.engine.utilities.collection.IntList;
+
+import java.util.ArrayList;
+
+/**
+ * Instances of the class {@code IncrementalScanner} update a stream of tokens to reflect an edit to
+ * the source from which it was scanned, by scanning only the region of the new contents that might
+ * have been affected by the edit.
+ * <p>
+ * Scanning restarts at the last token before the edit at which the scanner could have been in its
+ * initial state, that is, not within a string interpolation. It stops as soon as a token after the
+ * edit ends where one of the original tokens ended and the scanner is in the same state as it was
+ * after that original token, at which point the remaining original tokens are reused with their
+ * offsets shifted. The original token stream is modified in place.
+ * 
+ * @coverage dart.engine.parser
+ */
+public class IncrementalScanner {
+  /**
+   * Instances of the class {@code GroupingStack} pair the tokens representing the beginning and the
+   * end of a group in a stream of tokens that have already been scanned, following the same rules
+   * as {@link AbstractScanner}.
+   */
+  private static class GroupingStack {
+    /**
+     * The tokens representing the beginning of groups that have not yet been closed.
+     */
+    private final ArrayList<BeginToken> stack;
+
+    /**
+     * The number of string interpolation expressions that have not yet been closed.
+     */
+    private int interpolationCount;
+
+    /**
+     * A flag indicating whether the last token that was added closed a string interpolation
+     * expression.
+     */
+    private boolean closedInterpolation;
+
+    /**
+     * A flag indicating whether any unmatched groups were found.
+     */
+    private boolean hasUnmatchedGroups;
+
+    /**
+     * Initialize a newly created stack to be empty.
+     */
+    public GroupingStack() {
+      stack = new ArrayList<BeginToken>();
+    }
+
+    /**
+     * Initialize a newly created stack to be a copy of the given stack.
+     * 
+     * @param other the stack being copied
+     */
+    public GroupingStack(GroupingStack other) {
+      stack = new ArrayList<BeginToken>(other.stack);
+      interpolationCount = other.interpolationCount;
+      closedInterpolation = other.closedInterpolation;
+      hasUnmatchedGroups = other.hasUnmatchedGroups;
+    }
+
+    /**
+     * Update this stack to reflect the given token, which is the next token in the stream.
+     * 
+     * @param token the next token in the stream
+     * @param pairTokens {@code true} if the end tokens of the tokens representing the beginning of
+     *          groups should be updated
+     */
+    public void add(Token token, boolean pairTokens) {
+      closedInterpolation = false;
+      TokenType type = token.getType();
+      if (token instanceof BeginToken) {
+        BeginToken begin = (BeginToken) token;
+        if (pairTokens) {
+          begin.setEndToken(null);
+        }
+        stack.add(begin);
+        if (type == TokenType.STRING_INTERPOLATION_EXPRESSION) {
+          interpolationCount++;
+        }
+      } else if (type == TokenType.CLOSE_PAREN) {
+        close(token, TokenType.OPEN_PAREN, pairTokens);
+      } else if (type == TokenType.CLOSE_SQUARE_BRACKET) {
+        close(token, TokenType.OPEN_SQUARE_BRACKET, pairTokens);
+      } else if (type == TokenType.CLOSE_CURLY_BRACKET) {
+        if (interpolationCount > 0) {
+          // Within an interpolation expression, unmatched groups are dropped.
+          int last = stack.size() - 1;
+          while (last >= 0) {
+            TokenType beginType = stack.get(last).getType();
+            if (beginType == TokenType.OPEN_CURLY_BRACKET
+                || beginType == TokenType.STRING_INTERPOLATION_EXPRESSION) {
+              break;
+            }
+            hasUnmatchedGroups = true;
+            BeginToken begin = stack.remove(last);
+            if (pairTokens) {
+              begin.setEndToken(null);
+            }
+            last--;
+          }
+          if (last >= 0
+              && stack.get(last).getType() == TokenType.STRING_INTERPOLATION_EXPRESSION) {
+            close(token, TokenType.STRING_INTERPOLATION_EXPRESSION, pairTokens);
+            interpolationCount--;
+            closedInterpolation = true;
+            return;
+          }
+        }
+        close(token, TokenType.OPEN_CURLY_BRACKET, pairTokens);
+      }
+    }
+
+    /**
+     * Clear the end tokens of the tokens representing the beginning of the groups that have not yet
+     * been closed.
+     */
+    public void clearEndTokens() {
+      for (BeginToken begin : stack) {
+        begin.setEndToken(null);
+      }
+    }
+
+    /**
+     * Return {@code true} if the last token that was added closed a string interpolation
+     * expression.
+     * 
+     * @return {@code true} if the last token closed a string interpolation expression
+     */
+    public boolean closedInterpolation() {
+      return closedInterpolation;
+    }
+
+    /**
+     * Return the tokens representing the beginning of the groups that have not yet been closed,
+     * from the outermost group to the innermost.
+     * 
+     * @return the tokens representing the beginning of the groups that have not yet been closed
+     */
+    public Token[] getBeginTokens() {
+      return stack.toArray(new Token[stack.size()]);
+    }
+
+    /**
+     * Return the end tokens of the tokens representing the beginning of the groups that have not
+     * yet been closed, from the outermost group to the innermost.
+     * 
+     * @return the end tokens of the groups that have not yet been closed
+     */
+    public Token[] getEndTokens() {
+      int size = stack.size();
+      Token[] endTokens = new Token[size];
+      for (int i = 0; i < size; i++) {
+        endTokens[i] = stack.get(i).getEndToken();
+      }
+      return endTokens;
+    }
+
+    /**
+     * Return {@code true} if this stack contains the same kinds of groups as the given stack, so
+     * that the tokens that follow will be paired in the same way.
+     * 
+     * @param other the stack being compared with
+     * @return {@code true} if this stack contains the same kinds of groups as the given stack
+     */
+    public boolean hasSameGroups(GroupingStack other) {
+      int size = stack.size();
+      if (other.stack.size() != size) {
+        return false;
+      }
+      for (int i = 0; i < size; i++) {
+        if (stack.get(i).getType() != other.stack.get(i).getType()) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    /**
+     * Return {@code true} if any groups are unmatched, either because they were dropped or because
+     * they have not been closed.
+     * 
+     * @return {@code true} if any groups are unmatched
+     */
+    public boolean hasUnmatchedGroups() {
+      return hasUnmatchedGroups || !stack.isEmpty();
+    }
+
+    /**
+     * Return {@code true} if the next token would be within a string interpolation expression.
+     * 
+     * @return {@code true} if the next token would be within a string interpolation expression
+     */
+    public boolean isInInterpolation() {
+      return interpolationCount > 0;
+    }
+
+    /**
+     * Set the end tokens of the tokens representing the beginning of the groups that have not yet
+     * been closed to the given tokens.
+     * 
+     * @param endTokens the end tokens of the groups, from the outermost group to the innermost
+     */
+    public void setEndTokens(Token[] endTokens) {
+      for (int i = 0; i < endTokens.length; i++) {
+        stack.get(i).setEndToken(endTokens[i]);
+      }
+    }
+
+    /**
+     * Set the state of this stack to be the same as the state of the given stack.
+     * 
+     * @param other the stack whose state is to be copied
+     */
+    public void setTo(GroupingStack other) {
+      stack.clear();
+      int size = other.stack.size();
+      for (int i = 0; i < size; i++) {
+        stack.add(other.stack.get(i));
+      }
+      interpolationCount = other.interpolationCount;
+      closedInterpolation = other.closedInterpolation;
+      hasUnmatchedGroups = other.hasUnmatchedGroups;
+    }
+
+    /**
+     * Close the innermost group if it was begun by a token of the given type.
+     */
+    private void close(Token token, TokenType beginType, boolean pairTokens) {
+      int last = stack.size() - 1;
+      if (last >= 0) {
+        BeginToken begin = stack.get(last);
+        if (begin.getType() == beginType) {
+          if (pairTokens) {
+            begin.setEndToken(token);
+          }
+          stack.remove(last);
+        }
+      }
+    }
+  }
+
+  /**
+   * Instances of the class {@code RegionScanner} scan a character sequence starting at a given
+   * offset.
+   */
+  private static class RegionScanner extends AbstractScanner {
+    /**
+     * The characters being scanned.
+     */
+    private final CharSequence contents;
+
+    /**
+     * The number of characters being scanned.
+     */
+    private final int contentsLength;
+
+    /**
+     * The index of the last character that was read.
+     */
+    private int charOffset;
+
+    /**
+     * Initialize a newly created scanner to scan the given characters starting at the given offset.
+     * 
+     * @param source the source being scanned
+     * @param contents the characters being scanned
+     * @param offset the offset of the first character to be scanned
+     * @param errorListener the error listener that will be informed of any errors that are found
+     */
+    public RegionScanner(Source source, CharSequence contents, int offset,
+        AnalysisErrorListener errorListener) {
+      super(source, errorListener);
+      this.contents = contents;
+      this.contentsLength = contents.length();
+      this.charOffset = offset - 1;
+    }
+
+    @Override
+    public int getOffset() {
+      return charOffset;
+    }
+
+    @Override
+    protected int advance() {
+      if (charOffset + 1 >= contentsLength) {
+        return -1;
+      }
+      return contents.charAt(++charOffset);
+    }
+
+    @Override
+    protected String getString(int start, int endDelta) {
+      return contents.subSequence(start, charOffset + 1 + endDelta).toString();
+    }
+
+    @Override
+    protected int peek() {
+      if (charOffset + 1 >= contentsLength) {
+        return -1;
+      }
+      return contents.charAt(charOffset + 1);
+    }
+  }
+
+  /**
+   * Return a copy of the stream of tokens starting with the given token. The copy includes the
+   * comments preceding the tokens, and the tokens representing the beginning of a group in the copy
+   * are paired with the copies of their end tokens.
+   * <p>
+   * The parser modifies the token stream it is given, so a token stream that is going to be
+   * rescanned should be copied before it is parsed.
+   * 
+   * @param token the first token in the stream to be copied
+   * @return the first token in the copy of the stream
+   */
+  public static Token copyTokenStream(Token token) {
+    Token head = new Token(TokenType.EOF, -1);
+    head.setNext(head);
+    Token tail = head;
+    // Groups are always properly nested, so the copies of the begin tokens whose end tokens have not
+    // yet been copied form a stack.
+    ArrayList<Token> endTokens = new ArrayList<Token>();
+    ArrayList<BeginToken> beginTokens = new ArrayList<BeginToken>();
+    while (true) {
+      Token copy = token.copy();
+      int last = endTokens.size() - 1;
+      if (last >= 0 && endTokens.get(last) == token) {
+        endTokens.remove(last);
+        beginTokens.remove(last).setEndToken(copy);
+      }
+      if (token instanceof BeginToken) {
+        Token endToken = ((BeginToken) token).getEndToken();
+        if (endToken != null) {
+          endTokens.add(endToken);
+          beginTokens.add((BeginToken) copy);
+        }
+      }
+      if (token.getType() == TokenType.EOF) {
+        // The EOF token points to itself so that there is always infinite look-ahead.
+        copy.setNext(copy);
+        tail.setNext(copy);
+        return head.getNext();
+      }
+      tail = tail.setNext(copy);
+      token = token.getNext();
+    }
+  }
+
+  /**
+   * Return {@code true} if the scanner would have been in its initial state when it began scanning
+   * the given token, given the groups that were open before the token.
+   */
+  private static boolean isRestartToken(Token token, GroupingStack groups) {
+    if (groups.isInInterpolation()) {
+      return false;
+    }
+    TokenType type = token.getType();
+    if (type == TokenType.STRING_INTERPOLATION_IDENTIFIER
+        || type == TokenType.STRING_INTERPOLATION_EXPRESSION) {
+      return false;
+    }
+    Token previous = token.getPrevious();
+    if (previous == null) {
+      return true;
+    }
+    if (previous.getType() == TokenType.STRING_INTERPOLATION_IDENTIFIER) {
+      return false;
+    }
+    if (type == TokenType.STRING) {
+      // The rest of a string following an interpolation.
+      if (groups.closedInterpolation()) {
+        return false;
+      }
+      Token beforePrevious = previous.getPrevious();
+      if (beforePrevious != null
+          && beforePrevious.getType() == TokenType.STRING_INTERPOLATION_IDENTIFIER) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Shift the offsets of the given token and the comments preceding it by the given amount.
+   */
+  private static void shiftOffset(Token token, int delta) {
+    token.setOffset(token.getOffset() + delta);
+    Token comment = token.getPrecedingComments();
+    while (comment != null) {
+      comment.setOffset(comment.getOffset() + delta);
+      comment = comment.getNext();
+    }
+  }
+
+  /**
+   * The source being scanned.
+   */
+  private final Source source;
+
+  /**
+   * The contents of the source after the edit.
+   */
+  private final CharSequence contents;
+
+  /**
+   * The error listener that will be informed of any errors that are found during the scan.
+   */
+  private final AnalysisErrorListener errorListener;
+
+  /**
+   * The last original token before the tokens that were scanned, or {@code null} if the stream was
+   * scanned from its beginning.
+   */
+  private Token leftToken;
+
+  /**
+   * The first original token after the tokens that were scanned, or {@code null} if the stream was
+   * scanned to its end.
+   */
+  private Token rightToken;
+
+  /**
+   * The original tokens representing the beginning of the groups that were open where scanning
+   * began, from the outermost group to the innermost.
+   */
+  private Token[] openGroups;
+
+  /**
+   * The offsets of the first character of each line in the contents after the edit.
+   */
+  private int[] lineStarts;
+
+  /**
+   * The first token in the updated stream.
+   */
+  private Token firstToken;
+
+  /**
+   * Initialize a newly created scanner to update token streams to reflect the given contents.
+   * 
+   * @param source the source being scanned
+   * @param contents the contents of the source after the edit
+   * @param errorListener the error listener that will be informed of any errors that are found in
+   *          the region that is scanned
+   */
+  public IncrementalScanner(Source source, CharSequence contents,
+      AnalysisErrorListener errorListener) {
+    this.source = source;
+    this.contents = contents;
+    this.errorListener = errorListener;
+  }
+
+  /**
+   * Return the last original token before the tokens that were scanned by the last invocation of
+   * {@link #rescan}, or {@code null} if the stream was scanned from its beginning.
+   * 
+   * @return the last original token before the tokens that were scanned
+   */
+  public Token getLeftToken() {
+    return leftToken;
+  }
+
+  /**
+   * Return an array containing the offsets of the first character of each line in the contents
+   * after the edit.
+   * 
+   * @return the offsets of the first character of each line in the contents after the edit
+   */
+  public int[] getLineStarts() {
+    return lineStarts;
+  }
+
+  /**
+   * Return the original tokens representing the beginning of the groups that were open where the
+   * last invocation of {@link #rescan} began scanning, from the outermost group to the innermost.
+   * These are the only original tokens before the scanned region whose end tokens might have been
+   * changed.
+   * 
+   * @return the tokens representing the beginning of the groups that were open before the region
+   */
+  public Token[] getOpenGroups() {
+    return openGroups;
+  }
+
+  /**
+   * Return the first original token after the tokens that were scanned by the last invocation of
+   * {@link #rescan}, or {@code null} if the stream was scanned to its end.
+   * 
+   * @return the first original token after the tokens that were scanned
+   */
+  public Token getRightToken() {
+    return rightToken;
+  }
+
+  /**
+   * Return {@code true} if any unmatched groups are found in the updated stream. The stream is
+   * examined from its beginning, so this method must be invoked before the stream is modified by
+   * the parser.
+   * 
+   * @return {@code true} if any unmatched groups are found in the updated stream
+   */
+  public boolean hasUnmatchedGroups() {
+    GroupingStack groups = new GroupingStack();
+    for (Token token = firstToken; token.getType() != TokenType.EOF; token = token.getNext()) {
+      groups.add(token, false);
+    }
+    return groups.hasUnmatchedGroups();
+  }
+
+  /**
+   * Update the given stream of tokens, which was scanned from the contents of the source before the
+   * edit, to reflect the contents after the edit. The original stream is modified and must not
+   * have been modified by the parser.
+   * 
+   * @param originalStream the first token in the stream scanned from the original contents
+   * @param originalLineStarts the offsets of the first character of each line in the original
+   *          contents
+   * @param index the offset of the first character that was changed
+   * @param removedLength the number of characters that were removed
+   * @param insertedLength the number of characters that were inserted
+   * @return the first token in the updated stream
+   */
+  public Token rescan(Token originalStream, int[] originalLineStarts, int index,
+      int removedLength, int insertedLength) {
+    //
+    // Find the token at which to restart scanning. This is the last token before the first token
+    // that might have been affected by the edit at which the scanner was in its initial state.
+    //
+    Token restartToken = originalStream;
+    GroupingStack groups = new GroupingStack();
+    GroupingStack originalGroups = new GroupingStack();
+    for (Token token = originalStream; token.getType() != TokenType.EOF
+        && token.getEnd() < index; token = token.getNext()) {
+      if (isRestartToken(token, groups)) {
+        restartToken = token;
+        originalGroups.setTo(groups);
+      }
+      groups.add(token, false);
+    }
+    int regionStart = 0;
+    if (restartToken == originalStream) {
+      leftToken = null;
+    } else {
+      leftToken = restartToken.getPrevious();
+      regionStart = restartToken.getOffset();
+      Token comment = restartToken.getPrecedingComments();
+      if (comment != null) {
+        regionStart = comment.getOffset();
+      }
+    }
+    //
+    // Scan tokens until the scanner is in the same state after a token following the edit as it
+    // was after one of the original tokens.
+    //
+    RegionScanner scanner = new RegionScanner(source, contents, regionStart, errorListener);
+    if (leftToken != null) {
+      scanner.setTail(leftToken);
+    }
+    GroupingStack scannedGroups = new GroupingStack(originalGroups);
+    GroupingStack pairedGroups = new GroupingStack(originalGroups);
+    openGroups = originalGroups.getBeginTokens();
+    int delta = insertedLength - removedLength;
+    int editEnd = index + insertedLength;
+    Token originalToken = restartToken;
+    Token lastOriginalToken = null;
+    Token regionHead = scanner.getTail();
+    Token lastToken = regionHead;
+    rightToken = null;
+    int next = scanner.advance();
+    while (next != -1) {
+      next = scanner.bigSwitch(next);
+      Token tail = scanner.getTail();
+      if (tail == lastToken) {
+        continue;
+      }
+      Token token = lastToken;
+      do {
+        token = token.getNext();
+        scannedGroups.add(token, false);
+      } while (token != tail);
+      lastToken = tail;
+      if (tail.getEnd() < editEnd) {
+        continue;
+      }
+      int originalEnd = tail.getEnd() - delta;
+      while (originalToken.getType() != TokenType.EOF && originalToken.getEnd() <= originalEnd) {
+        originalGroups.add(originalToken, false);
+        lastOriginalToken = originalToken;
+        originalToken = originalToken.getNext();
+      }
+      if (lastOriginalToken != null && lastOriginalToken.getEnd() == originalEnd
+          && isRestartToken(originalToken, originalGroups)
+          && scannedGroups.hasSameGroups(originalGroups)) {
+        rightToken = originalToken;
+        break;
+      }
+    }
+    //
+    // Pair the tokens representing the beginning and the end of the groups that were opened or
+    // closed in the region that was scanned. The groups that are still open at the end of the region
+    // are closed by the same tokens as the corresponding groups in the original stream.
+    //
+    Token[] endTokens = rightToken == null ? null : originalGroups.getEndTokens();
+    pairedGroups.clearEndTokens();
+    for (Token token = regionHead; token != lastToken;) {
+      token = token.getNext();
+      pairedGroups.add(token, true);
+    }
+    //
+    // Append the remaining original tokens, or the end of file token if there are none.
+    //
+    int originalRegionEnd = Integer.MAX_VALUE;
+    if (rightToken != null) {
+      pairedGroups.setEndTokens(endTokens);
+      originalRegionEnd = lastOriginalToken.getEnd();
+      lastToken.setNext(rightToken);
+      if (delta != 0) {
+        Token token = rightToken;
+        while (true) {
+          shiftOffset(token, delta);
+          if (token.getType() == TokenType.EOF) {
+            break;
+          }
+          token = token.getNext();
+        }
+      }
+    } else {
+      scanner.appendEofToken();
+    }
+    firstToken = leftToken == null ? scanner.firstToken() : originalStream;
+    //
+    // Compute the line starts.
+    //
+    int[] scannedLineStarts = scanner.getLineStarts();
+    IntList newLineStarts = new IntList(originalLineStarts.length + scannedLineStarts.length);
+    int lineIndex = 0;
+    while (lineIndex < originalLineStarts.length && originalLineStarts[lineIndex] <= regionStart) {
+      newLineStarts.add(originalLineStarts[lineIndex++]);
+    }
+    // The first line start recorded by the scanner is always zero.
+    for (int i = 1; i < scannedLineStarts.length; i++) {
+      newLineStarts.add(scannedLineStarts[i]);
+    }
+    // The scanner records the start of a line at the end of the file at the offset of the end of
+    // line, which is the end of the original region if the end of line immediately follows it.
+    for (; lineIndex < originalLineStarts.length; lineIndex++) {
+      if (originalLineStarts[lineIndex] >= originalRegionEnd) {
+        newLineStarts.add(originalLineStarts[lineIndex] + delta);
+      }
+    }
+    lineStarts = newLineStarts.toArray();
+    return firstToken;
+  }
+}
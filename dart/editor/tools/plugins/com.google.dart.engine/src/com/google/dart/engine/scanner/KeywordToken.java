@@ -35,6 +35,11 @@ public class KeywordToken extends Token {
     this.keyword = keyword;
   }
 
+  @Override
+  public Token copy() {
+    return new KeywordToken(keyword, getOffset());
+  }
+
   /**
    * Return the keyword being represented by this token.
    *
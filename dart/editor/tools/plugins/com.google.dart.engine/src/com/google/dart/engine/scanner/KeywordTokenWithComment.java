@@ -38,6 +38,11 @@ public class KeywordTokenWithComment extends KeywordToken {
     this.precedingComment = precedingComment;
   }
 
+  @Override
+  public Token copy() {
+    return new KeywordTokenWithComment(getKeyword(), getOffset(), copyComments(precedingComment));
+  }
+
   @Override
   public Token getPrecedingComments() {
     return precedingComment;
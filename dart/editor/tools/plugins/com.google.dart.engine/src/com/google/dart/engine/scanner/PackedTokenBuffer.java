@@ -0,0 +1,594 @@
+/*
+ * Copyright (c) 2013, the Dart project authors.
+ *
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.scanner;
+
+import com.google.dart.engine.utilities.source.LineInfo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+
+/**
+ * Instances of the class {@code PackedTokenBuffer} hold a stream of tokens, including the comments
+ * preceding them, in a few parallel arrays rather than as a linked list of {@link Token} objects.
+ * The lexemes of string tokens are kept once in a table shared by all of the tokens in the buffer.
+ * <p>
+ * A packed buffer is much cheaper to retain than the token stream it was created from. Each
+ * invocation of {@link #getFirstToken()} creates a new token stream that can be given to the
+ * parser, which modifies the tokens it is given, so the buffer itself is never modified.
+ *
+ * @coverage dart.engine.parser
+ */
+public final class PackedTokenBuffer {
+  /**
+   * The flag set in the kind of a token that is a comment preceding the next non-comment token.
+   */
+  private static final int COMMENT_FLAG = 1 << 16;
+
+  /**
+   * The flag set in the kind of a token that is a {@link StringToken}.
+   */
+  private static final int STRING_FLAG = 1 << 17;
+
+  /**
+   * The flag set in the kind of a token that is a {@link BeginToken}.
+   */
+  private static final int BEGIN_FLAG = 1 << 18;
+
+  /**
+   * The mask used to extract the type or keyword index from the kind of a token.
+   */
+  private static final int INDEX_MASK = COMMENT_FLAG - 1;
+
+  /**
+   * The token types, indexed by their ordinal.
+   */
+  private static final TokenType[] TYPES = TokenType.values();
+
+  /**
+   * The keywords, indexed by their ordinal minus the number of token types.
+   */
+  private static final Keyword[] KEYWORDS = Keyword.values();
+
+  /**
+   * Record the given token at the given index in the given arrays.
+   *
+   * @param kinds the kind of each token
+   * @param offsets the offset of each token
+   * @param values the index of the lexeme or of the end token of each token
+   * @param index the index at which the token is to be recorded
+   * @param token the token to be recorded
+   * @param flags the flags to be added to the kind of the token
+   * @param lexemeIndices a table mapping the lexemes recorded so far to their index
+   * @param lexemeList the lexemes recorded so far
+   */
+  private static void pack(int[] kinds, int[] offsets, int[] values, int index, Token token,
+      int flags, HashMap<String, Integer> lexemeIndices, ArrayList<String> lexemeList) {
+    int kind;
+    int value = -1;
+    if (token instanceof KeywordToken) {
+      kind = TYPES.length + ((KeywordToken) token).getKeyword().ordinal();
+    } else {
+      kind = token.getType().ordinal();
+      if (token instanceof StringToken) {
+        kind |= STRING_FLAG;
+        String lexeme = token.getLexeme();
+        Integer lexemeIndex = lexemeIndices.get(lexeme);
+        if (lexemeIndex == null) {
+          lexemeIndex = lexemeList.size();
+          lexemeIndices.put(lexeme, lexemeIndex);
+          lexemeList.add(lexeme);
+        }
+        value = lexemeIndex;
+      } else if (token instanceof BeginToken) {
+        kind |= BEGIN_FLAG;
+      }
+    }
+    kinds[index] = kind | flags;
+    offsets[index] = token.getOffset();
+    values[index] = value;
+  }
+
+  /**
+   * The number of tokens in the buffer, including comments and the EOF token.
+   */
+  private final int tokenCount;
+
+  /**
+   * The kind of each token: the ordinal of its type, or the number of token types plus the ordinal
+   * of its keyword, combined with flags describing the class of the token.
+   */
+  private final int[] kinds;
+
+  /**
+   * The offset of each token.
+   */
+  private final int[] offsets;
+
+  /**
+   * For each token, the index of its lexeme in {@link #lexemes} for string tokens, the index of
+   * the corresponding end token for begin tokens, or {@code -1}.
+   */
+  private final int[] values;
+
+  /**
+   * The distinct lexemes of the string tokens in the buffer.
+   */
+  private final String[] lexemes;
+
+  /**
+   * The offsets of the first character of each line in the source code.
+   */
+  private final int[] lineStarts;
+
+  /**
+   * Initialize a newly created buffer to hold the stream of tokens starting with the given token.
+   *
+   * @param token the first token in the stream of tokens to be packed
+   * @param lineStarts the offsets of the first character of each line in the source code
+   */
+  public PackedTokenBuffer(Token token, int[] lineStarts) {
+    this.lineStarts = lineStarts;
+    int count = 0;
+    Token current = token;
+    while (true) {
+      Token comment = current.getPrecedingComments();
+      while (comment != null) {
+        count++;
+        comment = comment.getNext();
+      }
+      count++;
+      if (current.getType() == TokenType.EOF) {
+        break;
+      }
+      current = current.getNext();
+    }
+    tokenCount = count;
+    kinds = new int[count];
+    offsets = new int[count];
+    values = new int[count];
+    HashMap<String, Integer> lexemeIndices = new HashMap<String, Integer>();
+    ArrayList<String> lexemeList = new ArrayList<String>();
+    // Groups are always properly nested, so the begin tokens whose end tokens have not yet been
+    // packed form a stack.
+    ArrayList<Token> endTokens = new ArrayList<Token>();
+    ArrayList<Integer> beginIndices = new ArrayList<Integer>();
+    int index = 0;
+    current = token;
+    while (true) {
+      Token comment = current.getPrecedingComments();
+      while (comment != null) {
+        pack(kinds, offsets, values, index++, comment, COMMENT_FLAG, lexemeIndices, lexemeList);
+        comment = comment.getNext();
+      }
+      int last = endTokens.size() - 1;
+      if (last >= 0 && endTokens.get(last) == current) {
+        endTokens.remove(last);
+        values[beginIndices.remove(last)] = index;
+      }
+      if (current instanceof BeginToken) {
+        Token endToken = ((BeginToken) current).getEndToken();
+        if (endToken != null) {
+          endTokens.add(endToken);
+          beginIndices.add(index);
+        }
+      }
+      pack(kinds, offsets, values, index++, current, 0, lexemeIndices, lexemeList);
+      if (current.getType() == TokenType.EOF) {
+        break;
+      }
+      current = current.getNext();
+    }
+    lexemes = lexemeList.toArray(new String[lexemeList.size()]);
+  }
+
+  /**
+   * Initialize a newly created buffer to hold the tokens described by the given arrays.
+   *
+   * @param kinds the kind of each token
+   * @param offsets the offset of each token
+   * @param values the index of the lexeme or of the end token of each token, or {@code -1}
+   * @param lexemes the distinct lexemes of the string tokens
+   * @param lineStarts the offsets of the first character of each line in the source code
+   */
+  private PackedTokenBuffer(int[] kinds, int[] offsets, int[] values, String[] lexemes,
+      int[] lineStarts) {
+    this.tokenCount = kinds.length;
+    this.kinds = kinds;
+    this.offsets = offsets;
+    this.values = values;
+    this.lexemes = lexemes;
+    this.lineStarts = lineStarts;
+  }
+
+  /**
+   * Return the first token in a newly created stream of tokens equivalent to the stream from which
+   * this buffer was created. The tokens representing the beginning of a group are paired with their
+   * end tokens, and the last token is an EOF token that points to itself.
+   *
+   * @return the first token in a newly created stream of tokens
+   */
+  public Token getFirstToken() {
+    Token head = new Token(TokenType.EOF, -1);
+    head.setNext(head);
+    Token tail = head;
+    Token firstComment = null;
+    Token lastComment = null;
+    ArrayList<Integer> endIndices = new ArrayList<Integer>();
+    ArrayList<BeginToken> beginTokens = new ArrayList<BeginToken>();
+    for (int index = 0; index < tokenCount; index++) {
+      int kind = kinds[index];
+      if ((kind & COMMENT_FLAG) != 0) {
+        Token comment = new StringToken(getType(index), lexemes[values[index]], offsets[index]);
+        if (firstComment == null) {
+          firstComment = comment;
+        } else {
+          lastComment.setNext(comment);
+        }
+        lastComment = comment;
+        continue;
+      }
+      Token token = createToken(index, firstComment);
+      firstComment = null;
+      lastComment = null;
+      int last = endIndices.size() - 1;
+      if (last >= 0 && endIndices.get(last) == index) {
+        endIndices.remove(last);
+        beginTokens.remove(last).setEndToken(token);
+      }
+      if ((kind & BEGIN_FLAG) != 0 && values[index] >= 0) {
+        endIndices.add(values[index]);
+        beginTokens.add((BeginToken) token);
+      }
+      if (token.getType() == TokenType.EOF) {
+        // The EOF token points to itself so that there is always infinite look-ahead.
+        token.setNext(token);
+        tail.setNext(token);
+        break;
+      }
+      tail = tail.setNext(token);
+    }
+    return head.getNext();
+  }
+
+  /**
+   * Return the number of characters in the token at the given index.
+   *
+   * @param index the index of the token
+   * @return the number of characters in the token at the given index
+   */
+  public int getLength(int index) {
+    return getLexeme(index).length();
+  }
+
+  /**
+   * Return the lexeme of the token at the given index.
+   *
+   * @param index the index of the token
+   * @return the lexeme of the token at the given index
+   */
+  public String getLexeme(int index) {
+    int kind = kinds[index];
+    if ((kind & STRING_FLAG) != 0) {
+      return lexemes[values[index]];
+    }
+    int typeIndex = kind & INDEX_MASK;
+    if (typeIndex >= TYPES.length) {
+      return KEYWORDS[typeIndex - TYPES.length].getSyntax();
+    }
+    return TYPES[typeIndex].getLexeme();
+  }
+
+  /**
+   * Return the line information for the source from which the tokens were scanned.
+   *
+   * @return the line information for the source from which the tokens were scanned
+   */
+  public LineInfo getLineInfo() {
+    return new LineInfo(lineStarts);
+  }
+
+  /**
+   * Return an array containing the offsets of the first character of each line in the source code.
+   *
+   * @return an array containing the offsets of the first character of each line in the source code
+   */
+  public int[] getLineStarts() {
+    return lineStarts;
+  }
+
+  /**
+   * Return the offset from the beginning of the file to the first character in the token at the
+   * given index.
+   *
+   * @param index the index of the token
+   * @return the offset of the token at the given index
+   */
+  public int getOffset(int index) {
+    return offsets[index];
+  }
+
+  /**
+   * Return the number of tokens in this buffer, including comments and the EOF token.
+   *
+   * @return the number of tokens in this buffer
+   */
+  public int getTokenCount() {
+    return tokenCount;
+  }
+
+  /**
+   * Return the type of the token at the given index.
+   *
+   * @param index the index of the token
+   * @return the type of the token at the given index
+   */
+  public TokenType getType(int index) {
+    int typeIndex = kinds[index] & INDEX_MASK;
+    if (typeIndex >= TYPES.length) {
+      return TokenType.KEYWORD;
+    }
+    return TYPES[typeIndex];
+  }
+
+  /**
+   * Return {@code true} if the token at the given index is a comment preceding the next token.
+   *
+   * @param index the index of the token
+   * @return {@code true} if the token at the given index is a comment
+   */
+  public boolean isComment(int index) {
+    return (kinds[index] & COMMENT_FLAG) != 0;
+  }
+
+  /**
+   * Return a buffer holding the stream of tokens produced by {@link IncrementalScanner#rescan} from
+   * a stream of tokens created by {@link #getFirstToken()}. If the scanner found a token after the
+   * edit at which it could stop, only the tokens it scanned are packed, and the tokens before and
+   * after them are copied from this buffer. This buffer is not modified.
+   *
+   * @param firstToken the first token in the stream produced by the scanner
+   * @param scanner the scanner that produced the stream
+   * @param delta the number of characters inserted by the edit minus the number removed
+   * @return a buffer holding the stream of tokens produced by the scanner
+   */
+  public PackedTokenBuffer update(Token firstToken, IncrementalScanner scanner, int delta) {
+    Token leftToken = scanner.getLeftToken();
+    Token rightToken = scanner.getRightToken();
+    // The lexemes of the tokens that were replaced are kept, so the table is rebuilt once it has
+    // grown larger than the stream.
+    if (rightToken != null && lexemes.length <= tokenCount) {
+      int leftIndex = leftToken == null ? -1 : indexOf(leftToken, 0);
+      int rightIndex = indexOf(rightToken, delta);
+      if ((leftToken == null || leftIndex >= 0) && rightIndex > leftIndex) {
+        // The comments preceding the right token were not rescanned.
+        int suffixStart = rightIndex;
+        while (suffixStart > leftIndex + 1 && isComment(suffixStart - 1)) {
+          suffixStart--;
+        }
+        PackedTokenBuffer buffer = splice(
+            leftIndex + 1,
+            suffixStart,
+            leftToken == null ? firstToken : leftToken.getNext(),
+            rightToken,
+            scanner.getOpenGroups(),
+            delta,
+            scanner.getLineStarts());
+        if (buffer != null) {
+          return buffer;
+        }
+      }
+    }
+    return new PackedTokenBuffer(firstToken, scanner.getLineStarts());
+  }
+
+  /**
+   * Return a newly created token equivalent to the token at the given index.
+   *
+   * @param index the index of the token
+   * @param comment the first comment preceding the token, or {@code null} if there are none
+   * @return the token that was created
+   */
+  private Token createToken(int index, Token comment) {
+    int kind = kinds[index];
+    int offset = offsets[index];
+    int typeIndex = kind & INDEX_MASK;
+    if (typeIndex >= TYPES.length) {
+      Keyword keyword = KEYWORDS[typeIndex - TYPES.length];
+      if (comment == null) {
+        return new KeywordToken(keyword, offset);
+      }
+      return new KeywordTokenWithComment(keyword, offset, comment);
+    }
+    TokenType type = TYPES[typeIndex];
+    if ((kind & STRING_FLAG) != 0) {
+      String lexeme = lexemes[values[index]];
+      if (comment == null) {
+        return new StringToken(type, lexeme, offset);
+      }
+      return new StringTokenWithComment(type, lexeme, offset, comment);
+    }
+    if ((kind & BEGIN_FLAG) != 0) {
+      if (comment == null) {
+        return new BeginToken(type, offset);
+      }
+      return new BeginTokenWithComment(type, offset, comment);
+    }
+    if (comment == null) {
+      return new Token(type, offset);
+    }
+    return new TokenWithComment(type, offset, comment);
+  }
+
+  /**
+   * Return the index in the spliced buffer of the end token of the given token, which is either in
+   * the rescanned region or is one of the groups that were open at its beginning, {@code -1} if the
+   * token has no end token, or {@code -2} if the end token cannot be found.
+   *
+   * @param token the token representing the beginning of a group
+   * @param regionIndices a table mapping the tokens in the region to their index in the spliced
+   *          buffer
+   * @param delta the amount by which the offsets of the tokens after the region were shifted
+   * @param shift the amount by which the indices of the tokens after the region were shifted
+   * @return the index of the end token of the given token
+   */
+  private int getEndIndex(Token token, IdentityHashMap<Token, Integer> regionIndices, int delta,
+      int shift) {
+    Token endToken = ((BeginToken) token).getEndToken();
+    if (endToken == null) {
+      return -1;
+    }
+    Integer regionIndex = regionIndices.get(endToken);
+    if (regionIndex != null) {
+      return regionIndex;
+    }
+    int index = indexOf(endToken, delta);
+    return index < 0 ? -2 : index + shift;
+  }
+
+  /**
+   * Return the index of the token in this buffer that is not a comment and has the same type as
+   * the given token, at the offset of the given token minus the given amount, or {@code -1} if
+   * there is not exactly one such token.
+   *
+   * @param token the token being searched for
+   * @param delta the amount by which the offset of the token was shifted after it was unpacked
+   * @return the index of the token in this buffer
+   */
+  private int indexOf(Token token, int delta) {
+    int offset = token.getOffset() - delta;
+    TokenType type = token.getType();
+    int low = 0;
+    int high = tokenCount - 1;
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (offsets[middle] < offset) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    // Tokens whose lexemes are empty can share an offset with the token following them.
+    int result = -1;
+    for (int index = low; index < tokenCount && offsets[index] == offset; index++) {
+      if (!isComment(index) && getType(index) == type) {
+        if (result >= 0) {
+          return -1;
+        }
+        result = index;
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Return a buffer holding the stream of tokens produced by rescanning a region of the stream held
+   * by this buffer, or {@code null} if the tokens following the region cannot be matched with the
+   * tokens in this buffer. The tokens before and after the region are copied from this buffer
+   * rather than from the token stream, and only the tokens in the region are packed.
+   *
+   * @param prefixCount the number of tokens in this buffer that precede the region
+   * @param suffixStart the index in this buffer of the first token following the region
+   * @param regionFirst the first token in the region, or the right token if the region is empty
+   * @param rightToken the first token following the region
+   * @param openGroups the tokens before the region representing the beginning of the groups that
+   *          were open at the beginning of the region
+   * @param delta the amount by which the offsets of the tokens following the region were shifted
+   * @param lineStarts the offsets of the first character of each line in the source code
+   * @return a buffer holding the updated stream of tokens
+   */
+  private PackedTokenBuffer splice(int prefixCount, int suffixStart, Token regionFirst,
+      Token rightToken, Token[] openGroups, int delta, int[] lineStarts) {
+    int regionCount = 0;
+    for (Token token = regionFirst; token != rightToken; token = token.getNext()) {
+      Token comment = token.getPrecedingComments();
+      while (comment != null) {
+        regionCount++;
+        comment = comment.getNext();
+      }
+      regionCount++;
+    }
+    int suffixCount = tokenCount - suffixStart;
+    int suffixIndex = prefixCount + regionCount;
+    int shift = suffixIndex - suffixStart;
+    int newCount = suffixIndex + suffixCount;
+    int[] newKinds = new int[newCount];
+    int[] newOffsets = new int[newCount];
+    int[] newValues = new int[newCount];
+    System.arraycopy(kinds, 0, newKinds, 0, prefixCount);
+    System.arraycopy(offsets, 0, newOffsets, 0, prefixCount);
+    System.arraycopy(values, 0, newValues, 0, prefixCount);
+    System.arraycopy(kinds, suffixStart, newKinds, suffixIndex, suffixCount);
+    for (int i = 0; i < suffixCount; i++) {
+      int value = values[suffixStart + i];
+      if ((newKinds[suffixIndex + i] & BEGIN_FLAG) != 0 && value >= 0) {
+        value += shift;
+      }
+      newOffsets[suffixIndex + i] = offsets[suffixStart + i] + delta;
+      newValues[suffixIndex + i] = value;
+    }
+    //
+    // Pack the tokens in the region, adding their lexemes to the lexemes of this buffer.
+    //
+    HashMap<String, Integer> lexemeIndices = new HashMap<String, Integer>();
+    ArrayList<String> lexemeList = new ArrayList<String>(Arrays.asList(lexemes));
+    IdentityHashMap<Token, Integer> regionIndices = new IdentityHashMap<Token, Integer>();
+    int index = prefixCount;
+    for (Token token = regionFirst; token != rightToken; token = token.getNext()) {
+      Token comment = token.getPrecedingComments();
+      while (comment != null) {
+        pack(
+            newKinds,
+            newOffsets,
+            newValues,
+            index++,
+            comment,
+            COMMENT_FLAG,
+            lexemeIndices,
+            lexemeList);
+        comment = comment.getNext();
+      }
+      regionIndices.put(token, index);
+      pack(newKinds, newOffsets, newValues, index++, token, 0, lexemeIndices, lexemeList);
+    }
+    //
+    // Record the end tokens of the groups begun in the region and of the groups that were open at
+    // the beginning of the region, which are the only groups whose end tokens could have changed.
+    //
+    for (Token token = regionFirst; token != rightToken; token = token.getNext()) {
+      if (token instanceof BeginToken) {
+        int endIndex = getEndIndex(token, regionIndices, delta, shift);
+        if (endIndex < -1) {
+          return null;
+        }
+        newValues[regionIndices.get(token)] = endIndex;
+      }
+    }
+    for (Token token : openGroups) {
+      int beginIndex = indexOf(token, 0);
+      int endIndex = getEndIndex(token, regionIndices, delta, shift);
+      if (beginIndex < 0 || beginIndex >= prefixCount || endIndex < -1) {
+        return null;
+      }
+      newValues[beginIndex] = endIndex;
+    }
+    return new PackedTokenBuffer(
+        newKinds,
+        newOffsets,
+        newValues,
+        lexemeList.toArray(new String[lexemeList.size()]),
+        lineStarts);
+  }
+}
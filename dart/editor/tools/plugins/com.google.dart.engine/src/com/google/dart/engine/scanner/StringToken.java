@@ -39,6 +39,11 @@ public class StringToken extends Token {
     this.value = StringUtilities.intern(value);
   }
 
+  @Override
+  public Token copy() {
+    return new StringToken(getType(), value, getOffset());
+  }
+
   @Override
   public String getLexeme() {
     return value;
@@ -38,6 +38,15 @@ public class StringTokenWithComment extends StringToken {
     this.precedingComment = precedingComment;
   }
 
+  @Override
+  public Token copy() {
+    return new StringTokenWithComment(
+        getType(),
+        getLexeme(),
+        getOffset(),
+        copyComments(precedingComment));
+  }
+
   @Override
   public Token getPrecedingComments() {
     return precedingComment;
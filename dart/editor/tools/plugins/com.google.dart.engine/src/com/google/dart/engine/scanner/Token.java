@@ -51,6 +51,16 @@ public class Token {
     this.offset = offset;
   }
 
+  /**
+   * Return a newly created token that is a copy of this token but that is not a part of any token
+   * stream.
+   * 
+   * @return a newly created token that is a copy of this token
+   */
+  public Token copy() {
+    return new Token(type, offset);
+  }
+
   /**
    * Return the offset from the beginning of the file to the character after last character of the
    * token.
@@ -206,6 +216,26 @@ public class Token {
     return type.getLexeme();
   }
 
+  /**
+   * Copy a linked list of comment tokens.
+   * 
+   * @param token the first token in the list, or {@code null} if there are no tokens to be copied
+   * @return the tokens that were created
+   */
+  protected Token copyComments(Token token) {
+    if (token == null) {
+      return null;
+    }
+    Token head = token.copy();
+    Token tail = head;
+    token = token.getNext();
+    while (token != null) {
+      tail = tail.setNext(token.copy());
+      token = token.getNext();
+    }
+    return head;
+  }
+
   /**
    * Set the previous token in the token stream to the given token.
    * 
@@ -38,6 +38,11 @@ public class TokenWithComment extends Token {
     this.precedingComment = precedingComment;
   }
 
+  @Override
+  public Token copy() {
+    return new TokenWithComment(getType(), getOffset(), copyComments(precedingComment));
+  }
+
   @Override
   public Token getPrecedingComments() {
     return precedingComment;
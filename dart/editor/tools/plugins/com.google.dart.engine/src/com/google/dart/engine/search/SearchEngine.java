@@ -15,6 +15,7 @@ package com.google.dart.engine.search;
 
 import com.google.dart.engine.element.ClassElement;
 import com.google.dart.engine.element.Element;
+import com.google.dart.engine.index.TypeHierarchy;
 
 import java.util.List;
 
@@ -25,6 +26,13 @@ import java.util.List;
  * @coverage dart.engine.search
  */
 public interface SearchEngine {
+  /**
+   * Return the {@link TypeHierarchy} of the index used by this engine. Unlike searches for subtypes,
+   * queries of the hierarchy do not go through the index and return the results immediately.
+   * 
+   * @return the {@link TypeHierarchy} of the index used by this engine
+   */
+  TypeHierarchy getTypeHierarchy();
 
   /**
    * Synchronously search for declarations of the given name within the given scope. Return all
@@ -17,7 +17,8 @@ import java.util.HashMap;
 
 /**
  * Instances of class {@code ContentCache} hold content used to override the default content of a
- * {@link Source}.
+ * {@link Source}. Access to the cache is synchronized because the contents of sources can be read
+ * by analysis worker threads while they are being changed.
  * 
  * @coverage dart.engine.source
  */
@@ -51,7 +52,7 @@ public class ContentCache {
    * @param source the source whose content is to be returned
    * @return the contents of the given source
    */
-  public String getContents(Source source) {
+  public synchronized String getContents(Source source) {
     return contentMap.get(source);
   }
 
@@ -65,7 +66,7 @@ public class ContentCache {
    * @param source the source whose modification stamp is to be returned
    * @return the modification stamp of the given source
    */
-  public Long getModificationStamp(Source source) {
+  public synchronized Long getModificationStamp(Source source) {
     return stampMap.get(source);
   }
 
@@ -77,7 +78,7 @@ public class ContentCache {
    * @param source the source whose contents are being overridden
    * @param contents the new contents of the source
    */
-  public void setContents(Source source, String contents) {
+  public synchronized void setContents(Source source, String contents) {
     if (contents == null) {
       contentMap.remove(source);
       stampMap.remove(source);
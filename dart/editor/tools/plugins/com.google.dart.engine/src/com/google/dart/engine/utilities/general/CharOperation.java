@@ -609,6 +609,21 @@ public class CharOperation {
         || (iPattern == patternEnd - 1 && pattern[iPattern] == '*');
   }
 
+  /**
+   * Return the given string with each character converted to lower case in the same way as when
+   * performing a case insensitive {@link #match(char[], char[], boolean)}.
+   * 
+   * @param string the string to be converted
+   * @return the given string with each character converted to lower case
+   */
+  public static String toLowerCase(String string) {
+    char[] chars = string.toCharArray();
+    for (int i = 0; i < chars.length; i++) {
+      chars[i] = toLowerCase(chars[i]);
+    }
+    return new String(chars);
+  }
+
   private static char toLowerCase(char c) {
     return Character.toLowerCase(c);
   }
@@ -0,0 +1,314 @@
+/*
+ * Copyright (c) 2013, the Dart project authors.
+ *
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.utilities.general;
+
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map.Entry;
+
+/**
+ * Instances of the class {@code PhaseStatistics} accumulate the time spent, and the memory
+ * allocated, in each phase of a computation that is performed many times, such as the resolution of
+ * a library. Each execution of the computation is performed for a named subject, such as the
+ * library being resolved, so that the subjects responsible for most of the time can be found.
+ * <p>
+ * The statistics are recorded by {@link PhaseTimer phase timers}. Instances of this class are
+ * thread-safe.
+ *
+ * @coverage dart.engine.utilities
+ */
+public class PhaseStatistics {
+  /**
+   * Instances of the class {@code PhaseSamples} hold the measurements recorded for one phase.
+   */
+  private static class PhaseSamples {
+    /**
+     * The durations of the executions of the phase, in nanoseconds. Only the first {@link #count}
+     * elements are valid.
+     */
+    private long[] durations = new long[16];
+
+    /**
+     * The number of executions of the phase that have been recorded.
+     */
+    private int count = 0;
+
+    /**
+     * The number of bytes allocated by the executions of the phase, or {@code -1} if the number of
+     * bytes allocated by at least one of the executions is not known.
+     */
+    private long allocation = 0L;
+
+    void add(long duration, long allocatedBytes) {
+      if (count == durations.length) {
+        durations = Arrays.copyOf(durations, count * 2);
+      }
+      durations[count++] = duration;
+      if (allocatedBytes < 0L || allocation < 0L) {
+        allocation = -1L;
+      } else {
+        allocation += allocatedBytes;
+      }
+    }
+  }
+
+  /**
+   * Instances of the class {@code SubjectTotals} hold the total time spent on, and memory allocated
+   * for, one subject.
+   */
+  private static class SubjectTotals {
+    /**
+     * The name of the subject.
+     */
+    private final String name;
+
+    /**
+     * The total time spent in all of the phases of the computations performed for the subject, in
+     * nanoseconds.
+     */
+    private long duration = 0L;
+
+    /**
+     * The number of bytes allocated by the computations performed for the subject, or {@code -1} if
+     * it is not known.
+     */
+    private long allocation = 0L;
+
+    SubjectTotals(String name) {
+      this.name = name;
+    }
+  }
+
+  /**
+   * The percentiles of the phase durations that are printed.
+   */
+  private static final int[] PRINTED_PERCENTILES = {50, 90, 99};
+
+  /**
+   * The number of nanoseconds in a millisecond.
+   */
+  private static final double NANOS_PER_MILLI = 1000000.0;
+
+  /**
+   * The number of bytes in a megabyte.
+   */
+  private static final double BYTES_PER_MEGABYTE = 1024.0 * 1024.0;
+
+  /**
+   * A table mapping the names of the phases to the measurements recorded for them, in the order in
+   * which the phases were first recorded.
+   */
+  private final LinkedHashMap<String, PhaseSamples> phases = new LinkedHashMap<String, PhaseSamples>();
+
+  /**
+   * A table mapping the names of the subjects to the totals recorded for them.
+   */
+  private final HashMap<String, SubjectTotals> subjects = new HashMap<String, SubjectTotals>();
+
+  /**
+   * Return the number of executions of the phase with the given name that have been recorded.
+   *
+   * @param phase the name of the phase
+   * @return the number of executions of the phase that have been recorded
+   */
+  public synchronized int getCount(String phase) {
+    PhaseSamples samples = phases.get(phase);
+    return samples == null ? 0 : samples.count;
+  }
+
+  /**
+   * Return the given percentile of the durations of the executions of the phase with the given
+   * name, in nanoseconds, or {@code 0} if no executions of the phase have been recorded. The
+   * percentile is computed using the nearest-rank method, so the 100th percentile is the longest
+   * duration.
+   *
+   * @param phase the name of the phase
+   * @param percentile the percentile to be returned, between {@code 1} and {@code 100}
+   * @return the given percentile of the durations of the phase
+   */
+  public synchronized long getPercentile(String phase, int percentile) {
+    PhaseSamples samples = phases.get(phase);
+    if (samples == null || samples.count == 0) {
+      return 0L;
+    }
+    long[] durations = Arrays.copyOf(samples.durations, samples.count);
+    Arrays.sort(durations);
+    return getPercentile(durations, percentile);
+  }
+
+  /**
+   * Return the names of the phases that have been recorded, in the order in which they were first
+   * recorded.
+   *
+   * @return the names of the phases that have been recorded
+   */
+  public synchronized String[] getPhases() {
+    return phases.keySet().toArray(new String[phases.size()]);
+  }
+
+  /**
+   * Return the names of the given number of subjects on which the most time was spent, the subject
+   * on which the most time was spent first.
+   *
+   * @param count the maximum number of subjects to be returned
+   * @return the names of the subjects on which the most time was spent
+   */
+  public synchronized String[] getSlowestSubjects(int count) {
+    ArrayList<SubjectTotals> totals = getSortedSubjects();
+    int resultCount = Math.min(count, totals.size());
+    String[] result = new String[resultCount];
+    for (int i = 0; i < resultCount; i++) {
+      result[i] = totals.get(i).name;
+    }
+    return result;
+  }
+
+  /**
+   * Return the number of bytes allocated by the executions of the phase with the given name, or
+   * {@code -1} if the number of bytes is not known.
+   *
+   * @param phase the name of the phase
+   * @return the number of bytes allocated by the executions of the phase
+   */
+  public synchronized long getTotalAllocation(String phase) {
+    PhaseSamples samples = phases.get(phase);
+    return samples == null ? 0L : samples.allocation;
+  }
+
+  /**
+   * Print the statistics for each phase, followed by the totals for the given number of subjects on
+   * which the most time was spent, to the given writer.
+   *
+   * @param writer the writer to which the statistics are to be printed
+   * @param subjectCount the maximum number of subjects to be printed
+   */
+  public synchronized void print(PrintWriter writer, int subjectCount) {
+    writer.print(String.format("%-30s %8s %12s", "phase", "count", "total ms"));
+    for (int percentile : PRINTED_PERCENTILES) {
+      writer.print(String.format(" %10s", "p" + percentile + " ms"));
+    }
+    writer.println(String.format(" %10s %12s", "max ms", "alloc MB"));
+    for (Entry<String, PhaseSamples> entry : phases.entrySet()) {
+      PhaseSamples samples = entry.getValue();
+      long[] durations = Arrays.copyOf(samples.durations, samples.count);
+      Arrays.sort(durations);
+      long total = 0L;
+      for (long duration : durations) {
+        total += duration;
+      }
+      writer.print(String.format(
+          "%-30s %8d %12.1f",
+          entry.getKey(),
+          samples.count,
+          total / NANOS_PER_MILLI));
+      for (int percentile : PRINTED_PERCENTILES) {
+        writer.print(String.format(" %10.2f", getPercentile(durations, percentile) / NANOS_PER_MILLI));
+      }
+      writer.println(String.format(
+          " %10.2f %12s",
+          getPercentile(durations, 100) / NANOS_PER_MILLI,
+          formatAllocation(samples.allocation)));
+    }
+    ArrayList<SubjectTotals> totals = getSortedSubjects();
+    int count = Math.min(subjectCount, totals.size());
+    if (count > 0) {
+      writer.println();
+      writer.println(String.format("%12s %12s  %s", "total ms", "alloc MB", "slowest subjects"));
+      for (int i = 0; i < count; i++) {
+        SubjectTotals subject = totals.get(i);
+        writer.println(String.format(
+            "%12.1f %12s  %s",
+            subject.duration / NANOS_PER_MILLI,
+            formatAllocation(subject.allocation),
+            subject.name));
+      }
+    }
+    writer.flush();
+  }
+
+  /**
+   * Record one execution of a computation for the subject with the given name.
+   *
+   * @param subject the name of the subject for which the computation was performed
+   * @param phaseNames the names of the phases of the computation that were executed
+   * @param durations the durations of the phases, in nanoseconds
+   * @param allocations the number of bytes allocated by each phase, or {@code -1} if the number is
+   *          not known
+   * @param phaseCount the number of phases in the given arrays
+   */
+  synchronized void record(String subject, String[] phaseNames, long[] durations,
+      long[] allocations, int phaseCount) {
+    SubjectTotals totals = subjects.get(subject);
+    if (totals == null) {
+      totals = new SubjectTotals(subject);
+      subjects.put(subject, totals);
+    }
+    for (int i = 0; i < phaseCount; i++) {
+      PhaseSamples samples = phases.get(phaseNames[i]);
+      if (samples == null) {
+        samples = new PhaseSamples();
+        phases.put(phaseNames[i], samples);
+      }
+      samples.add(durations[i], allocations[i]);
+      totals.duration += durations[i];
+      if (allocations[i] < 0L || totals.allocation < 0L) {
+        totals.allocation = -1L;
+      } else {
+        totals.allocation += allocations[i];
+      }
+    }
+  }
+
+  /**
+   * Return the given number of bytes as a number of megabytes, or a question mark if the number of
+   * bytes is not known.
+   */
+  private String formatAllocation(long allocation) {
+    if (allocation < 0L) {
+      return "?";
+    }
+    return String.format("%.1f", allocation / BYTES_PER_MEGABYTE);
+  }
+
+  /**
+   * Return the given percentile of the given sorted, non-empty array of durations.
+   */
+  private long getPercentile(long[] sortedDurations, int percentile) {
+    int rank = (int) Math.ceil(percentile / 100.0 * sortedDurations.length);
+    return sortedDurations[Math.max(0, Math.min(sortedDurations.length, rank) - 1)];
+  }
+
+  /**
+   * Return the totals of all of the subjects, sorted so that the subject on which the most time
+   * was spent is first.
+   */
+  private ArrayList<SubjectTotals> getSortedSubjects() {
+    ArrayList<SubjectTotals> totals = new ArrayList<SubjectTotals>(subjects.values());
+    Collections.sort(totals, new Comparator<SubjectTotals>() {
+      @Override
+      public int compare(SubjectTotals first, SubjectTotals second) {
+        if (first.duration != second.duration) {
+          return first.duration > second.duration ? -1 : 1;
+        }
+        return first.name.compareTo(second.name);
+      }
+    });
+    return totals;
+  }
+}
@@ -0,0 +1,188 @@
+/*
+ * Copyright (c) 2013, the Dart project authors.
+ *
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.utilities.general;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+
+/**
+ * Instances of the class {@code PhaseTimer} measure the phases of one execution of a computation
+ * performed for a subject, and record the measurements in a {@link PhaseStatistics} when the
+ * computation is finished. The phases are measured one after another: the duration of a phase is
+ * the time between the completion of the previous phase, or the creation of the timer, and the
+ * completion of the phase.
+ * <p>
+ * Durations are always measured, so that they can also be reported in other ways, but the number
+ * of bytes allocated is only measured if there are statistics to record it in. Allocations are
+ * measured for the thread that created the timer, and only if the JVM supports measuring the
+ * memory allocated by a thread; memory allocated by other threads on behalf of the computation is
+ * not included. Instances of this class are not thread-safe.
+ *
+ * @coverage dart.engine.utilities
+ */
+public class PhaseTimer {
+  /**
+   * The bean used to measure the memory allocated by a thread, or {@code null} if the JVM does not
+   * support it.
+   */
+  private static final ThreadMXBean THREAD_BEAN;
+
+  /**
+   * The method of {@link #THREAD_BEAN} returning the number of bytes allocated by a thread, or
+   * {@code null} if the JVM does not support it.
+   */
+  private static final Method ALLOCATED_BYTES_METHOD;
+
+  static {
+    ThreadMXBean bean = null;
+    Method method = null;
+    try {
+      // The method is defined by an extension of the standard bean interface that is not available
+      // in every JVM, so it is accessed reflectively.
+      Class<?> extendedBeanClass = Class.forName("com.sun.management.ThreadMXBean");
+      ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+      if (extendedBeanClass.isInstance(threadBean)) {
+        Method supportedMethod = extendedBeanClass.getMethod("isThreadAllocatedMemorySupported");
+        Method enabledMethod = extendedBeanClass.getMethod("isThreadAllocatedMemoryEnabled");
+        if (Boolean.TRUE.equals(supportedMethod.invoke(threadBean))
+            && Boolean.TRUE.equals(enabledMethod.invoke(threadBean))) {
+          bean = threadBean;
+          method = extendedBeanClass.getMethod("getThreadAllocatedBytes", long.class);
+        }
+      }
+    } catch (Throwable exception) {
+      // Allocations cannot be measured.
+      bean = null;
+      method = null;
+    }
+    THREAD_BEAN = bean;
+    ALLOCATED_BYTES_METHOD = method;
+  }
+
+  /**
+   * Return the number of bytes allocated by the current thread so far, or {@code -1} if it cannot
+   * be measured.
+   *
+   * @return the number of bytes allocated by the current thread
+   */
+  public static long getAllocatedBytes() {
+    if (ALLOCATED_BYTES_METHOD == null) {
+      return -1L;
+    }
+    try {
+      Object result = ALLOCATED_BYTES_METHOD.invoke(THREAD_BEAN, Thread.currentThread().getId());
+      return result instanceof Long ? ((Long) result).longValue() : -1L;
+    } catch (Exception exception) {
+      return -1L;
+    }
+  }
+
+  /**
+   * The statistics in which the measurements are recorded, or {@code null} if they are not
+   * recorded.
+   */
+  private PhaseStatistics statistics;
+
+  /**
+   * The name of the subject for which the computation is being performed.
+   */
+  private final String subject;
+
+  /**
+   * The names of the phases that have been completed. Only the first {@link #phaseCount} elements
+   * are valid.
+   */
+  private String[] phaseNames = new String[8];
+
+  /**
+   * The durations of the phases that have been completed, in nanoseconds.
+   */
+  private long[] durations = new long[8];
+
+  /**
+   * The number of bytes allocated by the phases that have been completed, or {@code -1} for the
+   * phases whose allocations are not known.
+   */
+  private long[] allocations = new long[8];
+
+  /**
+   * The number of phases that have been completed.
+   */
+  private int phaseCount = 0;
+
+  /**
+   * The value of {@link System#nanoTime()} when the previous phase was completed.
+   */
+  private long phaseStartTime;
+
+  /**
+   * The number of bytes allocated by the current thread when the previous phase was completed, or
+   * {@code -1} if allocations are not being measured.
+   */
+  private long phaseStartAllocation;
+
+  /**
+   * Initialize a newly created timer to measure the phases of a computation performed for the
+   * subject with the given name. The first phase starts when the timer is created.
+   *
+   * @param statistics the statistics in which the measurements are to be recorded when the
+   *          computation is finished, or {@code null} if they are not to be recorded
+   * @param subject the name of the subject for which the computation is being performed
+   */
+  public PhaseTimer(PhaseStatistics statistics, String subject) {
+    this.statistics = statistics;
+    this.subject = subject;
+    phaseStartAllocation = statistics == null ? -1L : getAllocatedBytes();
+    phaseStartTime = System.nanoTime();
+  }
+
+  /**
+   * Record that the phase with the given name has been completed, and that the next phase starts.
+   *
+   * @param phase the name of the phase that has been completed
+   * @return the duration of the phase, in nanoseconds
+   */
+  public long phaseComplete(String phase) {
+    long endTime = System.nanoTime();
+    long endAllocation = phaseStartAllocation < 0L ? -1L : getAllocatedBytes();
+    if (phaseCount == phaseNames.length) {
+      int length = phaseCount * 2;
+      phaseNames = Arrays.copyOf(phaseNames, length);
+      durations = Arrays.copyOf(durations, length);
+      allocations = Arrays.copyOf(allocations, length);
+    }
+    long duration = endTime - phaseStartTime;
+    phaseNames[phaseCount] = phase;
+    durations[phaseCount] = duration;
+    allocations[phaseCount] = endAllocation < 0L ? -1L : endAllocation - phaseStartAllocation;
+    phaseCount++;
+    phaseStartAllocation = endAllocation;
+    // Exclude the time spent measuring allocations from the next phase.
+    phaseStartTime = System.nanoTime();
+    return duration;
+  }
+
+  /**
+   * Record the measurements of the phases that have been completed in the statistics. The timer
+   * cannot be used after it has been stopped.
+   */
+  public void stop() {
+    if (statistics != null) {
+      statistics.record(subject, phaseNames, durations, allocations, phaseCount);
+      statistics = null;
+    }
+  }
+}
@@ -86,6 +86,15 @@ public class LineInfo {
     this.lineStarts = lineStarts;
   }
 
+  /**
+   * Return an array containing the offsets of the first character of each line in the source code.
+   * 
+   * @return the offsets of the first character of each line in the source code
+   */
+  public int[] getLineStarts() {
+    return lineStarts;
+  }
+
   /**
    * Return the location information for the character at the given offset.
    * 
@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2013, the Dart project authors.
+ *
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.ast.visitor;
+
+import com.google.dart.engine.ast.ASTNode;
+import com.google.dart.engine.ast.BinaryExpression;
+import com.google.dart.engine.ast.CompilationUnit;
+import com.google.dart.engine.ast.IntegerLiteral;
+import com.google.dart.engine.parser.ParserTestCase;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class FusedASTVisitorTest extends ParserTestCase {
+  /**
+   * Instances of the class {@code NodeRecorder} record the nodes they are given without visiting
+   * their children.
+   */
+  private static class NodeRecorder extends GeneralizingASTVisitor<Void> {
+    private final List<ASTNode> nodes;
+
+    public NodeRecorder(List<ASTNode> nodes) {
+      this.nodes = nodes;
+    }
+
+    @Override
+    public Void visitNode(ASTNode node) {
+      nodes.add(node);
+      return null;
+    }
+  }
+
+  public void test_override() throws Exception {
+    CompilationUnit unit = parseCompilationUnit(createSource(//
+        "f() {",
+        "  return 1 + 2;",
+        "}"));
+    final List<ASTNode> nodes = new ArrayList<ASTNode>();
+    FusedASTVisitor<Void> visitor = new FusedASTVisitor<Void>() {
+      @Override
+      public Void visitIntegerLiteral(IntegerLiteral node) {
+        nodes.add(node);
+        return super.visitIntegerLiteral(node);
+      }
+    };
+    visitor.addParticipant(new SimpleASTVisitor<Void>() {
+      @Override
+      public Void visitBinaryExpression(BinaryExpression node) {
+        nodes.add(node);
+        return null;
+      }
+
+      @Override
+      public Void visitIntegerLiteral(IntegerLiteral node) {
+        nodes.add(node);
+        return null;
+      }
+    });
+    unit.accept(visitor);
+    assertSize(5, nodes);
+    assertInstanceOf(BinaryExpression.class, nodes.get(0));
+    // an overriding visit method sees the node before the participants are given it
+    assertSame(nodes.get(1), nodes.get(2));
+    assertSame(nodes.get(3), nodes.get(4));
+    assertNotSame(nodes.get(1), nodes.get(3));
+  }
+
+  public void test_participants() throws Exception {
+    CompilationUnit unit = parseCompilationUnit(createSource(//
+        "class A {",
+        "  int f = 0;",
+        "  m(p) => p + f;",
+        "}"));
+    // a recursive traversal visits every node in the same order in which they are given to the
+    // participants of a fused traversal
+    final List<ASTNode> expectedNodes = new ArrayList<ASTNode>();
+    unit.accept(new GeneralizingASTVisitor<Void>() {
+      @Override
+      public Void visitNode(ASTNode node) {
+        expectedNodes.add(node);
+        return super.visitNode(node);
+      }
+    });
+    List<ASTNode> firstNodes = new ArrayList<ASTNode>();
+    List<ASTNode> secondNodes = new ArrayList<ASTNode>();
+    unit.accept(new FusedASTVisitor<Void>(
+        new NodeRecorder(firstNodes),
+        new NodeRecorder(secondNodes)));
+    assertEquals(expectedNodes, firstNodes);
+    assertEquals(expectedNodes, secondNodes);
+  }
+}
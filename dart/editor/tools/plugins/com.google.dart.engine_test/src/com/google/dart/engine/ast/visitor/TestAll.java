@@ -23,6 +23,7 @@ public class TestAll {
     TestSuite suite = new ExtendedTestSuite("Tests in " + TestAll.class.getPackage().getName());
     suite.addTestSuite(ConstantEvaluatorTest.class);
     suite.addTestSuite(ElementLocatorTest.class);
+    suite.addTestSuite(FusedASTVisitorTest.class);
     suite.addTestSuite(NodeLocatorTest.class);
     suite.addTestSuite(ToSourceVisitorTest.class);
     return suite;
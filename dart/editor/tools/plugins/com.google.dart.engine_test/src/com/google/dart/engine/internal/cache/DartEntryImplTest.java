@@ -14,12 +14,14 @@
 package com.google.dart.engine.internal.cache;
 
 import com.google.dart.engine.EngineTestCase;
+import com.google.dart.engine.ast.CompilationUnit;
 import com.google.dart.engine.error.AnalysisError;
 import com.google.dart.engine.internal.context.CacheState;
 import com.google.dart.engine.parser.ParserErrorCode;
 import com.google.dart.engine.source.Source;
 import com.google.dart.engine.source.TestSource;
 
+import static com.google.dart.engine.ast.ASTFactory.compilationUnit;
 import static com.google.dart.engine.utilities.io.FileUtilities2.createFile;
 
 public class DartEntryImplTest extends EngineTestCase {
@@ -36,6 +38,24 @@ public class DartEntryImplTest extends EngineTestCase {
     assertSame(CacheState.INVALID, info.getState(DartEntry.PUBLIC_NAMESPACE));
   }
 
+  public void test_flushAstStructures() throws Exception {
+    Source librarySource = new TestSource(null, createFile("/test.dart"), "");
+    CompilationUnit unit = compilationUnit();
+    DartEntryImpl info = new DartEntryImpl();
+    info.setValue(DartEntry.PARSED_UNIT, unit);
+    info.setValue(DartEntry.RESOLVED_UNIT, librarySource, unit);
+    info.flushAstStructures();
+    assertSame(CacheState.FLUSHED, info.getState(DartEntry.PARSED_UNIT));
+    assertSame(CacheState.FLUSHED, info.getState(DartEntry.RESOLVED_UNIT, librarySource));
+    assertEquals(0L, info.getEstimatedAstSize());
+  }
+
+  public void test_flushAstStructures_invalid() throws Exception {
+    DartEntryImpl info = new DartEntryImpl();
+    info.flushAstStructures();
+    assertSame(CacheState.INVALID, info.getState(DartEntry.PARSED_UNIT));
+  }
+
   public void test_isClient() throws Exception {
     DartEntryImpl info = new DartEntryImpl();
     // true
@@ -0,0 +1,64 @@
+/*
+ * Copyright (c) 2013, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.internal.cache;
+
+import com.google.dart.engine.EngineTestCase;
+import com.google.dart.engine.source.FileBasedSource;
+import com.google.dart.engine.source.Source;
+import com.google.dart.engine.source.SourceFactory;
+
+import static com.google.dart.engine.utilities.io.FileUtilities2.createFile;
+import static com.google.dart.engine.utilities.io.FileUtilities2.createTempDir;
+import static com.google.dart.engine.utilities.io.FileUtilities2.deleteTempDir;
+
+import java.io.File;
+
+public class FileBasedElementStoreTest extends EngineTestCase {
+  public void test_read_noData() throws Exception {
+    FileBasedElementStore store = new FileBasedElementStore(createTempDir("elements"));
+    assertNull(store.read(createLibrarySource("/lib.dart")));
+  }
+
+  public void test_remove() throws Exception {
+    FileBasedElementStore store = new FileBasedElementStore(createTempDir("elements"));
+    Source source = createLibrarySource("/lib.dart");
+    store.write(source, new byte[] {1, 2, 3});
+    store.remove(source);
+    assertNull(store.read(source));
+  }
+
+  public void test_write() throws Exception {
+    File directory = createTempDir("elements");
+    Source source = createLibrarySource("/lib.dart");
+    new FileBasedElementStore(directory).write(source, new byte[] {1, 2, 3});
+    // A new store using the same directory sees the data written by the first.
+    FileBasedElementStore store = new FileBasedElementStore(directory);
+    assertEquals(directory, store.getDirectory());
+    byte[] data = store.read(source);
+    assertNotNull(data);
+    assertEquals(3, data.length);
+    assertEquals(3, data[2]);
+    assertNull(store.read(createLibrarySource("/other.dart")));
+  }
+
+  @Override
+  protected void tearDown() throws Exception {
+    deleteTempDir();
+    super.tearDown();
+  }
+
+  private Source createLibrarySource(String path) {
+    return new FileBasedSource(new SourceFactory().getContentCache(), createFile(path));
+  }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2013, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.internal.context;
+
+import com.google.dart.engine.EngineTestCase;
+import com.google.dart.engine.context.AnalysisContextFactory;
+import com.google.dart.engine.context.ChangeSet;
+import com.google.dart.engine.source.FileBasedSource;
+import com.google.dart.engine.source.Source;
+import com.google.dart.engine.source.SourceFactory;
+import com.google.dart.engine.source.SourceKind;
+
+import static com.google.dart.engine.utilities.io.FileUtilities2.createFile;
+
+/**
+ * Instances of the class {@code AnalysisContextImplBenchmark} measure the time it takes an
+ * {@link AnalysisContextImpl} to reach quiescence (that is, for {@link #performAnalysisTask()} to
+ * return {@code null}) after a large synthetic workspace has been added to it. The benchmark is not
+ * part of {@link TestAll} because of how long it takes to run.
+ */
+public class AnalysisContextImplBenchmark extends EngineTestCase {
+  /**
+   * The number of libraries in the synthetic workspace.
+   */
+  private static final int LIBRARY_COUNT = 5000;
+
+  public void test_timeToQuiescence() throws Exception {
+    AnalysisContextImpl context = AnalysisContextFactory.contextWithCore();
+    SourceFactory sourceFactory = context.getSourceFactory();
+    ChangeSet changeSet = new ChangeSet();
+    Source[] sources = new Source[LIBRARY_COUNT];
+    for (int i = 0; i < LIBRARY_COUNT; i++) {
+      sources[i] = new FileBasedSource(
+          sourceFactory.getContentCache(),
+          createFile("/workspace/lib" + i + ".dart"));
+      sourceFactory.setContents(sources[i], createLibrary(i));
+      changeSet.added(sources[i]);
+    }
+    context.applyChanges(changeSet);
+
+    long startTime = System.currentTimeMillis();
+    int taskCount = 0;
+    while (context.performAnalysisTask() != null) {
+      taskCount++;
+    }
+    long elapsedTime = System.currentTimeMillis() - startTime;
+    System.out.println("Analyzed " + LIBRARY_COUNT + " libraries in " + elapsedTime + " ms ("
+        + taskCount + " tasks)");
+
+    for (Source source : sources) {
+      assertSame(SourceKind.LIBRARY, context.getKindOf(source));
+      assertNotNull(context.getLibraryElement(source));
+    }
+  }
+
+  /**
+   * Return the contents of the library with the given index. Each library imports the library whose
+   * index is half of its own, so that the libraries form a balanced import tree.
+   * 
+   * @param index the index of the library being created
+   * @return the contents of the library with the given index
+   */
+  private String createLibrary(int index) {
+    if (index == 0) {
+      return createSource(//
+          "library lib0;",
+          "class C0 {}");
+    }
+    int parent = index / 2;
+    return createSource(//
+        "library lib" + index + ";",
+        "import 'lib" + parent + ".dart';",
+        "class C" + index + " extends C" + parent + " {",
+        "  int m" + index + "() => 0;",
+        "}");
+  }
+}
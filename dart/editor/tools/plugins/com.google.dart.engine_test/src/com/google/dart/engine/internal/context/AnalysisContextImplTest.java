@@ -29,7 +29,12 @@ import com.google.dart.engine.element.LibraryElement;
 import com.google.dart.engine.element.PropertyAccessorElement;
 import com.google.dart.engine.error.AnalysisError;
 import com.google.dart.engine.html.ast.HtmlUnit;
+import com.google.dart.engine.internal.cache.CacheStatistics;
+import com.google.dart.engine.internal.cache.MemoryElementStore;
+import com.google.dart.engine.internal.cache.SizeBasedEvictionPolicy;
+import com.google.dart.engine.internal.cache.SourceCountEvictionPolicy;
 import com.google.dart.engine.internal.scope.Namespace;
+import com.google.dart.engine.source.DartUriResolver;
 import com.google.dart.engine.source.FileBasedSource;
 import com.google.dart.engine.source.FileUriResolver;
 import com.google.dart.engine.source.Source;
@@ -107,6 +112,30 @@ public class AnalysisContextImplTest extends EngineTestCase {
     assertSame(declarationElement, ((PropertyAccessorElement) useElement).getVariable());
   }
 
+  public void test_applyChanges_add_inheritanceCache() throws Exception {
+    context = AnalysisContextFactory.contextWithCore();
+    sourceFactory = context.getSourceFactory();
+    Source librarySource = addSource("/lib.dart", createSource(//
+        "library lib;",
+        "class A {",
+        "  m() {}",
+        "}",
+        "class B extends A {}"));
+    // The members inherited by classes of another library are shared with other libraries.
+    Source mainSource = addSource("/main.dart", createSource(//
+        "library main;",
+        "import 'lib.dart';",
+        "class C extends B {",
+        "  n() => m();",
+        "}"));
+    context.computeLibraryElement(mainSource);
+    ClassElement classB = context.computeLibraryElement(librarySource).getType("B");
+    assertNotNull(context.getInheritanceCache().getClassChainLookupMap(classB));
+    // Adding a source invalidates the library, so its classes must no longer be retained.
+    addSource("/other.dart", "library other;");
+    assertNull(context.getInheritanceCache().getClassChainLookupMap(classB));
+  }
+
   public void test_applyChanges_empty() {
     context.applyChanges(new ChangeSet());
     assertNull(context.performAnalysisTask());
@@ -204,6 +233,38 @@ public class AnalysisContextImplTest extends EngineTestCase {
     assertNotNull(info);
   }
 
+  public void test_getCacheStatistics() throws Exception {
+    Source source = addSource("/lib.dart", "library lib;");
+    CacheStatistics statistics = context.getCacheStatistics();
+    assertEquals(0, statistics.getHitCount());
+    assertEquals(0, statistics.getMissCount());
+    assertEquals(0, statistics.getSourceCount());
+    context.parseCompilationUnit(source);
+    context.parseCompilationUnit(source);
+    statistics = context.getCacheStatistics();
+    assertEquals(1, statistics.getHitCount());
+    assertEquals(1, statistics.getMissCount());
+    assertEquals(0, statistics.getFlushCount());
+    assertEquals(1, statistics.getSourceCount());
+    assertTrue(statistics.getEstimatedSize() > 0L);
+  }
+
+  public void test_getCacheStatistics_invalidated() throws Exception {
+    context = AnalysisContextFactory.contextWithCore();
+    sourceFactory = context.getSourceFactory();
+    Source librarySource = addSource("/lib.dart", createSource(//
+        "library lib;",
+        "part 'part.dart';"));
+    Source partSource = addSource("/part.dart", "part of lib;");
+    context.resolveCompilationUnit(librarySource, librarySource);
+    context.resolveCompilationUnit(partSource, librarySource);
+    assertTrue(context.getCacheStatistics().getEstimatedSize() > 0L);
+    // Changing the part invalidates the resolved unit of the library without accessing it, and the
+    // parsed unit of the library was flushed when it was resolved, so no AST is cached.
+    context.setContents(partSource, "part of lib; class A {}");
+    assertEquals(0L, context.getCacheStatistics().getEstimatedSize());
+  }
+
   public void test_getElement() throws Exception {
     context = AnalysisContextFactory.contextWithCore();
     sourceFactory = context.getSourceFactory();
@@ -474,6 +535,44 @@ public class AnalysisContextImplTest extends EngineTestCase {
     fail("Did not finish analysis after " + maxCount + " iterations");
   }
 
+  public void test_performAnalysisTask_priority() throws Exception {
+    context = AnalysisContextFactory.contextWithCore();
+    sourceFactory = context.getSourceFactory();
+    Source sourceA = addSource("/a.dart", "library a;");
+    Source sourceB = addSource("/b.dart", "library b;");
+    context.setContents(sourceB, "library b; class B {}");
+
+    // The first task parses the overridden source and the second resolves it.
+    context.performAnalysisTask();
+    assertSame(SourceKind.LIBRARY, context.getKindOf(sourceB));
+    context.performAnalysisTask();
+    assertNotNull(context.getLibraryElement(sourceB));
+    assertSame(SourceKind.UNKNOWN, context.getKindOf(sourceA));
+  }
+
+  public void test_performAnalysisTask_workers() throws Exception {
+    context = AnalysisContextFactory.contextWithCore();
+    sourceFactory = context.getSourceFactory();
+    context.setWorkerCount(4);
+    Source[] librarySources = new Source[10];
+    for (int i = 0; i < librarySources.length; i++) {
+      librarySources[i] = addSource("/lib" + i + ".dart", "library lib" + i + ";");
+    }
+    Source partSource = addSource("/part.dart", "part of lib0;");
+
+    int maxCount = 100;
+    for (int count = 0; count < maxCount; count++) {
+      if (context.performAnalysisTask() == null) {
+        for (Source librarySource : librarySources) {
+          assertSame(SourceKind.LIBRARY, context.getKindOf(librarySource));
+        }
+        assertSame(SourceKind.PART, context.getKindOf(partSource));
+        return;
+      }
+    }
+    fail("Did not finish analysis after " + maxCount + " iterations");
+  }
+
   public void test_resolveCompilationUnit_library() throws Exception {
     context = AnalysisContextFactory.contextWithCore();
     sourceFactory = context.getSourceFactory();
@@ -497,6 +596,133 @@ public class AnalysisContextImplTest extends EngineTestCase {
     assertNotNull(unit);
   }
 
+  public void test_setCacheEvictionPolicy_count() throws Exception {
+    context.setCacheEvictionPolicy(new SourceCountEvictionPolicy(2));
+    Source source1 = addSource("/lib1.dart", "library lib1;");
+    Source source2 = addSource("/lib2.dart", "library lib2;");
+    Source source3 = addSource("/lib3.dart", "library lib3;");
+    context.parseCompilationUnit(source1);
+    context.parseCompilationUnit(source2);
+    context.parseCompilationUnit(source3);
+    CacheStatistics statistics = context.getCacheStatistics();
+    assertEquals(1, statistics.getFlushCount());
+    assertEquals(2, statistics.getSourceCount());
+    // The least recently used source was flushed and must be parsed again.
+    assertNotNull(context.parseCompilationUnit(source1));
+    assertEquals(4, context.getCacheStatistics().getMissCount());
+    assertNotNull(context.parseCompilationUnit(source3));
+    assertEquals(1, context.getCacheStatistics().getHitCount());
+  }
+
+  public void test_setCacheEvictionPolicy_size() throws Exception {
+    Source source1 = addSource("/lib1.dart", "library lib1;");
+    Source source2 = addSource("/lib2.dart", "library lib2;");
+    context.parseCompilationUnit(source1);
+    context.parseCompilationUnit(source2);
+    CacheStatistics statistics = context.getCacheStatistics();
+    assertEquals(2, statistics.getSourceCount());
+    // Shrinking the budget flushes all but the most recently used source.
+    context.setCacheEvictionPolicy(new SizeBasedEvictionPolicy(1L));
+    statistics = context.getCacheStatistics();
+    assertEquals(1, statistics.getFlushCount());
+    assertEquals(1, statistics.getSourceCount());
+    assertNotNull(context.parseCompilationUnit(source2));
+    assertEquals(1, context.getCacheStatistics().getHitCount());
+  }
+
+  public void test_setChangedContents() throws Exception {
+    String oldContents = createSource(//
+        "library lib;",
+        "int f() => 1;");
+    Source source = addSource("/lib.dart", oldContents);
+    context.parseCompilationUnit(source);
+    // two edits are recorded before the contents are scanned again
+    int offset = oldContents.indexOf("1;") + 1;
+    String contents = oldContents.substring(0, offset) + " + 2" + oldContents.substring(offset);
+    context.setChangedContents(source, contents, offset, 0, 4);
+    String addedText = "\nint g() => 3;";
+    offset = contents.length();
+    contents = contents + addedText;
+    context.setChangedContents(source, contents, offset, 0, addedText.length());
+    CompilationUnit unit = context.parseCompilationUnit(source);
+    assertEquals(2, unit.getDeclarations().size());
+    assertEquals(contents.indexOf("int g"), unit.getDeclarations().get(1).getOffset());
+    assertEquals("2", unit.getDeclarations().get(0).getEndToken().getPrevious().getLexeme());
+    // a change whose lengths do not match the contents is handled as an unknown change
+    contents = contents.replace("int g", "int gg");
+    context.setChangedContents(source, contents, 0, 0, 0);
+    unit = context.parseCompilationUnit(source);
+    assertEquals(contents.indexOf("int gg"), unit.getDeclarations().get(1).getOffset());
+  }
+
+  public void test_setContents_incrementalResolution() throws Exception {
+    context = AnalysisContextFactory.contextWithCore();
+    sourceFactory = context.getSourceFactory();
+    Source librarySource = addSource("/lib.dart", createSource(//
+        "library lib;",
+        "import 'other.dart';",
+        "int f() {",
+        "  return 1;",
+        "}",
+        "int g() => f();"));
+    Source otherSource = addSource("/other.dart", createSource(//
+        "library other;",
+        "int h() => 0;"));
+    context.computeLibraryElement(librarySource);
+    CompilationUnit unit = context.resolveCompilationUnit(librarySource, librarySource);
+    CompilationUnit otherUnit = context.resolveCompilationUnit(otherSource, otherSource);
+    int oldOffset = unit.getDeclarations().get(1).getOffset();
+    // an edit within a function body replaces the resolved compilation unit without modifying it
+    String contents = createSource(//
+        "library lib;",
+        "import 'other.dart';",
+        "int f() {",
+        "  return h() + x;",
+        "}",
+        "int g() => f();");
+    context.setContents(librarySource, contents);
+    CompilationUnit newUnit = context.getResolvedCompilationUnit(librarySource, librarySource);
+    assertNotNull(newUnit);
+    assertNotSame(unit, newUnit);
+    assertSame(otherUnit, context.getResolvedCompilationUnit(otherSource, otherSource));
+    assertEquals(oldOffset, unit.getDeclarations().get(1).getOffset());
+    assertEquals(contents.indexOf("int g"), newUnit.getDeclarations().get(1).getOffset());
+    assertNotNull(newUnit.getDeclarations().get(1).getElement());
+    AnalysisError[] errors = context.getErrors(librarySource).getErrors();
+    assertLength(1, errors);
+    assertEquals(contents.indexOf("x;"), errors[0].getOffset());
+    LineInfo lineInfo = context.getLineInfo(librarySource);
+    assertEquals(6, lineInfo.getLocation(contents.indexOf("int g")).getLineNumber());
+    // an edit outside of any function body invalidates the results
+    context.setContents(librarySource, contents.replace("int g", "int gg"));
+    assertNull(context.getResolvedCompilationUnit(librarySource, librarySource));
+  }
+
+  public void test_setContents_incrementalScan() throws Exception {
+    Source source = addSource("/lib.dart", createSource(//
+        "library lib;",
+        "int f() => 1;"));
+    context.parseCompilationUnit(source);
+    String contents = createSource(//
+        "library lib;",
+        "int f() => 1 + 2;",
+        "int g() => 3;");
+    context.setContents(source, contents);
+    CompilationUnit unit = context.parseCompilationUnit(source);
+    assertEquals(2, unit.getDeclarations().size());
+    assertEquals(contents.indexOf("int g"), unit.getDeclarations().get(1).getOffset());
+    LineInfo lineInfo = context.getLineInfo(source);
+    assertEquals(3, lineInfo.getLocation(contents.indexOf("int g")).getLineNumber());
+    // scanner errors are reported, and the contents are fully scanned once they are fixed
+    context.setContents(source, "library lib;\nString s = 'a;");
+    context.parseCompilationUnit(source);
+    assertTrue(context.getErrors(source).getErrors().length > 0);
+    context.setContents(source, "library lib;\nString s = 'a';");
+    unit = context.parseCompilationUnit(source);
+    assertLength(0, context.getErrors(source).getErrors());
+    assertEquals("'a'", unit.getEndToken().getPrevious().getPrevious().getLexeme());
+  }
+
   public void test_setContents_libraryWithPart() throws Exception {
     context = AnalysisContextFactory.contextWithCore();
     sourceFactory = context.getSourceFactory();
@@ -516,6 +742,68 @@ public class AnalysisContextImplTest extends EngineTestCase {
     assertNull(context.getResolvedCompilationUnit(partSource, librarySource));
   }
 
+  public void test_setElementStore_changedSource() throws Exception {
+    MemoryElementStore store = new MemoryElementStore();
+    context = AnalysisContextFactory.contextWithCore();
+    context.setElementStore(store);
+    sourceFactory = context.getSourceFactory();
+    Source source = addSource("/lib.dart", createSource(//
+        "library lib;",
+        "int f() => 0;"));
+    context.computeLibraryElement(source);
+    byte[] data = store.read(source);
+    assertNotNull(data);
+
+    context = AnalysisContextFactory.contextWithCore();
+    context.setElementStore(store);
+    sourceFactory = context.getSourceFactory();
+    source = addSource("/lib.dart", createSource(//
+        "library lib;",
+        "int g() => 0;"));
+    LibraryElement element = context.computeLibraryElement(source);
+    assertEquals("g", element.getDefiningCompilationUnit().getFunctions()[0].getName());
+    assertNotNull(context.getResolvedCompilationUnit(source, source));
+    assertNotSame(data, store.read(source));
+  }
+
+  public void test_setElementStore_loaded() throws Exception {
+    MemoryElementStore store = new MemoryElementStore();
+    String contents = createSource(//
+        "library lib;",
+        "import 'other.dart';",
+        "class A extends B {",
+        "  int f() => undefined;",
+        "}");
+    context = AnalysisContextFactory.contextWithCore();
+    context.setElementStore(store);
+    assertSame(store, context.getElementStore());
+    sourceFactory = context.getSourceFactory();
+    Source source = addSource("/lib.dart", contents);
+    addSource("/other.dart", "library other; class B {}");
+    LibraryElement element = context.computeLibraryElement(source);
+    AnalysisError[] errors = context.computeErrors(source);
+    assertLength(1, errors);
+    assertEquals(2, store.getLibraryCount());
+
+    context = AnalysisContextFactory.contextWithCore();
+    context.setElementStore(store);
+    sourceFactory = context.getSourceFactory();
+    source = addSource("/lib.dart", contents);
+    addSource("/other.dart", "library other; class B {}");
+    LibraryElement loadedElement = context.computeLibraryElement(source);
+    assertNotNull(loadedElement);
+    assertNull(context.getResolvedCompilationUnit(source, source));
+    ClassElement classA = findClass(loadedElement.getDefiningCompilationUnit(), "A");
+    assertEquals("B", classA.getSupertype().getName());
+    assertEquals(element.getLocation(), loadedElement.getLocation());
+    AnalysisError[] loadedErrors = context.computeErrors(source);
+    assertLength(1, loadedErrors);
+    assertSame(errors[0].getErrorCode(), loadedErrors[0].getErrorCode());
+    assertEquals(errors[0].getOffset(), loadedErrors[0].getOffset());
+    // Units are still resolved on demand.
+    assertNotNull(context.resolveCompilationUnit(source, loadedElement));
+  }
+
   public void test_setSourceFactory() {
     assertEquals(sourceFactory, context.getSourceFactory());
     SourceFactory factory = new SourceFactory();
@@ -523,6 +811,57 @@ public class AnalysisContextImplTest extends EngineTestCase {
     assertEquals(factory, context.getSourceFactory());
   }
 
+  public void test_setSourceFactory_estimatedSize() throws Exception {
+    context = AnalysisContextFactory.contextWithCore();
+    sourceFactory = context.getSourceFactory();
+    Source source = addSource("/lib.dart", createSource(//
+        "library lib;",
+        "int f() => 0;"));
+    context.resolveCompilationUnit(source, source);
+    long resolvedSize = context.getCacheStatistics().getEstimatedSize();
+    assertTrue(resolvedSize > 0L);
+    context.setSourceFactory(new SourceFactory(
+        new DartUriResolver(sourceFactory.getDartSdk()),
+        new FileUriResolver()));
+    // The resolved unit, which was the only AST structure cached, is no longer counted.
+    CacheStatistics statistics = context.getCacheStatistics();
+    assertEquals(1, statistics.getSourceCount());
+    assertEquals(0L, statistics.getEstimatedSize());
+  }
+
+  public void test_setSourceFactory_inheritanceCache() throws Exception {
+    context = AnalysisContextFactory.contextWithCore();
+    sourceFactory = context.getSourceFactory();
+    Source librarySource = addSource("/lib.dart", createSource(//
+        "library lib;",
+        "class A {",
+        "  m() {}",
+        "}",
+        "class B extends A {}"));
+    // The members inherited by classes of another library are shared with other libraries.
+    Source mainSource = addSource("/main.dart", createSource(//
+        "library main;",
+        "import 'lib.dart';",
+        "class C extends B {",
+        "  n() => m();",
+        "}"));
+    context.computeLibraryElement(mainSource);
+    ClassElement classB = context.computeLibraryElement(librarySource).getType("B");
+    assertNotNull(context.getInheritanceCache().getClassChainLookupMap(classB));
+    context.setSourceFactory(new SourceFactory(
+        new DartUriResolver(sourceFactory.getDartSdk()),
+        new FileUriResolver()));
+    assertNull(context.getInheritanceCache().getClassChainLookupMap(classB));
+  }
+
+  public void test_setWorkerCount() {
+    assertEquals(1, context.getWorkerCount());
+    context.setWorkerCount(4);
+    assertEquals(4, context.getWorkerCount());
+    context.setWorkerCount(0);
+    assertEquals(1, context.getWorkerCount());
+  }
+
   private Source addSource(String fileName, String contents) {
     Source source = new FileBasedSource(sourceFactory.getContentCache(), createFile(fileName));
     sourceFactory.setContents(source, contents);
@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2013, the Dart project authors.
+ *
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.internal.context;
+
+import com.google.dart.engine.EngineTestCase;
+import com.google.dart.engine.context.ChangeSet;
+import com.google.dart.engine.source.FileBasedSource;
+import com.google.dart.engine.source.FileUriResolver;
+import com.google.dart.engine.source.Source;
+import com.google.dart.engine.source.SourceFactory;
+
+import static com.google.dart.engine.utilities.io.FileUtilities2.createFile;
+
+import java.util.Set;
+
+public class LibrarySignatureComputerTest extends EngineTestCase {
+  private AnalysisContextImpl context;
+
+  private SourceFactory sourceFactory;
+
+  private ChangeSet changeSet;
+
+  @Override
+  public void setUp() {
+    context = new AnalysisContextImpl();
+    sourceFactory = new SourceFactory(new FileUriResolver());
+    context.setSourceFactory(sourceFactory);
+    changeSet = new ChangeSet();
+  }
+
+  public void test_getLibrariesInCycle() throws Exception {
+    Source sourceA = addSource("/a.dart", "library a; import 'b.dart';");
+    Source sourceB = addSource("/b.dart", "library b; import 'c.dart';");
+    Source sourceC = addSource("/c.dart", "library c; import 'a.dart'; import 'd.dart';");
+    Source sourceD = addSource("/d.dart", "library d;");
+    context.applyChanges(changeSet);
+    LibrarySignatureComputer computer = new LibrarySignatureComputer(context);
+    Set<Source> cycle = computer.getLibrariesInCycle(sourceA);
+    assertSize(3, cycle);
+    assertTrue(cycle.contains(sourceB));
+    assertTrue(cycle.contains(sourceC));
+    assertSame(cycle, computer.getLibrariesInCycle(sourceC));
+    assertSize(1, computer.getLibrariesInCycle(sourceD));
+    assertEquals(computer.getSignature(sourceA), computer.getSignature(sourceB));
+    assertFalse(computer.getSignature(sourceA).equals(computer.getSignature(sourceD)));
+  }
+
+  public void test_getSignature_longImportChain() throws Exception {
+    // Each library imports the next one, which is deeper than the call stack could recurse.
+    int libraryCount = 20000;
+    Source firstSource = null;
+    for (int i = 0; i < libraryCount; i++) {
+      String contents = "library lib" + i + ";";
+      if (i < libraryCount - 1) {
+        contents += " import 'lib" + (i + 1) + ".dart';";
+      }
+      Source source = addSource("/lib" + i + ".dart", contents);
+      if (firstSource == null) {
+        firstSource = source;
+      }
+    }
+    context.applyChanges(changeSet);
+    LibrarySignatureComputer computer = new LibrarySignatureComputer(context);
+    assertNotNull(computer.getSignature(firstSource));
+    assertSize(1, computer.getLibrariesInCycle(firstSource));
+  }
+
+  private Source addSource(String fileName, String contents) {
+    Source source = new FileBasedSource(sourceFactory.getContentCache(), createFile(fileName));
+    sourceFactory.setContents(source, contents);
+    changeSet.added(source);
+    return source;
+  }
+}
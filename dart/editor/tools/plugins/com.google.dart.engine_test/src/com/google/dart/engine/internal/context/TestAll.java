@@ -22,6 +22,8 @@ public class TestAll {
   public static Test suite() {
     TestSuite suite = new ExtendedTestSuite("Tests in " + TestAll.class.getPackage().getName());
     suite.addTestSuite(AnalysisContextImplTest.class);
+    suite.addTestSuite(LibrarySignatureComputerTest.class);
+    suite.addTestSuite(WorkManagerTest.class);
     return suite;
   }
 }
@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2013, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.internal.context;
+
+import com.google.dart.engine.EngineTestCase;
+import com.google.dart.engine.source.FileBasedSource;
+import com.google.dart.engine.source.Source;
+import com.google.dart.engine.source.SourceFactory;
+
+import static com.google.dart.engine.utilities.io.FileUtilities2.createFile;
+
+public class WorkManagerTest extends EngineTestCase {
+  public void test_add_duplicate() {
+    WorkManager manager = new WorkManager();
+    Source source = createFileSource("/test.dart");
+    manager.add(source, SourcePriority.DART_PARSE);
+    manager.add(source, SourcePriority.DART_PARSE);
+    assertEquals(1, manager.size(SourcePriority.DART_PARSE));
+  }
+
+  public void test_creation() {
+    WorkManager manager = new WorkManager();
+    assertTrue(manager.isEmpty());
+    assertNull(manager.removeFirst(SourcePriority.DART_PARSE));
+    assertLength(0, manager.getSources(SourcePriority.PRIORITY));
+  }
+
+  public void test_getSources() {
+    WorkManager manager = new WorkManager();
+    Source source1 = createFileSource("/test1.dart");
+    Source source2 = createFileSource("/test2.dart");
+    manager.add(source1, SourcePriority.PRIORITY);
+    manager.add(source2, SourcePriority.PRIORITY);
+    Source[] sources = manager.getSources(SourcePriority.PRIORITY);
+    assertLength(2, sources);
+    assertSame(source1, sources[0]);
+    assertSame(source2, sources[1]);
+    // getting the sources does not remove them
+    assertEquals(2, manager.size(SourcePriority.PRIORITY));
+  }
+
+  public void test_remove() {
+    WorkManager manager = new WorkManager();
+    Source source = createFileSource("/test.dart");
+    manager.add(source, SourcePriority.DART_PARSE);
+    manager.add(source, SourcePriority.LIBRARY_RESOLUTION);
+    manager.remove(source);
+    assertTrue(manager.isEmpty());
+  }
+
+  public void test_remove_priority() {
+    WorkManager manager = new WorkManager();
+    Source source = createFileSource("/test.dart");
+    manager.add(source, SourcePriority.DART_PARSE);
+    manager.add(source, SourcePriority.LIBRARY_RESOLUTION);
+    manager.remove(source, SourcePriority.DART_PARSE);
+    assertEquals(0, manager.size(SourcePriority.DART_PARSE));
+    assertEquals(1, manager.size(SourcePriority.LIBRARY_RESOLUTION));
+  }
+
+  public void test_removeFirst() {
+    WorkManager manager = new WorkManager();
+    Source source1 = createFileSource("/test1.dart");
+    Source source2 = createFileSource("/test2.dart");
+    manager.add(source1, SourcePriority.HTML);
+    manager.add(source2, SourcePriority.HTML);
+    assertSame(source1, manager.removeFirst(SourcePriority.HTML));
+    assertSame(source2, manager.removeFirst(SourcePriority.HTML));
+    assertNull(manager.removeFirst(SourcePriority.HTML));
+    assertTrue(manager.isEmpty());
+  }
+
+  private Source createFileSource(String fileName) {
+    return new FileBasedSource(new SourceFactory().getContentCache(), createFile(fileName));
+  }
+}
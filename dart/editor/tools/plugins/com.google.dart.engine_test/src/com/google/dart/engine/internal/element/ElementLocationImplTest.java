@@ -56,6 +56,17 @@ public class ElementLocationImplTest extends EngineTestCase {
     assertEquals("c", components[2]);
   }
 
+  public void test_getComponents_emptyLast() {
+    String encoding = "a;b;";
+    ElementLocationImpl location = new ElementLocationImpl(encoding);
+    String[] components = location.getComponents();
+    assertLength(3, components);
+    assertEquals("a", components[0]);
+    assertEquals("b", components[1]);
+    assertEquals("", components[2]);
+    assertEquals(encoding, location.getEncoding());
+  }
+
   public void test_getEncoding() {
     String encoding = "a;b;c;;d";
     ElementLocationImpl location = new ElementLocationImpl(encoding);
@@ -0,0 +1,217 @@
+/*
+ * Copyright (c) 2013, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.internal.element;
+
+import com.google.dart.engine.EngineTestCase;
+import com.google.dart.engine.context.AnalysisContextFactory;
+import com.google.dart.engine.context.AnalysisException;
+import com.google.dart.engine.element.ClassElement;
+import com.google.dart.engine.element.Element;
+import com.google.dart.engine.element.ExecutableElement;
+import com.google.dart.engine.element.FunctionTypeAliasElement;
+import com.google.dart.engine.element.LibraryElement;
+import com.google.dart.engine.element.VariableElement;
+import com.google.dart.engine.element.visitor.GeneralizingElementVisitor;
+import com.google.dart.engine.error.AnalysisError;
+import com.google.dart.engine.error.StaticWarningCode;
+import com.google.dart.engine.internal.context.AnalysisContextImpl;
+import com.google.dart.engine.source.FileBasedSource;
+import com.google.dart.engine.source.Source;
+import com.google.dart.engine.source.SourceFactory;
+
+import static com.google.dart.engine.utilities.io.FileUtilities2.createFile;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+
+public class ElementWriterTest extends EngineTestCase {
+  /**
+   * Instances of the class {@code ElementDumper} write a textual description of an element
+   * structure that includes the information that is expected to survive being persisted.
+   */
+  private static class ElementDumper extends GeneralizingElementVisitor<Void> {
+    private StringBuilder builder = new StringBuilder();
+
+    private int indent = 0;
+
+    public String getResult() {
+      return builder.toString();
+    }
+
+    @Override
+    public Void visitElement(Element element) {
+      for (int i = 0; i < indent; i++) {
+        builder.append("  ");
+      }
+      builder.append(element.getKind());
+      builder.append(" ");
+      builder.append(element.getDisplayName());
+      builder.append(" @");
+      builder.append(element.getNameOffset());
+      if (element instanceof ClassElement) {
+        builder.append(" extends ");
+        builder.append(((ClassElement) element).getSupertype());
+      } else if (element instanceof ExecutableElement) {
+        builder.append(" : ");
+        builder.append(((ExecutableElement) element).getType());
+      } else if (element instanceof FunctionTypeAliasElement) {
+        builder.append(" : ");
+        builder.append(((FunctionTypeAliasElement) element).getType());
+      } else if (element instanceof VariableElement) {
+        builder.append(" : ");
+        builder.append(((VariableElement) element).getType());
+      }
+      builder.append("\n");
+      indent++;
+      super.visitElement(element);
+      indent--;
+      return null;
+    }
+  }
+
+  public void test_readSignature_wrongVersion() {
+    assertNull(ElementReader.readSignature(new byte[] {0, 0, 0, 0}));
+  }
+
+  public void test_write_cycle() throws Exception {
+    String[] paths = {"/a.dart", "/b.dart"};
+    String[] contents = {
+        createSource(//
+            "library a;",
+            "import 'b.dart';",
+            "class A { B b; }"),
+        createSource(//
+            "library b;",
+            "import 'a.dart';",
+            "class B extends A {}")};
+    AnalysisContextImpl context = AnalysisContextFactory.contextWithCore();
+    Source[] sources = addSources(context, paths, contents);
+    LibraryElement libraryA = context.computeLibraryElement(sources[0]);
+    LibraryElement libraryB = context.computeLibraryElement(sources[1]);
+    ArrayList<byte[]> dataList = new ArrayList<byte[]>();
+    dataList.add(new ElementWriter(libraryA, "a").write(new HashMap<Source, AnalysisError[]>()));
+    dataList.add(new ElementWriter(libraryB, "b").write(new HashMap<Source, AnalysisError[]>()));
+
+    AnalysisContextImpl newContext = AnalysisContextFactory.contextWithCore();
+    Source[] newSources = addSources(newContext, paths, contents);
+    Map<Source, LibraryElement> libraries = new ElementReader(newContext).readLibraries(dataList);
+    assertEquals(dump(libraryA), dump(libraries.get(newSources[0])));
+    assertEquals(dump(libraryB), dump(libraries.get(newSources[1])));
+    ClassElement classB = libraries.get(newSources[1]).getDefiningCompilationUnit().getTypes()[0];
+    assertSame(
+        libraries.get(newSources[0]).getDefiningCompilationUnit().getTypes()[0],
+        classB.getSupertype().getElement());
+  }
+
+  public void test_write_errorResult() throws Exception {
+    AnalysisContextImpl context = AnalysisContextFactory.contextWithCore();
+    Source[] sources = addSources(context, new String[] {"/lib.dart"}, new String[] {createSource(//
+        "library lib;",
+        "const int x = 1 + 'a';")});
+    LibraryElement library = context.computeLibraryElement(sources[0]);
+    try {
+      new ElementWriter(library, "signature").write(new HashMap<Source, AnalysisError[]>());
+      fail("Expected AnalysisException");
+    } catch (AnalysisException exception) {
+      // Expected
+    }
+  }
+
+  public void test_write_library() throws Exception {
+    String[] paths = {"/lib.dart", "/part.dart", "/other.dart"};
+    String[] contents = {
+        createSource(//
+            "library lib;",
+            "import 'other.dart' as o show Other;",
+            "export 'other.dart' hide Hidden;",
+            "part 'part.dart';",
+            "const int ZERO = 0;",
+            "typedef int F<T>(T value, [int count]);",
+            "abstract class A<E extends num> extends o.Other implements Comparable<A> {",
+            "  static const String NAME = 'a';",
+            "  final E value;",
+            "  A(this.value);",
+            "  A.named() : this(null);",
+            "  E get first => value;",
+            "  set first(E newValue) {}",
+            "  int operator -() => 0;",
+            "  E m({int x: ZERO}) {",
+            "    label: for (var i = 0; i < 1; i++) {",
+            "      int local(E p) => 0;",
+            "      continue label;",
+            "    }",
+            "    return value;",
+            "  }",
+            "}"),
+        createSource(//
+            "part of lib;",
+            "int f(F callback) => callback(null);"),
+        createSource(//
+            "library other;",
+            "class Other {}",
+            "class Hidden {}")};
+    AnalysisContextImpl context = AnalysisContextFactory.contextWithCore();
+    Source[] sources = addSources(context, paths, contents);
+    LibraryElement library = context.computeLibraryElement(sources[0]);
+    HashMap<Source, AnalysisError[]> errorMap = new HashMap<Source, AnalysisError[]>();
+    errorMap.put(sources[0], new AnalysisError[] {new AnalysisError(
+        sources[0],
+        3,
+        4,
+        StaticWarningCode.UNDEFINED_IDENTIFIER,
+        "x")});
+    errorMap.put(sources[1], AnalysisError.NO_ERRORS);
+    byte[] data = new ElementWriter(library, "signature").write(errorMap);
+    assertEquals("signature", ElementReader.readSignature(data));
+
+    AnalysisContextImpl newContext = AnalysisContextFactory.contextWithCore();
+    Source[] newSources = addSources(newContext, paths, contents);
+    ElementReader reader = new ElementReader(newContext);
+    ArrayList<byte[]> dataList = new ArrayList<byte[]>();
+    dataList.add(data);
+    Map<Source, LibraryElement> libraries = reader.readLibraries(dataList);
+    LibraryElement newLibrary = libraries.get(newSources[0]);
+    assertNotNull(newLibrary);
+    assertEquals(dump(library), dump(newLibrary));
+    assertSame(newContext.getLibraryElement(newSources[2]), newLibrary.getImports()[0].getImportedLibrary());
+    assertEquals(library.getEntryPoint(), newLibrary.getEntryPoint());
+
+    Map<Source, AnalysisError[]> newErrorMap = reader.getErrors(newSources[0]);
+    assertEquals(2, newErrorMap.size());
+    assertLength(0, newErrorMap.get(newSources[1]));
+    AnalysisError[] errors = newErrorMap.get(newSources[0]);
+    assertLength(1, errors);
+    assertSame(StaticWarningCode.UNDEFINED_IDENTIFIER, errors[0].getErrorCode());
+    assertEquals(errorMap.get(sources[0])[0].getMessage(), errors[0].getMessage());
+    assertEquals(3, errors[0].getOffset());
+    assertEquals(4, errors[0].getLength());
+  }
+
+  private Source[] addSources(AnalysisContextImpl context, String[] paths, String[] contents) {
+    SourceFactory sourceFactory = context.getSourceFactory();
+    Source[] sources = new Source[paths.length];
+    for (int i = 0; i < paths.length; i++) {
+      sources[i] = new FileBasedSource(sourceFactory.getContentCache(), createFile(paths[i]));
+      sourceFactory.setContents(sources[i], contents[i]);
+    }
+    return sources;
+  }
+
+  private String dump(LibraryElement library) {
+    ElementDumper dumper = new ElementDumper();
+    library.accept(dumper);
+    return dumper.getResult();
+  }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) 2013, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.internal.index;
+
+import com.google.common.base.Predicate;
+import com.google.common.collect.ImmutableList;
+import com.google.dart.engine.AnalysisEngine;
+import com.google.dart.engine.EngineTestCase;
+import com.google.dart.engine.ast.CompilationUnit;
+import com.google.dart.engine.context.AnalysisContext;
+import com.google.dart.engine.element.CompilationUnitElement;
+import com.google.dart.engine.element.Element;
+import com.google.dart.engine.element.LibraryElement;
+import com.google.dart.engine.index.IndexStore;
+import com.google.dart.engine.index.Relationship;
+import com.google.dart.engine.sdk.DartSdk;
+import com.google.dart.engine.sdk.DirectoryBasedDartSdk;
+import com.google.dart.engine.source.DartUriResolver;
+import com.google.dart.engine.source.FileUriResolver;
+import com.google.dart.engine.source.Source;
+import com.google.dart.engine.source.SourceFactory;
+import com.google.dart.engine.type.Type;
+import com.google.dart.engine.utilities.general.MemoryUtilities;
+
+import java.util.ArrayList;
+
+/**
+ * Instances of the class {@code CompactIndexStoreImplBenchmark} compare the memory used by a
+ * {@link MemoryIndexStoreImpl} and a {@link CompactIndexStoreImpl} that contain the index of the
+ * libraries in the Dart SDK, and the time taken to build and query them. The benchmark is not part
+ * of {@link TestAll} because of how long it takes to run.
+ */
+public class CompactIndexStoreImplBenchmark extends EngineTestCase {
+  /**
+   * A predicate that excludes the objects that are shared with the element model, so that only the
+   * memory used by the store itself is measured.
+   */
+  private static final Predicate<Object> IS_STORE_OBJECT = new Predicate<Object>() {
+    @Override
+    public boolean apply(Object object) {
+      return !(object instanceof Element || object instanceof AnalysisContext
+          || object instanceof Source || object instanceof Relationship
+          || object instanceof Type || object instanceof Class);
+    }
+  };
+
+  public void test_memoryUsage() throws Exception {
+    DartSdk sdk = DirectoryBasedDartSdk.getDefaultSdk();
+    SourceFactory sourceFactory = new SourceFactory(new DartUriResolver(sdk), new FileUriResolver());
+    AnalysisContext context = AnalysisEngine.getInstance().createAnalysisContext();
+    context.setSourceFactory(sourceFactory);
+    ArrayList<CompilationUnit> units = new ArrayList<CompilationUnit>();
+    ArrayList<Element> elements = new ArrayList<Element>();
+    for (String dartUri : sdk.getUris()) {
+      Source librarySource = sourceFactory.forUri(dartUri);
+      LibraryElement library = context.computeLibraryElement(librarySource);
+      for (CompilationUnitElement unitElement : getUnits(library)) {
+        units.add(context.resolveCompilationUnit(unitElement.getSource(), library));
+        elements.addAll(ImmutableList.copyOf(unitElement.getTypes()));
+        elements.addAll(ImmutableList.copyOf(unitElement.getFunctions()));
+        elements.addAll(ImmutableList.copyOf(unitElement.getAccessors()));
+      }
+    }
+    MemoryIndexStoreImpl memoryStore = new MemoryIndexStoreImpl();
+    CompactIndexStoreImpl compactStore = new CompactIndexStoreImpl();
+    long memoryIndexTime = indexUnits(memoryStore, units);
+    long compactIndexTime = indexUnits(compactStore, units);
+    long memoryQueryTime = queryElements(memoryStore, elements);
+    long compactQueryTime = queryElements(compactStore, elements);
+    long memorySize = MemoryUtilities.sizeOfGraph(memoryStore, IS_STORE_OBJECT);
+    long compactSize = MemoryUtilities.sizeOfGraph(compactStore, IS_STORE_OBJECT);
+    System.out.println("Indexed " + units.size() + " units: " + memoryStore.getStatistics());
+    System.out.println("MemoryIndexStoreImpl: " + memorySize + " bytes, indexed in "
+        + memoryIndexTime + " ms, queried in " + memoryQueryTime + " ms");
+    System.out.println("CompactIndexStoreImpl: " + compactSize + " bytes, indexed in "
+        + compactIndexTime + " ms, queried in " + compactQueryTime + " ms");
+    // both stores must contain the same relationships
+    for (Element element : elements) {
+      for (Relationship relationship : Relationship.values()) {
+        assertEquals(
+            ImmutableList.copyOf(memoryStore.getRelationships(element, relationship)),
+            ImmutableList.copyOf(compactStore.getRelationships(element, relationship)));
+      }
+    }
+  }
+
+  /**
+   * Return the compilation units in the given library.
+   */
+  private ArrayList<CompilationUnitElement> getUnits(LibraryElement library) {
+    ArrayList<CompilationUnitElement> unitElements = new ArrayList<CompilationUnitElement>();
+    unitElements.add(library.getDefiningCompilationUnit());
+    unitElements.addAll(ImmutableList.copyOf(library.getParts()));
+    return unitElements;
+  }
+
+  /**
+   * Record the contributions of the given units in the given store and return the number of
+   * milliseconds it took.
+   */
+  private long indexUnits(IndexStore store, ArrayList<CompilationUnit> units) {
+    long startTime = System.currentTimeMillis();
+    for (CompilationUnit unit : units) {
+      unit.accept(new IndexContributor(store));
+    }
+    return System.currentTimeMillis() - startTime;
+  }
+
+  /**
+   * Ask the given store for all of the relationships of the given elements and return the number
+   * of milliseconds it took.
+   */
+  private long queryElements(IndexStore store, ArrayList<Element> elements) {
+    long startTime = System.currentTimeMillis();
+    for (Element element : elements) {
+      for (Relationship relationship : Relationship.values()) {
+        store.getRelationships(element, relationship);
+      }
+    }
+    return System.currentTimeMillis() - startTime;
+  }
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright (c) 2013, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.internal.index;
+
+import com.google.common.collect.ImmutableList;
+import com.google.dart.engine.EngineTestCase;
+import com.google.dart.engine.element.ClassElement;
+import com.google.dart.engine.element.Element;
+import com.google.dart.engine.element.ElementFactory;
+import com.google.dart.engine.element.FunctionElement;
+import com.google.dart.engine.index.Location;
+import com.google.dart.engine.index.Relationship;
+import com.google.dart.engine.internal.context.AnalysisContextImpl;
+import com.google.dart.engine.internal.element.ClassElementImpl;
+import com.google.dart.engine.internal.element.CompilationUnitElementImpl;
+import com.google.dart.engine.internal.element.FunctionElementImpl;
+import com.google.dart.engine.internal.element.LibraryElementImpl;
+import com.google.dart.engine.source.Source;
+import com.google.dart.engine.source.SourceContainer;
+import com.google.dart.engine.source.SourceFactory;
+
+public class CompactIndexStoreImplTest extends EngineTestCase {
+  private CompactIndexStoreImpl store = new CompactIndexStoreImpl();
+  private AnalysisContextImpl contextA = new AnalysisContextImpl();
+  private AnalysisContextImpl contextB = new AnalysisContextImpl();
+  private Relationship relationshipA = Relationship.getRelationship("test-A");
+  private Relationship relationshipB = Relationship.getRelationship("test-B");
+  private ClassElementImpl classA;
+  private ClassElementImpl classB;
+  private FunctionElementImpl functionA;
+  private FunctionElementImpl functionB;
+  private FunctionElementImpl functionC;
+  private Source sourceA;
+  private Source sourceB;
+  private Source sourceC;
+
+  public void test_getRelationships_noElement() throws Exception {
+    Location[] locations = store.getRelationships(classA, relationshipA);
+    assertLength(0, locations);
+  }
+
+  public void test_getRelationships_noRelationship() throws Exception {
+    store.recordRelationship(classA, relationshipA, new Location(functionB, 1, 2, null));
+    Location[] locations = store.getRelationships(classA, relationshipB);
+    assertLength(0, locations);
+  }
+
+  public void test_getStatistics() throws Exception {
+    store.recordSourceElements(contextA, sourceA, ImmutableList.<Element> of(classA, functionA));
+    store.recordRelationship(classA, relationshipA, new Location(functionB, 1, 2, null));
+    store.recordRelationship(classA, relationshipA, new Location(functionB, 3, 4, null));
+    assertEquals("2 relationships in 2 elements in 2 sources", store.getStatistics());
+  }
+
+  public void test_recordRelationship() throws Exception {
+    Location locationA = new Location(functionB, 1, 2, null);
+    Location locationB = new Location(functionC, 3, 4, "prefix");
+    store.recordRelationship(classA, relationshipA, locationA);
+    store.recordRelationship(classA, relationshipA, locationB);
+    store.recordRelationship(classA, relationshipB, locationA);
+    assertEquals(
+        ImmutableList.of(locationA, locationB),
+        ImmutableList.copyOf(store.getRelationships(classA, relationshipA)));
+    assertEquals(
+        ImmutableList.of(locationA),
+        ImmutableList.copyOf(store.getRelationships(classA, relationshipB)));
+  }
+
+  public void test_recordRelationship_nameElement() throws Exception {
+    Location location = new Location(functionB, 1, 2, null);
+    store.recordRelationship(new NameElementImpl("test"), relationshipA, location);
+    Location[] locations = store.getRelationships(new NameElementImpl("test"), relationshipA);
+    assertLength(1, locations);
+    assertEquals(location, locations[0]);
+  }
+
+  public void test_recordRelationship_nullElement() throws Exception {
+    store.recordRelationship(null, relationshipA, new Location(functionB, 1, 2, null));
+    assertEquals("0 relationships in 0 elements in 0 sources", store.getStatistics());
+  }
+
+  public void test_recordRelationship_nullLocation() throws Exception {
+    store.recordRelationship(classA, relationshipA, null);
+    assertEquals("0 relationships in 0 elements in 0 sources", store.getStatistics());
+  }
+
+  public void test_removeContext() throws Exception {
+    store.recordRelationship(classA, relationshipA, new Location(functionA, 1, 2, null));
+    store.recordRelationship(classA, relationshipA, new Location(functionB, 3, 4, null));
+    store.removeContext(contextB);
+    assertLength(1, store.getRelationships(classA, relationshipA));
+    // relationships in the removed context are not recorded
+    store.recordRelationship(classA, relationshipA, new Location(functionC, 5, 6, null));
+    assertLength(1, store.getRelationships(classA, relationshipA));
+  }
+
+  public void test_removeSource_declaringSource() throws Exception {
+    store.recordSourceElements(contextA, sourceA, ImmutableList.<Element> of(classA));
+    store.recordRelationship(classA, relationshipA, new Location(functionB, 1, 2, null));
+    store.recordRelationship(classB, relationshipA, new Location(functionB, 3, 4, null));
+    store.removeSource(contextA, sourceA);
+    assertLength(0, store.getRelationships(classA, relationshipA));
+    assertLength(1, store.getRelationships(classB, relationshipA));
+    assertEquals("1 relationships in 0 elements in 1 sources", store.getStatistics());
+  }
+
+  public void test_removeSource_locationSource() throws Exception {
+    Location locationA = new Location(functionB, 1, 2, null);
+    Location locationB = new Location(functionA, 3, 4, null);
+    store.recordRelationship(classA, relationshipA, locationA);
+    store.recordRelationship(classA, relationshipA, locationB);
+    store.removeSource(contextB, sourceB);
+    assertEquals(
+        ImmutableList.of(locationB),
+        ImmutableList.copyOf(store.getRelationships(classA, relationshipA)));
+    // record again, reusing the slots of the removed location
+    store.recordRelationship(classA, relationshipA, locationA);
+    assertEquals(
+        ImmutableList.of(locationB, locationA),
+        ImmutableList.copyOf(store.getRelationships(classA, relationshipA)));
+  }
+
+  public void test_removeSources() throws Exception {
+    store.recordRelationship(classA, relationshipA, new Location(functionB, 1, 2, null));
+    store.recordRelationship(classA, relationshipA, new Location(functionC, 3, 4, null));
+    store.removeSources(contextB, new SourceContainer() {
+      @Override
+      public boolean contains(Source source) {
+        return source == sourceC;
+      }
+    });
+    Location[] locations = store.getRelationships(classA, relationshipA);
+    assertLength(1, locations);
+    assertSame(functionB, locations[0].getElement());
+  }
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    contextA.setSourceFactory(new SourceFactory());
+    contextB.setSourceFactory(new SourceFactory());
+    // library A in context A declares classes A and B and function A
+    LibraryElementImpl libraryA = ElementFactory.library(contextA, "libA");
+    CompilationUnitElementImpl unitA = (CompilationUnitElementImpl) libraryA.getDefiningCompilationUnit();
+    classA = ElementFactory.classElement("A");
+    classB = ElementFactory.classElement("B");
+    functionA = ElementFactory.functionElement("fA");
+    unitA.setTypes(new ClassElement[] {classA, classB});
+    unitA.setFunctions(new FunctionElement[] {functionA});
+    sourceA = unitA.getSource();
+    // libraries B and C in context B declare functions B and C
+    LibraryElementImpl libraryB = ElementFactory.library(contextB, "libB");
+    CompilationUnitElementImpl unitB = (CompilationUnitElementImpl) libraryB.getDefiningCompilationUnit();
+    functionB = ElementFactory.functionElement("fB");
+    unitB.setFunctions(new FunctionElement[] {functionB});
+    sourceB = unitB.getSource();
+    LibraryElementImpl libraryC = ElementFactory.library(contextB, "libC");
+    CompilationUnitElementImpl unitC = (CompilationUnitElementImpl) libraryC.getDefiningCompilationUnit();
+    functionC = ElementFactory.functionElement("fC");
+    unitC.setFunctions(new FunctionElement[] {functionC});
+    sourceC = unitC.getSource();
+  }
+}
@@ -15,6 +15,8 @@ package com.google.dart.engine.internal.index;
 
 import com.google.dart.engine.EngineTestCase;
 import com.google.dart.engine.ast.CompilationUnit;
+import com.google.dart.engine.ast.CompilationUnitMember;
+import com.google.dart.engine.ast.NodeList;
 import com.google.dart.engine.context.AnalysisContext;
 import com.google.dart.engine.element.CompilationUnitElement;
 import com.google.dart.engine.element.Element;
@@ -38,6 +40,8 @@ import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
 
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
 public class IndexImplTest extends EngineTestCase {
   private AnalysisContext context = mock(AnalysisContext.class);
   private IndexStore store = mock(IndexStore.class);
@@ -46,9 +50,12 @@ public class IndexImplTest extends EngineTestCase {
   private IndexImpl index = new IndexImpl(store, queue, processor);
 
   public void test_getIndexStatistics() throws Exception {
+    ReentrantReadWriteLock storeLock = new ReentrantReadWriteLock();
+    when(processor.getStoreReadLock()).thenReturn(storeLock.readLock());
     String stats = "40 relationships in 20 elements in 10 sources";
     when(store.getStatistics()).thenReturn(stats);
     assertEquals(stats, index.getStatistics());
+    assertEquals(0, storeLock.getReadLockCount());
   }
 
   public void test_getRelationships() throws Exception {
@@ -64,11 +71,17 @@ public class IndexImplTest extends EngineTestCase {
     assertSame(callback, argument.getValue().getCallback());
   }
 
+  public void test_getTypeHierarchy() throws Exception {
+    assertNotNull(index.getTypeHierarchy());
+    assertSame(index.getTypeHierarchy(), index.getTypeHierarchy());
+  }
+
   public void test_indexUnit() throws Exception {
     Source unitSource = mock(Source.class);
     CompilationUnitElement unitElement = mock(CompilationUnitElement.class);
     CompilationUnit unit = mock(CompilationUnit.class);
     when(unit.getElement()).thenReturn(unitElement);
+    when(unit.getDeclarations()).thenReturn(NodeList.<CompilationUnitMember> create(unit));
     when(unitElement.getSource()).thenReturn(unitSource);
     // call index
     index.indexUnit(context, unit);
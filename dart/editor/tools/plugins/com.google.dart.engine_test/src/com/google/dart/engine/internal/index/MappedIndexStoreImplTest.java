@@ -0,0 +1,242 @@
+/*
+ * Copyright (c) 2013, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.internal.index;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.Files;
+import com.google.dart.engine.ast.CompilationUnit;
+import com.google.dart.engine.context.ChangeSet;
+import com.google.dart.engine.element.ClassElement;
+import com.google.dart.engine.element.Element;
+import com.google.dart.engine.element.LibraryElement;
+import com.google.dart.engine.index.Location;
+import com.google.dart.engine.internal.index.operation.IndexUnitOperation;
+import com.google.dart.engine.resolver.ResolverTestCase;
+import com.google.dart.engine.source.FileBasedSource;
+import com.google.dart.engine.source.Source;
+
+import java.io.File;
+
+public class MappedIndexStoreImplTest extends ResolverTestCase {
+  private File directory;
+  private File file;
+  private MappedIndexStoreImpl store;
+  private Source sourceA;
+  private Source sourceB;
+  private ClassElement classA;
+
+  public void test_flush_changedSourcesOnly() throws Exception {
+    indexSources();
+    store.flush();
+    long length = file.length();
+    long garbageLength = store.getGarbageLength(getAnalysisContext());
+    // re-index one source, only its segment and the table are written
+    indexSource(sourceB);
+    store.flush();
+    assertTrue(file.length() > length);
+    assertTrue(store.getGarbageLength(getAnalysisContext()) > garbageLength);
+    // flush without changes does not change the file
+    length = file.length();
+    store.flush();
+    assertEquals(length, file.length());
+  }
+
+  public void test_compact() throws Exception {
+    indexSources();
+    store.flush();
+    indexSource(sourceB);
+    store.flush();
+    long length = file.length();
+    long garbageLength = store.getGarbageLength(getAnalysisContext());
+    store.compact(getAnalysisContext());
+    assertEquals(0, store.getGarbageLength(getAnalysisContext()));
+    assertEquals(length - garbageLength, file.length());
+    // the compacted file can be read
+    reopenStore();
+    assertReferences(classA, 2);
+  }
+
+  public void test_indexUnitOperation_skipIndexedSource() throws Exception {
+    indexSources();
+    store.flush();
+    reopenStore();
+    long length = file.length();
+    // the unit is not indexed again, so its segment is not appended to the file again
+    CompilationUnit unit = getAnalysisContext().resolveCompilationUnit(
+        sourceB,
+        getAnalysisContext().computeLibraryElement(sourceB));
+    IndexUnitOperation operation = new IndexUnitOperation(store, getAnalysisContext(), unit);
+    assertTrue(operation.isIndexed());
+    operation.performOperation();
+    store.flush();
+    assertEquals(length, file.length());
+    assertReferences(classA, 2);
+    // the unit is indexed again when its contents are overridden
+    getAnalysisContext().setContents(sourceB, "import 'a.dart'; main() { A a; }");
+    assertFalse(operation.isIndexed());
+  }
+
+  public void test_isIndexed() throws Exception {
+    assertFalse(store.isIndexed(getAnalysisContext(), sourceA));
+    indexSources();
+    assertTrue(store.isIndexed(getAnalysisContext(), sourceA));
+    store.flush();
+    reopenStore();
+    assertTrue(store.isIndexed(getAnalysisContext(), sourceA));
+    // changed source
+    getSourceFactory().setContents(sourceA, "class A {} class C {}");
+    assertFalse(store.isIndexed(getAnalysisContext(), sourceA));
+    // removed source
+    store.removeSource(getAnalysisContext(), sourceB);
+    assertFalse(store.isIndexed(getAnalysisContext(), sourceB));
+  }
+
+  public void test_openIndex_invalidFile() throws Exception {
+    store = new MappedIndexStoreImpl();
+    assertTrue(file.delete());
+    assertTrue(file.createNewFile());
+    store.openIndex(getAnalysisContext(), file);
+    indexSources();
+    store.flush();
+    reopenStore();
+    assertReferences(classA, 2);
+  }
+
+  public void test_openIndex_lazyLoad() throws Exception {
+    indexSources();
+    store.flush();
+    reopenStore();
+    // nothing is loaded until the first query
+    assertEquals("0 relationships in 0 elements in 0 sources, 2 segments in 1 files",
+        store.getStatistics());
+    // segments without relationships of the queried element are not loaded
+    Location[] locations = store.getRelationships(
+        new NameElementImpl("noSuchName"),
+        IndexConstants.IS_REFERENCED_BY);
+    assertLength(0, locations);
+    assertEquals("0 relationships in 0 elements in 0 sources, 2 segments in 1 files",
+        store.getStatistics());
+    assertReferences(classA, 2);
+  }
+
+  public void test_openIndex_skipChangedSource() throws Exception {
+    indexSources();
+    store.flush();
+    getSourceFactory().setContents(sourceB, "import 'a.dart'; main() { A a; }");
+    reopenStore();
+    assertReferences(classA, 0);
+    // the stale segment is removed on the next flush
+    store.flush();
+    assertFalse(store.isIndexed(getAnalysisContext(), sourceB));
+    assertTrue(store.isIndexed(getAnalysisContext(), sourceA));
+  }
+
+  public void test_openIndex_skipReindexedSource() throws Exception {
+    indexSources();
+    store.flush();
+    reopenStore();
+    // re-index before the first query, the segment in the file is not loaded
+    indexSource(sourceB);
+    assertReferences(classA, 2);
+  }
+
+  public void test_recordRelationship_overriddenSource() throws Exception {
+    getAnalysisContext().setContents(sourceB, "import 'a.dart'; main() { A a; A b; }");
+    indexSources();
+    assertReferences(classA, 2);
+    assertFalse(store.isIndexed(getAnalysisContext(), sourceB));
+    // the information about unsaved contents is not written
+    store.flush();
+    assertTrue(store.getStatistics().endsWith("1 segments in 1 files"));
+  }
+
+  public void test_recordRelationship_writtenBeforeFlush() throws Exception {
+    long length = file.length();
+    indexSource(sourceA);
+    assertEquals(length, file.length());
+    // the records of a source are written when the next source is indexed
+    indexSource(sourceB);
+    assertTrue(file.length() > length);
+  }
+
+  public void test_removeSource() throws Exception {
+    indexSources();
+    store.flush();
+    store.removeSource(getAnalysisContext(), sourceB);
+    store.flush();
+    reopenStore();
+    assertReferences(classA, 0);
+    assertTrue(store.getStatistics().endsWith("1 segments in 1 files"));
+  }
+
+  @Override
+  public void setUp() {
+    super.setUp();
+    try {
+      directory = Files.createTempDir();
+      file = new File(directory, "index.bin");
+      store = new MappedIndexStoreImpl();
+      store.openIndex(getAnalysisContext(), file);
+      // the sources are saved files, because overridden contents are not written to the index
+      sourceA = addSavedSource("a.dart", "library a; class A {}");
+      sourceB = addSavedSource("b.dart", "import 'a.dart'; main() { A a; A b; }");
+      LibraryElement libraryA = getAnalysisContext().computeLibraryElement(sourceA);
+      classA = libraryA.getDefiningCompilationUnit().getTypes()[0];
+    } catch (Exception exception) {
+      throw new RuntimeException(exception);
+    }
+  }
+
+  @Override
+  protected void tearDown() throws Exception {
+    for (File child : directory.listFiles()) {
+      child.delete();
+    }
+    directory.delete();
+    super.tearDown();
+  }
+
+  private Source addSavedSource(String fileName, String contents) throws Exception {
+    File sourceFile = new File(directory, fileName);
+    Files.write(contents, sourceFile, Charsets.UTF_8);
+    Source source = new FileBasedSource(getSourceFactory().getContentCache(), sourceFile);
+    ChangeSet changeSet = new ChangeSet();
+    changeSet.added(source);
+    getAnalysisContext().applyChanges(changeSet);
+    return source;
+  }
+
+  private void assertReferences(Element element, int expectedCount) {
+    Location[] locations = store.getRelationships(element, IndexConstants.IS_REFERENCED_BY);
+    assertEquals(ImmutableList.copyOf(locations).toString(), expectedCount, locations.length);
+  }
+
+  private void indexSource(Source source) throws Exception {
+    LibraryElement library = getAnalysisContext().computeLibraryElement(source);
+    CompilationUnit unit = getAnalysisContext().resolveCompilationUnit(source, library);
+    store.removeSource(getAnalysisContext(), source);
+    unit.accept(new IndexContributor(store));
+  }
+
+  private void indexSources() throws Exception {
+    indexSource(sourceA);
+    indexSource(sourceB);
+  }
+
+  private void reopenStore() throws Exception {
+    store = new MappedIndexStoreImpl();
+    store.openIndex(getAnalysisContext(), file);
+  }
+}
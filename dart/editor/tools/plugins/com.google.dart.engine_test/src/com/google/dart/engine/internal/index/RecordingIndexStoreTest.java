@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2013, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.internal.index;
+
+import com.google.common.collect.ImmutableList;
+import com.google.dart.engine.EngineTestCase;
+import com.google.dart.engine.context.AnalysisContext;
+import com.google.dart.engine.element.Element;
+import com.google.dart.engine.index.IndexStore;
+import com.google.dart.engine.index.Location;
+import com.google.dart.engine.index.Relationship;
+import com.google.dart.engine.source.Source;
+import com.google.dart.engine.source.SourceContainer;
+
+import org.mockito.InOrder;
+
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+public class RecordingIndexStoreTest extends EngineTestCase {
+  private final RecordingIndexStore store = new RecordingIndexStore();
+  private final IndexStore targetStore = mock(IndexStore.class);
+  private final AnalysisContext context = mock(AnalysisContext.class);
+  private final Source source = mock(Source.class);
+  private final Element elementA = mock(Element.class);
+  private final Element elementB = mock(Element.class);
+  private final Location locationA = mock(Location.class);
+  private final Location locationB = mock(Location.class);
+  private final Relationship relationship = Relationship.getRelationship("test-relationship");
+
+  public void test_getRelationships() throws Exception {
+    when(elementA.getContext()).thenReturn(context);
+    when(elementB.getContext()).thenReturn(context);
+    when(locationA.getElement()).thenReturn(elementB);
+    store.recordRelationship(elementA, relationship, locationA);
+    Location[] locations = store.getRelationships(elementA, relationship);
+    assertLength(1, locations);
+    assertSame(locationA, locations[0]);
+    assertLength(0, store.getRelationships(elementB, relationship));
+  }
+
+  public void test_getRelationships_removeContext() throws Exception {
+    when(elementA.getContext()).thenReturn(context);
+    when(elementB.getContext()).thenReturn(context);
+    when(locationA.getElement()).thenReturn(elementB);
+    store.recordRelationship(elementA, relationship, locationA);
+    store.removeContext(context);
+    assertLength(0, store.getRelationships(elementA, relationship));
+  }
+
+  public void test_replay() throws Exception {
+    List<Element> elements = ImmutableList.of(elementA, elementB);
+    store.recordRelationship(elementA, relationship, locationA);
+    store.recordSourceElements(context, source, elements);
+    store.recordRelationship(elementB, relationship, locationB);
+    store.replay(targetStore);
+    // invocations are replayed in order
+    InOrder inOrder = inOrder(targetStore);
+    inOrder.verify(targetStore).recordRelationship(elementA, relationship, locationA);
+    inOrder.verify(targetStore).recordSourceElements(context, source, elements);
+    inOrder.verify(targetStore).recordRelationship(elementB, relationship, locationB);
+    verifyNoMoreInteractions(targetStore);
+  }
+
+  public void test_replay_nullElement() throws Exception {
+    store.recordRelationship(null, relationship, locationA);
+    store.recordRelationship(elementA, relationship, null);
+    store.replay(targetStore);
+    verifyNoMoreInteractions(targetStore);
+  }
+
+  public void test_replay_remove() throws Exception {
+    SourceContainer container = mock(SourceContainer.class);
+    store.removeSource(context, source);
+    store.recordRelationship(elementA, relationship, locationA);
+    store.removeSources(context, container);
+    store.removeContext(context);
+    store.replay(targetStore);
+    // removals are replayed in order with the other invocations
+    InOrder inOrder = inOrder(targetStore);
+    inOrder.verify(targetStore).removeSource(context, source);
+    inOrder.verify(targetStore).recordRelationship(elementA, relationship, locationA);
+    inOrder.verify(targetStore).removeSources(context, container);
+    inOrder.verify(targetStore).removeContext(context);
+    verifyNoMoreInteractions(targetStore);
+  }
+}
@@ -22,11 +22,15 @@ public class TestAll {
   public static Test suite() {
     TestSuite suite = new ExtendedTestSuite("Tests in " + TestAll.class.getPackage().getName());
     suite.addTest(com.google.dart.engine.internal.index.operation.TestAll.suite());
+    suite.addTestSuite(CompactIndexStoreImplTest.class);
     suite.addTestSuite(ContributedLocationTest.class);
     suite.addTestSuite(IndexContributorTest.class);
     suite.addTestSuite(IndexImplTest.class);
+    suite.addTestSuite(MappedIndexStoreImplTest.class);
     suite.addTestSuite(MemoryIndexStoreImplTest.class);
     suite.addTestSuite(NameElementImplTest.class);
+    suite.addTestSuite(RecordingIndexStoreTest.class);
+    suite.addTestSuite(TypeHierarchyImplTest.class);
     suite.addTestSuite(UniverseElementImplTest.class);
     return suite;
   }
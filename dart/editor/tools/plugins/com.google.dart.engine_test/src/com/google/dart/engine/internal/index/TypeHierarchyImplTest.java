@@ -0,0 +1,319 @@
+/*
+ * Copyright (c) 2013, the Dart project authors.
+ *
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.internal.index;
+
+import com.google.dart.engine.ast.CompilationUnit;
+import com.google.dart.engine.context.AnalysisContext;
+import com.google.dart.engine.context.AnalysisContextFactory;
+import com.google.dart.engine.context.ChangeSet;
+import com.google.dart.engine.element.ClassElement;
+import com.google.dart.engine.element.LibraryElement;
+import com.google.dart.engine.resolver.ResolverTestCase;
+import com.google.dart.engine.source.FileBasedSource;
+import com.google.dart.engine.source.Source;
+import com.google.dart.engine.source.SourceContainer;
+import com.google.dart.engine.source.SourceFactory;
+
+import static com.google.dart.engine.utilities.io.FileUtilities2.createFile;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+public class TypeHierarchyImplTest extends ResolverTestCase {
+  private final TypeHierarchyImpl hierarchy = new TypeHierarchyImpl();
+  private final Map<String, Source> sources = new HashMap<String, Source>();
+
+  public void test_getDirectSubtypes() throws Exception {
+    LibraryElement library = indexLibrary("/test.dart", createSource(//
+        "class A {}",
+        "class B extends A {}",
+        "class C extends B {}",
+        "class D extends B implements A {}",
+        "class M {}",
+        "class E extends A with M {}",
+        "typedef F = A with M;"));
+    assertExactElements(
+        hierarchy.getDirectSubtypes(getClass(library, "A")),
+        getClass(library, "B"),
+        getClass(library, "D"),
+        getClass(library, "E"),
+        getClass(library, "F"));
+    assertExactElements(
+        hierarchy.getDirectSubtypes(getClass(library, "M")),
+        getClass(library, "E"),
+        getClass(library, "F"));
+    assertExactElements(hierarchy.getDirectSubtypes(getClass(library, "C")));
+  }
+
+  public void test_getDirectSupertypes() throws Exception {
+    LibraryElement library = indexLibrary("/test.dart", createSource(//
+        "class A {}",
+        "class B {}",
+        "class M {}",
+        "class C extends A with M implements B {}",
+        "class D {}"));
+    assertExactElements(
+        hierarchy.getDirectSupertypes(getClass(library, "C")),
+        getClass(library, "A"),
+        getClass(library, "B"),
+        getClass(library, "M"));
+    // the implicit superclass "Object" is not recorded
+    assertExactElements(hierarchy.getDirectSupertypes(getClass(library, "D")));
+  }
+
+  public void test_getOverriddenMembers() throws Exception {
+    LibraryElement library = indexLibrary("/test.dart", createSource(//
+        "class A {",
+        "  m() {}",
+        "  int get g => 0;",
+        "}",
+        "class B extends A {",
+        "  m() {}",
+        "}",
+        "class C extends B {",
+        "  m() {}",
+        "  int g;",
+        "}"));
+    ClassElement classA = getClass(library, "A");
+    ClassElement classB = getClass(library, "B");
+    ClassElement classC = getClass(library, "C");
+    assertExactElements(
+        hierarchy.getOverriddenMembers(classC.getMethods()[0]),
+        classB.getMethods()[0],
+        classA.getMethods()[0]);
+    assertExactElements(
+        hierarchy.getOverriddenMembers(classC.getFields()[0]),
+        classA.getAccessors()[0]);
+    assertExactElements(hierarchy.getOverriddenMembers(classA.getMethods()[0]));
+  }
+
+  public void test_getOverridingMembers() throws Exception {
+    LibraryElement library = indexLibrary("/test.dart", createSource(//
+        "class A {",
+        "  m() {}",
+        "}",
+        "class B extends A {",
+        "}",
+        "class C extends B {",
+        "  m() {}",
+        "}",
+        "class D implements A {",
+        "  m() {}",
+        "}"));
+    ClassElement classA = getClass(library, "A");
+    assertExactElements(
+        hierarchy.getOverridingMembers(classA.getMethods()[0]),
+        getClass(library, "D").getMethods()[0],
+        getClass(library, "C").getMethods()[0]);
+    assertExactElements(hierarchy.getOverridingMembers(getClass(library, "D").getMethods()[0]));
+  }
+
+  public void test_getSubtypes() throws Exception {
+    LibraryElement library = indexLibrary("/test.dart", createSource(//
+        "class A {}",
+        "class B extends A {}",
+        "class C extends B {}",
+        "class D extends B implements A {}",
+        "class M {}",
+        "class E extends A with M {}"));
+    ClassElement classA = getClass(library, "A");
+    assertExactElements(
+        hierarchy.getSubtypes(classA),
+        getClass(library, "B"),
+        getClass(library, "C"),
+        getClass(library, "D"),
+        getClass(library, "E"));
+    assertSame(hierarchy.getSubtypes(classA), hierarchy.getSubtypes(classA));
+    assertExactElements(
+        hierarchy.getSubtypes(getClass(library, "B")),
+        getClass(library, "C"),
+        getClass(library, "D"));
+    assertExactElements(hierarchy.getSubtypes(getClass(library, "M")), getClass(library, "E"));
+  }
+
+  public void test_getSupertypes() throws Exception {
+    LibraryElement library = indexLibrary("/test.dart", createSource(//
+        "class A {}",
+        "class B extends A {}",
+        "class I {}",
+        "class C extends B implements I {}"));
+    assertExactElements(
+        hierarchy.getSupertypes(getClass(library, "C")),
+        getClass(library, "A"),
+        getClass(library, "B"),
+        getClass(library, "I"));
+    assertExactElements(hierarchy.getSupertypes(getClass(library, "A")));
+  }
+
+  public void test_getSubtypes_otherContext() throws Exception {
+    String contentsA = createSource(//
+        "library a;",
+        "class A {",
+        "  m() {}",
+        "}");
+    LibraryElement libraryA = indexLibrary("/a.dart", contentsA);
+    // a library analyzed in another context, such as the one of a nested package
+    AnalysisContext otherContext = AnalysisContextFactory.contextWithCore();
+    SourceFactory otherFactory = otherContext.getSourceFactory();
+    Source otherSourceA = new FileBasedSource(
+        otherFactory.getContentCache(),
+        createFile("/a.dart"));
+    otherFactory.setContents(otherSourceA, contentsA);
+    Source sourceB = new FileBasedSource(otherFactory.getContentCache(), createFile("/b.dart"));
+    otherFactory.setContents(sourceB, createSource(//
+        "library b;",
+        "import 'a.dart';",
+        "class B extends A {",
+        "  m() {}",
+        "}"));
+    ChangeSet changeSet = new ChangeSet();
+    changeSet.added(otherSourceA);
+    changeSet.added(sourceB);
+    otherContext.applyChanges(changeSet);
+    LibraryElement libraryB = otherContext.computeLibraryElement(sourceB);
+    hierarchy.indexUnit(otherContext, otherContext.resolveCompilationUnit(sourceB, libraryB));
+    ClassElement classA = getClass(libraryA, "A");
+    ClassElement classB = getClass(libraryB, "B");
+    assertExactElements(hierarchy.getDirectSubtypes(classA), classB);
+    assertExactElements(hierarchy.getSubtypes(classA), classB);
+    assertExactElements(
+        hierarchy.getOverridingMembers(classA.getMethods()[0]),
+        classB.getMethods()[0]);
+    // the supertype is the element of the context declaring it
+    assertSame(classA, hierarchy.getSupertypes(classB).iterator().next());
+    // removing the other context removes its subtypes
+    hierarchy.removeContext(otherContext);
+    assertExactElements(hierarchy.getSubtypes(classA));
+  }
+
+  public void test_indexUnit_again() throws Exception {
+    LibraryElement libraryA = indexLibrary("/a.dart", createSource(//
+        "library a;",
+        "class A {}"));
+    LibraryElement libraryB = indexLibrary("/b.dart", createSource(//
+        "library b;",
+        "import 'a.dart';",
+        "class B extends A {}"));
+    ClassElement classA = getClass(libraryA, "A");
+    assertExactElements(hierarchy.getSubtypes(classA), getClass(libraryB, "B"));
+    // indexing the superclass again keeps the subclasses recorded by other units
+    libraryA = indexLibrary("/a.dart", createSource(//
+        "library a;",
+        "class A {",
+        "  m() {}",
+        "}"));
+    assertExactElements(
+        hierarchy.getSubtypes(getClass(libraryA, "A")),
+        getClass(libraryB, "B"));
+    // indexing the subclass again replaces its supertypes
+    indexLibrary("/b.dart", createSource(//
+        "library b;",
+        "import 'a.dart';",
+        "class B {}"));
+    assertExactElements(hierarchy.getSubtypes(getClass(libraryA, "A")));
+  }
+
+  public void test_indexUnit_sameEdges() throws Exception {
+    LibraryElement libraryA = indexLibrary("/a.dart", createSource(//
+        "library a;",
+        "class A {}"));
+    LibraryElement libraryB = indexLibrary("/b.dart", createSource(//
+        "library b;",
+        "import 'a.dart';",
+        "class B extends A {}"));
+    ClassElement classA = getClass(libraryA, "A");
+    assertExactElements(hierarchy.getSubtypes(classA), getClass(libraryB, "B"));
+    // indexing the subclass again without changing its supertypes returns its new element
+    libraryB = indexLibrary("/b.dart", createSource(//
+        "library b;",
+        "import 'a.dart';",
+        "class B extends A {",
+        "  m() {}",
+        "}"));
+    ClassElement classB = getClass(libraryB, "B");
+    Set<ClassElement> subtypes = hierarchy.getSubtypes(classA);
+    assertSize(1, subtypes);
+    assertSame(classB, subtypes.iterator().next());
+    assertSame(subtypes, hierarchy.getSubtypes(classA));
+  }
+
+  public void test_removeContext() throws Exception {
+    LibraryElement library = indexLibrary("/test.dart", createSource(//
+        "class A {}",
+        "class B extends A {}"));
+    hierarchy.removeContext(getAnalysisContext());
+    assertExactElements(hierarchy.getSubtypes(getClass(library, "A")));
+  }
+
+  public void test_removeSource() throws Exception {
+    LibraryElement libraryA = indexLibrary("/a.dart", createSource(//
+        "library a;",
+        "class A {}"));
+    LibraryElement libraryB = indexLibrary("/b.dart", createSource(//
+        "library b;",
+        "import 'a.dart';",
+        "class B extends A {}",
+        "class C extends B {}"));
+    ClassElement classA = getClass(libraryA, "A");
+    AnalysisContext context = getAnalysisContext();
+    hierarchy.removeSource(context, libraryA.getSource());
+    assertExactElements(
+        hierarchy.getSubtypes(classA),
+        getClass(libraryB, "B"),
+        getClass(libraryB, "C"));
+    hierarchy.removeSource(context, libraryB.getSource());
+    assertExactElements(hierarchy.getSubtypes(classA));
+    assertExactElements(hierarchy.getSubtypes(getClass(libraryB, "B")));
+  }
+
+  public void test_removeSources() throws Exception {
+    LibraryElement libraryA = indexLibrary("/a.dart", createSource(//
+        "library a;",
+        "class A {}"));
+    final LibraryElement libraryB = indexLibrary("/b.dart", createSource(//
+        "library b;",
+        "import 'a.dart';",
+        "class B extends A {}"));
+    hierarchy.removeSources(getAnalysisContext(), new SourceContainer() {
+      @Override
+      public boolean contains(Source source) {
+        return source.equals(libraryB.getSource());
+      }
+    });
+    assertExactElements(hierarchy.getSubtypes(getClass(libraryA, "A")));
+  }
+
+  private ClassElement getClass(LibraryElement library, String name) {
+    return library.getDefiningCompilationUnit().getType(name);
+  }
+
+  /**
+   * Resolve the library with the given content and record its defining unit in the hierarchy.
+   */
+  private LibraryElement indexLibrary(String filePath, String contents) throws Exception {
+    AnalysisContext context = getAnalysisContext();
+    Source source = sources.get(filePath);
+    if (source == null) {
+      source = addSource(filePath, contents);
+      sources.put(filePath, source);
+    } else {
+      context.setContents(source, contents);
+    }
+    LibraryElement library = context.computeLibraryElement(source);
+    CompilationUnit unit = context.resolveCompilationUnit(source, library);
+    hierarchy.indexUnit(context, unit);
+    return library;
+  }
+}
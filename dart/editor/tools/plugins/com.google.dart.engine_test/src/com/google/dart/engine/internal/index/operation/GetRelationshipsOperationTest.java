@@ -19,9 +19,11 @@ import com.google.dart.engine.index.IndexStore;
 import com.google.dart.engine.index.Location;
 import com.google.dart.engine.index.Relationship;
 import com.google.dart.engine.index.RelationshipCallback;
+import com.google.dart.engine.internal.index.CachingRelationshipCallback;
 import com.google.dart.engine.source.Source;
 
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -47,6 +49,36 @@ public class GetRelationshipsOperationTest extends EngineTestCase {
     verify(callback).hasRelationships(elementLocation, relationship, locations);
   }
 
+  public void test_performOperation_cachingCallback_cached() throws Exception {
+    CachingRelationshipCallback cachingCallback = mock(CachingRelationshipCallback.class);
+    OperationProcessor processor = mock(OperationProcessor.class);
+    when(processor.getModificationStamp()).thenReturn(5L);
+    when(cachingCallback.hasCachedRelationships(elementLocation, relationship, 5L)).thenReturn(
+        true);
+    new GetRelationshipsOperation(
+        store,
+        elementLocation,
+        relationship,
+        cachingCallback,
+        processor).performOperation();
+    verify(store, never()).getRelationships(elementLocation, relationship);
+  }
+
+  public void test_performOperation_cachingCallback_notCached() throws Exception {
+    CachingRelationshipCallback cachingCallback = mock(CachingRelationshipCallback.class);
+    OperationProcessor processor = mock(OperationProcessor.class);
+    when(processor.getModificationStamp()).thenReturn(5L);
+    Location locations[] = new Location[2];
+    when(store.getRelationships(elementLocation, relationship)).thenReturn(locations);
+    new GetRelationshipsOperation(
+        store,
+        elementLocation,
+        relationship,
+        cachingCallback,
+        processor).performOperation();
+    verify(cachingCallback).hasRelationships(elementLocation, relationship, locations, 5L);
+  }
+
   public void test_removeWhenSourceRemoved() throws Exception {
     Source source = mock(Source.class);
     assertFalse(operation.removeWhenSourceRemoved(source));
@@ -20,14 +20,19 @@ import com.google.dart.engine.context.AnalysisContext;
 import com.google.dart.engine.element.CompilationUnitElement;
 import com.google.dart.engine.index.IndexStore;
 import com.google.dart.engine.internal.index.IndexContributor;
+import com.google.dart.engine.internal.index.RecordingIndexStore;
 import com.google.dart.engine.source.Source;
 import com.google.dart.engine.utilities.logging.Logger;
 
+import org.mockito.InOrder;
+
 import static org.mockito.Matchers.anyString;
 import static org.mockito.Matchers.isA;
 import static org.mockito.Matchers.same;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 
 public class IndexUnitOperationTest extends EngineTestCase {
@@ -38,6 +43,13 @@ public class IndexUnitOperationTest extends EngineTestCase {
   private final CompilationUnit unit = mock(CompilationUnit.class);
   private IndexUnitOperation operation;
 
+  public void test_contribute() throws Exception {
+    RecordingIndexStore contribution = operation.contribute();
+    assertNotNull(contribution);
+    verify(unit).accept(isA(IndexContributor.class));
+    verifyNoMoreInteractions(store);
+  }
+
   public void test_getSource() throws Exception {
     assertSame(unitSource, operation.getSource());
   }
@@ -50,6 +62,14 @@ public class IndexUnitOperationTest extends EngineTestCase {
     assertFalse(operation.isQuery());
   }
 
+  public void test_merge() throws Exception {
+    RecordingIndexStore contribution = mock(RecordingIndexStore.class);
+    operation.merge(contribution);
+    InOrder inOrder = inOrder(store, contribution);
+    inOrder.verify(store).removeSource(context, unitSource);
+    inOrder.verify(contribution).replay(store);
+  }
+
   public void test_performOperation() throws Exception {
     operation.performOperation();
     verify(store).removeSource(context, unitSource);
@@ -18,9 +18,11 @@ import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
 import com.google.dart.engine.AnalysisEngine;
 import com.google.dart.engine.EngineTestCase;
+import com.google.dart.engine.internal.index.RecordingIndexStore;
 import com.google.dart.engine.source.Source;
 import com.google.dart.engine.utilities.logging.Logger;
 
+import org.mockito.InOrder;
 import org.mockito.invocation.InvocationOnMock;
 import org.mockito.stubbing.Answer;
 
@@ -29,6 +31,7 @@ import static org.mockito.Matchers.anyString;
 import static org.mockito.Matchers.same;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -38,6 +41,7 @@ import java.util.Collections;
 import java.util.LinkedList;
 import java.util.Set;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 public class OperationProcessorTest extends EngineTestCase {
 
@@ -156,6 +160,48 @@ public class OperationProcessorTest extends EngineTestCase {
     verify(operation).performOperation();
   }
 
+  public void test_run_workerThreads() throws Exception {
+    OperationQueue queue = new OperationQueue();
+    final OperationProcessor processor = new OperationProcessor(queue, 4);
+    // prepare unit operations
+    IndexUnitOperation operation1 = mock(IndexUnitOperation.class);
+    IndexUnitOperation operation2 = mock(IndexUnitOperation.class);
+    RecordingIndexStore contribution1 = mock(RecordingIndexStore.class);
+    RecordingIndexStore contribution2 = mock(RecordingIndexStore.class);
+    when(operation1.getSource()).thenReturn(mock(Source.class));
+    when(operation2.getSource()).thenReturn(mock(Source.class));
+    when(operation1.contribute()).thenReturn(contribution1);
+    when(operation2.contribute()).thenReturn(contribution2);
+    // prepare query
+    final CountDownLatch queryLatch = new CountDownLatch(1);
+    IndexOperation query = mock(IndexOperation.class);
+    when(query.isQuery()).thenReturn(true);
+    doAnswer(new Answer<Void>() {
+      @Override
+      public Void answer(InvocationOnMock invocation) throws Throwable {
+        queryLatch.countDown();
+        return null;
+      }
+    }).when(query).performOperation();
+    queue.enqueue(operation1);
+    queue.enqueue(operation2);
+    queue.enqueue(query);
+    // run processor
+    new Thread() {
+      @Override
+      public void run() {
+        processor.run();
+      }
+    }.start();
+    assertTrue(queryLatch.await(5, TimeUnit.SECONDS));
+    processor.stop(true);
+    // contributions are merged in queue order, before the query is performed
+    InOrder inOrder = inOrder(operation1, operation2, query);
+    inOrder.verify(operation1).merge(contribution1);
+    inOrder.verify(operation2).merge(contribution2);
+    inOrder.verify(query).performOperation();
+  }
+
   public void test_stop_returnsNotIndexed_wasReady() throws Exception {
     Source source = mock(Source.class);
     IndexUnitOperation operation = mock(IndexUnitOperation.class);
@@ -14,6 +14,7 @@
 package com.google.dart.engine.internal.index.operation;
 
 import com.google.dart.engine.EngineTestCase;
+import com.google.dart.engine.context.AnalysisContext;
 import com.google.dart.engine.source.Source;
 
 import static org.mockito.Mockito.mock;
@@ -47,6 +48,47 @@ public class OperationQueueTest extends EngineTestCase {
     assertSame(null, queue.dequeue(-1));
   }
 
+  public void test_enqueue_indexUnit_replacesPending() throws Exception {
+    Source source = mock(Source.class);
+    IndexUnitOperation operationA = mock(IndexUnitOperation.class);
+    IndexUnitOperation operationB = mock(IndexUnitOperation.class);
+    IndexUnitOperation operationC = mock(IndexUnitOperation.class);
+    when(operationA.getSource()).thenReturn(source);
+    when(operationB.getSource()).thenReturn(mock(Source.class));
+    when(operationC.getSource()).thenReturn(source);
+    // enqueue operations, "C" replaces "A"
+    OperationQueue queue = new OperationQueue();
+    queue.enqueue(operationA);
+    queue.enqueue(operationB);
+    queue.enqueue(operationC);
+    assertEquals(2, queue.size());
+    assertExactElements(queue.getOperations(), operationB, operationC);
+    assertEquals(1, queue.getStatistics().getCoalescedCount());
+    // do dequeue
+    assertSame(operationB, queue.dequeue(0));
+    assertSame(operationC, queue.dequeue(0));
+    assertSame(null, queue.dequeue(0));
+  }
+
+  public void test_enqueue_indexUnit_otherContext() throws Exception {
+    Source source = mock(Source.class);
+    AnalysisContext contextA = mock(AnalysisContext.class);
+    AnalysisContext contextB = mock(AnalysisContext.class);
+    IndexUnitOperation operationA = mock(IndexUnitOperation.class);
+    IndexUnitOperation operationB = mock(IndexUnitOperation.class);
+    when(operationA.getContext()).thenReturn(contextA);
+    when(operationA.getSource()).thenReturn(source);
+    when(operationB.getContext()).thenReturn(contextB);
+    when(operationB.getSource()).thenReturn(source);
+    // enqueue operations, the same source in different contexts is not replaced
+    OperationQueue queue = new OperationQueue();
+    queue.enqueue(operationA);
+    queue.enqueue(operationB);
+    assertEquals(2, queue.size());
+    assertExactElements(queue.getOperations(), operationA, operationB);
+    assertEquals(0, queue.getStatistics().getCoalescedCount());
+  }
+
   public void test_enqueue_isQuery() throws Exception {
     IndexOperation notQueryOperation = mock(IndexOperation.class);
     IndexOperation isQueryOperation = mock(IndexOperation.class);
@@ -99,6 +141,69 @@ public class OperationQueueTest extends EngineTestCase {
     }
   }
 
+  public void test_enqueue_removeSource_indexUnit() throws Exception {
+    Source source = mock(Source.class);
+    IndexUnitOperation unitOperation = mock(IndexUnitOperation.class);
+    when(unitOperation.getSource()).thenReturn(source);
+    RemoveSourceOperation removeOperation = mock(RemoveSourceOperation.class);
+    when(removeOperation.getSource()).thenReturn(source);
+    // enqueue operations, "remove" cancels "unit"
+    OperationQueue queue = new OperationQueue();
+    queue.enqueue(unitOperation);
+    queue.enqueue(removeOperation);
+    assertEquals(1, queue.size());
+    assertExactElements(queue.getOperations(), removeOperation);
+    assertEquals(1, queue.getStatistics().getCancelledCount());
+    // do dequeue
+    assertSame(removeOperation, queue.dequeue(0));
+    assertSame(null, queue.dequeue(0));
+  }
+
+  public void test_enqueue_removeSource_indexUnit_otherContext() throws Exception {
+    Source source = mock(Source.class);
+    AnalysisContext contextA = mock(AnalysisContext.class);
+    AnalysisContext contextB = mock(AnalysisContext.class);
+    IndexUnitOperation unitOperation = mock(IndexUnitOperation.class);
+    when(unitOperation.getContext()).thenReturn(contextA);
+    when(unitOperation.getSource()).thenReturn(source);
+    RemoveSourceOperation removeOperation = mock(RemoveSourceOperation.class);
+    when(removeOperation.getContext()).thenReturn(contextB);
+    when(removeOperation.getSource()).thenReturn(source);
+    // enqueue operations, "remove" in another context does not cancel "unit"
+    OperationQueue queue = new OperationQueue();
+    queue.enqueue(unitOperation);
+    queue.enqueue(removeOperation);
+    assertEquals(2, queue.size());
+    assertExactElements(queue.getOperations(), unitOperation, removeOperation);
+    assertEquals(0, queue.getStatistics().getCancelledCount());
+  }
+
+  public void test_getStatistics() throws Exception {
+    IndexOperation notQueryOperation = mock(IndexOperation.class);
+    IndexOperation isQueryOperation = mock(IndexOperation.class);
+    when(isQueryOperation.isQuery()).thenReturn(true);
+    OperationQueue queue = new OperationQueue();
+    queue.enqueue(isQueryOperation);
+    queue.enqueue(notQueryOperation);
+    {
+      OperationQueueStatistics statistics = queue.getStatistics();
+      assertEquals(1, statistics.getNonQueryDepth());
+      assertEquals(1, statistics.getQueryDepth());
+      assertEquals(0, statistics.getNonQueryCount());
+      assertEquals(0, statistics.getQueryCount());
+    }
+    queue.dequeue(0);
+    queue.dequeue(0);
+    {
+      OperationQueueStatistics statistics = queue.getStatistics();
+      assertEquals(0, statistics.getNonQueryDepth());
+      assertEquals(0, statistics.getQueryDepth());
+      assertEquals(1, statistics.getNonQueryCount());
+      assertEquals(1, statistics.getQueryCount());
+      assertTrue(statistics.getMaxQueryWaitTime() >= statistics.getAverageQueryWaitTime());
+    }
+  }
+
   public void test_new() throws Exception {
     OperationQueue queue = new OperationQueue();
     assertEquals(0, queue.size());
@@ -0,0 +1,280 @@
+/*
+ * Copyright (c) 2013, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.internal.resolver;
+
+import com.google.dart.engine.ast.CompilationUnit;
+import com.google.dart.engine.ast.SimpleIdentifier;
+import com.google.dart.engine.ast.visitor.RecursiveASTVisitor;
+import com.google.dart.engine.element.Element;
+import com.google.dart.engine.element.LibraryElement;
+import com.google.dart.engine.element.LocalElement;
+import com.google.dart.engine.element.visitor.GeneralizingElementVisitor;
+import com.google.dart.engine.error.AnalysisError;
+import com.google.dart.engine.internal.context.RecordingErrorListener;
+import com.google.dart.engine.parser.Parser;
+import com.google.dart.engine.resolver.ResolverTestCase;
+import com.google.dart.engine.scanner.StringScanner;
+import com.google.dart.engine.scanner.Token;
+import com.google.dart.engine.scanner.TokenType;
+import com.google.dart.engine.source.Source;
+import com.google.dart.engine.utilities.source.LineInfo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class IncrementalResolverTest extends ResolverTestCase {
+  private static final String SOURCE = createSource(//
+      "library lib;",
+      "/// Uses [A] and [f].",
+      "class A {",
+      "  int x;",
+      "  A(this.x) {",
+      "    print(x);",
+      "  }",
+      "  int m(int p) {",
+      "    // comment",
+      "    var v = p + x;",
+      "    return v;",
+      "  }",
+      "  /// Returns [x].",
+      "  int get y => x;",
+      "}",
+      "int f(int a) {",
+      "  int g(int b) => a + b;",
+      "  return g(1);",
+      "}",
+      "/// See [A.m].",
+      "int h() => f(2);");
+
+  public void test_resolve_addError() throws Exception {
+    assertResolved(SOURCE, "return v;", "return w;");
+  }
+
+  public void test_resolve_addLines() throws Exception {
+    assertResolved(SOURCE, "var v = p + x;", "var v = p + x;\n    var w = v;\n");
+  }
+
+  public void test_resolve_addLocalFunction() throws Exception {
+    assertResolved(SOURCE, "return g(1);", "k(c) { return c; }\n  return k(g(1));");
+  }
+
+  public void test_resolve_changeExpression() throws Exception {
+    assertResolved(SOURCE, "p + x", "p * x + 1");
+  }
+
+  public void test_resolve_comment() throws Exception {
+    assertResolved(SOURCE, "// comment", "/* longer comment */");
+  }
+
+  public void test_resolve_constructor() throws Exception {
+    assertResolved(SOURCE, "print(x);", "print(this.x); print(y);");
+  }
+
+  public void test_resolve_delete() throws Exception {
+    assertResolved(SOURCE, "  int g(int b) => a + b;\n", "");
+  }
+
+  public void test_resolve_expressionBody() throws Exception {
+    assertNotResolved(SOURCE, "f(2)", "f(3)");
+  }
+
+  public void test_resolve_outsideBody() throws Exception {
+    assertNotResolved(SOURCE, "int x;", "int xx;");
+    assertNotResolved(SOURCE, "int m(int p)", "int m(num p)");
+  }
+
+  public void test_resolve_parseError() throws Exception {
+    assertNotResolved(SOURCE, "return v;", "return (v;");
+    assertNotResolved(SOURCE, "return v;\n  }", "return v;\n  }\n  }");
+  }
+
+  public void test_resolve_removeError() throws Exception {
+    String source = SOURCE.replace("return v;", "return w;");
+    assertResolved(source, "return w;", "return v;");
+  }
+
+  /**
+   * Assert that the compilation unit parsed from the result of replacing the first occurrence of
+   * the given old text with the given new text cannot be resolved using the resolved compilation
+   * unit for the given source, and that neither the unit nor its element model is changed.
+   */
+  private void assertNotResolved(String contents, String oldText, String newText)
+      throws Exception {
+    reset();
+    Source source = addSource(contents);
+    LibraryElement library = resolve(source);
+    CompilationUnit unit = resolveCompilationUnit(source, library);
+    String tokens = describeTokens(unit);
+    String elements = describeElements(unit);
+    int index = contents.indexOf(oldText);
+    String modified = contents.substring(0, index) + newText
+        + contents.substring(index + oldText.length());
+    CompilationUnit newUnit = parse(source, modified);
+    IncrementalResolver resolver = new IncrementalResolver(library, source, getTypeProvider());
+    assertFalse(resolver.resolve(unit, newUnit, index, oldText.length(), newText.length()));
+    assertEquals(tokens, describeTokens(unit));
+    assertEquals(elements, describeElements(unit));
+  }
+
+  /**
+   * Assert that resolving the compilation unit parsed from the result of replacing the first
+   * occurrence of the given old text with the given new text, using the resolved compilation unit
+   * for the given source, produces the same elements, resolution and errors as resolving the
+   * modified source, and that the resolved compilation unit for the given source is not changed.
+   */
+  private void assertResolved(String contents, String oldText, String newText) throws Exception {
+    int index = contents.indexOf(oldText);
+    String modified = contents.substring(0, index) + newText
+        + contents.substring(index + oldText.length());
+    reset();
+    Source expectedSource = addSource(modified);
+    CompilationUnit expectedUnit = resolveCompilationUnit(expectedSource, resolve(expectedSource));
+    reset();
+    Source source = addSource(contents);
+    LibraryElement library = resolve(source);
+    CompilationUnit unit = resolveCompilationUnit(source, library);
+    String tokens = describeTokens(unit);
+    String lineStarts = Arrays.toString(unit.getLineInfo().getLineStarts());
+    String errors = describeErrors(unit);
+    CompilationUnit newUnit = parse(source, modified);
+    IncrementalResolver resolver = new IncrementalResolver(library, source, getTypeProvider());
+    assertTrue(resolver.resolve(unit, newUnit, index, oldText.length(), newText.length()));
+    assertEquals(describeElements(expectedUnit), describeElements(newUnit));
+    assertEquals(describeResolution(expectedUnit), describeResolution(newUnit));
+    assertEquals(describeErrors(expectedUnit), describeErrors(newUnit));
+    assertEquals(tokens, describeTokens(unit));
+    assertEquals(lineStarts, Arrays.toString(unit.getLineInfo().getLineStarts()));
+    assertEquals(errors, describeErrors(unit));
+  }
+
+  /**
+   * Return a description of the kind, name and offsets of the given element.
+   */
+  private String describe(Element element) {
+    if (element == null) {
+      return "null";
+    }
+    StringBuilder builder = new StringBuilder();
+    builder.append(element.getKind());
+    builder.append(' ');
+    builder.append(element.getDisplayName());
+    builder.append(' ');
+    builder.append(element.getNameOffset());
+    if (element instanceof LocalElement) {
+      builder.append(' ');
+      builder.append(((LocalElement) element).getVisibleRange());
+    }
+    return builder.toString();
+  }
+
+  /**
+   * Return a description of the elements in the element model of the given compilation unit.
+   */
+  private String describeElements(CompilationUnit unit) {
+    final StringBuilder builder = new StringBuilder();
+    unit.getElement().accept(new GeneralizingElementVisitor<Void>() {
+      @Override
+      public Void visitElement(Element element) {
+        builder.append(describe(element));
+        builder.append(" in ");
+        builder.append(describe(element.getEnclosingElement()));
+        builder.append('\n');
+        return super.visitElement(element);
+      }
+    });
+    return builder.toString();
+  }
+
+  /**
+   * Return a description of the resolution errors of the given compilation unit, in a stable order.
+   */
+  private String describeErrors(CompilationUnit unit) {
+    List<String> errors = new ArrayList<String>();
+    for (AnalysisError error : unit.getResolutionErrors()) {
+      errors.add(error.getErrorCode() + " " + error.getOffset() + " " + error.getLength());
+    }
+    Collections.sort(errors);
+    return errors.toString();
+  }
+
+  /**
+   * Return a description of the elements and types associated with the identifiers in the given
+   * compilation unit.
+   */
+  private String describeResolution(CompilationUnit unit) {
+    final StringBuilder builder = new StringBuilder();
+    unit.accept(new RecursiveASTVisitor<Void>() {
+      @Override
+      public Void visitSimpleIdentifier(SimpleIdentifier node) {
+        builder.append(node.getName());
+        builder.append(' ');
+        builder.append(node.getOffset());
+        builder.append(' ');
+        builder.append(describe(node.getElement()));
+        builder.append(' ');
+        builder.append(node.getStaticType());
+        builder.append(' ');
+        builder.append(node.getPropagatedType());
+        builder.append('\n');
+        return null;
+      }
+    });
+    return builder.toString();
+  }
+
+  /**
+   * Return a description of the tokens and comments of the given compilation unit.
+   */
+  private String describeTokens(CompilationUnit unit) {
+    StringBuilder builder = new StringBuilder();
+    Token token = unit.getBeginToken();
+    while (true) {
+      Token comment = token.getPrecedingComments();
+      while (comment != null) {
+        builder.append("comment ");
+        builder.append(comment.getLexeme());
+        builder.append(' ');
+        builder.append(comment.getOffset());
+        builder.append('\n');
+        comment = comment.getNext();
+      }
+      builder.append(token.getType());
+      builder.append(' ');
+      builder.append(token.getLexeme());
+      builder.append(' ');
+      builder.append(token.getOffset());
+      builder.append('\n');
+      if (token.getType() == TokenType.EOF) {
+        return builder.toString();
+      }
+      assertSame(token, token.getNext().getPrevious());
+      token = token.getNext();
+    }
+  }
+
+  /**
+   * Return the compilation unit produced by parsing the given contents of the given source.
+   */
+  private CompilationUnit parse(Source source, String contents) {
+    RecordingErrorListener errorListener = new RecordingErrorListener();
+    StringScanner scanner = new StringScanner(source, contents, errorListener);
+    Token token = scanner.tokenize();
+    CompilationUnit unit = new Parser(source, errorListener).parseCompilationUnit(token);
+    unit.setParsingErrors(errorListener.getErrors(source));
+    unit.setLineInfo(new LineInfo(scanner.getLineStarts()));
+    return unit;
+  }
+}
@@ -100,6 +100,27 @@ public class InheritanceManagerTest extends EngineTestCase {
     assertNull(inheritanceManager.lookupInheritance(classB, methodName));
   }
 
+  public void test_lookupInheritance_interfaces_diamond() throws Exception {
+    ClassElementImpl classI0 = classElement("I0");
+    String methodName = "m";
+    MethodElement methodM = methodElement(methodName, typeProvider.getIntType());
+    classI0.setMethods(new MethodElement[] {methodM});
+    ClassElementImpl classI1 = classElement("I1");
+    classI1.setInterfaces(new InterfaceType[] {classI0.getType()});
+    ClassElementImpl classI2 = classElement("I2");
+    classI2.setInterfaces(new InterfaceType[] {classI1.getType()});
+    ClassElementImpl classI3 = classElement("I3");
+    classI3.setInterfaces(new InterfaceType[] {classI1.getType()});
+
+    ClassElementImpl classA = classElement("A");
+    classA.setInterfaces(new InterfaceType[] {classI2.getType(), classI3.getType()});
+    ClassElementImpl classB = classElement("B");
+    classB.setInterfaces(new InterfaceType[] {classI1.getType()});
+    assertSame(methodM, inheritanceManager.lookupInheritance(classA, methodName));
+    assertSame(methodM, inheritanceManager.lookupInheritance(classB, methodName));
+    assertSame(methodM, inheritanceManager.lookupInheritance(classI3, methodName));
+  }
+
   public void test_lookupInheritance_interfaces_infiniteLoop() throws Exception {
     ClassElementImpl classA = classElement("A");
     classA.setInterfaces(new InterfaceType[] {classA.getType()});
@@ -323,6 +344,92 @@ public class InheritanceManagerTest extends EngineTestCase {
     assertNull(inheritanceManager.lookupMember(classA, setterName));
   }
 
+  public void test_sharedCache_hit() throws Exception {
+    LibraryElementImpl libraryA = library(definingLibrary.getContext(), "a");
+    ClassElementImpl classA = classElement("A", (InterfaceType) null);
+    String methodName = "m";
+    MethodElement methodM = methodElement(methodName, typeProvider.getIntType());
+    classA.setMethods(new MethodElement[] {methodM});
+    ClassElementImpl classB = classElement("B", classA.getType());
+    declareClasses(libraryA, classA, classB);
+
+    InheritanceCache cache = new InheritanceCache();
+    InheritanceManager manager = new InheritanceManager(definingLibrary, cache);
+    assertSame(methodM, manager.lookupInheritance(classB, methodName));
+    assertEquals(2, cache.getComputeCount());
+    assertEquals(0, cache.getHitCount());
+
+    LibraryElementImpl otherLibrary = library(definingLibrary.getContext(), "other");
+    InheritanceManager otherManager = new InheritanceManager(otherLibrary, cache);
+    assertSame(methodM, otherManager.lookupInheritance(classB, methodName));
+    assertEquals(2, cache.getComputeCount());
+    assertEquals(1, cache.getHitCount());
+  }
+
+  public void test_sharedCache_clear() throws Exception {
+    LibraryElementImpl libraryA = library(definingLibrary.getContext(), "a");
+    ClassElementImpl classA = classElement("A", (InterfaceType) null);
+    ClassElementImpl classB = classElement("B", classA.getType());
+    declareClasses(libraryA, classA, classB);
+
+    InheritanceCache cache = new InheritanceCache();
+    InheritanceManager manager = new InheritanceManager(definingLibrary, cache);
+    manager.getMapOfMembersInheritedFromClasses(classB);
+    manager.getMapOfMembersInheritedFromInterfaces(classB);
+    cache.clear();
+    assertNull(cache.getClassChainLookupMap(classA));
+    assertNull(cache.getClassChainLookupMap(classB));
+    assertNull(cache.getInterfaceLookupMap(classB));
+  }
+
+  public void test_sharedCache_privateMember() throws Exception {
+    LibraryElementImpl libraryA = library(definingLibrary.getContext(), "a");
+    ClassElementImpl classA = classElement("A", (InterfaceType) null);
+    String methodName = "_m";
+    MethodElement methodM = methodElement(methodName, typeProvider.getIntType());
+    classA.setMethods(new MethodElement[] {methodM});
+    ClassElementImpl classB = classElement("B", classA.getType());
+    declareClasses(libraryA, classA, classB);
+
+    InheritanceCache cache = new InheritanceCache();
+    InheritanceManager manager = new InheritanceManager(definingLibrary, cache);
+    assertNull(manager.lookupInheritance(classB, methodName));
+    InheritanceManager managerA = new InheritanceManager(libraryA, cache);
+    assertSame(methodM, managerA.lookupInheritance(classB, methodName));
+    assertEquals(0, cache.getHitCount());
+  }
+
+  public void test_sharedCache_removeLibrary() throws Exception {
+    LibraryElementImpl libraryA = library(definingLibrary.getContext(), "a");
+    ClassElementImpl classA = classElement("A", (InterfaceType) null);
+    LibraryElementImpl libraryB = library(definingLibrary.getContext(), "b");
+    ClassElementImpl classB = classElement("B", classA.getType());
+    ClassElementImpl classC = classElement("C", (InterfaceType) null);
+    declareClasses(libraryA, classA);
+    declareClasses(libraryB, classB, classC);
+
+    InheritanceCache cache = new InheritanceCache();
+    InheritanceManager manager = new InheritanceManager(definingLibrary, cache);
+    manager.getMapOfMembersInheritedFromClasses(classB);
+    manager.getMapOfMembersInheritedFromClasses(classC);
+    assertEquals(3, cache.getComputeCount());
+    // removing a library removes the classes inheriting from its classes
+    cache.removeLibrary(libraryA.getSource());
+    assertNull(cache.getClassChainLookupMap(classA));
+    assertNull(cache.getClassChainLookupMap(classB));
+    assertNotNull(cache.getClassChainLookupMap(classC));
+  }
+
+  /**
+   * Declare the given classes in the defining compilation unit of the given library.
+   * 
+   * @param library the library in which the classes are to be declared
+   * @param classes the classes to be declared
+   */
+  private void declareClasses(LibraryElementImpl library, ClassElementImpl... classes) {
+    ((CompilationUnitElementImpl) library.getDefiningCompilationUnit()).setTypes(classes);
+  }
+
   /**
    * Create the inheritance manager used by the tests.
    * 
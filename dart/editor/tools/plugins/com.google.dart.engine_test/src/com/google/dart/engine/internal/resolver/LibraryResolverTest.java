@@ -0,0 +1,176 @@
+/*
+ * Copyright (c) 2013, the Dart project authors.
+ *
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.internal.resolver;
+
+import com.google.dart.engine.AnalysisEngine;
+import com.google.dart.engine.error.AnalysisError;
+import com.google.dart.engine.error.GatheringErrorListener;
+import com.google.dart.engine.error.StaticTypeWarningCode;
+import com.google.dart.engine.error.StaticWarningCode;
+import com.google.dart.engine.internal.context.InternalAnalysisContext;
+import com.google.dart.engine.resolver.ResolverTestCase;
+import com.google.dart.engine.source.Source;
+import com.google.dart.engine.utilities.general.PhaseStatistics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+public class LibraryResolverTest extends ResolverTestCase {
+  public void test_resolveLibrary_fieldFormalParameterType() throws Exception {
+    Source source = addSource("/lib.dart", createSource(//
+        "library lib;",
+        "part 'a.dart';",
+        "f() {",
+        "  new A('0');",
+        "}"));
+    addSource("/a.dart", createSource(//
+        "part of lib;",
+        "class A {",
+        "  int x;",
+        "  A(this.x);",
+        "}"));
+    GatheringErrorListener listener = resolveLibrary(source, null);
+    listener.assertErrors(StaticWarningCode.ARGUMENT_TYPE_NOT_ASSIGNABLE);
+  }
+
+  public void test_resolveLibrary_statistics() throws Exception {
+    Source source = addSource("/lib.dart", createSource(//
+        "library lib;",
+        "class A {}"));
+    PhaseStatistics statistics = new PhaseStatistics();
+    AnalysisEngine.getInstance().setResolverStatistics(statistics);
+    try {
+      resolveLibrary(source, null);
+    } finally {
+      AnalysisEngine.getInstance().setResolverStatistics(null);
+    }
+    for (String phase : new String[] {
+        "createLibrary", "computeLibraryDependencies", "buildElementModels",
+        "buildDirectiveModels", "buildTypeHierarchies", "resolveReferencesAndTypes",
+        "performConstantEvaluation", "runAdditionalAnalyses", "recordResults"}) {
+      assertEquals(phase, 1, statistics.getCount(phase));
+    }
+    String[] subjects = statistics.getSlowestSubjects(10);
+    assertEquals(1, subjects.length);
+    assertEquals(source.getFullName(), subjects[0]);
+  }
+
+  public void test_resolveLibrary_workerPool() throws Exception {
+    List<String> expectedErrors = getErrors(resolveLibraryWithParts(null));
+    assertFalse(expectedErrors.isEmpty());
+    reset();
+    ThreadPoolExecutor workerPool = new ThreadPoolExecutor(
+        3,
+        3,
+        1,
+        TimeUnit.SECONDS,
+        new LinkedBlockingQueue<Runnable>());
+    try {
+      GatheringErrorListener listener = resolveLibraryWithParts(workerPool);
+      listener.assertErrors(
+          StaticTypeWarningCode.UNDEFINED_METHOD,
+          StaticTypeWarningCode.UNDEFINED_METHOD,
+          StaticTypeWarningCode.UNDEFINED_METHOD,
+          StaticWarningCode.AMBIGUOUS_IMPORT,
+          StaticWarningCode.ARGUMENT_TYPE_NOT_ASSIGNABLE,
+          StaticWarningCode.ARGUMENT_TYPE_NOT_ASSIGNABLE,
+          StaticWarningCode.UNDEFINED_IDENTIFIER,
+          StaticWarningCode.UNDEFINED_IDENTIFIER,
+          StaticWarningCode.UNDEFINED_IDENTIFIER);
+      assertEquals(expectedErrors, getErrors(listener));
+    } finally {
+      workerPool.shutdown();
+    }
+  }
+
+  /**
+   * Return the string representations of the given errors, in the order in which they were
+   * reported.
+   */
+  private List<String> getErrors(GatheringErrorListener listener) {
+    List<String> errors = new ArrayList<String>();
+    for (AnalysisError error : listener.getErrors()) {
+      errors.add(error.getErrorCode() + " " + error);
+    }
+    return errors;
+  }
+
+  /**
+   * Resolve the library with the given source in the analysis context of this test, visiting its
+   * compilation units using the given worker pool, and return the listener to which errors were
+   * reported.
+   */
+  private GatheringErrorListener resolveLibrary(Source source, ThreadPoolExecutor workerPool)
+      throws Exception {
+    GatheringErrorListener listener = new GatheringErrorListener();
+    LibraryResolver resolver = new LibraryResolver(
+        (InternalAnalysisContext) getAnalysisContext(),
+        listener);
+    resolver.setWorkerPool(workerPool);
+    resolver.resolveLibrary(source, true);
+    return listener;
+  }
+
+  private GatheringErrorListener resolveLibraryWithParts(ThreadPoolExecutor workerPool)
+      throws Exception {
+    addSource("/x.dart", createSource(//
+        "library x;",
+        "class X {}"));
+    addSource("/y.dart", createSource(//
+        "library y;",
+        "class X {}"));
+    Source source = addSource("/lib.dart", createSource(//
+        "library lib;",
+        "import 'x.dart';",
+        "import 'y.dart';",
+        "part 'a.dart';",
+        "part 'b.dart';",
+        "part 'c.dart';",
+        "part 'd.dart';",
+        "f() {",
+        "  X x;",
+        "  return new B(new A('0')).m();",
+        "}"));
+    addSource("/a.dart", createSource(//
+        "part of lib;",
+        "class A {",
+        "  int x;",
+        "  A(this.x) {",
+        "    print(y);",
+        "  }",
+        "}"));
+    addSource("/b.dart", createSource(//
+        "part of lib;",
+        "class B {",
+        "  B(A a);",
+        "  m() => new C().n(z);",
+        "}"));
+    addSource("/c.dart", createSource(//
+        "part of lib;",
+        "class C {",
+        "  n(int i) => i.foo();",
+        "}"));
+    addSource("/d.dart", createSource(//
+        "part of lib;",
+        "g(String s) {",
+        "  s.bar();",
+        "  g(w);",
+        "  g(0);",
+        "}"));
+    return resolveLibrary(source, workerPool);
+  }
+}
@@ -22,8 +22,10 @@ public class TestAll {
   public static Test suite() {
     TestSuite suite = new ExtendedTestSuite("Tests in " + TestAll.class.getPackage().getName());
     suite.addTestSuite(ElementResolverTest.class);
+    suite.addTestSuite(IncrementalResolverTest.class);
     suite.addTestSuite(InheritanceManagerTest.class);
     suite.addTestSuite(LibraryElementBuilderTest.class);
+    suite.addTestSuite(LibraryResolverTest.class);
     suite.addTestSuite(LibraryTest.class);
     suite.addTestSuite(StaticTypeAnalyzerTest.class);
     suite.addTestSuite(TypeOverrideManagerTest.class);
@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2013, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.internal.sdk;
+
+import com.google.dart.engine.context.AnalysisContext;
+import com.google.dart.engine.context.AnalysisException;
+import com.google.dart.engine.element.ClassElement;
+import com.google.dart.engine.element.LibraryElement;
+import com.google.dart.engine.index.IndexFactory;
+import com.google.dart.engine.sdk.DirectoryBasedDartSdk;
+
+import junit.framework.TestCase;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+public class SdkSummaryReaderTest extends TestCase {
+  public void test_readLibraries() throws Exception {
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    new SdkSummaryWriter(createDartSdk()).write(output);
+    SdkSummaryReader reader = new SdkSummaryReader(ByteBuffer.wrap(output.toByteArray()));
+
+    DirectoryBasedDartSdk sdk = createDartSdk();
+    assertTrue(reader.readLibraries(sdk));
+    AnalysisContext context = sdk.getContext();
+    LibraryElement coreLibrary = context.getLibraryElement(
+        context.getSourceFactory().forUri("dart:core"));
+    assertNotNull(coreLibrary);
+    ClassElement objectElement = coreLibrary.getType("Object");
+    assertNotNull(objectElement);
+    assertSame(objectElement, coreLibrary.getType("String").getSupertype().getElement());
+    assertTrue(reader.readIndex(sdk, IndexFactory.newMemoryIndexStore()));
+  }
+
+  public void test_readLibraries_invalid() throws Exception {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream output = new DataOutputStream(bytes);
+    output.writeInt(SdkSummaryWriter.FORMAT_VERSION);
+    output.writeInt(Integer.MAX_VALUE);
+    SdkSummaryReader reader = new SdkSummaryReader(ByteBuffer.wrap(bytes.toByteArray()));
+    try {
+      reader.readLibraries(createDartSdk());
+      fail("Expected AnalysisException");
+    } catch (AnalysisException exception) {
+      // Expected
+    }
+    try {
+      reader.readIndex(createDartSdk(), IndexFactory.newMemoryIndexStore());
+      fail("Expected IOException");
+    } catch (IOException exception) {
+      // Expected
+    }
+  }
+
+  public void test_readLibraries_wrongVersion() throws Exception {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream output = new DataOutputStream(bytes);
+    output.writeInt(SdkSummaryWriter.FORMAT_VERSION + 1);
+    SdkSummaryReader reader = new SdkSummaryReader(ByteBuffer.wrap(bytes.toByteArray()));
+    DirectoryBasedDartSdk sdk = createDartSdk();
+    assertFalse(reader.readLibraries(sdk));
+    assertFalse(reader.readIndex(sdk, IndexFactory.newMemoryIndexStore()));
+  }
+
+  private DirectoryBasedDartSdk createDartSdk() {
+    File sdkDirectory = DirectoryBasedDartSdk.getDefaultSdkDirectory();
+    assertNotNull(
+        "No SDK configured; set the property 'com.google.dart.sdk' on the command line",
+        sdkDirectory);
+    return new DirectoryBasedDartSdk(sdkDirectory);
+  }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2013, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.internal.search;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Sets;
+import com.google.dart.engine.EngineTestCase;
+import com.google.dart.engine.element.ElementFactory;
+import com.google.dart.engine.index.Location;
+import com.google.dart.engine.search.SearchPattern;
+import com.google.dart.engine.search.SearchPatternFactory;
+
+import java.util.List;
+import java.util.Set;
+
+public class DeclarationNameIndexTest extends EngineTestCase {
+  private static final String[] NAMES = {
+      "HashMap", "HashMapEntry", "HashSet", "hashCode", "HatMapper", "Map", "MapEntry",
+      "NullPointerException", "NoPermissionException", "NewPerfData", "UTF16DocumentScannerSupport",
+      "_HashMap", "_privateField", "a", "A", "Ab", "aB", "Éclair", "éclair", ""};
+
+  private static final String[] PATTERNS = {
+      "", "H", "h", "Ha", "HA", "HaMa", "HM", "HMap", "hash", "HASH", "Map", "NPE", "NuPoEx", "npe",
+      "UTF16DSS", "UTFDSS", "_H", "_p", "a", "A", "É", "é", "zzz"};
+
+  private static final String[] WILDCARD_PATTERNS = {
+      "*", "H*", "h*", "Ha?h*", "*Map", "*map*", "?ap", "_*", "A*", "É*", "zzz*"};
+
+  private Location[] locations;
+
+  public void test_getCandidates() throws Exception {
+    DeclarationNameIndex index = new DeclarationNameIndex(locations, 1L);
+    SearchPattern pattern = SearchPatternFactory.createPrefixPattern("Hash", true);
+    // the first query does not sort the names
+    assertSize(NAMES.length, index.getCandidates(pattern));
+    // later queries only return the names with the prefix of the pattern
+    List<Location> candidates = index.getCandidates(pattern);
+    assertSize(3, candidates);
+    for (Location candidate : candidates) {
+      assertTrue(candidate.getElement().getDisplayName().startsWith("Hash"));
+    }
+  }
+
+  public void test_getMatches_camelCase() throws Exception {
+    for (String pattern : PATTERNS) {
+      assertSameMatches(SearchPatternFactory.createCamelCasePattern(pattern, false));
+      assertSameMatches(SearchPatternFactory.createCamelCasePattern(pattern, true));
+    }
+  }
+
+  public void test_getMatches_exact() throws Exception {
+    for (String pattern : PATTERNS) {
+      assertSameMatches(SearchPatternFactory.createExactPattern(pattern, false));
+      assertSameMatches(SearchPatternFactory.createExactPattern(pattern, true));
+    }
+  }
+
+  public void test_getMatches_noPattern() throws Exception {
+    DeclarationNameIndex index = new DeclarationNameIndex(locations, 1L);
+    assertLength(NAMES.length, index.getMatches(null));
+  }
+
+  public void test_getMatches_notIndexable() throws Exception {
+    assertSameMatches(SearchPatternFactory.createRegularExpressionPattern(".*Map.*", true));
+    assertSameMatches(SearchPatternFactory.createOrPattern(
+        SearchPatternFactory.createPrefixPattern("Hash", true),
+        SearchPatternFactory.createPrefixPattern("Null", true)));
+  }
+
+  public void test_getMatches_prefix() throws Exception {
+    for (String pattern : PATTERNS) {
+      assertSameMatches(SearchPatternFactory.createPrefixPattern(pattern, false));
+      assertSameMatches(SearchPatternFactory.createPrefixPattern(pattern, true));
+    }
+  }
+
+  public void test_getMatches_wildcard() throws Exception {
+    for (String pattern : WILDCARD_PATTERNS) {
+      assertSameMatches(SearchPatternFactory.createWildcardPattern(pattern, false));
+      assertSameMatches(SearchPatternFactory.createWildcardPattern(pattern, true));
+    }
+  }
+
+  public void test_getModificationStamp() throws Exception {
+    DeclarationNameIndex index = new DeclarationNameIndex(locations, 42L);
+    assertEquals(42L, index.getModificationStamp());
+  }
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    locations = new Location[NAMES.length];
+    for (int i = 0; i < NAMES.length; i++) {
+      locations[i] = new Location(ElementFactory.classElement(NAMES[i]), i, 1, null);
+    }
+  }
+
+  /**
+   * Assert that the index finds the same declarations as matching every declaration, both when it
+   * is queried for the first time and when its sorted names are used.
+   */
+  private void assertSameMatches(SearchPattern pattern) {
+    Set<Location> expected = Sets.newHashSet();
+    for (Location location : locations) {
+      if (pattern.matches(location.getElement()) != null) {
+        expected.add(location);
+      }
+    }
+    DeclarationNameIndex index = new DeclarationNameIndex(locations, 1L);
+    for (int i = 0; i < 2; i++) {
+      Location[] matches = index.getMatches(pattern);
+      assertEquals(pattern.toString(), expected, ImmutableSet.copyOf(matches));
+      assertLength(expected.size(), matches);
+    }
+  }
+}
@@ -24,6 +24,7 @@ public class TestAll {
     suite.addTest(com.google.dart.engine.internal.search.listener.TestAll.suite());
     suite.addTest(com.google.dart.engine.internal.search.pattern.TestAll.suite());
     suite.addTest(com.google.dart.engine.internal.search.scope.TestAll.suite());
+    suite.addTestSuite(DeclarationNameIndexTest.class);
     suite.addTestSuite(SearchEngineImplTest.class);
     return suite;
   }
@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2013, the Dart project authors.
+ *
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.internal.verifier;
+
+import com.google.dart.engine.AnalysisEngine;
+import com.google.dart.engine.EngineTestCase;
+import com.google.dart.engine.ast.CompilationUnit;
+import com.google.dart.engine.ast.visitor.FusedASTVisitor;
+import com.google.dart.engine.context.AnalysisContext;
+import com.google.dart.engine.element.CompilationUnitElement;
+import com.google.dart.engine.element.LibraryElement;
+import com.google.dart.engine.error.GatheringErrorListener;
+import com.google.dart.engine.internal.error.ErrorReporter;
+import com.google.dart.engine.internal.resolver.InheritanceManager;
+import com.google.dart.engine.internal.resolver.TypeProvider;
+import com.google.dart.engine.internal.resolver.TypeProviderImpl;
+import com.google.dart.engine.sdk.DartSdk;
+import com.google.dart.engine.sdk.DirectoryBasedDartSdk;
+import com.google.dart.engine.source.DartUriResolver;
+import com.google.dart.engine.source.SourceFactory;
+
+import java.util.ArrayList;
+
+/**
+ * Instances of the class {@code ErrorVerifierBenchmark} compare the time it takes to verify the
+ * compilation units of the SDK libraries when the {@link ErrorVerifier} and the
+ * {@link ConstantVerifier} each traverse the units with the time it takes when the constant
+ * verifier is a participant of the error verifier's traversal. The benchmark is not part of any
+ * {@code TestAll} because of how long it takes to run.
+ */
+public class ErrorVerifierBenchmark extends EngineTestCase {
+  /**
+   * The number of times the units are verified in each way. The fastest time is reported.
+   */
+  private static final int ITERATION_COUNT = 10;
+
+  private AnalysisContext context;
+
+  private TypeProvider typeProvider;
+
+  public void test_verifySdk() throws Exception {
+    DartSdk sdk = DirectoryBasedDartSdk.getDefaultSdk();
+    SourceFactory sourceFactory = new SourceFactory(new DartUriResolver(sdk));
+    context = AnalysisEngine.getInstance().createAnalysisContext();
+    context.setSourceFactory(sourceFactory);
+    LibraryElement coreLibrary = context.computeLibraryElement(sourceFactory.forUri("dart:core"));
+    typeProvider = new TypeProviderImpl(coreLibrary);
+    ArrayList<LibraryElement> libraries = new ArrayList<LibraryElement>();
+    ArrayList<CompilationUnit> units = new ArrayList<CompilationUnit>();
+    for (String dartUri : sdk.getUris()) {
+      LibraryElement library = context.computeLibraryElement(sourceFactory.forUri(dartUri));
+      addUnit(libraries, units, library, library.getDefiningCompilationUnit());
+      for (CompilationUnitElement part : library.getParts()) {
+        addUnit(libraries, units, library, part);
+      }
+    }
+
+    long separateTime = Long.MAX_VALUE;
+    long fusedTime = Long.MAX_VALUE;
+    for (int i = 0; i < ITERATION_COUNT; i++) {
+      GatheringErrorListener separateListener = new GatheringErrorListener();
+      long startTime = System.nanoTime();
+      verify(libraries, units, separateListener, false);
+      separateTime = Math.min(separateTime, System.nanoTime() - startTime);
+
+      GatheringErrorListener fusedListener = new GatheringErrorListener();
+      startTime = System.nanoTime();
+      verify(libraries, units, fusedListener, true);
+      fusedTime = Math.min(fusedTime, System.nanoTime() - startTime);
+
+      assertEquals(separateListener.getErrors().size(), fusedListener.getErrors().size());
+    }
+    System.out.println("Verified " + units.size() + " SDK compilation units in "
+        + separateTime / 1000000 + " ms using separate traversals and " + fusedTime / 1000000
+        + " ms using a fused traversal");
+  }
+
+  /**
+   * Add the resolved AST structure of the given compilation unit, and the library containing it,
+   * to the given lists.
+   */
+  private void addUnit(ArrayList<LibraryElement> libraries, ArrayList<CompilationUnit> units,
+      LibraryElement library, CompilationUnitElement unit) throws Exception {
+    libraries.add(library);
+    units.add(context.resolveCompilationUnit(unit.getSource(), library));
+  }
+
+  /**
+   * Verify each of the given compilation units, reporting errors to the given listener.
+   *
+   * @param libraries the libraries containing the units, in the same order as the units
+   * @param units the compilation units to be verified
+   * @param listener the listener to which errors are to be reported
+   * @param fused {@code true} if the constant verifier should participate in the traversal of the
+   *          error verifier rather than traversing each unit itself
+   */
+  private void verify(ArrayList<LibraryElement> libraries, ArrayList<CompilationUnit> units,
+      GatheringErrorListener listener, boolean fused) {
+    int count = units.size();
+    for (int i = 0; i < count; i++) {
+      LibraryElement library = libraries.get(i);
+      CompilationUnit unit = units.get(i);
+      ErrorReporter errorReporter = new ErrorReporter(listener, unit.getElement().getSource());
+      ErrorVerifier errorVerifier = new ErrorVerifier(
+          errorReporter,
+          library,
+          typeProvider,
+          new InheritanceManager(library));
+      ConstantVerifier constantVerifier = new ConstantVerifier(errorReporter, typeProvider);
+      if (fused) {
+        errorVerifier.addParticipant(constantVerifier);
+        unit.accept(errorVerifier);
+      } else {
+        unit.accept(errorVerifier);
+        unit.accept(new FusedASTVisitor<Void>(constantVerifier));
+      }
+    }
+  }
+}
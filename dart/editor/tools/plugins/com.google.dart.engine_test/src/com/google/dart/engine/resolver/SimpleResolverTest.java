@@ -26,6 +26,7 @@ import com.google.dart.engine.element.Annotation;
 import com.google.dart.engine.element.ClassElement;
 import com.google.dart.engine.element.CompilationUnitElement;
 import com.google.dart.engine.element.FieldElement;
+import com.google.dart.engine.element.FunctionElement;
 import com.google.dart.engine.element.LibraryElement;
 import com.google.dart.engine.element.MethodElement;
 import com.google.dart.engine.element.ParameterElement;
@@ -263,6 +264,17 @@ public class SimpleResolverTest extends ResolverTestCase {
     verify(source);
   }
 
+  public void test_functionDeclaration_undeclaredReturnType() throws Exception {
+    Source source = addSource(createSource(//
+        "f() => 0;"));
+    LibraryElement library = resolve(source);
+    assertNoErrors();
+    verify(source);
+    // The type of a top-level function is the one computed from its declaration.
+    FunctionElement function = library.getDefiningCompilationUnit().getFunctions()[0];
+    assertTrue(function.getType().getReturnType().isDynamic());
+  }
+
   public void test_functionTypeAlias() throws Exception {
     Source source = addSource(createSource(//
         "typedef bool P(e);",
@@ -0,0 +1,227 @@
+/*
+ * Copyright (c) 2013, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.scanner;
+
+import com.google.dart.engine.EngineTestCase;
+import com.google.dart.engine.error.GatheringErrorListener;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class IncrementalScannerTest extends EngineTestCase {
+  private static final String SOURCE = createSource(//
+      "library lib;",
+      "/// Documentation.",
+      "class A<T> extends B {",
+      "  List<List<T>> values = [];",
+      "  int get length => values.length; // length",
+      "  String toString() {",
+      "    var s = 'a $length b ${values.map((v) { return '$v'; })} c';",
+      "    /* block */ return s + r'raw' + '''multi",
+      "line''' + \"x$this\";",
+      "  }",
+      "  m(a, [b = 1.5e3]) => a..b(b)..c[0] = {'k': a >> 2};",
+      "}");
+
+  private static final String[] INSERTIONS = {
+      "a", " ", "\n", "{", "}", "(", "]", "'", "\"", "r'", "$", "${", "/*", "*/", "//"};
+
+  public void test_copyTokenStream() throws Exception {
+    Token original = scan(SOURCE);
+    Token copy = IncrementalScanner.copyTokenStream(original);
+    assertSameTokens(original, copy);
+    Token token = original;
+    Token copied = copy;
+    while (token.getType() != TokenType.EOF) {
+      assertNotSame(token, copied);
+      token = token.getNext();
+      copied = copied.getNext();
+    }
+  }
+
+  public void test_rescan_comment() throws Exception {
+    assertRescan("a /* b */ c", 5, 1, "x");
+    assertRescan("a /* b */ c", 2, 0, "// ");
+    assertRescan("a\n// b\nc", 5, 1, "");
+  }
+
+  public void test_rescan_delete() throws Exception {
+    assertRescan("class A { int b; }", 10, 6, "");
+    assertRescan("a + b", 0, 5, "");
+  }
+
+  public void test_rescan_everyPosition() throws Exception {
+    for (int index = 0; index <= SOURCE.length(); index++) {
+      for (String insertion : INSERTIONS) {
+        assertRescan(SOURCE, index, 0, insertion);
+      }
+      if (index < SOURCE.length()) {
+        assertRescan(SOURCE, index, 1, "");
+        assertRescan(SOURCE, index, 1, "b");
+      }
+    }
+  }
+
+  public void test_rescan_groups() throws Exception {
+    assertRescan("f() { g(); }", 6, 0, "{");
+    assertRescan("f() { g(); }", 11, 1, "");
+    assertRescan("f() { g(); }", 8, 1, "");
+    assertRescan("a[0] = b[1];", 2, 0, "]");
+  }
+
+  public void test_rescan_identifier() throws Exception {
+    assertRescan("class A { int b; }", 15, 0, "c");
+    assertRescan("class A { int b; }", 14, 0, "c");
+    assertRescan("class A { int b; }", 0, 0, "abstract ");
+  }
+
+  public void test_rescan_interpolation() throws Exception {
+    assertRescan("'a $b c'", 4, 0, "x");
+    assertRescan("'a $b c'", 6, 0, "x");
+    assertRescan("'a ${b} c'", 5, 0, "+ 1");
+    assertRescan("'a ${b} c' + d", 11, 0, "'");
+  }
+
+  public void test_rescan_lineStarts() throws Exception {
+    assertRescan("a\nb\nc\nd", 3, 0, "\n\n");
+    assertRescan("a\nb\nc\nd", 1, 4, "");
+    assertRescan("a\r\nb", 1, 1, "");
+  }
+
+  public void test_rescan_local() throws Exception {
+    StringBuilder builder = new StringBuilder();
+    for (int i = 0; i < 100; i++) {
+      builder.append("int f");
+      builder.append(i);
+      builder.append("() { return ");
+      builder.append(i);
+      builder.append("; }\n");
+    }
+    String original = builder.toString();
+    int index = original.indexOf("return 50;") + "return ".length();
+    IncrementalScanner scanner = assertRescan(original, index, 2, "fifty");
+    // only the edited token and the token before it are scanned
+    Token leftToken = scanner.getLeftToken();
+    Token rightToken = scanner.getRightToken();
+    assertNotNull(leftToken);
+    assertNotNull(rightToken);
+    assertEquals("{", leftToken.getLexeme());
+    assertEquals(";", rightToken.getLexeme());
+    assertSame(rightToken, leftToken.getNext().getNext().getNext());
+  }
+
+  public void test_rescan_multiLineString() throws Exception {
+    assertRescan("a = '''x\ny''';", 9, 0, "'''");
+    assertRescan("a = '''x\ny''';", 6, 1, "");
+  }
+
+  public void test_rescan_unterminatedComment() throws Exception {
+    assertRescan("a b c", 2, 0, "/*");
+  }
+
+  /**
+   * Assert that incrementally rescanning the given source after the given edit produces the same
+   * tokens and line starts as scanning the edited source.
+   */
+  private IncrementalScanner assertRescan(String original, int index, int removedLength,
+      String inserted) {
+    String modified = original.substring(0, index) + inserted
+        + original.substring(index + removedLength);
+    StringScanner originalScanner = new StringScanner(null, original, new GatheringErrorListener());
+    Token originalStream = originalScanner.tokenize();
+    StringScanner modifiedScanner = new StringScanner(null, modified, new GatheringErrorListener());
+    Token expectedStream = modifiedScanner.tokenize();
+    IncrementalScanner scanner = new IncrementalScanner(
+        null,
+        modified,
+        new GatheringErrorListener());
+    Token stream = scanner.rescan(
+        originalStream,
+        originalScanner.getLineStarts(),
+        index,
+        removedLength,
+        inserted.length());
+    String message = "'" + original + "' edited to '" + modified + "'";
+    assertSameTokens(message, expectedStream, stream);
+    assertEquals(message, modifiedScanner.hasUnmatchedGroups(), scanner.hasUnmatchedGroups());
+    assertEquals(
+        message,
+        Arrays.toString(modifiedScanner.getLineStarts()),
+        Arrays.toString(scanner.getLineStarts()));
+    return scanner;
+  }
+
+  static void assertSameTokens(String message, Token expected, Token actual) {
+    List<Token> expectedTokens = toList(expected);
+    List<Token> actualTokens = toList(actual);
+    assertEquals(message, toString(expectedTokens), toString(actualTokens));
+    for (int i = 0; i < expectedTokens.size(); i++) {
+      Token expectedToken = expectedTokens.get(i);
+      Token actualToken = actualTokens.get(i);
+      assertEquals(message, expectedToken.getClass(), actualToken.getClass());
+      assertEquals(
+          message,
+          toString(toList(expectedToken.getPrecedingComments())),
+          toString(toList(actualToken.getPrecedingComments())));
+      if (expectedToken instanceof BeginToken) {
+        Token expectedEnd = ((BeginToken) expectedToken).getEndToken();
+        Token actualEnd = ((BeginToken) actualToken).getEndToken();
+        assertEquals(
+            message + " end of " + expectedToken.getOffset(),
+            expectedTokens.indexOf(expectedEnd),
+            actualTokens.indexOf(actualEnd));
+      }
+      if (i > 0) {
+        assertSame(message, actualTokens.get(i - 1), actualToken.getPrevious());
+      }
+    }
+  }
+
+  private void assertSameTokens(Token expected, Token actual) {
+    assertSameTokens("", expected, actual);
+  }
+
+  private Token scan(String source) {
+    return new StringScanner(null, source, new GatheringErrorListener()).tokenize();
+  }
+
+  /**
+   * Return the tokens in the stream starting with the given token, including the end of file token.
+   */
+  private static List<Token> toList(Token token) {
+    List<Token> tokens = new ArrayList<Token>();
+    while (token != null) {
+      tokens.add(token);
+      if (token.getType() == TokenType.EOF) {
+        break;
+      }
+      token = token.getNext();
+    }
+    return tokens;
+  }
+
+  private static String toString(List<Token> tokens) {
+    StringBuilder builder = new StringBuilder();
+    for (Token token : tokens) {
+      builder.append(token.getType());
+      builder.append(" '");
+      builder.append(token.getLexeme());
+      builder.append("' ");
+      builder.append(token.getOffset());
+      builder.append('\n');
+    }
+    return builder.toString();
+  }
+}
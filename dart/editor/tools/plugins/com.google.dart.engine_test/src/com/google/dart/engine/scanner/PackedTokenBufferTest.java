@@ -0,0 +1,173 @@
+/*
+ * Copyright (c) 2013, the Dart project authors.
+ *
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.scanner;
+
+import com.google.dart.engine.EngineTestCase;
+import com.google.dart.engine.error.GatheringErrorListener;
+
+import java.util.Arrays;
+
+public class PackedTokenBufferTest extends EngineTestCase {
+  private static final String SOURCE = createSource(//
+      "library lib;",
+      "/// Documentation.",
+      "class A<T> extends B {",
+      "  List<List<T>> values = [];",
+      "  int get length => values.length; // length",
+      "  String toString() {",
+      "    var s = 'a $length b ${values.map((v) { return '$v'; })} c';",
+      "    /* block */ return s + r'raw' + '''multi",
+      "line''' + \"x$this\";",
+      "  }",
+      "  m(a, [b = 1.5e3]) => a..b(b)..c[0] = {'k': a >> 2};",
+      "}",
+      "// trailing");
+
+  public void test_accessors() throws Exception {
+    PackedTokenBuffer buffer = pack("a /* b */ class(c)");
+    assertEquals(7, buffer.getTokenCount());
+    assertEquals(TokenType.IDENTIFIER, buffer.getType(0));
+    assertEquals("a", buffer.getLexeme(0));
+    assertTrue(buffer.isComment(1));
+    assertEquals(TokenType.MULTI_LINE_COMMENT, buffer.getType(1));
+    assertEquals(2, buffer.getOffset(1));
+    assertEquals(7, buffer.getLength(1));
+    assertFalse(buffer.isComment(2));
+    assertEquals(TokenType.KEYWORD, buffer.getType(2));
+    assertEquals("class", buffer.getLexeme(2));
+    assertEquals(TokenType.OPEN_PAREN, buffer.getType(3));
+    assertEquals(15, buffer.getOffset(3));
+    assertEquals(1, buffer.getLength(3));
+    assertEquals(TokenType.EOF, buffer.getType(6));
+  }
+
+  public void test_getFirstToken() throws Exception {
+    StringScanner scanner = new StringScanner(null, SOURCE, new GatheringErrorListener());
+    Token token = scanner.tokenize();
+    PackedTokenBuffer buffer = new PackedTokenBuffer(token, scanner.getLineStarts());
+    IncrementalScannerTest.assertSameTokens("", token, buffer.getFirstToken());
+    assertNotSame(buffer.getFirstToken(), buffer.getFirstToken());
+    new TokenStreamValidator().validate(buffer.getFirstToken());
+  }
+
+  public void test_getFirstToken_empty() throws Exception {
+    PackedTokenBuffer buffer = pack("");
+    Token token = buffer.getFirstToken();
+    assertEquals(TokenType.EOF, token.getType());
+    assertSame(token, token.getNext());
+  }
+
+  public void test_getFirstToken_unmatchedGroups() throws Exception {
+    String source = "f() { g(; [ }";
+    Token token = new StringScanner(null, source, new GatheringErrorListener()).tokenize();
+    IncrementalScannerTest.assertSameTokens("", token, pack(source).getFirstToken());
+  }
+
+  public void test_getLineStarts() throws Exception {
+    StringScanner scanner = new StringScanner(null, "a\nb\nc", new GatheringErrorListener());
+    Token token = scanner.tokenize();
+    PackedTokenBuffer buffer = new PackedTokenBuffer(token, scanner.getLineStarts());
+    assertTrue(Arrays.equals(scanner.getLineStarts(), buffer.getLineStarts()));
+    assertEquals(2, buffer.getLineInfo().getLocation(2).getLineNumber());
+    assertEquals(3, buffer.getLineInfo().getLocation(4).getLineNumber());
+  }
+
+  public void test_update() throws Exception {
+    String[] insertions = {"a", " ", "\n", "{", "}", "(", "'", "$", "${", "/*", "//"};
+    for (int index = 0; index <= SOURCE.length(); index++) {
+      for (String insertion : insertions) {
+        assertUpdate(SOURCE, index, 0, insertion);
+      }
+      if (index < SOURCE.length()) {
+        assertUpdate(SOURCE, index, 1, "");
+        assertUpdate(SOURCE, index, 1, "b");
+      }
+    }
+  }
+
+  public void test_update_repeated() throws Exception {
+    String source = "class A {\n  m() {\n    return 1;\n  }\n}\n";
+    PackedTokenBuffer buffer = pack(source);
+    for (int i = 0; i < 100; i++) {
+      int index = source.indexOf("return ") + "return ".length();
+      String modified = source.substring(0, index) + "x" + i + " + " + source.substring(index);
+      int insertedLength = modified.length() - source.length();
+      buffer = assertUpdate(buffer, source, modified, index, 0, insertedLength);
+      source = modified;
+    }
+  }
+
+  /**
+   * Assert that updating the buffer for the given source after rescanning the given edit produces
+   * a buffer equivalent to packing the edited source.
+   */
+  private void assertUpdate(String original, int index, int removedLength, String inserted) {
+    String modified = original.substring(0, index) + inserted
+        + original.substring(index + removedLength);
+    assertUpdate(pack(original), original, modified, index, removedLength, inserted.length());
+  }
+
+  /**
+   * Assert that updating the given buffer, which holds the tokens of the given original source,
+   * after rescanning the given edit produces a buffer equivalent to packing the modified source,
+   * and that the given buffer is not changed. Return the updated buffer.
+   */
+  private PackedTokenBuffer assertUpdate(PackedTokenBuffer buffer, String original,
+      String modified, int index, int removedLength, int insertedLength) {
+    String message = "'" + original + "' edited to '" + modified + "'";
+    String before = describe(buffer);
+    IncrementalScanner scanner = new IncrementalScanner(
+        null,
+        modified,
+        new GatheringErrorListener());
+    Token token = scanner.rescan(
+        buffer.getFirstToken(),
+        buffer.getLineStarts(),
+        index,
+        removedLength,
+        insertedLength);
+    PackedTokenBuffer updated = buffer.update(token, scanner, insertedLength - removedLength);
+    PackedTokenBuffer expected = pack(modified);
+    assertEquals(message, describe(expected), describe(updated));
+    IncrementalScannerTest.assertSameTokens(
+        message,
+        expected.getFirstToken(),
+        updated.getFirstToken());
+    assertEquals(message, before, describe(buffer));
+    return updated;
+  }
+
+  /**
+   * Return a description of the tokens held by the given buffer.
+   */
+  private String describe(PackedTokenBuffer buffer) {
+    StringBuilder builder = new StringBuilder();
+    for (int i = 0; i < buffer.getTokenCount(); i++) {
+      builder.append(buffer.isComment(i) ? "comment " : "");
+      builder.append(buffer.getType(i));
+      builder.append(' ');
+      builder.append(buffer.getLexeme(i));
+      builder.append(' ');
+      builder.append(buffer.getOffset(i));
+      builder.append('\n');
+    }
+    builder.append(Arrays.toString(buffer.getLineStarts()));
+    return builder.toString();
+  }
+
+  private PackedTokenBuffer pack(String source) {
+    StringScanner scanner = new StringScanner(null, source, new GatheringErrorListener());
+    return new PackedTokenBuffer(scanner.tokenize(), scanner.getLineStarts());
+  }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2013, the Dart project authors.
+ *
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.utilities.general;
+
+import junit.framework.TestCase;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+
+public class PhaseStatisticsTest extends TestCase {
+  public void test_getPercentile() {
+    PhaseStatistics statistics = new PhaseStatistics();
+    for (int i = 1; i <= 100; i++) {
+      record(statistics, "lib" + i, "resolve", i, 0);
+    }
+    assertEquals(100, statistics.getCount("resolve"));
+    assertEquals(1, statistics.getPercentile("resolve", 1));
+    assertEquals(50, statistics.getPercentile("resolve", 50));
+    assertEquals(90, statistics.getPercentile("resolve", 90));
+    assertEquals(99, statistics.getPercentile("resolve", 99));
+    assertEquals(100, statistics.getPercentile("resolve", 100));
+  }
+
+  public void test_getPercentile_noSamples() {
+    PhaseStatistics statistics = new PhaseStatistics();
+    assertEquals(0, statistics.getCount("resolve"));
+    assertEquals(0, statistics.getPercentile("resolve", 50));
+  }
+
+  public void test_getPhases() {
+    PhaseStatistics statistics = new PhaseStatistics();
+    record(statistics, "a", "parse", 1, 0);
+    record(statistics, "a", "resolve", 1, 0);
+    record(statistics, "b", "parse", 1, 0);
+    String[] phases = statistics.getPhases();
+    assertEquals(2, phases.length);
+    assertEquals("parse", phases[0]);
+    assertEquals("resolve", phases[1]);
+  }
+
+  public void test_getSlowestSubjects() {
+    PhaseStatistics statistics = new PhaseStatistics();
+    record(statistics, "a", "resolve", 10, 0);
+    record(statistics, "b", "resolve", 30, 0);
+    record(statistics, "c", "resolve", 15, 0);
+    record(statistics, "a", "verify", 10, 0);
+    String[] subjects = statistics.getSlowestSubjects(2);
+    assertEquals(2, subjects.length);
+    assertEquals("b", subjects[0]);
+    assertEquals("a", subjects[1]);
+  }
+
+  public void test_getTotalAllocation() {
+    PhaseStatistics statistics = new PhaseStatistics();
+    record(statistics, "a", "resolve", 1, 100);
+    record(statistics, "b", "resolve", 1, 50);
+    record(statistics, "a", "verify", 1, 100);
+    record(statistics, "b", "verify", 1, -1);
+    assertEquals(150, statistics.getTotalAllocation("resolve"));
+    assertEquals(-1, statistics.getTotalAllocation("verify"));
+  }
+
+  public void test_phaseTimer() {
+    PhaseStatistics statistics = new PhaseStatistics();
+    PhaseTimer timer = new PhaseTimer(statistics, "a");
+    assertTrue(timer.phaseComplete("parse") >= 0);
+    assertTrue(timer.phaseComplete("resolve") >= 0);
+    assertEquals(0, statistics.getCount("parse"));
+    timer.stop();
+    assertEquals(1, statistics.getCount("parse"));
+    assertEquals(1, statistics.getCount("resolve"));
+    // stopping the timer again does not record the phases again
+    timer.stop();
+    assertEquals(1, statistics.getCount("parse"));
+  }
+
+  public void test_phaseTimer_noStatistics() {
+    PhaseTimer timer = new PhaseTimer(null, "a");
+    assertTrue(timer.phaseComplete("parse") >= 0);
+    timer.stop();
+  }
+
+  public void test_print() {
+    PhaseStatistics statistics = new PhaseStatistics();
+    record(statistics, "/lib/a.dart", "resolve", 2000000, 1024 * 1024);
+    record(statistics, "/lib/b.dart", "resolve", 4000000, -1);
+    StringWriter writer = new StringWriter();
+    statistics.print(new PrintWriter(writer), 1);
+    String[] lines = writer.toString().split("\r?\n");
+    assertEquals(5, lines.length);
+    assertTrue(lines[0], lines[0].startsWith("phase"));
+    assertTrue(
+        lines[1],
+        lines[1].matches("resolve +2 +6\\.0 +2\\.00 +4\\.00 +4\\.00 +4\\.00 +\\?"));
+    assertEquals("", lines[2]);
+    assertTrue(lines[4], lines[4].matches(" +4\\.0 +\\?  /lib/b\\.dart"));
+  }
+
+  private void record(PhaseStatistics statistics, String subject, String phase, long duration,
+      long allocation) {
+    statistics.record(
+        subject,
+        new String[] {phase},
+        new long[] {duration},
+        new long[] {allocation},
+        1);
+  }
+}
@@ -15,6 +15,7 @@ package com.google.dart.tools.core;
 
 import com.google.dart.engine.AnalysisEngine;
 import com.google.dart.engine.error.ErrorCode;
+import com.google.dart.engine.internal.cache.FileBasedElementStore;
 import com.google.dart.engine.utilities.instrumentation.Instrumentation;
 import com.google.dart.engine.utilities.instrumentation.InstrumentationBuilder;
 import com.google.dart.engine.utilities.logging.Logger;
@@ -1453,6 +1454,11 @@ public class DartCore extends Plugin implements DartSdkListener {
         DartCore.logInformation(message, exception);
       }
     });
+    AnalysisEngine.getInstance().setWorkerCount(DartCoreDebug.ANALYSIS_WORKER_COUNT);
+    if (DartCoreDebug.ENABLE_ELEMENT_CACHE) {
+      AnalysisEngine.getInstance().setElementStore(
+          new FileBasedElementStore(getStateLocation().append("elementCache").toFile()));
+    }
     DartSdkManager.getManager().addSdkListener(this);
     getProjectManager().start();
   }
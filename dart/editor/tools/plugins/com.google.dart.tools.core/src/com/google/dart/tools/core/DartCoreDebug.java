@@ -53,6 +53,13 @@ public class DartCoreDebug {
   public static final boolean ENABLE_THEMES = true; //isOptionTrue("experimental/themes");
   public static final boolean ENABLE_TAB_COLORING = isOptionTrue("experimental/tabColors");
   public static final boolean ENABLE_HTML_VALIDATION = isOptionTrue("experimental/validateHtml");
+  public static final int ANALYSIS_WORKER_COUNT = getOptionInt("experimental/analysis/workers", 1);
+  public static final boolean ENABLE_ELEMENT_CACHE = isOptionTrue(
+      "experimental/analysis/elementCache");
+  public static final boolean ENABLE_COMPACT_INDEX = isOptionTrue("experimental/index/compact");
+  public static final boolean ENABLE_MAPPED_INDEX = isOptionTrue("experimental/index/mapped");
+  public static final boolean ENABLE_NIO_RESOURCE_SERVER = isOptionTrue(
+      "experimental/resourceServer/nio");
 
   // Verify that dartc has not been specified and that the new analyzer is not explicitly disabled
   public static final boolean ENABLE_NEW_ANALYSIS = true;
@@ -96,6 +103,11 @@ public class DartCoreDebug {
     instrumentation.metric("ENABLE_THEMES", ENABLE_THEMES);
     instrumentation.metric("ENABLE_TAB_COLORING", ENABLE_TAB_COLORING);
     instrumentation.metric("ENABLE_HTML_VALIDATION", ENABLE_HTML_VALIDATION);
+    instrumentation.metric("ANALYSIS_WORKER_COUNT", ANALYSIS_WORKER_COUNT);
+    instrumentation.metric("ENABLE_ELEMENT_CACHE", ENABLE_ELEMENT_CACHE);
+    instrumentation.metric("ENABLE_COMPACT_INDEX", ENABLE_COMPACT_INDEX);
+    instrumentation.metric("ENABLE_MAPPED_INDEX", ENABLE_MAPPED_INDEX);
+    instrumentation.metric("ENABLE_NIO_RESOURCE_SERVER", ENABLE_NIO_RESOURCE_SERVER);
     instrumentation.metric("ENABLE_NEW_ANALYSIS", ENABLE_NEW_ANALYSIS);
 
     instrumentation.metric("DISABLE_MARK_OCCURRENCES", DISABLE_MARK_OCCURRENCES);
@@ -105,6 +117,26 @@ public class DartCoreDebug {
 
   }
 
+  /**
+   * @return the integer value of the option, or the default value if the option is not specified
+   *         or is not an integer.
+   */
+  private static int getOptionInt(String optionSuffix, int defaultValue) {
+    String option = DartCore.PLUGIN_ID + "/" + optionSuffix;
+    String value = Platform.getDebugOption(option);
+    if (value == null) {
+      value = DartCore.getUserDefinedProperty(option);
+    }
+    if (value == null) {
+      return defaultValue;
+    }
+    try {
+      return Integer.parseInt(value.trim());
+    } catch (NumberFormatException e) {
+      return defaultValue;
+    }
+  }
+
   /**
    * @return <code>true</code> if option has value "true".
    */
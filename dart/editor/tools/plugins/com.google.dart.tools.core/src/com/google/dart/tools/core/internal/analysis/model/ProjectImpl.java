@@ -17,6 +17,7 @@ import com.google.dart.engine.AnalysisEngine;
 import com.google.dart.engine.context.AnalysisContext;
 import com.google.dart.engine.index.Index;
 import com.google.dart.engine.sdk.DartSdk;
+import com.google.dart.engine.services.completion.CompletionSymbolTable;
 import com.google.dart.engine.source.DartUriResolver;
 import com.google.dart.engine.source.DirectoryBasedSourceContainer;
 import com.google.dart.engine.source.FileUriResolver;
@@ -194,6 +195,7 @@ public class ProjectImpl extends ContextManagerImpl implements Project {
           AnalysisContext context = entry.getValue().getContext();
           stopWorkers(context);
           index.removeContext(context);
+          CompletionSymbolTable.removeContext(context);
           iter.remove();
         }
       }
@@ -202,6 +204,7 @@ public class ProjectImpl extends ContextManagerImpl implements Project {
       if (projectResource.equals(container)) {
         stopWorkers(defaultContext);
         index.removeContext(defaultContext);
+        CompletionSymbolTable.removeContext(defaultContext);
         defaultContext = null;
         defaultResourceMap = null;
       }
@@ -380,6 +383,7 @@ public class ProjectImpl extends ContextManagerImpl implements Project {
       if (defaultContext != context) {
         defaultContext.mergeContext(context);
         index.removeContext(context);
+        CompletionSymbolTable.removeContext(context);
       } else {
         initContext(defaultContext, projectResource, getSdk(), false);
       }
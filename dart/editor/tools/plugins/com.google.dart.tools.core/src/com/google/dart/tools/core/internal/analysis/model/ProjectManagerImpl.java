@@ -18,6 +18,8 @@ import com.google.dart.engine.context.AnalysisErrorInfo;
 import com.google.dart.engine.context.ChangeSet;
 import com.google.dart.engine.index.Index;
 import com.google.dart.engine.index.IndexFactory;
+import com.google.dart.engine.index.IndexStore;
+import com.google.dart.engine.index.MappedIndexStore;
 import com.google.dart.engine.sdk.DartSdk;
 import com.google.dart.engine.sdk.DirectoryBasedDartSdk;
 import com.google.dart.engine.search.SearchEngine;
@@ -26,6 +28,7 @@ import com.google.dart.engine.source.DirectoryBasedSourceContainer;
 import com.google.dart.engine.source.FileBasedSource;
 import com.google.dart.engine.source.Source;
 import com.google.dart.tools.core.DartCore;
+import com.google.dart.tools.core.DartCoreDebug;
 import com.google.dart.tools.core.analysis.model.Project;
 import com.google.dart.tools.core.analysis.model.ProjectEvent;
 import com.google.dart.tools.core.analysis.model.ProjectListener;
@@ -53,6 +56,7 @@ import org.eclipse.core.runtime.NullProgressMonitor;
 import org.eclipse.core.runtime.Path;
 
 import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
@@ -63,9 +67,27 @@ import java.util.List;
  */
 public class ProjectManagerImpl extends ContextManagerImpl implements ProjectManager {
 
+  /**
+   * The name of the file, in the state location of the plugin, in which the index of the SDK
+   * context is kept when the index is memory-mapped.
+   */
+  private static final String SDK_INDEX_FILE_NAME = "sdk.index";
+
+  /**
+   * Create the store used by the index, as selected by the debug options.
+   */
+  private static IndexStore createIndexStore() {
+    if (DartCoreDebug.ENABLE_MAPPED_INDEX) {
+      return IndexFactory.newMappedIndexStore();
+    }
+    return DartCoreDebug.ENABLE_COMPACT_INDEX ? IndexFactory.newCompactIndexStore()
+        : IndexFactory.newMemoryIndexStore();
+  }
+
   private final IWorkspaceRoot resource;
   private final HashMap<IProject, Project> projects = new HashMap<IProject, Project>();
-  private final Index index = IndexFactory.newIndex(IndexFactory.newMemoryIndexStore());
+  private final IndexStore indexStore = createIndexStore();
+  private final Index index = IndexFactory.newIndex(indexStore);
   private final DartIgnoreManager ignoreManager;
   private final ArrayList<ProjectListener> listeners = new ArrayList<ProjectListener>();
 
@@ -313,6 +335,7 @@ public class ProjectManagerImpl extends ContextManagerImpl implements ProjectMan
 
   @Override
   public void start() {
+    openSdkIndex();
     new Thread() {
       @Override
       public void run() {
@@ -330,6 +353,7 @@ public class ProjectManagerImpl extends ContextManagerImpl implements ProjectMan
     resource.getWorkspace().removeResourceChangeListener(resourceChangeListener);
     ignoreManager.removeListener(ignoreListener);
     index.stop();
+    flushIndex();
   }
 
   private void analyzeAllProjects() {
@@ -346,6 +370,19 @@ public class ProjectManagerImpl extends ContextManagerImpl implements ProjectMan
     }
   }
 
+  /**
+   * Write the changes to the memory-mapped index, if the index is memory-mapped.
+   */
+  private void flushIndex() {
+    if (indexStore instanceof MappedIndexStore) {
+      try {
+        ((MappedIndexStore) indexStore).flush();
+      } catch (IOException exception) {
+        DartCore.logError("Could not write the index", exception);
+      }
+    }
+  }
+
   private IResource getResourceFromPath(String path) {
     IResource resource = null;
     File file = new File(path);
@@ -384,6 +421,21 @@ public class ProjectManagerImpl extends ContextManagerImpl implements ProjectMan
     return sources;
   }
 
+  /**
+   * Open the file in which the index of the SDK context is kept, if the index is memory-mapped. The
+   * SDK does not change between sessions, so its index is kept across sessions.
+   */
+  private void openSdkIndex() {
+    if (indexStore instanceof MappedIndexStore) {
+      File file = DartCore.getPlugin().getStateLocation().append(SDK_INDEX_FILE_NAME).toFile();
+      try {
+        ((MappedIndexStore) indexStore).openIndex(getSdkContext(), file);
+      } catch (IOException exception) {
+        DartCore.logError("Could not open the index file " + file, exception);
+      }
+    }
+  }
+
   private void processIgnoresAdded(String[] paths) {
     for (String path : paths) {
       ChangeSet changeSet = new ChangeSet();
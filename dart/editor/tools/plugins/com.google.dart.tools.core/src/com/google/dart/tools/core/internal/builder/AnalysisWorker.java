@@ -187,7 +187,9 @@ public class AnalysisWorker {
 
   /**
    * Perform analysis by repeatedly calling {@link AnalysisContext#performAnalysisTask()} and update
-   * both the index and the error markers based upon the analysis results.
+   * both the index and the error markers based upon the analysis results. If the analysis engine
+   * has been configured with more than one worker thread, each call performs a batch of tasks
+   * concurrently and the resulting change notices are processed together.
    */
   public void performAnalysis() {
 
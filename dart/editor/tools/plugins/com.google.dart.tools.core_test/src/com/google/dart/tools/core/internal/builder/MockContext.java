@@ -354,6 +354,12 @@ public class MockContext implements AnalysisContext {
     throw new UnsupportedOperationException();
   }
 
+  @Override
+  public void setChangedContents(Source source, String contents, int offset, int oldLength,
+      int newLength) {
+    throw new UnsupportedOperationException();
+  }
+
   @Override
   public void setContents(Source source, String contents) {
     throw new UnsupportedOperationException();
@@ -33,7 +33,10 @@ import org.eclipse.core.runtime.Path;
 import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 // TODO(devoncarew): use the symbol name information in the maps?
@@ -45,11 +48,48 @@ import java.util.Map;
  * A source map contains information mapping locations in source files to locations in target files.
  * For instance foo.dart.js ==> [foo.dart, bar.dart, baz.dart]. The reverse direction is from
  * targets ==> sources.
+ * <p>
+ * Parsed source maps are shared by all the managers, so that a map is only parsed again when its
+ * file has changed. Each manager indexes the maps by the files they refer to, so that a reverse
+ * lookup only consults the maps that refer to the given file.
  * 
  * @see SourceMap
  */
 public class SourceMapManager implements ResourceChangeParticipant {
 
+  /**
+   * A parsed source map, and the time stamps of the file it was parsed from.
+   */
+  private static class CachedSourceMap {
+    private final long modificationStamp;
+    private final long localTimeStamp;
+    private final SourceMap sourceMap;
+
+    public CachedSourceMap(long modificationStamp, long localTimeStamp, SourceMap sourceMap) {
+      this.modificationStamp = modificationStamp;
+      this.localTimeStamp = localTimeStamp;
+      this.sourceMap = sourceMap;
+    }
+
+    public boolean isCurrent(IFile file) {
+      return modificationStamp == file.getModificationStamp()
+          && localTimeStamp == file.getLocalTimeStamp();
+    }
+  }
+
+  /**
+   * A reference from a source map to one of the files it maps to.
+   */
+  private static class MapTarget {
+    private final SourceMap sourceMap;
+    private final String path;
+
+    public MapTarget(SourceMap sourceMap, String path) {
+      this.sourceMap = sourceMap;
+      this.path = path;
+    }
+  }
+
   public static class SourceLocation {
     public IFile file;
     public int line;
@@ -92,8 +132,63 @@ public class SourceMapManager implements ResourceChangeParticipant {
     }
   }
 
+  /**
+   * The maximum number of parsed source maps that are retained across launches.
+   */
+  private static final int SOURCE_MAP_CACHE_SIZE = 32;
+
+  /**
+   * The source maps that have been parsed, across all launches, with the most recently used last.
+   * The least recently used map is discarded once there are more than
+   * {@link #SOURCE_MAP_CACHE_SIZE} maps; a manager that is still using it keeps its own reference.
+   */
+  private static final Map<IFile, CachedSourceMap> SOURCE_MAP_CACHE = new LinkedHashMap<IFile, CachedSourceMap>(
+      SOURCE_MAP_CACHE_SIZE,
+      0.75f,
+      true) {
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<IFile, CachedSourceMap> eldest) {
+      return size() > SOURCE_MAP_CACHE_SIZE;
+    }
+  };
+
+  /**
+   * Return the source map parsed from the given file, parsing the file if it has not been parsed
+   * or has changed since it was parsed.
+   */
+  private static SourceMap getSourceMap(IFile file) throws IOException, CoreException {
+    synchronized (SOURCE_MAP_CACHE) {
+      CachedSourceMap cachedMap = SOURCE_MAP_CACHE.get(file);
+
+      if (cachedMap != null && cachedMap.isCurrent(file)) {
+        return cachedMap.sourceMap;
+      }
+    }
+
+    // Read the stamps first, so that a change made while parsing is not missed.
+    long modificationStamp = file.getModificationStamp();
+    long localTimeStamp = file.getLocalTimeStamp();
+    SourceMap sourceMap = SourceMap.createFrom(file);
+
+    synchronized (SOURCE_MAP_CACHE) {
+      SOURCE_MAP_CACHE.put(
+          file,
+          new CachedSourceMap(modificationStamp, localTimeStamp, sourceMap));
+    }
+
+    return sourceMap;
+  }
+
   private Map<IFile, SourceMap> sourceMaps = new HashMap<IFile, SourceMap>();
 
+  /**
+   * A table mapping files to the source maps that refer to them, or {@code null} if it must be
+   * recomputed because a file has been added or removed.
+   */
+  private Map<IFile, List<MapTarget>> mapTargets;
+
   public SourceMapManager(IProject project) {
     // TODO(devoncarew): scope our changes to the current project
 
@@ -164,29 +259,24 @@ public class SourceMapManager implements ResourceChangeParticipant {
    * @return
    */
   public SourceLocation getReverseMappingFor(IFile targetFile, int line) {
-    synchronized (sourceMaps) {
-      for (IFile sourceFile : sourceMaps.keySet()) {
-        SourceMap map = sourceMaps.get(sourceFile);
+    List<MapTarget> targets;
 
-        for (String path : map.getSourceNames()) {
-          // TODO(devoncarew): the files in the maps should all be pre-resolved
-          IFile file = resolveFile(sourceFile, path);
-
-          if (file != null && file.equals(targetFile)) {
-            SourceMapInfo reverseMapping = map.getReverseMappingFor(path, line);
+    synchronized (sourceMaps) {
+      targets = getMapTargets().get(targetFile);
+    }
 
-            if (reverseMapping != null) {
-              IFile mapSource = map.getMapSource();
+    if (targets != null) {
+      for (MapTarget target : targets) {
+        SourceMapInfo reverseMapping = target.sourceMap.getReverseMappingFor(target.path, line);
 
-              if (mapSource != null) {
-                return new SourceLocation(
-                    mapSource,
-                    reverseMapping.getLine(),
-                    reverseMapping.getColumn());
-              }
-            }
+        if (reverseMapping != null) {
+          IFile mapSource = target.sourceMap.getMapSource();
 
-            return null;
+          if (mapSource != null) {
+            return new SourceLocation(
+                mapSource,
+                reverseMapping.getLine(),
+                reverseMapping.getColumn());
           }
         }
       }
@@ -197,6 +287,11 @@ public class SourceMapManager implements ResourceChangeParticipant {
 
   @Override
   public void handleFileAdded(IFile file) {
+    synchronized (sourceMaps) {
+      // A map may refer to the new file.
+      mapTargets = null;
+    }
+
     handleFileChanged(file);
   }
 
@@ -205,11 +300,12 @@ public class SourceMapManager implements ResourceChangeParticipant {
     if (isMapFileName(file)) {
       try {
         // We speculatively parse the .map file to determine if it is indeed a source map.
-        SourceMap sourceMap = SourceMap.createFrom(file);
+        SourceMap sourceMap = getSourceMap(file);
 
         synchronized (sourceMaps) {
           // It's a source map file; put it in the source map map.
           sourceMaps.put(file, sourceMap);
+          mapTargets = null;
         }
       } catch (CoreException ce) {
 
@@ -221,11 +317,17 @@ public class SourceMapManager implements ResourceChangeParticipant {
 
   @Override
   public void handleFileRemoved(IFile file) {
+    synchronized (sourceMaps) {
+      if (sourceMaps.containsKey(file)) {
+        sourceMaps.remove(file);
+      }
+
+      mapTargets = null;
+    }
+
     if (isMapFileName(file)) {
-      synchronized (sourceMaps) {
-        if (sourceMaps.containsKey(file)) {
-          sourceMaps.remove(file);
-        }
+      synchronized (SOURCE_MAP_CACHE) {
+        SOURCE_MAP_CACHE.remove(file);
       }
     }
   }
@@ -252,22 +354,44 @@ public class SourceMapManager implements ResourceChangeParticipant {
   public boolean isMapTarget(IFile targetFile) {
     if (targetFile != null) {
       synchronized (sourceMaps) {
-        for (IFile sourceFile : sourceMaps.keySet()) {
-          SourceMap map = sourceMaps.get(sourceFile);
+        return getMapTargets().containsKey(targetFile);
+      }
+    }
+
+    return false;
+  }
 
-          for (String path : map.getSourceNames()) {
-            // TODO(devoncarew): the files in the maps should all be pre-resolved
-            IFile file = resolveFile(sourceFile, path);
+  /**
+   * Return a table mapping files to the source maps that refer to them, computing it if a file has
+   * been added or removed since it was last computed. The caller must hold the lock on
+   * {@link #sourceMaps}.
+   */
+  private Map<IFile, List<MapTarget>> getMapTargets() {
+    if (mapTargets == null) {
+      mapTargets = new HashMap<IFile, List<MapTarget>>();
+
+      for (Map.Entry<IFile, SourceMap> entry : sourceMaps.entrySet()) {
+        IFile mapFile = entry.getKey();
+        SourceMap map = entry.getValue();
+
+        for (String path : map.getSourceNames()) {
+          IFile file = resolveFile(mapFile, path);
+
+          if (file != null) {
+            List<MapTarget> targets = mapTargets.get(file);
 
-            if (file != null && file.equals(targetFile)) {
-              return true;
+            if (targets == null) {
+              targets = new ArrayList<MapTarget>();
+              mapTargets.put(file, targets);
             }
+
+            targets.add(new MapTarget(map, path));
           }
         }
       }
     }
 
-    return false;
+    return mapTargets;
   }
 
   private boolean isMapFileName(IFile file) {
@@ -42,6 +42,9 @@ class ListSlicer {
         offset += chunkLength;
       }
     } else {
+      // Fetch the elements before the variables view asks for them.
+      target.getConnection().prefetchListElements(arrValue.getIsolate(), arrValue, 0, length);
+
       for (int i = 0; i < length; i++) {
         fields.add(new ServerDebugVariable(target, VmVariable.createArrayEntry(
             target.getConnection(),
@@ -52,6 +52,8 @@ public class ServerDebugStackFrame extends ServerDebugElement implements IStackF
 
   private List<ServerDebugVariable> locals;
 
+  private boolean prefetchedLocals;
+
   public ServerDebugStackFrame(IDebugTarget target, IThread thread, VmCallFrame vmFrame) {
     super(target);
 
@@ -198,6 +200,13 @@ public class ServerDebugStackFrame extends ServerDebugElement implements IStackF
 
   @Override
   public IVariable[] getVariables() throws DebugException {
+    if (!prefetchedLocals) {
+      prefetchedLocals = true;
+
+      // Fetch the locals' values before the variables view asks for them.
+      getConnection().prefetchObjectProperties(vmFrame.getIsolate(), vmFrame.getLocals());
+    }
+
     return locals.toArray(new IVariable[locals.size()]);
   }
 
@@ -218,6 +218,11 @@ public class ServerDebugValue extends ServerDebugElement implements IValue, IDar
                   value.setVmObject(result.getResult());
 
                   tempFields.addAll(convert(result.getResult()));
+
+                  // Fetch the fields' values before the variables view asks for them.
+                  getConnection().prefetchObjectProperties(
+                      value.getIsolate(),
+                      result.getResult().getFields());
                 }
 
                 if (result != null && result.getResult() != null) {
@@ -43,6 +43,9 @@ class ServerDebugVariableArraySlice extends ServerDebugElement implements IDartD
     public List<IVariable> getVariables() {
       List<IVariable> entries = new ArrayList<IVariable>();
 
+      // Fetch the elements before the variables view asks for them.
+      getConnection().prefetchListElements(parentArray.getIsolate(), parentArray, offset, length);
+
       for (int i = 0; i < length; i++) {
         entries.add(new ServerDebugVariable(getTarget(), VmVariable.createArrayEntry(
             getConnection(),
@@ -45,6 +45,11 @@ import java.util.concurrent.Executors;
 
 /**
  * A low level interface to the Dart VM debugger protocol.
+ * <p>
+ * Requests are pipelined: each request is sent as soon as it is made, without waiting for the
+ * replies to earlier requests, and replies are matched to their request by id. The objects, classes
+ * and list elements that are retrieved are cached by their isolate until it is resumed, and a
+ * request for one that is already outstanding is not sent again.
  */
 public class VmConnection {
 
@@ -62,6 +67,62 @@ public class VmConnection {
     public void handleResult(JSONObject result) throws JSONException;
   }
 
+  /**
+   * Collects the results of a batch of requests, and passes them to a callback once all of the
+   * replies have been received.
+   */
+  private static class BatchCallback<T> {
+    private final List<T> results;
+    private final VmCallback<List<T>> callback;
+    private int remaining;
+
+    public BatchCallback(int count, VmCallback<List<T>> callback) {
+      this.results = new ArrayList<T>(Collections.<T> nCopies(count, null));
+      this.callback = callback;
+      this.remaining = count;
+
+      if (count == 0) {
+        callback.handleResult(VmResult.createFrom(results));
+      }
+    }
+
+    public VmCallback<T> getCallback(final int index) {
+      return new VmCallback<T>() {
+        @Override
+        public void handleResult(VmResult<T> result) {
+          complete(index, result.getResult());
+        }
+      };
+    }
+
+    public void complete(int index, T result) {
+      boolean done;
+
+      synchronized (this) {
+        results.set(index, result);
+
+        done = --remaining == 0;
+      }
+
+      if (done) {
+        callback.handleResult(VmResult.createFrom(results));
+      }
+    }
+  }
+
+  /**
+   * A request that has been sent and whose reply has not been received.
+   */
+  private static class OutstandingRequest {
+    private final String command;
+    private final long startTime;
+
+    public OutstandingRequest(String command, long startTime) {
+      this.command = command;
+      this.startTime = startTime;
+    }
+  }
+
   private static final String EVENT_ISOLATE = "isolate";
   private static final String EVENT_PAUSED = "paused";
   private static final String EVENT_BREAKPOINTRESOLVED = "breakpointResolved";
@@ -83,6 +144,16 @@ public class VmConnection {
 
   private Map<Integer, Callback> callbackMap = new HashMap<Integer, Callback>();
 
+  private Map<Integer, OutstandingRequest> outstandingRequests = new HashMap<Integer, OutstandingRequest>();
+
+  /**
+   * The callbacks waiting for the reply to a request for an object, class or list element, keyed by
+   * the command, isolate and object.
+   */
+  private Map<String, List<VmCallback<?>>> pendingCallbacks = new HashMap<String, List<VmCallback<?>>>();
+
+  private VmLatencyHistogram latencyHistogram = new VmLatencyHistogram();
+
   private int nextCommandId = 1;
 
   private Socket socket;
@@ -261,6 +332,22 @@ public class VmConnection {
       throw new IllegalArgumentException("a callback is required");
     }
 
+    VmClass cachedClass = isolate.getCachedClass(classId);
+
+    if (cachedClass != null) {
+      callback.handleResult(VmResult.createFrom(cachedClass));
+      return;
+    }
+
+    // The generation is part of the key, so that a request sent before the isolate resumed is not
+    // shared with a request for the values after it resumed.
+    final int generation = isolate.getCacheGeneration();
+    final String key = "getClassProperties:" + isolate.getId() + ":" + generation + ":" + classId;
+
+    if (!addPendingCallback(key, callback)) {
+      return;
+    }
+
     try {
       JSONObject request = new JSONObject();
 
@@ -275,11 +362,21 @@ public class VmConnection {
               classId,
               result);
 
-          callback.handleResult(vmClassResult);
+          if (vmClassResult.getResult() != null) {
+            isolate.cacheClass(generation, classId, vmClassResult.getResult());
+          }
+
+          notifyPendingCallbacks(key, vmClassResult);
         }
       });
     } catch (JSONException exception) {
+      failPendingRequest(key, callback, exception);
+
       throw new IOException(exception);
+    } catch (IOException exception) {
+      failPendingRequest(key, callback, exception);
+
+      throw exception;
     }
   }
 
@@ -355,6 +452,13 @@ public class VmConnection {
     }
   }
 
+  /**
+   * @return the round trip times of the commands sent on this connection
+   */
+  public VmLatencyHistogram getLatencyHistogram() {
+    return latencyHistogram;
+  }
+
   public int getLineNumberFromLocation(VmIsolate isolate, VmLocation location) {
     String cacheKey = location.getLibraryId() + ":" + location.getUrl();
 
@@ -428,12 +532,27 @@ public class VmConnection {
     }
   }
 
-  public void getListElements(final VmIsolate isolate, int listObjectId, int index,
+  public void getListElements(final VmIsolate isolate, final int listObjectId, final int index,
       final VmCallback<VmValue> callback) throws IOException {
     if (callback == null) {
       throw new IllegalArgumentException("a callback is required");
     }
 
+    VmValue cachedValue = isolate.getCachedListElement(listObjectId, index);
+
+    if (cachedValue != null) {
+      callback.handleResult(VmResult.createFrom(cachedValue));
+      return;
+    }
+
+    final int generation = isolate.getCacheGeneration();
+    final String key = "getListElements:" + isolate.getId() + ":" + generation + ":" + listObjectId
+        + ":" + index;
+
+    if (!addPendingCallback(key, callback)) {
+      return;
+    }
+
     try {
       JSONObject request = new JSONObject();
 
@@ -445,11 +564,49 @@ public class VmConnection {
         public void handleResult(JSONObject result) throws JSONException {
           VmResult<VmValue> vmObjectResult = convertGetListElementsResult(isolate, result);
 
-          callback.handleResult(vmObjectResult);
+          if (vmObjectResult.getResult() != null) {
+            isolate.cacheListElement(generation, listObjectId, index, vmObjectResult.getResult());
+          }
+
+          notifyPendingCallbacks(key, vmObjectResult);
         }
       });
     } catch (JSONException exception) {
+      failPendingRequest(key, callback, exception);
+
       throw new IOException(exception);
+    } catch (IOException exception) {
+      failPendingRequest(key, callback, exception);
+
+      throw exception;
+    }
+  }
+
+  /**
+   * Retrieve the given range of elements of a list. The requests for all of the elements are sent
+   * before any reply is received, and the callback is called once all of the replies have been
+   * received. Elements that could not be retrieved are {@code null}.
+   * 
+   * @param isolate
+   * @param listObjectId
+   * @param start the index of the first element to retrieve
+   * @param count the number of elements to retrieve
+   * @param callback
+   */
+  public void getListElements(VmIsolate isolate, int listObjectId, int start, int count,
+      VmCallback<List<VmValue>> callback) {
+    if (callback == null) {
+      throw new IllegalArgumentException("a callback is required");
+    }
+
+    BatchCallback<VmValue> batch = new BatchCallback<VmValue>(count, callback);
+
+    for (int i = 0; i < count; i++) {
+      try {
+        getListElements(isolate, listObjectId, start + i, batch.getCallback(i));
+      } catch (IOException e) {
+        batch.complete(i, null);
+      }
     }
   }
 
@@ -459,6 +616,21 @@ public class VmConnection {
       throw new IllegalArgumentException("a callback is required");
     }
 
+    VmObject cachedObject = isolate.getCachedObject(objectId);
+
+    if (cachedObject != null) {
+      callback.handleResult(VmResult.createFrom(cachedObject));
+      return;
+    }
+
+    final int generation = isolate.getCacheGeneration();
+    final String key = "getObjectProperties:" + isolate.getId() + ":" + generation + ":"
+        + objectId;
+
+    if (!addPendingCallback(key, callback)) {
+      return;
+    }
+
     try {
       JSONObject request = new JSONObject();
 
@@ -473,14 +645,57 @@ public class VmConnection {
               objectId,
               result);
 
-          callback.handleResult(vmObjectResult);
+          if (vmObjectResult.getResult() != null) {
+            isolate.cacheObject(generation, objectId, vmObjectResult.getResult());
+          }
+
+          notifyPendingCallbacks(key, vmObjectResult);
         }
       });
     } catch (JSONException exception) {
+      failPendingRequest(key, callback, exception);
+
       throw new IOException(exception);
+    } catch (IOException exception) {
+      failPendingRequest(key, callback, exception);
+
+      throw exception;
     }
   }
 
+  /**
+   * Retrieve the properties of the given objects. The requests for all of the objects are sent
+   * before any reply is received, and the callback is called once all of the replies have been
+   * received. Objects that could not be retrieved are {@code null}.
+   * 
+   * @param isolate
+   * @param objectIds
+   * @param callback
+   */
+  public void getObjectProperties(VmIsolate isolate, List<Integer> objectIds,
+      VmCallback<List<VmObject>> callback) {
+    if (callback == null) {
+      throw new IllegalArgumentException("a callback is required");
+    }
+
+    BatchCallback<VmObject> batch = new BatchCallback<VmObject>(objectIds.size(), callback);
+
+    for (int i = 0; i < objectIds.size(); i++) {
+      try {
+        getObjectProperties(isolate, objectIds.get(i), batch.getCallback(i));
+      } catch (IOException e) {
+        batch.complete(i, null);
+      }
+    }
+  }
+
+  /**
+   * @return the number of requests that have been sent and whose reply has not been received
+   */
+  public synchronized int getOutstandingRequestCount() {
+    return outstandingRequests.size();
+  }
+
   /**
    * This synchronous, potentially long-running call returns the cached source for the given
    * libraryId and source url.
@@ -591,6 +806,70 @@ public class VmConnection {
     return socket != null;
   }
 
+  /**
+   * Request the given range of elements of a list, so that they are cached by the time they are
+   * displayed. This does not wait for any of the replies.
+   * 
+   * @param isolate
+   * @param listValue
+   * @param start
+   * @param count
+   */
+  public void prefetchListElements(VmIsolate isolate, VmValue listValue, int start, int count) {
+    int end = Math.min(start + count, listValue.getLength());
+
+    for (int index = start; index < end; index++) {
+      if (isolate.getCachedListElement(listValue.getObjectId(), index) == null) {
+        try {
+          getListElements(isolate, listValue.getObjectId(), index, new VmCallback<VmValue>() {
+            @Override
+            public void handleResult(VmResult<VmValue> result) {
+
+            }
+          });
+        } catch (IOException e) {
+          return;
+        }
+      }
+    }
+  }
+
+  /**
+   * Request the properties of the objects that are the values of the given variables, and of their
+   * classes, so that they are cached by the time they are displayed. This does not wait for any of
+   * the replies. The variables must not be lazily evaluated list elements.
+   * 
+   * @param isolate
+   * @param variables
+   */
+  public void prefetchObjectProperties(final VmIsolate isolate, List<VmVariable> variables) {
+    if (variables == null) {
+      return;
+    }
+
+    for (VmVariable variable : variables) {
+      VmValue value = variable.getValue();
+
+      if (value == null || !value.isObject() || value.isNull()
+          || isolate.getCachedObject(value.getObjectId()) != null) {
+        continue;
+      }
+
+      try {
+        getObjectProperties(isolate, value.getObjectId(), new VmCallback<VmObject>() {
+          @Override
+          public void handleResult(VmResult<VmObject> result) {
+            if (result.getResult() != null) {
+              prefetchClassProperties(isolate, result.getResult().getClassId());
+            }
+          }
+        });
+      } catch (IOException e) {
+        return;
+      }
+    }
+  }
+
   public void removeBreakpoint(VmIsolate isolate, final VmBreakpoint breakpoint) throws IOException {
     try {
       JSONObject request = new JSONObject();
@@ -782,6 +1061,12 @@ public class VmConnection {
   }
 
   protected synchronized void handleTerminated() {
+    if (latencyHistogram.getCount() > 0) {
+      DartDebugCorePlugin.log("command latencies:\n" + latencyHistogram);
+    }
+
+    outstandingRequests.clear();
+
     // Clean up the callbackMap on termination.
     List<Callback> callbacks = new ArrayList<VmConnection.Callback>(callbackMap.values());
 
@@ -869,21 +1154,46 @@ public class VmConnection {
       if (callback != null) {
         callbackMap.put(id, callback);
       }
+
+      outstandingRequests.put(
+          id,
+          new OutstandingRequest(request.optString("command"), System.nanoTime()));
     }
 
     try {
       send(request.toString());
     } catch (IOException ex) {
-      if (callback != null) {
-        synchronized (this) {
-          callbackMap.remove(id);
-        }
+      synchronized (this) {
+        callbackMap.remove(id);
+        outstandingRequests.remove(id);
       }
 
       throw ex;
     }
   }
 
+  /**
+   * Add the given callback to the callbacks waiting for the reply to the request with the given
+   * key. Return {@code true} if there was no such request, in which case the caller must send it.
+   */
+  private boolean addPendingCallback(String key, VmCallback<?> callback) {
+    synchronized (pendingCallbacks) {
+      List<VmCallback<?>> callbacks = pendingCallbacks.get(key);
+
+      if (callbacks == null) {
+        callbacks = new ArrayList<VmCallback<?>>();
+        pendingCallbacks.put(key, callbacks);
+        callbacks.add(callback);
+
+        return true;
+      } else {
+        callbacks.add(callback);
+
+        return false;
+      }
+    }
+  }
+
   private VmResult<VmClass> convertGetClassPropertiesResult(VmIsolate isolate, int classId,
       JSONObject object) throws JSONException {
     VmResult<VmClass> result = VmResult.createFrom(object);
@@ -1032,6 +1342,22 @@ public class VmConnection {
     return result;
   }
 
+  /**
+   * The request with the given key could not be sent; the given callback is told by the exception
+   * thrown to its caller, and the other callbacks waiting for the reply are passed an error.
+   */
+  private void failPendingRequest(String key, VmCallback<?> callback, Exception exception) {
+    synchronized (pendingCallbacks) {
+      List<VmCallback<?>> callbacks = pendingCallbacks.get(key);
+
+      if (callbacks != null) {
+        callbacks.remove(callback);
+      }
+    }
+
+    notifyPendingCallbacks(key, VmResult.createErrorResult(exception.toString()));
+  }
+
   private VmIsolate getCreateIsolate(int isolateId) {
     if (isolateId == -1) {
       return null;
@@ -1076,12 +1402,31 @@ public class VmConnection {
 
   private void notifyDebuggerResumed(VmIsolate isolate) {
     isolate.clearClassNameMap();
+    isolate.clearObjectCache();
 
     for (VmListener listener : listeners) {
       listener.debuggerResumed(isolate);
     }
   }
 
+  /**
+   * Pass the given result to the callbacks waiting for the reply to the request with the given key.
+   */
+  @SuppressWarnings("unchecked")
+  private <T> void notifyPendingCallbacks(String key, VmResult<T> result) {
+    List<VmCallback<?>> callbacks;
+
+    synchronized (pendingCallbacks) {
+      callbacks = pendingCallbacks.remove(key);
+    }
+
+    if (callbacks != null) {
+      for (VmCallback<?> callback : callbacks) {
+        ((VmCallback<T>) callback).handleResult(result);
+      }
+    }
+  }
+
   private void populateClassName(final VmIsolate isolate, final int classId) {
     final CountDownLatch latch = new CountDownLatch(1);
 
@@ -1107,6 +1452,23 @@ public class VmConnection {
     }
   }
 
+  private void prefetchClassProperties(VmIsolate isolate, int classId) {
+    if (classId == -1 || isolate.getCachedClass(classId) != null) {
+      return;
+    }
+
+    try {
+      getClassProperties(isolate, classId, new VmCallback<VmClass>() {
+        @Override
+        public void handleResult(VmResult<VmClass> result) {
+
+        }
+      });
+    } catch (IOException e) {
+      DartDebugCorePlugin.logError(e);
+    }
+  }
+
   private void processNotification(JSONObject result) throws JSONException, IOException {
     if (result.has("event")) {
       String eventName = result.getString("event");
@@ -1168,9 +1530,15 @@ public class VmConnection {
     int id = result.getInt("id");
 
     Callback callback;
+    OutstandingRequest request;
 
     synchronized (this) {
       callback = callbackMap.remove(id);
+      request = outstandingRequests.remove(id);
+    }
+
+    if (request != null) {
+      latencyHistogram.record(request.command, System.nanoTime() - request.startTime);
     }
 
     if (callback != null) {
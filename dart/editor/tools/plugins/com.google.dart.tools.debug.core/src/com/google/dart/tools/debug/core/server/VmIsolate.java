@@ -18,13 +18,26 @@ import java.util.HashMap;
 import java.util.Map;
 
 /**
- * The representation of a VM isolate.
+ * The representation of a VM isolate. This also caches the objects, classes and list elements that
+ * have been retrieved from the VM; they are only valid while the isolate is paused.
  */
 public class VmIsolate {
   private int id;
 
   private Map<Integer, String> classNameMap = new HashMap<Integer, String>();
 
+  private Map<Integer, VmObject> objectCache = new HashMap<Integer, VmObject>();
+
+  private Map<Integer, VmClass> classCache = new HashMap<Integer, VmClass>();
+
+  private Map<Long, VmValue> listElementCache = new HashMap<Long, VmValue>();
+
+  /**
+   * Incremented every time the caches are cleared, so that a reply to a request sent before the
+   * isolate was resumed is not cached.
+   */
+  private int cacheGeneration;
+
   protected VmIsolate(int isolateId) {
     this.id = isolateId;
   }
@@ -70,8 +83,57 @@ public class VmIsolate {
     classNameMap.clear();
   }
 
+  /**
+   * Clear the cached objects, classes and list elements; called when the isolate is resumed.
+   */
+  protected synchronized void clearObjectCache() {
+    objectCache.clear();
+    classCache.clear();
+    listElementCache.clear();
+
+    cacheGeneration++;
+  }
+
   protected void setClassName(int classId, String className) {
     classNameMap.put(classId, className);
   }
 
+  synchronized void cacheClass(int generation, int classId, VmClass vmClass) {
+    if (generation == cacheGeneration) {
+      classCache.put(classId, vmClass);
+    }
+  }
+
+  synchronized void cacheListElement(int generation, int listObjectId, int index, VmValue value) {
+    if (generation == cacheGeneration) {
+      listElementCache.put(getListElementKey(listObjectId, index), value);
+    }
+  }
+
+  synchronized void cacheObject(int generation, int objectId, VmObject object) {
+    if (generation == cacheGeneration) {
+      objectCache.put(objectId, object);
+    }
+  }
+
+  synchronized int getCacheGeneration() {
+    return cacheGeneration;
+  }
+
+  synchronized VmClass getCachedClass(int classId) {
+    return classCache.get(classId);
+  }
+
+  synchronized VmValue getCachedListElement(int listObjectId, int index) {
+    return listElementCache.get(getListElementKey(listObjectId, index));
+  }
+
+  synchronized VmObject getCachedObject(int objectId) {
+    return objectCache.get(objectId);
+  }
+
+  private long getListElementKey(int listObjectId, int index) {
+    return ((long) listObjectId << 32) | (index & 0xFFFFFFFFL);
+  }
+
 }
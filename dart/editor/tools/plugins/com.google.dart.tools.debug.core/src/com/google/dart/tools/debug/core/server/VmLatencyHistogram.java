@@ -0,0 +1,164 @@
+/*
+ * Copyright (c) 2013, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.dart.tools.debug.core.server;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * A histogram of the round trip times of the commands sent to the VM, by command name. Bucket
+ * {@code 0} counts the replies received in less than 1ms, bucket {@code n} the replies received in
+ * [2^(n-1), 2^n) ms, and the last bucket all the slower replies.
+ */
+public class VmLatencyHistogram {
+
+  private static class CommandStats {
+    private int count;
+    private long totalNanos;
+    private long maxNanos;
+    private int[] buckets = new int[BUCKET_COUNT];
+  }
+
+  /**
+   * The number of buckets; the last bucket counts the replies that took a second or more.
+   */
+  public static final int BUCKET_COUNT = 12;
+
+  private static final long NANOS_PER_MILLI = 1000 * 1000;
+
+  /**
+   * Return the index of the bucket for the given round trip time.
+   */
+  static int getBucket(long nanos) {
+    long millis = nanos / NANOS_PER_MILLI;
+    int bucket = 0;
+
+    while (millis > 0 && bucket < BUCKET_COUNT - 1) {
+      millis >>= 1;
+      bucket++;
+    }
+
+    return bucket;
+  }
+
+  private Map<String, CommandStats> stats = new TreeMap<String, CommandStats>();
+
+  /**
+   * @return the bucket counts of all the commands
+   */
+  public synchronized int[] getBuckets() {
+    int[] buckets = new int[BUCKET_COUNT];
+
+    for (CommandStats commandStats : stats.values()) {
+      for (int i = 0; i < BUCKET_COUNT; i++) {
+        buckets[i] += commandStats.buckets[i];
+      }
+    }
+
+    return buckets;
+  }
+
+  /**
+   * @return the bucket counts of the given command
+   */
+  public synchronized int[] getBuckets(String command) {
+    CommandStats commandStats = stats.get(command);
+
+    return commandStats == null ? new int[BUCKET_COUNT] : commandStats.buckets.clone();
+  }
+
+  /**
+   * @return the number of replies recorded for all the commands
+   */
+  public synchronized int getCount() {
+    int count = 0;
+
+    for (CommandStats commandStats : stats.values()) {
+      count += commandStats.count;
+    }
+
+    return count;
+  }
+
+  /**
+   * @return the number of replies recorded for the given command
+   */
+  public synchronized int getCount(String command) {
+    CommandStats commandStats = stats.get(command);
+
+    return commandStats == null ? 0 : commandStats.count;
+  }
+
+  /**
+   * Record the round trip time of a command.
+   * 
+   * @param command the name of the command
+   * @param nanos the time between sending the command and receiving its reply
+   */
+  public synchronized void record(String command, long nanos) {
+    CommandStats commandStats = stats.get(command);
+
+    if (commandStats == null) {
+      commandStats = new CommandStats();
+      stats.put(command, commandStats);
+    }
+
+    commandStats.count++;
+    commandStats.totalNanos += nanos;
+    commandStats.maxNanos = Math.max(commandStats.maxNanos, nanos);
+    commandStats.buckets[getBucket(nanos)]++;
+  }
+
+  public synchronized void reset() {
+    stats.clear();
+  }
+
+  /**
+   * Return a table of the counts, the mean and maximum times and the buckets of each command.
+   */
+  @Override
+  public synchronized String toString() {
+    StringBuilder builder = new StringBuilder();
+
+    builder.append(String.format("%-22s %6s %9s %9s", "command", "count", "mean ms", "max ms"));
+
+    for (int i = 0; i < BUCKET_COUNT; i++) {
+      builder.append(String.format(" %5s", i == BUCKET_COUNT - 1 ? ">=" + (1 << (i - 1))
+          : "<" + (1 << i)));
+    }
+
+    builder.append('\n');
+
+    for (Map.Entry<String, CommandStats> entry : stats.entrySet()) {
+      CommandStats commandStats = entry.getValue();
+
+      builder.append(String.format(
+          "%-22s %6d %9.2f %9.2f",
+          entry.getKey(),
+          commandStats.count,
+          commandStats.totalNanos / (double) NANOS_PER_MILLI / commandStats.count,
+          commandStats.maxNanos / (double) NANOS_PER_MILLI));
+
+      for (int count : commandStats.buckets) {
+        builder.append(String.format(" %5d", count));
+      }
+
+      builder.append('\n');
+    }
+
+    return builder.toString();
+  }
+
+}
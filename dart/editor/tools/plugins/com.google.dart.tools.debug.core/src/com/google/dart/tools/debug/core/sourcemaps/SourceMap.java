@@ -33,14 +33,18 @@ import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.Reader;
 import java.text.NumberFormat;
-import java.util.Arrays;
-import java.util.List;
+import java.util.HashMap;
+import java.util.Map;
 
 // //@ sourceMappingURL=/path/to/file.js.map
 
 /**
  * This maps from a generated file back to the original source files. It also supports the reverse
  * mapping; from locations in the source files to locations in the generated file.
+ * <p>
+ * The "mappings" entry is not decoded until the first lookup, and the index used for reverse
+ * lookups is not computed until the first reverse lookup. Both are then kept for the life of the
+ * map, so lookups do not scan the entries.
  * 
  * @see http://www.html5rocks.com/en/tutorials/developertools/sourcemaps/
  */
@@ -120,9 +124,19 @@ public class SourceMap {
   private String sourcesContent[];
 
   /**
-   * The full list of source map entries.
+   * A table mapping the names of the original sources to their index in {@link #sources}.
    */
-  private SourceMapInfoEntry[] entries;
+  private Map<String, Integer> sourceIndexes = new HashMap<String, Integer>();
+
+  /**
+   * The encoded "mappings" entry, or {@code null} once it has been decoded.
+   */
+  private String mappings;
+
+  /**
+   * The decoded source map entries, or {@code null} if they have not yet been decoded.
+   */
+  private SourceMapEntries entries;
 
   public SourceMap() {
 
@@ -155,10 +169,11 @@ public class SourceMap {
       }
     }
 
-    String mapStr = obj.getString("mappings");
+    for (int i = sources.length - 1; i >= 0; i--) {
+      sourceIndexes.put(sources[i], i);
+    }
 
-    List<SourceMapInfoEntry> result = SourceMapDecoder.decode(sources, names, mapStr);
-    entries = result.toArray(new SourceMapInfoEntry[result.size()]);
+    mappings = obj.getString("mappings");
   }
 
   public String getFile() {
@@ -173,38 +188,26 @@ public class SourceMap {
    * @return the corresponding location in the original source
    */
   public SourceMapInfo getMappingFor(int line, int column) {
-    int index = findIndexForLine(line);
+    SourceMapEntries entries = getEntries();
+    int entry = entries.findEntry(line, column);
 
-    if (index == -1) {
+    if (entry == -1) {
       return null;
     }
 
-    SourceMapInfoEntry entry = entries[index];
+    int sourceIndex = entries.getSourceIndex(entry);
+    SourceMapInfo info = new SourceMapInfo(
+        sourceIndex == -1 ? null : sources[sourceIndex],
+        entries.getSourceLine(entry),
+        entries.getSourceColumn(entry));
 
-    // If column == -1, return the first mapping for that line.
-    if (column == -1) {
-      return entry.getInfo();
-    }
-
-    // Search for a matching mapping.
-    while (index < entries.length) {
-      entry = entries[index];
+    int nameIndex = entries.getNameIndex(entry);
 
-      if (entry.column <= column) {
-        if (entry.endColumn == -1) {
-          return entry.getInfo();
-        }
-
-        if (column < entry.endColumn) {
-          return entry.getInfo();
-        }
-      }
-
-      index++;
+    if (nameIndex != -1) {
+      info.setName(names[nameIndex]);
     }
 
-    // no mapping found
-    return null;
+    return info;
   }
 
   public IFile getMapSource() {
@@ -238,26 +241,23 @@ public class SourceMap {
    * @return
    */
   public SourceMapInfo getReverseMappingFor(String file, int line) {
-    // TODO(devoncarew): calculate this information once for O(1) lookup
+    Integer sourceIndex = sourceIndexes.get(file);
 
-    for (SourceMapInfoEntry entry : entries) {
-      SourceMapInfo info = entry.getInfo();
+    if (sourceIndex == null) {
+      return null;
+    }
 
-      if (info == null) {
-        continue;
-      }
+    SourceMapEntries entries = getEntries();
 
-      if (line == info.getLine()) {
-        if (file.equals(info.getFile())) {
-          // TODO(devoncarew): there will be several entries on this line
-          // We need to choose one that has a non-zero range, or is a catch-all entry
+    // TODO(devoncarew): there will be several entries on this line
+    // We need to choose one that has a non-zero range, or is a catch-all entry
+    int entry = entries.findReverseEntry(sourceIndex, line);
 
-          return new SourceMapInfo(path.toString(), entry.line, entry.column);
-        }
-      }
+    if (entry == -1) {
+      return null;
     }
 
-    return null;
+    return new SourceMapInfo(path.toString(), entries.getLine(entry), entries.getColumn(entry));
   }
 
   public String[] getSourceNames() {
@@ -272,40 +272,26 @@ public class SourceMap {
   }
 
   @Override
-  public String toString() {
+  public synchronized String toString() {
+    // Describing the map must not force the mappings to be decoded.
+    if (entries == null) {
+      return "[" + getPath().lastSegment() + "]";
+    }
+
     return "[" + getPath().lastSegment() + ", "
-        + NumberFormat.getNumberInstance().format(entries.length) + " lines]";
+        + NumberFormat.getNumberInstance().format(entries.getLineCount()) + " lines]";
   }
 
-  private int findIndexForLine(int line) {
-    // TODO(devoncarew): test this binary search
-
-    int location = Arrays.binarySearch(
-        entries,
-        SourceMapInfoEntry.forLine(line),
-        SourceMapInfoEntry.lineComparator());
-
-    if (location < 0) {
-      return -1;
-    }
-
-    while (location > 0 && entries[location - 1].line == line) {
-      location--;
+  /**
+   * Return the decoded source map entries, decoding them if this is the first request.
+   */
+  private synchronized SourceMapEntries getEntries() {
+    if (entries == null) {
+      entries = SourceMapDecoder.decode(sources, names, mappings);
+      mappings = null;
     }
 
-    return location;
-
-//    for (int i = 0; i < entries.length; i++) {
-//      SourceMapInfoEntry entry = entries[i];
-//
-//      if (entry.line == line) {
-//        return i;
-//      } else if (entry.line > line) {
-//        return -1;
-//      }
-//    }
-//
-//    return -1;
+    return entries;
   }
 
   private String[] parseStringArray(JSONArray arr) throws JSONException {
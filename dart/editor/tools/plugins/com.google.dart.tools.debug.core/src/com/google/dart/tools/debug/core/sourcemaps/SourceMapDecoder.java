@@ -14,19 +14,41 @@
 
 package com.google.dart.tools.debug.core.sourcemaps;
 
-import java.util.ArrayList;
-import java.util.List;
-
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Decodes the "mappings" entry of a source map into {@link SourceMapEntries}. The string is decoded
+ * in a single pass, directly into arrays of ints; no objects are created per line, segment or
+ * entry.
+ */
 class SourceMapDecoder {
 
-  public static List<SourceMapInfoEntry> decode(String[] sources, String[] names, String mapStr) {
+  /**
+   * The maximum number of fields in a segment.
+   */
+  private static final int MAX_FIELDS = 5;
+
+  public static SourceMapEntries decode(String[] sources, String[] names, String mapStr) {
     return new SourceMapDecoder(sources, names).decodeLines(mapStr);
   }
 
-  private String[] sources;
-  private String[] names;
+  private int[] sourceIndexMap;
+  private int nameCount;
+
+  private int[] lineStarts = new int[16];
+  private int lineCount = 0;
 
-  private List<SourceMapInfoEntry> entries;
+  private int[] columns = new int[16];
+  private int[] endColumns = new int[16];
+  private int[] sourceIndexes = new int[16];
+  private int[] sourceLines = new int[16];
+  private int[] sourceColumns = new int[16];
+  private int[] nameIndexes = new int[16];
+  private int entryCount = 0;
+
+  private int[] fields = new int[MAX_FIELDS];
 
   int originalFileIndex = 0;
   int originalLine = 0;
@@ -34,74 +56,148 @@ class SourceMapDecoder {
   int nameIndex = 0;
 
   private SourceMapDecoder(String[] sources, String[] names) {
-    this.sources = sources;
-    this.names = names;
+    this.nameCount = names == null ? 0 : names.length;
+
+    // Sources listed more than once are mapped to their first index.
+    Map<String, Integer> firstIndexes = new HashMap<String, Integer>();
+    sourceIndexMap = new int[sources.length];
+
+    for (int i = 0; i < sources.length; i++) {
+      Integer firstIndex = firstIndexes.get(sources[i]);
+
+      if (firstIndex == null) {
+        firstIndexes.put(sources[i], i);
+        sourceIndexMap[i] = i;
+      } else {
+        sourceIndexMap[i] = firstIndex;
+      }
+    }
   }
 
-  List<SourceMapInfoEntry> decodeLines(String mapStr) {
+  SourceMapEntries decodeLines(String mapStr) {
     // In the given string, semi-colons demarcate lines and commas demarcate groups.
     // A;A;;;;;;;A;A;;A;A;A,mB,W,C,C,I,C,C;A,cAyVEA;AAAiB,QAAK,MAAFC
 
-    entries = new ArrayList<SourceMapInfoEntry>();
+    int length = mapStr.length();
+    int offset = 0;
 
-    int lineNumber = 0;
+    startLine();
 
-    for (String line : mapStr.split(";")) {
-      if (line.length() > 0) {
-        decodeLine(line.split(","), lineNumber);
-      }
-
-      lineNumber++;
-    }
+    int generatedColumn = 0;
+    int previousEntry = -1;
+
+    while (offset < length) {
+      char c = mapStr.charAt(offset);
+
+      if (c == ';') {
+        offset++;
+        startLine();
+
+        generatedColumn = 0;
+        previousEntry = -1;
+      } else if (c == ',') {
+        offset++;
+      } else {
+        int fieldCount = 0;
+
+        while (offset < length) {
+          c = mapStr.charAt(offset);
+
+          if (c == ',' || c == ';') {
+            break;
+          }
+
+          int result = 0;
+          int shift = 0;
+          boolean continuation;
+
+          do {
+            int digit = VlqDecoder.fromBase64(mapStr.charAt(offset++));
+            continuation = (digit & VlqDecoder.VLQ_CONTINUATION_BIT) != 0;
+            digit &= VlqDecoder.VLQ_BASE_MASK;
+            result = result + (digit << shift);
+            shift = shift + VlqDecoder.VLQ_BASE_SHIFT;
+          } while (continuation && offset < length);
+
+          if (fieldCount < MAX_FIELDS) {
+            fields[fieldCount] = VlqDecoder.fromVLQSigned(result);
+          }
+
+          fieldCount++;
+        }
 
-    return entries;
-  }
+        if (fieldCount == 1 || fieldCount == 4 || fieldCount == 5) {
+          generatedColumn += fields[0];
 
-  private void decodeLine(String[] mappings, int line) {
-    int generatedColumn = 0;
+          if (previousEntry != -1) {
+            endColumns[previousEntry] = generatedColumn;
+          }
 
-    SourceMapInfoEntry previousEntry = null;
+          if (fieldCount >= 4) {
+            originalFileIndex += fields[1];
+            originalLine += fields[2];
+            originalColumn += fields[3];
 
-    for (String mapping : mappings) {
-      int[] indexes = VlqDecoder.decode(mapping);
+            int entryNameIndex = -1;
 
-      if (indexes.length == 1 || indexes.length == 4 || indexes.length == 5) {
-        generatedColumn += indexes[0];
+            if (fieldCount > 4) {
+              nameIndex += fields[4];
 
-        if (previousEntry != null) {
-          previousEntry.setEndColumn(generatedColumn);
-        }
+              if (nameIndex >= 0 && nameIndex < nameCount) {
+                entryNameIndex = nameIndex;
+              }
+            }
 
-        if (indexes.length < 4) {
-          continue;
+            previousEntry = addEntry(generatedColumn, entryNameIndex);
+          }
         }
+      }
+    }
 
-        originalFileIndex += indexes[1];
-        originalLine += indexes[2];
-        originalColumn += indexes[3];
+    lineStarts[lineCount] = entryCount;
+
+    return new SourceMapEntries(
+        Arrays.copyOf(lineStarts, lineCount + 1),
+        Arrays.copyOf(columns, entryCount),
+        Arrays.copyOf(endColumns, entryCount),
+        Arrays.copyOf(sourceIndexes, entryCount),
+        Arrays.copyOf(sourceLines, entryCount),
+        Arrays.copyOf(sourceColumns, entryCount),
+        Arrays.copyOf(nameIndexes, entryCount),
+        sourceIndexMap.length);
+  }
 
-        String originalFile = getString(sources, originalFileIndex);
+  private int addEntry(int generatedColumn, int entryNameIndex) {
+    if (entryCount == columns.length) {
+      int capacity = entryCount * 2;
 
-        SourceMapInfo info = new SourceMapInfo(originalFile, originalLine, originalColumn);
+      columns = Arrays.copyOf(columns, capacity);
+      endColumns = Arrays.copyOf(endColumns, capacity);
+      sourceIndexes = Arrays.copyOf(sourceIndexes, capacity);
+      sourceLines = Arrays.copyOf(sourceLines, capacity);
+      sourceColumns = Arrays.copyOf(sourceColumns, capacity);
+      nameIndexes = Arrays.copyOf(nameIndexes, capacity);
+    }
 
-        if (indexes.length > 4) {
-          nameIndex += indexes[4];
-          info.setName(getString(names, nameIndex));
-        }
+    boolean validSource = originalFileIndex >= 0 && originalFileIndex < sourceIndexMap.length;
 
-        previousEntry = new SourceMapInfoEntry(line, generatedColumn, info);
+    columns[entryCount] = generatedColumn;
+    endColumns[entryCount] = -1;
+    sourceIndexes[entryCount] = validSource ? sourceIndexMap[originalFileIndex] : -1;
+    sourceLines[entryCount] = originalLine;
+    sourceColumns[entryCount] = originalColumn;
+    nameIndexes[entryCount] = entryNameIndex;
 
-        entries.add(previousEntry);
-      }
-    }
+    return entryCount++;
   }
 
-  private String getString(String[] strs, int index) {
-    if (index >= 0 && index < strs.length) {
-      return strs[index];
-    } else {
-      return null;
+  private void startLine() {
+    // Leave room for the end marker of the last line.
+    if (lineCount + 1 == lineStarts.length) {
+      lineStarts = Arrays.copyOf(lineStarts, lineStarts.length * 2);
     }
+
+    lineStarts[lineCount++] = entryCount;
   }
 
 }
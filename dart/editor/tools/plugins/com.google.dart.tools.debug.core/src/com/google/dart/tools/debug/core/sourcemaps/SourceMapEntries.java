@@ -0,0 +1,224 @@
+/*
+ * Copyright (c) 2013, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.dart.tools.debug.core.sourcemaps;
+
+/**
+ * The decoded entries of a source map. Each entry maps a range of columns on a line of the
+ * generated file to a location in one of the original sources. The entries are stored in parallel
+ * arrays of ints, ordered by generated line, rather than as one object per entry; a large source
+ * map has millions of entries.
+ */
+class SourceMapEntries {
+
+  /**
+   * The index of the first entry of each generated line. The entries of line {@code n} are the
+   * entries from {@code lineStarts[n]} (inclusive) to {@code lineStarts[n + 1]} (exclusive).
+   */
+  private final int[] lineStarts;
+
+  /**
+   * The starting generated column of each entry (inclusive).
+   */
+  private final int[] columns;
+
+  /**
+   * The ending generated column of each entry (non-inclusive), or -1 if the entry extends to the
+   * end of the line.
+   */
+  private final int[] endColumns;
+
+  /**
+   * The index of the original source of each entry, or -1 if the index is not valid.
+   */
+  private final int[] sourceIndexes;
+
+  /**
+   * The line in the original source of each entry.
+   */
+  private final int[] sourceLines;
+
+  /**
+   * The column in the original source of each entry.
+   */
+  private final int[] sourceColumns;
+
+  /**
+   * The index of the name of each entry, or -1 if the entry does not have a name.
+   */
+  private final int[] nameIndexes;
+
+  /**
+   * The number of original sources.
+   */
+  private final int sourceCount;
+
+  /**
+   * For each original source, the index plus one of the first entry mapping to each line of that
+   * source, or zero if no entry maps to the line. This is computed the first time it is needed.
+   */
+  private int[][] reverseIndex;
+
+  SourceMapEntries(int[] lineStarts, int[] columns, int[] endColumns, int[] sourceIndexes,
+      int[] sourceLines, int[] sourceColumns, int[] nameIndexes, int sourceCount) {
+    this.lineStarts = lineStarts;
+    this.columns = columns;
+    this.endColumns = endColumns;
+    this.sourceIndexes = sourceIndexes;
+    this.sourceLines = sourceLines;
+    this.sourceColumns = sourceColumns;
+    this.nameIndexes = nameIndexes;
+    this.sourceCount = sourceCount;
+  }
+
+  /**
+   * Return the index of the entry covering the given location in the generated file, or -1 if
+   * there is no such entry.
+   * 
+   * @param line the line in the generated file
+   * @param column the column in the generated file; -1 means the first entry on the line
+   * @return the index of the entry covering the location
+   */
+  public int findEntry(int line, int column) {
+    if (line < 0 || line >= getLineCount()) {
+      return -1;
+    }
+
+    int start = lineStarts[line];
+
+    if (start == lineStarts[line + 1]) {
+      return -1;
+    }
+
+    // If column == -1, return the first mapping for that line.
+    if (column == -1) {
+      return start;
+    }
+
+    // Search for a matching mapping; a column before the first mapping on the line is matched
+    // against the mappings on the following lines.
+    for (int index = start; index < columns.length; index++) {
+      if (columns[index] <= column && (endColumns[index] == -1 || column < endColumns[index])) {
+        return index;
+      }
+    }
+
+    return -1;
+  }
+
+  /**
+   * Return the index of the first entry, in generated order, that maps to the given line of the
+   * original source with the given index, or -1 if there is no such entry.
+   * 
+   * @param sourceIndex the index of the original source
+   * @param line the line in the original source
+   * @return the index of the first entry mapping to the line
+   */
+  public synchronized int findReverseEntry(int sourceIndex, int line) {
+    if (reverseIndex == null) {
+      reverseIndex = computeReverseIndex();
+    }
+
+    if (sourceIndex < 0 || sourceIndex >= sourceCount) {
+      return -1;
+    }
+
+    int[] lines = reverseIndex[sourceIndex];
+
+    if (line < 0 || line >= lines.length) {
+      return -1;
+    }
+
+    return lines[line] - 1;
+  }
+
+  public int getColumn(int entry) {
+    return columns[entry];
+  }
+
+  public int getEntryCount() {
+    return columns.length;
+  }
+
+  /**
+   * Return the generated line of the given entry.
+   */
+  public int getLine(int entry) {
+    int low = 0;
+    int high = getLineCount() - 1;
+
+    // Find the last line that starts at or before the entry.
+    while (low < high) {
+      int mid = (low + high + 1) >>> 1;
+
+      if (lineStarts[mid] <= entry) {
+        low = mid;
+      } else {
+        high = mid - 1;
+      }
+    }
+
+    return low;
+  }
+
+  public int getLineCount() {
+    return lineStarts.length - 1;
+  }
+
+  public int getNameIndex(int entry) {
+    return nameIndexes[entry];
+  }
+
+  public int getSourceColumn(int entry) {
+    return sourceColumns[entry];
+  }
+
+  public int getSourceIndex(int entry) {
+    return sourceIndexes[entry];
+  }
+
+  public int getSourceLine(int entry) {
+    return sourceLines[entry];
+  }
+
+  private int[][] computeReverseIndex() {
+    int[] lineCounts = new int[sourceCount];
+
+    for (int entry = 0; entry < sourceIndexes.length; entry++) {
+      int sourceIndex = sourceIndexes[entry];
+
+      if (sourceIndex != -1 && sourceLines[entry] >= lineCounts[sourceIndex]) {
+        lineCounts[sourceIndex] = sourceLines[entry] + 1;
+      }
+    }
+
+    int[][] index = new int[sourceCount][];
+
+    for (int i = 0; i < sourceCount; i++) {
+      index[i] = new int[lineCounts[i]];
+    }
+
+    for (int entry = 0; entry < sourceIndexes.length; entry++) {
+      int sourceIndex = sourceIndexes[entry];
+      int line = sourceLines[entry];
+
+      if (sourceIndex != -1 && line >= 0 && index[sourceIndex][line] == 0) {
+        index[sourceIndex][line] = entry + 1;
+      }
+    }
+
+    return index;
+  }
+
+}
@@ -27,14 +27,14 @@ import java.util.List;
  */
 public class VlqDecoder {
   // A Base64 VLQ digit can represent 5 bits, so it is base-32.
-  private static final int VLQ_BASE_SHIFT = 5;
+  static final int VLQ_BASE_SHIFT = 5;
   private static final int VLQ_BASE = 1 << VLQ_BASE_SHIFT;
 
   // A mask of bits for a VLQ digit (11111), 31 decimal.
-  private static final int VLQ_BASE_MASK = VLQ_BASE - 1;
+  static final int VLQ_BASE_MASK = VLQ_BASE - 1;
 
   // The continuation bit is the 6th bit.
-  private static final int VLQ_CONTINUATION_BIT = VLQ_BASE;
+  static final int VLQ_CONTINUATION_BIT = VLQ_BASE;
 
   /**
    * A map used to convert integer values in the range 0-63 to their base64 values.
@@ -110,7 +110,7 @@ public class VlqDecoder {
     return builder.toString();
   }
 
-  private static int fromBase64(char c) {
+  static int fromBase64(char c) {
     return BASE64_DECODE_MAP[c];
   }
 
@@ -119,7 +119,7 @@ public class VlqDecoder {
    * significant bit. For example, as decimals: 2 (10 binary) becomes 1, 3 (11 binary) becomes -1 4
    * (100 binary) becomes 2, 5 (101 binary) becomes -2
    */
-  private static int fromVLQSigned(int value) {
+  static int fromVLQSigned(int value) {
     boolean negate = (value & 1) == 1;
     value = value >> 1;
     return negate ? -value : value;
@@ -31,29 +31,72 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.net.InetSocketAddress;
 import java.net.ServerSocket;
 import java.net.Socket;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.channels.ServerSocketChannel;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
 /**
  * A web server that serves up workspace resources.
+ * <p>
+ * By default each connection is served by a thread of a pool and closed after a single request. In
+ * selector mode a {@link ResourceServerSelector} reads the requests of all the connections from a
+ * single thread, keeps the connections open between requests, and transfers file content directly
+ * from the file to the socket.
  */
 public class ResourceServer implements IResourceResolver {
+
+  /**
+   * The combined content of a *.dart.js file and the debugger agent.
+   */
+  private static class CachedContent {
+    private final long modificationStamp;
+    private final long length;
+    private final byte[] content;
+
+    public CachedContent(long modificationStamp, long length, byte[] content) {
+      this.modificationStamp = modificationStamp;
+      this.length = length;
+      this.content = content;
+    }
+  }
+
+  /**
+   * The maximum number of bytes of content kept in the cache.
+   */
+  private static final int MAX_CACHED_BYTES = 32 * 1024 * 1024;
+
   private ServerSocket serverSocket;
 
   private ExecutorService threadPool;
 
+  private ResourceServerSelector selector;
+
   private Set<String> previousAgents = new HashSet<String>();
 
+  /**
+   * The content served for the *.dart.js files, least recently used first.
+   */
+  private Map<File, CachedContent> contentCache = new LinkedHashMap<File, CachedContent>(
+      16,
+      0.75f,
+      true);
+
+  private int cachedBytes;
+
   /**
    * Create a ResourceServer; serve its resources from any free port.
    * 
@@ -69,15 +112,46 @@ public class ResourceServer implements IResourceResolver {
    * @throws IOException
    */
   public ResourceServer(int port) throws IOException {
-    serverSocket = new ServerSocket(port);
+    this(port, false);
+  }
+
+  /**
+   * Create a ResourceServer; serve its resources from the given port.
+   * 
+   * @param port the port to serve from, or 0 for any free port
+   * @param useSelector whether to serve the connections from a single selector thread, keeping them
+   *          open between requests
+   * @throws IOException
+   */
+  public ResourceServer(int port, boolean useSelector) throws IOException {
     threadPool = Executors.newCachedThreadPool();
 
-    new Thread(new Runnable() {
-      @Override
-      public void run() {
-        startServer();
+    if (useSelector) {
+      ServerSocketChannel serverChannel = ServerSocketChannel.open();
+
+      try {
+        serverSocket = serverChannel.socket();
+        serverSocket.bind(new InetSocketAddress(port));
+
+        selector = new ResourceServerSelector(this, serverChannel, threadPool);
+      } catch (IOException exception) {
+        serverChannel.close();
+        threadPool.shutdown();
+
+        throw exception;
       }
-    }, "Web Server Dispatch").start();
+
+      new Thread(selector, "Web Server Dispatch").start();
+    } else {
+      serverSocket = new ServerSocket(port);
+
+      new Thread(new Runnable() {
+        @Override
+        public void run() {
+          startServer();
+        }
+      }, "Web Server Dispatch").start();
+    }
   }
 
   /**
@@ -132,11 +206,82 @@ public class ResourceServer implements IResourceResolver {
    * Close the resource server.
    */
   public void shutdown() {
+    if (selector != null) {
+      selector.shutdown();
+    }
+
     try {
       serverSocket.close();
     } catch (IOException exception) {
       DartDebugCorePlugin.logError(exception);
     }
+
+    synchronized (contentCache) {
+      contentCache.clear();
+      cachedBytes = 0;
+    }
+  }
+
+  /**
+   * Cache the content served for the given file.
+   * 
+   * @param file the file whose content was served
+   * @param modificationStamp the modification stamp of the file when the content was read
+   * @param length the length of the file when the content was read
+   * @param content the content that was served
+   */
+  void cacheContent(File file, long modificationStamp, long length, byte[] content) {
+    if (content.length > MAX_CACHED_BYTES / 4) {
+      return;
+    }
+
+    synchronized (contentCache) {
+      CachedContent previous = contentCache.put(file, new CachedContent(
+          modificationStamp,
+          length,
+          content));
+
+      if (previous != null) {
+        cachedBytes -= previous.content.length;
+      }
+
+      cachedBytes += content.length;
+
+      Iterator<CachedContent> iter = contentCache.values().iterator();
+
+      while (cachedBytes > MAX_CACHED_BYTES && iter.hasNext()) {
+        cachedBytes -= iter.next().content.length;
+        iter.remove();
+      }
+    }
+  }
+
+  /**
+   * Return the content cached for the given file, or {@code null} if there is no content cached for
+   * the file or the file has changed since its content was cached.
+   * 
+   * @param file the file being served
+   * @param modificationStamp the current modification stamp of the file
+   * @param length the current length of the file
+   * @return the content cached for the file
+   */
+  byte[] getCachedContent(File file, long modificationStamp, long length) {
+    synchronized (contentCache) {
+      CachedContent cachedContent = contentCache.get(file);
+
+      if (cachedContent == null) {
+        return null;
+      }
+
+      if (cachedContent.modificationStamp != modificationStamp || cachedContent.length != length) {
+        contentCache.remove(file);
+        cachedBytes -= cachedContent.content.length;
+
+        return null;
+      }
+
+      return cachedContent.content;
+    }
   }
 
   protected String getAvailableAppsContent() throws IOException {
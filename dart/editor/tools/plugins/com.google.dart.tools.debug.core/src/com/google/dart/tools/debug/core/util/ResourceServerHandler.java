@@ -29,11 +29,9 @@ import org.json.JSONException;
 import org.json.JSONObject;
 
 import java.io.BufferedReader;
-import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.DataInputStream;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
@@ -72,15 +70,18 @@ import java.util.Map;
 
 /**
  * Handles an incoming http request, serving files from the workspace (or error pages) as necessary.
+ * A handler either serves the single request of a blocking socket, or creates the responses for the
+ * requests read by a {@link ResourceServerSelector}.
  */
 class ResourceServerHandler implements Runnable {
 
-  private static class HttpHeader {
+  static class HttpHeader {
     public static final String METHOD_GET = "GET";
     public static final String METHOD_HEAD = "HEAD";
     public static final String METHOD_POST = "POST";
 
     private static final String RANGE = "Range";
+    private static final String IF_NONE_MATCH = "If-None-Match";
 
     public String method;
     public String file;
@@ -135,6 +136,38 @@ class ResourceServerHandler implements Runnable {
       return null;
     }
 
+    /**
+     * @return whether the client asked for the connection to be kept open after the response
+     */
+    public boolean isKeepAlive() {
+      String connection = headers.get(CONNECTION);
+
+      if ("HTTP/1.1".equals(version)) {
+        return !"close".equalsIgnoreCase(connection);
+      } else {
+        return "keep-alive".equalsIgnoreCase(connection);
+      }
+    }
+
+    /**
+     * @return whether the If-None-Match header of the request matches the given entity tag
+     */
+    public boolean matchesETag(String etag) {
+      String ifNoneMatch = headers.get(IF_NONE_MATCH);
+
+      if (ifNoneMatch != null) {
+        for (String str : ifNoneMatch.split(",")) {
+          str = str.trim();
+
+          if (str.equals(etag) || str.equals("*")) {
+            return true;
+          }
+        }
+      }
+
+      return false;
+    }
+
     @Override
     public String toString() {
       return "[" + method + " " + file + " " + version + "]";
@@ -151,10 +184,11 @@ class ResourceServerHandler implements Runnable {
     }
   }
 
-  private static class HttpResponse {
+  static class HttpResponse {
     public static final int OK = 200; // "OK"
     public static final int PARTIAL_CONTENT = 206; // "Partial Content"
     public static final int REDIRECT = 302; // "Found"
+    public static final int NOT_MODIFIED = 304; // "Not Modified"
     public static final int NOT_FOUND = 404; // "Not Found"
     public static final int UNAUTHORIZED = 401; // "Unauthorized"
 
@@ -167,8 +201,10 @@ class ResourceServerHandler implements Runnable {
 
     public Map<String, String> headers = new LinkedHashMap<String, String>();
 
-    // one or the other needs to be null
+    // at most one of these is non-null
     public String responseBodyText;
+    public byte[] responseBodyBytes;
+    public File responseBodyFile;
     public InputStream responseBodyStream;
 
     @Override
@@ -183,9 +219,12 @@ class ResourceServerHandler implements Runnable {
   private static final String ACCEPT_RANGES = "Accept-Ranges";
   private static final String CONTENT_RANGE = "Content-Range";
   private static final String LAST_MODIFIED = "Last-Modified";
+  private static final String ETAG = "ETag";
+
+  static final String CONNECTION = "Connection";
 
   private static final String ISO_8859_1 = "ISO-8859-1";
-  private static final String US_ASCII = "US-ASCII";
+  static final String US_ASCII = "US-ASCII";
 
   public static final String CONTENT_LENGTH = "Content-Length";
 
@@ -252,6 +291,29 @@ class ResourceServerHandler implements Runnable {
     return AGENT_CONTENT;
   }
 
+  /**
+   * Return the status line and the headers of the given response, followed by an empty line.
+   * 
+   * @param response the response being sent
+   * @param version the HTTP version of the response
+   * @return the bytes preceding the body of the response
+   * @throws IOException
+   */
+  static byte[] getResponseHeaderBytes(HttpResponse response, String version) throws IOException {
+    StringBuilder builder = new StringBuilder();
+
+    // HTTP/1.0 200 OK
+    builder.append(version + " " + response.responseCode + " " + response.responseText + CRLF);
+
+    for (String key : response.headers.keySet()) {
+      builder.append(key + ": " + response.headers.get(key) + CRLF);
+    }
+
+    builder.append(CRLF);
+
+    return builder.toString().getBytes(ISO_8859_1);
+  }
+
   private static void setupExtraMappings() {
     extraMappings = new HashMap<String, String>();
 
@@ -279,6 +341,16 @@ class ResourceServerHandler implements Runnable {
 
   private Socket socket;
 
+  /**
+   * Create a handler for the requests read by a {@link ResourceServerSelector}.
+   */
+  public ResourceServerHandler(ResourceServer resourceServer) {
+    this(resourceServer, null);
+  }
+
+  /**
+   * Create a handler that serves the request read from the given socket.
+   */
   public ResourceServerHandler(ResourceServer resourceServer, Socket socket) {
     this.resourceServer = resourceServer;
     this.socket = socket;
@@ -297,29 +369,8 @@ class ResourceServerHandler implements Runnable {
         }
 
         safeClose(socket);
-      } else if (isAllowableConnection(socket, header)) {
-        HttpResponse response;
-
-        if (HttpHeader.METHOD_GET.equals(header.method)
-            || HttpHeader.METHOD_HEAD.equals(header.method)) {
-          response = createGETResponse(header);
-        } else if (HttpHeader.METHOD_POST.equals(header.method)) {
-          response = createPOSTResponse(header, in);
-        } else {
-          response = createErrorResponse("Request type " + header.method + " not supported.");
-        }
-
-        if (DartDebugCorePlugin.LOGGING) {
-          System.out.println("resource server: " + header);
-
-          if (response.responseCode != HttpResponse.OK) {
-            System.out.println("       response: " + response);
-          }
-        }
-
-        sendResponse(response);
       } else {
-        sendResponse(createNotAllowedResponse());
+        sendResponse(createResponse(header, socket.getInetAddress(), in));
       }
 
       socket.close();
@@ -336,9 +387,111 @@ class ResourceServerHandler implements Runnable {
     }
   }
 
+  /**
+   * Create the response to the given request.
+   * 
+   * @param header the request
+   * @param remoteAddress the address the request came from
+   * @param in the body of the request
+   * @return the response to the request
+   * @throws IOException
+   */
+  HttpResponse createResponse(HttpHeader header, InetAddress remoteAddress, DataInputStream in)
+      throws IOException {
+    if (!isAllowableConnection(remoteAddress, header)) {
+      return createNotAllowedResponse();
+    }
+
+    HttpResponse response;
+
+    if (HttpHeader.METHOD_GET.equals(header.method)
+        || HttpHeader.METHOD_HEAD.equals(header.method)) {
+      response = createGETResponse(header);
+    } else if (HttpHeader.METHOD_POST.equals(header.method)) {
+      response = createPOSTResponse(header, in);
+    } else {
+      response = createErrorResponse("Request type " + header.method + " not supported.");
+    }
+
+    if (DartDebugCorePlugin.LOGGING) {
+      System.out.println("resource server: " + header);
+
+      if (response.responseCode != HttpResponse.OK) {
+        System.out.println("       response: " + response);
+      }
+    }
+
+    return response;
+  }
+
+  boolean isConnectionReset(IOException ioe) {
+    // ignore java.net.SocketException: Connection reset
+    // ignore java.net.SocketException: Broken pipe
+    // ignore java.net.SocketException: Software caused connection abort: socket write error
+
+    if (ioe instanceof SocketException) {
+      String message = ioe.getMessage().toLowerCase();
+
+      if (message == null) {
+        return false;
+      }
+
+      return message.contains("connection rese") || message.contains("connection abort")
+          || message.contains("broken pipe");
+    }
+
+    return false;
+  }
+
+  @SuppressWarnings("deprecation")
+  HttpHeader parseHeader(DataInputStream in) throws IOException {
+    HttpHeader header = new HttpHeader();
+
+    String line = in.readLine();
+
+    if (line == null) {
+      return null;
+    }
+
+    // GET /index.html HTTP/1.1
+    String[] strs = line.split(" ");
+
+    if (strs.length > 2) {
+      header.method = strs[0];
+      header.file = decodeWebChars(strs[1]);
+      header.version = strs[2];
+
+      if (header.file != null) {
+        header.file = URLDecoder.decode(header.file, ISO_8859_1);
+
+        header.parseGetParams();
+      }
+    }
+
+    line = in.readLine();
+
+    while (line != null) {
+      if (line.isEmpty()) {
+        break;
+      }
+
+      int index = line.indexOf(':');
+
+      if (index == -1) {
+        header.headers.put(line, "");
+      } else {
+        header.headers.put(line.substring(0, index), line.substring(index + 1).trim());
+      }
+
+      line = in.readLine();
+    }
+
+    return header;
+  }
+
   private void addStandardResponseHeaders(HttpResponse response) {
     response.headers.put("Server", "Dart Editor v" + DartCore.getVersion());
-    response.headers.put("Connection", "close");
+    response.headers.put(CONNECTION, "close");
   }
 
   /**
@@ -429,16 +582,30 @@ class ResourceServerHandler implements Runnable {
       if (!javaFile.exists()) {
         return createErrorResponse("File not found: " + header.file);
       }
+    }
+
+    // ETag: "13f5c4e4a48-1b6"
+    String etag = getETag(javaFile);
 
-      javaScriptContent = getCombinedContentAndAgent(javaFile);
+    if (header.matchesETag(etag)) {
+      return createNotModifiedResponse(etag);
+    }
+
+    if (isFileJsArtifact(javaFile)) {
+      javaScriptContent = getJavaScriptContent(javaFile);
     }
 
     HttpResponse response = new HttpResponse();
 
+    response.headers.put(ETAG, etag);
+
     try {
       // Last-Modified: Wed, 08 Jan 2003 23:11:55 GMT
       Date date = new Date(javaFile.lastModified());
-      response.headers.put(LAST_MODIFIED, HttpResponse.RFC_1123_DATE_FORMAT.format(date));
+
+      synchronized (HttpResponse.RFC_1123_DATE_FORMAT) {
+        response.headers.put(LAST_MODIFIED, HttpResponse.RFC_1123_DATE_FORMAT.format(date));
+      }
     } catch (ArrayIndexOutOfBoundsException ex) {
       // This happens occasionally on Windows. 
 
@@ -466,14 +633,14 @@ class ResourceServerHandler implements Runnable {
 
     if (!headOnly) {
       if (javaScriptContent != null) {
-        response.responseBodyStream = new ByteArrayInputStream(javaScriptContent);
+        response.responseBodyBytes = javaScriptContent;
       } else {
         List<int[]> ranges = header.getRanges();
 
         if (ranges != null) {
           byte[] rangeData = readRangeData(javaFile, ranges);
 
-          response.responseBodyStream = new ByteArrayInputStream(rangeData);
+          response.responseBodyBytes = rangeData;
 
           response.responseCode = HttpResponse.PARTIAL_CONTENT;
           response.responseText = "Partial Content";
@@ -484,7 +651,7 @@ class ResourceServerHandler implements Runnable {
           response.headers.put(CONTENT_RANGE, "bytes " + range[0] + "-" + range[1] + "/"
               + rangeData.length);
         } else {
-          response.responseBodyStream = new FileInputStream(javaFile);
+          response.responseBodyFile = javaFile;
         }
 
         // Indicate that we support requesting a subset of the document.
@@ -512,6 +679,20 @@ class ResourceServerHandler implements Runnable {
     return response;
   }
 
+  private HttpResponse createNotModifiedResponse(String etag) {
+    HttpResponse response = new HttpResponse();
+
+    response.responseCode = HttpResponse.NOT_MODIFIED;
+    response.responseText = "Not Modified";
+
+    response.headers.put(ETAG, etag);
+    response.headers.put(CACHE_CONTROL, "no-cache");
+
+    addStandardResponseHeaders(response);
+
+    return response;
+  }
+
   private HttpResponse createPOSTResponse(HttpHeader header, DataInputStream in) throws IOException {
     // This 200000 value matches Jetty's setting.
     final int MAX_POST = 200000 + 100;
@@ -627,6 +808,14 @@ class ResourceServerHandler implements Runnable {
     return TYPE_OCTET;
   }
 
+  /**
+   * Return an entity tag derived from the modification stamp and the length of the given file.
+   */
+  private String getETag(File file) {
+    return "\"" + Long.toHexString(file.lastModified()) + "-" + Long.toHexString(file.length())
+        + "\"";
+  }
+
   private String getFileExtension(String name) {
     int index = name.lastIndexOf('.');
 
@@ -637,6 +826,25 @@ class ResourceServerHandler implements Runnable {
     }
   }
 
+  /**
+   * Return the content of the given *.dart.js file combined with the debugger JS agent, from the
+   * cache of the resource server if the file has not changed since it was last served.
+   */
+  private byte[] getJavaScriptContent(File dartJsFile) throws IOException {
+    long modificationStamp = dartJsFile.lastModified();
+    long length = dartJsFile.length();
+
+    byte[] content = resourceServer.getCachedContent(dartJsFile, modificationStamp, length);
+
+    if (content == null) {
+      content = getCombinedContentAndAgent(dartJsFile);
+
+      resourceServer.cacheContent(dartJsFile, modificationStamp, length, content);
+    }
+
+    return content;
+  }
+
   private void handleLoggingPost(String data) throws IOException {
     try {
       JSONObject obj = new JSONObject(data);
@@ -676,9 +884,7 @@ class ResourceServerHandler implements Runnable {
     }
   }
 
-  private boolean isAllowableConnection(Socket connection, HttpHeader header) {
-    InetAddress remoteAddress = connection.getInetAddress();
-
+  private boolean isAllowableConnection(InetAddress remoteAddress, HttpHeader header) {
     if (isLocalAddress(remoteAddress)) {
       return true;
     }
@@ -701,25 +907,6 @@ class ResourceServerHandler implements Runnable {
     return false;
   }
 
-  private boolean isConnectionReset(IOException ioe) {
-    // ignore java.net.SocketException: Connection reset
-    // ignore java.net.SocketException: Broken pipe
-    // ignore java.net.SocketException: Software caused connection abort: socket write error
-
-    if (ioe instanceof SocketException) {
-      String message = ioe.getMessage().toLowerCase();
-
-      if (message == null) {
-        return false;
-      }
-
-      return message.contains("connection rese") || message.contains("connection abort")
-          || message.contains("broken pipe");
-    }
-
-    return false;
-  }
-
   private boolean isFileJsArtifact(File javaFile) {
     return javaFile.getName().endsWith(".dart.js");
   }
@@ -788,52 +975,6 @@ class ResourceServerHandler implements Runnable {
     return null;
   }
 
-  @SuppressWarnings("deprecation")
-  private HttpHeader parseHeader(DataInputStream in) throws IOException {
-    HttpHeader header = new HttpHeader();
-
-    String line = in.readLine();
-
-    if (line == null) {
-      return null;
-    }
-
-    // GET /index.html HTTP/1.1
-    String[] strs = line.split(" ");
-
-    if (strs.length > 2) {
-      header.method = strs[0];
-      header.file = decodeWebChars(strs[1]);
-      header.version = strs[2];
-
-      if (header.file != null) {
-        header.file = URLDecoder.decode(header.file, ISO_8859_1);
-
-        header.parseGetParams();
-      }
-    }
-
-    line = in.readLine();
-
-    while (line != null) {
-      if (line.isEmpty()) {
-        break;
-      }
-
-      int index = line.indexOf(':');
-
-      if (index == -1) {
-        header.headers.put(line, "");
-      } else {
-        header.headers.put(line.substring(0, index), line.substring(index + 1).trim());
-      }
-
-      line = in.readLine();
-    }
-
-    return header;
-  }
-
   private byte[] readRangeData(File file, List<int[]> ranges) throws IOException {
     ByteArrayOutputStream out = new ByteArrayOutputStream();
 
@@ -875,21 +1016,14 @@ class ResourceServerHandler implements Runnable {
   private void sendResponse(HttpResponse response) throws IOException {
     OutputStream out = socket.getOutputStream();
 
-    StringBuilder builder = new StringBuilder();
-
-    // HTTP/1.0 200 OK
-    builder.append("HTTP/1.0 " + response.responseCode + " " + response.responseText + CRLF);
-
-    for (String key : response.headers.keySet()) {
-      builder.append(key + ": " + response.headers.get(key) + CRLF);
-    }
-
-    builder.append(CRLF);
-
-    out.write(builder.toString().getBytes(ISO_8859_1));
+    out.write(getResponseHeaderBytes(response, "HTTP/1.0"));
 
     if (response.responseBodyText != null) {
       out.write(response.responseBodyText.getBytes(US_ASCII));
+    } else if (response.responseBodyBytes != null) {
+      out.write(response.responseBodyBytes);
+    } else if (response.responseBodyFile != null) {
+      Files.copy(response.responseBodyFile, out);
     } else if (response.responseBodyStream != null) {
       byte[] buffer = new byte[2048];
 
@@ -917,7 +1051,7 @@ class ResourceServerHandler implements Runnable {
     response.headers.put(CONTENT_LENGTH, Integer.toString(bytes.length));
     response.headers.put(CONTENT_TYPE, "text/html; charset=UTF-8");
     response.headers.put(CACHE_CONTROL, "no-cache");
-    response.responseBodyStream = new ByteArrayInputStream(bytes);
+    response.responseBodyBytes = bytes;
 
     addStandardResponseHeaders(response);
 
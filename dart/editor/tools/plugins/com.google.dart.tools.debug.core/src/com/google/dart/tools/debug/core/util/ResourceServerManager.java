@@ -14,6 +14,8 @@
 
 package com.google.dart.tools.debug.core.util;
 
+import com.google.dart.tools.core.DartCoreDebug;
+
 import java.io.IOException;
 
 /**
@@ -30,10 +32,10 @@ public class ResourceServerManager {
     if (server == null) {
       try {
         // First try and start the server up on our preferred port.
-        server = new ResourceServer(PREFERRED_PORT);
+        server = new ResourceServer(PREFERRED_PORT, DartCoreDebug.ENABLE_NIO_RESOURCE_SERVER);
       } catch (IOException exception) {
         // Next let it try and auto-bind to an available port.
-        server = new ResourceServer();
+        server = new ResourceServer(0, DartCoreDebug.ENABLE_NIO_RESOURCE_SERVER);
       }
     }
 
@@ -0,0 +1,553 @@
+/*
+ * Copyright (c) 2013, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.dart.tools.debug.core.util;
+
+import com.google.common.io.ByteStreams;
+import com.google.dart.tools.debug.core.DartDebugCorePlugin;
+import com.google.dart.tools.debug.core.util.ResourceServerHandler.HttpHeader;
+import com.google.dart.tools.debug.core.util.ResourceServerHandler.HttpResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Serves the connections of a {@link ResourceServer} from a single thread. Requests are read and
+ * responses are written without blocking; the responses themselves are created by a
+ * {@link ResourceServerHandler} on a thread of the server's pool, as serving a *.dart.js file may
+ * have to wait for it to be compiled. Connections are kept open between requests when the client
+ * asks for it, and file content is transferred from the file to the socket without being copied
+ * into the Java heap.
+ */
+class ResourceServerSelector implements Runnable {
+
+  /**
+   * The state of a connection to a client.
+   */
+  private static class Connection {
+    private final SocketChannel channel;
+    private final SelectionKey key;
+
+    /**
+     * The bytes read from the client that are not part of a request that has been handled.
+     */
+    private ByteBuffer readBuffer = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+
+    /**
+     * The status line and headers of the response being written, followed by its body if the body
+     * is held in memory, or {@code null} if no response is being written.
+     */
+    private ByteBuffer[] writeBuffers;
+
+    /**
+     * The file holding the body of the response being written, if any.
+     */
+    private FileChannel fileChannel;
+
+    private long filePosition;
+
+    private long fileEnd;
+
+    /**
+     * {@code true} if the connection should be closed once the response has been written.
+     */
+    private boolean closeAfterWrite;
+
+    /**
+     * {@code true} if a request read from the connection is being handled by the thread pool.
+     */
+    private boolean handlingRequest;
+
+    private long lastActivity = System.currentTimeMillis();
+
+    public Connection(SocketChannel channel, SelectionKey key) {
+      this.channel = channel;
+      this.key = key;
+    }
+  }
+
+  private static final int INITIAL_BUFFER_SIZE = 4096;
+
+  /**
+   * The maximum size of a request, including the body of a POST request.
+   */
+  private static final int MAX_REQUEST_SIZE = 512 * 1024;
+
+  /**
+   * The number of milliseconds after which an idle connection is closed.
+   */
+  private static final long IDLE_TIMEOUT = 60 * 1000;
+
+  /**
+   * Return the index following the empty line that ends the header of the request held in the
+   * given bytes, or -1 if the header is not complete.
+   */
+  private static int findHeaderEnd(byte[] bytes, int length) {
+    for (int i = 0; i < length - 1; i++) {
+      if (bytes[i] == '\n') {
+        if (bytes[i + 1] == '\n') {
+          return i + 2;
+        }
+
+        if (bytes[i + 1] == '\r' && i + 2 < length && bytes[i + 2] == '\n') {
+          return i + 3;
+        }
+      }
+    }
+
+    return -1;
+  }
+
+  private static boolean hasRemaining(ByteBuffer[] buffers) {
+    for (ByteBuffer buffer : buffers) {
+      if (buffer.hasRemaining()) {
+        return true;
+      }
+    }
+
+    return false;
+  }
+
+  private ServerSocketChannel serverChannel;
+
+  private ExecutorService threadPool;
+
+  private ResourceServerHandler handler;
+
+  private Selector selector;
+
+  private Set<Connection> connections = new HashSet<Connection>();
+
+  /**
+   * The connections whose responses have been created by the thread pool.
+   */
+  private List<Connection> completedConnections = new ArrayList<Connection>();
+
+  private volatile boolean shuttingDown;
+
+  public ResourceServerSelector(ResourceServer resourceServer, ServerSocketChannel serverChannel,
+      ExecutorService threadPool) throws IOException {
+    this.serverChannel = serverChannel;
+    this.threadPool = threadPool;
+    this.handler = new ResourceServerHandler(resourceServer);
+
+    selector = Selector.open();
+
+    serverChannel.configureBlocking(false);
+    serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+  }
+
+  @Override
+  public void run() {
+    try {
+      while (!shuttingDown) {
+        selector.select(IDLE_TIMEOUT / 4);
+
+        writeCompletedResponses();
+
+        Iterator<SelectionKey> iter = selector.selectedKeys().iterator();
+
+        while (iter.hasNext()) {
+          SelectionKey key = iter.next();
+
+          iter.remove();
+
+          if (!key.isValid()) {
+            continue;
+          }
+
+          if (key.isAcceptable()) {
+            try {
+              accept();
+            } catch (IOException exception) {
+              DartDebugCorePlugin.logError(exception);
+            }
+          } else {
+            Connection connection = (Connection) key.attachment();
+
+            try {
+              if (key.isReadable()) {
+                read(connection);
+              }
+
+              if (key.isValid() && key.isWritable()) {
+                write(connection);
+              }
+            } catch (IOException exception) {
+              handleException(connection, exception);
+            }
+          }
+        }
+
+        closeIdleConnections();
+      }
+    } catch (IOException exception) {
+      if (!shuttingDown) {
+        DartDebugCorePlugin.logError(exception);
+      }
+    } finally {
+      closeAll();
+    }
+  }
+
+  /**
+   * Stop serving and close all the connections.
+   */
+  public void shutdown() {
+    shuttingDown = true;
+
+    selector.wakeup();
+  }
+
+  private void accept() throws IOException {
+    SocketChannel channel = serverChannel.accept();
+
+    if (channel == null) {
+      return;
+    }
+
+    channel.configureBlocking(false);
+    channel.socket().setTcpNoDelay(true);
+
+    SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+    Connection connection = new Connection(channel, key);
+
+    key.attach(connection);
+    connections.add(connection);
+  }
+
+  private void close(Connection connection) {
+    connections.remove(connection);
+
+    connection.key.cancel();
+
+    try {
+      connection.channel.close();
+    } catch (IOException e) {
+
+    }
+
+    closeFile(connection);
+  }
+
+  private void closeAll() {
+    for (Connection connection : new ArrayList<Connection>(connections)) {
+      close(connection);
+    }
+
+    try {
+      selector.close();
+      serverChannel.close();
+    } catch (IOException e) {
+
+    }
+  }
+
+  private void closeFile(Connection connection) {
+    if (connection.fileChannel != null) {
+      try {
+        connection.fileChannel.close();
+      } catch (IOException e) {
+
+      }
+
+      connection.fileChannel = null;
+    }
+  }
+
+  private void closeIdleConnections() {
+    long idleTime = System.currentTimeMillis() - IDLE_TIMEOUT;
+
+    for (Connection connection : new ArrayList<Connection>(connections)) {
+      if (!connection.handlingRequest && connection.writeBuffers == null
+          && connection.lastActivity < idleTime) {
+        close(connection);
+      }
+    }
+  }
+
+  /**
+   * Create the response to the given request; this is called on a thread of the pool.
+   */
+  private void createResponse(Connection connection, HttpHeader header, byte[] body) {
+    try {
+      HttpResponse response = handler.createResponse(
+          header,
+          connection.channel.socket().getInetAddress(),
+          new DataInputStream(new ByteArrayInputStream(body)));
+
+      prepareResponse(connection, header, response);
+    } catch (IOException exception) {
+      if (!(exception instanceof ConnectException) && !handler.isConnectionReset(exception)) {
+        DartDebugCorePlugin.logError(exception);
+      }
+    } catch (Throwable t) {
+      DartDebugCorePlugin.logError(t);
+    }
+
+    synchronized (completedConnections) {
+      completedConnections.add(connection);
+    }
+
+    selector.wakeup();
+  }
+
+  private void handleException(Connection connection, IOException exception) {
+    close(connection);
+
+    if (!(exception instanceof ConnectException) && !handler.isConnectionReset(exception)) {
+      DartDebugCorePlugin.logError(exception);
+    }
+  }
+
+  /**
+   * Convert the given response into the buffers and file to be written to the connection.
+   */
+  private void prepareResponse(Connection connection, HttpHeader header, HttpResponse response)
+      throws IOException {
+    byte[] bodyBytes = null;
+
+    if (response.responseBodyText != null) {
+      bodyBytes = response.responseBodyText.getBytes(ResourceServerHandler.US_ASCII);
+    } else if (response.responseBodyBytes != null) {
+      bodyBytes = response.responseBodyBytes;
+    } else if (response.responseBodyFile != null) {
+      connection.fileChannel = new FileInputStream(response.responseBodyFile).getChannel();
+      connection.filePosition = 0;
+      connection.fileEnd = connection.fileChannel.size();
+    } else if (response.responseBodyStream != null) {
+      try {
+        bodyBytes = ByteStreams.toByteArray(response.responseBodyStream);
+      } finally {
+        response.responseBodyStream.close();
+      }
+    }
+
+    // The length of the body has to be exact for the connection to be reused.
+    if (connection.fileChannel != null) {
+      response.headers.put(ResourceServerHandler.CONTENT_LENGTH, Long.toString(connection.fileEnd));
+    } else if (bodyBytes != null) {
+      response.headers.put(
+          ResourceServerHandler.CONTENT_LENGTH,
+          Integer.toString(bodyBytes.length));
+    } else if (!HttpHeader.METHOD_HEAD.equals(header.method)
+        && response.responseCode != HttpResponse.NOT_MODIFIED) {
+      response.headers.put(ResourceServerHandler.CONTENT_LENGTH, "0");
+    }
+
+    connection.closeAfterWrite = shuttingDown || !header.isKeepAlive();
+
+    response.headers.put(
+        ResourceServerHandler.CONNECTION,
+        connection.closeAfterWrite ? "close" : "keep-alive");
+
+    ByteBuffer headerBuffer = ByteBuffer.wrap(ResourceServerHandler.getResponseHeaderBytes(
+        response,
+        "HTTP/1.1"));
+
+    if (bodyBytes == null) {
+      connection.writeBuffers = new ByteBuffer[] {headerBuffer};
+    } else {
+      connection.writeBuffers = new ByteBuffer[] {headerBuffer, ByteBuffer.wrap(bodyBytes)};
+    }
+  }
+
+  /**
+   * If a complete request has been read from the given connection, hand it to the thread pool.
+   */
+  private void processRequest(final Connection connection) throws IOException {
+    if (connection.handlingRequest || connection.writeBuffers != null) {
+      return;
+    }
+
+    byte[] bytes = connection.readBuffer.array();
+    int length = connection.readBuffer.position();
+    int headerEnd = findHeaderEnd(bytes, length);
+
+    if (headerEnd == -1) {
+      return;
+    }
+
+    final HttpHeader header = handler.parseHeader(new DataInputStream(new ByteArrayInputStream(
+        bytes,
+        0,
+        headerEnd)));
+
+    if (header == null || header.method == null) {
+      close(connection);
+
+      return;
+    }
+
+    int bodyLength = 0;
+
+    if (HttpHeader.METHOD_POST.equals(header.method)) {
+      bodyLength = Math.max(0, header.getContentLength());
+    }
+
+    if (headerEnd + bodyLength > MAX_REQUEST_SIZE) {
+      close(connection);
+
+      return;
+    }
+
+    if (length < headerEnd + bodyLength) {
+      return;
+    }
+
+    final byte[] body = Arrays.copyOfRange(bytes, headerEnd, headerEnd + bodyLength);
+
+    // Keep any bytes of a following request.
+    connection.readBuffer.flip();
+    connection.readBuffer.position(headerEnd + bodyLength);
+    connection.readBuffer.compact();
+
+    connection.handlingRequest = true;
+    connection.key.interestOps(0);
+
+    threadPool.execute(new Runnable() {
+      @Override
+      public void run() {
+        createResponse(connection, header, body);
+      }
+    });
+  }
+
+  private void read(Connection connection) throws IOException {
+    ByteBuffer buffer = connection.readBuffer;
+
+    if (!buffer.hasRemaining()) {
+      if (buffer.capacity() >= MAX_REQUEST_SIZE) {
+        close(connection);
+
+        return;
+      }
+
+      ByteBuffer newBuffer = ByteBuffer.allocate(buffer.capacity() * 2);
+
+      buffer.flip();
+      newBuffer.put(buffer);
+
+      connection.readBuffer = buffer = newBuffer;
+    }
+
+    if (connection.channel.read(buffer) == -1) {
+      close(connection);
+
+      return;
+    }
+
+    connection.lastActivity = System.currentTimeMillis();
+
+    processRequest(connection);
+  }
+
+  /**
+   * Write as much of the current response of the given connection as can be written without
+   * blocking. Once the whole response has been written, either close the connection or start
+   * reading its next request.
+   */
+  private void write(Connection connection) throws IOException {
+    connection.lastActivity = System.currentTimeMillis();
+
+    if (hasRemaining(connection.writeBuffers)) {
+      connection.channel.write(connection.writeBuffers);
+
+      if (hasRemaining(connection.writeBuffers)) {
+        return;
+      }
+    }
+
+    while (connection.fileChannel != null && connection.filePosition < connection.fileEnd) {
+      long count = connection.fileChannel.transferTo(
+          connection.filePosition,
+          connection.fileEnd - connection.filePosition,
+          connection.channel);
+
+      if (count == 0) {
+        if (connection.filePosition >= connection.fileChannel.size()) {
+          throw new IOException("File truncated while being served");
+        }
+
+        return;
+      }
+
+      connection.filePosition += count;
+    }
+
+    closeFile(connection);
+
+    connection.writeBuffers = null;
+
+    if (connection.closeAfterWrite) {
+      close(connection);
+    } else {
+      connection.key.interestOps(SelectionKey.OP_READ);
+
+      // The client may have sent its next request already.
+      processRequest(connection);
+    }
+  }
+
+  /**
+   * Start writing the responses created by the thread pool.
+   */
+  private void writeCompletedResponses() {
+    List<Connection> completed;
+
+    synchronized (completedConnections) {
+      if (completedConnections.isEmpty()) {
+        return;
+      }
+
+      completed = new ArrayList<Connection>(completedConnections);
+      completedConnections.clear();
+    }
+
+    for (Connection connection : completed) {
+      connection.handlingRequest = false;
+
+      if (!connection.channel.isOpen() || connection.writeBuffers == null) {
+        close(connection);
+
+        continue;
+      }
+
+      try {
+        connection.key.interestOps(SelectionKey.OP_WRITE);
+
+        write(connection);
+      } catch (IOException exception) {
+        handleException(connection, exception);
+      }
+    }
+  }
+
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright (c) 2013, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.dart.tools.debug.core.server;
+
+import junit.framework.TestCase;
+
+import static org.junit.Assert.assertArrayEquals;
+
+public class VmLatencyHistogramTest extends TestCase {
+
+  private static final long MILLIS = 1000 * 1000;
+
+  public void testBuckets() {
+    VmLatencyHistogram histogram = new VmLatencyHistogram();
+
+    histogram.record("getStackTrace", 0);
+    histogram.record("getStackTrace", 1 * MILLIS);
+    histogram.record("getStackTrace", 3 * MILLIS);
+    histogram.record("getStackTrace", 4 * MILLIS);
+    histogram.record("getStackTrace", 5000 * MILLIS);
+
+    assertArrayEquals(
+        new int[] {1, 1, 1, 1, 0, 0, 0, 0, 0, 0, 0, 1},
+        histogram.getBuckets("getStackTrace"));
+  }
+
+  public void testCounts() {
+    VmLatencyHistogram histogram = new VmLatencyHistogram();
+
+    histogram.record("getObjectProperties", 2 * MILLIS);
+    histogram.record("getObjectProperties", 2 * MILLIS);
+    histogram.record("getClassProperties", 100 * MILLIS);
+
+    assertEquals(3, histogram.getCount());
+    assertEquals(2, histogram.getCount("getObjectProperties"));
+    assertEquals(1, histogram.getCount("getClassProperties"));
+    assertEquals(0, histogram.getCount("resume"));
+    assertEquals(3, histogram.getBuckets()[2] + histogram.getBuckets()[7]);
+    assertTrue(histogram.toString().contains("getObjectProperties"));
+
+    histogram.reset();
+
+    assertEquals(0, histogram.getCount());
+  }
+
+}
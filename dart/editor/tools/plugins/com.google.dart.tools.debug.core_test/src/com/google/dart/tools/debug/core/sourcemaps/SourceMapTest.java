@@ -60,6 +60,30 @@ public class SourceMapTest extends AbstractDartCoreTest {
     assertEquals("foo.js,1,-1", map.getMappingFor(2, 1).toString());
   }
 
+  public void testSimpleReverseMapping() throws Exception {
+    IFile file = testProject.setFileContent("foo.dart.js.map", TEST_SOURCE);
+
+    SourceMap map = SourceMap.createFrom(file);
+
+    SourceMapInfo info = map.getReverseMappingFor("foo.js", 1);
+    assertEquals(2, info.getLine());
+    assertEquals(0, info.getColumn());
+    assertEquals(null, map.getReverseMappingFor("foo.js", 0));
+    assertEquals(null, map.getReverseMappingFor("bar.js", 1));
+    assertEquals(null, map.getReverseMappingFor("baz.js", 1));
+  }
+
+  public void testSolarNames() throws Exception {
+    IFile file = testProject.setFileContent(
+        "foo.dart.js.map",
+        getClass().getResourceAsStream("solar.dart.js.map"));
+
+    SourceMap map = SourceMap.createFrom(file);
+
+    assertEquals("orbitSpeed", map.getMappingFor(1351, 17).getName());
+    assertEquals("Point", map.getMappingFor(1351, 18).getName());
+  }
+
   public void testSolarParse() throws Exception {
     IFile file = testProject.setFileContent(
         "foo.dart.js.map",
@@ -88,6 +112,26 @@ public class SourceMapTest extends AbstractDartCoreTest {
         map.getMappingFor(1353, 60).toString());
   }
 
+  public void testSolarReverseMapping() throws Exception {
+    String solarFile = "file:///C:/Users/username/solar/solar.dart";
+
+    IFile file = testProject.setFileContent(
+        "foo.dart.js.map",
+        getClass().getResourceAsStream("solar.dart.js.map"));
+
+    SourceMap map = SourceMap.createFrom(file);
+
+    SourceMapInfo info = map.getReverseMappingFor(solarFile, 263);
+    assertEquals(1351, info.getLine());
+    assertEquals(18, info.getColumn());
+
+    info = map.getReverseMappingFor(solarFile, 264);
+    assertEquals(1353, info.getLine());
+    assertEquals(6, info.getColumn());
+
+    assertEquals(null, map.getReverseMappingFor(solarFile, 5000));
+  }
+
   public void x_testParseSpeed() throws Exception {
     URL bundleURL = FileLocator.find(DartDebugCoreTestPlugin.getPlugin().getBundle(), new Path(
         "src/com/google/dart/tools/debug/core/sourcemaps/solar.dart.js.map"), null);
@@ -0,0 +1,201 @@
+/*
+ * Copyright (c) 2013, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.dart.tools.debug.core.util;
+
+import com.google.common.io.ByteStreams;
+import com.google.common.io.Files;
+
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * A load test of the {@link ResourceServer}. An application of a few hundred assets and a large
+ * *.dart.js file is loaded several times by as many concurrent clients as a browser uses for a
+ * host, first unconditionally and then revalidating the assets with the entity tags returned by
+ * the server, in both the blocking and the selector modes of the server. The benchmark is not part
+ * of {@link TestAll} because of how long it takes to run.
+ */
+public class ResourceServerBenchmark extends TestCase {
+
+  private static final int ASSET_COUNT = 300;
+
+  private static final int ASSET_SIZE = 16 * 1024;
+
+  private static final int SCRIPT_SIZE = 4 * 1024 * 1024;
+
+  private static final int CLIENT_COUNT = 6;
+
+  private static final int LOAD_COUNT = 10;
+
+  private File tempDir;
+
+  private List<File> files = new ArrayList<File>();
+
+  public void test_loadApplication() throws Exception {
+    // Warm up both modes before measuring them.
+    loadApplication(false);
+    loadApplication(true);
+
+    long[] blockingTimes = loadApplication(false);
+    long[] selectorTimes = loadApplication(true);
+
+    System.out.println("Loaded " + files.size() + " files " + LOAD_COUNT + " times with "
+        + CLIENT_COUNT + " clients");
+    System.out.println("blocking: " + blockingTimes[0] + " ms to load, " + blockingTimes[1]
+        + " ms to revalidate");
+    System.out.println("selector: " + selectorTimes[0] + " ms to load, " + selectorTimes[1]
+        + " ms to revalidate");
+  }
+
+  @Override
+  protected void setUp() throws Exception {
+    tempDir = Files.createTempDir();
+
+    Random random = new Random(0);
+
+    for (int i = 0; i < ASSET_COUNT; i++) {
+      files.add(createFile("asset" + i + ".png", ASSET_SIZE, random));
+    }
+
+    files.add(createFile("app.dart.js", SCRIPT_SIZE, random));
+  }
+
+  @Override
+  protected void tearDown() throws Exception {
+    for (File file : files) {
+      file.delete();
+    }
+
+    tempDir.delete();
+  }
+
+  private File createFile(String name, int size, Random random) throws IOException {
+    File file = new File(tempDir, name);
+    byte[] content = new byte[size];
+
+    // Keep the content printable, as the *.dart.js file is served as text.
+    for (int i = 0; i < size; i++) {
+      content[i] = (byte) ('a' + random.nextInt(26));
+    }
+
+    Files.write(content, file);
+
+    return file;
+  }
+
+  /**
+   * Request the given url, sending the entity tag recorded for it if there is one, read the whole
+   * response and record the entity tag of the response.
+   */
+  private void fetch(URL url, Map<URL, String> etags) throws IOException {
+    HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+    String etag = etags.get(url);
+
+    if (etag != null) {
+      connection.setRequestProperty("If-None-Match", etag);
+    }
+
+    int responseCode = connection.getResponseCode();
+
+    if (responseCode == HttpURLConnection.HTTP_OK) {
+      InputStream in = connection.getInputStream();
+
+      try {
+        ByteStreams.toByteArray(in);
+      } finally {
+        in.close();
+      }
+
+      etags.put(url, connection.getHeaderField("ETag"));
+    } else if (responseCode != HttpURLConnection.HTTP_NOT_MODIFIED) {
+      fail("Unexpected response " + responseCode + " for " + url);
+    }
+  }
+
+  /**
+   * Load every file of the application {@link #LOAD_COUNT} times, then revalidate them as many
+   * times, and return the number of milliseconds each took.
+   */
+  private long[] loadApplication(boolean useSelector) throws Exception {
+    ResourceServer server = new ResourceServer(0, useSelector);
+    ExecutorService clients = Executors.newFixedThreadPool(CLIENT_COUNT);
+
+    try {
+      List<URL> urls = new ArrayList<URL>();
+
+      for (File file : files) {
+        urls.add(new URL(server.getUrlForFile(file)));
+      }
+
+      Map<URL, String> etags = new ConcurrentHashMap<URL, String>();
+
+      long startTime = System.currentTimeMillis();
+
+      for (int i = 0; i < LOAD_COUNT; i++) {
+        etags.clear();
+        loadUrls(clients, urls, etags);
+      }
+
+      long loadTime = System.currentTimeMillis() - startTime;
+
+      startTime = System.currentTimeMillis();
+
+      for (int i = 0; i < LOAD_COUNT; i++) {
+        loadUrls(clients, urls, etags);
+      }
+
+      long revalidateTime = System.currentTimeMillis() - startTime;
+
+      return new long[] {loadTime, revalidateTime};
+    } finally {
+      clients.shutdown();
+      server.shutdown();
+    }
+  }
+
+  private void loadUrls(ExecutorService clients, List<URL> urls, final Map<URL, String> etags)
+      throws Exception {
+    List<Future<Void>> results = new ArrayList<Future<Void>>();
+
+    for (final URL url : urls) {
+      results.add(clients.submit(new Callable<Void>() {
+        @Override
+        public Void call() throws Exception {
+          fetch(url, etags);
+          return null;
+        }
+      }));
+    }
+
+    for (Future<Void> result : results) {
+      result.get();
+    }
+  }
+
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2013, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.dart.tools.debug.core.util;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.ByteStreams;
+import com.google.common.io.Files;
+
+import junit.framework.TestCase;
+
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.Socket;
+import java.net.URL;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class ResourceServerTest extends TestCase {
+
+  private File tempDir;
+
+  public void test_blocking_notModified() throws IOException {
+    checkNotModified(new ResourceServer(0, false));
+  }
+
+  public void test_selector_keepAlive() throws IOException {
+    ResourceServer server = new ResourceServer(0, true);
+
+    try {
+      File file = createFile("foo.txt", "foo bar baz");
+      String path = new URL(server.getUrlForFile(file)).getPath();
+
+      Socket socket = new Socket("127.0.0.1", server.getPort());
+
+      try {
+        OutputStream out = socket.getOutputStream();
+        DataInputStream in = new DataInputStream(socket.getInputStream());
+
+        // Send two requests before reading either response.
+        String request = "GET " + path + " HTTP/1.1\r\nHost: localhost\r\n\r\n";
+        out.write((request + request).getBytes(Charsets.US_ASCII));
+        out.flush();
+
+        for (int i = 0; i < 2; i++) {
+          Map<String, String> headers = readHeaders(in);
+
+          assertEquals("HTTP/1.1 200 OK", headers.get(null));
+          assertEquals("keep-alive", headers.get("Connection"));
+          assertEquals("11", headers.get("Content-Length"));
+
+          byte[] body = new byte[11];
+          in.readFully(body);
+          assertEquals("foo bar baz", new String(body, Charsets.US_ASCII));
+        }
+      } finally {
+        socket.close();
+      }
+    } finally {
+      server.shutdown();
+    }
+  }
+
+  public void test_selector_notModified() throws IOException {
+    checkNotModified(new ResourceServer(0, true));
+  }
+
+  @Override
+  protected void setUp() throws Exception {
+    tempDir = Files.createTempDir();
+  }
+
+  @Override
+  protected void tearDown() throws Exception {
+    for (File file : tempDir.listFiles()) {
+      file.delete();
+    }
+
+    tempDir.delete();
+  }
+
+  private void checkNotModified(ResourceServer server) throws IOException {
+    try {
+      File file = createFile("foo.css", "body { color: red; }");
+      URL url = new URL(server.getUrlForFile(file));
+
+      HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+      assertEquals(200, connection.getResponseCode());
+      String etag = connection.getHeaderField("ETag");
+      assertNotNull(etag);
+      assertEquals("body { color: red; }", new String(
+          ByteStreams.toByteArray(connection.getInputStream()),
+          Charsets.UTF_8));
+
+      connection = (HttpURLConnection) url.openConnection();
+      connection.setRequestProperty("If-None-Match", etag);
+      assertEquals(304, connection.getResponseCode());
+
+      assertTrue(file.setLastModified(file.lastModified() - 10000));
+
+      connection = (HttpURLConnection) url.openConnection();
+      connection.setRequestProperty("If-None-Match", etag);
+      assertEquals(200, connection.getResponseCode());
+      assertFalse(etag.equals(connection.getHeaderField("ETag")));
+      ByteStreams.toByteArray(connection.getInputStream());
+    } finally {
+      server.shutdown();
+    }
+  }
+
+  private File createFile(String name, String content) throws IOException {
+    File file = new File(tempDir, name);
+
+    Files.write(content, file, Charsets.UTF_8);
+
+    return file;
+  }
+
+  /**
+   * Read the status line and the headers of a response; the status line is mapped from null.
+   */
+  @SuppressWarnings("deprecation")
+  private Map<String, String> readHeaders(DataInputStream in) throws IOException {
+    Map<String, String> headers = new LinkedHashMap<String, String>();
+
+    headers.put(null, in.readLine());
+
+    String line = in.readLine();
+
+    while (line != null && !line.isEmpty()) {
+      int index = line.indexOf(':');
+
+      headers.put(line.substring(0, index), line.substring(index + 1).trim());
+
+      line = in.readLine();
+    }
+
+    return headers;
+  }
+
+}
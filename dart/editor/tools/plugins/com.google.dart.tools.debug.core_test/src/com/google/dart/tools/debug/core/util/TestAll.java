@@ -22,6 +22,7 @@ public class TestAll {
     TestSuite suite = new TestSuite("Tests in " + TestAll.class.getPackage().getName());
     suite.addTestSuite(HttpUrlConnectorTest.class);
     suite.addTestSuite(JsonTests.class);
+    suite.addTestSuite(ResourceServerTest.class);
     return suite;
   }
 }
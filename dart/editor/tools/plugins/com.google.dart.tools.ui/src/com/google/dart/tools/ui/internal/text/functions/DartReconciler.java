@@ -52,10 +52,16 @@ public class DartReconciler extends MonoReconciler {
     private final long time = System.currentTimeMillis();
     private final String code;
     private final Point selectionRange;
+    /**
+     * The offset, the old length and the new length of the region of the code that was changed
+     * since the code was last given to the context, or {@code null} if the region is not known.
+     */
+    private final int[] change;
 
-    public EditorState(String code, Point selectionRange) {
+    public EditorState(String code, Point selectionRange, int[] change) {
       this.code = code;
       this.selectionRange = selectionRange;
+      this.change = change;
     }
   }
 
@@ -68,13 +74,21 @@ public class DartReconciler extends MonoReconciler {
 
     @Override
     public void documentChanged(DocumentEvent event) {
-      putEditorState(true);
+      synchronized (editorStateLock) {
+        String text = event.getText();
+        recordChange(event.getOffset(), event.getLength(), text != null ? text.length() : 0);
+        putEditorState(true);
+      }
     }
 
     @Override
     public void documentRewriteSessionChanged(DocumentRewriteSessionEvent event) {
       if (event.getChangeType() == DocumentRewriteSessionEvent.SESSION_START) {
         event.getDocument().removeDocumentListener(this);
+        // the changes made during the session are not reported
+        synchronized (editorStateLock) {
+          changeKnown = false;
+        }
       }
       if (event.getChangeType() == DocumentRewriteSessionEvent.SESSION_STOP) {
         event.getDocument().addDocumentListener(this);
@@ -100,7 +114,10 @@ public class DartReconciler extends MonoReconciler {
         }
       }
       if (oldInput != null) {
-        putEditorState(true);
+        synchronized (editorStateLock) {
+          changeKnown = false;
+          putEditorState(true);
+        }
       }
     }
 
@@ -121,6 +138,20 @@ public class DartReconciler extends MonoReconciler {
   private EditorState editorState;
   private EditorState loopEditorState;
   private String oldCode = UNCHANGED_CODE;
+
+  /**
+   * The offset, the old length and the new length of the region of the document that was changed
+   * since the code was last given to the context, or {@code null} if no change was recorded. This
+   * field is guarded by {@link #editorStateLock}.
+   */
+  private int[] change;
+
+  /**
+   * A flag indicating whether all of the changes to the document since the code was last given to
+   * the context were recorded. This field is guarded by {@link #editorStateLock}.
+   */
+  private boolean changeKnown = true;
+
   private final Listener documentListener = new Listener();
 
   private Boolean lastReadOnly = null;
@@ -255,6 +286,14 @@ public class DartReconciler extends MonoReconciler {
    * Notifies {@link AnalysisContext} that {@link Source} was changed.
    */
   private void notifyContextAboutCode(String code) {
+    notifyContextAboutCode(code, null);
+  }
+
+  /**
+   * Notifies {@link AnalysisContext} that {@link Source} was changed in the given region, described
+   * by its offset, old length and new length, or in an unknown region if {@code null}.
+   */
+  private void notifyContextAboutCode(String code, int[] change) {
     if (project == null) {
       return;
     }
@@ -273,7 +312,11 @@ public class DartReconciler extends MonoReconciler {
       return;
     }
     // notify AnalysisContext about change
-    context.setContents(source, code);
+    if (code != null && change != null) {
+      context.setChangedContents(source, code, change[0], change[1], change[2]);
+    } else {
+      context.setContents(source, code);
+    }
     // schedule re-analyzing
     new AnalysisWorker(project, context).performAnalysisInBackground();
   }
@@ -289,7 +332,7 @@ public class DartReconciler extends MonoReconciler {
         String code = document.get();
         Point selectionRange = textViewer.getSelectedRange();
         synchronized (editorStateLock) {
-          editorState = new EditorState(code, selectionRange);
+          editorState = new EditorState(code, selectionRange, changeKnown ? change : null);
           // notify editor that CompilationUnit is not valid anymore
           if (clearUnitElement) {
             editor.applyCompilationUnitElement(null);
@@ -300,6 +343,24 @@ public class DartReconciler extends MonoReconciler {
     }
   }
 
+  /**
+   * Merges the change of the given region of the document with the changes recorded since the code
+   * was last given to the context.
+   * <p>
+   * Must be invoked while holding {@link #editorStateLock}.
+   */
+  private void recordChange(int offset, int oldLength, int newLength) {
+    if (change == null) {
+      change = new int[] {offset, oldLength, newLength};
+    } else {
+      int start = Math.min(change[0], offset);
+      int end = Math.max(change[0] + change[2], offset + oldLength);
+      int mergedOldLength = end - change[2] + change[1] - start;
+      int mergedNewLength = end + newLength - oldLength - start;
+      change = new int[] {start, mergedOldLength, mergedNewLength};
+    }
+  }
+
   /**
    * Performs main refresh loop to reflect changes in {@link DartEditor} and/or environment.
    */
@@ -346,11 +407,14 @@ public class DartReconciler extends MonoReconciler {
             if (editorState != null && System.currentTimeMillis() - editorState.time > 100) {
               loopEditorState = editorState;
               editorState = null;
+              // the next changes are relative to the code given to the context
+              change = null;
+              changeKnown = true;
             }
           }
           // apply EditorState if it is ready
           if (loopEditorState != null) {
-            notifyContextAboutCode(loopEditorState.code);
+            notifyContextAboutCode(loopEditorState.code, loopEditorState.change);
             CompilationUnit parsedUnit = getParsedUnit();
             boolean newUnit = !Objects.equal(parsedUnit, lastParsedUnit.get());
             lastParsedUnit = new WeakReference<CompilationUnit>(parsedUnit);